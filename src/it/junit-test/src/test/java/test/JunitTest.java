@@ -275,12 +275,14 @@ public class JunitTest {
                     SpreadsheetCellStores.treeMap(),
                     SpreadsheetExpressionReferenceStores.treeMap(),
                     SpreadsheetColumnStores.treeMap(),
+                    SpreadsheetCellRangeStores.treeMap(),
                     SpreadsheetGroupStores.fake(),
                     SpreadsheetLabelStores.treeMap(),
                     SpreadsheetExpressionReferenceStores.treeMap(),
                     SpreadsheetMetadataStores.fake(),
                     SpreadsheetCellRangeStores.treeMap(),
                     SpreadsheetCellRangeStores.treeMap(),
+                    SpreadsheetCellRangeStores.treeMap(),
                     SpreadsheetRowStores.treeMap(),
                     SpreadsheetUserStores.fake()
             );
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.SpreadsheetFormula;
+import walkingkooka.spreadsheet.SpreadsheetViewport;
+import walkingkooka.spreadsheet.engine.SpreadsheetDelta;
+import walkingkooka.spreadsheet.engine.SpreadsheetDeltaProperties;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineEvaluation;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link walkingkooka.spreadsheet.engine.SpreadsheetEngine#saveCells(Set, walkingkooka.spreadsheet.engine.SpreadsheetEngineContext)},
+ * {@link walkingkooka.spreadsheet.engine.SpreadsheetEngine#loadCells(SpreadsheetSelection, SpreadsheetEngineEvaluation, Set, walkingkooka.spreadsheet.engine.SpreadsheetEngineContext)}
+ * and {@link walkingkooka.spreadsheet.engine.SpreadsheetEngine#window(SpreadsheetViewport, boolean, Optional, walkingkooka.spreadsheet.engine.SpreadsheetEngineContext)}
+ * against generated workbooks of different sizes and shapes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BasicSpreadsheetEngineBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int cells;
+
+    @Param({"VALUES", "CHAINS", "FAN_IN", "LABELS"})
+    public SpreadsheetBenchmarkWorkbookShape shape;
+
+    private SpreadsheetBenchmarkWorkbook workbook;
+
+    /**
+     * A range about the size of a browser window.
+     */
+    private SpreadsheetCellRange viewportRange;
+
+    private SpreadsheetViewport viewport;
+
+    /**
+     * The first row of cells, saved again with a new value by each invocation of {@link #saveCells()}.
+     */
+    private Set<SpreadsheetCell> firstRow;
+
+    private SpreadsheetCell head;
+
+    private int counter;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final SpreadsheetBenchmarkWorkbook workbook = SpreadsheetBenchmarkWorkbook.with(
+                this.cells,
+                this.shape
+        );
+        this.workbook = workbook;
+
+        this.viewportRange = SpreadsheetBenchmarkWorkbook.cell(0, 0)
+                .cellRange(
+                        SpreadsheetBenchmarkWorkbook.cell(
+                                SpreadsheetBenchmarkWorkbook.COLUMNS - 1,
+                                Math.min(40, workbook.rows) - 1
+                        )
+                );
+        this.viewport = SpreadsheetViewport.with(
+                SpreadsheetBenchmarkWorkbook.cell(0, 0),
+                1600,
+                900
+        );
+
+        final Set<SpreadsheetCell> firstRow = Sets.ordered();
+        for (int column = 0; column < SpreadsheetBenchmarkWorkbook.COLUMNS; column++) {
+            firstRow.add(this.cell(SpreadsheetBenchmarkWorkbook.cell(column, 0), column));
+        }
+        this.firstRow = firstRow;
+
+        this.head = this.cell(SpreadsheetBenchmarkWorkbook.cell(0, 0), 0);
+    }
+
+    private SpreadsheetCell cell(final SpreadsheetCellReference reference,
+                                 final int value) {
+        return reference.setFormula(
+                SpreadsheetFormula.EMPTY.setText(String.valueOf(value))
+        );
+    }
+
+    /**
+     * Saves the first row of cells, which refreshes any referrers such as chains and fan ins.
+     */
+    @Benchmark
+    public SpreadsheetDelta saveCells() {
+        final int value = this.counter++;
+        final Set<SpreadsheetCell> cells = Sets.ordered();
+        for (final SpreadsheetCell cell : this.firstRow) {
+            cells.add(this.cell(cell.reference(), value));
+        }
+
+        return this.workbook.engine.saveCells(
+                cells,
+                this.workbook.context
+        );
+    }
+
+    /**
+     * Saves a single cell at the head of the first column.
+     */
+    @Benchmark
+    public SpreadsheetDelta saveCell() {
+        return this.workbook.engine.saveCell(
+                this.cell(this.head.reference(), this.counter++),
+                this.workbook.context
+        );
+    }
+
+    /**
+     * Loads the cells visible in a browser window, which have already been evaluated.
+     */
+    @Benchmark
+    public SpreadsheetDelta loadCellsComputeIfNecessary() {
+        return this.workbook.engine.loadCells(
+                this.viewportRange,
+                SpreadsheetEngineEvaluation.COMPUTE_IF_NECESSARY,
+                SpreadsheetDeltaProperties.ALL,
+                this.workbook.context
+        );
+    }
+
+    /**
+     * Loads and evaluates again the cells visible in a browser window.
+     */
+    @Benchmark
+    public SpreadsheetDelta loadCellsForceRecompute() {
+        return this.workbook.engine.loadCells(
+                this.viewportRange,
+                SpreadsheetEngineEvaluation.FORCE_RECOMPUTE,
+                SpreadsheetDeltaProperties.ALL,
+                this.workbook.context
+        );
+    }
+
+    /**
+     * Computes the ranges visible in a browser window.
+     */
+    @Benchmark
+    public Set<SpreadsheetCellRange> window() {
+        return this.workbook.engine.window(
+                this.viewport,
+                false,
+                Optional.empty(),
+                this.workbook.context
+        );
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import walkingkooka.spreadsheet.SpreadsheetFormula;
+import walkingkooka.spreadsheet.engine.SpreadsheetDelta;
+import walkingkooka.spreadsheet.engine.SpreadsheetDeltaProperties;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngine;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineEvaluation;
+import walkingkooka.spreadsheet.engine.concurrent.ConcurrentSpreadsheetCellStores;
+import walkingkooka.spreadsheet.engine.concurrent.ConcurrentSpreadsheetEngines;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.store.SpreadsheetCellStore;
+import walkingkooka.spreadsheet.store.SpreadsheetCellStores;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks the throughput of many threads loading the same viewport of a single spreadsheet through the locking
+ * engine, alone and while another thread saves a cell. With a tree map cell store loading cells takes the write lock
+ * and readers wait for each other, while readers of a versioned cell store read a snapshot without any lock.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LockingSpreadsheetEngineBenchmark {
+
+    @Param({"1000", "10000"})
+    public int cells;
+
+    @Param({"TREE_MAP", "VERSIONED"})
+    public String cellStore;
+
+    private SpreadsheetBenchmarkWorkbook workbook;
+
+    private SpreadsheetEngine engine;
+
+    /**
+     * A range about the size of a browser window.
+     */
+    private SpreadsheetCellRange viewportRange;
+
+    /**
+     * The cell saved by the writer, which is outside the viewport.
+     */
+    private SpreadsheetCellReference saved;
+
+    private final AtomicLong saves = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final SpreadsheetBenchmarkWorkbook workbook = SpreadsheetBenchmarkWorkbook.with(
+                this.cells,
+                SpreadsheetBenchmarkWorkbookShape.VALUES,
+                false,
+                this.cellStore()
+        );
+        this.workbook = workbook;
+        this.engine = ConcurrentSpreadsheetEngines.locking(workbook.engine);
+
+        this.viewportRange = SpreadsheetBenchmarkWorkbook.cell(0, 0)
+                .cellRange(
+                        SpreadsheetBenchmarkWorkbook.cell(
+                                SpreadsheetBenchmarkWorkbook.COLUMNS - 1,
+                                Math.min(40, workbook.rows) - 1
+                        )
+                );
+        this.saved = SpreadsheetBenchmarkWorkbook.cell(0, workbook.rows);
+
+        // the first load may evaluate and save cells, only repeated loads are measured.
+        this.loadCells();
+    }
+
+    private SpreadsheetCellStore cellStore() {
+        switch (this.cellStore) {
+            case "TREE_MAP":
+                return SpreadsheetCellStores.treeMap();
+            case "VERSIONED":
+                return ConcurrentSpreadsheetCellStores.versioned();
+            default:
+                throw new IllegalArgumentException("Unknown cell store " + this.cellStore);
+        }
+    }
+
+    /**
+     * Readers loading the viewport without any writer.
+     */
+    @Benchmark
+    @Group("readers")
+    @GroupThreads(4)
+    public SpreadsheetDelta readersLoadCells() {
+        return this.loadCells();
+    }
+
+    /**
+     * Readers loading the viewport while a single writer saves cells.
+     */
+    @Benchmark
+    @Group("readersAndWriter")
+    @GroupThreads(4)
+    public SpreadsheetDelta readersAndWriterLoadCells() {
+        return this.loadCells();
+    }
+
+    @Benchmark
+    @Group("readersAndWriter")
+    @GroupThreads(1)
+    public SpreadsheetDelta readersAndWriterSaveCell() {
+        return this.engine.saveCell(
+                this.saved.setFormula(
+                        SpreadsheetFormula.EMPTY.setText(
+                                String.valueOf(this.saves.incrementAndGet())
+                        )
+                ),
+                this.workbook.context
+        );
+    }
+
+    private SpreadsheetDelta loadCells() {
+        return this.engine.loadCells(
+                this.viewportRange,
+                SpreadsheetEngineEvaluation.COMPUTE_IF_NECESSARY,
+                SpreadsheetDeltaProperties.ALL,
+                this.workbook.context
+        );
+    }
+}
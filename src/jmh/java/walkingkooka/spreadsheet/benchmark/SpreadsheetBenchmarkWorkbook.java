@@ -0,0 +1,351 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.benchmark;
+
+import walkingkooka.collect.set.Sets;
+import walkingkooka.math.Fraction;
+import walkingkooka.net.AbsoluteUrl;
+import walkingkooka.net.Url;
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.SpreadsheetDescription;
+import walkingkooka.spreadsheet.SpreadsheetFormula;
+import walkingkooka.spreadsheet.SpreadsheetId;
+import walkingkooka.spreadsheet.conditionalformat.SpreadsheetConditionalFormattingRule;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngine;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineContext;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineContexts;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineTracers;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngines;
+import walkingkooka.spreadsheet.meta.SpreadsheetMetadata;
+import walkingkooka.spreadsheet.meta.SpreadsheetMetadataPropertyName;
+import walkingkooka.spreadsheet.meta.store.SpreadsheetMetadataStores;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetLabelName;
+import walkingkooka.spreadsheet.reference.SpreadsheetReferenceKind;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+import walkingkooka.spreadsheet.reference.store.SpreadsheetCellRangeStores;
+import walkingkooka.spreadsheet.reference.store.SpreadsheetExpressionReferenceStores;
+import walkingkooka.spreadsheet.reference.store.SpreadsheetLabelStores;
+import walkingkooka.spreadsheet.security.store.SpreadsheetGroupStores;
+import walkingkooka.spreadsheet.security.store.SpreadsheetUserStores;
+import walkingkooka.spreadsheet.store.SpreadsheetCellStore;
+import walkingkooka.spreadsheet.store.SpreadsheetCellStores;
+import walkingkooka.spreadsheet.store.SpreadsheetColumnStores;
+import walkingkooka.spreadsheet.store.SpreadsheetRowStores;
+import walkingkooka.spreadsheet.store.repo.SpreadsheetStoreRepositories;
+import walkingkooka.spreadsheet.store.repo.SpreadsheetStoreRepository;
+import walkingkooka.tree.expression.Expression;
+import walkingkooka.tree.expression.ExpressionEvaluationContext;
+import walkingkooka.tree.expression.FunctionExpressionName;
+import walkingkooka.tree.expression.function.ExpressionFunction;
+import walkingkooka.tree.text.FontStyle;
+import walkingkooka.tree.text.TextStyle;
+import walkingkooka.tree.text.TextStylePropertyName;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Generates a workbook with a {@link SpreadsheetEngine} and {@link SpreadsheetEngineContext} backed by memory stores,
+ * filled with the requested number of cells laid out {@link #COLUMNS} wide. Cells are saved using the engine so
+ * references, labels and the conditional formatting rule covering each column are all maintained as they would be
+ * for a real spreadsheet.
+ */
+final class SpreadsheetBenchmarkWorkbook {
+
+    /**
+     * The number of columns, cells fill rows from left to right.
+     */
+    final static int COLUMNS = 26;
+
+    /**
+     * The length of each chain of cells for {@link SpreadsheetBenchmarkWorkbookShape#CHAINS}.
+     */
+    final static int CHAIN_LENGTH = 100;
+
+    /**
+     * The number of rows summed by each fan in cell for {@link SpreadsheetBenchmarkWorkbookShape#FAN_IN}.
+     */
+    final static int FAN_IN = 10;
+
+    /**
+     * A label is mapped to one of every {@link #CELLS_PER_LABEL} cells.
+     */
+    final static int CELLS_PER_LABEL = 100;
+
+    /**
+     * Cells are saved in batches of this size.
+     */
+    private final static int SAVE_BATCH = 10_000;
+
+    static SpreadsheetBenchmarkWorkbook with(final int cells,
+                                             final SpreadsheetBenchmarkWorkbookShape shape) {
+        return with(
+                cells,
+                shape,
+                false
+        );
+    }
+
+    /**
+     * Creates a workbook, which when <code>discardTokens</code> is true only keeps the text and expression of formulas.
+     */
+    static SpreadsheetBenchmarkWorkbook with(final int cells,
+                                             final SpreadsheetBenchmarkWorkbookShape shape,
+                                             final boolean discardTokens) {
+        return with(
+                cells,
+                shape,
+                discardTokens,
+                SpreadsheetCellStores.treeMap()
+        );
+    }
+
+    /**
+     * Creates a workbook that holds its cells in the given {@link SpreadsheetCellStore}.
+     */
+    static SpreadsheetBenchmarkWorkbook with(final int cells,
+                                             final SpreadsheetBenchmarkWorkbookShape shape,
+                                             final boolean discardTokens,
+                                             final SpreadsheetCellStore cellStore) {
+        if (cells <= 0) {
+            throw new IllegalArgumentException("Invalid cells " + cells + " <= 0");
+        }
+        Objects.requireNonNull(shape, "shape");
+        Objects.requireNonNull(cellStore, "cellStore");
+
+        return new SpreadsheetBenchmarkWorkbook(cells, shape, discardTokens, cellStore);
+    }
+
+    private SpreadsheetBenchmarkWorkbook(final int cells,
+                                         final SpreadsheetBenchmarkWorkbookShape shape,
+                                         final boolean discardTokens,
+                                         final SpreadsheetCellStore cellStore) {
+        super();
+
+        final SpreadsheetEngine engine = SpreadsheetEngines.basic();
+        final SpreadsheetEngineContext context = context(
+                engine,
+                cellStore,
+                false,
+                discardTokens,
+                false
+        );
+
+        this.engine = engine;
+        this.context = context;
+
+        this.rows = (cells + COLUMNS - 1) / COLUMNS;
+        this.range = cell(0, 0)
+                .cellRange(cell(COLUMNS - 1, this.rows - 1));
+
+        this.addConditionalFormattingRules();
+        this.saveLabels(cells);
+        this.saveCells(cells, shape);
+    }
+
+    /**
+     * Adds one rule covering the entire column, giving every cell a wide range to be matched against.
+     */
+    private void addConditionalFormattingRules() {
+        for (int column = 0; column < COLUMNS; column++) {
+            this.context.storeRepository()
+                    .rangeToConditionalFormattingRules()
+                    .addValue(
+                            cell(column, 0).cellRange(cell(column, this.rows - 1)),
+                            SpreadsheetConditionalFormattingRule.with(
+                                    SpreadsheetDescription.with("column " + column),
+                                    1,
+                                    SpreadsheetFormula.EMPTY
+                                            .setText("true")
+                                            .setExpression(
+                                                    Optional.of(
+                                                            Expression.value(true)
+                                                    )
+                                            ),
+                                    (c) -> STYLE
+                            )
+                    );
+        }
+    }
+
+    private final static TextStyle STYLE = TextStyle.EMPTY
+            .set(TextStylePropertyName.FONT_STYLE, FontStyle.ITALIC);
+
+    private void saveLabels(final int cells) {
+        for (int i = 0; i < cells; i += CELLS_PER_LABEL) {
+            this.engine.saveLabel(
+                    label(i / CELLS_PER_LABEL)
+                            .mapping(cell(i % COLUMNS, i / COLUMNS)),
+                    this.context
+            );
+        }
+    }
+
+    private void saveCells(final int cells,
+                           final SpreadsheetBenchmarkWorkbookShape shape) {
+        Set<SpreadsheetCell> batch = Sets.ordered();
+
+        for (int i = 0; i < cells; i++) {
+            final int column = i % COLUMNS;
+            final int row = i / COLUMNS;
+
+            batch.add(
+                    cell(column, row)
+                            .setFormula(
+                                    SpreadsheetFormula.EMPTY.setText(
+                                            shape.formula(column, row)
+                                    )
+                            )
+            );
+
+            if (batch.size() >= SAVE_BATCH) {
+                this.engine.saveCells(batch, this.context);
+                batch = Sets.ordered();
+            }
+        }
+
+        if (false == batch.isEmpty()) {
+            this.engine.saveCells(batch, this.context);
+        }
+    }
+
+    /**
+     * The engine holding the workbook.
+     */
+    final SpreadsheetEngine engine;
+
+    /**
+     * The context, which includes the {@link SpreadsheetStoreRepository} holding all cells.
+     */
+    final SpreadsheetEngineContext context;
+
+    /**
+     * The number of rows in the workbook.
+     */
+    final int rows;
+
+    /**
+     * A range that includes every cell in the workbook.
+     */
+    final SpreadsheetCellRange range;
+
+    // helpers..........................................................................................................
+
+    static SpreadsheetCellReference cell(final int column,
+                                         final int row) {
+        return SpreadsheetReferenceKind.RELATIVE.column(column)
+                .setRow(SpreadsheetReferenceKind.RELATIVE.row(row));
+    }
+
+    static int index(final int column,
+                     final int row) {
+        return row * COLUMNS + column;
+    }
+
+    static SpreadsheetLabelName label(final int label) {
+        return SpreadsheetSelection.labelName("Label" + label);
+    }
+
+    /**
+     * The {@link SpreadsheetMetadata} used by all benchmarks, which are the defaults for the EN-AU locale.
+     */
+    static SpreadsheetMetadata metadata() {
+        return SpreadsheetMetadata.NON_LOCALE_DEFAULTS
+                .set(SpreadsheetMetadataPropertyName.LOCALE, Locale.forLanguageTag("EN-AU"))
+                .loadFromLocale()
+                .set(SpreadsheetMetadataPropertyName.SPREADSHEET_ID, SpreadsheetId.with(1));
+    }
+
+    /**
+     * Creates a {@link SpreadsheetEngineContext} with empty stores for the given {@link SpreadsheetEngine}.
+     */
+    static SpreadsheetEngineContext context(final SpreadsheetEngine engine,
+                                            final boolean foldConstants,
+                                            final boolean discardTokens,
+                                            final boolean compileExpressions) {
+        return context(
+                engine,
+                SpreadsheetCellStores.treeMap(),
+                foldConstants,
+                discardTokens,
+                compileExpressions
+        );
+    }
+
+    private static SpreadsheetEngineContext context(final SpreadsheetEngine engine,
+                                                    final SpreadsheetCellStore cells,
+                                                    final boolean foldConstants,
+                                                    final boolean discardTokens,
+                                                    final boolean compileExpressions) {
+        return SpreadsheetEngineContexts.basic(
+                metadata(),
+                FUNCTIONS,
+                engine,
+                FRACTIONER,
+                repository(cells),
+                SERVER_URL,
+                LocalDateTime::now,
+                SpreadsheetEngineTracers.none(),
+                foldConstants,
+                discardTokens,
+                compileExpressions
+        );
+    }
+
+    private static SpreadsheetStoreRepository repository(final SpreadsheetCellStore cells) {
+        return SpreadsheetStoreRepositories.basic(
+                cells,
+                SpreadsheetExpressionReferenceStores.treeMap(),
+                SpreadsheetColumnStores.treeMap(),
+                SpreadsheetCellRangeStores.treeMap(),
+                SpreadsheetGroupStores.fake(),
+                SpreadsheetLabelStores.treeMap(),
+                SpreadsheetExpressionReferenceStores.treeMap(),
+                SpreadsheetMetadataStores.treeMap(),
+                SpreadsheetCellRangeStores.treeMap(),
+                SpreadsheetCellRangeStores.treeMap(),
+                SpreadsheetCellRangeStores.treeMap(),
+                SpreadsheetRowStores.treeMap(),
+                SpreadsheetUserStores.fake()
+        );
+    }
+
+    /**
+     * Workbooks only use operators, so no functions are available.
+     */
+    private final static Function<FunctionExpressionName, ExpressionFunction<?, ExpressionEvaluationContext>> FUNCTIONS = (n) -> {
+        throw new UnsupportedOperationException("Unknown function " + n);
+    };
+
+    private final static Function<BigDecimal, Fraction> FRACTIONER = (n) -> {
+        throw new UnsupportedOperationException("Fractions are not supported");
+    };
+
+    private final static AbsoluteUrl SERVER_URL = Url.parseAbsolute("https://example.com");
+
+    @Override
+    public String toString() {
+        return this.range.toString();
+    }
+}
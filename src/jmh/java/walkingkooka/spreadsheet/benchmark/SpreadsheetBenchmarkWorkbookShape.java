@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.benchmark;
+
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+
+/**
+ * The shape of the formulas within a {@link SpreadsheetBenchmarkWorkbook}.
+ */
+public enum SpreadsheetBenchmarkWorkbookShape {
+
+    /**
+     * Every cell holds a number, nothing references anything else.
+     */
+    VALUES {
+        @Override
+        String formula(final int column,
+                       final int row) {
+            return value(column, row);
+        }
+    },
+
+    /**
+     * Each column is split into chains of {@link SpreadsheetBenchmarkWorkbook#CHAIN_LENGTH} cells, where every cell
+     * adds one to the cell above, so updating the head of a chain refreshes the whole chain.
+     */
+    CHAINS {
+        @Override
+        String formula(final int column,
+                       final int row) {
+            return 0 == row % SpreadsheetBenchmarkWorkbook.CHAIN_LENGTH ?
+                    value(column, row) :
+                    "=" + SpreadsheetBenchmarkWorkbook.cell(column, row - 1) + "+1";
+        }
+    },
+
+    /**
+     * Every {@link SpreadsheetBenchmarkWorkbook#FAN_IN}th row adds all the values in the rows above it, giving cells
+     * with many references and cells with several referrers.
+     */
+    FAN_IN {
+        @Override
+        String formula(final int column,
+                       final int row) {
+            final int fanIn = SpreadsheetBenchmarkWorkbook.FAN_IN;
+            final String formula;
+
+            if (fanIn - 1 == row % fanIn) {
+                final StringBuilder b = new StringBuilder();
+                b.append('=');
+
+                for (int i = row - fanIn + 1; i < row; i++) {
+                    if (b.length() > 1) {
+                        b.append('+');
+                    }
+                    b.append(SpreadsheetBenchmarkWorkbook.cell(column, i));
+                }
+                formula = b.toString();
+            } else {
+                formula = value(column, row);
+            }
+            return formula;
+        }
+    },
+
+    /**
+     * Every cell except those in the first label block references the previous label, which is mapped to a cell
+     * {@link SpreadsheetBenchmarkWorkbook#CELLS_PER_LABEL} cells earlier.
+     */
+    LABELS {
+        @Override
+        String formula(final int column,
+                       final int row) {
+            final int index = SpreadsheetBenchmarkWorkbook.index(column, row);
+            final int label = index / SpreadsheetBenchmarkWorkbook.CELLS_PER_LABEL;
+
+            return 0 == label ?
+                    value(column, row) :
+                    "=" + SpreadsheetBenchmarkWorkbook.label(label - 1) + "+1";
+        }
+    };
+
+    /**
+     * Returns the formula text for the cell at the given column and row.
+     */
+    abstract String formula(final int column,
+                            final int row);
+
+    /**
+     * The formula for a {@link SpreadsheetCellReference} without any references.
+     */
+    private static String value(final int column,
+                                final int row) {
+        return String.valueOf(
+                SpreadsheetBenchmarkWorkbook.index(column, row)
+        );
+    }
+}
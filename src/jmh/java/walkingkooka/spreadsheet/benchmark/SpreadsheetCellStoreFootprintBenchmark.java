@@ -0,0 +1,146 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.store.SpreadsheetCellStore;
+import walkingkooka.spreadsheet.store.SpreadsheetCellStoreCursorOrder;
+import walkingkooka.spreadsheet.store.SpreadsheetCellStores;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the heap retained by a {@link SpreadsheetCellStore} filled with cells, reported using
+ * {@link SpreadsheetCellStoreFootprintBenchmarkCounters}, along with the cost of paging through its cells in order.
+ * The cells are copied from a workbook, so they hold the token, expression, value and formatted text of each formula,
+ * and the same cell instances are saved to every store, so only the store itself differs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpreadsheetCellStoreFootprintBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int cells;
+
+    @Param({"VALUES", "CHAINS", "FAN_IN", "LABELS"})
+    public SpreadsheetBenchmarkWorkbookShape shape;
+
+    @Param({"treeMap", "packed", "columnar"})
+    public String store;
+
+    /**
+     * The number of cells in each page read by {@link #values()}.
+     */
+    private final static int PAGE = 1000;
+
+    private SpreadsheetCell[] saved;
+
+    private SpreadsheetCellStore cellStore;
+
+    private long heapBytes;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final int cells = this.cells;
+
+        final SpreadsheetCell[] saved = new SpreadsheetCell[cells];
+        final Iterator<SpreadsheetCell> cursor = SpreadsheetBenchmarkWorkbook.with(cells, this.shape)
+                .context
+                .storeRepository()
+                .cells()
+                .cursor(SpreadsheetCellStoreCursorOrder.COLUMN_MAJOR);
+        for (int i = 0; i < cells; i++) {
+            saved[i] = cursor.next();
+        }
+        this.saved = saved;
+
+        final long before = usedHeap();
+
+        final SpreadsheetCellStore cellStore = this.createStore();
+        for (final SpreadsheetCell cell : saved) {
+            cellStore.save(cell);
+        }
+        this.cellStore = cellStore;
+
+        this.heapBytes = usedHeap() - before;
+    }
+
+    private SpreadsheetCellStore createStore() {
+        switch (this.store) {
+            case "treeMap":
+                return SpreadsheetCellStores.treeMap();
+            case "packed":
+                return SpreadsheetCellStores.packed();
+            case "columnar":
+                return SpreadsheetCellStores.columnar();
+            default:
+                throw new IllegalArgumentException("Unknown store " + this.store);
+        }
+    }
+
+    /**
+     * Returns the used heap after requesting a few garbage collections, which is only approximate but stable enough to
+     * compare stores against each other.
+     */
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Reads the next page of cells, wrapping back to the first cell after the last page.
+     */
+    @Benchmark
+    public List<SpreadsheetCell> values(final SpreadsheetCellStoreFootprintBenchmarkCounters counters) {
+        counters.heapBytes = this.heapBytes;
+        counters.heapBytesPerCell = this.heapBytes / this.cells;
+
+        final int next = this.next;
+        this.next = (next + PAGE) % this.cells;
+
+        return this.cellStore.values(
+                this.saved[next].reference(),
+                PAGE
+        );
+    }
+}
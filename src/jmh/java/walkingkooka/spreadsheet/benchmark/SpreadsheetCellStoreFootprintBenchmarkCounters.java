@@ -0,0 +1,48 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Reports the heap retained by the store of each {@link SpreadsheetCellStoreFootprintBenchmark} alongside its timing.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class SpreadsheetCellStoreFootprintBenchmarkCounters {
+
+    /**
+     * The approximate heap in bytes retained by the store.
+     */
+    public long heapBytes;
+
+    /**
+     * The approximate heap in bytes retained by the store for each cell.
+     */
+    public long heapBytesPerCell;
+
+    @Setup(Level.Iteration)
+    public void clear() {
+        this.heapBytes = 0;
+        this.heapBytesPerCell = 0;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.SpreadsheetFormula;
+import walkingkooka.spreadsheet.engine.SpreadsheetDelta;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngine;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineContext;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngines;
+import walkingkooka.tree.expression.Expression;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks evaluating formulas interpreted and compiled, both directly and by saving a referenced cell so the engine
+ * evaluates the cell again, using the compiled form kept when only the value of the formula is cleared.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpreadsheetCompiledExpressionsBenchmark {
+
+    @Param({
+            "=1+2",
+            "=A1*(1+0.2)",
+            "=((1+2)*(3+4)-(5+6)*(7+8))/9",
+            "=A1+2*3-4/2",
+            "=-(1+2)^2*A1"
+    })
+    public String formula;
+
+    @Param({"false", "true"})
+    public boolean compileExpressions;
+
+    private SpreadsheetEngine engine;
+
+    private SpreadsheetEngineContext context;
+
+    private SpreadsheetCell referenced;
+
+    private SpreadsheetCell cell;
+
+    private Expression expression;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final SpreadsheetEngine engine = SpreadsheetEngines.basic();
+        final SpreadsheetEngineContext context = SpreadsheetBenchmarkWorkbook.context(
+                engine,
+                false,
+                false,
+                this.compileExpressions
+        );
+        this.engine = engine;
+        this.context = context;
+
+        final SpreadsheetCell referenced = SpreadsheetBenchmarkWorkbook.cell(0, 0)
+                .setFormula(
+                        SpreadsheetFormula.EMPTY.setText("1")
+                );
+        engine.saveCell(referenced, context);
+        this.referenced = referenced;
+
+        final SpreadsheetCell cell = SpreadsheetBenchmarkWorkbook.cell(1, 0)
+                .setFormula(
+                        SpreadsheetFormula.EMPTY.setText(this.formula)
+                );
+        engine.saveCell(cell, context);
+
+        this.cell = context.storeRepository()
+                .cells()
+                .loadOrFail(cell.reference());
+        this.expression = this.cell.formula()
+                .expression()
+                .get();
+    }
+
+    @Benchmark
+    public Object evaluate() {
+        return this.context.evaluate(
+                this.expression,
+                Optional.of(this.cell)
+        );
+    }
+
+    @Benchmark
+    public SpreadsheetDelta saveReferenced() {
+        return this.engine.saveCell(
+                this.referenced,
+                this.context
+        );
+    }
+}
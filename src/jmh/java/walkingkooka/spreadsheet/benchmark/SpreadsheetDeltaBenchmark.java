@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import walkingkooka.spreadsheet.engine.SpreadsheetDelta;
+import walkingkooka.spreadsheet.engine.SpreadsheetDeltaProperties;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineEvaluation;
+import walkingkooka.tree.expression.ExpressionNumberKind;
+import walkingkooka.tree.json.JsonNode;
+import walkingkooka.tree.json.marshall.JsonNodeMarshallContext;
+import walkingkooka.tree.json.marshall.JsonNodeMarshallContexts;
+import walkingkooka.tree.json.marshall.JsonNodeUnmarshallContext;
+import walkingkooka.tree.json.marshall.JsonNodeUnmarshallContexts;
+
+import java.math.MathContext;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks marshalling a {@link SpreadsheetDelta} to json text and back, which happens for every request and
+ * response between the browser and the server. The delta is loaded from a workbook so cells have formatted values,
+ * column widths and row heights just like a real response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpreadsheetDeltaBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int cells;
+
+    private final JsonNodeMarshallContext marshallContext = JsonNodeMarshallContexts.basic();
+
+    private JsonNodeUnmarshallContext unmarshallContext;
+
+    private SpreadsheetDelta delta;
+
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final SpreadsheetBenchmarkWorkbook workbook = SpreadsheetBenchmarkWorkbook.with(
+                this.cells,
+                SpreadsheetBenchmarkWorkbookShape.FAN_IN
+        );
+
+        this.delta = workbook.engine.loadCells(
+                workbook.range,
+                SpreadsheetEngineEvaluation.COMPUTE_IF_NECESSARY,
+                SpreadsheetDeltaProperties.ALL,
+                workbook.context
+        );
+        this.json = this.marshall();
+        this.unmarshallContext = JsonNodeUnmarshallContexts.basic(
+                ExpressionNumberKind.BIG_DECIMAL,
+                MathContext.DECIMAL32
+        );
+    }
+
+    @Benchmark
+    public String marshall() {
+        return this.marshallContext.marshall(this.delta)
+                .toString();
+    }
+
+    @Benchmark
+    public SpreadsheetDelta unmarshall() {
+        return this.unmarshallContext.unmarshall(
+                JsonNode.parse(this.json),
+                SpreadsheetDelta.class
+        );
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import walkingkooka.spreadsheet.engine.SpreadsheetDelta;
+import walkingkooka.spreadsheet.engine.SpreadsheetDeltaProperties;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineEvaluation;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the throughput of loading the same viewport of already evaluated cells again and again, reporting the
+ * number of cells saved using {@link SpreadsheetEngineLoadCellsBenchmarkCounters}, which should remain zero because
+ * unchanged cells are not written back to the store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpreadsheetEngineLoadCellsBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int cells;
+
+    @Param({"VALUES", "CHAINS", "FAN_IN", "LABELS"})
+    public SpreadsheetBenchmarkWorkbookShape shape;
+
+    private SpreadsheetBenchmarkWorkbook workbook;
+
+    /**
+     * A range about the size of a browser window.
+     */
+    private SpreadsheetCellRange viewportRange;
+
+    /**
+     * The number of cells saved since the workbook was loaded for the first time.
+     */
+    private long cellSaves;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final SpreadsheetBenchmarkWorkbook workbook = SpreadsheetBenchmarkWorkbook.with(
+                this.cells,
+                this.shape
+        );
+        this.workbook = workbook;
+
+        this.viewportRange = SpreadsheetBenchmarkWorkbook.cell(0, 0)
+                .cellRange(
+                        SpreadsheetBenchmarkWorkbook.cell(
+                                SpreadsheetBenchmarkWorkbook.COLUMNS - 1,
+                                Math.min(40, workbook.rows) - 1
+                        )
+                );
+
+        // the first load may evaluate and save cells, only repeated loads are measured.
+        this.loadCells();
+
+        workbook.context.storeRepository()
+                .cells()
+                .addSaveWatcher((c) -> this.cellSaves++);
+    }
+
+    /**
+     * Loads the cells visible in a browser window, which have already been evaluated.
+     */
+    @Benchmark
+    public SpreadsheetDelta loadCellsComputeIfNecessary(final SpreadsheetEngineLoadCellsBenchmarkCounters counters) {
+        final long before = this.cellSaves;
+        final SpreadsheetDelta delta = this.loadCells();
+        counters.cellSaves += this.cellSaves - before;
+        return delta;
+    }
+
+    private SpreadsheetDelta loadCells() {
+        return this.workbook.engine.loadCells(
+                this.viewportRange,
+                SpreadsheetEngineEvaluation.COMPUTE_IF_NECESSARY,
+                SpreadsheetDeltaProperties.ALL,
+                this.workbook.context
+        );
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import walkingkooka.spreadsheet.format.parser.SpreadsheetFormatParserContext;
+import walkingkooka.spreadsheet.format.parser.SpreadsheetFormatParserContexts;
+import walkingkooka.spreadsheet.format.parser.SpreadsheetFormatParsers;
+import walkingkooka.text.cursor.TextCursors;
+import walkingkooka.text.cursor.parser.Parser;
+import walkingkooka.text.cursor.parser.ParserReporters;
+import walkingkooka.text.cursor.parser.ParserToken;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks parsing format and parse patterns with {@link SpreadsheetFormatParsers}, which happens every time a
+ * pattern is set on a cell or loaded from json.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpreadsheetFormatParsersBenchmark {
+
+    private final static Parser<SpreadsheetFormatParserContext> NUMBER_FORMAT = SpreadsheetFormatParsers.numberFormat()
+            .orFailIfCursorNotEmpty(ParserReporters.basic());
+
+    private final static Parser<SpreadsheetFormatParserContext> NUMBER_PARSE = SpreadsheetFormatParsers.numberParse()
+            .orFailIfCursorNotEmpty(ParserReporters.basic());
+
+    private final static Parser<SpreadsheetFormatParserContext> DATETIME_FORMAT = SpreadsheetFormatParsers.dateTimeFormat()
+            .orFailIfCursorNotEmpty(ParserReporters.basic());
+
+    private final static Parser<SpreadsheetFormatParserContext> TEXT_FORMAT = SpreadsheetFormatParsers.textFormat()
+            .orFailIfCursorNotEmpty(ParserReporters.basic());
+
+    private final SpreadsheetFormatParserContext context = SpreadsheetFormatParserContexts.basic();
+
+    @Benchmark
+    public Optional<ParserToken> numberFormat() {
+        return NUMBER_FORMAT.parse(
+                TextCursors.charSequence("#,##0.00;[Red]-#,##0.00;0.00"),
+                this.context
+        );
+    }
+
+    @Benchmark
+    public Optional<ParserToken> numberParse() {
+        return NUMBER_PARSE.parse(
+                TextCursors.charSequence("#,##0.00;0.00%;0.00E+00"),
+                this.context
+        );
+    }
+
+    @Benchmark
+    public Optional<ParserToken> dateTimeFormat() {
+        return DATETIME_FORMAT.parse(
+                TextCursors.charSequence("dddd, d mmmm yyyy hh:mm:ss AM/PM"),
+                this.context
+        );
+    }
+
+    @Benchmark
+    public Optional<ParserToken> textFormat() {
+        return TEXT_FORMAT.parse(
+                TextCursors.charSequence("\"Name: \"@"),
+                this.context
+        );
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import walkingkooka.spreadsheet.format.SpreadsheetFormatter;
+import walkingkooka.spreadsheet.format.SpreadsheetFormatterContext;
+import walkingkooka.spreadsheet.format.SpreadsheetText;
+import walkingkooka.spreadsheet.format.pattern.SpreadsheetPattern;
+import walkingkooka.spreadsheet.meta.SpreadsheetMetadata;
+import walkingkooka.tree.expression.ExpressionNumber;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks formatting values with pattern {@link SpreadsheetFormatter formatters} and the general
+ * {@link SpreadsheetMetadata#formatter()} which is used by cells without a pattern.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpreadsheetFormatterBenchmark {
+
+    private SpreadsheetFormatterContext context;
+
+    private SpreadsheetFormatter metadataFormatter;
+
+    private SpreadsheetFormatter numberFormatter;
+
+    private SpreadsheetFormatter dateTimeFormatter;
+
+    private SpreadsheetFormatter textFormatter;
+
+    private ExpressionNumber number;
+
+    private LocalDateTime dateTime;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final SpreadsheetMetadata metadata = SpreadsheetBenchmarkWorkbook.metadata();
+
+        this.context = metadata.formatterContext(
+                LocalDateTime::now,
+                (s) -> s
+        );
+        this.metadataFormatter = metadata.formatter();
+        this.numberFormatter = SpreadsheetPattern.parseNumberFormatPattern("#,##0.00")
+                .formatter();
+        this.dateTimeFormatter = SpreadsheetPattern.parseDateTimeFormatPattern("dddd, d mmmm yyyy hh:mm:ss")
+                .formatter();
+        this.textFormatter = SpreadsheetPattern.parseTextFormatPattern("\"Name: \"@")
+                .formatter();
+
+        this.number = metadata.expressionNumberKind()
+                .create(1234567.891);
+        this.dateTime = LocalDateTime.of(1999, 12, 31, 12, 58, 59);
+    }
+
+    @Benchmark
+    public Optional<SpreadsheetText> metadataFormatterNumber() {
+        return this.metadataFormatter.format(this.number, this.context);
+    }
+
+    @Benchmark
+    public Optional<SpreadsheetText> metadataFormatterDateTime() {
+        return this.metadataFormatter.format(this.dateTime, this.context);
+    }
+
+    @Benchmark
+    public Optional<SpreadsheetText> metadataFormatterText() {
+        return this.metadataFormatter.format("Hello", this.context);
+    }
+
+    @Benchmark
+    public Optional<SpreadsheetText> numberFormatter() {
+        return this.numberFormatter.format(this.number, this.context);
+    }
+
+    @Benchmark
+    public Optional<SpreadsheetText> dateTimeFormatter() {
+        return this.dateTimeFormatter.format(this.dateTime, this.context);
+    }
+
+    @Benchmark
+    public Optional<SpreadsheetText> textFormatter() {
+        return this.textFormatter.format("Hello", this.context);
+    }
+}
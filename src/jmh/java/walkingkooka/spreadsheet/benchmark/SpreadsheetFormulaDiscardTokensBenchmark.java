@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import walkingkooka.spreadsheet.engine.SpreadsheetDelta;
+import walkingkooka.spreadsheet.engine.SpreadsheetDeltaProperties;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineEvaluation;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the heap retained by a workbook whose formulas keep or discard their
+ * {@link walkingkooka.spreadsheet.parser.SpreadsheetParserToken}, reported using
+ * {@link SpreadsheetFormulaDiscardTokensBenchmarkCounters}, along with the cost of loading cells from that workbook.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpreadsheetFormulaDiscardTokensBenchmark {
+
+    @Param({"10000", "100000"})
+    public int cells;
+
+    @Param({"VALUES", "CHAINS", "FAN_IN", "LABELS"})
+    public SpreadsheetBenchmarkWorkbookShape shape;
+
+    @Param({"false", "true"})
+    public boolean discardTokens;
+
+    private SpreadsheetBenchmarkWorkbook workbook;
+
+    /**
+     * A range about the size of a browser window.
+     */
+    private SpreadsheetCellRange viewportRange;
+
+    /**
+     * The heap in bytes retained by the workbook.
+     */
+    private long heapBytes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final long before = usedHeap();
+
+        final SpreadsheetBenchmarkWorkbook workbook = SpreadsheetBenchmarkWorkbook.with(
+                this.cells,
+                this.shape,
+                this.discardTokens
+        );
+        this.workbook = workbook;
+
+        this.heapBytes = usedHeap() - before;
+
+        this.viewportRange = SpreadsheetBenchmarkWorkbook.cell(0, 0)
+                .cellRange(
+                        SpreadsheetBenchmarkWorkbook.cell(
+                                SpreadsheetBenchmarkWorkbook.COLUMNS - 1,
+                                Math.min(40, workbook.rows) - 1
+                        )
+                );
+    }
+
+    /**
+     * Returns the used heap after requesting a few garbage collections, which is only approximate but stable enough to
+     * compare workbooks against each other.
+     */
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Loads the cells visible in a browser window, which have already been evaluated.
+     */
+    @Benchmark
+    public SpreadsheetDelta loadCellsComputeIfNecessary(final SpreadsheetFormulaDiscardTokensBenchmarkCounters counters) {
+        counters.heapBytes = this.heapBytes;
+
+        return this.workbook.engine.loadCells(
+                this.viewportRange,
+                SpreadsheetEngineEvaluation.COMPUTE_IF_NECESSARY,
+                SpreadsheetDeltaProperties.ALL,
+                this.workbook.context
+        );
+    }
+
+    /**
+     * Loads and evaluates again the cells visible in a browser window, which parses formulas again when tokens were
+     * discarded.
+     */
+    @Benchmark
+    public SpreadsheetDelta loadCellsForceRecompute(final SpreadsheetFormulaDiscardTokensBenchmarkCounters counters) {
+        counters.heapBytes = this.heapBytes;
+
+        return this.workbook.engine.loadCells(
+                this.viewportRange,
+                SpreadsheetEngineEvaluation.FORCE_RECOMPUTE,
+                SpreadsheetDeltaProperties.ALL,
+                this.workbook.context
+        );
+    }
+}
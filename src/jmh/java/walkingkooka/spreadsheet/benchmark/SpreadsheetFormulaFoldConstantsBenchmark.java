@@ -0,0 +1,127 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.SpreadsheetFormula;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngine;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineContext;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngines;
+import walkingkooka.tree.expression.Expression;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks evaluating formulas that were converted with and without constants folded, reporting the number of
+ * {@link Expression} nodes remaining using {@link SpreadsheetFormulaFoldConstantsBenchmarkCounters}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpreadsheetFormulaFoldConstantsBenchmark {
+
+    @Param({
+            "=1+2",
+            "=A1*(1+0.2)",
+            "=((1+2)*(3+4)-(5+6)*(7+8))/9",
+            "=A1+2*3-4/2",
+            "=-(1+2)^2*A1"
+    })
+    public String formula;
+
+    @Param({"false", "true"})
+    public boolean foldConstants;
+
+    private SpreadsheetEngineContext context;
+
+    private SpreadsheetCell cell;
+
+    private Expression expression;
+
+    private long nodes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final SpreadsheetEngine engine = SpreadsheetEngines.basic();
+        final SpreadsheetEngineContext context = SpreadsheetBenchmarkWorkbook.context(
+                engine,
+                this.foldConstants,
+                false,
+                false
+        );
+        this.context = context;
+
+        engine.saveCell(
+                SpreadsheetBenchmarkWorkbook.cell(0, 0)
+                        .setFormula(
+                                SpreadsheetFormula.EMPTY.setText("1")
+                        ),
+                context
+        );
+
+        final SpreadsheetCell cell = SpreadsheetBenchmarkWorkbook.cell(1, 0)
+                .setFormula(
+                        SpreadsheetFormula.EMPTY.setText(this.formula)
+                );
+        engine.saveCell(cell, context);
+
+        this.cell = context.storeRepository()
+                .cells()
+                .loadOrFail(cell.reference());
+        this.expression = this.cell.formula()
+                .expression()
+                .get();
+        this.nodes = count(this.expression);
+    }
+
+    private static long count(final Expression expression) {
+        long count = 1;
+
+        for (final Expression child : expression.children()) {
+            count += count(child);
+        }
+
+        return count;
+    }
+
+    @Benchmark
+    public Object evaluate(final SpreadsheetFormulaFoldConstantsBenchmarkCounters counters) {
+        counters.nodes = this.nodes;
+
+        return this.context.evaluate(
+                this.expression,
+                Optional.of(this.cell)
+        );
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import walkingkooka.spreadsheet.meta.SpreadsheetMetadata;
+import walkingkooka.spreadsheet.parser.SpreadsheetParserContext;
+import walkingkooka.spreadsheet.parser.SpreadsheetParsers;
+import walkingkooka.text.cursor.TextCursors;
+import walkingkooka.text.cursor.parser.Parser;
+import walkingkooka.text.cursor.parser.ParserReporters;
+import walkingkooka.text.cursor.parser.ParserToken;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks parsing cell formulas using the same {@link Parser} and {@link SpreadsheetParserContext} as
+ * {@link walkingkooka.spreadsheet.engine.SpreadsheetEngineContext#parseFormula(walkingkooka.text.cursor.TextCursor)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpreadsheetParsersBenchmark {
+
+    @Param({
+            "123.5",
+            "'Hello",
+            "=1+2",
+            "=A1+B2*C3-D4/E5",
+            "=((1+2)*(3+4)-(5+6)*(7+8))/9",
+            "=Label1+Label2*Label3",
+            "=A1+A2+A3+A4+A5+A6+A7+A8+A9+A10+A11+A12+A13+A14+A15+A16+A17+A18+A19+A20"
+    })
+    public String formula;
+
+    private Parser<SpreadsheetParserContext> parser;
+
+    private SpreadsheetParserContext context;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final SpreadsheetMetadata metadata = SpreadsheetBenchmarkWorkbook.metadata();
+
+        this.parser = SpreadsheetParsers.valueOrExpression(metadata.parser())
+                .orFailIfCursorNotEmpty(ParserReporters.basic());
+        this.context = metadata.parserContext(LocalDateTime::now);
+    }
+
+    @Benchmark
+    public Optional<ParserToken> parseFormula() {
+        return this.parser.parse(
+                TextCursors.charSequence(this.formula),
+                this.context
+        );
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.store.SpreadsheetCellRangeStore;
+import walkingkooka.spreadsheet.reference.store.SpreadsheetCellRangeStores;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the {@link SpreadsheetCellRangeStores#treeMap()} which holds ranges for labels, conditional formatting
+ * rules and validators, and is queried for every cell that is evaluated.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TreeMapSpreadsheetCellRangeStoreBenchmark {
+
+    /**
+     * The number of ranges in the store.
+     */
+    @Param({"1000", "10000", "100000"})
+    public int ranges;
+
+    /**
+     * The number of rows and columns in each range, wide ranges overlap many others.
+     */
+    @Param({"1", "10", "1000"})
+    public int size;
+
+    private final static int PROBES = 1024;
+
+    private final static int COLUMNS = 100;
+
+    private SpreadsheetCellRangeStore<Integer> store;
+
+    private SpreadsheetCellReference[] probes;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final SpreadsheetCellRangeStore<Integer> store = SpreadsheetCellRangeStores.treeMap();
+
+        for (int i = 0; i < this.ranges; i++) {
+            store.addValue(
+                    this.range(i % COLUMNS, i / COLUMNS),
+                    i
+            );
+        }
+        this.store = store;
+
+        final int rows = this.ranges / COLUMNS + this.size;
+        final Random random = new Random(1);
+        final SpreadsheetCellReference[] probes = new SpreadsheetCellReference[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            probes[i] = SpreadsheetBenchmarkWorkbook.cell(
+                    random.nextInt(COLUMNS + this.size),
+                    random.nextInt(rows)
+            );
+        }
+        this.probes = probes;
+    }
+
+    private SpreadsheetCellRange range(final int column,
+                                       final int row) {
+        final int last = this.size - 1;
+
+        return SpreadsheetBenchmarkWorkbook.cell(column, row)
+                .cellRange(SpreadsheetBenchmarkWorkbook.cell(column + last, row + last));
+    }
+
+    private SpreadsheetCellReference probe() {
+        return this.probes[this.next++ & (PROBES - 1)];
+    }
+
+    @Benchmark
+    public Set<Integer> loadCellReferenceValues() {
+        return this.store.loadCellReferenceValues(this.probe());
+    }
+
+    @Benchmark
+    public Set<SpreadsheetCellRange> loadCellReferenceRanges() {
+        return this.store.loadCellReferenceRanges(this.probe());
+    }
+
+    @Benchmark
+    public void addValueAndRemoveValue() {
+        final SpreadsheetCellReference probe = this.probe();
+        final SpreadsheetCellRange range = this.range(
+                probe.column().value(),
+                probe.row().value()
+        );
+
+        this.store.addValue(range, -1);
+        this.store.removeValue(range, -1);
+    }
+}
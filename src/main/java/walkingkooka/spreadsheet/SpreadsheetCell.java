@@ -177,8 +177,12 @@ public final class SpreadsheetCell implements Comparable<SpreadsheetCell>,
     }
 
     private SpreadsheetCell setFormula0(final SpreadsheetFormula formula) {
-        return this.formula.equals(formula) ?
-                this :
+        final SpreadsheetFormula previous = this.formula;
+
+        return previous.equals(formula) ?
+                previous.equalsPurityAndCompiledExpression(formula) ?
+                        this :
+                        this.replace(this.reference, formula, this.style, this.parsePattern, this.formatPattern, this.formatted) : // only the purity or compiled form changed
                 this.replace(this.reference, formula, this.style, this.parsePattern, this.formatPattern, NO_FORMATTED_CELL);
     }
 
@@ -22,12 +22,18 @@ import walkingkooka.ToStringBuilder;
 import walkingkooka.ToStringBuilderOption;
 import walkingkooka.UsesToStringBuilder;
 import walkingkooka.spreadsheet.engine.SpreadsheetEngineContext;
+import walkingkooka.spreadsheet.expression.SpreadsheetCompiledExpression;
+import walkingkooka.spreadsheet.expression.SpreadsheetCompiledExpressions;
 import walkingkooka.spreadsheet.parser.SpreadsheetParserToken;
 import walkingkooka.text.CharSequences;
 import walkingkooka.text.HasText;
 import walkingkooka.text.printer.IndentingPrinter;
 import walkingkooka.text.printer.TreePrintable;
 import walkingkooka.tree.expression.Expression;
+import walkingkooka.tree.expression.ExpressionEvaluationContext;
+import walkingkooka.tree.expression.ExpressionPurityContext;
+import walkingkooka.tree.expression.FunctionExpressionName;
+import walkingkooka.tree.expression.function.ExpressionFunction;
 import walkingkooka.tree.json.JsonNode;
 import walkingkooka.tree.json.JsonNodeException;
 import walkingkooka.tree.json.JsonObject;
@@ -40,6 +46,7 @@ import walkingkooka.tree.json.patch.Patchable;
 
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 
 /**
  * A spreadsheet formula, including its compiled {@link Expression} and possibly its {@link Object value} or {@link SpreadsheetError}.
@@ -76,19 +83,25 @@ public final class SpreadsheetFormula implements HasText,
             "",
             NO_TOKEN,
             NO_EXPRESSION,
-            NO_VALUE
+            NO_VALUE,
+            null,
+            null
     );
 
     private SpreadsheetFormula(final String text,
                                final Optional<SpreadsheetParserToken> token,
                                final Optional<Expression> expression,
-                               final Optional<Object> value) {
+                               final Optional<Object> value,
+                               final Boolean pure,
+                               final SpreadsheetFormulaCompiledExpression compiledExpression) {
         super();
 
         this.text = text;
         this.token = token;
         this.expression = expression;
         this.value = value;
+        this.pure = pure;
+        this.compiledExpression = compiledExpression;
     }
 
     // Text ....................................................................................................
@@ -111,7 +124,9 @@ public final class SpreadsheetFormula implements HasText,
                                 text,
                                 NO_TOKEN,
                                 NO_EXPRESSION,
-                                NO_VALUE
+                                NO_VALUE,
+                                null,
+                                null
                         );
     }
 
@@ -148,7 +163,9 @@ public final class SpreadsheetFormula implements HasText,
                         token.isPresent() ? null : this.text(), // no need to keep text if token is present.
                         token,
                         NO_EXPRESSION,
-                        NO_VALUE
+                        NO_VALUE,
+                        null,
+                        null
                 );
     }
 
@@ -162,6 +179,24 @@ public final class SpreadsheetFormula implements HasText,
         Objects.requireNonNull(token, "token");
     }
 
+    /**
+     * Returns a formula without its {@link #token()}, keeping its {@link #text()}, {@link #expression()} and
+     * {@link #value()}. Tokens hold every symbol, whitespace and digit and may be parsed again from the text if they are
+     * needed later.
+     */
+    public SpreadsheetFormula discardToken() {
+        return this.token.isPresent() ?
+                this.replace(
+                        this.text(),
+                        NO_TOKEN,
+                        this.expression,
+                        this.value,
+                        this.pure,
+                        this.compiledExpression
+                ) :
+                this;
+    }
+
     // expression .............................................................................................
 
     public Optional<Expression> expression() {
@@ -177,7 +212,9 @@ public final class SpreadsheetFormula implements HasText,
                         this.text,
                         this.token,
                         expression,
-                        NO_VALUE
+                        NO_VALUE,
+                        null,
+                        null
                 );
     }
 
@@ -218,7 +255,9 @@ public final class SpreadsheetFormula implements HasText,
                         this.text,
                         this.token,
                         this.expression,
-                        value
+                        value,
+                        this.pure,
+                        this.compiledExpression
                 );
     }
 
@@ -231,6 +270,126 @@ public final class SpreadsheetFormula implements HasText,
         Objects.requireNonNull(value, "value");
     }
 
+    // pure.............................................................................................................
+
+    /**
+     * Returns the purity recorded by {@link #recordPurity(ExpressionPurityContext)} when this formula was parsed. Formulas
+     * without an expression are pure, and formulas that were not parsed by an engine test their expression each time.
+     */
+    public boolean isPure(final ExpressionPurityContext context) {
+        Objects.requireNonNull(context, "context");
+
+        final Boolean pure = this.pure;
+        return null != pure ?
+                pure :
+                isPure(this.expression, context);
+    }
+
+    /**
+     * Returns true only if this formula was found to be impure when it was parsed. Unlike {@link #isPure(ExpressionPurityContext)}
+     * this never tests the expression, which allows stores to keep a registry of impure cells as they are saved.
+     */
+    public boolean isImpure() {
+        return Boolean.FALSE.equals(this.pure);
+    }
+
+    /**
+     * Returns a formula with the purity of the {@link #expression()} recorded, or this formula if it was already
+     * recorded. This is called when the formula is parsed, so the expression is walked once. The purity is kept by any
+     * formula with a different value and by the json form of an impure formula, but is not part of {@link #equals(Object)}.
+     */
+    public SpreadsheetFormula recordPurity(final ExpressionPurityContext context) {
+        Objects.requireNonNull(context, "context");
+
+        return null != this.pure ?
+                this :
+                this.replace(
+                        this.text,
+                        this.token,
+                        this.expression,
+                        this.value,
+                        isPure(
+                                this.expression,
+                                context
+                        ),
+                        this.compiledExpression
+                );
+    }
+
+    private static boolean isPure(final Optional<Expression> expression,
+                                  final ExpressionPurityContext context) {
+        return false == expression.isPresent() ||
+                expression.get()
+                        .isPure(context);
+    }
+
+    /**
+     * The purity of the {@link #expression} recorded when it was parsed, null if it has not been recorded.
+     */
+    private final Boolean pure;
+
+    // compiledExpression...............................................................................................
+
+    /**
+     * Returns a formula holding the {@link #expression()} compiled into a {@link SpreadsheetCompiledExpression} with its
+     * function calls bound to the given functions, or this formula if it has no expression or was already compiled with
+     * the same functions. Like the purity the compiled form is kept by any formula with a different value, but is not
+     * part of {@link #equals(Object)} or the json form.
+     */
+    public SpreadsheetFormula compile(final Function<FunctionExpressionName, ExpressionFunction<?, ExpressionEvaluationContext>> functions) {
+        Objects.requireNonNull(functions, "functions");
+
+        final Optional<Expression> expression = this.expression;
+        final SpreadsheetFormulaCompiledExpression compiledExpression = this.compiledExpression;
+
+        return false == expression.isPresent() || null != compiledExpression && compiledExpression.functions == functions ?
+                this :
+                this.replace(
+                        this.text,
+                        this.token,
+                        expression,
+                        this.value,
+                        this.pure,
+                        SpreadsheetFormulaCompiledExpression.with(
+                                functions,
+                                SpreadsheetCompiledExpressions.compile(
+                                        expression.get(),
+                                        functions
+                                )
+                        )
+                );
+    }
+
+    /**
+     * Returns the {@link #expression()} compiled with the given functions, reusing the form held by a formula returned
+     * by {@link #compile(Function)}, otherwise compiling the expression again each time.
+     */
+    public Optional<SpreadsheetCompiledExpression> compiledExpression(final Function<FunctionExpressionName, ExpressionFunction<?, ExpressionEvaluationContext>> functions) {
+        final SpreadsheetFormulaCompiledExpression compiledExpression = this.compile(functions)
+                .compiledExpression;
+
+        return Optional.ofNullable(
+                null != compiledExpression ?
+                        compiledExpression.compiledExpression :
+                        null
+        );
+    }
+
+    /**
+     * The compiled form of the {@link #expression} and the functions it was compiled with, null if it has not been
+     * compiled.
+     */
+    private final SpreadsheetFormulaCompiledExpression compiledExpression;
+
+    /**
+     * Tests if this formula holds the same recorded purity and compiled form as the other formula, which are not part of
+     * {@link #equals(Object)}.
+     */
+    boolean equalsPurityAndCompiledExpression(final SpreadsheetFormula other) {
+        return Objects.equals(this.pure, other.pure) &&
+                this.compiledExpression == other.compiledExpression;
+    }
+
     // magic...... ....................................................................................................
 
     /**
@@ -260,21 +419,34 @@ public final class SpreadsheetFormula implements HasText,
      */
     public SpreadsheetFormula clear() {
         return this.expression().isPresent() || this.value().isPresent() ?
-                new SpreadsheetFormula(this.text, this.token, NO_EXPRESSION, NO_VALUE) :
+                new SpreadsheetFormula(this.text, this.token, NO_EXPRESSION, NO_VALUE, null, null) :
                 this;
     }
 
+    /**
+     * Clears only the value or error if any are present, keeping the text, token and expression along with the purity
+     * and compiled form of the expression. This is used to evaluate an unchanged formula again, such as when a cell it
+     * references changed.
+     */
+    public SpreadsheetFormula clearValue() {
+        return this.setValue(NO_VALUE);
+    }
+
     // internal factory .............................................................................................
 
     private SpreadsheetFormula replace(final String text,
                                        final Optional<SpreadsheetParserToken> token,
                                        final Optional<Expression> expression,
-                                       final Optional<Object> value) {
+                                       final Optional<Object> value,
+                                       final Boolean pure,
+                                       final SpreadsheetFormulaCompiledExpression compiledExpression) {
         return new SpreadsheetFormula(
                 text,
                 token,
                 expression,
-                value
+                value,
+                pure,
+                compiledExpression
         );
     }
 
@@ -381,6 +553,7 @@ public final class SpreadsheetFormula implements HasText,
         SpreadsheetParserToken token = null;
         Expression expression = null;
         Object value = null;
+        boolean impure = false;
 
         for (JsonNode child : node.objectOrFail().children()) {
             final JsonPropertyName name = child.name();
@@ -402,6 +575,9 @@ public final class SpreadsheetFormula implements HasText,
                 case VALUE_PROPERTY_STRING:
                     value = context.unmarshallWithType(child);
                     break;
+                case IMPURE_PROPERTY_STRING:
+                    impure = child.booleanOrFail();
+                    break;
                 default:
                     JsonNodeUnmarshallContext.unknownPropertyPresent(name, node);
                     break;
@@ -417,9 +593,20 @@ public final class SpreadsheetFormula implements HasText,
             formula = EMPTY.setText(text);
         }
 
-        return formula.setToken(Optional.ofNullable(token))
+        formula = formula.setToken(Optional.ofNullable(token))
                 .setExpression(Optional.ofNullable(expression))
                 .setValue(Optional.ofNullable(value));
+
+        return impure && formula.expression.isPresent() ?
+                formula.replace(
+                        formula.text,
+                        formula.token,
+                        formula.expression,
+                        formula.value,
+                        Boolean.FALSE,
+                        null
+                ) :
+                formula;
     }
 
     /**
@@ -451,6 +638,11 @@ public final class SpreadsheetFormula implements HasText,
             object = object.set(VALUE_PROPERTY, context.marshallWithType(value.get()));
         }
 
+        // only impurity is kept, so stores reading cells back can rebuild their registry of impure cells
+        if (this.isImpure()) {
+            object = object.set(IMPURE_PROPERTY, JsonNode.booleanNode(true));
+        }
+
         return object;
     }
 
@@ -458,6 +650,7 @@ public final class SpreadsheetFormula implements HasText,
     private final static String TOKEN_PROPERTY_STRING = "token";
     private final static String EXPRESSION_PROPERTY_STRING = "expression";
     private final static String VALUE_PROPERTY_STRING = "value";
+    private final static String IMPURE_PROPERTY_STRING = "impure";
 
     // @VisibleForTesting
 
@@ -465,6 +658,7 @@ public final class SpreadsheetFormula implements HasText,
     final static JsonPropertyName TOKEN_PROPERTY = JsonPropertyName.with(TOKEN_PROPERTY_STRING);
     final static JsonPropertyName EXPRESSION_PROPERTY = JsonPropertyName.with(EXPRESSION_PROPERTY_STRING);
     final static JsonPropertyName VALUE_PROPERTY = JsonPropertyName.with(VALUE_PROPERTY_STRING);
+    final static JsonPropertyName IMPURE_PROPERTY = JsonPropertyName.with(IMPURE_PROPERTY_STRING);
 
     static {
         JsonNodeContext.register(
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet;
+
+import walkingkooka.spreadsheet.expression.SpreadsheetCompiledExpression;
+import walkingkooka.tree.expression.ExpressionEvaluationContext;
+import walkingkooka.tree.expression.FunctionExpressionName;
+import walkingkooka.tree.expression.function.ExpressionFunction;
+
+import java.util.function.Function;
+
+/**
+ * Holds the {@link SpreadsheetCompiledExpression} cached by a {@link SpreadsheetFormula} along with the functions its
+ * function calls were bound to, so both are always read together.
+ */
+final class SpreadsheetFormulaCompiledExpression {
+
+    static SpreadsheetFormulaCompiledExpression with(final Function<FunctionExpressionName, ExpressionFunction<?, ExpressionEvaluationContext>> functions,
+                                                     final SpreadsheetCompiledExpression compiledExpression) {
+        return new SpreadsheetFormulaCompiledExpression(
+                functions,
+                compiledExpression
+        );
+    }
+
+    private SpreadsheetFormulaCompiledExpression(final Function<FunctionExpressionName, ExpressionFunction<?, ExpressionEvaluationContext>> functions,
+                                                 final SpreadsheetCompiledExpression compiledExpression) {
+        super();
+        this.functions = functions;
+        this.compiledExpression = compiledExpression;
+    }
+
+    final Function<FunctionExpressionName, ExpressionFunction<?, ExpressionEvaluationContext>> functions;
+
+    final SpreadsheetCompiledExpression compiledExpression;
+
+    @Override
+    public String toString() {
+        return this.compiledExpression.toString();
+    }
+}
@@ -18,6 +18,7 @@
 package walkingkooka.spreadsheet.engine;
 
 import walkingkooka.Cast;
+import walkingkooka.Either;
 import walkingkooka.collect.list.Lists;
 import walkingkooka.collect.map.Maps;
 import walkingkooka.collect.set.Sets;
@@ -31,8 +32,8 @@ import walkingkooka.spreadsheet.SpreadsheetFormula;
 import walkingkooka.spreadsheet.SpreadsheetRow;
 import walkingkooka.spreadsheet.SpreadsheetViewport;
 import walkingkooka.spreadsheet.conditionalformat.SpreadsheetConditionalFormattingRule;
-import walkingkooka.spreadsheet.format.SpreadsheetFormatter;
-import walkingkooka.spreadsheet.format.pattern.SpreadsheetFormatPattern;
+import walkingkooka.spreadsheet.convert.SpreadsheetConverterContext;
+import walkingkooka.spreadsheet.datavalidation.SpreadsheetDataValidator;
 import walkingkooka.spreadsheet.format.pattern.SpreadsheetParsePattern;
 import walkingkooka.spreadsheet.meta.SpreadsheetMetadata;
 import walkingkooka.spreadsheet.meta.SpreadsheetMetadataPropertyName;
@@ -69,7 +70,10 @@ import walkingkooka.tree.text.Length;
 import walkingkooka.tree.text.TextNode;
 import walkingkooka.tree.text.TextStylePropertyName;
 
+import java.io.Reader;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -132,10 +136,9 @@ final class BasicSpreadsheetEngine implements SpreadsheetEngine {
 
             final Set<SpreadsheetCellReference> loadedOrDeleted = Sets.sorted();
 
-            for (final SpreadsheetCell cell : repository.cells()
-                    .loadCells(cellRange)) {
+            for (final SpreadsheetCell cell : storeLoadCells(cellRange, context)) {
 
-                final SpreadsheetCell evaluated = this.maybeParseAndEvaluateAndFormat(
+                final SpreadsheetCell evaluated = this.maybeParseAndEvaluateAndFormatLoaded(
                         cell,
                         evaluation,
                         context
@@ -188,9 +191,7 @@ final class BasicSpreadsheetEngine implements SpreadsheetEngine {
                       final SpreadsheetEngineEvaluation evaluation,
                       final BasicSpreadsheetEngineChanges changes,
                       final SpreadsheetEngineContext context) {
-        final Optional<SpreadsheetCell> loaded = context.storeRepository()
-                .cells()
-                .load(reference);
+        final Optional<SpreadsheetCell> loaded = storeLoad(reference, context);
         loaded.map(c -> {
             final SpreadsheetCell evaluated = this.maybeParseAndEvaluateAndFormat(c, evaluation, context);
             changes.onLoad(evaluated); // might have just loaded a cell without any updates but want to record cell.
@@ -200,6 +201,28 @@ final class BasicSpreadsheetEngine implements SpreadsheetEngine {
         return loaded.isPresent();
     }
 
+    /**
+     * Loads and evaluates the given cell again because a cell it references changed. The formula itself is unchanged,
+     * so only its value is cleared, keeping the expression and its compiled form.
+     */
+    void refreshCell(final SpreadsheetCellReference reference,
+                     final BasicSpreadsheetEngineChanges changes,
+                     final SpreadsheetEngineContext context) {
+        storeLoad(reference, context)
+                .ifPresent(c -> {
+                    final SpreadsheetCell evaluated = this.parseFormulaEvaluateAndStyle(
+                            c.setFormula(
+                                    c.formula()
+                                            .clearValue()
+                            ),
+                            SpreadsheetEngineEvaluation.FORCE_RECOMPUTE,
+                            context
+                    );
+                    storeSave(evaluated, context);
+                    changes.onLoad(evaluated);
+                });
+    }
+
     // SAVE CELL........................................................................................................
 
     /**
@@ -241,20 +264,83 @@ final class BasicSpreadsheetEngine implements SpreadsheetEngine {
                 this.saveCellsNotEmpty(cells, context);
     }
 
+    /**
+     * Parses and saves all cells without evaluating them, so a cell that references another cell in the same batch is
+     * never evaluated against a stale value. The saved cells and their referrers are then evaluated once each, in
+     * dependency order when the delta is prepared.
+     */
     private SpreadsheetDelta saveCellsNotEmpty(final Set<SpreadsheetCell> cells,
                                                final SpreadsheetEngineContext context) {
-        // save all cells.
         try (final BasicSpreadsheetEngineChanges changes = BasicSpreadsheetEngineChangesMode.BATCH.createChanges(this, context)) {
             for (final SpreadsheetCell cell : cells) {
-                final SpreadsheetCell saved = this.maybeParseAndEvaluateAndFormat(
-                        cell,
-                        SpreadsheetEngineEvaluation.FORCE_RECOMPUTE,
+                final SpreadsheetCell parsed = this.parseFormulaIfNecessary(
+                        cell.setFormula(
+                                cell.formula()
+                                        .clear()
+                        ),
+                        Function.identity(),
                         context
                 );
+                storeSave(parsed, context);
 
-                changes.onCellSavedBatch(saved);
+                changes.onCellSavedBatch(parsed);
             }
 
+            changes.sortUnsavedCells();
+
+            return this.prepareDelta(
+                    changes,
+                    context
+            );
+        }
+    }
+
+    // IMPORT CELLS.....................................................................................................
+
+    /**
+     * Parses and saves imported cells in chunks without watchers, so saving does not fire the watchers of a
+     * {@link BasicSpreadsheetEngineChanges}. After each chunk the references of its cells are added once, and the
+     * cells and their referrers are evaluated in dependency order. Evaluated cells are not gathered into the returned
+     * {@link SpreadsheetDelta}, which only holds a window with the range of imported cells.
+     */
+    @Override
+    public SpreadsheetDelta importCells(final Reader csv,
+                                        final SpreadsheetCellReference home,
+                                        final SpreadsheetEngineContext context) {
+        Objects.requireNonNull(csv, "csv");
+        Objects.requireNonNull(home, "home");
+        checkContext(context);
+
+        final BasicSpreadsheetEngineImportCells importCells = BasicSpreadsheetEngineImportCells.with(this, context);
+        try {
+            importCells.read(csv, home);
+        } finally {
+            // cells saved before a failure still have their references added and are evaluated.
+            importCells.evaluate();
+        }
+
+        return SpreadsheetDelta.EMPTY.setWindow(
+                importCells.window()
+        );
+    }
+
+    // VOLATILE CELLS...................................................................................................
+
+    /**
+     * Evaluates the cells in the {@link SpreadsheetCellStore#impureCells()} registry and their referrers once each in
+     * dependency order, without visiting any other cells.
+     */
+    @Override
+    public SpreadsheetDelta refreshVolatileCells(final SpreadsheetEngineContext context) {
+        checkContext(context);
+
+        try (final BasicSpreadsheetEngineChanges changes = BasicSpreadsheetEngineChangesMode.BATCH.createChanges(this, context)) {
+            for (final SpreadsheetCellReference reference : context.storeRepository().cells().impureCells()) {
+                changes.refreshCellBatch(reference);
+            }
+
+            changes.sortUnsavedCells();
+
             return this.prepareDelta(
                     changes,
                     context
@@ -474,17 +560,14 @@ final class BasicSpreadsheetEngine implements SpreadsheetEngine {
         checkContext(context);
 
         try (final BasicSpreadsheetEngineChanges changes = BasicSpreadsheetEngineChangesMode.IMMEDIATE.createChanges(this, deltaProperties, context)) {
-            final SpreadsheetCellStore store = context.storeRepository()
-                    .cells();
-
             for (final SpreadsheetCellRange range : ranges) {
 
                 range.cellStream()
                         .forEach(reference -> {
                             if (!changes.isLoaded(reference)) {
-                                final Optional<SpreadsheetCell> loaded = store.load(reference);
+                                final Optional<SpreadsheetCell> loaded = storeLoad(reference, context);
                                 if (loaded.isPresent()) {
-                                            final SpreadsheetCell evaluated = this.maybeParseAndEvaluateAndFormat(loaded.get(), evaluation, context);
+                                            final SpreadsheetCell evaluated = this.maybeParseAndEvaluateAndFormatLoaded(loaded.get(), evaluation, context);
                                             changes.onLoad(evaluated); // might have just loaded a cell without any updates but want to record cell.
                                         }
                                     }
@@ -547,6 +630,18 @@ final class BasicSpreadsheetEngine implements SpreadsheetEngine {
                                           final SpreadsheetEngineContext context) {
         changes.refreshUpdated();
 
+        try (final SpreadsheetEngineTracerSpan span = context.tracer().start(SpreadsheetEngineMetric.DELTA)) {
+            return this.prepareDelta0(
+                    changes,
+                    window,
+                    context
+            );
+        }
+    }
+
+    private SpreadsheetDelta prepareDelta0(final BasicSpreadsheetEngineChanges changes,
+                                           final Set<SpreadsheetCellRange> window,
+                                           final SpreadsheetEngineContext context) {
         final Set<SpreadsheetDeltaProperties> deltaProperties = changes.deltaProperties;
 
         final boolean addCells = deltaProperties.contains(SpreadsheetDeltaProperties.CELLS);
@@ -865,6 +960,34 @@ final class BasicSpreadsheetEngine implements SpreadsheetEngine {
                 .load(label);
     }
 
+    // validate.........................................................................................................
+
+    /**
+     * Loads the cells within the range once, testing the value of each against the validators for its range. Cells
+     * marked with {@link #INVALID_VALUE} when they were evaluated are also returned.
+     */
+    @Override
+    public Set<SpreadsheetCellReference> validate(final SpreadsheetCellRange range,
+                                                  final SpreadsheetEngineContext context) {
+        Objects.requireNonNull(range, "range");
+        checkContext(context);
+
+        final Set<SpreadsheetCellReference> invalid = Sets.sorted();
+
+        for (final SpreadsheetCell cell : context.storeRepository()
+                .cells()
+                .loadCells(range)) {
+            final Object value = cell.formula()
+                    .value()
+                    .orElse(null);
+            if (INVALID_VALUE.equals(value) || false == this.isValid(cell, value, context)) {
+                invalid.add(cell.reference());
+            }
+        }
+
+        return Sets.readOnly(invalid);
+    }
+
     // cell eval........................................................................................................
 
     /**
@@ -874,31 +997,86 @@ final class BasicSpreadsheetEngine implements SpreadsheetEngine {
                                                    final SpreadsheetEngineEvaluation evaluation,
                                                    final SpreadsheetEngineContext context) {
         final SpreadsheetCell result = evaluation.parseFormulaEvaluateAndStyle(cell, this, context);
-        context.storeRepository()
-                .cells()
-                .save(result); // update cells enabling caching of parsing and value and errors.
+        storeSave(result, context); // update cells enabling caching of parsing and value and errors.
         return result;
     }
 
-    // Visible for SpreadsheetEngineEvaluation only called by COMPUTE_IF_NECESSARY & FORCE_RECOMPUTE
+    /**
+     * Attempts to evaluate a cell that was just loaded from the {@link SpreadsheetCellStore}, only saving the result
+     * if parsing, evaluating or formatting changed the cell. Repeated loads of cells that are already parsed, evaluated
+     * and formatted are then pure reads and do not fire any save watchers.
+     */
+    SpreadsheetCell maybeParseAndEvaluateAndFormatLoaded(final SpreadsheetCell loaded,
+                                                         final SpreadsheetEngineEvaluation evaluation,
+                                                         final SpreadsheetEngineContext context) {
+        final SpreadsheetCell result = evaluation.parseFormulaEvaluateAndStyle(loaded, this, context);
+        if (false == loaded.equals(result)) {
+            storeSave(result, context); // update cells enabling caching of parsing and value and errors.
+        }
+        return result;
+    }
+
+    private static void storeSave(final SpreadsheetCell cell,
+                                 final SpreadsheetEngineContext context) {
+        try (final SpreadsheetEngineTracerSpan span = context.tracer().start(SpreadsheetEngineMetric.STORE)) {
+            context.storeRepository()
+                    .cells()
+                    .save(cell);
+        }
+    }
+
+    private static Optional<SpreadsheetCell> storeLoad(final SpreadsheetCellReference reference,
+                                                      final SpreadsheetEngineContext context) {
+        try (final SpreadsheetEngineTracerSpan span = context.tracer().start(SpreadsheetEngineMetric.STORE)) {
+            return context.storeRepository()
+                    .cells()
+                    .load(reference);
+        }
+    }
+
+    private static Set<SpreadsheetCell> storeLoadCells(final SpreadsheetCellRange range,
+                                                  final SpreadsheetEngineContext context) {
+        try (final SpreadsheetEngineTracerSpan span = context.tracer().start(SpreadsheetEngineMetric.STORE)) {
+            return context.storeRepository()
+                    .cells()
+                    .loadCells(range);
+        }
+    }
+
+    // Visible for SpreadsheetEngineEvaluation only called by COMPUTE_IF_NECESSARY & FORCE_RECOMPUTE and refreshCell
     SpreadsheetCell parseFormulaEvaluateAndStyle(final SpreadsheetCell cell,
                                                  final SpreadsheetEngineEvaluation evaluation,
                                                  final SpreadsheetEngineContext context) {
-        final SpreadsheetCell afterParse = this.parseFormulaIfNecessary(
-                cell,
-                Function.identity(),
-                context
-        );
+        // formulas that discarded their token are not parsed again if their expression is present
+        final SpreadsheetCell afterParse = context.isDiscardingTokens() && cell.formula().expression().isPresent() ?
+                this.recordPurity(cell, context) :
+                this.parseFormulaIfNecessary(
+                        cell,
+                        Function.identity(),
+                        context
+                );
 
         return afterParse.formula().error().isPresent() ?
                 afterParse :
                 this.evaluateAndStyle(
-                        afterParse,
+                        afterParse.setFormula(
+                                context.compileFormula(
+                                        afterParse.formula()
+                                )
+                        ),
                         evaluation,
                         context
                 );
     }
 
+    private SpreadsheetCell recordPurity(final SpreadsheetCell cell,
+                                         final SpreadsheetEngineContext context) {
+        return cell.setFormula(
+                cell.formula()
+                        .recordPurity(context)
+        );
+    }
+
     // PARSE .........................................................................................................
 
     /**
@@ -935,6 +1113,7 @@ final class BasicSpreadsheetEngine implements SpreadsheetEngine {
                 if (null != token && false == formula.expression().isPresent()) {
                     formula = formula.setExpression(
                             token.toExpression(
+                                    context.isFoldingConstants(),
                                     BasicSpreadsheetEngineExpressionEvaluationContext.with(
                                             context,
                                             context::now
@@ -944,6 +1123,13 @@ final class BasicSpreadsheetEngine implements SpreadsheetEngine {
                 }
             }
 
+            // purity is tested once here and kept with the formula
+            formula = formula.recordPurity(context);
+
+            if (context.isDiscardingTokens() && formula.expression().isPresent()) {
+                formula = formula.discardToken();
+            }
+
             result = cell.setFormula(
                     formula
             );
@@ -992,18 +1178,20 @@ final class BasicSpreadsheetEngine implements SpreadsheetEngine {
         final TextCursor textCursor = TextCursors.charSequence(text);
 
         final SpreadsheetParserToken token;
-        if (maybeParsePattern.isPresent()) {
-            token = maybeParsePattern.get()
-                    .parser()
-                    .orFailIfCursorNotEmpty(ParserReporters.basic())
-                    .parse(
-                            textCursor,
-                            context.metadata()
-                                    .parserContext(context::now)
-                    ).get()
-                    .cast(SpreadsheetParserToken.class);
-        } else {
-            token = context.parseFormula(textCursor);
+        try (final SpreadsheetEngineTracerSpan span = context.tracer().start(SpreadsheetEngineMetric.PARSE)) {
+            if (maybeParsePattern.isPresent()) {
+                token = maybeParsePattern.get()
+                        .parser()
+                        .orFailIfCursorNotEmpty(ParserReporters.basic())
+                        .parse(
+                                textCursor,
+                                context.metadata()
+                                        .parserContext(context::now)
+                        ).get()
+                        .cast(SpreadsheetParserToken.class);
+            } else {
+                token = context.parseFormula(textCursor);
+            }
         }
         return token;
     }
@@ -1023,16 +1211,19 @@ final class BasicSpreadsheetEngine implements SpreadsheetEngine {
             // ask enum to dispatch
             final Optional<Expression> maybeExpression = formula.expression();
             if (maybeExpression.isPresent()) {
-                result = cell.setFormula(
-                        formula.setValue(
-                                evaluation.evaluate(
-                                        this,
-                                        maybeExpression.get(),
-                                        formula,
-                                        cell,
-                                        context
-                                )
-                        ).replaceErrorWithValueIfPossible(context)
+                result = this.validate(
+                        cell.setFormula(
+                                formula.setValue(
+                                        evaluation.evaluate(
+                                                this,
+                                                maybeExpression.get(),
+                                                formula,
+                                                cell,
+                                                context
+                                        )
+                                ).replaceErrorWithValueIfPossible(context)
+                        ),
+                        context
                 );
             }
 
@@ -1087,15 +1278,16 @@ final class BasicSpreadsheetEngine implements SpreadsheetEngine {
     }
 
     /**
-     * If a formatted value is present and the {@link Expression#isPure(ExpressionPurityContext)} then return
-     * the current {@link SpreadsheetFormula#value()} otherwise evaluate the expression again.
+     * If a formatted value is present and the {@link SpreadsheetFormula#isPure(ExpressionPurityContext)} then return
+     * the current {@link SpreadsheetFormula#value()} otherwise evaluate the expression again. The purity was recorded
+     * when the formula was parsed so the {@link Expression} is not walked again.
      */
     // SpreadsheetEngineEvaluation#COMPUTE_IF_NECESSARY
     Optional<Object> evaluateIfNecessary(final Expression expression,
                                          final SpreadsheetFormula formula,
                                          final SpreadsheetCell cell,
                                          final SpreadsheetEngineContext context) {
-        return cell.formatted().isPresent() && expression.isPure(context) ?
+        return cell.formatted().isPresent() && formula.isPure(context) ?
                 formula.value() :
                 this.evaluate(
                         expression,
@@ -1111,15 +1303,106 @@ final class BasicSpreadsheetEngine implements SpreadsheetEngine {
     Optional<Object> evaluate(final Expression expression,
                               final SpreadsheetCell cell,
                               final SpreadsheetEngineContext context) {
+        try (final SpreadsheetEngineTracerSpan span = context.tracer().start(SpreadsheetEngineMetric.EVALUATE)) {
+            return Optional.ofNullable(
+                    context.evaluate(
+                            expression,
+                            Optional.of(cell)
+                    )
+            );
+        }
+    }
 
-        return Optional.ofNullable(
-                context.evaluate(
-                        expression,
-                        Optional.of(cell)
-                )
+    // VALIDATE ........................................................................................................
+
+    /**
+     * Replaces the value of the cell with {@link #INVALID_VALUE} if it fails any of the {@link SpreadsheetDataValidator}
+     * for its range.
+     */
+    private SpreadsheetCell validate(final SpreadsheetCell cell,
+                                     final SpreadsheetEngineContext context) {
+        final SpreadsheetFormula formula = cell.formula();
+
+        return this.isValid(
+                cell,
+                formula.value()
+                        .orElse(null),
+                context
+        ) ?
+                cell :
+                cell.setFormula(
+                        formula.setValue(
+                                Optional.of(INVALID_VALUE)
+                        )
+                );
+    }
+
+    /**
+     * Tests the value against all {@link SpreadsheetDataValidator} for the cell. Missing values, errors and cells
+     * without any validators are always valid.
+     */
+    private boolean isValid(final SpreadsheetCell cell,
+                            final Object value,
+                            final SpreadsheetEngineContext context) {
+        boolean valid = true;
+
+        if (null != value && false == value instanceof SpreadsheetError) {
+            final Set<SpreadsheetDataValidator<?>> validators = context.storeRepository()
+                    .rangeToValidators()
+                    .loadCellReferenceValues(cell.reference());
+
+            if (false == validators.isEmpty()) {
+                try (final SpreadsheetEngineTracerSpan span = context.tracer().start(SpreadsheetEngineMetric.DATA_VALIDATION)) {
+                    final SpreadsheetConverterContext converterContext = context.spreadsheetConverterContext();
+
+                    for (final SpreadsheetDataValidator<?> validator : validators) {
+                        valid = isValid(
+                                validator,
+                                value,
+                                cell,
+                                converterContext,
+                                context
+                        );
+                        if (false == valid) {
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+
+        return valid;
+    }
+
+    /**
+     * Converts the value to the {@link SpreadsheetDataValidator#valueType()}, a value that cannot be converted is invalid.
+     */
+    private static <T> boolean isValid(final SpreadsheetDataValidator<T> validator,
+                                       final Object value,
+                                       final SpreadsheetCell cell,
+                                       final SpreadsheetConverterContext converterContext,
+                                       final SpreadsheetEngineContext context) {
+        final Either<T, String> converted = converterContext.convert(
+                value,
+                validator.valueType()
         );
+
+        return converted.isLeft() &&
+                validator.validate(
+                        converted.leftValue(),
+                        context.spreadsheetDataValidatorContext(
+                                cell,
+                                converted.leftValue()
+                        )
+                );
     }
 
+    /**
+     * The value given to cells with a value that fails validation.
+     */
+    // VisibleForTesting
+    final static SpreadsheetError INVALID_VALUE = SpreadsheetErrorKind.VALUE.setMessage("Invalid value");
+
     // FORMAT .........................................................................................................
 
     /**
@@ -1127,32 +1410,24 @@ final class BasicSpreadsheetEngine implements SpreadsheetEngine {
      */
     private SpreadsheetCell formatAndApplyStyle(final SpreadsheetCell cell,
                                                 final SpreadsheetEngineContext context) {
-        // try and use the cells custom format otherwise use a default from the context.
-        final SpreadsheetFormatter formatter;
-        final Optional<SpreadsheetFormatPattern> maybeFormat = cell.formatPattern();
-        if (maybeFormat.isPresent()) {
-            formatter = maybeFormat.get()
-                    .formatter();
-        } else {
-            formatter = context.metadata()
-                    .formatter();
-        }
-
         final SpreadsheetFormula formula = cell
                 .formula();
         final Object value = formula.value()
                 .orElse("");
 
+        final TextNode formatted;
+        try (final SpreadsheetEngineTracerSpan span = context.tracer().start(SpreadsheetEngineMetric.FORMAT)) {
+            // the cells custom format otherwise a default from the context.
+            formatted = context.formatAndStyle(
+                    value,
+                    cell.formatPattern(),
+                    cell.style()
+            ).orElse(EMPTY_TEXT_NODE);
+        }
+
         return this.locateAndApplyConditionalFormattingRule(
                 cell.setFormatted(
-                        Optional.of(
-                                context.format(value, formatter)
-                                        .map(
-                                                f -> cell.style()
-                                                        .replace(f.toTextNode())
-                                        )
-                                        .orElse(EMPTY_TEXT_NODE)
-                        )
+                        Optional.of(formatted)
                 ),
                 context
         );
@@ -1161,44 +1436,57 @@ final class BasicSpreadsheetEngine implements SpreadsheetEngine {
     private final static TextNode EMPTY_TEXT_NODE = TextNode.text("");
 
     /**
-     * Locates and returns the first matching conditional rule style.
+     * Locates and returns the first matching conditional rule style. Rules are tried in
+     * {@link #CONDITIONAL_FORMATTING_RULE_EVALUATION_ORDER} and testing stops at the first rule that matches, with cells
+     * that are not covered by any rule returned immediately without any sorting.
      */
     private SpreadsheetCell locateAndApplyConditionalFormattingRule(final SpreadsheetCell cell,
                                                                     final SpreadsheetEngineContext context) {
-        SpreadsheetCell result = cell;
-
-        final Set<SpreadsheetConditionalFormattingRule> rules = Sets.sorted(SpreadsheetConditionalFormattingRule.PRIORITY_COMPARATOR);
-        rules.addAll(context.storeRepository()
+        final Set<SpreadsheetConditionalFormattingRule> rules = context.storeRepository()
                 .rangeToConditionalFormattingRules()
-                .loadCellReferenceValues(cell.reference()));
-        for (SpreadsheetConditionalFormattingRule rule : rules) {
-            final Object test = context.evaluate(
-                    rule.formula()
-                            .expression()
-                            .get(),
-                    Optional.of(
-                            cell
-                    )
+                .loadCellReferenceValues(cell.reference());
+
+        if (rules.isEmpty()) {
+            return cell;
+        }
+
+        try (final SpreadsheetEngineTracerSpan span = context.tracer().start(SpreadsheetEngineMetric.CONDITIONAL_FORMATTING)) {
+            return this.locateAndApplyConditionalFormattingRule0(
+                    rules,
+                    cell,
+                    context
             );
-            final Boolean booleanResult = context.metadata()
-                    .converterContext(
-                            context::now,
-                            context::resolveIfLabel
-                    )
-                    .convertOrFail(test, Boolean.class);
-            if (Boolean.TRUE.equals(booleanResult)) {
+        }
+    }
+
+    private SpreadsheetCell locateAndApplyConditionalFormattingRule0(final Set<SpreadsheetConditionalFormattingRule> rules,
+                                                                     final SpreadsheetCell cell,
+                                                                     final SpreadsheetEngineContext context) {
+        final List<SpreadsheetConditionalFormattingRule> sorted = Lists.array();
+        sorted.addAll(rules);
+        sorted.sort(CONDITIONAL_FORMATTING_RULE_EVALUATION_ORDER);
+
+        for (final SpreadsheetConditionalFormattingRule rule : sorted) {
+            if (context.testConditionalFormattingRule(rule, cell)) {
                 final TextNode formatted = cell.formatted()
                         .orElseThrow(() -> new BasicSpreadsheetEngineException("Missing formatted cell=" + cell));
-                result = cell.setFormatted(
+                return cell.setFormatted(
                         Optional.of(
                                 rule.style()
                                         .apply(cell)
                                         .replace(formatted)));
             }
         }
-        return result;
+        return cell;
     }
 
+    /**
+     * Rules with the lowest priority value are tried first, this matches the previous behaviour where all rules were
+     * tested from the highest value and the last matching rule was applied. The sort is stable, so rules with the same
+     * priority are tried in the order they were loaded.
+     */
+    private final static Comparator<SpreadsheetConditionalFormattingRule> CONDITIONAL_FORMATTING_RULE_EVALUATION_ORDER = SpreadsheetConditionalFormattingRule.PRIORITY_COMPARATOR.reversed();
+
     // max..............................................................................................................
 
     @Override
@@ -1207,10 +1495,8 @@ final class BasicSpreadsheetEngine implements SpreadsheetEngine {
         double columnWidth = 0;
 
         final SpreadsheetStoreRepository repo = context.storeRepository();
-        final Optional<SpreadsheetColumn> column = repo.columns()
-                .load(columnReference);
 
-        if (!column.isPresent() || !column.get().hidden()) {
+        if (!repo.columns().isHidden(columnReference)) {
             columnWidth = context.storeRepository()
                     .cells()
                     .maxColumnWidth(columnReference);
@@ -1232,10 +1518,8 @@ final class BasicSpreadsheetEngine implements SpreadsheetEngine {
         double rowHeight = 0;
 
         final SpreadsheetStoreRepository repo = context.storeRepository();
-        final Optional<SpreadsheetRow> row = repo.rows()
-                .load(rowReference);
 
-        if (!row.isPresent() || !row.get().hidden()) {
+        if (!repo.rows().isHidden(rowReference)) {
             rowHeight = context.storeRepository()
                     .cells()
                     .maxRowHeight(rowReference);
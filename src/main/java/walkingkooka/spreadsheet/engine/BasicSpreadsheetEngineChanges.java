@@ -17,12 +17,15 @@
 
 package walkingkooka.spreadsheet.engine;
 
+import walkingkooka.collect.list.Lists;
 import walkingkooka.collect.map.Maps;
 import walkingkooka.collect.set.Sets;
 import walkingkooka.spreadsheet.SpreadsheetCell;
 import walkingkooka.spreadsheet.SpreadsheetColumn;
 import walkingkooka.spreadsheet.SpreadsheetFormula;
 import walkingkooka.spreadsheet.SpreadsheetRow;
+import walkingkooka.spreadsheet.conditionalformat.SpreadsheetConditionalFormattingRule;
+import walkingkooka.spreadsheet.reference.PackedSpreadsheetCellReferenceMap;
 import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
 import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetColumnReference;
@@ -37,11 +40,13 @@ import walkingkooka.spreadsheet.store.SpreadsheetRowStore;
 import walkingkooka.spreadsheet.store.repo.SpreadsheetStoreRepository;
 import walkingkooka.store.Watchers;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
 
 /**
  * Aggregates all the updated cells that result from an operation by {@link BasicSpreadsheetEngine}.
@@ -107,6 +112,14 @@ final class BasicSpreadsheetEngineChanges implements AutoCloseable {
                 labelStore.addDeleteWatcher(this::onLabelDeleted) :
                 null;
 
+        // rule results kept by the context may be stale if stores were written outside an operation, so start fresh
+        context.discardConditionalFormattingRuleResults();
+
+        this.onSaveConditionalFormattingRule = repository.rangeToConditionalFormattingRules()
+                .addValueWatcher(context::conditionalFormattingRuleReferencesChanged);
+        this.onSaveLabelConditionalFormattingRule = labelStore.addSaveWatcher(this::conditionalFormattingRuleLabelSaved);
+        this.onDeleteLabelConditionalFormattingRule = labelStore.addDeleteWatcher(this::conditionalFormattingRuleLabelDeleted);
+
         final SpreadsheetRowStore rowStore = repository.rows();
         this.onSaveRow = deltaProperties.contains(SpreadsheetDeltaProperties.ROWS) ?
                 rowStore.addSaveWatcher(this::onRowSaved) :
@@ -148,6 +161,17 @@ final class BasicSpreadsheetEngineChanges implements AutoCloseable {
         this.mode.onLabelDeleted(label, this);
     }
 
+    /**
+     * Rule formulas may reference a label, so all rule results the context kept are discarded.
+     */
+    private void conditionalFormattingRuleLabelSaved(final SpreadsheetLabelMapping mapping) {
+        this.context.discardConditionalFormattingRuleResults();
+    }
+
+    private void conditionalFormattingRuleLabelDeleted(final SpreadsheetLabelName label) {
+        this.context.discardConditionalFormattingRuleResults();
+    }
+
     private void onRowSaved(final SpreadsheetRow row) {
         this.mode.onRowSaved(row, this);
     }
@@ -164,7 +188,7 @@ final class BasicSpreadsheetEngineChanges implements AutoCloseable {
     void onCellSavedImmediate(final SpreadsheetCell cell) {
         final SpreadsheetCellReference reference = cell.reference();
 
-        final Map<SpreadsheetCellReference, SpreadsheetCell> updatedAndDeleted = this.updatedAndDeletedCells;
+        final PackedSpreadsheetCellReferenceMap<SpreadsheetCell> updatedAndDeleted = this.updatedAndDeletedCells;
         final SpreadsheetCell previous = updatedAndDeleted.get(reference);
 
         // save replaces deletes
@@ -182,10 +206,12 @@ final class BasicSpreadsheetEngineChanges implements AutoCloseable {
      */
     private void addNewExpressionReferences(final SpreadsheetCellReference cell,
                                             final SpreadsheetFormula formula) {
-        formula.expression()
-                .ifPresent(e -> BasicSpreadsheetEngineChangesAddReferencesExpressionVisitor.processReferences(e,
-                        cell,
-                        this.context));
+        try (final SpreadsheetEngineTracerSpan span = this.context.tracer().start(SpreadsheetEngineMetric.REFERENCES)) {
+            formula.expression()
+                    .ifPresent(e -> BasicSpreadsheetEngineChangesAddReferencesExpressionVisitor.processReferences(e,
+                            cell,
+                            this.context));
+        }
     }
 
     /**
@@ -196,7 +222,7 @@ final class BasicSpreadsheetEngineChanges implements AutoCloseable {
     }
 
     private void deletedCellImmediate(final SpreadsheetCellReference cell) {
-        final Map<SpreadsheetCellReference, SpreadsheetCell> updatedAndDeleted = this.updatedAndDeletedCells;
+        final PackedSpreadsheetCellReferenceMap<SpreadsheetCell> updatedAndDeleted = this.updatedAndDeletedCells;
         final SpreadsheetCell previous = updatedAndDeleted.get(cell);
 
         // delete does not overwrite save/updated
@@ -210,14 +236,16 @@ final class BasicSpreadsheetEngineChanges implements AutoCloseable {
     private void removePreviousExpressionReferences(final SpreadsheetCellReference cell) {
         final SpreadsheetStoreRepository repository = this.repository;
 
-        repository.cellReferences()
-                .delete(cell);
-        repository.labelReferences()
-                .loadReferred(cell)
-                .forEach(l -> repository.labelReferences().removeReference(TargetAndSpreadsheetCellReference.with(l, cell)));
-        repository.rangeToCells()
-                .rangesWithValue(cell)
-                .forEach(r -> repository.rangeToCells().removeValue(r, cell));
+        try (final SpreadsheetEngineTracerSpan span = this.context.tracer().start(SpreadsheetEngineMetric.REFERENCES)) {
+            repository.cellReferences()
+                    .delete(cell);
+            repository.labelReferences()
+                    .loadReferred(cell)
+                    .forEach(l -> repository.labelReferences().removeReference(TargetAndSpreadsheetCellReference.with(l, cell)));
+            repository.rangeToCells()
+                    .rangesWithValue(cell)
+                    .forEach(r -> repository.rangeToCells().removeValue(r, cell));
+        }
     }
 
     void onCellReferenceDeletedImmediate(final TargetAndSpreadsheetCellReference<SpreadsheetCellReference> targetAndReference) {
@@ -272,13 +300,101 @@ final class BasicSpreadsheetEngineChanges implements AutoCloseable {
 
     void onCellSavedBatch(final SpreadsheetCell cell) {
         final SpreadsheetCellReference reference = cell.reference();
-        this.unsavedCells.add(reference);
+        if (this.batchedCells.add(reference)) {
+            this.unsavedCells.add(reference);
+        }
 
         this.removePreviousExpressionReferences(reference);
         this.addNewExpressionReferences(reference, cell.formula());
         this.batchReferrers(reference);
     }
 
+    /**
+     * Accepts a cell saved by an import before this was created, adding its references once and then batching the
+     * cell and its referrers. Previous references are only removed if the cell replaced an existing cell.
+     */
+    void onCellImportedBatch(final SpreadsheetCell cell,
+                             final boolean replaced) {
+        final SpreadsheetCellReference reference = cell.reference();
+
+        if (replaced) {
+            this.removePreviousExpressionReferences(reference);
+        }
+        this.addNewExpressionReferences(reference, cell.formula());
+        this.batchCell(reference);
+    }
+
+    /**
+     * Sorts the cells waiting to be evaluated so each cell follows the other waiting cells that it references directly,
+     * through a label or through a range. Cells saved together in a batch are then evaluated once each, after the cells
+     * they reference, rather than first against stale values and then again when their references are evaluated. Cells
+     * that are part of a cycle keep their original order.
+     */
+    void sortUnsavedCells() {
+        final Queue<SpreadsheetCellReference> unsavedCells = this.unsavedCells;
+
+        final Set<SpreadsheetCellReference> cells = Sets.ordered();
+        cells.addAll(unsavedCells);
+
+        // for each cell, the waiting cells that reference it and a count of the waiting cells it references.
+        final Map<SpreadsheetCellReference, Set<SpreadsheetCellReference>> cellToReferrers = Maps.sorted();
+        final Map<SpreadsheetCellReference, Integer> cellToReferenceCount = Maps.sorted();
+
+        for (final SpreadsheetCellReference cell : cells) {
+            final Set<SpreadsheetCellReference> referrers = Sets.ordered();
+
+            this.referrers(
+                    cell,
+                    referrer -> {
+                        if (cells.contains(referrer) && false == referrer.equals(cell) && referrers.add(referrer)) {
+                            cellToReferenceCount.merge(referrer, 1, Integer::sum);
+                        }
+                    }
+            );
+
+            cellToReferrers.put(cell, referrers);
+        }
+
+        final List<SpreadsheetCellReference> sorted = Lists.array();
+        for (final SpreadsheetCellReference cell : cells) {
+            if (false == cellToReferenceCount.containsKey(cell)) {
+                sorted.add(cell);
+            }
+        }
+
+        // a cell is ready once all the waiting cells it references have been sorted.
+        for (int i = 0; i < sorted.size(); i++) {
+            for (final SpreadsheetCellReference referrer : cellToReferrers.get(sorted.get(i))) {
+                final int count = cellToReferenceCount.get(referrer) - 1;
+                cellToReferenceCount.put(referrer, count);
+
+                if (0 == count) {
+                    sorted.add(referrer);
+                }
+            }
+        }
+
+        // cells within a cycle are never ready
+        if (sorted.size() < cells.size()) {
+            for (final SpreadsheetCellReference cell : cells) {
+                if (cellToReferenceCount.getOrDefault(cell, 0) > 0) {
+                    sorted.add(cell);
+                }
+            }
+        }
+
+        unsavedCells.clear();
+        unsavedCells.addAll(sorted);
+    }
+
+    /**
+     * Queues a cell that has not changed but must be evaluated again, such as a cell calling an impure function, along
+     * with all the cells that reference it.
+     */
+    void refreshCellBatch(final SpreadsheetCellReference cell) {
+        this.batchCell(cell);
+    }
+
     void onCellDeletedBatch(final SpreadsheetCellReference cell) {
         this.deletedCellImmediate(cell);
     }
@@ -344,22 +460,46 @@ final class BasicSpreadsheetEngineChanges implements AutoCloseable {
     void refreshUpdated() {
         this.mode = BasicSpreadsheetEngineChangesMode.IMMEDIATE;
 
+        final SpreadsheetEngineTracer tracer = this.context.tracer();
+        try (final SpreadsheetEngineTracerSpan span = tracer.start(SpreadsheetEngineMetric.REFRESH)) {
+            this.refreshUpdated0(tracer);
+        }
+    }
+
+    private void refreshUpdated0(final SpreadsheetEngineTracer tracer) {
         for (; ; ) {
-            final SpreadsheetCellReference potential = this.unsavedCells.poll();
+            // cells that need to be evaluated again are processed before cells that only need to be styled again.
+            SpreadsheetCellReference potential = this.unsavedCells.poll();
+            boolean evaluate = true;
+
             if (null == potential) {
-                break;
+                potential = this.unstyledCells.poll();
+                if (null == potential) {
+                    break;
+                }
+                evaluate = false;
             }
             // saves will have a value of null for the given $potential (reference).
             if (null != this.updatedAndDeletedCells.get(potential)) {
                 continue;
             }
 
-            this.engine.loadCell0(
-                    potential,
-                    SpreadsheetEngineEvaluation.FORCE_RECOMPUTE,
-                    this,
-                    this.context
-            );
+            tracer.increment(SpreadsheetEngineMetric.REFRESHED_CELLS, 1);
+
+            if (evaluate) {
+                this.engine.refreshCell(
+                        potential,
+                        this,
+                        this.context
+                );
+            } else {
+                this.engine.loadCell0(
+                        potential,
+                        SpreadsheetEngineEvaluation.COMPUTE_IF_NECESSARY,
+                        this,
+                        this.context
+                );
+            }
         }
     }
 
@@ -463,12 +603,13 @@ final class BasicSpreadsheetEngineChanges implements AutoCloseable {
         final Set<SpreadsheetCell> updatedCells = Sets.ordered();
         final Set<SpreadsheetCellReference> deletedCells = Sets.ordered();
 
-        for (final Map.Entry<SpreadsheetCellReference, SpreadsheetCell> referenceToCell : this.updatedAndDeletedCells.entrySet()) {
-            final SpreadsheetCell cell = referenceToCell.getValue();
+        final PackedSpreadsheetCellReferenceMap<SpreadsheetCell> updatedAndDeleted = this.updatedAndDeletedCells;
+        for (final SpreadsheetCellReference reference : updatedAndDeleted.keys()) {
+            final SpreadsheetCell cell = updatedAndDeleted.get(reference);
             if (null != cell) {
                 updatedCells.add(cell);
             } else {
-                deletedCells.add(referenceToCell.getKey());
+                deletedCells.add(reference);
             }
         }
 
@@ -565,39 +706,74 @@ final class BasicSpreadsheetEngineChanges implements AutoCloseable {
     // batch...........................................................................................................
 
     private void batchCell(final SpreadsheetCellReference reference) {
-        // saves replace delete, but dont replace a previous save
-        if (null == this.updatedAndDeletedCells.get(reference)) {
+        // saves replace delete, but dont replace a previous save, cells already waiting are not batched again.
+        if (null == this.updatedAndDeletedCells.get(reference) && this.batchedCells.add(reference)) {
             this.unsavedCells.add(reference);
             this.batchReferrers(reference);
         }
     }
 
     private void batchLabel(final SpreadsheetLabelName label) {
+        this.labelReferrers(label, this::batchCell);
+    }
+
+    private void labelReferrers(final SpreadsheetLabelName label,
+                                final Consumer<SpreadsheetCellReference> referrer) {
         this.repository.labelReferences()
                 .load(label)
-                .ifPresent(r -> r.forEach(this::batchCell));
+                .ifPresent(r -> r.forEach(referrer));
     }
 
-    private void batchRange(final SpreadsheetCellRange range) {
+    private void rangeReferrers(final SpreadsheetCellRange range,
+                                final Consumer<SpreadsheetCellReference> referrer) {
         this.repository.rangeToCells()
                 .load(range)
-                .ifPresent(c -> c.forEach(this::batchCell));
+                .ifPresent(c -> c.forEach(referrer));
+    }
+
+    /**
+     * Batches all the existing cells in a range with a {@link SpreadsheetConditionalFormattingRule} that references
+     * a changed cell, so they are styled again, after discarding any rule results the context kept for the range.
+     */
+    private void batchConditionalFormattingRange(final SpreadsheetCellRange range) {
+        this.context.conditionalFormattingRuleReferencesChanged(range);
+
+        for (final SpreadsheetCell cell : this.repository.cells()
+                .loadCells(range)) {
+            final SpreadsheetCellReference reference = cell.reference();
+
+            if (null == this.updatedAndDeletedCells.get(reference)) {
+                this.unstyledCells.add(reference);
+            }
+        }
     }
 
     private void batchReferrers(final SpreadsheetCellReference reference) {
+        this.referrers(reference, this::batchCell);
+
+        this.repository.conditionalFormattingRuleReferences()
+                .loadCellReferenceValues(reference)
+                .forEach(this::batchConditionalFormattingRange);
+    }
+
+    /**
+     * Passes every cell that references the given cell directly, through a label or through a range to the referrer.
+     */
+    private void referrers(final SpreadsheetCellReference reference,
+                           final Consumer<SpreadsheetCellReference> referrer) {
         final SpreadsheetStoreRepository repository = this.repository;
 
         repository.cellReferences()
                 .loadReferred(reference)
-                .forEach(this::batchCell);
+                .forEach(referrer);
 
         repository.labels()
                 .labels(reference)
-                .forEach(m -> this.batchLabel(m.label()));
+                .forEach(m -> this.labelReferrers(m.label(), referrer));
 
         repository.rangeToCells()
                 .loadCellReferenceRanges(reference)
-                .forEach(this::batchRange);
+                .forEach(r -> this.rangeReferrers(r, referrer));
     }
 
     /**
@@ -610,11 +786,23 @@ final class BasicSpreadsheetEngineChanges implements AutoCloseable {
      */
     private final Queue<SpreadsheetCellReference> unsavedCells = new ConcurrentLinkedQueue<>();
 
+    /**
+     * All cells that were ever added to {@link #unsavedCells}, so a cell is only batched and its referrers followed
+     * once for each operation.
+     */
+    private final Set<SpreadsheetCellReference> batchedCells = Sets.sorted();
+
+    /**
+     * Holds a queue of cell references with a value that is unchanged but need to be styled again, because a cell
+     * referenced by a {@link SpreadsheetConditionalFormattingRule} changed.
+     */
+    private final Queue<SpreadsheetCellReference> unstyledCells = new ConcurrentLinkedQueue<>();
+
     /**
      * Records all updated which includes deleted cells. This can then be returned by the {@link BasicSpreadsheetEngine} method.
      * A null value indicates the cell was deleted.
      */
-    private final Map<SpreadsheetCellReference, SpreadsheetCell> updatedAndDeletedCells = Maps.sorted();
+    private final PackedSpreadsheetCellReferenceMap<SpreadsheetCell> updatedAndDeletedCells = PackedSpreadsheetCellReferenceMap.empty();
 
     /**
      * Records all updated which includes deleted columns. This can then be returned by the {@link BasicSpreadsheetEngine} method.
@@ -650,7 +838,10 @@ final class BasicSpreadsheetEngineChanges implements AutoCloseable {
                 this.onSaveLabel,
                 this.onDeleteLabel,
                 this.onSaveRow,
-                this.onDeleteRow
+                this.onDeleteRow,
+                this.onSaveConditionalFormattingRule,
+                this.onSaveLabelConditionalFormattingRule,
+                this.onDeleteLabelConditionalFormattingRule
         );
     }
 
@@ -667,6 +858,10 @@ final class BasicSpreadsheetEngineChanges implements AutoCloseable {
     private final Runnable onSaveRow;
     private final Runnable onDeleteRow;
 
+    private final Runnable onSaveConditionalFormattingRule;
+    private final Runnable onSaveLabelConditionalFormattingRule;
+    private final Runnable onDeleteLabelConditionalFormattingRule;
+
     @Override
     public String toString() {
         return this.updatedAndDeletedCells + " " + this.updatedAndDeletedColumns + " " + this.updatedAndDeletedRows;
@@ -23,25 +23,39 @@ import walkingkooka.math.Fraction;
 import walkingkooka.net.AbsoluteUrl;
 import walkingkooka.spreadsheet.SpreadsheetCell;
 import walkingkooka.spreadsheet.SpreadsheetErrorKind;
+import walkingkooka.spreadsheet.SpreadsheetFormula;
+import walkingkooka.spreadsheet.conditionalformat.SpreadsheetConditionalFormattingRule;
+import walkingkooka.spreadsheet.convert.SpreadsheetConverterContext;
+import walkingkooka.spreadsheet.datavalidation.SpreadsheetDataValidatorContext;
+import walkingkooka.spreadsheet.datavalidation.SpreadsheetDataValidatorContexts;
+import walkingkooka.spreadsheet.expression.SpreadsheetCompiledExpression;
+import walkingkooka.spreadsheet.expression.SpreadsheetCompiledExpressions;
+import walkingkooka.spreadsheet.expression.SpreadsheetExpressionEvaluationContext;
 import walkingkooka.spreadsheet.expression.SpreadsheetExpressionEvaluationContexts;
 import walkingkooka.spreadsheet.format.SpreadsheetFormatter;
 import walkingkooka.spreadsheet.format.SpreadsheetFormatterContext;
 import walkingkooka.spreadsheet.format.SpreadsheetFormatterContexts;
 import walkingkooka.spreadsheet.format.SpreadsheetText;
+import walkingkooka.spreadsheet.format.pattern.SpreadsheetFormatPattern;
 import walkingkooka.spreadsheet.meta.SpreadsheetMetadata;
 import walkingkooka.spreadsheet.meta.SpreadsheetMetadataPropertyName;
 import walkingkooka.spreadsheet.parser.SpreadsheetParserContext;
 import walkingkooka.spreadsheet.parser.SpreadsheetParserToken;
 import walkingkooka.spreadsheet.parser.SpreadsheetParsers;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
 import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
 import walkingkooka.spreadsheet.store.repo.SpreadsheetStoreRepository;
 import walkingkooka.text.LineEnding;
 import walkingkooka.text.cursor.TextCursor;
+import walkingkooka.text.cursor.TextCursorSavePoint;
+import walkingkooka.text.cursor.TextCursors;
 import walkingkooka.text.cursor.parser.ParserReporters;
 import walkingkooka.tree.expression.Expression;
 import walkingkooka.tree.expression.ExpressionEvaluationContext;
 import walkingkooka.tree.expression.FunctionExpressionName;
 import walkingkooka.tree.expression.function.ExpressionFunction;
+import walkingkooka.tree.text.TextNode;
+import walkingkooka.tree.text.TextStyle;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -57,7 +71,7 @@ import java.util.function.Supplier;
 final class BasicSpreadsheetEngineContext implements SpreadsheetEngineContext {
 
     /**
-     * Creates a new {@link BasicSpreadsheetEngineContext}
+     * Creates a new {@link BasicSpreadsheetEngineContext} that interprets expressions.
      */
     static BasicSpreadsheetEngineContext with(final SpreadsheetMetadata metadata,
                                               final Function<FunctionExpressionName, ExpressionFunction<?, ExpressionEvaluationContext>> functions,
@@ -65,7 +79,40 @@ final class BasicSpreadsheetEngineContext implements SpreadsheetEngineContext {
                                               final Function<BigDecimal, Fraction> fractioner,
                                               final SpreadsheetStoreRepository storeRepository,
                                               final AbsoluteUrl serverUrl,
-                                              final Supplier<LocalDateTime> now) {
+                                              final Supplier<LocalDateTime> now,
+                                              final SpreadsheetEngineTracer tracer) {
+        return with(
+                metadata,
+                functions,
+                engine,
+                fractioner,
+                storeRepository,
+                serverUrl,
+                now,
+                tracer,
+                false,
+                false,
+                false
+        );
+    }
+
+    /**
+     * Creates a new {@link BasicSpreadsheetEngineContext}. When <code>foldConstants</code> is true formulas are converted
+     * with number constants folded, when <code>discardTokens</code> is true formulas only keep their text and expression,
+     * and when <code>compileExpressions</code> is true cell formulas are evaluated using their
+     * {@link SpreadsheetFormula#compile(Function) compiled} expression.
+     */
+    static BasicSpreadsheetEngineContext with(final SpreadsheetMetadata metadata,
+                                              final Function<FunctionExpressionName, ExpressionFunction<?, ExpressionEvaluationContext>> functions,
+                                              final SpreadsheetEngine engine,
+                                              final Function<BigDecimal, Fraction> fractioner,
+                                              final SpreadsheetStoreRepository storeRepository,
+                                              final AbsoluteUrl serverUrl,
+                                              final Supplier<LocalDateTime> now,
+                                              final SpreadsheetEngineTracer tracer,
+                                              final boolean foldConstants,
+                                              final boolean discardTokens,
+                                              final boolean compileExpressions) {
         Objects.requireNonNull(metadata, "metadata");
         Objects.requireNonNull(functions, "functions");
         Objects.requireNonNull(engine, "engine");
@@ -73,6 +120,7 @@ final class BasicSpreadsheetEngineContext implements SpreadsheetEngineContext {
         Objects.requireNonNull(storeRepository, "storeRepository");
         Objects.requireNonNull(serverUrl, "serverUrl");
         Objects.requireNonNull(now, "now");
+        Objects.requireNonNull(tracer, "tracer");
 
         return new BasicSpreadsheetEngineContext(
                 metadata,
@@ -81,7 +129,11 @@ final class BasicSpreadsheetEngineContext implements SpreadsheetEngineContext {
                 fractioner,
                 storeRepository,
                 serverUrl,
-                now
+                now,
+                tracer,
+                foldConstants,
+                discardTokens,
+                compileExpressions
         );
     }
 
@@ -94,28 +146,34 @@ final class BasicSpreadsheetEngineContext implements SpreadsheetEngineContext {
                                           final Function<BigDecimal, Fraction> fractioner,
                                           final SpreadsheetStoreRepository storeRepository,
                                           final AbsoluteUrl serverUrl,
-                                          final Supplier<LocalDateTime> now) {
+                                          final Supplier<LocalDateTime> now,
+                                          final SpreadsheetEngineTracer tracer,
+                                          final boolean foldConstants,
+                                          final boolean discardTokens,
+                                          final boolean compileExpressions) {
         super();
 
         this.metadata = metadata;
 
         this.parserContext = metadata.parserContext(now);
 
-        this.functions = functions;
+        this.functions = BasicSpreadsheetEngineContextFunctions.with(functions);
         this.function = SpreadsheetEngineExpressionEvaluationContextExpressionReferenceFunction.with(
                 engine,
                 this
         );
 
+        this.converterContext = metadata.converterContext(
+                now,
+                this::resolveIfLabel
+        );
+
         this.spreadsheetFormatContext = SpreadsheetFormatterContexts.basic(
                 metadata.numberToColor(),
                 metadata.nameToColor(),
                 metadata.getOrFail(SpreadsheetMetadataPropertyName.CELL_CHARACTER_WIDTH),
                 metadata.formatter(),
-                metadata.converterContext(
-                        now,
-                        this::resolveIfLabel
-                )
+                this.converterContext
         );
         this.fractioner = fractioner;
 
@@ -123,6 +181,10 @@ final class BasicSpreadsheetEngineContext implements SpreadsheetEngineContext {
         this.serverUrl = serverUrl;
 
         this.now = now;
+        this.tracer = tracer;
+        this.foldConstants = foldConstants;
+        this.discardTokens = discardTokens;
+        this.compileExpressions = compileExpressions;
     }
 
     // metadata........................................................................................................
@@ -134,6 +196,18 @@ final class BasicSpreadsheetEngineContext implements SpreadsheetEngineContext {
 
     private final SpreadsheetMetadata metadata;
 
+    // spreadsheetConverterContext......................................................................................
+
+    /**
+     * Returns the {@link SpreadsheetConverterContext} created once from the {@link SpreadsheetMetadata}.
+     */
+    @Override
+    public SpreadsheetConverterContext spreadsheetConverterContext() {
+        return this.converterContext;
+    }
+
+    private final SpreadsheetConverterContext converterContext;
+
     // resolveIfLabel.............................................................................................
 
     @Override
@@ -149,6 +223,28 @@ final class BasicSpreadsheetEngineContext implements SpreadsheetEngineContext {
 
     @Override
     public SpreadsheetParserToken parseFormula(final TextCursor formula) {
+        final SpreadsheetParserToken token;
+
+        if (this.discardTokens) {
+            final TextCursorSavePoint start = formula.save();
+            formula.end();
+            final String text = start.textBetween()
+                    .toString();
+
+            token = this.parseFormulaCache.parseFormula(
+                    text,
+                    () -> this.parseFormula0(
+                            TextCursors.charSequence(text)
+                    )
+            );
+        } else {
+            token = this.parseFormula0(formula);
+        }
+
+        return token;
+    }
+
+    private SpreadsheetParserToken parseFormula0(final TextCursor formula) {
         return SpreadsheetParsers.valueOrExpression(this.metadata.parser())
                 .orFailIfCursorNotEmpty(ParserReporters.basic())
                 .parse(formula, this.parserContext)
@@ -161,10 +257,21 @@ final class BasicSpreadsheetEngineContext implements SpreadsheetEngineContext {
      */
     private final SpreadsheetParserContext parserContext;
 
+    /**
+     * The maximum number of {@link SpreadsheetParserToken} cached when tokens are discarded.
+     */
+    // VisibleForTesting
+    final static int PARSE_FORMULA_CACHE_MAX_SIZE = 128;
+
+    // VisibleForTesting
+    final BasicSpreadsheetEngineContextParseFormulaCache parseFormulaCache = BasicSpreadsheetEngineContextParseFormulaCache.with(PARSE_FORMULA_CACHE_MAX_SIZE);
+
     @Override
     public boolean isPure(final FunctionExpressionName function) {
-        return this.functions.apply(function)
-                .isPure(this);
+        return this.functions.isPure(
+                function,
+                this
+        );
     }
 
     @Override
@@ -173,23 +280,15 @@ final class BasicSpreadsheetEngineContext implements SpreadsheetEngineContext {
         Objects.requireNonNull(expression, "expression");
         Objects.requireNonNull(cell, "cell");
 
-        final SpreadsheetMetadata metadata = this.metadata;
-
         Object result;
 
         try {
-            result = expression.toValue(
-                    SpreadsheetExpressionEvaluationContexts.basic(
-                            cell,
-                            this.storeRepository.cells(),
-                            this.serverUrl,
-                            metadata,
-                            this.functions,
-                            this.function,
-                            this::resolveIfLabel,
-                            this.now
-                    )
-            );
+            final SpreadsheetExpressionEvaluationContext context = this.spreadsheetExpressionEvaluationContext(cell);
+
+            result = this.compileExpressions ?
+                    this.compiledExpression(expression, cell)
+                            .toValue(context) :
+                    expression.toValue(context);
         } catch (final RuntimeException exception) {
             result = SpreadsheetErrorKind.translate(exception);
         }
@@ -197,12 +296,166 @@ final class BasicSpreadsheetEngineContext implements SpreadsheetEngineContext {
         return result;
     }
 
+    /**
+     * Returns the compiled form of the {@link Expression}, reusing the one held by the cell formula when the
+     * expression belongs to that formula. Function calls are bound to the functions given to this context, which
+     * outlive the context, so a formula keeps its resolved functions while the functions are unchanged.
+     */
+    private SpreadsheetCompiledExpression compiledExpression(final Expression expression,
+                                                             final Optional<SpreadsheetCell> cell) {
+        SpreadsheetCompiledExpression compiled = null;
+
+        if (cell.isPresent()) {
+            final SpreadsheetFormula formula = cell.get()
+                    .formula();
+            if (formula.expression().orElse(null) == expression) {
+                compiled = formula.compiledExpression(this.functions.functions)
+                        .get();
+            }
+        }
+
+        return null != compiled ?
+                compiled :
+                SpreadsheetCompiledExpressions.compile(
+                        expression,
+                        this.functions.functions
+                );
+    }
+
+    /**
+     * When compiling expressions returns the formula holding its compiled expression, which the engine saves with the
+     * cell so later evaluations reuse it.
+     */
+    @Override
+    public SpreadsheetFormula compileFormula(final SpreadsheetFormula formula) {
+        Objects.requireNonNull(formula, "formula");
+
+        return this.compileExpressions ?
+                formula.compile(this.functions.functions) :
+                formula;
+    }
+
+    /**
+     * When true expressions are evaluated after being compiled rather than interpreted.
+     */
+    private final boolean compileExpressions;
+
+    /**
+     * Rules with a pure formula reuse results from {@link #conditionalFormattingRuleCache}, so when compiling the rule
+     * formula is only compiled for results that are not kept, unless the formula saved with the rule was already
+     * {@link SpreadsheetFormula#compile(Function) compiled}.
+     */
+    @Override
+    public boolean testConditionalFormattingRule(final SpreadsheetConditionalFormattingRule rule,
+                                                 final SpreadsheetCell cell) {
+        Objects.requireNonNull(rule, "rule");
+        Objects.requireNonNull(cell, "cell");
+
+        final SpreadsheetFormula formula = rule.formula();
+
+        return formula.isPure(this) ?
+                this.conditionalFormattingRuleCache.test(
+                        rule,
+                        cell,
+                        () -> this.testConditionalFormattingRule0(formula, cell)
+                ) :
+                this.testConditionalFormattingRule0(formula, cell);
+    }
+
+    private boolean testConditionalFormattingRule0(final SpreadsheetFormula formula,
+                                                   final SpreadsheetCell cell) {
+        Object result;
+
+        try {
+            final SpreadsheetExpressionEvaluationContext context = this.spreadsheetExpressionEvaluationContext(Optional.of(cell));
+
+            result = this.compileExpressions ?
+                    formula.compiledExpression(this.functions.functions)
+                            .get()
+                            .toValue(context) :
+                    formula.expression()
+                            .get()
+                            .toValue(context);
+        } catch (final RuntimeException exception) {
+            result = SpreadsheetErrorKind.translate(exception);
+        }
+
+        return Boolean.TRUE.equals(
+                this.spreadsheetConverterContext()
+                        .convertOrFail(result, Boolean.class)
+        );
+    }
+
+    @Override
+    public void conditionalFormattingRuleReferencesChanged(final SpreadsheetCellRange range) {
+        Objects.requireNonNull(range, "range");
+
+        this.conditionalFormattingRuleCache.invalidate(range);
+    }
+
+    @Override
+    public void discardConditionalFormattingRuleResults() {
+        this.conditionalFormattingRuleCache.clear();
+    }
+
+    /**
+     * The maximum number of cells with cached conditional formatting rule results.
+     */
+    // VisibleForTesting
+    final static int CONDITIONAL_FORMATTING_RULE_CACHE_MAX_SIZE = 4096;
+
+    // VisibleForTesting
+    final BasicSpreadsheetEngineContextConditionalFormattingRuleCache conditionalFormattingRuleCache = BasicSpreadsheetEngineContextConditionalFormattingRuleCache.with(CONDITIONAL_FORMATTING_RULE_CACHE_MAX_SIZE);
+
+    @Override
+    public boolean isFoldingConstants() {
+        return this.foldConstants;
+    }
+
+    private final boolean foldConstants;
+
+    @Override
+    public boolean isDiscardingTokens() {
+        return this.discardTokens;
+    }
+
+    private final boolean discardTokens;
+
+    @Override
+    public SpreadsheetDataValidatorContext spreadsheetDataValidatorContext(final SpreadsheetCell cell,
+                                                                           final Object value) {
+        Objects.requireNonNull(cell, "cell");
+        Objects.requireNonNull(value, "value");
+
+        return SpreadsheetDataValidatorContexts.basic(
+                cell.reference(),
+                value,
+                this.spreadsheetExpressionEvaluationContext(
+                        Optional.of(cell)
+                )
+        );
+    }
+
+    private SpreadsheetExpressionEvaluationContext spreadsheetExpressionEvaluationContext(final Optional<SpreadsheetCell> cell) {
+        return SpreadsheetExpressionEvaluationContexts.basic(
+                cell,
+                this.storeRepository.cells(),
+                this.serverUrl,
+                this.metadata,
+                this.functions,
+                this.function,
+                this::resolveIfLabel,
+                this.now
+        );
+    }
+
     private final AbsoluteUrl serverUrl;
 
     /**
-     * Handles dispatching of functions.
+     * Handles dispatching of functions for interpreted expressions, resolving each function once for all cells
+     * evaluated by this context. Compiled expressions resolve each function call once and keep it.
      */
-    private final Function<FunctionExpressionName, ExpressionFunction<?, ExpressionEvaluationContext>> functions;
+    private final BasicSpreadsheetEngineContextFunctions functions;
 
     private final SpreadsheetEngineExpressionEvaluationContextExpressionReferenceFunction function;
 
@@ -228,6 +481,39 @@ final class BasicSpreadsheetEngineContext implements SpreadsheetEngineContext {
 
     private final SpreadsheetFormatterContext spreadsheetFormatContext;
 
+    /**
+     * Returns the cached {@link TextNode} for the given value, pattern and style if present, otherwise formats and
+     * styles and caches the result. The formatter is only created when the value is not cached.
+     */
+    @Override
+    public Optional<TextNode> formatAndStyle(final Object value,
+                                             final Optional<SpreadsheetFormatPattern> pattern,
+                                             final TextStyle style) {
+        Objects.requireNonNull(pattern, "pattern");
+        Objects.requireNonNull(style, "style");
+
+        return this.formatCache.formatAndStyle(
+                value,
+                pattern,
+                style,
+                () -> this.format(
+                        value,
+                        pattern.isPresent() ?
+                                pattern.get().formatter() :
+                                this.metadata.formatter()
+                ).map(f -> style.replace(f.toTextNode()))
+        );
+    }
+
+    /**
+     * The maximum number of formatted {@link TextNode} that are cached.
+     */
+    // VisibleForTesting
+    final static int FORMAT_CACHE_MAX_SIZE = 1024;
+
+    // VisibleForTesting
+    final BasicSpreadsheetEngineContextFormatCache formatCache = BasicSpreadsheetEngineContextFormatCache.with(FORMAT_CACHE_MAX_SIZE);
+
     // Store............................................................................................................
 
     @Override
@@ -237,6 +523,15 @@ final class BasicSpreadsheetEngineContext implements SpreadsheetEngineContext {
 
     private final SpreadsheetStoreRepository storeRepository;
 
+    // tracer...........................................................................................................
+
+    @Override
+    public SpreadsheetEngineTracer tracer() {
+        return this.tracer;
+    }
+
+    private final SpreadsheetEngineTracer tracer;
+
     // Object...........................................................................................................
 
     @Override
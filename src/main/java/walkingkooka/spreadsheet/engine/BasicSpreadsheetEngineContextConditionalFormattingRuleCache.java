@@ -0,0 +1,208 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine;
+
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.conditionalformat.SpreadsheetConditionalFormattingRule;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * A bounded cache of {@link SpreadsheetConditionalFormattingRule} test results for each cell. A result is reused while
+ * the cell value is unchanged, until {@link #invalidate(SpreadsheetCellRange)} is called because a cell referenced by
+ * the rules of that range changed. Rules are values, so a rule that was replaced is simply never asked for again.
+ * <br>
+ * Cells are kept in access order, so once more than the max number of cells are cached, the least recently used cell
+ * and all its results are removed. Invalidating a range visits every cached cell, which is bounded by the max size.
+ * All results are discarded by {@link #clear()} when an engine operation begins, because stores may have been changed
+ * without any watchers.
+ * <br>
+ * The cache is shared by all threads using the same context, so all access to entries and counts is synchronized. A
+ * miss evaluates the rule outside the lock.
+ */
+final class BasicSpreadsheetEngineContextConditionalFormattingRuleCache {
+
+    static BasicSpreadsheetEngineContextConditionalFormattingRuleCache with(final int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Invalid max size " + maxSize + " <= 0");
+        }
+        return new BasicSpreadsheetEngineContextConditionalFormattingRuleCache(maxSize);
+    }
+
+    private BasicSpreadsheetEngineContextConditionalFormattingRuleCache(final int maxSize) {
+        super();
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the cached result of testing the rule against the cell, or calls the {@link Supplier} and then caches
+     * the result if none was present.
+     */
+    boolean test(final SpreadsheetConditionalFormattingRule rule,
+                 final SpreadsheetCell cell,
+                 final Supplier<Boolean> test) {
+        final SpreadsheetCellReference reference = cell.reference()
+                .toRelative();
+        final Optional<Object> value = cell.formula()
+                .value();
+
+        Boolean result = this.get(reference, value, rule);
+        if (null == result) {
+            result = test.get();
+            this.put(reference, value, rule, result);
+        }
+        return result;
+    }
+
+    private synchronized Boolean get(final SpreadsheetCellReference reference,
+                                     final Optional<Object> value,
+                                     final SpreadsheetConditionalFormattingRule rule) {
+        final BasicSpreadsheetEngineContextConditionalFormattingRuleCacheCell cell = this.cells.get(reference);
+
+        final Boolean result = null != cell ?
+                cell.get(value, rule) :
+                null;
+        if (null != result) {
+            this.hits++;
+        } else {
+            this.misses++;
+        }
+        return result;
+    }
+
+    private synchronized void put(final SpreadsheetCellReference reference,
+                                  final Optional<Object> value,
+                                  final SpreadsheetConditionalFormattingRule rule,
+                                  final Boolean result) {
+        final Map<SpreadsheetCellReference, BasicSpreadsheetEngineContextConditionalFormattingRuleCacheCell> cells = this.cells;
+
+        BasicSpreadsheetEngineContextConditionalFormattingRuleCacheCell cell = cells.get(reference);
+        if (null == cell) {
+            cell = BasicSpreadsheetEngineContextConditionalFormattingRuleCacheCell.with(value);
+            cells.put(reference, cell);
+
+            if (cells.size() > this.maxSize) {
+                // the first cell is the least recently used
+                final Iterator<SpreadsheetCellReference> eldest = cells.keySet()
+                        .iterator();
+                eldest.next();
+                eldest.remove();
+                this.evictions++;
+            }
+        }
+        cell.put(value, rule, result);
+    }
+
+    /**
+     * Removes all the results for cells within the given {@link SpreadsheetCellRange}.
+     */
+    synchronized void invalidate(final SpreadsheetCellRange range) {
+        final SpreadsheetCellRange relative = range.toRelative();
+
+        final Iterator<SpreadsheetCellReference> cells = this.cells.keySet()
+                .iterator();
+
+        while (cells.hasNext()) {
+            if (relative.test(cells.next())) {
+                cells.remove();
+                this.invalidations++;
+            }
+        }
+    }
+
+    /**
+     * Removes all results.
+     */
+    synchronized void clear() {
+        this.cells.clear();
+    }
+
+    /**
+     * Cells and their cached results, from the least to the most recently used.
+     */
+    private final Map<SpreadsheetCellReference, BasicSpreadsheetEngineContextConditionalFormattingRuleCacheCell> cells = new LinkedHashMap<>(
+            16,
+            0.75f,
+            true // access order
+    );
+
+    private final int maxSize;
+
+    // metrics..........................................................................................................
+
+    /**
+     * The number of tests satisfied by a cached result.
+     */
+    synchronized long hits() {
+        return this.hits;
+    }
+
+    private long hits;
+
+    /**
+     * The number of tests that required evaluating the rule.
+     */
+    synchronized long misses() {
+        return this.misses;
+    }
+
+    private long misses;
+
+    /**
+     * The number of cells removed to keep the cache within its max size.
+     */
+    synchronized long evictions() {
+        return this.evictions;
+    }
+
+    private long evictions;
+
+    /**
+     * The number of cells removed because a cell referenced by their rules changed.
+     */
+    synchronized long invalidations() {
+        return this.invalidations;
+    }
+
+    private long invalidations;
+
+    /**
+     * The number of cells with cached results.
+     */
+    synchronized int size() {
+        return this.cells.size();
+    }
+
+    // Object...........................................................................................................
+
+    @Override
+    public synchronized String toString() {
+        return "hits=" + this.hits +
+                " misses=" + this.misses +
+                " evictions=" + this.evictions +
+                " invalidations=" + this.invalidations +
+                " size=" + this.size() +
+                " maxSize=" + this.maxSize;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine;
+
+import walkingkooka.collect.map.Maps;
+import walkingkooka.spreadsheet.conditionalformat.SpreadsheetConditionalFormattingRule;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Holds the {@link SpreadsheetConditionalFormattingRule} results for a single cell, which are only valid for the
+ * cell value they were tested with.
+ */
+final class BasicSpreadsheetEngineContextConditionalFormattingRuleCacheCell {
+
+    static BasicSpreadsheetEngineContextConditionalFormattingRuleCacheCell with(final Optional<Object> value) {
+        return new BasicSpreadsheetEngineContextConditionalFormattingRuleCacheCell(value);
+    }
+
+    private BasicSpreadsheetEngineContextConditionalFormattingRuleCacheCell(final Optional<Object> value) {
+        super();
+        this.value = value;
+    }
+
+    /**
+     * Returns the result for the rule, or null if the value has changed or the rule was not tested.
+     */
+    Boolean get(final Optional<Object> value,
+                final SpreadsheetConditionalFormattingRule rule) {
+        return this.value.equals(value) ?
+                this.results.get(rule) :
+                null;
+    }
+
+    /**
+     * Saves the result for the rule, dropping all previous results if the value has changed.
+     */
+    void put(final Optional<Object> value,
+             final SpreadsheetConditionalFormattingRule rule,
+             final Boolean result) {
+        if (!this.value.equals(value)) {
+            this.value = value;
+            this.results.clear();
+        }
+        this.results.put(rule, result);
+    }
+
+    /**
+     * The cell value the results were tested with.
+     */
+    private Optional<Object> value;
+
+    private final Map<SpreadsheetConditionalFormattingRule, Boolean> results = Maps.ordered();
+
+    @Override
+    public String toString() {
+        return this.value + " " + this.results;
+    }
+}
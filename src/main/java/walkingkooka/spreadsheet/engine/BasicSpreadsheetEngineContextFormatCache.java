@@ -0,0 +1,159 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine;
+
+import walkingkooka.collect.map.Maps;
+import walkingkooka.spreadsheet.format.pattern.SpreadsheetFormatPattern;
+import walkingkooka.tree.text.TextNode;
+import walkingkooka.tree.text.TextStyle;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * A bounded least recently used cache of formatted and styled {@link TextNode}, keyed by value,
+ * {@link SpreadsheetFormatPattern} and {@link TextStyle}. Many cells in a spreadsheet share the same value, pattern and style, and formatting these
+ * again and again is wasteful, particularly with the {@link walkingkooka.spreadsheet.meta.SpreadsheetMetadata#formatter()}
+ * which tries several formatters in turn.
+ * <br>
+ * The hit, miss and eviction counts are available for reporting and tests.
+ * <br>
+ * The cache is shared by all threads using the same context, so all access to entries and counts is synchronized. A
+ * miss formats outside the lock, which means two threads may both format the same missing value.
+ */
+final class BasicSpreadsheetEngineContextFormatCache {
+
+    static BasicSpreadsheetEngineContextFormatCache with(final int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Invalid max size " + maxSize + " <= 0");
+        }
+        return new BasicSpreadsheetEngineContextFormatCache(maxSize);
+    }
+
+    private BasicSpreadsheetEngineContextFormatCache(final int maxSize) {
+        super();
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the cached {@link TextNode} for the value, pattern and style, or calls the {@link Supplier} and then caches
+     * the result if none was present.
+     */
+    Optional<TextNode> formatAndStyle(final Object value,
+                                      final Optional<SpreadsheetFormatPattern> pattern,
+                                      final TextStyle style,
+                                      final Supplier<Optional<TextNode>> formatAndStyle) {
+        final BasicSpreadsheetEngineContextFormatCacheKey key = BasicSpreadsheetEngineContextFormatCacheKey.with(
+                value,
+                pattern,
+                style
+        );
+
+        Optional<TextNode> formatted = this.get(key);
+        if (null == formatted) {
+            formatted = formatAndStyle.get();
+            this.put(key, formatted);
+        }
+        return formatted;
+    }
+
+    private synchronized Optional<TextNode> get(final BasicSpreadsheetEngineContextFormatCacheKey key) {
+        final Map<BasicSpreadsheetEngineContextFormatCacheKey, Optional<TextNode>> keyToFormatted = this.keyToFormatted;
+
+        // remove and put again, moving the entry to the end which is the most recently used.
+        final Optional<TextNode> formatted = keyToFormatted.remove(key);
+        if (null != formatted) {
+            this.hits++;
+            keyToFormatted.put(key, formatted);
+        } else {
+            this.misses++;
+        }
+        return formatted;
+    }
+
+    private synchronized void put(final BasicSpreadsheetEngineContextFormatCacheKey key,
+                                  final Optional<TextNode> formatted) {
+        final Map<BasicSpreadsheetEngineContextFormatCacheKey, Optional<TextNode>> keyToFormatted = this.keyToFormatted;
+
+        // another thread may have formatted and saved the same key
+        if (null == keyToFormatted.put(key, formatted) && keyToFormatted.size() > this.maxSize) {
+            final Iterator<BasicSpreadsheetEngineContextFormatCacheKey> leastRecentlyUsed = keyToFormatted.keySet()
+                    .iterator();
+            leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+
+            this.evictions++;
+        }
+    }
+
+    /**
+     * Entries are kept in least recently used order, the first entry is the next to be evicted.
+     */
+    private final Map<BasicSpreadsheetEngineContextFormatCacheKey, Optional<TextNode>> keyToFormatted = Maps.ordered();
+
+    private final int maxSize;
+
+    // metrics..........................................................................................................
+
+    /**
+     * The number of requests satisfied by a cached {@link TextNode}.
+     */
+    synchronized long hits() {
+        return this.hits;
+    }
+
+    private long hits;
+
+    /**
+     * The number of requests that required formatting.
+     */
+    synchronized long misses() {
+        return this.misses;
+    }
+
+    private long misses;
+
+    /**
+     * The number of entries removed to keep the cache within its max size.
+     */
+    synchronized long evictions() {
+        return this.evictions;
+    }
+
+    private long evictions;
+
+    /**
+     * The number of cached entries.
+     */
+    synchronized int size() {
+        return this.keyToFormatted.size();
+    }
+
+    // Object...........................................................................................................
+
+    @Override
+    public synchronized String toString() {
+        return "hits=" + this.hits +
+                " misses=" + this.misses +
+                " evictions=" + this.evictions +
+                " size=" + this.size() +
+                " maxSize=" + this.maxSize;
+    }
+}
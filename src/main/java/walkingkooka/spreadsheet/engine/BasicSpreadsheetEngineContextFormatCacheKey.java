@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine;
+
+import walkingkooka.Cast;
+import walkingkooka.spreadsheet.format.pattern.SpreadsheetFormatPattern;
+import walkingkooka.tree.text.TextStyle;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The key for a {@link BasicSpreadsheetEngineContextFormatCache} entry. The {@link SpreadsheetFormatPattern} is compared
+ * by value, its pattern text and kind, so equal patterns parsed separately share entries. An absent pattern stands for
+ * the {@link walkingkooka.spreadsheet.meta.SpreadsheetMetadata#formatter()} of the context that owns the cache.
+ */
+final class BasicSpreadsheetEngineContextFormatCacheKey {
+
+    static BasicSpreadsheetEngineContextFormatCacheKey with(final Object value,
+                                                            final Optional<SpreadsheetFormatPattern> pattern,
+                                                            final TextStyle style) {
+        Objects.requireNonNull(pattern, "pattern");
+        Objects.requireNonNull(style, "style");
+
+        return new BasicSpreadsheetEngineContextFormatCacheKey(
+                value,
+                pattern,
+                style
+        );
+    }
+
+    private BasicSpreadsheetEngineContextFormatCacheKey(final Object value,
+                                                        final Optional<SpreadsheetFormatPattern> pattern,
+                                                        final TextStyle style) {
+        this.value = value;
+        this.pattern = pattern;
+        this.style = style;
+    }
+
+    final Object value;
+
+    final Optional<SpreadsheetFormatPattern> pattern;
+
+    final TextStyle style;
+
+    // Object...........................................................................................................
+
+    @Override
+    public int hashCode() {
+        return (Objects.hashCode(this.value) * 31 + this.pattern.hashCode()) * 31 + this.style.hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        return this == other ||
+                other instanceof BasicSpreadsheetEngineContextFormatCacheKey &&
+                        this.equals0(Cast.to(other));
+    }
+
+    private boolean equals0(final BasicSpreadsheetEngineContextFormatCacheKey other) {
+        return Objects.equals(this.value, other.value) &&
+                this.pattern.equals(other.pattern) &&
+                this.style.equals(other.style);
+    }
+
+    @Override
+    public String toString() {
+        return this.value + " " + this.pattern.map(Object::toString).orElse("") + " " + this.style;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine;
+
+import walkingkooka.tree.expression.ExpressionEvaluationContext;
+import walkingkooka.tree.expression.ExpressionPurityContext;
+import walkingkooka.tree.expression.FunctionExpressionName;
+import walkingkooka.tree.expression.function.ExpressionFunction;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Wraps the functions {@link Function} given to a {@link BasicSpreadsheetEngineContext}, resolving each
+ * {@link FunctionExpressionName} and its purity once. Every cell interpreted using the context shares the resolved
+ * {@link ExpressionFunction functions}. Compiled expressions are bound to the wrapped {@link #functions} instead, and
+ * resolve each of their function calls once. A new context and therefore a new cache is created whenever the functions
+ * change.
+ */
+final class BasicSpreadsheetEngineContextFunctions implements Function<FunctionExpressionName, ExpressionFunction<?, ExpressionEvaluationContext>> {
+
+    static BasicSpreadsheetEngineContextFunctions with(final Function<FunctionExpressionName, ExpressionFunction<?, ExpressionEvaluationContext>> functions) {
+        return functions instanceof BasicSpreadsheetEngineContextFunctions ?
+                (BasicSpreadsheetEngineContextFunctions) functions :
+                new BasicSpreadsheetEngineContextFunctions(functions);
+    }
+
+    private BasicSpreadsheetEngineContextFunctions(final Function<FunctionExpressionName, ExpressionFunction<?, ExpressionEvaluationContext>> functions) {
+        super();
+        this.functions = functions;
+    }
+
+    /**
+     * Returns the cached {@link ExpressionFunction} or resolves and caches it. Unknown functions that fail are not
+     * cached and will fail again.
+     */
+    @Override
+    public ExpressionFunction<?, ExpressionEvaluationContext> apply(final FunctionExpressionName name) {
+        ExpressionFunction<?, ExpressionEvaluationContext> function = this.nameToFunction.get(name);
+        if (null == function) {
+            function = this.functions.apply(name);
+            if (null != function) {
+                this.nameToFunction.put(name, function);
+            }
+        }
+        return function;
+    }
+
+    private final Map<FunctionExpressionName, ExpressionFunction<?, ExpressionEvaluationContext>> nameToFunction = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the cached purity of the named function or tests and caches it.
+     */
+    boolean isPure(final FunctionExpressionName name,
+                   final ExpressionPurityContext context) {
+        Boolean pure = this.nameToPure.get(name);
+        if (null == pure) {
+            pure = this.apply(name)
+                    .isPure(context);
+            this.nameToPure.put(name, pure);
+        }
+        return pure;
+    }
+
+    private final Map<FunctionExpressionName, Boolean> nameToPure = new ConcurrentHashMap<>();
+
+    /**
+     * The wrapped functions, which compiled expressions are bound to.
+     */
+    final Function<FunctionExpressionName, ExpressionFunction<?, ExpressionEvaluationContext>> functions;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.functions.toString();
+    }
+}
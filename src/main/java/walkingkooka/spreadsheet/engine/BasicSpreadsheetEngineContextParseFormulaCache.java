@@ -0,0 +1,147 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine;
+
+import walkingkooka.collect.map.Maps;
+import walkingkooka.spreadsheet.parser.SpreadsheetParserToken;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * A bounded least recently used cache of {@link SpreadsheetParserToken} keyed by formula text. When formulas discard
+ * their token after creating their expression, tokens are parsed again only when needed, such as fixing references
+ * after a column or row is inserted or deleted, and this cache avoids parsing recently used formulas again.
+ * <br>
+ * The hit, miss and eviction counts are available for reporting and tests.
+ * <br>
+ * The cache is shared by all threads using the same context, so all access to entries and counts is synchronized. A
+ * miss parses outside the lock, which means two threads may both parse the same missing formula.
+ */
+final class BasicSpreadsheetEngineContextParseFormulaCache {
+
+    static BasicSpreadsheetEngineContextParseFormulaCache with(final int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Invalid max size " + maxSize + " <= 0");
+        }
+        return new BasicSpreadsheetEngineContextParseFormulaCache(maxSize);
+    }
+
+    private BasicSpreadsheetEngineContextParseFormulaCache(final int maxSize) {
+        super();
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the cached {@link SpreadsheetParserToken} for the text, or calls the {@link Supplier} and then caches
+     * the result if none was present. Failures are never cached.
+     */
+    SpreadsheetParserToken parseFormula(final String text,
+                                        final Supplier<SpreadsheetParserToken> parseFormula) {
+        SpreadsheetParserToken token = this.get(text);
+        if (null == token) {
+            token = parseFormula.get();
+            this.put(text, token);
+        }
+        return token;
+    }
+
+    private synchronized SpreadsheetParserToken get(final String text) {
+        final Map<String, SpreadsheetParserToken> textToToken = this.textToToken;
+
+        // remove and put again, moving the entry to the end which is the most recently used.
+        final SpreadsheetParserToken token = textToToken.remove(text);
+        if (null != token) {
+            this.hits++;
+            textToToken.put(text, token);
+        } else {
+            this.misses++;
+        }
+        return token;
+    }
+
+    private synchronized void put(final String text,
+                                  final SpreadsheetParserToken token) {
+        final Map<String, SpreadsheetParserToken> textToToken = this.textToToken;
+
+        // another thread may have parsed and saved the same text
+        if (null == textToToken.put(text, token) && textToToken.size() > this.maxSize) {
+            final Iterator<String> leastRecentlyUsed = textToToken.keySet()
+                    .iterator();
+            leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+
+            this.evictions++;
+        }
+    }
+
+    /**
+     * Entries are kept in least recently used order, the first entry is the next to be evicted.
+     */
+    private final Map<String, SpreadsheetParserToken> textToToken = Maps.ordered();
+
+    private final int maxSize;
+
+    // metrics..........................................................................................................
+
+    /**
+     * The number of requests satisfied by a cached {@link SpreadsheetParserToken}.
+     */
+    synchronized long hits() {
+        return this.hits;
+    }
+
+    private long hits;
+
+    /**
+     * The number of requests that required parsing.
+     */
+    synchronized long misses() {
+        return this.misses;
+    }
+
+    private long misses;
+
+    /**
+     * The number of entries removed to keep the cache within its max size.
+     */
+    synchronized long evictions() {
+        return this.evictions;
+    }
+
+    private long evictions;
+
+    /**
+     * The number of cached entries.
+     */
+    synchronized int size() {
+        return this.textToToken.size();
+    }
+
+    // Object...........................................................................................................
+
+    @Override
+    public synchronized String toString() {
+        return "hits=" + this.hits +
+                " misses=" + this.misses +
+                " evictions=" + this.evictions +
+                " size=" + this.size() +
+                " maxSize=" + this.maxSize;
+    }
+}
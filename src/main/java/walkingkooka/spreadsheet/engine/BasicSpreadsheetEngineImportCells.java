@@ -0,0 +1,253 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine;
+
+import walkingkooka.collect.list.Lists;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.SpreadsheetFormula;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.store.SpreadsheetCellStore;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Reads the rows of an import, parsing and saving each cell directly to the {@link SpreadsheetCellStore} without
+ * evaluating it. Every {@link #CHUNK} cells the saved cells have their references added and they and their referrers
+ * are evaluated using a {@link BasicSpreadsheetEngineChanges} that is then closed, so only the cells of one chunk and
+ * the references of the spreadsheet are held at any time. Cells referencing a cell imported by a later chunk, and
+ * cells outside the import referencing cells in several chunks, are evaluated again by each of those chunks.
+ */
+final class BasicSpreadsheetEngineImportCells {
+
+    /**
+     * The number of saved cells after which they are evaluated, checked at the end of each row.
+     */
+    // VisibleForTesting
+    final static int CHUNK = 1000;
+
+    static BasicSpreadsheetEngineImportCells with(final BasicSpreadsheetEngine engine,
+                                                  final SpreadsheetEngineContext context) {
+        return new BasicSpreadsheetEngineImportCells(
+                engine,
+                context
+        );
+    }
+
+    private BasicSpreadsheetEngineImportCells(final BasicSpreadsheetEngine engine,
+                                              final SpreadsheetEngineContext context) {
+        super();
+        this.engine = engine;
+        this.context = context;
+    }
+
+    /**
+     * Reads and saves all rows, the first value of the first row becoming the home cell. Empty values are skipped,
+     * leaving any existing cell unchanged.
+     */
+    void read(final Reader csv,
+              final SpreadsheetCellReference home) {
+        this.home = home;
+
+        final BasicSpreadsheetEngineImportCellsCsvReader reader = BasicSpreadsheetEngineImportCellsCsvReader.with(csv);
+
+        try {
+            for (; ; ) {
+                final List<String> values = reader.readRow();
+                if (null == values) {
+                    break;
+                }
+
+                final int row = reader.row() - 1;
+                int column = 0;
+
+                for (final String value : values) {
+                    if (false == value.isEmpty()) {
+                        this.save(
+                                home.add(column, row),
+                                value,
+                                column,
+                                row
+                        );
+                    }
+                    column++;
+                }
+
+                if (this.imported.size() >= CHUNK) {
+                    this.evaluate();
+                }
+            }
+        } catch (final IOException cause) {
+            throw new BasicSpreadsheetEngineException("Failed to read row " + (reader.row() + 1) + ": " + cause.getMessage(), cause);
+        }
+    }
+
+    private void save(final SpreadsheetCellReference reference,
+                      final String value,
+                      final int column,
+                      final int row) {
+        final SpreadsheetEngineContext context = this.context;
+        final SpreadsheetCell parsed = this.parse(
+                reference,
+                value
+        );
+
+        final SpreadsheetCellStore store = context.storeRepository()
+                .cells();
+
+        try (final SpreadsheetEngineTracerSpan span = context.tracer().start(SpreadsheetEngineMetric.STORE)) {
+            if (store.saveReplacing(parsed)) {
+                this.replaced.add(reference);
+            }
+        }
+
+        this.imported.add(parsed);
+        this.count++;
+        this.columns = Math.max(this.columns, column + 1);
+        this.rows = Math.max(this.rows, row + 1);
+    }
+
+    /**
+     * Values that start with {@link #EXPRESSION} or {@link #TEXT} are parsed as they are. Other values are parsed as a
+     * number or other value and become text if that fails, while values starting with a letter are never a number and
+     * become text without being parsed twice.
+     */
+    private SpreadsheetCell parse(final SpreadsheetCellReference reference,
+                                  final String value) {
+        final char first = value.charAt(0);
+        final boolean expressionOrText = EXPRESSION == first || TEXT == first;
+
+        SpreadsheetCell parsed = null;
+        if (expressionOrText || false == Character.isLetter(first)) {
+            parsed = this.parseFormula(
+                    reference,
+                    value
+            );
+        }
+        if (false == expressionOrText && (null == parsed || parsed.formula().error().isPresent())) {
+            parsed = this.parseFormula(
+                    reference,
+                    TEXT + value
+            );
+        }
+
+        return parsed;
+    }
+
+    private SpreadsheetCell parseFormula(final SpreadsheetCellReference reference,
+                                         final String text) {
+        return this.engine.parseFormulaIfNecessary(
+                reference.setFormula(
+                        SpreadsheetFormula.EMPTY.setText(text)
+                ),
+                Function.identity(),
+                this.context
+        );
+    }
+
+    /**
+     * The first character of a formula holding an expression.
+     */
+    private final static char EXPRESSION = '=';
+
+    /**
+     * The first character of a formula holding text.
+     */
+    private final static char TEXT = '\'';
+
+    /**
+     * Adds the references of the cells saved since the last evaluate and evaluates each cell and its referrers once, in
+     * dependency order, releasing the cells and the changes afterwards.
+     */
+    void evaluate() {
+        final List<SpreadsheetCell> imported = this.imported;
+        final Set<SpreadsheetCellReference> replaced = this.replaced;
+
+        if (false == imported.isEmpty()) {
+            try (final BasicSpreadsheetEngineChanges changes = BasicSpreadsheetEngineChangesMode.BATCH.createChanges(this.engine, DELTA_PROPERTIES, this.context)) {
+                for (final SpreadsheetCell cell : imported) {
+                    changes.onCellImportedBatch(
+                            cell,
+                            replaced.contains(cell.reference())
+                    );
+                }
+
+                imported.clear();
+                replaced.clear();
+
+                changes.sortUnsavedCells();
+                changes.refreshUpdated();
+            }
+        }
+    }
+
+    /**
+     * Without {@link SpreadsheetDeltaProperties#CELLS} no save watcher is added, so evaluating imported cells does not
+     * add their references again.
+     */
+    private final static Set<SpreadsheetDeltaProperties> DELTA_PROPERTIES = Sets.empty();
+
+    /**
+     * Returns a window holding the range of imported cells, which is empty if no cells were imported.
+     */
+    Set<SpreadsheetCellRange> window() {
+        return 0 == this.count ?
+                SpreadsheetDelta.NO_WINDOW :
+                Sets.of(
+                        this.home.cellRange(
+                                this.home.add(this.columns - 1, this.rows - 1)
+                        )
+                );
+    }
+
+    private final BasicSpreadsheetEngine engine;
+
+    private final SpreadsheetEngineContext context;
+
+    /**
+     * Cells saved since the last {@link #evaluate()}.
+     */
+    private final List<SpreadsheetCell> imported = Lists.array();
+
+    /**
+     * Cells saved since the last {@link #evaluate()} that replaced an existing cell, which may have references that must
+     * be removed.
+     */
+    private final Set<SpreadsheetCellReference> replaced = Sets.sorted();
+
+    private SpreadsheetCellReference home;
+
+    /**
+     * The number of cells saved and the number of columns and rows including at least one imported cell.
+     */
+    private int count;
+
+    private int columns;
+
+    private int rows;
+
+    @Override
+    public String toString() {
+        return this.count + " cell(s)";
+    }
+}
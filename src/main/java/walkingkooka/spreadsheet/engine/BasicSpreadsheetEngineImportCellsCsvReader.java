@@ -0,0 +1,156 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine;
+
+import walkingkooka.collect.list.Lists;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+/**
+ * Reads rows of comma separated values from a {@link Reader} one row at a time, so rows are never all held in memory.
+ * Values may be quoted, and a quoted value may include commas, line endings and quotes written twice. Rows may end
+ * with any of CR, LF or CRLF.
+ */
+final class BasicSpreadsheetEngineImportCellsCsvReader {
+
+    static BasicSpreadsheetEngineImportCellsCsvReader with(final Reader reader) {
+        return new BasicSpreadsheetEngineImportCellsCsvReader(reader);
+    }
+
+    private BasicSpreadsheetEngineImportCellsCsvReader(final Reader reader) {
+        super();
+        this.reader = reader;
+    }
+
+    /**
+     * Returns the values of the next row or null if there are no more rows. An empty line is a row with a single
+     * empty value.
+     */
+    List<String> readRow() throws IOException {
+        int c = this.read();
+        if (EOF == c) {
+            return null;
+        }
+
+        final List<String> values = Lists.array();
+        final StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+
+        for (; ; ) {
+            if (quoted) {
+                if (EOF == c) {
+                    throw new IllegalArgumentException("Missing closing '\"' in row " + (this.row + 1));
+                }
+                if ('"' == c) {
+                    c = this.read();
+                    if ('"' == c) {
+                        value.append('"');
+                        c = this.read();
+                    } else {
+                        quoted = false;
+                    }
+                    continue;
+                }
+                value.append((char) c);
+            } else {
+                if (EOF == c || '\n' == c || '\r' == c) {
+                    values.add(value.toString());
+
+                    // CRLF
+                    if ('\r' == c) {
+                        final int next = this.read();
+                        if ('\n' != next) {
+                            this.unread = next;
+                        }
+                    }
+                    break;
+                }
+
+                if (',' == c) {
+                    values.add(value.toString());
+                    value.setLength(0);
+                } else {
+                    if ('"' == c && 0 == value.length()) {
+                        quoted = true;
+                    } else {
+                        value.append((char) c);
+                    }
+                }
+            }
+
+            c = this.read();
+        }
+
+        this.row++;
+        return values;
+    }
+
+    private int read() throws IOException {
+        int c = this.unread;
+
+        if (NONE != c) {
+            this.unread = NONE;
+        } else {
+            if (this.position >= this.length) {
+                this.length = this.reader.read(this.buffer);
+                this.position = 0;
+            }
+
+            c = this.length > 0 ?
+                    this.buffer[this.position++] :
+                    EOF;
+        }
+
+        return c;
+    }
+
+    private final static int EOF = -1;
+
+    private final static int NONE = -2;
+
+    private final Reader reader;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    private final static int BUFFER_SIZE = 8192;
+
+    private int position;
+
+    private int length;
+
+    /**
+     * A character read past the end of a row, which is returned by the next {@link #read()}.
+     */
+    private int unread = NONE;
+
+    /**
+     * The number of rows read so far.
+     */
+    int row() {
+        return this.row;
+    }
+
+    private int row;
+
+    @Override
+    public String toString() {
+        return this.reader + " row " + this.row;
+    }
+}
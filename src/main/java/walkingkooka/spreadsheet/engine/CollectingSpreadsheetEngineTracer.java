@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine;
+
+import walkingkooka.collect.map.Maps;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * A {@link SpreadsheetEngineTracer} that totals the count and time of each {@link SpreadsheetEngineMetric} in memory,
+ * which is useful for tests and reporting. Each closed span adds one to the count of its metric. Time is read from
+ * the given {@link LongSupplier}, typically {@link System#nanoTime()}.
+ * <br>
+ * Times are inclusive, the time of a span includes the time of every span started and closed within it. Nested spans
+ * are therefore counted again by their enclosing spans, for example the time of a {@link SpreadsheetEngineMetric#SAVE_CELL}
+ * includes its {@link SpreadsheetEngineMetric#PARSE} and {@link SpreadsheetEngineMetric#EVALUATE}, and the time of a
+ * {@link SpreadsheetEngineMetric#RESOLVE_REFERENCE} includes evaluating the referenced cells. The times of different
+ * metrics should be compared rather than summed.
+ * <br>
+ * A tracer is shared by all threads using the same context, so all access to counts and times is synchronized.
+ */
+public final class CollectingSpreadsheetEngineTracer implements SpreadsheetEngineTracer {
+
+    static CollectingSpreadsheetEngineTracer with(final LongSupplier nanos) {
+        Objects.requireNonNull(nanos, "nanos");
+
+        return new CollectingSpreadsheetEngineTracer(nanos);
+    }
+
+    private CollectingSpreadsheetEngineTracer(final LongSupplier nanos) {
+        super();
+        this.nanos = nanos;
+    }
+
+    @Override
+    public SpreadsheetEngineTracerSpan start(final SpreadsheetEngineMetric metric) {
+        Objects.requireNonNull(metric, "metric");
+
+        return CollectingSpreadsheetEngineTracerSpan.with(
+                metric,
+                this.nanos.getAsLong(),
+                this
+        );
+    }
+
+    /**
+     * Called by {@link CollectingSpreadsheetEngineTracerSpan#close()}.
+     */
+    void end(final SpreadsheetEngineMetric metric,
+             final long start) {
+        final long end = this.nanos.getAsLong();
+
+        synchronized (this) {
+            this.increment(metric, 1);
+            this.metricToNanos.merge(
+                    metric,
+                    end - start,
+                    Long::sum
+            );
+        }
+    }
+
+    private final LongSupplier nanos;
+
+    @Override
+    public synchronized void increment(final SpreadsheetEngineMetric metric,
+                                       final long count) {
+        Objects.requireNonNull(metric, "metric");
+
+        this.metricToCount.merge(
+                metric,
+                count,
+                Long::sum
+        );
+    }
+
+    /**
+     * Returns the count for the given {@link SpreadsheetEngineMetric}.
+     */
+    public synchronized long count(final SpreadsheetEngineMetric metric) {
+        return this.metricToCount.getOrDefault(metric, 0L);
+    }
+
+    private final Map<SpreadsheetEngineMetric, Long> metricToCount = Maps.sorted();
+
+    /**
+     * Returns the total inclusive time of all closed spans for the given {@link SpreadsheetEngineMetric}.
+     */
+    public synchronized long nanos(final SpreadsheetEngineMetric metric) {
+        return this.metricToNanos.getOrDefault(metric, 0L);
+    }
+
+    private final Map<SpreadsheetEngineMetric, Long> metricToNanos = Maps.sorted();
+
+    // Object...........................................................................................................
+
+    @Override
+    public synchronized String toString() {
+        final StringBuilder b = new StringBuilder();
+
+        String separator = "";
+        for (final Map.Entry<SpreadsheetEngineMetric, Long> metricAndCount : this.metricToCount.entrySet()) {
+            final SpreadsheetEngineMetric metric = metricAndCount.getKey();
+
+            b.append(separator)
+                    .append(metric)
+                    .append('=')
+                    .append(metricAndCount.getValue());
+
+            final Long nanos = this.metricToNanos.get(metric);
+            if (null != nanos) {
+                b.append(' ')
+                        .append(nanos)
+                        .append("ns");
+            }
+
+            separator = ", ";
+        }
+
+        return b.toString();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine;
+
+/**
+ * The {@link SpreadsheetEngineTracerSpan} returned by {@link CollectingSpreadsheetEngineTracer}, which records its
+ * time when closed. Closing a span more than once is ignored.
+ */
+final class CollectingSpreadsheetEngineTracerSpan implements SpreadsheetEngineTracerSpan {
+
+    static CollectingSpreadsheetEngineTracerSpan with(final SpreadsheetEngineMetric metric,
+                                                      final long start,
+                                                      final CollectingSpreadsheetEngineTracer tracer) {
+        return new CollectingSpreadsheetEngineTracerSpan(metric, start, tracer);
+    }
+
+    private CollectingSpreadsheetEngineTracerSpan(final SpreadsheetEngineMetric metric,
+                                                  final long start,
+                                                  final CollectingSpreadsheetEngineTracer tracer) {
+        super();
+        this.metric = metric;
+        this.start = start;
+        this.tracer = tracer;
+    }
+
+    @Override
+    public void close() {
+        if (false == this.closed) {
+            this.closed = true;
+            this.tracer.end(this.metric, this.start);
+        }
+    }
+
+    private final SpreadsheetEngineMetric metric;
+
+    private final long start;
+
+    private final CollectingSpreadsheetEngineTracer tracer;
+
+    private boolean closed;
+
+    @Override
+    public String toString() {
+        return this.metric.toString();
+    }
+}
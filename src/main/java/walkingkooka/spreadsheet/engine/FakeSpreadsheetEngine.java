@@ -23,6 +23,7 @@ import walkingkooka.spreadsheet.SpreadsheetColumn;
 import walkingkooka.spreadsheet.SpreadsheetRow;
 import walkingkooka.spreadsheet.SpreadsheetViewport;
 import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetColumnReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetLabelMapping;
 import walkingkooka.spreadsheet.reference.SpreadsheetLabelName;
@@ -31,6 +32,7 @@ import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
 import walkingkooka.spreadsheet.reference.SpreadsheetViewportSelection;
 import walkingkooka.test.Fake;
 
+import java.io.Reader;
 import java.util.Collection;
 import java.util.Optional;
 import java.util.Set;
@@ -57,12 +59,24 @@ public class FakeSpreadsheetEngine implements SpreadsheetEngine, Fake {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public SpreadsheetDelta importCells(final Reader csv,
+                                        final SpreadsheetCellReference home,
+                                        final SpreadsheetEngineContext context) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public SpreadsheetDelta deleteCells(final SpreadsheetSelection cells,
                                         final SpreadsheetEngineContext context) {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public SpreadsheetDelta refreshVolatileCells(final SpreadsheetEngineContext context) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public SpreadsheetDelta loadColumn(final SpreadsheetColumnReference column,
                                        final SpreadsheetEngineContext context) {
@@ -131,6 +145,12 @@ public class FakeSpreadsheetEngine implements SpreadsheetEngine, Fake {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public Set<SpreadsheetCellReference> validate(final SpreadsheetCellRange range,
+                                                  final SpreadsheetEngineContext context) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public SpreadsheetDelta saveLabel(final SpreadsheetLabelMapping mapping,
                                       final SpreadsheetEngineContext context) {
@@ -19,6 +19,7 @@ package walkingkooka.spreadsheet.engine;
 
 import walkingkooka.convert.FakeConverterContext;
 import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.datavalidation.SpreadsheetDataValidatorContext;
 import walkingkooka.spreadsheet.format.SpreadsheetFormatter;
 import walkingkooka.spreadsheet.format.SpreadsheetText;
 import walkingkooka.spreadsheet.meta.SpreadsheetMetadata;
@@ -65,6 +66,14 @@ public class FakeSpreadsheetEngineContext extends FakeConverterContext implement
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public SpreadsheetDataValidatorContext spreadsheetDataValidatorContext(final SpreadsheetCell cell,
+                                                                           final Object value) {
+        Objects.requireNonNull(cell, "cell");
+        Objects.requireNonNull(value, "value");
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public Optional<SpreadsheetText> format(final Object value,
                                             final SpreadsheetFormatter formatter) {
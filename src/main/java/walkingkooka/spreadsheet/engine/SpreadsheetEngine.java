@@ -30,6 +30,7 @@ import walkingkooka.spreadsheet.reference.SpreadsheetRowReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
 import walkingkooka.spreadsheet.reference.SpreadsheetViewportSelection;
 
+import java.io.Reader;
 import java.util.Collection;
 import java.util.Optional;
 import java.util.Set;
@@ -66,6 +67,18 @@ public interface SpreadsheetEngine {
     SpreadsheetDelta saveCells(final Set<SpreadsheetCell> cells,
                                final SpreadsheetEngineContext context);
 
+    /**
+     * Imports rows of comma separated values read from the {@link Reader}, the first value of the first row becoming
+     * the formula text of the home cell. Formulas starting with <code>=</code> or an apostrophe, numbers, dates and
+     * other values are parsed using the {@link walkingkooka.spreadsheet.meta.SpreadsheetMetadata}, any other value
+     * becomes text as if it started with an apostrophe, and empty values are skipped. Cells are saved in bulk a chunk at
+     * a time, and the cells of each chunk and the cells that reference them are then evaluated once. The returned
+     * {@link SpreadsheetDelta} has no cells, and its window is the range of imported cells which should be loaded again.
+     */
+    SpreadsheetDelta importCells(final Reader csv,
+                                 final SpreadsheetCellReference home,
+                                 final SpreadsheetEngineContext context);
+
     /**
      * Deletes the cellS, removing references and updates and returns all affected (referenced cells).
      */
@@ -132,6 +145,13 @@ public interface SpreadsheetEngine {
                                final Set<SpreadsheetDeltaProperties> deltaProperties,
                                final SpreadsheetEngineContext context);
 
+    /**
+     * Evaluates again all cells with an impure formula, such as those calling a function that returns the current
+     * time or a random number, along with all cells that reference them. This is intended to be called periodically
+     * to refresh these volatile cells in bulk.
+     */
+    SpreadsheetDelta refreshVolatileCells(final SpreadsheetEngineContext context);
+
     /**
      * Fill may be used to perform several operations.
      * <ul>
@@ -145,6 +165,14 @@ public interface SpreadsheetEngine {
                                final SpreadsheetCellRange to,
                                final SpreadsheetEngineContext context);
 
+    /**
+     * Validates the values of all the cells within the {@link SpreadsheetCellRange} against the
+     * {@link walkingkooka.spreadsheet.datavalidation.SpreadsheetDataValidator validators} for their range, returning
+     * the cells with an invalid value. Empty cells and cells without any validators are always valid.
+     */
+    Set<SpreadsheetCellReference> validate(final SpreadsheetCellRange range,
+                                           final SpreadsheetEngineContext context);
+
     /**
      * Sets a new label mapping or replaces an existing one returning a {@link SpreadsheetDelta} which may or may not
      * have affected and updated cells.
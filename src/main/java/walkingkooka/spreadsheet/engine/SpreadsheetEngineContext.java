@@ -20,17 +20,26 @@ package walkingkooka.spreadsheet.engine;
 import walkingkooka.Context;
 import walkingkooka.datetime.HasNow;
 import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.SpreadsheetFormula;
+import walkingkooka.spreadsheet.conditionalformat.SpreadsheetConditionalFormattingRule;
+import walkingkooka.spreadsheet.convert.SpreadsheetConverterContext;
+import walkingkooka.spreadsheet.datavalidation.SpreadsheetDataValidatorContext;
 import walkingkooka.spreadsheet.format.SpreadsheetFormatter;
 import walkingkooka.spreadsheet.format.SpreadsheetText;
+import walkingkooka.spreadsheet.format.pattern.SpreadsheetFormatPattern;
 import walkingkooka.spreadsheet.meta.SpreadsheetMetadata;
 import walkingkooka.spreadsheet.parser.SpreadsheetParserToken;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
 import walkingkooka.spreadsheet.reference.SpreadsheetLabelName;
 import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
 import walkingkooka.spreadsheet.store.repo.SpreadsheetStoreRepository;
 import walkingkooka.text.cursor.TextCursor;
 import walkingkooka.tree.expression.Expression;
 import walkingkooka.tree.expression.ExpressionPurityContext;
+import walkingkooka.tree.text.TextNode;
+import walkingkooka.tree.text.TextStyle;
 
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -43,6 +52,18 @@ public interface SpreadsheetEngineContext extends Context, ExpressionPurityConte
      */
     SpreadsheetMetadata metadata();
 
+    /**
+     * Returns a {@link SpreadsheetConverterContext} using the current {@link SpreadsheetMetadata}, which may be used to
+     * convert values such as the result of a conditional formatting rule to a {@link Boolean}.
+     */
+    default SpreadsheetConverterContext spreadsheetConverterContext() {
+        return this.metadata()
+                .converterContext(
+                        this::now,
+                        this::resolveIfLabel
+                );
+    }
+
     /**
      * Resolves a {@link SpreadsheetSelection} if it is a {@link SpreadsheetLabelName} otherwise returning the original.
      */
@@ -58,14 +79,108 @@ public interface SpreadsheetEngineContext extends Context, ExpressionPurityConte
      */
     Object evaluate(final Expression node, final Optional<SpreadsheetCell> cell);
 
+    /**
+     * Tests the {@link SpreadsheetConditionalFormattingRule} against the cell, returning true when the rule style should
+     * be applied. Implementations may reuse results until {@link #conditionalFormattingRuleReferencesChanged(SpreadsheetCellRange)}
+     * is called for a range including the cell. The default evaluates the rule formula every time.
+     */
+    default boolean testConditionalFormattingRule(final SpreadsheetConditionalFormattingRule rule,
+                                                  final SpreadsheetCell cell) {
+        Objects.requireNonNull(rule, "rule");
+        Objects.requireNonNull(cell, "cell");
+
+        return Boolean.TRUE.equals(
+                this.spreadsheetConverterContext()
+                        .convertOrFail(
+                                this.evaluate(
+                                        rule.formula()
+                                                .expression()
+                                                .get(),
+                                        Optional.of(cell)
+                                ),
+                                Boolean.class
+                        )
+        );
+    }
+
+    /**
+     * Invoked when a cell referenced by the {@link SpreadsheetConditionalFormattingRule rules} of the range changed,
+     * so any results kept by {@link #testConditionalFormattingRule(SpreadsheetConditionalFormattingRule, SpreadsheetCell)}
+     * for cells within the range are stale. The default does nothing.
+     */
+    default void conditionalFormattingRuleReferencesChanged(final SpreadsheetCellRange range) {
+        Objects.requireNonNull(range, "range");
+    }
+
+    /**
+     * Discards all results kept by {@link #testConditionalFormattingRule(SpreadsheetConditionalFormattingRule, SpreadsheetCell)}.
+     * Invoked when an engine operation begins and when a label changes. The default does nothing.
+     */
+    default void discardConditionalFormattingRuleResults() {
+    }
+
+    /**
+     * Creates a {@link SpreadsheetDataValidatorContext} that may be used to validate the given value of the cell.
+     */
+    SpreadsheetDataValidatorContext spreadsheetDataValidatorContext(final SpreadsheetCell cell,
+                                                                    final Object value);
+
     /**
      * Formats the given value using the provided formatter.
      */
     Optional<SpreadsheetText> format(final Object value,
                                      final SpreadsheetFormatter formatter);
 
+    /**
+     * Formats the given value using the {@link SpreadsheetFormatPattern} or the {@link SpreadsheetMetadata#formatter()}
+     * when absent, and then applies the {@link TextStyle} to the formatted text. Implementations may cache the
+     * {@link TextNode} for equal value, pattern and style.
+     */
+    default Optional<TextNode> formatAndStyle(final Object value,
+                                              final Optional<SpreadsheetFormatPattern> pattern,
+                                              final TextStyle style) {
+        final SpreadsheetFormatter formatter = pattern.isPresent() ?
+                pattern.get().formatter() :
+                this.metadata().formatter();
+
+        return this.format(value, formatter)
+                .map(f -> style.replace(f.toTextNode()));
+    }
+
     /**
      * Getter that returns the {@link SpreadsheetStoreRepository} for this spreadsheet.
      */
     SpreadsheetStoreRepository storeRepository();
+
+    /**
+     * Returns the {@link SpreadsheetEngineTracer} that receives timings and counts from the {@link SpreadsheetEngine}.
+     * The default ignores everything.
+     */
+    default SpreadsheetEngineTracer tracer() {
+        return SpreadsheetEngineTracers.none();
+    }
+
+    /**
+     * Returns the formula of a cell about to be evaluated, possibly holding a {@link SpreadsheetFormula#compile(java.util.function.Function) compiled}
+     * form of its expression that is kept when the cell is saved. The default returns the formula unchanged.
+     */
+    default SpreadsheetFormula compileFormula(final SpreadsheetFormula formula) {
+        return formula;
+    }
+
+    /**
+     * When true the {@link SpreadsheetEngine} converts formulas into expressions with arithmetic on number constants
+     * already computed. The default is false.
+     */
+    default boolean isFoldingConstants() {
+        return false;
+    }
+
+    /**
+     * When true the {@link SpreadsheetEngine} keeps only the text and expression of formulas, discarding the
+     * {@link walkingkooka.spreadsheet.parser.SpreadsheetParserToken} which is parsed again when needed. The default is false.
+     */
+    default boolean isDiscardingTokens() {
+        return false;
+    }
 }
@@ -21,6 +21,7 @@ import org.junit.jupiter.api.Test;
 import walkingkooka.ContextTesting;
 import walkingkooka.locale.HasLocaleTesting;
 import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.SpreadsheetFormula;
 import walkingkooka.spreadsheet.format.SpreadsheetFormatter;
 import walkingkooka.spreadsheet.format.SpreadsheetText;
 import walkingkooka.spreadsheet.parser.SpreadsheetParserToken;
@@ -185,6 +186,33 @@ public interface SpreadsheetEngineContextTesting<C extends SpreadsheetEngineCont
         );
     }
 
+    // spreadsheetDataValidatorContext..................................................................................
+
+    @Test
+    default void testSpreadsheetDataValidatorContextNullCellFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> this.createContext()
+                        .spreadsheetDataValidatorContext(
+                                null,
+                                "value"
+                        )
+        );
+    }
+
+    @Test
+    default void testSpreadsheetDataValidatorContextNullValueFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> this.createContext()
+                        .spreadsheetDataValidatorContext(
+                                SpreadsheetSelection.parseCell("A1")
+                                        .setFormula(SpreadsheetFormula.EMPTY),
+                                null
+                        )
+        );
+    }
+
     // format...........................................................................................................
 
     @Test
@@ -42,7 +42,8 @@ public final class SpreadsheetEngineContexts implements PublicStaticHelper {
                                                  final Function<BigDecimal, Fraction> fractioner,
                                                  final SpreadsheetStoreRepository storeRepository,
                                                  final AbsoluteUrl serverUrl,
-                                                 final Supplier<LocalDateTime> now) {
+                                                 final Supplier<LocalDateTime> now,
+                                                 final SpreadsheetEngineTracer tracer) {
         return BasicSpreadsheetEngineContext.with(
                 metadata,
                 functions,
@@ -50,7 +51,38 @@ public final class SpreadsheetEngineContexts implements PublicStaticHelper {
                 fractioner,
                 storeRepository,
                 serverUrl,
-                now
+                now,
+                tracer
+        );
+    }
+
+    /**
+     * {@see BasicSpreadsheetEngineContext}, which may fold constants when converting formulas, discard formula tokens
+     * and evaluate formulas after compiling their expressions.
+     */
+    public static SpreadsheetEngineContext basic(final SpreadsheetMetadata metadata,
+                                                 final Function<FunctionExpressionName, ExpressionFunction<?, ExpressionEvaluationContext>> functions,
+                                                 final SpreadsheetEngine engine,
+                                                 final Function<BigDecimal, Fraction> fractioner,
+                                                 final SpreadsheetStoreRepository storeRepository,
+                                                 final AbsoluteUrl serverUrl,
+                                                 final Supplier<LocalDateTime> now,
+                                                 final SpreadsheetEngineTracer tracer,
+                                                 final boolean foldConstants,
+                                                 final boolean discardTokens,
+                                                 final boolean compileExpressions) {
+        return BasicSpreadsheetEngineContext.with(
+                metadata,
+                functions,
+                engine,
+                fractioner,
+                storeRepository,
+                serverUrl,
+                now,
+                tracer,
+                foldConstants,
+                discardTokens,
+                compileExpressions
         );
     }
 
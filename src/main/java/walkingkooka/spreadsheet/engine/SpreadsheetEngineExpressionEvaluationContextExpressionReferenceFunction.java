@@ -27,7 +27,8 @@ import java.util.function.Function;
 
 /**
  * A {@link Function} which may be passed to {@link walkingkooka.tree.expression.ExpressionEvaluationContexts#basic}
- * and acts as a bridge resolving {@link ExpressionReference} to a {@link Expression}.
+ * and acts as a bridge resolving {@link ExpressionReference} to a {@link Expression}. Each resolution is traced as a
+ * {@link SpreadsheetEngineMetric#RESOLVE_REFERENCE}.
  */
 final class SpreadsheetEngineExpressionEvaluationContextExpressionReferenceFunction implements Function<ExpressionReference, Optional<Optional<Object>>> {
 
@@ -58,11 +59,14 @@ final class SpreadsheetEngineExpressionEvaluationContextExpressionReferenceFunct
     public Optional<Optional<Object>> apply(final ExpressionReference reference) {
         Objects.requireNonNull(reference, "values");
 
-        return SpreadsheetEngineExpressionEvaluationContextExpressionReferenceFunctionSpreadsheetSelectionVisitor.values(
-                (SpreadsheetExpressionReference) reference,
-                this.engine,
-                this.context
-        );
+        final SpreadsheetEngineContext context = this.context;
+        try (final SpreadsheetEngineTracerSpan span = context.tracer().start(SpreadsheetEngineMetric.RESOLVE_REFERENCE)) {
+            return SpreadsheetEngineExpressionEvaluationContextExpressionReferenceFunctionSpreadsheetSelectionVisitor.values(
+                    (SpreadsheetExpressionReference) reference,
+                    this.engine,
+                    context
+            );
+        }
     }
 
     private final SpreadsheetEngine engine;
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine;
+
+/**
+ * The steps and operations of a {@link SpreadsheetEngine} that are timed or counted by a {@link SpreadsheetEngineTracer}.
+ */
+public enum SpreadsheetEngineMetric {
+
+    // operations.......................................................................................................
+
+    LOAD_CELLS,
+
+    SAVE_CELL,
+
+    SAVE_CELLS,
+
+    IMPORT_CELLS,
+
+    REFRESH_VOLATILE_CELLS,
+
+    DELETE_CELLS,
+
+    LOAD_COLUMN,
+
+    SAVE_COLUMN,
+
+    DELETE_COLUMNS,
+
+    LOAD_ROW,
+
+    SAVE_ROW,
+
+    DELETE_ROWS,
+
+    INSERT_COLUMNS,
+
+    INSERT_ROWS,
+
+    FILL_CELLS,
+
+    VALIDATE,
+
+    SAVE_LABEL,
+
+    REMOVE_LABEL,
+
+    LOAD_LABEL,
+
+    COLUMN_WIDTH,
+
+    ROW_HEIGHT,
+
+    WINDOW,
+
+    NAVIGATE,
+
+    // steps............................................................................................................
+
+    /**
+     * Parsing the formula text of a cell into a token.
+     */
+    PARSE,
+
+    /**
+     * Evaluating the expression of a cell.
+     */
+    EVALUATE,
+
+    /**
+     * Testing the value of a cell against any data validators.
+     */
+    DATA_VALIDATION,
+
+    /**
+     * Formatting and styling the value of a cell.
+     */
+    FORMAT,
+
+    /**
+     * Testing and applying conditional formatting rules to a cell.
+     */
+    CONDITIONAL_FORMATTING,
+
+    /**
+     * Removing and adding the references of a saved or deleted cell.
+     */
+    REFERENCES,
+
+    /**
+     * Resolving a reference within an expression to the values of the referenced cells, which includes evaluating any
+     * referenced cells that have no value.
+     */
+    RESOLVE_REFERENCE,
+
+    /**
+     * Loading and saving cells from the {@link walkingkooka.spreadsheet.store.SpreadsheetCellStore}.
+     */
+    STORE,
+
+    /**
+     * Loading and evaluating all cells that reference a saved or deleted cell.
+     */
+    REFRESH,
+
+    /**
+     * A counter of the cells loaded and evaluated by {@link #REFRESH}.
+     */
+    REFRESHED_CELLS,
+
+    /**
+     * Building the {@link SpreadsheetDelta} returned by an operation.
+     */
+    DELTA
+}
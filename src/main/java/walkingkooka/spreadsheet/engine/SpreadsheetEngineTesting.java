@@ -59,6 +59,7 @@ import walkingkooka.tree.expression.ExpressionNumberConverterContext;
 import walkingkooka.tree.expression.ExpressionNumberConverterContexts;
 import walkingkooka.tree.expression.ExpressionNumberKind;
 
+import java.io.StringReader;
 import java.math.MathContext;
 import java.time.LocalDateTime;
 import java.util.Collection;
@@ -152,6 +153,45 @@ public interface SpreadsheetEngineTesting<E extends SpreadsheetEngine> extends C
                                 null));
     }
 
+    @Test
+    default void testImportCellsNullCsvFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> this.createSpreadsheetEngine()
+                        .importCells(
+                                null,
+                                CELL_REFERENCE,
+                                this.createContext()
+                        )
+        );
+    }
+
+    @Test
+    default void testImportCellsNullHomeFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> this.createSpreadsheetEngine()
+                        .importCells(
+                                new StringReader("1"),
+                                null,
+                                this.createContext()
+                        )
+        );
+    }
+
+    @Test
+    default void testImportCellsNullContextFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> this.createSpreadsheetEngine()
+                        .importCells(
+                                new StringReader("1"),
+                                CELL_REFERENCE,
+                                null
+                        )
+        );
+    }
+
     @Test
     default void testDeleteCellsNullCellFails() {
         assertThrows(
@@ -433,6 +473,30 @@ public interface SpreadsheetEngineTesting<E extends SpreadsheetEngine> extends C
         checkMessage(thrown, "Several cells [B2=1, E5=4] are outside the range C3:D4");
     }
 
+    @Test
+    default void testValidateNullRangeFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> this.createSpreadsheetEngine()
+                        .validate(
+                                null,
+                                this.createContext()
+                        )
+        );
+    }
+
+    @Test
+    default void testValidateNullContextFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> this.createSpreadsheetEngine()
+                        .validate(
+                                SpreadsheetSelection.parseCellRange("A1:B2"),
+                                null
+                        )
+        );
+    }
+
     @Test
     default void testSaveLabelNullMappingFails() {
         assertThrows(NullPointerException.class, () -> this.createSpreadsheetEngine().saveLabel(null, this.createContext()));
@@ -1039,6 +1103,17 @@ public interface SpreadsheetEngineTesting<E extends SpreadsheetEngine> extends C
         );
     }
 
+    default void validateAndCheck(final SpreadsheetEngine engine,
+                                  final SpreadsheetCellRange range,
+                                  final SpreadsheetEngineContext context,
+                                  final SpreadsheetCellReference... invalid) {
+        this.checkEquals(
+                Sets.of(invalid),
+                engine.validate(range, context),
+                () -> "validate " + range
+        );
+    }
+
     default void checkFormula(final SpreadsheetCell cell, final String formula) {
         this.checkEquals(formula,
                 cell.formula().text(),
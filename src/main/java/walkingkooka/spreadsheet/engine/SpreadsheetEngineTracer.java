@@ -0,0 +1,37 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine;
+
+/**
+ * Receives timings and counts from a {@link SpreadsheetEngine}, available from {@link SpreadsheetEngineContext#tracer()}.
+ * Spans may be nested, an operation span such as {@link SpreadsheetEngineMetric#SAVE_CELL} will contain the spans
+ * for each step such as {@link SpreadsheetEngineMetric#PARSE}.
+ */
+public interface SpreadsheetEngineTracer {
+
+    /**
+     * Starts timing the given {@link SpreadsheetEngineMetric}, which ends when the returned span is closed.
+     */
+    SpreadsheetEngineTracerSpan start(final SpreadsheetEngineMetric metric);
+
+    /**
+     * Adds the count to the given {@link SpreadsheetEngineMetric}.
+     */
+    void increment(final SpreadsheetEngineMetric metric,
+                   final long count);
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine;
+
+import walkingkooka.collect.list.Lists;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetReferenceKind;
+import walkingkooka.spreadsheet.store.SpreadsheetCellStore;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Remembers the window last sent to a single client, so each following {@link #loadCells(Set, SpreadsheetEngineEvaluation, Set, SpreadsheetEngineContext)}
+ * only loads the parts of the new window outside the previous window, along with the cells within both windows that
+ * were saved or deleted since the previous response. Saves and deletes are recorded by watchers on the
+ * {@link SpreadsheetCellStore}, so cells the client already has are not loaded or formatted again. Changed cells that
+ * no longer exist are returned as deleted cells. Clients are expected to discard their own cells that are outside the
+ * new window.
+ * <br>
+ * A host should keep one session for each client viewport, call {@link #reset()} whenever the client loses its
+ * cells, for example after reconnecting, and {@link #close()} when the client goes away.
+ */
+public final class SpreadsheetEngineViewportSession implements AutoCloseable {
+
+    public static SpreadsheetEngineViewportSession with(final SpreadsheetEngine engine) {
+        Objects.requireNonNull(engine, "engine");
+
+        return new SpreadsheetEngineViewportSession(engine);
+    }
+
+    private SpreadsheetEngineViewportSession(final SpreadsheetEngine engine) {
+        super();
+        this.engine = engine;
+    }
+
+    /**
+     * Loads the cells entering the window and the changed cells the client already has using the {@link SpreadsheetEngine}.
+     * The lock is never held while the engine runs, because other threads saving cells fire the watchers.
+     */
+    public SpreadsheetDelta loadCells(final Set<SpreadsheetCellRange> window,
+                                      final SpreadsheetEngineEvaluation evaluation,
+                                      final Set<SpreadsheetDeltaProperties> deltaProperties,
+                                      final SpreadsheetEngineContext context) {
+        Objects.requireNonNull(window, "window");
+        Objects.requireNonNull(context, "context");
+
+        final Set<SpreadsheetCellRange> previous;
+        final Set<SpreadsheetCellReference> changed;
+
+        synchronized (this) {
+            this.watch(
+                    context.storeRepository()
+                            .cells()
+            );
+
+            previous = this.window;
+            changed = this.changed;
+            this.changed = Sets.sorted();
+        }
+
+        final Set<SpreadsheetCellRange> load = Sets.ordered();
+        for (final SpreadsheetCellRange range : window) {
+            load.addAll(
+                    difference(range, previous)
+            );
+        }
+
+        final Set<SpreadsheetCellReference> reloaded = Sets.sorted();
+        for (final SpreadsheetCellReference reference : changed) {
+            if (isWithin(reference, window) && isWithin(reference, previous)) {
+                load.add(reference.cellRange(reference));
+                reloaded.add(reference);
+            }
+        }
+
+        final SpreadsheetDelta delta = this.engine.loadCells(
+                load,
+                evaluation,
+                deltaProperties,
+                context
+        );
+
+        // changed cells that were not loaded again have been deleted.
+        final Set<SpreadsheetCellReference> deletedCells = Sets.sorted();
+        deletedCells.addAll(delta.deletedCells());
+        deletedCells.addAll(reloaded);
+
+        for (final SpreadsheetCell cell : delta.cells()) {
+            deletedCells.remove(
+                    cell.reference()
+                            .toRelative()
+            );
+        }
+
+        final Set<SpreadsheetCellRange> copy = Sets.ordered();
+        copy.addAll(window);
+
+        synchronized (this) {
+            this.window = copy;
+        }
+
+        return delta.setDeletedCells(deletedCells)
+                .setWindow(window);
+    }
+
+    /**
+     * Subtracts all the previous ranges from the given range, returning the ranges that remain.
+     */
+    private static List<SpreadsheetCellRange> difference(final SpreadsheetCellRange range,
+                                                         final Set<SpreadsheetCellRange> previous) {
+        List<SpreadsheetCellRange> remaining = Lists.of(range);
+
+        for (final SpreadsheetCellRange subtract : previous) {
+            final List<SpreadsheetCellRange> next = Lists.array();
+
+            for (final SpreadsheetCellRange r : remaining) {
+                difference(r, subtract, next);
+            }
+
+            remaining = next;
+        }
+
+        return remaining;
+    }
+
+    /**
+     * Adds the up to four ranges above, below, left and right of the overlap with the subtracted range.
+     */
+    private static void difference(final SpreadsheetCellRange range,
+                                   final SpreadsheetCellRange subtract,
+                                   final List<SpreadsheetCellRange> remaining) {
+        final SpreadsheetCellReference begin = range.begin();
+        final SpreadsheetCellReference end = range.end();
+
+        final int left = begin.column().value();
+        final int top = begin.row().value();
+        final int right = end.column().value();
+        final int bottom = end.row().value();
+
+        final int overlapLeft = Math.max(left, subtract.begin().column().value());
+        final int overlapTop = Math.max(top, subtract.begin().row().value());
+        final int overlapRight = Math.min(right, subtract.end().column().value());
+        final int overlapBottom = Math.min(bottom, subtract.end().row().value());
+
+        if (overlapLeft > overlapRight || overlapTop > overlapBottom) {
+            remaining.add(range);
+        } else {
+            if (top < overlapTop) {
+                remaining.add(range(left, top, right, overlapTop - 1));
+            }
+            if (overlapBottom < bottom) {
+                remaining.add(range(left, overlapBottom + 1, right, bottom));
+            }
+            if (left < overlapLeft) {
+                remaining.add(range(left, overlapTop, overlapLeft - 1, overlapBottom));
+            }
+            if (overlapRight < right) {
+                remaining.add(range(overlapRight + 1, overlapTop, right, overlapBottom));
+            }
+        }
+    }
+
+    private static SpreadsheetCellRange range(final int left,
+                                              final int top,
+                                              final int right,
+                                              final int bottom) {
+        return cell(left, top)
+                .cellRange(cell(right, bottom));
+    }
+
+    private static SpreadsheetCellReference cell(final int column,
+                                                 final int row) {
+        return SpreadsheetReferenceKind.RELATIVE.column(column)
+                .setRow(SpreadsheetReferenceKind.RELATIVE.row(row));
+    }
+
+    private static boolean isWithin(final SpreadsheetCellReference reference,
+                                    final Set<SpreadsheetCellRange> window) {
+        boolean within = false;
+
+        for (final SpreadsheetCellRange range : window) {
+            within = range.test(reference);
+            if (within) {
+                break;
+            }
+        }
+
+        return within;
+    }
+
+    /**
+     * Adds watchers to the given {@link SpreadsheetCellStore} the first time it is seen, removing the watchers from
+     * any previous store and forgetting the previous window.
+     */
+    private void watch(final SpreadsheetCellStore store) {
+        if (store != this.store) {
+            this.close();
+
+            this.store = store;
+            this.removeSaveWatcher = store.addSaveWatcher(this::onCellSaved);
+            this.removeDeleteWatcher = store.addDeleteWatcher(this::onCellDeleted);
+        }
+    }
+
+    private void onCellSaved(final SpreadsheetCell cell) {
+        this.onCellChanged(cell.reference());
+    }
+
+    private void onCellDeleted(final SpreadsheetCellReference reference) {
+        this.onCellChanged(reference);
+    }
+
+    /**
+     * Only changes within the last window are recorded, cells outside are loaded when they enter the window.
+     */
+    private synchronized void onCellChanged(final SpreadsheetCellReference reference) {
+        if (isWithin(reference, this.window)) {
+            this.changed.add(reference.toRelative());
+        }
+    }
+
+    /**
+     * Forgets the previous window, so the next {@link #loadCells(Set, SpreadsheetEngineEvaluation, Set, SpreadsheetEngineContext)}
+     * returns all cells in the window.
+     */
+    public synchronized void reset() {
+        this.window = Sets.empty();
+        this.changed = Sets.sorted();
+    }
+
+    /**
+     * Removes the watchers from the {@link SpreadsheetCellStore} and forgets the previous window.
+     */
+    @Override
+    public synchronized void close() {
+        if (null != this.store) {
+            this.removeSaveWatcher.run();
+            this.removeDeleteWatcher.run();
+            this.store = null;
+        }
+        this.reset();
+    }
+
+    private final SpreadsheetEngine engine;
+
+    /**
+     * The {@link SpreadsheetCellStore} being watched, or null before the first load.
+     */
+    private SpreadsheetCellStore store;
+
+    private Runnable removeSaveWatcher;
+
+    private Runnable removeDeleteWatcher;
+
+    /**
+     * The window the client last received.
+     */
+    private Set<SpreadsheetCellRange> window = Sets.empty();
+
+    /**
+     * The relative references of cells within the last window saved or deleted since the last response.
+     */
+    private Set<SpreadsheetCellReference> changed = Sets.sorted();
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.engine + " " + this.window;
+    }
+}
@@ -48,6 +48,13 @@ public final class SpreadsheetEngines implements PublicStaticHelper {
         return SpreadsheetMetadataStampingSpreadsheetEngine.with(engine, stamper);
     }
 
+    /**
+     * {@see TracingSpreadsheetEngine}
+     */
+    public static SpreadsheetEngine tracing(final SpreadsheetEngine engine) {
+        return TracingSpreadsheetEngine.with(engine);
+    }
+
     /**
      * {@see SpreadsheetEngineExpressionEvaluationContextExpressionReferenceFunction}
      */
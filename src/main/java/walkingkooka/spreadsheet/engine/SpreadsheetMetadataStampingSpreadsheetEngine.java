@@ -24,6 +24,7 @@ import walkingkooka.spreadsheet.SpreadsheetRow;
 import walkingkooka.spreadsheet.SpreadsheetViewport;
 import walkingkooka.spreadsheet.meta.SpreadsheetMetadata;
 import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetColumnReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetLabelMapping;
 import walkingkooka.spreadsheet.reference.SpreadsheetLabelName;
@@ -34,6 +35,7 @@ import walkingkooka.spreadsheet.reference.store.SpreadsheetLabelStore;
 import walkingkooka.spreadsheet.store.SpreadsheetCellStore;
 import walkingkooka.spreadsheet.store.repo.SpreadsheetStoreRepository;
 
+import java.io.Reader;
 import java.util.Collection;
 import java.util.Objects;
 import java.util.Optional;
@@ -113,6 +115,24 @@ final class SpreadsheetMetadataStampingSpreadsheetEngine implements SpreadsheetE
         );
     }
 
+    @Override
+    public SpreadsheetDelta importCells(final Reader csv,
+                                        final SpreadsheetCellReference home,
+                                        final SpreadsheetEngineContext context) {
+        return this.stamp(
+                () -> this.engine.importCells(csv, home, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta refreshVolatileCells(final SpreadsheetEngineContext context) {
+        return this.stamp(
+                () -> this.engine.refreshVolatileCells(context),
+                context
+        );
+    }
+
     @Override
     public SpreadsheetDelta deleteCells(final SpreadsheetSelection cells,
                                         final SpreadsheetEngineContext context) {
@@ -203,6 +223,12 @@ final class SpreadsheetMetadataStampingSpreadsheetEngine implements SpreadsheetE
         );
     }
 
+    @Override
+    public Set<SpreadsheetCellReference> validate(final SpreadsheetCellRange range,
+                                                  final SpreadsheetEngineContext context) {
+        return this.engine.validate(range, context);
+    }
+
     @Override
     public Optional<SpreadsheetLabelMapping> loadLabel(final SpreadsheetLabelName name,
                                                        final SpreadsheetEngineContext context) {
@@ -0,0 +1,344 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.engine;
+
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.SpreadsheetColumn;
+import walkingkooka.spreadsheet.SpreadsheetRow;
+import walkingkooka.spreadsheet.SpreadsheetViewport;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetColumnReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetLabelMapping;
+import walkingkooka.spreadsheet.reference.SpreadsheetLabelName;
+import walkingkooka.spreadsheet.reference.SpreadsheetRowReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+import walkingkooka.spreadsheet.reference.SpreadsheetViewportSelection;
+
+import java.io.Reader;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Wraps a {@link SpreadsheetEngine} timing every operation within a {@link SpreadsheetEngineTracerSpan} started using
+ * the {@link SpreadsheetEngineContext#tracer()}. Finer grained steps such as parsing and evaluating are traced by
+ * the {@link BasicSpreadsheetEngine} itself.
+ */
+final class TracingSpreadsheetEngine implements SpreadsheetEngine {
+
+    static TracingSpreadsheetEngine with(final SpreadsheetEngine engine) {
+        Objects.requireNonNull(engine, "engine");
+
+        return engine instanceof TracingSpreadsheetEngine ?
+                (TracingSpreadsheetEngine) engine :
+                new TracingSpreadsheetEngine(engine);
+    }
+
+    private TracingSpreadsheetEngine(final SpreadsheetEngine engine) {
+        super();
+        this.engine = engine;
+    }
+
+    @Override
+    public SpreadsheetDelta loadCells(final SpreadsheetSelection selection,
+                                      final SpreadsheetEngineEvaluation evaluation,
+                                      final Set<SpreadsheetDeltaProperties> deltaProperties,
+                                      final SpreadsheetEngineContext context) {
+        return this.trace(
+                SpreadsheetEngineMetric.LOAD_CELLS,
+                () -> this.engine.loadCells(
+                        selection,
+                        evaluation,
+                        deltaProperties,
+                        context
+                ),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta loadCells(final Set<SpreadsheetCellRange> range,
+                                      final SpreadsheetEngineEvaluation evaluation,
+                                      final Set<SpreadsheetDeltaProperties> deltaProperties,
+                                      final SpreadsheetEngineContext context) {
+        return this.trace(
+                SpreadsheetEngineMetric.LOAD_CELLS,
+                () -> this.engine.loadCells(
+                        range,
+                        evaluation,
+                        deltaProperties,
+                        context
+                ),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta saveCell(final SpreadsheetCell cell,
+                                     final SpreadsheetEngineContext context) {
+        return this.trace(
+                SpreadsheetEngineMetric.SAVE_CELL,
+                () -> this.engine.saveCell(cell, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta saveCells(final Set<SpreadsheetCell> cells,
+                                      final SpreadsheetEngineContext context) {
+        return this.trace(
+                SpreadsheetEngineMetric.SAVE_CELLS,
+                () -> this.engine.saveCells(cells, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta importCells(final Reader csv,
+                                        final SpreadsheetCellReference home,
+                                        final SpreadsheetEngineContext context) {
+        return this.trace(
+                SpreadsheetEngineMetric.IMPORT_CELLS,
+                () -> this.engine.importCells(csv, home, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta refreshVolatileCells(final SpreadsheetEngineContext context) {
+        return this.trace(
+                SpreadsheetEngineMetric.REFRESH_VOLATILE_CELLS,
+                () -> this.engine.refreshVolatileCells(context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta deleteCells(final SpreadsheetSelection cells,
+                                        final SpreadsheetEngineContext context) {
+        return this.trace(
+                SpreadsheetEngineMetric.DELETE_CELLS,
+                () -> this.engine.deleteCells(cells, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta loadColumn(final SpreadsheetColumnReference column,
+                                       final SpreadsheetEngineContext context) {
+        return this.trace(
+                SpreadsheetEngineMetric.LOAD_COLUMN,
+                () -> this.engine.loadColumn(column, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta saveColumn(final SpreadsheetColumn column,
+                                       final SpreadsheetEngineContext context) {
+        return this.trace(
+                SpreadsheetEngineMetric.SAVE_COLUMN,
+                () -> this.engine.saveColumn(column, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta deleteColumns(final SpreadsheetColumnReference column,
+                                          final int count,
+                                          final SpreadsheetEngineContext context) {
+        return this.trace(
+                SpreadsheetEngineMetric.DELETE_COLUMNS,
+                () -> this.engine.deleteColumns(column, count, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta loadRow(final SpreadsheetRowReference row,
+                                    final SpreadsheetEngineContext context) {
+        return this.trace(
+                SpreadsheetEngineMetric.LOAD_ROW,
+                () -> this.engine.loadRow(row, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta saveRow(final SpreadsheetRow row,
+                                    final SpreadsheetEngineContext context) {
+        return this.trace(
+                SpreadsheetEngineMetric.SAVE_ROW,
+                () -> this.engine.saveRow(row, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta deleteRows(final SpreadsheetRowReference row,
+                                       final int count,
+                                       final SpreadsheetEngineContext context) {
+        return this.trace(
+                SpreadsheetEngineMetric.DELETE_ROWS,
+                () -> this.engine.deleteRows(row, count, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta insertColumns(final SpreadsheetColumnReference column,
+                                          final int count,
+                                          final SpreadsheetEngineContext context) {
+        return this.trace(
+                SpreadsheetEngineMetric.INSERT_COLUMNS,
+                () -> this.engine.insertColumns(column, count, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta insertRows(final SpreadsheetRowReference row,
+                                       final int count,
+                                       final SpreadsheetEngineContext context) {
+        return this.trace(
+                SpreadsheetEngineMetric.INSERT_ROWS,
+                () -> this.engine.insertRows(row, count, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta fillCells(final Collection<SpreadsheetCell> cells,
+                                      final SpreadsheetCellRange from,
+                                      final SpreadsheetCellRange to,
+                                      final SpreadsheetEngineContext context) {
+        return this.trace(
+                SpreadsheetEngineMetric.FILL_CELLS,
+                () -> this.engine.fillCells(cells, from, to, context),
+                context
+        );
+    }
+
+    @Override
+    public Set<SpreadsheetCellReference> validate(final SpreadsheetCellRange range,
+                                                  final SpreadsheetEngineContext context) {
+        return this.trace(
+                SpreadsheetEngineMetric.VALIDATE,
+                () -> this.engine.validate(range, context),
+                context
+        );
+    }
+
+    @Override
+    public Optional<SpreadsheetLabelMapping> loadLabel(final SpreadsheetLabelName name,
+                                                       final SpreadsheetEngineContext context) {
+        return this.trace(
+                SpreadsheetEngineMetric.LOAD_LABEL,
+                () -> this.engine.loadLabel(name, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta saveLabel(final SpreadsheetLabelMapping mapping,
+                                      final SpreadsheetEngineContext context) {
+        return this.trace(
+                SpreadsheetEngineMetric.SAVE_LABEL,
+                () -> this.engine.saveLabel(mapping, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta removeLabel(final SpreadsheetLabelName label,
+                                        final SpreadsheetEngineContext context) {
+        return this.trace(
+                SpreadsheetEngineMetric.REMOVE_LABEL,
+                () -> this.engine.removeLabel(label, context),
+                context
+        );
+    }
+
+    @Override
+    public double columnWidth(final SpreadsheetColumnReference column,
+                              final SpreadsheetEngineContext context) {
+        return this.trace(
+                SpreadsheetEngineMetric.COLUMN_WIDTH,
+                () -> this.engine.columnWidth(column, context),
+                context
+        );
+    }
+
+    @Override
+    public double rowHeight(final SpreadsheetRowReference row,
+                            final SpreadsheetEngineContext context) {
+        return this.trace(
+                SpreadsheetEngineMetric.ROW_HEIGHT,
+                () -> this.engine.rowHeight(row, context),
+                context
+        );
+    }
+
+    @Override
+    public Set<SpreadsheetCellRange> window(final SpreadsheetViewport viewport,
+                                            final boolean includeFrozenColumnsRows,
+                                            final Optional<SpreadsheetSelection> selection,
+                                            final SpreadsheetEngineContext context) {
+        return this.trace(
+                SpreadsheetEngineMetric.WINDOW,
+                () -> this.engine.window(
+                        viewport,
+                        includeFrozenColumnsRows,
+                        selection,
+                        context
+                ),
+                context
+        );
+    }
+
+    @Override
+    public Optional<SpreadsheetViewportSelection> navigate(final SpreadsheetViewportSelection selection,
+                                                           final SpreadsheetEngineContext context) {
+        return this.trace(
+                SpreadsheetEngineMetric.NAVIGATE,
+                () -> this.engine.navigate(selection, context),
+                context
+        );
+    }
+
+    private <T> T trace(final SpreadsheetEngineMetric metric,
+                        final Supplier<T> operation,
+                        final SpreadsheetEngineContext context) {
+        try (final SpreadsheetEngineTracerSpan span = context.tracer().start(metric)) {
+            return operation.get();
+        }
+    }
+
+    /**
+     * The engine being wrapped.
+     */
+    // @VisibleForTesting
+    final SpreadsheetEngine engine;
+
+    @Override
+    public String toString() {
+        return this.engine.toString();
+    }
+}
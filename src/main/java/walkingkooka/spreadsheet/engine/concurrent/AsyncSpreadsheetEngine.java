@@ -0,0 +1,205 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine.concurrent;
+
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.SpreadsheetColumn;
+import walkingkooka.spreadsheet.SpreadsheetRow;
+import walkingkooka.spreadsheet.engine.SpreadsheetDelta;
+import walkingkooka.spreadsheet.engine.SpreadsheetDeltaProperties;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngine;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineContext;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineEvaluation;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineViewportSession;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetColumnReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetLabelMapping;
+import walkingkooka.spreadsheet.reference.SpreadsheetLabelName;
+import walkingkooka.spreadsheet.reference.SpreadsheetRowReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+
+import java.io.Reader;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * A {@link SpreadsheetEngine} whose methods return immediately with a {@link CompletableFuture}, so a host never blocks
+ * a thread while a request is waiting or running. Requests that change a spreadsheet run one at a time in the order
+ * they were submitted, while requests for different spreadsheets may run at the same time. Requests that only load,
+ * such as {@link #loadCells(Set, SpreadsheetEngineEvaluation, Set, SpreadsheetEngineContext)}, never wait for earlier
+ * requests and may not see a change that has not yet completed.
+ * <br>
+ * When too many requests are pending the returned {@link CompletableFuture} fails with a
+ * {@link RejectedExecutionException}. Cancelling a {@link CompletableFuture} before its request starts skips the request,
+ * while a request that is already running remains pending until it finishes.
+ */
+public interface AsyncSpreadsheetEngine {
+
+    /**
+     * {@see SpreadsheetEngine#loadCells(SpreadsheetSelection, SpreadsheetEngineEvaluation, Set, SpreadsheetEngineContext)}
+     */
+    CompletableFuture<SpreadsheetDelta> loadCells(final SpreadsheetSelection selection,
+                                                  final SpreadsheetEngineEvaluation evaluation,
+                                                  final Set<SpreadsheetDeltaProperties> deltaProperties,
+                                                  final SpreadsheetEngineContext context);
+
+    /**
+     * {@see SpreadsheetEngine#saveCell(SpreadsheetCell, SpreadsheetEngineContext)}
+     */
+    CompletableFuture<SpreadsheetDelta> saveCell(final SpreadsheetCell cell,
+                                                 final SpreadsheetEngineContext context);
+
+    /**
+     * {@see SpreadsheetEngine#saveCells(Set, SpreadsheetEngineContext)}
+     */
+    CompletableFuture<SpreadsheetDelta> saveCells(final Set<SpreadsheetCell> cells,
+                                                  final SpreadsheetEngineContext context);
+
+    /**
+     * {@see SpreadsheetEngine#importCells(Reader, SpreadsheetCellReference, SpreadsheetEngineContext)}
+     */
+    CompletableFuture<SpreadsheetDelta> importCells(final Reader csv,
+                                                    final SpreadsheetCellReference home,
+                                                    final SpreadsheetEngineContext context);
+
+    /**
+     * {@see SpreadsheetEngine#deleteCells(SpreadsheetSelection, SpreadsheetEngineContext)}
+     */
+    CompletableFuture<SpreadsheetDelta> deleteCells(final SpreadsheetSelection cells,
+                                                    final SpreadsheetEngineContext context);
+
+    /**
+     * {@see SpreadsheetEngine#loadColumn(SpreadsheetColumnReference, SpreadsheetEngineContext)}
+     */
+    CompletableFuture<SpreadsheetDelta> loadColumn(final SpreadsheetColumnReference column,
+                                                   final SpreadsheetEngineContext context);
+
+    /**
+     * {@see SpreadsheetEngine#saveColumn(SpreadsheetColumn, SpreadsheetEngineContext)}
+     */
+    CompletableFuture<SpreadsheetDelta> saveColumn(final SpreadsheetColumn column,
+                                                   final SpreadsheetEngineContext context);
+
+    /**
+     * {@see SpreadsheetEngine#deleteColumns(SpreadsheetColumnReference, int, SpreadsheetEngineContext)}
+     */
+    CompletableFuture<SpreadsheetDelta> deleteColumns(final SpreadsheetColumnReference column,
+                                                      final int count,
+                                                      final SpreadsheetEngineContext context);
+
+    /**
+     * {@see SpreadsheetEngine#loadRow(SpreadsheetRowReference, SpreadsheetEngineContext)}
+     */
+    CompletableFuture<SpreadsheetDelta> loadRow(final SpreadsheetRowReference row,
+                                                final SpreadsheetEngineContext context);
+
+    /**
+     * {@see SpreadsheetEngine#saveRow(SpreadsheetRow, SpreadsheetEngineContext)}
+     */
+    CompletableFuture<SpreadsheetDelta> saveRow(final SpreadsheetRow row,
+                                                final SpreadsheetEngineContext context);
+
+    /**
+     * {@see SpreadsheetEngine#deleteRows(SpreadsheetRowReference, int, SpreadsheetEngineContext)}
+     */
+    CompletableFuture<SpreadsheetDelta> deleteRows(final SpreadsheetRowReference row,
+                                                   final int count,
+                                                   final SpreadsheetEngineContext context);
+
+    /**
+     * {@see SpreadsheetEngine#insertColumns(SpreadsheetColumnReference, int, SpreadsheetEngineContext)}
+     */
+    CompletableFuture<SpreadsheetDelta> insertColumns(final SpreadsheetColumnReference column,
+                                                      final int count,
+                                                      final SpreadsheetEngineContext context);
+
+    /**
+     * {@see SpreadsheetEngine#insertRows(SpreadsheetRowReference, int, SpreadsheetEngineContext)}
+     */
+    CompletableFuture<SpreadsheetDelta> insertRows(final SpreadsheetRowReference row,
+                                                   final int count,
+                                                   final SpreadsheetEngineContext context);
+
+    /**
+     * {@see SpreadsheetEngine#loadCells(Set, SpreadsheetEngineEvaluation, Set, SpreadsheetEngineContext)}
+     */
+    CompletableFuture<SpreadsheetDelta> loadCells(final Set<SpreadsheetCellRange> ranges,
+                                                  final SpreadsheetEngineEvaluation evaluation,
+                                                  final Set<SpreadsheetDeltaProperties> deltaProperties,
+                                                  final SpreadsheetEngineContext context);
+
+    /**
+     * {@see SpreadsheetEngine#refreshVolatileCells(SpreadsheetEngineContext)}
+     */
+    CompletableFuture<SpreadsheetDelta> refreshVolatileCells(final SpreadsheetEngineContext context);
+
+    /**
+     * {@see SpreadsheetEngine#fillCells(Collection, SpreadsheetCellRange, SpreadsheetCellRange, SpreadsheetEngineContext)}
+     */
+    CompletableFuture<SpreadsheetDelta> fillCells(final Collection<SpreadsheetCell> cells,
+                                                  final SpreadsheetCellRange from,
+                                                  final SpreadsheetCellRange to,
+                                                  final SpreadsheetEngineContext context);
+
+    /**
+     * {@see SpreadsheetEngine#saveLabel(SpreadsheetLabelMapping, SpreadsheetEngineContext)}
+     */
+    CompletableFuture<SpreadsheetDelta> saveLabel(final SpreadsheetLabelMapping mapping,
+                                                  final SpreadsheetEngineContext context);
+
+    /**
+     * {@see SpreadsheetEngine#removeLabel(SpreadsheetLabelName, SpreadsheetEngineContext)}
+     */
+    CompletableFuture<SpreadsheetDelta> removeLabel(final SpreadsheetLabelName label,
+                                                    final SpreadsheetEngineContext context);
+
+    /**
+     * Creates a {@link SpreadsheetEngineViewportSession} for a single client viewport, which should only be loaded using
+     * {@link #loadViewport(SpreadsheetEngineViewportSession, Set, SpreadsheetEngineEvaluation, Set, SpreadsheetEngineContext)}.
+     */
+    SpreadsheetEngineViewportSession viewportSession();
+
+    /**
+     * Loads the window of a client viewport using its {@link SpreadsheetEngineViewportSession}. Any earlier load for the
+     * same session that has not yet completed is superseded and cancelled, a superseded load that has not started is
+     * skipped, and one that is already running resets the session when it completes so the next load returns the
+     * entire window.
+     */
+    CompletableFuture<SpreadsheetDelta> loadViewport(final SpreadsheetEngineViewportSession session,
+                                                     final Set<SpreadsheetCellRange> window,
+                                                     final SpreadsheetEngineEvaluation evaluation,
+                                                     final Set<SpreadsheetDeltaProperties> deltaProperties,
+                                                     final SpreadsheetEngineContext context);
+
+    /**
+     * Submits any other request that only reads, such as {@link SpreadsheetEngine#window(walkingkooka.spreadsheet.SpreadsheetViewport, boolean, java.util.Optional, SpreadsheetEngineContext)},
+     * which runs without waiting for earlier requests for the same spreadsheet.
+     */
+    <T> CompletableFuture<T> read(final Function<SpreadsheetEngine, T> request,
+                                  final SpreadsheetEngineContext context);
+
+    /**
+     * Submits any other request, which runs in order with all other changes for the same spreadsheet.
+     */
+    <T> CompletableFuture<T> submit(final Function<SpreadsheetEngine, T> request,
+                                    final SpreadsheetEngineContext context);
+}
@@ -0,0 +1,457 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine.concurrent;
+
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.SpreadsheetColumn;
+import walkingkooka.spreadsheet.SpreadsheetId;
+import walkingkooka.spreadsheet.SpreadsheetRow;
+import walkingkooka.spreadsheet.engine.SpreadsheetDelta;
+import walkingkooka.spreadsheet.engine.SpreadsheetDeltaProperties;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngine;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineContext;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineEvaluation;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineViewportSession;
+import walkingkooka.spreadsheet.meta.SpreadsheetMetadataPropertyName;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetColumnReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetLabelMapping;
+import walkingkooka.spreadsheet.reference.SpreadsheetLabelName;
+import walkingkooka.spreadsheet.reference.SpreadsheetRowReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+
+import java.io.Reader;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * An {@link AsyncSpreadsheetEngine} that runs requests using an {@link Executor}, such as one creating a virtual thread
+ * for each task where available, keeping a queue for each {@link SpreadsheetId} so writes for the same spreadsheet
+ * run one at a time in the order submitted. Loads are not queued behind writes and run as soon as the {@link Executor}
+ * allows, except loads for the same {@link SpreadsheetEngineViewportSession} which run in order.
+ * <br>
+ * At most <code>maxPending</code> requests may be waiting or running at any time, further requests fail immediately
+ * with a {@link RejectedExecutionException}.
+ * <br>
+ * The wrapped {@link SpreadsheetEngine} should be a {@link LockingSpreadsheetEngine}, so that loads running at the same
+ * time as a write read a {@link VersionedSpreadsheetCellStore} snapshot or wait for the write lock.
+ */
+final class BasicAsyncSpreadsheetEngine implements AsyncSpreadsheetEngine {
+
+    static BasicAsyncSpreadsheetEngine with(final SpreadsheetEngine engine,
+                                            final Executor executor,
+                                            final int maxPending) {
+        Objects.requireNonNull(engine, "engine");
+        Objects.requireNonNull(executor, "executor");
+        if (maxPending <= 0) {
+            throw new IllegalArgumentException("Invalid max pending " + maxPending + " <= 0");
+        }
+
+        return new BasicAsyncSpreadsheetEngine(
+                engine,
+                executor,
+                maxPending
+        );
+    }
+
+    private BasicAsyncSpreadsheetEngine(final SpreadsheetEngine engine,
+                                        final Executor executor,
+                                        final int maxPending) {
+        super();
+        this.engine = engine;
+        this.executor = executor;
+        this.maxPending = maxPending;
+        this.pending = new Semaphore(maxPending);
+    }
+
+    @Override
+    public CompletableFuture<SpreadsheetDelta> loadCells(final SpreadsheetSelection selection,
+                                                         final SpreadsheetEngineEvaluation evaluation,
+                                                         final Set<SpreadsheetDeltaProperties> deltaProperties,
+                                                         final SpreadsheetEngineContext context) {
+        return this.read(
+                (e) -> e.loadCells(
+                        selection,
+                        evaluation,
+                        deltaProperties,
+                        context
+                ),
+                context
+        );
+    }
+
+    @Override
+    public CompletableFuture<SpreadsheetDelta> saveCell(final SpreadsheetCell cell,
+                                                        final SpreadsheetEngineContext context) {
+        return this.submit(
+                (e) -> e.saveCell(cell, context),
+                context
+        );
+    }
+
+    @Override
+    public CompletableFuture<SpreadsheetDelta> saveCells(final Set<SpreadsheetCell> cells,
+                                                         final SpreadsheetEngineContext context) {
+        return this.submit(
+                (e) -> e.saveCells(cells, context),
+                context
+        );
+    }
+
+    @Override
+    public CompletableFuture<SpreadsheetDelta> importCells(final Reader csv,
+                                                           final SpreadsheetCellReference home,
+                                                           final SpreadsheetEngineContext context) {
+        return this.submit(
+                (e) -> e.importCells(csv, home, context),
+                context
+        );
+    }
+
+    @Override
+    public CompletableFuture<SpreadsheetDelta> deleteCells(final SpreadsheetSelection cells,
+                                                           final SpreadsheetEngineContext context) {
+        return this.submit(
+                (e) -> e.deleteCells(cells, context),
+                context
+        );
+    }
+
+    @Override
+    public CompletableFuture<SpreadsheetDelta> loadColumn(final SpreadsheetColumnReference column,
+                                                          final SpreadsheetEngineContext context) {
+        return this.read(
+                (e) -> e.loadColumn(column, context),
+                context
+        );
+    }
+
+    @Override
+    public CompletableFuture<SpreadsheetDelta> saveColumn(final SpreadsheetColumn column,
+                                                          final SpreadsheetEngineContext context) {
+        return this.submit(
+                (e) -> e.saveColumn(column, context),
+                context
+        );
+    }
+
+    @Override
+    public CompletableFuture<SpreadsheetDelta> deleteColumns(final SpreadsheetColumnReference column,
+                                                             final int count,
+                                                             final SpreadsheetEngineContext context) {
+        return this.submit(
+                (e) -> e.deleteColumns(column, count, context),
+                context
+        );
+    }
+
+    @Override
+    public CompletableFuture<SpreadsheetDelta> loadRow(final SpreadsheetRowReference row,
+                                                       final SpreadsheetEngineContext context) {
+        return this.read(
+                (e) -> e.loadRow(row, context),
+                context
+        );
+    }
+
+    @Override
+    public CompletableFuture<SpreadsheetDelta> saveRow(final SpreadsheetRow row,
+                                                       final SpreadsheetEngineContext context) {
+        return this.submit(
+                (e) -> e.saveRow(row, context),
+                context
+        );
+    }
+
+    @Override
+    public CompletableFuture<SpreadsheetDelta> deleteRows(final SpreadsheetRowReference row,
+                                                          final int count,
+                                                          final SpreadsheetEngineContext context) {
+        return this.submit(
+                (e) -> e.deleteRows(row, count, context),
+                context
+        );
+    }
+
+    @Override
+    public CompletableFuture<SpreadsheetDelta> insertColumns(final SpreadsheetColumnReference column,
+                                                             final int count,
+                                                             final SpreadsheetEngineContext context) {
+        return this.submit(
+                (e) -> e.insertColumns(column, count, context),
+                context
+        );
+    }
+
+    @Override
+    public CompletableFuture<SpreadsheetDelta> insertRows(final SpreadsheetRowReference row,
+                                                          final int count,
+                                                          final SpreadsheetEngineContext context) {
+        return this.submit(
+                (e) -> e.insertRows(row, count, context),
+                context
+        );
+    }
+
+    @Override
+    public CompletableFuture<SpreadsheetDelta> loadCells(final Set<SpreadsheetCellRange> ranges,
+                                                         final SpreadsheetEngineEvaluation evaluation,
+                                                         final Set<SpreadsheetDeltaProperties> deltaProperties,
+                                                         final SpreadsheetEngineContext context) {
+        return this.read(
+                (e) -> e.loadCells(
+                        ranges,
+                        evaluation,
+                        deltaProperties,
+                        context
+                ),
+                context
+        );
+    }
+
+    @Override
+    public CompletableFuture<SpreadsheetDelta> refreshVolatileCells(final SpreadsheetEngineContext context) {
+        return this.submit(
+                (e) -> e.refreshVolatileCells(context),
+                context
+        );
+    }
+
+    @Override
+    public CompletableFuture<SpreadsheetDelta> fillCells(final Collection<SpreadsheetCell> cells,
+                                                         final SpreadsheetCellRange from,
+                                                         final SpreadsheetCellRange to,
+                                                         final SpreadsheetEngineContext context) {
+        return this.submit(
+                (e) -> e.fillCells(cells, from, to, context),
+                context
+        );
+    }
+
+    @Override
+    public CompletableFuture<SpreadsheetDelta> saveLabel(final SpreadsheetLabelMapping mapping,
+                                                         final SpreadsheetEngineContext context) {
+        return this.submit(
+                (e) -> e.saveLabel(mapping, context),
+                context
+        );
+    }
+
+    @Override
+    public CompletableFuture<SpreadsheetDelta> removeLabel(final SpreadsheetLabelName label,
+                                                           final SpreadsheetEngineContext context) {
+        return this.submit(
+                (e) -> e.removeLabel(label, context),
+                context
+        );
+    }
+
+    // viewport.........................................................................................................
+
+    @Override
+    public SpreadsheetEngineViewportSession viewportSession() {
+        return SpreadsheetEngineViewportSession.with(this.engine);
+    }
+
+    @Override
+    public CompletableFuture<SpreadsheetDelta> loadViewport(final SpreadsheetEngineViewportSession session,
+                                                            final Set<SpreadsheetCellRange> window,
+                                                            final SpreadsheetEngineEvaluation evaluation,
+                                                            final Set<SpreadsheetDeltaProperties> deltaProperties,
+                                                            final SpreadsheetEngineContext context) {
+        Objects.requireNonNull(session, "session");
+
+        // loads for the same session run in order, so each load returns the changes since the window of the previous.
+        final CompletableFuture<SpreadsheetDelta> future = this.submit(
+                session,
+                (e) -> session.loadCells(
+                        window,
+                        evaluation,
+                        deltaProperties,
+                        context
+                ),
+                session::reset,
+                context
+        );
+
+        // a rejected load does not supersede the previous load.
+        if (false == future.isCompletedExceptionally()) {
+            final CompletableFuture<SpreadsheetDelta> superseded = this.viewportLoads.put(
+                    session,
+                    future
+            );
+            if (null != superseded) {
+                superseded.cancel(false);
+            }
+            future.whenComplete(
+                    (r, e) -> this.viewportLoads.remove(session, future)
+            );
+        }
+
+        return future;
+    }
+
+    /**
+     * The latest load for each {@link SpreadsheetEngineViewportSession} that has not yet completed.
+     */
+    private final ConcurrentMap<SpreadsheetEngineViewportSession, CompletableFuture<SpreadsheetDelta>> viewportLoads = new ConcurrentHashMap<>();
+
+    // submit...........................................................................................................
+
+    @Override
+    public <T> CompletableFuture<T> read(final Function<SpreadsheetEngine, T> request,
+                                         final SpreadsheetEngineContext context) {
+        return this.submit(
+                null,
+                request,
+                NOTHING,
+                context
+        );
+    }
+
+    @Override
+    public <T> CompletableFuture<T> submit(final Function<SpreadsheetEngine, T> request,
+                                           final SpreadsheetEngineContext context) {
+        return this.submit(
+                spreadsheetId(context),
+                request,
+                NOTHING,
+                context
+        );
+    }
+
+    private final static Runnable NOTHING = () -> {
+    };
+
+    /**
+     * Queues the request after all earlier requests with the same queue, which is the {@link SpreadsheetId} for writes,
+     * the {@link SpreadsheetEngineViewportSession} for viewport loads and null for loads that run immediately. The
+     * <code>discarded</code> is run if the request completes after its {@link CompletableFuture} was cancelled. The
+     * pending permit is released when the request has finished running or was skipped, and not when its
+     * {@link CompletableFuture} is cancelled, so cancelled requests that are still running count towards
+     * <code>maxPending</code>.
+     */
+    private <T> CompletableFuture<T> submit(final Object queue,
+                                            final Function<SpreadsheetEngine, T> request,
+                                            final Runnable discarded,
+                                            final SpreadsheetEngineContext context) {
+        Objects.requireNonNull(request, "request");
+        spreadsheetId(context);
+
+        final CompletableFuture<T> future = new CompletableFuture<>();
+
+        if (this.pending.tryAcquire()) {
+            // each request waits for the previous request of the same queue to complete
+            final CompletableFuture<Void> done = null != queue ?
+                    new CompletableFuture<>() :
+                    null;
+            final CompletableFuture<Void> previous = null != queue ?
+                    this.queues.put(queue, done) :
+                    null;
+
+            (null != previous ? previous : DONE)
+                    .thenRunAsync(
+                            () -> this.run(request, discarded, future),
+                            this.executor
+                    ).whenComplete(
+                            (r, e) -> {
+                                if (null != e) {
+                                    // the executor rejected the request
+                                    future.completeExceptionally(e);
+                                }
+                                if (null != queue) {
+                                    this.queues.remove(queue, done);
+                                    done.complete(null);
+                                }
+                                this.pending.release();
+                            }
+                    );
+        } else {
+            future.completeExceptionally(
+                    new RejectedExecutionException("Too many pending requests " + this.maxPending)
+            );
+        }
+
+        return future;
+    }
+
+    private final static CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    /**
+     * Runs the request unless its {@link CompletableFuture} was cancelled before it started.
+     */
+    private <T> void run(final Function<SpreadsheetEngine, T> request,
+                         final Runnable discarded,
+                         final CompletableFuture<T> future) {
+        if (false == future.isDone()) {
+            try {
+                if (false == future.complete(request.apply(this.engine))) {
+                    discarded.run();
+                }
+            } catch (final Throwable cause) {
+                future.completeExceptionally(cause);
+            }
+        }
+    }
+
+    private static SpreadsheetId spreadsheetId(final SpreadsheetEngineContext context) {
+        Objects.requireNonNull(context, "context");
+
+        return context.metadata()
+                .id()
+                .orElseThrow(() -> new IllegalStateException("Missing " + SpreadsheetMetadataPropertyName.SPREADSHEET_ID));
+    }
+
+    /**
+     * Completes when the last queued request for each {@link SpreadsheetId} or {@link SpreadsheetEngineViewportSession}
+     * completes, removed when no other request follows.
+     */
+    private final ConcurrentMap<Object, CompletableFuture<Void>> queues = new ConcurrentHashMap<>();
+
+    /**
+     * The number of requests waiting or running, including cancelled requests that are still running.
+     */
+    // @VisibleForTesting
+    int pending() {
+        return this.maxPending - this.pending.availablePermits();
+    }
+
+    private final Semaphore pending;
+
+    private final int maxPending;
+
+    private final SpreadsheetEngine engine;
+
+    private final Executor executor;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.engine + " pending=" + this.pending();
+    }
+}
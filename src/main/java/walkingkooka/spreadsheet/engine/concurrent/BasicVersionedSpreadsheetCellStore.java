@@ -0,0 +1,584 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine.concurrent;
+
+import walkingkooka.collect.list.Lists;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetColumnReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetRowReference;
+import walkingkooka.store.Store;
+import walkingkooka.store.Watchers;
+import walkingkooka.tree.text.Length;
+import walkingkooka.tree.text.PixelLength;
+import walkingkooka.tree.text.TextStylePropertyName;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A {@link VersionedSpreadsheetCellStore} that holds a chain of {@link BasicVersionedSpreadsheetCellStoreVersion} for
+ * each cell in a {@link ConcurrentSkipListMap}. All saves and deletes by the writer belong to the pending version,
+ * which is one more than the published version, and {@link #publish()} simply makes the pending version the published
+ * version, while {@link #discard()} restores the previous version of every cell changed since. Versions that are no
+ * longer readable by the published version or any open snapshot, including deletes, are pruned when the writer saves,
+ * deletes or publishes, and when the oldest snapshot is closed.
+ * <br>
+ * Only a single writer may save and delete cells at any time, many threads may read snapshots. A thread inside
+ * {@link BasicVersionedSpreadsheetCellStoreSnapshot#read(Supplier)} reads this store at the version of the snapshot,
+ * and watchers added by that thread are never fired.
+ */
+final class BasicVersionedSpreadsheetCellStore implements VersionedSpreadsheetCellStore {
+
+    /**
+     * Reads the latest cells including unpublished changes.
+     */
+    private final static long LATEST = Long.MAX_VALUE;
+
+    static BasicVersionedSpreadsheetCellStore create() {
+        return new BasicVersionedSpreadsheetCellStore();
+    }
+
+    private BasicVersionedSpreadsheetCellStore() {
+        super();
+    }
+
+    // VersionedSpreadsheetCellStore....................................................................................
+
+    @Override
+    public VersionedSpreadsheetCellStoreSnapshot snapshot() {
+        final long version;
+
+        synchronized (this.snapshots) {
+            version = this.published;
+            this.snapshots.merge(version, 1, Integer::sum);
+        }
+
+        return BasicVersionedSpreadsheetCellStoreSnapshot.with(
+                version,
+                this
+        );
+    }
+
+    /**
+     * Called by {@link BasicVersionedSpreadsheetCellStoreSnapshot#close()}, pruning versions only needed by the closed
+     * snapshot if it was the oldest.
+     */
+    void closeSnapshot(final long version) {
+        final boolean oldest;
+
+        synchronized (this.snapshots) {
+            final Integer count = this.snapshots.get(version);
+            if (null == count) {
+                throw new IllegalStateException("Snapshot " + version + " already closed");
+            }
+            if (1 == count) {
+                oldest = version == this.snapshots.firstKey();
+                this.snapshots.remove(version);
+            } else {
+                oldest = false;
+                this.snapshots.put(version, count - 1);
+            }
+        }
+
+        if (oldest) {
+            this.prune();
+        }
+    }
+
+    /**
+     * The oldest version that must remain readable, either the oldest open snapshot or the published version.
+     */
+    private long oldest() {
+        synchronized (this.snapshots) {
+            return this.snapshots.isEmpty() ?
+                    this.published :
+                    this.snapshots.firstKey();
+        }
+    }
+
+    /**
+     * The number of open snapshots for each version.
+     */
+    private final TreeMap<Long, Integer> snapshots = new TreeMap<>();
+
+    @Override
+    public void publish() {
+        this.pendingCells.clear();
+        this.published = this.pending();
+        this.prune();
+    }
+
+    @Override
+    public void discard() {
+        final long pending = this.pending();
+
+        for (final SpreadsheetCellReference reference : this.pendingCells) {
+            this.cells.computeIfPresent(
+                    reference,
+                    (r, versions) -> versions.version == pending ?
+                            versions.previous :
+                            versions
+            );
+            this.updateImpureCells(
+                    reference,
+                    this.load(reference, LATEST)
+                            .orElse(null)
+            );
+        }
+        this.pendingCells.clear();
+        this.prune();
+    }
+
+    private long pending() {
+        return this.published + 1;
+    }
+
+    /**
+     * The latest version visible to new snapshots.
+     */
+    // @VisibleForTesting
+    volatile long published;
+
+    /**
+     * The cells saved or deleted in the pending version, only accessed by the writer.
+     */
+    private final Set<SpreadsheetCellReference> pendingCells = Sets.hash();
+
+    /**
+     * Prunes every cell with more than one version or a delete, keeping only versions readable by the published version
+     * or an open snapshot.
+     */
+    private void prune() {
+        final long oldest = this.oldest();
+        final ConcurrentNavigableMap<SpreadsheetCellReference, BasicVersionedSpreadsheetCellStoreVersion> cells = this.cells;
+        final Set<SpreadsheetCellReference> prunable = this.prunable;
+
+        for (final SpreadsheetCellReference reference : prunable) {
+            final BasicVersionedSpreadsheetCellStoreVersion versions = cells.computeIfPresent(
+                    reference,
+                    (r, v) -> v.prune(oldest)
+            );
+            if (false == isPrunable(versions)) {
+                prunable.remove(reference);
+
+                // the writer may have added another version after pruning
+                if (isPrunable(cells.get(reference))) {
+                    prunable.add(reference);
+                }
+            }
+        }
+    }
+
+    private static boolean isPrunable(final BasicVersionedSpreadsheetCellStoreVersion versions) {
+        return null != versions &&
+                (null != versions.previous || null == versions.cell);
+    }
+
+    /**
+     * The cells that have more than one version or a delete, which may be pruned.
+     */
+    private final Set<SpreadsheetCellReference> prunable = ConcurrentHashMap.newKeySet();
+
+    // reader...........................................................................................................
+
+    /**
+     * Called by {@link BasicVersionedSpreadsheetCellStoreSnapshot#read(Supplier)}.
+     */
+    <T> Optional<T> read(final long version,
+                         final Supplier<T> reader) {
+        Objects.requireNonNull(reader, "reader");
+
+        final ThreadLocal<BasicVersionedSpreadsheetCellStoreReader> readers = this.readers;
+        final BasicVersionedSpreadsheetCellStoreReader previous = readers.get();
+        final BasicVersionedSpreadsheetCellStoreReader current = BasicVersionedSpreadsheetCellStoreReader.with(version);
+
+        readers.set(current);
+        try {
+            final T result = reader.get();
+            return current.rejected ?
+                    Optional.empty() :
+                    Optional.ofNullable(result);
+        } catch (final RuntimeException cause) {
+            if (current.rejected) {
+                return Optional.empty();
+            }
+            throw cause;
+        } finally {
+            if (null != previous) {
+                readers.set(previous);
+            } else {
+                readers.remove();
+            }
+        }
+    }
+
+    /**
+     * The version read by the current thread, which is the latest unless inside
+     * {@link BasicVersionedSpreadsheetCellStoreSnapshot#read(Supplier)}.
+     */
+    private long version() {
+        final BasicVersionedSpreadsheetCellStoreReader reader = this.readers.get();
+        return null != reader ?
+                reader.version :
+                LATEST;
+    }
+
+    /**
+     * Fails if the current thread is inside {@link BasicVersionedSpreadsheetCellStoreSnapshot#read(Supplier)},
+     * recording the rejected write even if the reader catches the failure.
+     */
+    private void checkWritable() {
+        final BasicVersionedSpreadsheetCellStoreReader reader = this.readers.get();
+        if (null != reader) {
+            reader.rejected = true;
+            throw new IllegalStateException("Cells are read only");
+        }
+    }
+
+    private final ThreadLocal<BasicVersionedSpreadsheetCellStoreReader> readers = new ThreadLocal<>();
+
+    // SpreadsheetCellStore.............................................................................................
+
+    @Override
+    public Optional<SpreadsheetCell> load(final SpreadsheetCellReference id) {
+        return this.load(id, this.version());
+    }
+
+    Optional<SpreadsheetCell> load(final SpreadsheetCellReference id,
+                                   final long version) {
+        Objects.requireNonNull(id, "id");
+
+        final BasicVersionedSpreadsheetCellStoreVersion versions = this.cells.get(id);
+        return Optional.ofNullable(
+                null != versions ?
+                        versions.cell(version) :
+                        null
+        );
+    }
+
+    @Override
+    public SpreadsheetCell save(final SpreadsheetCell cell) {
+        Objects.requireNonNull(cell, "cell");
+        this.checkWritable();
+
+        final SpreadsheetCellReference reference = cell.reference();
+        this.write(reference, cell);
+        this.updateImpureCells(reference, cell);
+        this.saveWatchers.accept(cell);
+
+        return cell;
+    }
+
+    @Override
+    public Runnable addSaveWatcher(final Consumer<SpreadsheetCell> saved) {
+        Objects.requireNonNull(saved, "saved");
+
+        return null != this.readers.get() ?
+                NO_WATCHER :
+                this.saveWatchers.addWatcher(saved);
+    }
+
+    private final Watchers<SpreadsheetCell> saveWatchers = Watchers.create();
+
+    @Override
+    public void delete(final SpreadsheetCellReference id) {
+        Objects.requireNonNull(id, "id");
+        this.checkWritable();
+
+        if (this.load(id).isPresent()) {
+            this.write(id, null);
+            this.impureCells.remove(id);
+            this.deleteWatchers.accept(id);
+        }
+    }
+
+    @Override
+    public Runnable addDeleteWatcher(final Consumer<SpreadsheetCellReference> deleted) {
+        Objects.requireNonNull(deleted, "deleted");
+
+        return null != this.readers.get() ?
+                NO_WATCHER :
+                this.deleteWatchers.addWatcher(deleted);
+    }
+
+    private final Watchers<SpreadsheetCellReference> deleteWatchers = Watchers.create();
+
+    /**
+     * Returned to threads reading a snapshot, whose watchers are never fired.
+     */
+    private final static Runnable NO_WATCHER = () -> {
+    };
+
+    /**
+     * Adds or replaces the pending version of the cell, a null cell records a delete.
+     */
+    private void write(final SpreadsheetCellReference reference,
+                       final SpreadsheetCell cell) {
+        final long pending = this.pending();
+        final long oldest = this.oldest();
+
+        final BasicVersionedSpreadsheetCellStoreVersion versions = this.cells.compute(
+                reference,
+                (r, head) -> BasicVersionedSpreadsheetCellStoreVersion.with(
+                        pending,
+                        cell,
+                        null != head && head.version == pending ?
+                                head.previous :
+                                head
+                ).prune(oldest)
+        );
+
+        this.pendingCells.add(reference);
+        if (isPrunable(versions)) {
+            this.prunable.add(reference);
+        }
+    }
+
+    @Override
+    public int count() {
+        return this.count(this.version());
+    }
+
+    int count(final long version) {
+        return (int) this.cells(version)
+                .count();
+    }
+
+    @Override
+    public Set<SpreadsheetCellReference> ids(final int from,
+                                             final int count) {
+        return this.ids(from, count, this.version());
+    }
+
+    Set<SpreadsheetCellReference> ids(final int from,
+                                      final int count,
+                                      final long version) {
+        Store.checkFromAndTo(from, count);
+
+        return this.cells(version)
+                .skip(from)
+                .limit(count)
+                .map(SpreadsheetCell::reference)
+                .collect(Collectors.toCollection(Sets::ordered));
+    }
+
+    @Override
+    public List<SpreadsheetCell> values(final SpreadsheetCellReference from,
+                                        final int count) {
+        return this.values(from, count, this.version());
+    }
+
+    List<SpreadsheetCell> values(final SpreadsheetCellReference from,
+                                 final int count,
+                                 final long version) {
+        Store.checkFromAndToIds(from, count);
+
+        return this.cells(this.cells.tailMap(from), version)
+                .limit(count)
+                .collect(Collectors.toCollection(Lists::array));
+    }
+
+    @Override
+    public int rows() {
+        return this.rows(this.version());
+    }
+
+    int rows(final long version) {
+        return this.max(c -> c.reference().row().value(), version);
+    }
+
+    @Override
+    public int columns() {
+        return this.columns(this.version());
+    }
+
+    int columns(final long version) {
+        return this.max(c -> c.reference().column().value(), version);
+    }
+
+    private int max(final ToIntFunction<SpreadsheetCell> value,
+                    final long version) {
+        return this.cells(version)
+                .mapToInt(value)
+                .max()
+                .orElse(0);
+    }
+
+    @Override
+    public Set<SpreadsheetCell> row(final SpreadsheetRowReference row) {
+        return this.row(row, this.version());
+    }
+
+    Set<SpreadsheetCell> row(final SpreadsheetRowReference row,
+                             final long version) {
+        Objects.requireNonNull(row, "row");
+
+        return this.filter(c -> row.compareTo(c.reference().row()) == 0, version);
+    }
+
+    @Override
+    public Set<SpreadsheetCell> column(final SpreadsheetColumnReference column) {
+        return this.column(column, this.version());
+    }
+
+    Set<SpreadsheetCell> column(final SpreadsheetColumnReference column,
+                                final long version) {
+        Objects.requireNonNull(column, "column");
+
+        return this.filter(c -> column.compareTo(c.reference().column()) == 0, version);
+    }
+
+    private Set<SpreadsheetCell> filter(final Predicate<SpreadsheetCell> filter,
+                                        final long version) {
+        return this.cells(version)
+                .filter(filter)
+                .collect(Collectors.toCollection(Sets::sorted));
+    }
+
+    @Override
+    public double maxColumnWidth(final SpreadsheetColumnReference column) {
+        return this.maxColumnWidth(column, this.version());
+    }
+
+    double maxColumnWidth(final SpreadsheetColumnReference column,
+                          final long version) {
+        Objects.requireNonNull(column, "column");
+
+        return this.max(
+                c -> c.reference().column().equalsIgnoreReferenceKind(column),
+                TextStylePropertyName.WIDTH,
+                version
+        );
+    }
+
+    @Override
+    public double maxRowHeight(final SpreadsheetRowReference row) {
+        return this.maxRowHeight(row, this.version());
+    }
+
+    /**
+     * The registry always holds the latest cells, it is updated by the writer and reverted by {@link #discard()}.
+     */
+    @Override
+    public Set<SpreadsheetCellReference> impureCells() {
+        final Set<SpreadsheetCellReference> impureCells = Sets.sorted();
+        impureCells.addAll(this.impureCells);
+        return Sets.readOnly(impureCells);
+    }
+
+    /**
+     * A null cell, which happens when a discarded save is reverted to a delete, is removed.
+     */
+    private void updateImpureCells(final SpreadsheetCellReference reference,
+                                   final SpreadsheetCell cell) {
+        if (null != cell && cell.formula().isImpure()) {
+            this.impureCells.add(reference);
+        } else {
+            this.impureCells.remove(reference);
+        }
+    }
+
+    /**
+     * The references of the latest cells whose formula was found to be impure when it was parsed, read by other threads.
+     */
+    private final Set<SpreadsheetCellReference> impureCells = ConcurrentHashMap.newKeySet();
+
+    double maxRowHeight(final SpreadsheetRowReference row,
+                        final long version) {
+        Objects.requireNonNull(row, "row");
+
+        return this.max(
+                c -> c.reference().row().equalsIgnoreReferenceKind(row),
+                TextStylePropertyName.HEIGHT,
+                version
+        );
+    }
+
+    private double max(final Predicate<SpreadsheetCell> filter,
+                       final TextStylePropertyName<Length<?>> property,
+                       final long version) {
+        return this.cells(version)
+                .filter(filter)
+                .mapToDouble(c -> {
+                    double pixels = 0;
+
+                    final Optional<Length<?>> length = c.style()
+                            .get(property);
+                    if (length.isPresent()) {
+                        final PixelLength pixelLength = (PixelLength) length.get();
+                        pixels = pixelLength.value();
+                    }
+
+                    return pixels;
+                })
+                .max()
+                .orElse(0.0);
+    }
+
+    /**
+     * Returns all cells visible at the given version in reference order.
+     */
+    private Stream<SpreadsheetCell> cells(final long version) {
+        return this.cells(this.cells, version);
+    }
+
+    private Stream<SpreadsheetCell> cells(final ConcurrentNavigableMap<SpreadsheetCellReference, BasicVersionedSpreadsheetCellStoreVersion> cells,
+                                          final long version) {
+        return cells.values()
+                .stream()
+                .map(v -> v.cell(version))
+                .filter(Objects::nonNull);
+    }
+
+    /**
+     * Returns all versions of the cell still held, or null.
+     */
+    // @VisibleForTesting
+    BasicVersionedSpreadsheetCellStoreVersion versions(final SpreadsheetCellReference reference) {
+        return this.cells.get(reference);
+    }
+
+    private final ConcurrentNavigableMap<SpreadsheetCellReference, BasicVersionedSpreadsheetCellStoreVersion> cells = new ConcurrentSkipListMap<>();
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.toString(this.version());
+    }
+
+    String toString(final long version) {
+        return this.cells(version)
+                .collect(Collectors.toList())
+                .toString();
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine.concurrent;
+
+/**
+ * Records the version read by a thread inside {@link BasicVersionedSpreadsheetCellStoreSnapshot#read(java.util.function.Supplier)},
+ * and whether that thread attempted to save or delete a cell.
+ */
+final class BasicVersionedSpreadsheetCellStoreReader {
+
+    static BasicVersionedSpreadsheetCellStoreReader with(final long version) {
+        return new BasicVersionedSpreadsheetCellStoreReader(version);
+    }
+
+    private BasicVersionedSpreadsheetCellStoreReader(final long version) {
+        super();
+        this.version = version;
+    }
+
+    /**
+     * The version read by the thread.
+     */
+    final long version;
+
+    /**
+     * Set when a save or delete was rejected, only ever accessed by the reading thread.
+     */
+    boolean rejected;
+
+    @Override
+    public String toString() {
+        return this.version + (this.rejected ? " rejected" : "");
+    }
+}
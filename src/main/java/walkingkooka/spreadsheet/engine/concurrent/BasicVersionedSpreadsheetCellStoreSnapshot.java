@@ -0,0 +1,177 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine.concurrent;
+
+import walkingkooka.collect.set.Sets;
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetColumnReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetRowReference;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A {@link VersionedSpreadsheetCellStoreSnapshot} that reads a {@link BasicVersionedSpreadsheetCellStore} at a single
+ * published version. Because the snapshot never changes, watchers are accepted but never fired.
+ */
+final class BasicVersionedSpreadsheetCellStoreSnapshot implements VersionedSpreadsheetCellStoreSnapshot {
+
+    static BasicVersionedSpreadsheetCellStoreSnapshot with(final long version,
+                                                           final BasicVersionedSpreadsheetCellStore store) {
+        return new BasicVersionedSpreadsheetCellStoreSnapshot(version, store);
+    }
+
+    private BasicVersionedSpreadsheetCellStoreSnapshot(final long version,
+                                                       final BasicVersionedSpreadsheetCellStore store) {
+        super();
+        this.version = version;
+        this.store = store;
+    }
+
+    @Override
+    public long version() {
+        return this.version;
+    }
+
+    private final long version;
+
+    @Override
+    public <T> Optional<T> read(final Supplier<T> reader) {
+        return this.store.read(this.version, reader);
+    }
+
+    @Override
+    public Optional<SpreadsheetCell> load(final SpreadsheetCellReference id) {
+        return this.store.load(id, this.version);
+    }
+
+    @Override
+    public SpreadsheetCell save(final SpreadsheetCell cell) {
+        Objects.requireNonNull(cell, "cell");
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Runnable addSaveWatcher(final Consumer<SpreadsheetCell> saved) {
+        Objects.requireNonNull(saved, "saved");
+        return NO_WATCHER;
+    }
+
+    @Override
+    public void delete(final SpreadsheetCellReference id) {
+        Objects.requireNonNull(id, "id");
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Runnable addDeleteWatcher(final Consumer<SpreadsheetCellReference> deleted) {
+        Objects.requireNonNull(deleted, "deleted");
+        return NO_WATCHER;
+    }
+
+    private final static Runnable NO_WATCHER = () -> {
+    };
+
+    @Override
+    public int count() {
+        return this.store.count(this.version);
+    }
+
+    @Override
+    public Set<SpreadsheetCellReference> ids(final int from,
+                                             final int count) {
+        return this.store.ids(from, count, this.version);
+    }
+
+    @Override
+    public List<SpreadsheetCell> values(final SpreadsheetCellReference from,
+                                        final int count) {
+        return this.store.values(from, count, this.version);
+    }
+
+    @Override
+    public int rows() {
+        return this.store.rows(this.version);
+    }
+
+    @Override
+    public int columns() {
+        return this.store.columns(this.version);
+    }
+
+    @Override
+    public Set<SpreadsheetCell> row(final SpreadsheetRowReference row) {
+        return this.store.row(row, this.version);
+    }
+
+    @Override
+    public Set<SpreadsheetCell> column(final SpreadsheetColumnReference column) {
+        return this.store.column(column, this.version);
+    }
+
+    @Override
+    public double maxColumnWidth(final SpreadsheetColumnReference column) {
+        return this.store.maxColumnWidth(column, this.version);
+    }
+
+    @Override
+    public double maxRowHeight(final SpreadsheetRowReference row) {
+        return this.store.maxRowHeight(row, this.version);
+    }
+
+    /**
+     * Snapshots are only read, so the registry of the latest cells is filtered by the cells visible to this snapshot.
+     */
+    @Override
+    public Set<SpreadsheetCellReference> impureCells() {
+        final Set<SpreadsheetCellReference> impureCells = Sets.sorted();
+
+        for (final SpreadsheetCellReference reference : this.store.impureCells()) {
+            final Optional<SpreadsheetCell> cell = this.load(reference);
+            if (cell.isPresent() && cell.get().formula().isImpure()) {
+                impureCells.add(reference);
+            }
+        }
+
+        return Sets.readOnly(impureCells);
+    }
+
+    @Override
+    public void close() {
+        if (false == this.closed) {
+            this.closed = true;
+            this.store.closeSnapshot(this.version);
+        }
+    }
+
+    private boolean closed;
+
+    private final BasicVersionedSpreadsheetCellStore store;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.store.toString(this.version);
+    }
+}
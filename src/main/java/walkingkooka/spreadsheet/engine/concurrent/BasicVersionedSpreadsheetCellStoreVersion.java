@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine.concurrent;
+
+import walkingkooka.spreadsheet.SpreadsheetCell;
+
+/**
+ * An immutable version of a single cell, linked to the previous version. A null cell records a delete. Versions are
+ * immutable so readers may walk them while the writer replaces the head.
+ */
+final class BasicVersionedSpreadsheetCellStoreVersion {
+
+    static BasicVersionedSpreadsheetCellStoreVersion with(final long version,
+                                                          final SpreadsheetCell cell,
+                                                          final BasicVersionedSpreadsheetCellStoreVersion previous) {
+        return new BasicVersionedSpreadsheetCellStoreVersion(version, cell, previous);
+    }
+
+    private BasicVersionedSpreadsheetCellStoreVersion(final long version,
+                                                      final SpreadsheetCell cell,
+                                                      final BasicVersionedSpreadsheetCellStoreVersion previous) {
+        super();
+        this.version = version;
+        this.cell = cell;
+        this.previous = previous;
+    }
+
+    /**
+     * Returns the cell visible at the given version or null if it did not exist or was deleted.
+     */
+    SpreadsheetCell cell(final long version) {
+        BasicVersionedSpreadsheetCellStoreVersion v = this;
+        while (null != v && v.version > version) {
+            v = v.previous;
+        }
+        return null != v ?
+                v.cell :
+                null;
+    }
+
+    /**
+     * Returns a copy without any versions that cannot be read by a snapshot at or after the oldest version. Null is
+     * returned if the cell is deleted in every remaining version.
+     */
+    BasicVersionedSpreadsheetCellStoreVersion prune(final long oldest) {
+        final BasicVersionedSpreadsheetCellStoreVersion pruned;
+
+        if (this.version <= oldest) {
+            pruned = null == this.cell ?
+                    null :
+                    null == this.previous ?
+                            this :
+                            with(this.version, this.cell, null);
+        } else {
+            final BasicVersionedSpreadsheetCellStoreVersion previous = this.previous;
+            final BasicVersionedSpreadsheetCellStoreVersion previousPruned = null != previous ?
+                    previous.prune(oldest) :
+                    null;
+            pruned = null == this.cell && null == previousPruned ?
+                    null :
+                    previous == previousPruned ?
+                            this :
+                            with(this.version, this.cell, previousPruned);
+        }
+
+        return pruned;
+    }
+
+    final long version;
+
+    /**
+     * The cell or null if it was deleted.
+     */
+    final SpreadsheetCell cell;
+
+    final BasicVersionedSpreadsheetCellStoreVersion previous;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        final StringBuilder b = new StringBuilder();
+
+        BasicVersionedSpreadsheetCellStoreVersion v = this;
+        String separator = "";
+        while (null != v) {
+            b.append(separator)
+                    .append(v.version)
+                    .append('=')
+                    .append(null != v.cell ? v.cell.formula().text() : "deleted");
+            separator = ", ";
+            v = v.previous;
+        }
+
+        return b.toString();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine.concurrent;
+
+import walkingkooka.reflect.PublicStaticHelper;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngine;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Contains many factory methods for {@link SpreadsheetEngine} implementations that may be shared by many threads.
+ * These are not available in javascript.
+ */
+public final class ConcurrentSpreadsheetEngines implements PublicStaticHelper {
+
+    /**
+     * {@see BasicAsyncSpreadsheetEngine}
+     */
+    public static AsyncSpreadsheetEngine async(final SpreadsheetEngine engine,
+                                               final Executor executor,
+                                               final int maxPending) {
+        return BasicAsyncSpreadsheetEngine.with(
+                engine,
+                executor,
+                maxPending
+        );
+    }
+
+    /**
+     * {@see LockingSpreadsheetEngine}
+     */
+    public static SpreadsheetEngine locking(final SpreadsheetEngine engine) {
+        return LockingSpreadsheetEngine.with(engine);
+    }
+
+    /**
+     * Stop creation
+     */
+    private ConcurrentSpreadsheetEngines() {
+        throw new UnsupportedOperationException();
+    }
+}
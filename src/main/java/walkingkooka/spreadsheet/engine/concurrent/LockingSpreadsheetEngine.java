@@ -0,0 +1,492 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine.concurrent;
+
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.SpreadsheetColumn;
+import walkingkooka.spreadsheet.SpreadsheetId;
+import walkingkooka.spreadsheet.SpreadsheetRow;
+import walkingkooka.spreadsheet.SpreadsheetViewport;
+import walkingkooka.spreadsheet.engine.SpreadsheetDelta;
+import walkingkooka.spreadsheet.engine.SpreadsheetDeltaProperties;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngine;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineContext;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineEvaluation;
+import walkingkooka.spreadsheet.meta.SpreadsheetMetadataPropertyName;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetColumnReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetLabelMapping;
+import walkingkooka.spreadsheet.reference.SpreadsheetLabelName;
+import walkingkooka.spreadsheet.reference.SpreadsheetRowReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+import walkingkooka.spreadsheet.reference.SpreadsheetViewportSelection;
+import walkingkooka.spreadsheet.store.SpreadsheetCellStore;
+
+import java.io.Reader;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Wraps a {@link SpreadsheetEngine} so it may be shared by many threads, with a {@link ReadWriteLock} for each
+ * {@link SpreadsheetId}. Requests for different spreadsheets never wait for each other, which requires each spreadsheet
+ * to have its own {@link walkingkooka.spreadsheet.store.repo.SpreadsheetStoreRepository}.
+ * <br>
+ * Methods that only read stores, such as {@link #window(SpreadsheetViewport, boolean, Optional, SpreadsheetEngineContext)},
+ * {@link #columnWidth(SpreadsheetColumnReference, SpreadsheetEngineContext)} and
+ * {@link #navigate(SpreadsheetViewportSelection, SpreadsheetEngineContext)} share the read lock, so many viewports
+ * may be computed at the same time. All other methods take the write lock.
+ * <br>
+ * The lock for a spreadsheet is removed when no thread is using or waiting for it, so spreadsheets that are no longer
+ * used do not keep a lock.
+ * <br>
+ * When the cells are held by a {@link VersionedSpreadsheetCellStore}, changes to cells are published when each write
+ * succeeds and discarded when it fails, so readers of a {@link VersionedSpreadsheetCellStore#snapshot()} never see a
+ * partial or failed write. Loading cells and computing a window then read a snapshot holding the read lock, so many
+ * loads may run at the same time, and loading is only performed again holding the write lock if a cell needed to be
+ * saved, such as a cell that was never evaluated. The read lock is still required because readers of a snapshot also
+ * read and watch the other stores of the repository, which are not versioned.
+ */
+final class LockingSpreadsheetEngine implements SpreadsheetEngine {
+
+    static LockingSpreadsheetEngine with(final SpreadsheetEngine engine) {
+        Objects.requireNonNull(engine, "engine");
+
+        return new LockingSpreadsheetEngine(engine);
+    }
+
+    private LockingSpreadsheetEngine(final SpreadsheetEngine engine) {
+        super();
+        this.engine = engine;
+    }
+
+    @Override
+    public SpreadsheetDelta loadCells(final SpreadsheetSelection selection,
+                                      final SpreadsheetEngineEvaluation evaluation,
+                                      final Set<SpreadsheetDeltaProperties> deltaProperties,
+                                      final SpreadsheetEngineContext context) {
+        return this.snapshotOrWrite(
+                () -> this.engine.loadCells(
+                        selection,
+                        evaluation,
+                        deltaProperties,
+                        context
+                ),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta saveCell(final SpreadsheetCell cell,
+                                     final SpreadsheetEngineContext context) {
+        return this.write(
+                () -> this.engine.saveCell(cell, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta saveCells(final Set<SpreadsheetCell> cells,
+                                      final SpreadsheetEngineContext context) {
+        return this.write(
+                () -> this.engine.saveCells(cells, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta importCells(final Reader csv,
+                                        final SpreadsheetCellReference home,
+                                        final SpreadsheetEngineContext context) {
+        return this.write(
+                () -> this.engine.importCells(csv, home, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta refreshVolatileCells(final SpreadsheetEngineContext context) {
+        return this.write(
+                () -> this.engine.refreshVolatileCells(context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta deleteCells(final SpreadsheetSelection cells,
+                                        final SpreadsheetEngineContext context) {
+        return this.write(
+                () -> this.engine.deleteCells(cells, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta loadColumn(final SpreadsheetColumnReference column,
+                                       final SpreadsheetEngineContext context) {
+        return this.read(
+                () -> this.engine.loadColumn(column, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta saveColumn(final SpreadsheetColumn column,
+                                       final SpreadsheetEngineContext context) {
+        return this.write(
+                () -> this.engine.saveColumn(column, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta deleteColumns(final SpreadsheetColumnReference column,
+                                          final int count,
+                                          final SpreadsheetEngineContext context) {
+        return this.write(
+                () -> this.engine.deleteColumns(column, count, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta loadRow(final SpreadsheetRowReference row,
+                                    final SpreadsheetEngineContext context) {
+        return this.read(
+                () -> this.engine.loadRow(row, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta saveRow(final SpreadsheetRow row,
+                                    final SpreadsheetEngineContext context) {
+        return this.write(
+                () -> this.engine.saveRow(row, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta deleteRows(final SpreadsheetRowReference row,
+                                       final int count,
+                                       final SpreadsheetEngineContext context) {
+        return this.write(
+                () -> this.engine.deleteRows(row, count, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta insertColumns(final SpreadsheetColumnReference column,
+                                          final int count,
+                                          final SpreadsheetEngineContext context) {
+        return this.write(
+                () -> this.engine.insertColumns(column, count, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta insertRows(final SpreadsheetRowReference row,
+                                       final int count,
+                                       final SpreadsheetEngineContext context) {
+        return this.write(
+                () -> this.engine.insertRows(row, count, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta loadCells(final Set<SpreadsheetCellRange> ranges,
+                                      final SpreadsheetEngineEvaluation evaluation,
+                                      final Set<SpreadsheetDeltaProperties> deltaProperties,
+                                      final SpreadsheetEngineContext context) {
+        return this.snapshotOrWrite(
+                () -> this.engine.loadCells(
+                        ranges,
+                        evaluation,
+                        deltaProperties,
+                        context
+                ),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta fillCells(final Collection<SpreadsheetCell> cells,
+                                      final SpreadsheetCellRange from,
+                                      final SpreadsheetCellRange to,
+                                      final SpreadsheetEngineContext context) {
+        return this.write(
+                () -> this.engine.fillCells(cells, from, to, context),
+                context
+        );
+    }
+
+    @Override
+    public Set<SpreadsheetCellReference> validate(final SpreadsheetCellRange range,
+                                                  final SpreadsheetEngineContext context) {
+        return this.read(
+                () -> this.engine.validate(range, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta saveLabel(final SpreadsheetLabelMapping mapping,
+                                      final SpreadsheetEngineContext context) {
+        return this.write(
+                () -> this.engine.saveLabel(mapping, context),
+                context
+        );
+    }
+
+    @Override
+    public SpreadsheetDelta removeLabel(final SpreadsheetLabelName label,
+                                        final SpreadsheetEngineContext context) {
+        return this.write(
+                () -> this.engine.removeLabel(label, context),
+                context
+        );
+    }
+
+    @Override
+    public Optional<SpreadsheetLabelMapping> loadLabel(final SpreadsheetLabelName label,
+                                                       final SpreadsheetEngineContext context) {
+        return this.read(
+                () -> this.engine.loadLabel(label, context),
+                context
+        );
+    }
+
+    @Override
+    public double columnWidth(final SpreadsheetColumnReference column,
+                              final SpreadsheetEngineContext context) {
+        return this.read(
+                () -> this.engine.columnWidth(column, context),
+                context
+        );
+    }
+
+    @Override
+    public double rowHeight(final SpreadsheetRowReference row,
+                            final SpreadsheetEngineContext context) {
+        return this.read(
+                () -> this.engine.rowHeight(row, context),
+                context
+        );
+    }
+
+    @Override
+    public Set<SpreadsheetCellRange> window(final SpreadsheetViewport viewport,
+                                            final boolean includeFrozenColumnsRows,
+                                            final Optional<SpreadsheetSelection> selection,
+                                            final SpreadsheetEngineContext context) {
+        return this.snapshotOrRead(
+                () -> this.engine.window(
+                        viewport,
+                        includeFrozenColumnsRows,
+                        selection,
+                        context
+                ),
+                context
+        );
+    }
+
+    @Override
+    public Optional<SpreadsheetViewportSelection> navigate(final SpreadsheetViewportSelection selection,
+                                                           final SpreadsheetEngineContext context) {
+        return this.read(
+                () -> this.engine.navigate(selection, context),
+                context
+        );
+    }
+
+    private final SpreadsheetEngine engine;
+
+    // locking..........................................................................................................
+
+    private <T> T read(final Supplier<T> action,
+                       final SpreadsheetEngineContext context) {
+        return this.locked(
+                action,
+                ReadWriteLock::readLock,
+                context
+        );
+    }
+
+    /**
+     * When the cells are a {@link VersionedSpreadsheetCellStore} the action reads a snapshot holding the read lock,
+     * otherwise it is performed holding the read lock.
+     */
+    private <T> T snapshotOrRead(final Supplier<T> action,
+                                 final SpreadsheetEngineContext context) {
+        return this.snapshot(
+                action,
+                context,
+                () -> this.read(action, context)
+        );
+    }
+
+    /**
+     * When the cells are a {@link VersionedSpreadsheetCellStore} the action reads a snapshot holding the read lock,
+     * otherwise it is performed holding the write lock, because other cell stores may not be read while loading cells
+     * saves a cell.
+     */
+    private <T> T snapshotOrWrite(final Supplier<T> action,
+                                  final SpreadsheetEngineContext context) {
+        return this.snapshot(
+                action,
+                context,
+                () -> this.write(action, context)
+        );
+    }
+
+    /**
+     * Performs the action with the cells served from a {@link VersionedSpreadsheetCellStoreSnapshot} of the latest
+     * published cells, holding the read lock. If the action tried to save or delete a cell, such as a cell that was
+     * never evaluated, it is performed again holding the write lock, after the read lock is released because it cannot
+     * be upgraded.
+     */
+    private <T> T snapshot(final Supplier<T> action,
+                           final SpreadsheetEngineContext context,
+                           final Supplier<T> otherwise) {
+        Objects.requireNonNull(context, "context");
+
+        final SpreadsheetCellStore cells = context.storeRepository()
+                .cells();
+        final T result;
+
+        if (cells instanceof VersionedSpreadsheetCellStore) {
+            final Optional<T> read = this.read(
+                    () -> {
+                        try (final VersionedSpreadsheetCellStoreSnapshot snapshot = ((VersionedSpreadsheetCellStore) cells).snapshot()) {
+                            return snapshot.read(action);
+                        }
+                    },
+                    context
+            );
+            result = read.orElseGet(
+                    () -> this.write(action, context)
+            );
+        } else {
+            result = otherwise.get();
+        }
+
+        return result;
+    }
+
+    /**
+     * Performs the action holding the write lock, and if the cells are a {@link VersionedSpreadsheetCellStore} publishes
+     * all changes to cells when the action succeeds, so snapshot readers see every cell change of the action at once.
+     * If the action fails the changes to cells are discarded and never seen by snapshot readers.
+     */
+    private <T> T write(final Supplier<T> action,
+                        final SpreadsheetEngineContext context) {
+        return this.locked(
+                () -> {
+                    final SpreadsheetCellStore cells = context.storeRepository()
+                            .cells();
+                    if (false == cells instanceof VersionedSpreadsheetCellStore) {
+                        return action.get();
+                    }
+
+                    final VersionedSpreadsheetCellStore versioned = (VersionedSpreadsheetCellStore) cells;
+                    final T result;
+                    try {
+                        result = action.get();
+                    } catch (final RuntimeException | Error cause) {
+                        versioned.discard();
+                        throw cause;
+                    }
+                    versioned.publish();
+                    return result;
+                },
+                ReadWriteLock::writeLock,
+                context
+        );
+    }
+
+    /**
+     * Performs the action holding the read or write lock of the spreadsheet, creating the lock if necessary and
+     * removing it when no other thread is using or waiting for it.
+     */
+    private <T> T locked(final Supplier<T> action,
+                         final Function<ReadWriteLock, Lock> readOrWrite,
+                         final SpreadsheetEngineContext context) {
+        final SpreadsheetId id = id(context);
+        final ConcurrentMap<SpreadsheetId, LockingSpreadsheetEngineLock> locks = this.locks;
+
+        final LockingSpreadsheetEngineLock lock = locks.compute(
+                id,
+                (i, l) -> (null != l ? l : LockingSpreadsheetEngineLock.create()).acquire()
+        );
+        try {
+            final Lock readOrWriteLock = readOrWrite.apply(lock.lock);
+            readOrWriteLock.lock();
+            try {
+                return action.get();
+            } finally {
+                readOrWriteLock.unlock();
+            }
+        } finally {
+            locks.computeIfPresent(
+                    id,
+                    (i, l) -> l.release()
+            );
+        }
+    }
+
+    private static SpreadsheetId id(final SpreadsheetEngineContext context) {
+        Objects.requireNonNull(context, "context");
+
+        return context.metadata()
+                .id()
+                .orElseThrow(() -> new IllegalStateException("Missing " + SpreadsheetMetadataPropertyName.SPREADSHEET_ID));
+    }
+
+    /**
+     * The number of spreadsheets with a lock, which only includes spreadsheets with a thread using or waiting for the
+     * lock.
+     */
+    // @VisibleForTesting
+    int locks() {
+        return this.locks.size();
+    }
+
+    /**
+     * Locks are only present while they are used.
+     */
+    private final ConcurrentMap<SpreadsheetId, LockingSpreadsheetEngineLock> locks = new ConcurrentHashMap<>();
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.engine.toString();
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine.concurrent;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The {@link ReadWriteLock} for a single spreadsheet, with a count of the threads using or waiting for it, so the
+ * {@link LockingSpreadsheetEngine} may remove it when the last thread is done. The count is only changed while
+ * computing the entry for the spreadsheet, so it needs no further synchronization.
+ */
+final class LockingSpreadsheetEngineLock {
+
+    static LockingSpreadsheetEngineLock create() {
+        return new LockingSpreadsheetEngineLock();
+    }
+
+    private LockingSpreadsheetEngineLock() {
+        super();
+    }
+
+    /**
+     * Adds a user of this lock.
+     */
+    LockingSpreadsheetEngineLock acquire() {
+        this.users++;
+        return this;
+    }
+
+    /**
+     * Removes a user of this lock, returning null when there are no more users, which removes the lock.
+     */
+    LockingSpreadsheetEngineLock release() {
+        this.users--;
+        return 0 == this.users ?
+                null :
+                this;
+    }
+
+    private int users;
+
+    final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Override
+    public String toString() {
+        return this.lock + " users=" + this.users;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine.concurrent;
+
+import walkingkooka.spreadsheet.store.SpreadsheetCellStore;
+
+/**
+ * A {@link SpreadsheetCellStore} that keeps several versions of each cell, so readers may take a consistent
+ * {@link #snapshot()} while a single writer is changing the store. Changes made by the writer are only visible to new
+ * snapshots after {@link #publish()}, or are abandoned by {@link #discard()}. The store itself returns the latest
+ * cells including unpublished changes, except to a thread reading a snapshot using
+ * {@link VersionedSpreadsheetCellStoreSnapshot#read(java.util.function.Supplier)}.
+ */
+public interface VersionedSpreadsheetCellStore extends SpreadsheetCellStore {
+
+    /**
+     * Returns a read only view of all cells as they were at the last {@link #publish()}. The snapshot should be
+     * closed when it is no longer required, so older versions of cells may be released.
+     */
+    VersionedSpreadsheetCellStoreSnapshot snapshot();
+
+    /**
+     * Atomically makes all changes since the previous publish visible to new snapshots. This should only be called by
+     * the writer.
+     */
+    void publish();
+
+    /**
+     * Restores every cell saved or deleted since the previous publish, used by the writer when a change fails. Other
+     * stores changed by the writer are not restored.
+     */
+    void discard();
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine.concurrent;
+
+import walkingkooka.spreadsheet.store.SpreadsheetCellStore;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * A read only {@link SpreadsheetCellStore} returned by {@link VersionedSpreadsheetCellStore#snapshot()}, that never
+ * sees any changes published after it was taken. Attempts to save or delete cells will fail.
+ */
+public interface VersionedSpreadsheetCellStoreSnapshot extends SpreadsheetCellStore, AutoCloseable {
+
+    /**
+     * The published version of the {@link VersionedSpreadsheetCellStore} this snapshot reads.
+     */
+    long version();
+
+    /**
+     * Calls the reader with every read of the {@link VersionedSpreadsheetCellStore} by the current thread served from
+     * this snapshot, and every save or delete rejected with an {@link IllegalStateException}. If any save or delete was
+     * attempted, {@link Optional#empty()} is returned whether the reader caught the failure or not, and the reader
+     * should be retried by the writer. This allows code written against the store, such as loading cells that rarely
+     * need evaluating, to read a consistent view of the cells without any lock.
+     */
+    <T> Optional<T> read(final Supplier<T> reader);
+
+    /**
+     * Releases this snapshot, the store may then discard cell versions that were only needed by this snapshot.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.expression;
+
+import walkingkooka.tree.expression.Expression;
+import walkingkooka.tree.expression.ExpressionEvaluationContext;
+
+/**
+ * An {@link Expression} that has been compiled once into a tree of small evaluators, which may then be executed many
+ * times without re-dispatching on the type of each {@link Expression} node. Results are always identical to
+ * {@link Expression#toValue(ExpressionEvaluationContext)}.
+ */
+public interface SpreadsheetCompiledExpression {
+
+    /**
+     * Evaluates this compiled expression returning its value.
+     */
+    Object toValue(final ExpressionEvaluationContext context);
+}
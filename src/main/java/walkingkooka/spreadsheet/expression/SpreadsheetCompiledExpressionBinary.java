@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.expression;
+
+import walkingkooka.tree.expression.Expression;
+import walkingkooka.tree.expression.ExpressionEvaluationContext;
+import walkingkooka.tree.expression.ExpressionNumber;
+
+import java.util.Objects;
+
+/**
+ * A compiled binary arithmetic operator. When both operands are {@link ExpressionNumber numbers} the operator is
+ * applied directly, otherwise the already evaluated operands are given to the equivalent {@link Expression} so any
+ * conversions happen exactly as they would when interpreting.
+ */
+final class SpreadsheetCompiledExpressionBinary implements SpreadsheetCompiledExpression {
+
+    static SpreadsheetCompiledExpressionBinary with(final SpreadsheetCompiledExpressionBinaryOperator operator,
+                                                    final SpreadsheetCompiledExpression left,
+                                                    final SpreadsheetCompiledExpression right) {
+        return new SpreadsheetCompiledExpressionBinary(
+                operator,
+                left,
+                right
+        );
+    }
+
+    private SpreadsheetCompiledExpressionBinary(final SpreadsheetCompiledExpressionBinaryOperator operator,
+                                                final SpreadsheetCompiledExpression left,
+                                                final SpreadsheetCompiledExpression right) {
+        super();
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+    }
+
+    @Override
+    public Object toValue(final ExpressionEvaluationContext context) {
+        Objects.requireNonNull(context, "context");
+
+        final Object left = this.left.toValue(context);
+        final Object right = this.right.toValue(context);
+
+        final SpreadsheetCompiledExpressionBinaryOperator operator = this.operator;
+
+        return left instanceof ExpressionNumber && right instanceof ExpressionNumber ?
+                operator.apply(
+                        (ExpressionNumber) left,
+                        (ExpressionNumber) right,
+                        context
+                ) :
+                operator.expression(
+                        Expression.value(left),
+                        Expression.value(right)
+                ).toValue(context);
+    }
+
+    private final SpreadsheetCompiledExpressionBinaryOperator operator;
+
+    private final SpreadsheetCompiledExpression left;
+
+    private final SpreadsheetCompiledExpression right;
+
+    @Override
+    public String toString() {
+        return "(" + this.left + this.operator.symbol + this.right + ")";
+    }
+}
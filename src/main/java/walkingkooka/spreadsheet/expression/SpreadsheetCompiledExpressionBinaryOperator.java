@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.expression;
+
+import walkingkooka.tree.expression.Expression;
+import walkingkooka.tree.expression.ExpressionEvaluationContext;
+import walkingkooka.tree.expression.ExpressionNumber;
+
+/**
+ * The arithmetic operators supported by {@link SpreadsheetCompiledExpressionBinary}.
+ */
+enum SpreadsheetCompiledExpressionBinaryOperator {
+
+    ADD("+") {
+        @Override
+        ExpressionNumber apply(final ExpressionNumber left,
+                               final ExpressionNumber right,
+                               final ExpressionEvaluationContext context) {
+            return left.add(right, context);
+        }
+
+        @Override
+        Expression expression(final Expression left,
+                              final Expression right) {
+            return Expression.add(left, right);
+        }
+    },
+
+    SUBTRACT("-") {
+        @Override
+        ExpressionNumber apply(final ExpressionNumber left,
+                               final ExpressionNumber right,
+                               final ExpressionEvaluationContext context) {
+            return left.subtract(right, context);
+        }
+
+        @Override
+        Expression expression(final Expression left,
+                              final Expression right) {
+            return Expression.subtract(left, right);
+        }
+    },
+
+    MULTIPLY("*") {
+        @Override
+        ExpressionNumber apply(final ExpressionNumber left,
+                               final ExpressionNumber right,
+                               final ExpressionEvaluationContext context) {
+            return left.multiply(right, context);
+        }
+
+        @Override
+        Expression expression(final Expression left,
+                              final Expression right) {
+            return Expression.multiply(left, right);
+        }
+    },
+
+    DIVIDE("/") {
+        @Override
+        ExpressionNumber apply(final ExpressionNumber left,
+                               final ExpressionNumber right,
+                               final ExpressionEvaluationContext context) {
+            return left.divide(right, context);
+        }
+
+        @Override
+        Expression expression(final Expression left,
+                              final Expression right) {
+            return Expression.divide(left, right);
+        }
+    },
+
+    POWER("^") {
+        @Override
+        ExpressionNumber apply(final ExpressionNumber left,
+                               final ExpressionNumber right,
+                               final ExpressionEvaluationContext context) {
+            return left.power(right, context);
+        }
+
+        @Override
+        Expression expression(final Expression left,
+                              final Expression right) {
+            return Expression.power(left, right);
+        }
+    };
+
+    SpreadsheetCompiledExpressionBinaryOperator(final String symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * Applies this operator to two numbers.
+     */
+    abstract ExpressionNumber apply(final ExpressionNumber left,
+                                    final ExpressionNumber right,
+                                    final ExpressionEvaluationContext context);
+
+    /**
+     * Creates the equivalent {@link Expression}, used when either operand is not a number.
+     */
+    abstract Expression expression(final Expression left,
+                                   final Expression right);
+
+    final String symbol;
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.expression;
+
+import walkingkooka.Cast;
+import walkingkooka.tree.expression.Expression;
+import walkingkooka.tree.expression.ExpressionEvaluationContext;
+import walkingkooka.tree.expression.FunctionExpressionName;
+import walkingkooka.tree.expression.function.ExpressionFunction;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A compiled call to a named function. The {@link ExpressionFunction} is resolved using the functions given when
+ * compiling on the first evaluation and then kept, so following evaluations call it directly without looking it up
+ * again. Lookups that fail are not kept and fail again. The parameters are given to the function unevaluated, exactly
+ * as they would be when interpreting.
+ */
+final class SpreadsheetCompiledExpressionFunction implements SpreadsheetCompiledExpression {
+
+    static SpreadsheetCompiledExpressionFunction with(final FunctionExpressionName name,
+                                                      final List<Expression> parameters,
+                                                      final Function<FunctionExpressionName, ExpressionFunction<?, ExpressionEvaluationContext>> functions) {
+        return new SpreadsheetCompiledExpressionFunction(
+                name,
+                parameters,
+                functions
+        );
+    }
+
+    private SpreadsheetCompiledExpressionFunction(final FunctionExpressionName name,
+                                                  final List<Expression> parameters,
+                                                  final Function<FunctionExpressionName, ExpressionFunction<?, ExpressionEvaluationContext>> functions) {
+        super();
+        this.name = name;
+        this.parameters = parameters;
+        this.functions = functions;
+    }
+
+    @Override
+    public Object toValue(final ExpressionEvaluationContext context) {
+        Objects.requireNonNull(context, "context");
+
+        return context.evaluateFunction(
+                this.function(),
+                Cast.to(this.parameters)
+        );
+    }
+
+    private ExpressionFunction<?, ExpressionEvaluationContext> function() {
+        ExpressionFunction<?, ExpressionEvaluationContext> function = this.function;
+        if (null == function) {
+            function = this.functions.apply(this.name);
+            this.function = function;
+        }
+        return function;
+    }
+
+    private final FunctionExpressionName name;
+
+    private final List<Expression> parameters;
+
+    private final Function<FunctionExpressionName, ExpressionFunction<?, ExpressionEvaluationContext>> functions;
+
+    /**
+     * The resolved function, null until the first evaluation.
+     */
+    private ExpressionFunction<?, ExpressionEvaluationContext> function;
+
+    @Override
+    public String toString() {
+        return this.name +
+                this.parameters.stream()
+                        .map(Object::toString)
+                        .collect(Collectors.joining(",", "(", ")"));
+    }
+}
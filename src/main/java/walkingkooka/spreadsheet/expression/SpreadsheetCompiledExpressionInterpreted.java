@@ -0,0 +1,52 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.expression;
+
+import walkingkooka.tree.expression.Expression;
+import walkingkooka.tree.expression.ExpressionEvaluationContext;
+
+import java.util.Objects;
+
+/**
+ * Wraps an {@link Expression} that is not compiled, such as a reference or function call, which is simply interpreted.
+ */
+final class SpreadsheetCompiledExpressionInterpreted implements SpreadsheetCompiledExpression {
+
+    static SpreadsheetCompiledExpressionInterpreted with(final Expression expression) {
+        return new SpreadsheetCompiledExpressionInterpreted(expression);
+    }
+
+    private SpreadsheetCompiledExpressionInterpreted(final Expression expression) {
+        super();
+        this.expression = expression;
+    }
+
+    @Override
+    public Object toValue(final ExpressionEvaluationContext context) {
+        Objects.requireNonNull(context, "context");
+
+        return this.expression.toValue(context);
+    }
+
+    private final Expression expression;
+
+    @Override
+    public String toString() {
+        return this.expression.toString();
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.expression;
+
+import walkingkooka.tree.expression.Expression;
+import walkingkooka.tree.expression.ExpressionEvaluationContext;
+import walkingkooka.tree.expression.ExpressionNumber;
+
+import java.util.Objects;
+
+/**
+ * A compiled negation, which negates {@link ExpressionNumber numbers} directly and interprets any other value.
+ */
+final class SpreadsheetCompiledExpressionNegative implements SpreadsheetCompiledExpression {
+
+    static SpreadsheetCompiledExpressionNegative with(final SpreadsheetCompiledExpression value) {
+        return new SpreadsheetCompiledExpressionNegative(value);
+    }
+
+    private SpreadsheetCompiledExpressionNegative(final SpreadsheetCompiledExpression value) {
+        super();
+        this.value = value;
+    }
+
+    @Override
+    public Object toValue(final ExpressionEvaluationContext context) {
+        Objects.requireNonNull(context, "context");
+
+        final Object value = this.value.toValue(context);
+
+        return value instanceof ExpressionNumber ?
+                ((ExpressionNumber) value).negate(context) :
+                Expression.negative(
+                        Expression.value(value)
+                ).toValue(context);
+    }
+
+    private final SpreadsheetCompiledExpression value;
+
+    @Override
+    public String toString() {
+        return "-" + this.value;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.expression;
+
+import walkingkooka.tree.expression.ExpressionEvaluationContext;
+
+import java.util.Objects;
+
+/**
+ * A compiled constant, which returns its value without any further work.
+ */
+final class SpreadsheetCompiledExpressionValue implements SpreadsheetCompiledExpression {
+
+    static SpreadsheetCompiledExpressionValue with(final Object value) {
+        return new SpreadsheetCompiledExpressionValue(value);
+    }
+
+    private SpreadsheetCompiledExpressionValue(final Object value) {
+        super();
+        this.value = value;
+    }
+
+    @Override
+    public Object toValue(final ExpressionEvaluationContext context) {
+        Objects.requireNonNull(context, "context");
+
+        return this.value;
+    }
+
+    private final Object value;
+
+    @Override
+    public String toString() {
+        return String.valueOf(this.value);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.expression;
+
+import walkingkooka.reflect.PublicStaticHelper;
+import walkingkooka.tree.expression.AddExpression;
+import walkingkooka.tree.expression.BinaryExpression;
+import walkingkooka.tree.expression.CallExpression;
+import walkingkooka.tree.expression.DivideExpression;
+import walkingkooka.tree.expression.Expression;
+import walkingkooka.tree.expression.ExpressionEvaluationContext;
+import walkingkooka.tree.expression.FunctionExpressionName;
+import walkingkooka.tree.expression.MultiplyExpression;
+import walkingkooka.tree.expression.NamedFunctionExpression;
+import walkingkooka.tree.expression.NegativeExpression;
+import walkingkooka.tree.expression.PowerExpression;
+import walkingkooka.tree.expression.SubtractExpression;
+import walkingkooka.tree.expression.ValueExpression;
+import walkingkooka.tree.expression.function.ExpressionFunction;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+public final class SpreadsheetCompiledExpressions implements PublicStaticHelper {
+
+    /**
+     * Compiles the given {@link Expression}. Values and arithmetic are compiled into dedicated evaluators, all other
+     * {@link Expression expressions} such as references and function calls are interpreted as before.
+     */
+    public static SpreadsheetCompiledExpression compile(final Expression expression) {
+        Objects.requireNonNull(expression, "expression");
+
+        return compile0(
+                expression,
+                null
+        );
+    }
+
+    /**
+     * Compiles the given {@link Expression} like {@link #compile(Expression)}, but also compiles calls to named functions,
+     * which resolve their {@link ExpressionFunction} using the given functions once and then keep it.
+     */
+    public static SpreadsheetCompiledExpression compile(final Expression expression,
+                                                        final Function<FunctionExpressionName, ExpressionFunction<?, ExpressionEvaluationContext>> functions) {
+        Objects.requireNonNull(expression, "expression");
+        Objects.requireNonNull(functions, "functions");
+
+        return compile0(
+                expression,
+                functions
+        );
+    }
+
+    /**
+     * When functions is null calls to named functions are interpreted.
+     */
+    private static SpreadsheetCompiledExpression compile0(final Expression expression,
+                                                          final Function<FunctionExpressionName, ExpressionFunction<?, ExpressionEvaluationContext>> functions) {
+        final SpreadsheetCompiledExpression compiled;
+
+        if (expression instanceof ValueExpression) {
+            compiled = SpreadsheetCompiledExpressionValue.with(
+                    ((ValueExpression<?>) expression).value()
+            );
+        } else if (expression instanceof AddExpression) {
+            compiled = binary(SpreadsheetCompiledExpressionBinaryOperator.ADD, expression, functions);
+        } else if (expression instanceof SubtractExpression) {
+            compiled = binary(SpreadsheetCompiledExpressionBinaryOperator.SUBTRACT, expression, functions);
+        } else if (expression instanceof MultiplyExpression) {
+            compiled = binary(SpreadsheetCompiledExpressionBinaryOperator.MULTIPLY, expression, functions);
+        } else if (expression instanceof DivideExpression) {
+            compiled = binary(SpreadsheetCompiledExpressionBinaryOperator.DIVIDE, expression, functions);
+        } else if (expression instanceof PowerExpression) {
+            compiled = binary(SpreadsheetCompiledExpressionBinaryOperator.POWER, expression, functions);
+        } else if (expression instanceof NegativeExpression) {
+            compiled = SpreadsheetCompiledExpressionNegative.with(
+                    compile0(
+                            ((NegativeExpression) expression).value(),
+                            functions
+                    )
+            );
+        } else if (null != functions && isNamedFunctionCall(expression)) {
+            final CallExpression call = (CallExpression) expression;
+
+            compiled = SpreadsheetCompiledExpressionFunction.with(
+                    ((NamedFunctionExpression) call.callable()).value(),
+                    call.value(),
+                    functions
+            );
+        } else {
+            compiled = SpreadsheetCompiledExpressionInterpreted.with(expression);
+        }
+
+        return compiled;
+    }
+
+    private static boolean isNamedFunctionCall(final Expression expression) {
+        return expression instanceof CallExpression &&
+                ((CallExpression) expression).callable() instanceof NamedFunctionExpression;
+    }
+
+    private static SpreadsheetCompiledExpression binary(final SpreadsheetCompiledExpressionBinaryOperator operator,
+                                                        final Expression expression,
+                                                        final Function<FunctionExpressionName, ExpressionFunction<?, ExpressionEvaluationContext>> functions) {
+        final BinaryExpression binary = (BinaryExpression) expression;
+
+        return SpreadsheetCompiledExpressionBinary.with(
+                operator,
+                compile0(binary.left(), functions),
+                compile0(binary.right(), functions)
+        );
+    }
+
+    private SpreadsheetCompiledExpressions() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -30,6 +30,7 @@ import walkingkooka.tree.expression.ExpressionNumberConverterContext;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -112,6 +113,14 @@ public final class SpreadsheetFormatters implements PublicStaticHelper {
         return TextSpreadsheetFormatter.with(token);
     }
 
+    /**
+     * {@see ValueTypeSpreadsheetFormatter}
+     */
+    public static SpreadsheetFormatter valueType(final Map<Class<?>, SpreadsheetFormatter> typeToFormatter,
+                                                 final SpreadsheetFormatter fallback) {
+        return ValueTypeSpreadsheetFormatter.with(typeToFormatter, fallback);
+    }
+
     /**
      * Stops creation
      */
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.format;
+
+import walkingkooka.collect.map.Maps;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A {@link SpreadsheetFormatter} that selects a {@link SpreadsheetFormatter} using the type of the value, rather than
+ * asking many {@link SpreadsheetFormatter formatters} in turn if they can format the value. The class of the value and
+ * then its super classes are used to locate a {@link SpreadsheetFormatter}. If none is found, or the selected formatter
+ * cannot format the value, the fallback {@link SpreadsheetFormatter} is used.
+ */
+final class ValueTypeSpreadsheetFormatter implements SpreadsheetFormatter {
+
+    /**
+     * Creates a new {@link ValueTypeSpreadsheetFormatter}
+     */
+    static ValueTypeSpreadsheetFormatter with(final Map<Class<?>, SpreadsheetFormatter> typeToFormatter,
+                                              final SpreadsheetFormatter fallback) {
+        Objects.requireNonNull(typeToFormatter, "typeToFormatter");
+        Objects.requireNonNull(fallback, "fallback");
+
+        return new ValueTypeSpreadsheetFormatter(
+                Maps.immutable(typeToFormatter),
+                fallback
+        );
+    }
+
+    /**
+     * Private ctor.
+     */
+    private ValueTypeSpreadsheetFormatter(final Map<Class<?>, SpreadsheetFormatter> typeToFormatter,
+                                          final SpreadsheetFormatter fallback) {
+        super();
+        this.typeToFormatter = typeToFormatter;
+        this.fallback = fallback;
+    }
+
+    // SpreadsheetFormatter.............................................................................................
+
+    @Override
+    public boolean canFormat(final Object value,
+                             final SpreadsheetFormatterContext context) throws SpreadsheetFormatException {
+        final SpreadsheetFormatter formatter = this.formatter(value);
+
+        return (null != formatter && formatter.canFormat(value, context)) ||
+                this.fallback.canFormat(value, context);
+    }
+
+    @Override
+    public Optional<SpreadsheetText> format(final Object value,
+                                            final SpreadsheetFormatterContext context) throws SpreadsheetFormatException {
+        Objects.requireNonNull(value, "value");
+        Objects.requireNonNull(context, "context");
+
+        final SpreadsheetFormatter formatter = this.formatter(value);
+
+        return null != formatter && formatter.canFormat(value, context) ?
+                formatter.format(value, context) :
+                this.fallback.format(value, context);
+    }
+
+    /**
+     * Locates the {@link SpreadsheetFormatter} for the value class or its nearest super class, returning null if none
+     * was found.
+     */
+    private SpreadsheetFormatter formatter(final Object value) {
+        SpreadsheetFormatter formatter = null;
+
+        if (null != value) {
+            final Map<Class<?>, SpreadsheetFormatter> typeToFormatter = this.typeToFormatter;
+
+            Class<?> type = value.getClass();
+            do {
+                formatter = typeToFormatter.get(type);
+                if (null != formatter) {
+                    break;
+                }
+                type = type.getSuperclass();
+            } while (null != type);
+        }
+
+        return formatter;
+    }
+
+    // @VisibleForTesting
+    final Map<Class<?>, SpreadsheetFormatter> typeToFormatter;
+
+    // @VisibleForTesting
+    final SpreadsheetFormatter fallback;
+
+    // Object...........................................................................................................
+
+    /**
+     * Lists each type and its {@link SpreadsheetFormatter} followed by the fallback.
+     */
+    @Override
+    public String toString() {
+        final StringBuilder b = new StringBuilder();
+
+        for (final Map.Entry<Class<?>, SpreadsheetFormatter> typeAndFormatter : this.typeToFormatter.entrySet()) {
+            b.append(typeAndFormatter.getKey().getSimpleName())
+                    .append('=')
+                    .append(typeAndFormatter.getValue())
+                    .append(", ");
+        }
+
+        return b.append("fallback=")
+                .append(this.fallback)
+                .toString();
+    }
+}
@@ -33,6 +33,7 @@ import walkingkooka.math.DecimalNumberContext;
 import walkingkooka.math.HasDecimalNumberContext;
 import walkingkooka.math.HasMathContext;
 import walkingkooka.net.http.server.hateos.HateosResource;
+import walkingkooka.spreadsheet.SpreadsheetError;
 import walkingkooka.spreadsheet.SpreadsheetId;
 import walkingkooka.spreadsheet.convert.SpreadsheetConverterContext;
 import walkingkooka.spreadsheet.convert.SpreadsheetConverterContexts;
@@ -62,6 +63,7 @@ import walkingkooka.text.cursor.parser.Parser;
 import walkingkooka.text.cursor.parser.Parsers;
 import walkingkooka.text.printer.IndentingPrinter;
 import walkingkooka.text.printer.TreePrintable;
+import walkingkooka.tree.expression.ExpressionNumber;
 import walkingkooka.tree.expression.ExpressionNumberContext;
 import walkingkooka.tree.expression.ExpressionNumberContexts;
 import walkingkooka.tree.expression.ExpressionNumberConverterContext;
@@ -82,7 +84,9 @@ import walkingkooka.tree.text.TextStylePropertyValueException;
 
 import java.math.MathContext;
 import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -638,12 +642,39 @@ public abstract class SpreadsheetMetadata implements HasConverter<SpreadsheetCon
 
         components.reportIfMissing();
 
-        return SpreadsheetFormatters.chain(Lists.of(
-                dateTimeFormat.formatter(),
-                dateFormat.formatter(),
-                timeFormat.formatter(),
-                numberFormat.formatter(),
-                textFormat.formatter()));
+        final SpreadsheetFormatter dateTimeFormatter = dateTimeFormat.formatter();
+        final SpreadsheetFormatter dateFormatter = dateFormat.formatter();
+        final SpreadsheetFormatter timeFormatter = timeFormat.formatter();
+        final SpreadsheetFormatter numberFormatter = numberFormat.formatter();
+        final SpreadsheetFormatter textFormatter = textFormat.formatter();
+
+        final List<SpreadsheetFormatter> chain = Lists.of(
+                dateTimeFormatter,
+                dateFormatter,
+                timeFormatter,
+                numberFormatter,
+                textFormatter
+        );
+
+        // each type starts at its own formatter in the chain, skipping only the earlier date, date/time and time
+        // formatters which only accept their own type, so the same formatter is selected as the chain would.
+        final SpreadsheetFormatter all = SpreadsheetFormatters.chain(chain);
+        final SpreadsheetFormatter numberOrText = SpreadsheetFormatters.chain(chain.subList(3, 5));
+
+        final Map<Class<?>, SpreadsheetFormatter> typeToFormatter = Maps.ordered();
+        typeToFormatter.put(LocalDateTime.class, all);
+        typeToFormatter.put(LocalDate.class, SpreadsheetFormatters.chain(chain.subList(1, 5)));
+        typeToFormatter.put(LocalTime.class, SpreadsheetFormatters.chain(chain.subList(2, 5)));
+        typeToFormatter.put(ExpressionNumber.class, numberOrText);
+        typeToFormatter.put(String.class, numberOrText);
+        typeToFormatter.put(Boolean.class, numberOrText);
+        typeToFormatter.put(SpreadsheetError.class, numberOrText);
+
+        // the whole chain is only tried when the value type is unknown or the selected formatters fail.
+        return SpreadsheetFormatters.valueType(
+                typeToFormatter,
+                all
+        );
     }
 
     // HasSpreadsheetFormatterContext...................................................................................
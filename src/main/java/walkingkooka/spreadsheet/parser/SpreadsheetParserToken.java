@@ -1106,8 +1106,22 @@ public abstract class SpreadsheetParserToken implements ParserToken {
      * are not.
      */
     public final Optional<Expression> toExpression(final ExpressionEvaluationContext context) {
+        return this.toExpression(
+                false,
+                context
+        );
+    }
+
+    /**
+     * Converts this token to its {@link Expression} equivalent. When <code>foldConstants</code> is true any arithmetic
+     * with only number constants such as <code>1+0.2</code> is computed once and replaced by its result, leaving
+     * anything that would fail, such as divide by zero, to be reported when evaluated.
+     */
+    public final Optional<Expression> toExpression(final boolean foldConstants,
+                                                   final ExpressionEvaluationContext context) {
         return SpreadsheetParserTokenVisitorToExpression.toExpression(
                 this,
+                foldConstants,
                 context
         );
     }
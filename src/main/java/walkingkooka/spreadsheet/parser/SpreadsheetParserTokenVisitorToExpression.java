@@ -22,8 +22,10 @@ import walkingkooka.collect.stack.Stack;
 import walkingkooka.collect.stack.Stacks;
 import walkingkooka.tree.expression.Expression;
 import walkingkooka.tree.expression.ExpressionEvaluationContext;
+import walkingkooka.tree.expression.ExpressionNumber;
 import walkingkooka.tree.expression.ExpressionReference;
 import walkingkooka.tree.expression.FunctionExpressionName;
+import walkingkooka.tree.expression.ValueExpression;
 import walkingkooka.visit.Visiting;
 
 import java.util.List;
@@ -31,6 +33,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * A {@link SpreadsheetParserTokenVisitor} that a {@link SpreadsheetParserToken} into its {@link Expression}.
@@ -38,10 +41,14 @@ import java.util.function.Function;
 final class SpreadsheetParserTokenVisitorToExpression extends SpreadsheetParserTokenVisitor {
 
     static Optional<Expression> toExpression(final SpreadsheetParserToken token,
+                                             final boolean foldConstants,
                                              final ExpressionEvaluationContext context) {
         Objects.requireNonNull(context, "context");
 
-        final SpreadsheetParserTokenVisitorToExpression visitor = new SpreadsheetParserTokenVisitorToExpression(context);
+        final SpreadsheetParserTokenVisitorToExpression visitor = new SpreadsheetParserTokenVisitorToExpression(
+                foldConstants,
+                context
+        );
         token.accept(visitor);
 
         final List<Expression> nodes = visitor.children;
@@ -58,8 +65,10 @@ final class SpreadsheetParserTokenVisitorToExpression extends SpreadsheetParserT
     }
 
     // @VisibleForTesting
-    SpreadsheetParserTokenVisitorToExpression(final ExpressionEvaluationContext context) {
+    SpreadsheetParserTokenVisitorToExpression(final boolean foldConstants,
+                                              final ExpressionEvaluationContext context) {
         super();
+        this.foldConstants = foldConstants;
         this.context = context;
     }
 
@@ -70,7 +79,11 @@ final class SpreadsheetParserTokenVisitorToExpression extends SpreadsheetParserT
 
     @Override
     protected void endVisit(final SpreadsheetAdditionParserToken token) {
-        this.exitBinary(Expression::add, token);
+        this.exitArithmetic(
+                Expression::add,
+                (l, r) -> l.add(r, this.context),
+                token
+        );
     }
 
     @Override
@@ -125,6 +138,11 @@ final class SpreadsheetParserTokenVisitorToExpression extends SpreadsheetParserT
 
     private final ExpressionEvaluationContext context;
 
+    /**
+     * When true arithmetic with only number constants is computed once here and replaced by its result.
+     */
+    private final boolean foldConstants;
+
     @Override
     protected Visiting startVisit(final SpreadsheetDivisionParserToken token) {
         return this.enter();
@@ -132,7 +150,11 @@ final class SpreadsheetParserTokenVisitorToExpression extends SpreadsheetParserT
 
     @Override
     protected void endVisit(final SpreadsheetDivisionParserToken token) {
-        this.exitBinary(Expression::divide, token);
+        this.exitArithmetic(
+                Expression::divide,
+                (l, r) -> l.divide(r, this.context),
+                token
+        );
     }
 
     @Override
@@ -240,7 +262,11 @@ final class SpreadsheetParserTokenVisitorToExpression extends SpreadsheetParserT
 
     @Override
     protected void endVisit(final SpreadsheetMultiplicationParserToken token) {
-        this.exitBinary(Expression::multiply, token);
+        this.exitArithmetic(
+                Expression::multiply,
+                (l, r) -> l.multiply(r, this.context),
+                token
+        );
     }
 
     @Override
@@ -267,7 +293,7 @@ final class SpreadsheetParserTokenVisitorToExpression extends SpreadsheetParserT
 
     @Override
     protected void endVisit(final SpreadsheetNegativeParserToken token) {
-        this.exitUnary(Expression::negative, token);
+        this.exitNegative(token);
     }
 
     @Override
@@ -301,7 +327,11 @@ final class SpreadsheetParserTokenVisitorToExpression extends SpreadsheetParserT
 
     @Override
     protected void endVisit(final SpreadsheetPowerParserToken token) {
-        this.exitBinary(Expression::power, token);
+        this.exitArithmetic(
+                Expression::power,
+                (l, r) -> l.power(r, this.context),
+                token
+        );
     }
 
     @Override
@@ -311,7 +341,11 @@ final class SpreadsheetParserTokenVisitorToExpression extends SpreadsheetParserT
 
     @Override
     protected void endVisit(final SpreadsheetSubtractionParserToken token) {
-        this.exitBinary(Expression::subtract, token);
+        this.exitArithmetic(
+                Expression::subtract,
+                (l, r) -> l.subtract(r, this.context),
+                token
+        );
     }
 
     @Override
@@ -392,6 +426,91 @@ final class SpreadsheetParserTokenVisitorToExpression extends SpreadsheetParserT
         this.add(factory.apply(left, right), token);
     }
 
+    /**
+     * Creates the arithmetic {@link Expression}, or when folding and both parameters are numbers its constant result.
+     */
+    private void exitArithmetic(final BiFunction<Expression, Expression, Expression> factory,
+                                final BiFunction<ExpressionNumber, ExpressionNumber, ExpressionNumber> folder,
+                                final SpreadsheetParserToken token) {
+        final Expression left = this.children.get(0);
+        final Expression right = this.children.get(1);
+        this.exit();
+
+        final ExpressionNumber leftNumber = this.foldableNumber(left);
+        final ExpressionNumber rightNumber = this.foldableNumber(right);
+
+        Expression folded = null;
+        if (null != leftNumber && null != rightNumber) {
+            folded = fold(
+                    () -> folder.apply(leftNumber, rightNumber)
+            );
+        }
+
+        this.add(
+                null != folded ?
+                        folded :
+                        factory.apply(left, right),
+                token
+        );
+    }
+
+    private void exitNegative(final SpreadsheetParserToken token) {
+        final Expression parameter = this.children.get(0);
+        this.exit();
+
+        final ExpressionNumber number = this.foldableNumber(parameter);
+
+        Expression folded = null;
+        if (null != number) {
+            folded = fold(
+                    () -> number.negate(this.context)
+            );
+        }
+
+        this.add(
+                null != folded ?
+                        folded :
+                        Expression.negative(parameter),
+                token
+        );
+    }
+
+    /**
+     * Returns the number if folding and the {@link Expression} is a number constant, otherwise returns null.
+     */
+    private ExpressionNumber foldableNumber(final Expression expression) {
+        ExpressionNumber number = null;
+
+        if (this.foldConstants && expression instanceof ValueExpression) {
+            final Object value = ((ValueExpression<?>) expression).value();
+            if (value instanceof ExpressionNumber) {
+                number = (ExpressionNumber) value;
+            }
+        }
+
+        return number;
+    }
+
+    /**
+     * Computes the constant, returning null if it fails or is not finite so the original {@link Expression} is kept
+     * and any error is reported when it is evaluated, exactly as it would without folding.
+     */
+    private static Expression fold(final Supplier<ExpressionNumber> compute) {
+        Expression folded = null;
+
+        try {
+            final ExpressionNumber number = compute.get();
+            final double doubleValue = number.doubleValue();
+            if (false == Double.isNaN(doubleValue) && false == Double.isInfinite(doubleValue)) {
+                folded = Expression.value(number);
+            }
+        } catch (final RuntimeException ignore) {
+            // leave the expression unfolded
+        }
+
+        return folded;
+    }
+
     private void exitUnary(final SpreadsheetParentParserToken token) {
         this.exitUnary(Function.identity(), token);
     }
@@ -0,0 +1,342 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.reference;
+
+import walkingkooka.collect.list.Lists;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A map of {@link SpreadsheetCellReference} to values, that uses open addressing with linear probing over
+ * {@link SpreadsheetCellReference#pack() packed} keys held in a primitive long array. This avoids the entry, boxing and
+ * {@link Object#hashCode()} costs of a {@link java.util.TreeMap} or {@link java.util.HashMap}.
+ * <br>
+ * Like a {@link java.util.TreeMap} using {@link SpreadsheetCellReference#compareTo(SpreadsheetCellReference)}, keys
+ * ignore the {@link SpreadsheetReferenceKind}. Only the packed keys are kept, so {@link #keys()} returns
+ * {@link SpreadsheetReferenceKind#RELATIVE} references {@link SpreadsheetCellReference#unpack(long) unpacked} from them.
+ * Null values are supported, use {@link #containsKey(SpreadsheetCellReference)} to test if a key is present.
+ * {@link #keys()} and {@link #values()} return entries in {@link SpreadsheetCellReference} order.
+ * <br>
+ * The sorted keys are cached until a key is added or removed, so paging with {@link #keys(int, int)} and
+ * {@link #values(SpreadsheetCellReference, int)} only sorts once for many pages and seeks each page with a binary
+ * search. The cache is only written after it is completely sorted and is volatile, so it is safely published to
+ * threads reading the map at the same time, while writes still require exclusive access.
+ */
+public final class PackedSpreadsheetCellReferenceMap<V> {
+
+    /**
+     * Creates a new empty {@link PackedSpreadsheetCellReferenceMap}.
+     */
+    public static <V> PackedSpreadsheetCellReferenceMap<V> empty() {
+        return new PackedSpreadsheetCellReferenceMap<>();
+    }
+
+    /**
+     * Marks an unused slot, packed references are never negative.
+     */
+    private final static long EMPTY = -1;
+
+    private final static int INITIAL_CAPACITY = 16;
+
+    /**
+     * Private ctor use factory.
+     */
+    private PackedSpreadsheetCellReferenceMap() {
+        super();
+        this.allocate(INITIAL_CAPACITY);
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return 0 == this.size;
+    }
+
+    public boolean containsKey(final SpreadsheetCellReference reference) {
+        return this.slot(reference.pack()) >= 0;
+    }
+
+    /**
+     * Returns the value for the given {@link SpreadsheetCellReference} or null if absent.
+     */
+    public V get(final SpreadsheetCellReference reference) {
+        final int slot = this.slot(reference.pack());
+        return slot >= 0 ?
+                this.value(slot) :
+                null;
+    }
+
+    /**
+     * Adds or replaces the value for the given {@link SpreadsheetCellReference}, returning the previous value.
+     */
+    public V put(final SpreadsheetCellReference reference,
+                 final V value) {
+        Objects.requireNonNull(reference, "reference");
+
+        final long key = reference.pack();
+        final long[] keys = this.keys;
+        final int mask = keys.length - 1;
+
+        int slot = index(key, mask);
+        for (; ; ) {
+            final long k = keys[slot];
+            if (EMPTY == k) {
+                break;
+            }
+            if (key == k) {
+                final V previous = this.value(slot);
+                this.values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        this.values[slot] = value;
+        this.size++;
+        this.sortedKeys = null;
+
+        if (this.size > this.resizeThreshold) {
+            this.resize();
+        }
+        return null;
+    }
+
+    /**
+     * Removes the given {@link SpreadsheetCellReference} returning its value or null if absent.
+     */
+    public V remove(final SpreadsheetCellReference reference) {
+        int slot = this.slot(reference.pack());
+        V previous = null;
+
+        if (slot >= 0) {
+            previous = this.value(slot);
+
+            // shift following entries of the same run back so lookups never stop early at the now empty slot.
+            final long[] keys = this.keys;
+            final Object[] values = this.values;
+            final int mask = keys.length - 1;
+
+            int next = slot;
+            for (; ; ) {
+                next = (next + 1) & mask;
+                final long key = keys[next];
+                if (EMPTY == key) {
+                    break;
+                }
+
+                final int ideal = index(key, mask);
+                if (((next - ideal) & mask) >= ((next - slot) & mask)) {
+                    keys[slot] = key;
+                    values[slot] = values[next];
+                    slot = next;
+                }
+            }
+
+            keys[slot] = EMPTY;
+            values[slot] = null;
+            this.size--;
+            this.sortedKeys = null;
+        }
+
+        return previous;
+    }
+
+    /**
+     * Returns all {@link SpreadsheetCellReference keys} in order.
+     */
+    public List<SpreadsheetCellReference> keys() {
+        return this.keys(0, this.size);
+    }
+
+    /**
+     * Returns up to count {@link SpreadsheetCellReference keys} in order, skipping the first from keys.
+     */
+    public List<SpreadsheetCellReference> keys(final int from,
+                                               final int count) {
+        final long[] sorted = this.sortedKeys();
+        final int to = (int) Math.min((long) from + count, sorted.length);
+
+        final List<SpreadsheetCellReference> keys = Lists.array();
+        for (int i = from; i < to; i++) {
+            keys.add(SpreadsheetCellReference.unpack(sorted[i]));
+        }
+        return keys;
+    }
+
+    /**
+     * Returns all values in {@link SpreadsheetCellReference} order.
+     */
+    public List<V> values() {
+        return this.values(0, this.size);
+    }
+
+    /**
+     * Returns up to count values in {@link SpreadsheetCellReference} order, starting with the first key at or after
+     * the given {@link SpreadsheetCellReference}.
+     */
+    public List<V> values(final SpreadsheetCellReference from,
+                          final int count) {
+        final long[] sorted = this.sortedKeys();
+
+        int index = Arrays.binarySearch(sorted, from.pack());
+        if (index < 0) {
+            index = -index - 1;
+        }
+
+        return this.values(index, count);
+    }
+
+    private List<V> values(final int from,
+                           final int count) {
+        final long[] sorted = this.sortedKeys();
+        final int to = (int) Math.min((long) from + count, sorted.length);
+
+        final List<V> values = Lists.array();
+        for (int i = from; i < to; i++) {
+            values.add(this.value(this.slot(sorted[i])));
+        }
+        return values;
+    }
+
+    /**
+     * Returns the packed keys in order, sorting them only when a key was added or removed since the last call. Concurrent
+     * readers may both sort, but only ever see a complete array.
+     */
+    private long[] sortedKeys() {
+        long[] sorted = this.sortedKeys;
+        if (null == sorted) {
+            sorted = new long[this.size];
+
+            int i = 0;
+            for (final long key : this.keys) {
+                if (EMPTY != key) {
+                    sorted[i++] = key;
+                }
+            }
+            Arrays.sort(sorted);
+
+            this.sortedKeys = sorted;
+        }
+        return sorted;
+    }
+
+    /**
+     * Finds the slot holding the packed key or -1 if absent.
+     */
+    private int slot(final long key) {
+        final long[] keys = this.keys;
+        final int mask = keys.length - 1;
+
+        int slot = index(key, mask);
+        for (; ; ) {
+            final long k = keys[slot];
+            if (key == k) {
+                break;
+            }
+            if (EMPTY == k) {
+                slot = -1;
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(final int slot) {
+        return (V) this.values[slot];
+    }
+
+    private void resize() {
+        final long[] keys = this.keys;
+        final Object[] values = this.values;
+
+        this.allocate(keys.length * 2);
+
+        final long[] newKeys = this.keys;
+        final int mask = newKeys.length - 1;
+
+        for (int i = 0; i < keys.length; i++) {
+            final long key = keys[i];
+            if (EMPTY != key) {
+                int slot = index(key, mask);
+                while (EMPTY != newKeys[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                newKeys[slot] = key;
+                this.values[slot] = values[i];
+            }
+        }
+    }
+
+    private void allocate(final int capacity) {
+        final long[] keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+
+        this.keys = keys;
+        this.values = new Object[capacity];
+        this.resizeThreshold = capacity / 2 + capacity / 4;
+    }
+
+    /**
+     * Mixes the column and row bits so neighbouring cells do not cluster into neighbouring slots.
+     */
+    private static int index(final long key,
+                             final int mask) {
+        final int hash = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private long[] keys;
+
+    private Object[] values;
+
+    private int size;
+
+    private int resizeThreshold;
+
+    /**
+     * The packed keys in order, or null when a key was added or removed since they were last sorted.
+     */
+    private volatile long[] sortedKeys;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        final StringBuilder b = new StringBuilder();
+        b.append('{');
+
+        String separator = "";
+        for (final long key : this.sortedKeys()) {
+            b.append(separator)
+                    .append(SpreadsheetCellReference.unpack(key))
+                    .append('=')
+                    .append(this.values[this.slot(key)]);
+            separator = ", ";
+        }
+
+        return b.append('}')
+                .toString();
+    }
+}
@@ -489,11 +489,33 @@ public final class SpreadsheetCellReference extends SpreadsheetCellReferenceOrRa
         return this;
     }
 
+    // pack.............................................................................................................
+
+    /**
+     * Packs the column and row values into a single long, with the column in the high 32 bits and the row in the low
+     * 32 bits. Like {@link #compareTo(SpreadsheetCellReference)} the {@link SpreadsheetReferenceKind} is ignored, and
+     * packed values sort in the same order as {@link #compareTo(SpreadsheetCellReference)}.
+     */
+    public long pack() {
+        return (long) this.column.value << 32 | this.row.value;
+    }
+
+    /**
+     * The inverse of {@link #pack()}, always returning a {@link SpreadsheetReferenceKind#RELATIVE} reference.
+     */
+    public static SpreadsheetCellReference unpack(final long packed) {
+        return SpreadsheetReferenceKind.RELATIVE.column((int) (packed >>> 32))
+                .setRow(
+                        SpreadsheetReferenceKind.RELATIVE.row((int) packed)
+                );
+    }
+
     // Object...........................................................................................................
 
     @Override
     public int hashCode() {
-        return Objects.hash(this.column, this.row);
+        // same value as Objects.hash(column, row) without allocating a varargs array.
+        return 31 * (31 + this.column.hashCode()) + this.row.hashCode();
     }
 
     @Override
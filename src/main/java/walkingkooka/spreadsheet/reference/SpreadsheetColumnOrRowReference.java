@@ -158,7 +158,8 @@ abstract public class SpreadsheetColumnOrRowReference extends SpreadsheetSelecti
 
     @Override
     public final int hashCode() {
-        return Objects.hash(this.value, this.referenceKind);
+        // same value as Objects.hash(value, referenceKind) without allocating a varargs array.
+        return 31 * (31 + this.value) + this.referenceKind.hashCode();
     }
 
     @Override
@@ -25,6 +25,7 @@ import walkingkooka.test.Fake;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public class FakeSpreadsheetCellRangeStore<V> extends FakeStore<SpreadsheetCellRange, List<V>> implements SpreadsheetCellRangeStore<V>, Fake {
 
@@ -67,6 +68,13 @@ public class FakeSpreadsheetCellRangeStore<V> extends FakeStore<SpreadsheetCellR
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public Runnable addValueWatcher(final Consumer<SpreadsheetCellRange> watcher) {
+        Objects.requireNonNull(watcher, "watcher");
+
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public Set<SpreadsheetCellRange> rangesWithValue(final V value) {
         Objects.requireNonNull(value, "value");
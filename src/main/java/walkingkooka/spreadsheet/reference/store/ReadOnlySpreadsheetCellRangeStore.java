@@ -113,6 +113,13 @@ final class ReadOnlySpreadsheetCellRangeStore<V> implements SpreadsheetCellRange
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public Runnable addValueWatcher(final Consumer<SpreadsheetCellRange> watcher) {
+        Objects.requireNonNull(watcher, "watcher");
+
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public Set<SpreadsheetCellRange> rangesWithValue(final V value) {
         Objects.requireNonNull(value, "value");
@@ -78,6 +78,13 @@ public interface SpreadsheetCellRangeStore<V> extends SpreadsheetStore<Spreadshe
      */
     void removeValue(final SpreadsheetCellRange range, final V value);
 
+    /**
+     * Adds a watcher that receives the {@link SpreadsheetCellRange} each time {@link #addValue(SpreadsheetCellRange, Object)},
+     * {@link #replaceValue(SpreadsheetCellRange, Object, Object)} or {@link #removeValue(SpreadsheetCellRange, Object)}
+     * updates its values.
+     */
+    Runnable addValueWatcher(final Consumer<SpreadsheetCellRange> watcher);
+
     /**
      * Returns all the {@link SpreadsheetCellRange ranges} containing the given value.
      */
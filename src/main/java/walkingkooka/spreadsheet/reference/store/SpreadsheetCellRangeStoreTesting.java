@@ -93,6 +93,50 @@ public interface SpreadsheetCellRangeStoreTesting<S extends SpreadsheetCellRange
         this.checkEquals(Lists.of(range), fired, "fired values");
     }
 
+    @Test
+    default void testAddValueWatcherAndAddValue() {
+        final SpreadsheetCellRange range = this.id();
+        final V value = this.valueValue();
+
+        final S store = this.createStore();
+
+        final List<SpreadsheetCellRange> fired = Lists.array();
+        store.addValueWatcher(fired::add);
+
+        store.addValue(range, value);
+
+        this.checkEquals(Lists.of(range), fired, "fired ranges");
+    }
+
+    @Test
+    default void testAddValueWatcherAndRemoveValue() {
+        final SpreadsheetCellRange range = this.id();
+        final V value = this.valueValue();
+
+        final S store = this.createStore();
+        store.addValue(range, value);
+
+        final List<SpreadsheetCellRange> fired = Lists.array();
+        store.addValueWatcher(fired::add);
+
+        store.removeValue(range, value);
+
+        this.checkEquals(Lists.of(range), fired, "fired ranges");
+    }
+
+    @Test
+    default void testAddValueWatcherAndRemoveWatcher() {
+        final S store = this.createStore();
+
+        final List<SpreadsheetCellRange> fired = Lists.array();
+        store.addValueWatcher(fired::add)
+                .run();
+
+        store.addValue(this.id(), this.valueValue());
+
+        this.checkEquals(Lists.empty(), fired, "fired ranges");
+    }
+
     @Test
     default void testAddValueNullRangeFails() {
         assertThrows(NullPointerException.class, () -> this.createStore().addValue(null, this.valueValue()));
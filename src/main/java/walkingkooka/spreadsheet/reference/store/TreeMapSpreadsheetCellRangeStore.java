@@ -134,7 +134,9 @@ final class TreeMapSpreadsheetCellRangeStore<V> implements SpreadsheetCellRangeS
         checkRange(range);
         checkValue(value);
 
-        this.addValue0(range.toRelative(), value);
+        final SpreadsheetCellRange relative = range.toRelative();
+        this.addValue0(relative, value);
+        this.valueWatchers.accept(relative);
     }
 
     private void addValue0(final SpreadsheetCellRange range, final V value) {
@@ -171,10 +173,14 @@ final class TreeMapSpreadsheetCellRangeStore<V> implements SpreadsheetCellRangeS
         Objects.requireNonNull(newValue, "newValue");
         Objects.requireNonNull(oldValue, "oldValue");
 
-        return !oldValue.equals(newValue) &&
+        final boolean replaced = !oldValue.equals(newValue) &&
                 this.replace0(range, newValue, oldValue) &&
                 this.replace1(range, newValue, oldValue) &&
                 this.replace2(range, newValue, oldValue);
+        if (replaced) {
+            this.valueWatchers.accept(range.toRelative());
+        }
+        return replaced;
     }
 
     private boolean replace0(final SpreadsheetCellRange range, final V newValue, final V oldValue) {
@@ -224,6 +230,7 @@ final class TreeMapSpreadsheetCellRangeStore<V> implements SpreadsheetCellRangeS
         this.removeTopLeftValue(range, value);
         this.removeBottomRightValue(range, value);
         this.valueToRanges.remove(value);
+        this.valueWatchers.accept(range.toRelative());
     }
 
     private void removeTopLeftValue(final SpreadsheetCellRange range, final V value) {
@@ -246,6 +253,13 @@ final class TreeMapSpreadsheetCellRangeStore<V> implements SpreadsheetCellRangeS
         }
     }
 
+    @Override
+    public Runnable addValueWatcher(final Consumer<SpreadsheetCellRange> watcher) {
+        return this.valueWatchers.addWatcher(watcher);
+    }
+
+    private final Watchers<SpreadsheetCellRange> valueWatchers = Watchers.create();
+
     // delete .....................................................................................................
 
     /**
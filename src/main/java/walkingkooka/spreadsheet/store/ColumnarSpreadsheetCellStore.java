@@ -0,0 +1,499 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store;
+
+import walkingkooka.collect.list.Lists;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.SpreadsheetFormula;
+import walkingkooka.spreadsheet.format.pattern.SpreadsheetFormatPattern;
+import walkingkooka.spreadsheet.format.pattern.SpreadsheetParsePattern;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetColumnReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetRowReference;
+import walkingkooka.store.Store;
+import walkingkooka.store.Watchers;
+import walkingkooka.tree.text.Length;
+import walkingkooka.tree.text.PixelLength;
+import walkingkooka.tree.text.TextStyle;
+import walkingkooka.tree.text.TextStylePropertyName;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * A {@link SpreadsheetCellStore} that keeps cells in per column {@link ColumnarSpreadsheetCellStoreColumn chunks}
+ * rather than as {@link SpreadsheetCell} objects. Each chunk holds the row values, the parts of each formula, formatted
+ * text and indices of interned styles and patterns in parallel arrays. Cells share equal {@link TextStyle} and
+ * patterns, which are forgotten once no cell uses them, and the per cell map entry, {@link SpreadsheetCell},
+ * {@link SpreadsheetFormula} and {@link Optional} wrappers are only created when a cell is loaded.
+ * <br>
+ * Loaded cells are equal to but not the same instance as the saved {@link SpreadsheetCell}, so the purity and compiled
+ * form of a formula are computed again after each load.
+ */
+final class ColumnarSpreadsheetCellStore implements SpreadsheetCellStore {
+
+    /**
+     * Factory that creates a new {@link ColumnarSpreadsheetCellStore}
+     */
+    static ColumnarSpreadsheetCellStore create() {
+        return new ColumnarSpreadsheetCellStore();
+    }
+
+    /**
+     * Private ctor.
+     */
+    private ColumnarSpreadsheetCellStore() {
+        super();
+    }
+
+    @Override
+    public Optional<SpreadsheetCell> load(final SpreadsheetCellReference id) {
+        Objects.requireNonNull(id, "id");
+
+        SpreadsheetCell cell = null;
+
+        final ColumnarSpreadsheetCellStoreColumn column = this.column(id.column().value());
+        if (null != column) {
+            final int index = column.indexOf(id.row().value());
+            if (index >= 0) {
+                cell = this.cell(
+                        id.column().value(),
+                        column,
+                        index
+                );
+            }
+        }
+
+        return Optional.ofNullable(cell);
+    }
+
+    @Override
+    public SpreadsheetCell save(final SpreadsheetCell cell) {
+        this.saveReplacing(cell);
+        return cell;
+    }
+
+    @Override
+    public boolean saveReplacing(final SpreadsheetCell cell) {
+        Objects.requireNonNull(cell, "cell");
+
+        final SpreadsheetCellReference reference = cell.reference();
+        final int columnValue = reference.column().value();
+        final int row = reference.row().value();
+
+        ColumnarSpreadsheetCellStoreColumn column = this.column(columnValue);
+        if (null == column) {
+            column = ColumnarSpreadsheetCellStoreColumn.empty();
+            this.setColumn(columnValue, column);
+        }
+
+        // intern the new values before releasing any replaced, so an unchanged value is never forgotten.
+        final int style = this.styles.index(cell.style());
+        final int parsePattern = this.parsePatterns.index(cell.parsePattern());
+        final int formatPattern = this.formatPatterns.index(cell.formatPattern());
+
+        final int index = column.indexOf(row);
+        final boolean replacing = index >= 0;
+        if (replacing) {
+            this.release(column, index);
+            column.set(
+                    index,
+                    cell,
+                    style,
+                    parsePattern,
+                    formatPattern
+            );
+        } else {
+            column.insert(
+                    -index - 1,
+                    row,
+                    cell,
+                    style,
+                    parsePattern,
+                    formatPattern
+            );
+            this.count++;
+        }
+
+        this.updateImpureCells(reference, cell);
+        this.saveWatchers.accept(cell);
+        return replacing;
+    }
+
+    @Override
+    public Runnable addSaveWatcher(final Consumer<SpreadsheetCell> saved) {
+        return this.saveWatchers.addWatcher(saved);
+    }
+
+    private final Watchers<SpreadsheetCell> saveWatchers = Watchers.create();
+
+    @Override
+    public void delete(final SpreadsheetCellReference id) {
+        Objects.requireNonNull(id, "id");
+
+        final ColumnarSpreadsheetCellStoreColumn column = this.column(id.column().value());
+        if (null != column) {
+            final int index = column.indexOf(id.row().value());
+            if (index >= 0) {
+                this.release(column, index);
+                column.remove(index);
+                this.count--;
+                this.impureCells.remove(id);
+                this.deleteWatchers.accept(id);
+            }
+        }
+    }
+
+    @Override
+    public Runnable addDeleteWatcher(final Consumer<SpreadsheetCellReference> deleted) {
+        return this.deleteWatchers.addWatcher(deleted);
+    }
+
+    private final Watchers<SpreadsheetCellReference> deleteWatchers = Watchers.create();
+
+    @Override
+    public int count() {
+        return this.count;
+    }
+
+    private int count;
+
+    @Override
+    public Set<SpreadsheetCellReference> ids(final int from,
+                                             final int count) {
+        Store.checkFromAndTo(from, count);
+
+        final Set<SpreadsheetCellReference> ids = Sets.ordered();
+
+        int skip = from;
+        final ColumnarSpreadsheetCellStoreColumn[] columns = this.columns;
+        for (int c = 0; c < columns.length && ids.size() < count; c++) {
+            final ColumnarSpreadsheetCellStoreColumn column = columns[c];
+            if (null != column) {
+                final int size = column.size();
+                if (skip >= size) {
+                    skip -= size;
+                    continue;
+                }
+
+                for (int i = skip; i < size && ids.size() < count; i++) {
+                    ids.add(column.reference(c, i));
+                }
+                skip = 0;
+            }
+        }
+
+        return ids;
+    }
+
+    /**
+     * Find the first cell at or after the from {@link SpreadsheetCellReference} and then gather the required count.
+     */
+    @Override
+    public List<SpreadsheetCell> values(final SpreadsheetCellReference from,
+                                        final int count) {
+        Store.checkFromAndToIds(from, count);
+
+        final List<SpreadsheetCell> values = Lists.array();
+
+        final ColumnarSpreadsheetCellStoreColumn[] columns = this.columns;
+        final int fromColumn = from.column().value();
+
+        for (int c = fromColumn; c < columns.length && values.size() < count; c++) {
+            final ColumnarSpreadsheetCellStoreColumn column = columns[c];
+            if (null != column) {
+                final int size = column.size();
+                for (int i = c == fromColumn ? column.ceiling(from.row().value()) : 0; i < size && values.size() < count; i++) {
+                    values.add(this.cell(c, column, i));
+                }
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * Only visits the columns within the range, and within each column only the rows within the range.
+     */
+    @Override
+    public Set<SpreadsheetCell> loadCells(final SpreadsheetCellRange range) {
+        Objects.requireNonNull(range, "ranges");
+
+        final Set<SpreadsheetCell> cells = Sets.sorted();
+
+        final SpreadsheetCellReference begin = range.begin();
+        final SpreadsheetCellReference end = range.end();
+        final int endRow = end.row().value();
+
+        final ColumnarSpreadsheetCellStoreColumn[] columns = this.columns;
+        final int endColumn = Math.min(end.column().value(), columns.length - 1);
+
+        for (int c = begin.column().value(); c <= endColumn; c++) {
+            final ColumnarSpreadsheetCellStoreColumn column = columns[c];
+            if (null != column) {
+                final int size = column.size();
+                for (int i = column.ceiling(begin.row().value()); i < size && column.row(i) <= endRow; i++) {
+                    cells.add(this.cell(c, column, i));
+                }
+            }
+        }
+
+        return Sets.readOnly(cells);
+    }
+
+    @Override
+    public int rows() {
+        int max = 0;
+
+        for (final ColumnarSpreadsheetCellStoreColumn column : this.columns) {
+            if (null != column) {
+                final int size = column.size();
+                if (size > 0) {
+                    // rows are sorted, the last is the greatest
+                    max = Math.max(max, column.row(size - 1));
+                }
+            }
+        }
+
+        return max;
+    }
+
+    @Override
+    public int columns() {
+        int max = 0;
+
+        final ColumnarSpreadsheetCellStoreColumn[] columns = this.columns;
+        for (int c = columns.length - 1; c >= 0; c--) {
+            final ColumnarSpreadsheetCellStoreColumn column = columns[c];
+            if (null != column && column.size() > 0) {
+                max = c;
+                break;
+            }
+        }
+
+        return max;
+    }
+
+    @Override
+    public Set<SpreadsheetCell> row(final SpreadsheetRowReference row) {
+        Objects.requireNonNull(row, "row");
+
+        final Set<SpreadsheetCell> cells = Sets.sorted();
+
+        final int rowValue = row.value();
+        final ColumnarSpreadsheetCellStoreColumn[] columns = this.columns;
+        for (int c = 0; c < columns.length; c++) {
+            final ColumnarSpreadsheetCellStoreColumn column = columns[c];
+            if (null != column) {
+                final int index = column.indexOf(rowValue);
+                if (index >= 0) {
+                    cells.add(this.cell(c, column, index));
+                }
+            }
+        }
+
+        return cells;
+    }
+
+    @Override
+    public Set<SpreadsheetCell> column(final SpreadsheetColumnReference column) {
+        Objects.requireNonNull(column, "column");
+
+        final Set<SpreadsheetCell> cells = Sets.sorted();
+
+        final int columnValue = column.value();
+        final ColumnarSpreadsheetCellStoreColumn chunk = this.column(columnValue);
+        if (null != chunk) {
+            final int size = chunk.size();
+            for (int i = 0; i < size; i++) {
+                cells.add(this.cell(columnValue, chunk, i));
+            }
+        }
+
+        return cells;
+    }
+
+    /**
+     * Finds the max {@link TextStylePropertyName#WIDTH} of all cells in the given column, reading only the style of
+     * each cell.
+     */
+    @Override
+    public double maxColumnWidth(final SpreadsheetColumnReference column) {
+        Objects.requireNonNull(column, "column");
+
+        double max = 0;
+
+        final ColumnarSpreadsheetCellStoreColumn chunk = this.column(column.value());
+        if (null != chunk) {
+            final int size = chunk.size();
+            for (int i = 0; i < size; i++) {
+                max = Math.max(
+                        max,
+                        this.pixels(chunk.style(i), TextStylePropertyName.WIDTH)
+                );
+            }
+        }
+
+        return max;
+    }
+
+    /**
+     * Finds the max {@link TextStylePropertyName#HEIGHT} of all cells in the given row, reading only the style of
+     * each cell.
+     */
+    @Override
+    public double maxRowHeight(final SpreadsheetRowReference row) {
+        Objects.requireNonNull(row, "row");
+
+        double max = 0;
+
+        final int rowValue = row.value();
+        for (final ColumnarSpreadsheetCellStoreColumn column : this.columns) {
+            if (null != column) {
+                final int index = column.indexOf(rowValue);
+                if (index >= 0) {
+                    max = Math.max(
+                            max,
+                            this.pixels(column.style(index), TextStylePropertyName.HEIGHT)
+                    );
+                }
+            }
+        }
+
+        return max;
+    }
+
+    @Override
+    public Set<SpreadsheetCellReference> impureCells() {
+        final Set<SpreadsheetCellReference> impureCells = Sets.sorted();
+        impureCells.addAll(this.impureCells);
+        return Sets.readOnly(impureCells);
+    }
+
+    private void updateImpureCells(final SpreadsheetCellReference reference,
+                                   final SpreadsheetCell cell) {
+        if (cell.formula().isImpure()) {
+            this.impureCells.add(reference);
+        } else {
+            this.impureCells.remove(reference);
+        }
+    }
+
+    /**
+     * The references of saved cells whose formula was found to be impure when it was parsed.
+     */
+    private final Set<SpreadsheetCellReference> impureCells = Sets.sorted();
+
+    private double pixels(final int style,
+                          final TextStylePropertyName<Length<?>> property) {
+        double pixels = 0;
+
+        final Optional<Length<?>> length = this.styles.get(style)
+                .get(property);
+        if (length.isPresent()) {
+            final PixelLength pixelLength = (PixelLength) length.get();
+            pixels = pixelLength.value();
+        }
+
+        return pixels;
+    }
+
+    // columns..........................................................................................................
+
+    private ColumnarSpreadsheetCellStoreColumn column(final int column) {
+        final ColumnarSpreadsheetCellStoreColumn[] columns = this.columns;
+        return column < columns.length ?
+                columns[column] :
+                null;
+    }
+
+    private void setColumn(final int column,
+                           final ColumnarSpreadsheetCellStoreColumn chunk) {
+        ColumnarSpreadsheetCellStoreColumn[] columns = this.columns;
+        if (column >= columns.length) {
+            columns = Arrays.copyOf(columns, Math.max(column + 1, columns.length * 2));
+            this.columns = columns;
+        }
+        columns[column] = chunk;
+    }
+
+    /**
+     * Chunks indexed by column value, null entries have never had a cell saved.
+     */
+    private ColumnarSpreadsheetCellStoreColumn[] columns = new ColumnarSpreadsheetCellStoreColumn[0];
+
+    // cell.............................................................................................................
+
+    /**
+     * Materialises the {@link SpreadsheetCell} at the given index within a column. The parse pattern is set before
+     * the formula, because setting a parse pattern clears any formula token.
+     */
+    private SpreadsheetCell cell(final int columnValue,
+                                 final ColumnarSpreadsheetCellStoreColumn column,
+                                 final int index) {
+        return column.reference(columnValue, index)
+                .setFormula(SpreadsheetFormula.EMPTY)
+                .setParsePattern(this.parsePatterns.get(column.parsePattern(index)))
+                .setFormula(column.formula(index))
+                .setStyle(this.styles.get(column.style(index)))
+                .setFormatPattern(this.formatPatterns.get(column.formatPattern(index)))
+                .setFormatted(column.formatted(index));
+    }
+
+    /**
+     * Releases the interned style and patterns of the cell at the index, before it is replaced or removed.
+     */
+    private void release(final ColumnarSpreadsheetCellStoreColumn column,
+                         final int index) {
+        this.styles.release(column.style(index));
+        this.parsePatterns.release(column.parsePattern(index));
+        this.formatPatterns.release(column.formatPattern(index));
+    }
+
+    private final ColumnarSpreadsheetCellStoreInterner<TextStyle> styles = ColumnarSpreadsheetCellStoreInterner.empty();
+
+    private final ColumnarSpreadsheetCellStoreInterner<Optional<SpreadsheetParsePattern>> parsePatterns = ColumnarSpreadsheetCellStoreInterner.empty();
+
+    private final ColumnarSpreadsheetCellStoreInterner<Optional<SpreadsheetFormatPattern>> formatPatterns = ColumnarSpreadsheetCellStoreInterner.empty();
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        final List<SpreadsheetCell> cells = Lists.array();
+
+        final ColumnarSpreadsheetCellStoreColumn[] columns = this.columns;
+        for (int c = 0; c < columns.length; c++) {
+            final ColumnarSpreadsheetCellStoreColumn column = columns[c];
+            if (null != column) {
+                final int size = column.size();
+                for (int i = 0; i < size; i++) {
+                    cells.add(this.cell(c, column, i));
+                }
+            }
+        }
+
+        return cells.toString();
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store;
+
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.SpreadsheetFormula;
+import walkingkooka.spreadsheet.parser.SpreadsheetParserToken;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetReferenceKind;
+import walkingkooka.tree.expression.Expression;
+import walkingkooka.tree.text.TextNode;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Holds the parts of all cells within a single column of a {@link ColumnarSpreadsheetCellStore}, in parallel arrays
+ * sorted by row. No {@link SpreadsheetFormula} or {@link Optional} is kept, only the text, token, expression and value
+ * of each formula where a null means absent, and the text only when there is no token. The {@link SpreadsheetReferenceKind} of the column and row of each
+ * reference are held as bits in a byte, and a formatted {@link TextNode} that is only text is held as a
+ * {@link String}. Styles and patterns are held as indices into the
+ * {@link ColumnarSpreadsheetCellStoreInterner interners} of the store.
+ */
+final class ColumnarSpreadsheetCellStoreColumn {
+
+    private final static int INITIAL_CAPACITY = 8;
+
+    private final static byte ABSOLUTE_COLUMN = 1;
+
+    private final static byte ABSOLUTE_ROW = 2;
+
+    static ColumnarSpreadsheetCellStoreColumn empty() {
+        return new ColumnarSpreadsheetCellStoreColumn();
+    }
+
+    private ColumnarSpreadsheetCellStoreColumn() {
+        super();
+        this.rows = new int[INITIAL_CAPACITY];
+        this.kinds = new byte[INITIAL_CAPACITY];
+        this.texts = new String[INITIAL_CAPACITY];
+        this.tokens = new SpreadsheetParserToken[INITIAL_CAPACITY];
+        this.expressions = new Expression[INITIAL_CAPACITY];
+        this.values = new Object[INITIAL_CAPACITY];
+        this.styles = new int[INITIAL_CAPACITY];
+        this.parsePatterns = new int[INITIAL_CAPACITY];
+        this.formatPatterns = new int[INITIAL_CAPACITY];
+        this.formatted = new Object[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Returns the index of the row, or when absent -(insertion point) - 1, like {@link Arrays#binarySearch(int[], int)}.
+     */
+    int indexOf(final int row) {
+        return Arrays.binarySearch(this.rows, 0, this.size, row);
+    }
+
+    /**
+     * Returns the index of the first row at or after the given row, which may be {@link #size()}.
+     */
+    int ceiling(final int row) {
+        final int index = this.indexOf(row);
+        return index >= 0 ?
+                index :
+                -index - 1;
+    }
+
+    /**
+     * Replaces the cell parts at an existing index.
+     */
+    void set(final int index,
+             final SpreadsheetCell cell,
+             final int style,
+             final int parsePattern,
+             final int formatPattern) {
+        final SpreadsheetCellReference reference = cell.reference();
+        this.kinds[index] = (byte) (
+                (SpreadsheetReferenceKind.ABSOLUTE == reference.column().referenceKind() ? ABSOLUTE_COLUMN : 0) |
+                        (SpreadsheetReferenceKind.ABSOLUTE == reference.row().referenceKind() ? ABSOLUTE_ROW : 0)
+        );
+
+        // the text of a formula with a token is the text of the token and is not kept.
+        final SpreadsheetFormula formula = cell.formula();
+        final SpreadsheetParserToken token = formula.token()
+                .orElse(null);
+        this.texts[index] = null != token ?
+                null :
+                formula.text();
+        this.tokens[index] = token;
+        this.expressions[index] = formula.expression()
+                .orElse(null);
+        this.values[index] = formula.value()
+                .orElse(null);
+
+        this.styles[index] = style;
+        this.parsePatterns[index] = parsePattern;
+        this.formatPatterns[index] = formatPattern;
+
+        final TextNode formatted = cell.formatted()
+                .orElse(null);
+        this.formatted[index] = null != formatted && isText(formatted) ?
+                formatted.text() :
+                formatted;
+    }
+
+    /**
+     * Tests if the {@link TextNode} is only text without any styling or parent.
+     */
+    private static boolean isText(final TextNode formatted) {
+        return false == formatted.parent().isPresent() &&
+                TextNode.text(formatted.text())
+                        .equals(formatted);
+    }
+
+    /**
+     * Inserts a new row at the index, shifting any following rows.
+     */
+    void insert(final int index,
+                final int row,
+                final SpreadsheetCell cell,
+                final int style,
+                final int parsePattern,
+                final int formatPattern) {
+        final int size = this.size;
+        if (size == this.rows.length) {
+            this.grow();
+        }
+
+        final int move = size - index;
+        if (move > 0) {
+            this.move(index, index + 1, move);
+        }
+
+        this.rows[index] = row;
+        this.set(index, cell, style, parsePattern, formatPattern);
+        this.size = size + 1;
+    }
+
+    /**
+     * Removes the row at the index, shifting any following rows.
+     */
+    void remove(final int index) {
+        final int size = this.size - 1;
+
+        final int move = size - index;
+        if (move > 0) {
+            this.move(index + 1, index, move);
+        }
+
+        // release references so removed cells may be collected.
+        this.texts[size] = null;
+        this.tokens[size] = null;
+        this.expressions[size] = null;
+        this.values[size] = null;
+        this.formatted[size] = null;
+        this.size = size;
+    }
+
+    private void move(final int from,
+                      final int to,
+                      final int count) {
+        System.arraycopy(this.rows, from, this.rows, to, count);
+        System.arraycopy(this.kinds, from, this.kinds, to, count);
+        System.arraycopy(this.texts, from, this.texts, to, count);
+        System.arraycopy(this.tokens, from, this.tokens, to, count);
+        System.arraycopy(this.expressions, from, this.expressions, to, count);
+        System.arraycopy(this.values, from, this.values, to, count);
+        System.arraycopy(this.styles, from, this.styles, to, count);
+        System.arraycopy(this.parsePatterns, from, this.parsePatterns, to, count);
+        System.arraycopy(this.formatPatterns, from, this.formatPatterns, to, count);
+        System.arraycopy(this.formatted, from, this.formatted, to, count);
+    }
+
+    private void grow() {
+        final int capacity = this.rows.length * 2;
+
+        this.rows = Arrays.copyOf(this.rows, capacity);
+        this.kinds = Arrays.copyOf(this.kinds, capacity);
+        this.texts = Arrays.copyOf(this.texts, capacity);
+        this.tokens = Arrays.copyOf(this.tokens, capacity);
+        this.expressions = Arrays.copyOf(this.expressions, capacity);
+        this.values = Arrays.copyOf(this.values, capacity);
+        this.styles = Arrays.copyOf(this.styles, capacity);
+        this.parsePatterns = Arrays.copyOf(this.parsePatterns, capacity);
+        this.formatPatterns = Arrays.copyOf(this.formatPatterns, capacity);
+        this.formatted = Arrays.copyOf(this.formatted, capacity);
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    int row(final int index) {
+        return this.rows[index];
+    }
+
+    /**
+     * Creates the {@link SpreadsheetCellReference} at the index with the {@link SpreadsheetReferenceKind kinds} it was
+     * saved with.
+     */
+    SpreadsheetCellReference reference(final int column,
+                                       final int index) {
+        final byte kinds = this.kinds[index];
+
+        return referenceKind(kinds, ABSOLUTE_COLUMN)
+                .column(column)
+                .setRow(
+                        referenceKind(kinds, ABSOLUTE_ROW)
+                                .row(this.rows[index])
+                );
+    }
+
+    private static SpreadsheetReferenceKind referenceKind(final byte kinds,
+                                                          final byte absolute) {
+        return 0 != (kinds & absolute) ?
+                SpreadsheetReferenceKind.ABSOLUTE :
+                SpreadsheetReferenceKind.RELATIVE;
+    }
+
+    /**
+     * Creates the {@link SpreadsheetFormula} at the index from its parts.
+     */
+    SpreadsheetFormula formula(final int index) {
+        final SpreadsheetParserToken token = this.tokens[index];
+
+        return (null != token ?
+                SpreadsheetFormula.EMPTY.setToken(Optional.of(token)) :
+                SpreadsheetFormula.EMPTY.setText(this.texts[index]))
+                .setExpression(Optional.ofNullable(this.expressions[index]))
+                .setValue(Optional.ofNullable(this.values[index]));
+    }
+
+    int style(final int index) {
+        return this.styles[index];
+    }
+
+    int parsePattern(final int index) {
+        return this.parsePatterns[index];
+    }
+
+    int formatPattern(final int index) {
+        return this.formatPatterns[index];
+    }
+
+    Optional<TextNode> formatted(final int index) {
+        final Object formatted = this.formatted[index];
+
+        return Optional.ofNullable(
+                formatted instanceof String ?
+                        TextNode.text((String) formatted) :
+                        (TextNode) formatted
+        );
+    }
+
+    private int size;
+
+    private int[] rows;
+
+    /**
+     * The {@link #ABSOLUTE_COLUMN} and {@link #ABSOLUTE_ROW} bits of each reference.
+     */
+    private byte[] kinds;
+
+    private String[] texts;
+
+    private SpreadsheetParserToken[] tokens;
+
+    private Expression[] expressions;
+
+    private Object[] values;
+
+    private int[] styles;
+
+    private int[] parsePatterns;
+
+    private int[] formatPatterns;
+
+    /**
+     * Holds either the {@link String} of a text only {@link TextNode}, any other {@link TextNode} or null for none.
+     */
+    private Object[] formatted;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return Arrays.toString(Arrays.copyOf(this.rows, this.size));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store;
+
+import walkingkooka.collect.list.Lists;
+import walkingkooka.collect.map.Maps;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns an int index to each distinct value, so cells sharing an equal {@link walkingkooka.tree.text.TextStyle} or
+ * pattern share a single instance. Each index counts the cells using it, and once {@link #release(int) released} by
+ * the last cell the value is forgotten and the index is reused by the next new value.
+ */
+final class ColumnarSpreadsheetCellStoreInterner<T> {
+
+    static <T> ColumnarSpreadsheetCellStoreInterner<T> empty() {
+        return new ColumnarSpreadsheetCellStoreInterner<>();
+    }
+
+    private ColumnarSpreadsheetCellStoreInterner() {
+        super();
+    }
+
+    /**
+     * Returns the index of the given value, adding it if absent, and counts one more use of that index.
+     */
+    int index(final T value) {
+        Integer index = this.valueToIndex.get(value);
+        if (null == index) {
+            final List<Integer> free = this.free;
+            if (free.isEmpty()) {
+                index = this.values.size();
+                this.values.add(value);
+
+                if (index == this.counts.length) {
+                    this.counts = Arrays.copyOf(this.counts, Math.max(8, index * 2));
+                }
+            } else {
+                index = free.remove(free.size() - 1);
+                this.values.set(index, value);
+            }
+            this.valueToIndex.put(value, index);
+        }
+
+        this.counts[index]++;
+        return index;
+    }
+
+    /**
+     * Counts one less use of an index previously returned by {@link #index(Object)}, forgetting its value when no
+     * longer used.
+     */
+    void release(final int index) {
+        if (0 == --this.counts[index]) {
+            this.valueToIndex.remove(
+                    this.values.set(index, null)
+            );
+            this.free.add(index);
+        }
+    }
+
+    /**
+     * Returns the value for an index previously returned by {@link #index(Object)}.
+     */
+    T get(final int index) {
+        return this.values.get(index);
+    }
+
+    /**
+     * The number of values currently in use.
+     */
+    int size() {
+        return this.valueToIndex.size();
+    }
+
+    private final List<T> values = Lists.array();
+
+    private final Map<T, Integer> valueToIndex = Maps.ordered();
+
+    /**
+     * The number of uses of each index.
+     */
+    private int[] counts = new int[0];
+
+    /**
+     * Indices no longer used which will be reused by new values.
+     */
+    private final List<Integer> free = Lists.array();
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.valueToIndex.keySet()
+                .toString();
+    }
+}
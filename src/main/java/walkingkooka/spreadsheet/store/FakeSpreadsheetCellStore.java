@@ -63,4 +63,9 @@ public class FakeSpreadsheetCellStore extends FakeStore<SpreadsheetCellReference
     public double maxRowHeight(final SpreadsheetRowReference row) {
         throw new UnsupportedOperationException();
     }
+
+    @Override
+    public Set<SpreadsheetCellReference> impureCells() {
+        throw new UnsupportedOperationException();
+    }
 }
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store;
+
+import walkingkooka.collect.set.Sets;
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.reference.PackedSpreadsheetCellReferenceMap;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetColumnReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetRowReference;
+import walkingkooka.store.Store;
+import walkingkooka.store.Watchers;
+import walkingkooka.tree.text.Length;
+import walkingkooka.tree.text.PixelLength;
+import walkingkooka.tree.text.TextStylePropertyName;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link SpreadsheetCellStore} that holds its cells in a {@link PackedSpreadsheetCellReferenceMap}, keyed by the
+ * {@link SpreadsheetCellReference#pack() packed} reference. This uses less memory per cell than the
+ * {@link TreeMapSpreadsheetCellStore} and load/save/delete do not need to walk a tree. Pages and
+ * {@link #cursor(SpreadsheetCellStoreCursorOrder) cursors} read cells in order from the sorted keys of the map, which
+ * are only sorted again after a cell is added or deleted.
+ */
+final class PackedSpreadsheetCellStore implements SpreadsheetCellStore {
+
+    /**
+     * Factory that creates a new {@link PackedSpreadsheetCellStore}
+     */
+    static PackedSpreadsheetCellStore create() {
+        return new PackedSpreadsheetCellStore();
+    }
+
+    /**
+     * Private ctor.
+     */
+    private PackedSpreadsheetCellStore() {
+        super();
+    }
+
+    @Override
+    public Optional<SpreadsheetCell> load(final SpreadsheetCellReference id) {
+        Objects.requireNonNull(id, "id");
+
+        return Optional.ofNullable(this.cells.get(id));
+    }
+
+    @Override
+    public SpreadsheetCell save(final SpreadsheetCell cell) {
+        this.saveReplacing(cell);
+        return cell;
+    }
+
+    @Override
+    public boolean saveReplacing(final SpreadsheetCell cell) {
+        Objects.requireNonNull(cell, "cell");
+
+        final SpreadsheetCellReference reference = cell.reference();
+        final boolean replacing = null != this.cells.put(reference, cell);
+        this.updateImpureCells(reference, cell);
+        this.saveWatchers.accept(cell);
+
+        return replacing;
+    }
+
+    @Override
+    public Runnable addSaveWatcher(final Consumer<SpreadsheetCell> saved) {
+        return this.saveWatchers.addWatcher(saved);
+    }
+
+    private final Watchers<SpreadsheetCell> saveWatchers = Watchers.create();
+
+    @Override
+    public void delete(final SpreadsheetCellReference id) {
+        Objects.requireNonNull(id, "id");
+
+        final PackedSpreadsheetCellReferenceMap<SpreadsheetCell> cells = this.cells;
+        if (cells.containsKey(id)) {
+            cells.remove(id);
+            this.impureCells.remove(id);
+            this.deleteWatchers.accept(id);
+        }
+    }
+
+    @Override
+    public Runnable addDeleteWatcher(final Consumer<SpreadsheetCellReference> deleted) {
+        return this.deleteWatchers.addWatcher(deleted);
+    }
+
+    private final Watchers<SpreadsheetCellReference> deleteWatchers = Watchers.create();
+
+    @Override
+    public int count() {
+        return this.cells.size();
+    }
+
+    @Override
+    public Set<SpreadsheetCellReference> ids(final int from,
+                                             final int count) {
+        Store.checkFromAndTo(from, count);
+
+        final Set<SpreadsheetCellReference> ids = Sets.ordered();
+        ids.addAll(
+                this.cells.keys(from, count)
+        );
+        return ids;
+    }
+
+    /**
+     * Seeks the first cell at or after the from {@link SpreadsheetCellReference} in the sorted keys and then gathers
+     * the required count.
+     */
+    @Override
+    public List<SpreadsheetCell> values(final SpreadsheetCellReference from,
+                                        final int count) {
+        Store.checkFromAndToIds(from, count);
+
+        return this.cells.values(from, count);
+    }
+
+    @Override
+    public int rows() {
+        return this.max(c -> c.reference().row().value());
+    }
+
+    @Override
+    public int columns() {
+        return this.max(c -> c.reference().column().value());
+    }
+
+    private int max(final ToIntFunction<SpreadsheetCell> value) {
+        return this.cells.values()
+                .stream()
+                .mapToInt(value)
+                .max()
+                .orElse(0);
+    }
+
+    @Override
+    public Set<SpreadsheetCell> row(final SpreadsheetRowReference row) {
+        Objects.requireNonNull(row, "row");
+
+        return this.filter(c -> row.compareTo(c.reference().row()) == 0);
+    }
+
+    @Override
+    public Set<SpreadsheetCell> column(final SpreadsheetColumnReference column) {
+        Objects.requireNonNull(column, "column");
+
+        return this.filter(c -> column.compareTo(c.reference().column()) == 0);
+    }
+
+    private Set<SpreadsheetCell> filter(final Predicate<SpreadsheetCell> filter) {
+        return this.cells.values()
+                .stream()
+                .filter(filter)
+                .collect(Collectors.toCollection(Sets::sorted));
+    }
+
+    /**
+     * Filters all cells with the given column and finds the max {@link TextStylePropertyName#WIDTH} value.
+     */
+    @Override
+    public double maxColumnWidth(final SpreadsheetColumnReference column) {
+        Objects.requireNonNull(column, "column");
+
+        return this.max(
+                c -> c.reference().column().equalsIgnoreReferenceKind(column),
+                TextStylePropertyName.WIDTH
+        );
+    }
+
+    /**
+     * Filters all cells with the given row and finds the max {@link TextStylePropertyName#HEIGHT} value.
+     */
+    @Override
+    public double maxRowHeight(final SpreadsheetRowReference row) {
+        Objects.requireNonNull(row, "row");
+
+        return this.max(
+                c -> c.reference().row().equalsIgnoreReferenceKind(row),
+                TextStylePropertyName.HEIGHT
+        );
+    }
+
+    @Override
+    public Set<SpreadsheetCellReference> impureCells() {
+        final Set<SpreadsheetCellReference> impureCells = Sets.sorted();
+        impureCells.addAll(this.impureCells);
+        return Sets.readOnly(impureCells);
+    }
+
+    private void updateImpureCells(final SpreadsheetCellReference reference,
+                                   final SpreadsheetCell cell) {
+        if (cell.formula().isImpure()) {
+            this.impureCells.add(reference);
+        } else {
+            this.impureCells.remove(reference);
+        }
+    }
+
+    /**
+     * The references of saved cells whose formula was found to be impure when it was parsed.
+     */
+    private final Set<SpreadsheetCellReference> impureCells = Sets.sorted();
+
+    private double max(final Predicate<SpreadsheetCell> filter,
+                       final TextStylePropertyName<Length<?>> property) {
+        return this.cells.values()
+                .stream()
+                .filter(filter)
+                .mapToDouble(c -> {
+                    double pixels = 0;
+
+                    final Optional<Length<?>> length = c.style()
+                            .get(property);
+                    if (length.isPresent()) {
+                        final PixelLength pixelLength = (PixelLength) length.get();
+                        pixels = pixelLength.value();
+                    }
+
+                    return pixels;
+                })
+                .max()
+                .orElse(0.0);
+    }
+
+    // VisibleForTesting
+    private final PackedSpreadsheetCellReferenceMap<SpreadsheetCell> cells = PackedSpreadsheetCellReferenceMap.empty();
+
+    @Override
+    public String toString() {
+        return this.cells.values()
+                .toString();
+    }
+}
@@ -26,6 +26,7 @@ import walkingkooka.spreadsheet.reference.SpreadsheetRowReference;
 import walkingkooka.spreadsheet.reference.store.SpreadsheetStore;
 import walkingkooka.store.Store;
 
+import java.util.Iterator;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -37,6 +38,19 @@ import java.util.Set;
  */
 public interface SpreadsheetCellStore extends SpreadsheetStore<SpreadsheetCellReference, SpreadsheetCell> {
 
+    /**
+     * Saves the cell, returning true if it replaced an existing cell. The default loads the cell before saving it,
+     * stores that find the existing cell while saving should override this.
+     */
+    default boolean saveReplacing(final SpreadsheetCell cell) {
+        Objects.requireNonNull(cell, "cell");
+
+        final boolean replacing = this.load(cell.reference())
+                .isPresent();
+        this.save(cell);
+        return replacing;
+    }
+
     /**
      * Attempts to load all the cells in the given {@link SpreadsheetCellRange}.
      */
@@ -66,6 +80,17 @@ public interface SpreadsheetCellStore extends SpreadsheetStore<SpreadsheetCellRe
                 .forEach(this::delete);
     }
 
+    /**
+     * Returns a forward only {@link Iterator} that visits every cell in the given order, without holding all cells in
+     * memory. The default reads pages of cells using {@link #values(SpreadsheetCellReference, int)}, which should find
+     * the first cell without visiting the cells before it.
+     */
+    default Iterator<SpreadsheetCell> cursor(final SpreadsheetCellStoreCursorOrder order) {
+        Objects.requireNonNull(order, "order");
+
+        return order.cursor(this);
+    }
+
     /**
      * The highest row number
      */
@@ -95,4 +120,10 @@ public interface SpreadsheetCellStore extends SpreadsheetStore<SpreadsheetCellRe
      * Returns the max row height for the given {@link SpreadsheetRowReference}
      */
     double maxRowHeight(final SpreadsheetRowReference row);
+
+    /**
+     * Returns the references of saved cells with a {@link walkingkooka.spreadsheet.SpreadsheetFormula#isImpure() impure formula},
+     * kept up to date as cells are saved and deleted, so volatile cells may be refreshed without visiting every cell.
+     */
+    Set<SpreadsheetCellReference> impureCells();
 }
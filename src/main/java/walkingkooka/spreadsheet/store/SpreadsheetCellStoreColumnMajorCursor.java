@@ -0,0 +1,179 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package walkingkooka.spreadsheet.store;
+
+import walkingkooka.collect.list.Lists;
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A forward only {@link Iterator} that visits cells in {@link SpreadsheetCellReference} order. Cells are read a page at
+ * a time using {@link SpreadsheetCellStore#values(SpreadsheetCellReference, int)}, each page continuing from the last
+ * cell visited, so only a single page is held in memory. Cells saved or deleted after the current page while the cursor
+ * is being read are visited or skipped. A cursor may be limited to the cells of a single column.
+ */
+final class SpreadsheetCellStoreColumnMajorCursor implements Iterator<SpreadsheetCell> {
+
+    /**
+     * The number of cells read by each page when visiting all cells.
+     */
+    // @VisibleForTesting
+    final static int PAGE_SIZE = 1024;
+
+    /**
+     * Creates a cursor that visits all cells.
+     */
+    static SpreadsheetCellStoreColumnMajorCursor all(final SpreadsheetCellStore store) {
+        return new SpreadsheetCellStoreColumnMajorCursor(
+                store,
+                SpreadsheetCellReference.A1,
+                ALL_COLUMNS,
+                PAGE_SIZE
+        );
+    }
+
+    /**
+     * Creates a cursor that visits the cells of the column of the given first cell, starting at that cell.
+     */
+    static SpreadsheetCellStoreColumnMajorCursor column(final SpreadsheetCellStore store,
+                                                        final SpreadsheetCellReference first,
+                                                        final int pageSize) {
+        return new SpreadsheetCellStoreColumnMajorCursor(
+                store,
+                first,
+                first.column().value(),
+                pageSize
+        );
+    }
+
+    private final static int ALL_COLUMNS = -1;
+
+    private SpreadsheetCellStoreColumnMajorCursor(final SpreadsheetCellStore store,
+                                                  final SpreadsheetCellReference from,
+                                                  final int column,
+                                                  final int pageSize) {
+        super();
+        this.store = store;
+        this.from = from;
+        this.column = column;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return this.fill();
+    }
+
+    @Override
+    public SpreadsheetCell next() {
+        final SpreadsheetCell cell = this.peek();
+        this.index++;
+        this.from = cell.reference();
+        this.skipFrom = true;
+        return cell;
+    }
+
+    /**
+     * Returns the next cell without advancing the cursor.
+     */
+    SpreadsheetCell peek() {
+        if (false == this.fill()) {
+            throw new NoSuchElementException();
+        }
+        return this.page.get(this.index);
+    }
+
+    /**
+     * Reads the next page when the current page has been consumed, returning false when there are no more cells.
+     */
+    private boolean fill() {
+        if (this.index >= this.end && false == this.finished) {
+            final SpreadsheetCellReference from = this.from;
+
+            // ask for one extra cell which will be the last visited cell, unless it was deleted.
+            final int count = this.pageSize + 1;
+            final List<SpreadsheetCell> page = this.store.values(from, count);
+            final int size = page.size();
+
+            int index = 0;
+            if (this.skipFrom && size > 0 && 0 == page.get(0).reference().compareTo(from)) {
+                index = 1;
+            }
+
+            int end = size;
+            final int column = this.column;
+            if (ALL_COLUMNS != column) {
+                for (int i = index; i < size; i++) {
+                    if (column != page.get(i).reference().column().value()) {
+                        end = i;
+                        break;
+                    }
+                }
+            }
+
+            this.page = page;
+            this.index = index;
+            this.end = end;
+            this.finished = size < count || end < size;
+        }
+
+        return this.index < this.end;
+    }
+
+    private final SpreadsheetCellStore store;
+
+    /**
+     * The first cell of the next page, initially the first cell and then the last visited cell.
+     */
+    private SpreadsheetCellReference from;
+
+    /**
+     * When true {@link #from} has already been visited and is skipped by the next page.
+     */
+    private boolean skipFrom;
+
+    /**
+     * The column value of all visited cells or {@link #ALL_COLUMNS}.
+     */
+    private final int column;
+
+    private final int pageSize;
+
+    private List<SpreadsheetCell> page = Lists.empty();
+
+    private int index;
+
+    private int end;
+
+    /**
+     * Becomes true once the store or the column has no more cells after the current page.
+     */
+    private boolean finished;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return SpreadsheetCellStoreCursorOrder.COLUMN_MAJOR + " " + this.from;
+    }
+}
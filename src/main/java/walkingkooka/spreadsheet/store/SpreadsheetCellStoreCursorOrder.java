@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package walkingkooka.spreadsheet.store;
+
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+
+import java.util.Comparator;
+import java.util.Iterator;
+
+/**
+ * The order {@link SpreadsheetCellStore#cursor(SpreadsheetCellStoreCursorOrder)} visits cells.
+ */
+public enum SpreadsheetCellStoreCursorOrder {
+
+    /**
+     * All the cells of the first row from left to right, followed by the cells of the next row.
+     */
+    ROW_MAJOR {
+        @Override
+        Iterator<SpreadsheetCell> cursor(final SpreadsheetCellStore store) {
+            return SpreadsheetCellStoreRowMajorCursor.with(store);
+        }
+
+        @Override
+        int compare(final SpreadsheetCellReference left,
+                    final SpreadsheetCellReference right) {
+            final int result = left.row().value() - right.row().value();
+            return 0 != result ?
+                    result :
+                    left.column().value() - right.column().value();
+        }
+    },
+
+    /**
+     * All the cells of the first column from top to bottom, followed by the cells of the next column. This is the
+     * order of {@link SpreadsheetCellReference#compareTo(SpreadsheetCellReference)}.
+     */
+    COLUMN_MAJOR {
+        @Override
+        Iterator<SpreadsheetCell> cursor(final SpreadsheetCellStore store) {
+            return SpreadsheetCellStoreColumnMajorCursor.all(store);
+        }
+
+        @Override
+        int compare(final SpreadsheetCellReference left,
+                    final SpreadsheetCellReference right) {
+            return left.compareTo(right);
+        }
+    };
+
+    /**
+     * Returns a cursor that reads the cells of the given {@link SpreadsheetCellStore} in this order.
+     */
+    abstract Iterator<SpreadsheetCell> cursor(final SpreadsheetCellStore store);
+
+    /**
+     * Compares two {@link SpreadsheetCellReference} in this order, ignoring their
+     * {@link walkingkooka.spreadsheet.reference.SpreadsheetReferenceKind}.
+     */
+    abstract int compare(final SpreadsheetCellReference left,
+                         final SpreadsheetCellReference right);
+
+    /**
+     * Returns a {@link Comparator} that sorts {@link SpreadsheetCellReference} in this order.
+     */
+    Comparator<SpreadsheetCellReference> comparator() {
+        return this::compare;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package walkingkooka.spreadsheet.store;
+
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetColumnReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetReferenceKind;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * A forward only {@link Iterator} that visits cells row by row, for stores that keep cells in column order. A
+ * {@link SpreadsheetCellStoreColumnMajorCursor} is opened for each column holding cells, and the cursor always visits
+ * the column cursor with the lowest next row, so only a small page per column is held in memory and never all cells.
+ */
+final class SpreadsheetCellStoreRowMajorCursor implements Iterator<SpreadsheetCell> {
+
+    /**
+     * The number of cells read by each page of a column.
+     */
+    // @VisibleForTesting
+    final static int COLUMN_PAGE_SIZE = 64;
+
+    static SpreadsheetCellStoreRowMajorCursor with(final SpreadsheetCellStore store) {
+        return new SpreadsheetCellStoreRowMajorCursor(store);
+    }
+
+    private SpreadsheetCellStoreRowMajorCursor(final SpreadsheetCellStore store) {
+        super();
+
+        final Comparator<SpreadsheetCellReference> comparator = SpreadsheetCellStoreCursorOrder.ROW_MAJOR.comparator();
+        final PriorityQueue<SpreadsheetCellStoreColumnMajorCursor> columns = new PriorityQueue<>(
+                (l, r) -> comparator.compare(
+                        l.peek().reference(),
+                        r.peek().reference()
+                )
+        );
+
+        // find the first cell of each column, skipping directly over empty columns.
+        SpreadsheetCellReference from = SpreadsheetCellReference.A1;
+        for (; ; ) {
+            final List<SpreadsheetCell> first = store.values(from, 1);
+            if (first.isEmpty()) {
+                break;
+            }
+
+            final SpreadsheetCellReference reference = first.get(0)
+                    .reference();
+            final SpreadsheetCellStoreColumnMajorCursor column = SpreadsheetCellStoreColumnMajorCursor.column(
+                    store,
+                    reference,
+                    COLUMN_PAGE_SIZE
+            );
+            if (column.hasNext()) {
+                columns.add(column);
+            }
+
+            final SpreadsheetColumnReference columnReference = reference.column();
+            if (columnReference.isLast()) {
+                break;
+            }
+            from = columnReference.add(1)
+                    .setRow(SpreadsheetReferenceKind.RELATIVE.firstRow());
+        }
+
+        this.columns = columns;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return false == this.columns.isEmpty();
+    }
+
+    @Override
+    public SpreadsheetCell next() {
+        final PriorityQueue<SpreadsheetCellStoreColumnMajorCursor> columns = this.columns;
+
+        final SpreadsheetCellStoreColumnMajorCursor column = columns.poll();
+        if (null == column) {
+            throw new NoSuchElementException();
+        }
+
+        final SpreadsheetCell cell = column.next();
+        if (column.hasNext()) {
+            columns.add(column);
+        }
+        return cell;
+    }
+
+    /**
+     * A cursor for each column with remaining cells, ordered by their next cell.
+     */
+    private final PriorityQueue<SpreadsheetCellStoreColumnMajorCursor> columns;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return SpreadsheetCellStoreCursorOrder.ROW_MAJOR + " " + this.columns.size() + " column(s)";
+    }
+}
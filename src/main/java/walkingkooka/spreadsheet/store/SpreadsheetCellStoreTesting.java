@@ -44,6 +44,14 @@ public interface SpreadsheetCellStoreTesting<S extends SpreadsheetCellStore> ext
         );
     }
 
+    @Test
+    default void testCursorNullOrderFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> this.createStore().cursor(null)
+        );
+    }
+
     @Test
     default void testColumnNullColumnFails() {
         assertThrows(
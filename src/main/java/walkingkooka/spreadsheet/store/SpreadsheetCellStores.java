@@ -28,6 +28,13 @@ import java.util.function.Supplier;
  */
 public final class SpreadsheetCellStores implements PublicStaticHelper {
 
+    /**
+     * {@see ColumnarSpreadsheetCellStore}
+     */
+    public static SpreadsheetCellStore columnar() {
+        return ColumnarSpreadsheetCellStore.create();
+    }
+
     /**
      * {@see FakeSpreadsheetCellStore}
      */
@@ -35,6 +42,13 @@ public final class SpreadsheetCellStores implements PublicStaticHelper {
         return new FakeSpreadsheetCellStore();
     }
 
+    /**
+     * {@see PackedSpreadsheetCellStore}
+     */
+    public static SpreadsheetCellStore packed() {
+        return PackedSpreadsheetCellStore.create();
+    }
+
     /**
      * {@see SpreadsheetFormulaSpreadsheetMetadataAwareSpreadsheetCellStore}
      */
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store;
+
+import walkingkooka.collect.map.Maps;
+
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+
+/**
+ * Maintains the runs of consecutive hidden column or row values, so tests and skips over many hidden columns or rows
+ * take a single lookup rather than loading each column or row. Adjacent runs are always merged, so the value before the
+ * start or after the end of a run is always visible.
+ */
+final class SpreadsheetColumnOrRowStoreHiddenRuns {
+
+    static SpreadsheetColumnOrRowStoreHiddenRuns empty() {
+        return new SpreadsheetColumnOrRowStoreHiddenRuns();
+    }
+
+    private SpreadsheetColumnOrRowStoreHiddenRuns() {
+        super();
+    }
+
+    /**
+     * Marks the given value as hidden, joining any run ending immediately before or starting immediately after.
+     */
+    void hide(final int value) {
+        if (false == this.isHidden(value)) {
+            final NavigableMap<Integer, Integer> startToEnd = this.startToEnd;
+
+            int start = value;
+            int end = value;
+
+            final Entry<Integer, Integer> before = startToEnd.floorEntry(value - 1);
+            if (null != before && before.getValue() == value - 1) {
+                start = before.getKey();
+            }
+
+            final Integer after = startToEnd.remove(value + 1);
+            if (null != after) {
+                end = after;
+            }
+
+            startToEnd.put(start, end);
+        }
+    }
+
+    /**
+     * Marks the given value as visible, splitting the run holding the value if necessary.
+     */
+    void show(final int value) {
+        final Entry<Integer, Integer> run = this.run(value);
+        if (null != run) {
+            final NavigableMap<Integer, Integer> startToEnd = this.startToEnd;
+
+            final int start = run.getKey();
+            final int end = run.getValue();
+
+            startToEnd.remove(start);
+            if (start < value) {
+                startToEnd.put(start, value - 1);
+            }
+            if (value < end) {
+                startToEnd.put(value + 1, end);
+            }
+        }
+    }
+
+    boolean isHidden(final int value) {
+        return null != this.run(value);
+    }
+
+    /**
+     * Returns the first visible value moving right or down from and including the given value. The result may be
+     * greater than the max column or row if all are hidden.
+     */
+    int nextVisible(final int value) {
+        final Entry<Integer, Integer> run = this.run(value);
+        return null != run ?
+                run.getValue() + 1 :
+                value;
+    }
+
+    /**
+     * Returns the first visible value moving left or up from and including the given value. The result will be -1 if
+     * all are hidden.
+     */
+    int previousVisible(final int value) {
+        final Entry<Integer, Integer> run = this.run(value);
+        return null != run ?
+                run.getKey() - 1 :
+                value;
+    }
+
+    /**
+     * Counts the hidden values between the two inclusive bounds.
+     */
+    int countHidden(final int from,
+                    final int to) {
+        final NavigableMap<Integer, Integer> startToEnd = this.startToEnd;
+
+        final Integer first = startToEnd.floorKey(from);
+
+        int count = 0;
+        for (final Entry<Integer, Integer> run : startToEnd.subMap(null != first ? first : from, true, to, true).entrySet()) {
+            final int start = Math.max(from, run.getKey());
+            final int end = Math.min(to, run.getValue());
+            if (start <= end) {
+                count = count + end - start + 1;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the run holding the given value or null if the value is visible.
+     */
+    private Entry<Integer, Integer> run(final int value) {
+        final Entry<Integer, Integer> run = this.startToEnd.floorEntry(value);
+        return null != run && run.getValue() >= value ?
+                run :
+                null;
+    }
+
+    /**
+     * Each run of hidden values, keyed by the first and holding the last value inclusive.
+     */
+    // @VisibleForTesting
+    final NavigableMap<Integer, Integer> startToEnd = Maps.sorted();
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        final StringBuilder b = new StringBuilder();
+
+        String separator = "";
+        for (final Entry<Integer, Integer> run : this.startToEnd.entrySet()) {
+            b.append(separator)
+                    .append(run.getKey())
+                    .append('-')
+                    .append(run.getValue());
+            separator = ",";
+        }
+
+        return b.toString();
+    }
+}
@@ -49,6 +49,23 @@ public interface SpreadsheetColumnStore extends SpreadsheetColumnOrRowStore<Spre
         return Sets.readOnly(columns);
     }
 
+    /**
+     * Counts the columns in the given {@link SpreadsheetColumnReferenceRange} that are not hidden.
+     */
+    default int countVisibleColumns(final SpreadsheetColumnReferenceRange range) {
+        Objects.requireNonNull(range, "range");
+
+        int count = 0;
+
+        for (final SpreadsheetColumnReference columnReference : range) {
+            if (false == this.isHidden(columnReference)) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
     /**
      * Attempts to save all the columns.
      */
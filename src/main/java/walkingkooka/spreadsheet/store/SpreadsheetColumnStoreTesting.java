@@ -61,6 +61,26 @@ public interface SpreadsheetColumnStoreTesting<S extends SpreadsheetColumnStore>
         );
     }
 
+    @Test
+    default void testCountVisibleColumnsWithNullFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> this.createStore().countVisibleColumns(null)
+        );
+    }
+
+    default void countVisibleColumnsAndCheck(final S store,
+                                             final String range,
+                                             final int expected) {
+        this.checkEquals(
+                expected,
+                store.countVisibleColumns(
+                        SpreadsheetSelection.parseColumnRange(range)
+                ),
+                () -> "countVisibleColumns " + range + " " + store
+        );
+    }
+
     @Test
     default void testSaveColumnsWithNullFails() {
         assertThrows(
@@ -33,6 +33,7 @@ import walkingkooka.tree.expression.Expression;
 import walkingkooka.tree.expression.ExpressionEvaluationContext;
 
 import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -107,6 +108,15 @@ final class SpreadsheetFormulaSpreadsheetMetadataAwareSpreadsheetCellStore imple
         );
     }
 
+    @Override
+    public boolean saveReplacing(final SpreadsheetCell cell) {
+        Objects.requireNonNull(cell, "cell");
+
+        return this.store.saveReplacing(
+                this.ensureFormulaHasToken(cell)
+        );
+    }
+
     /**
      * If the {@link SpreadsheetFormula#token()} or {@link SpreadsheetFormula#expression()} are missing, parsing the text
      * and rebuilding the expression is performed. This has the side effect that the value/error will also be cleared.
@@ -194,6 +204,14 @@ final class SpreadsheetFormulaSpreadsheetMetadataAwareSpreadsheetCellStore imple
         return this.fixFormulaTextList(this.store.values(cellReference, count));
     }
 
+    @Override
+    public Iterator<SpreadsheetCell> cursor(final SpreadsheetCellStoreCursorOrder order) {
+        return SpreadsheetFormulaSpreadsheetMetadataAwareSpreadsheetCellStoreCursor.with(
+                this.store.cursor(order),
+                this::fixFormulaText
+        );
+    }
+
     @Override
     public int rows() {
         return this.store.rows();
@@ -224,6 +242,11 @@ final class SpreadsheetFormulaSpreadsheetMetadataAwareSpreadsheetCellStore imple
         return this.store.maxRowHeight(row);
     }
 
+    @Override
+    public Set<SpreadsheetCellReference> impureCells() {
+        return this.store.impureCells();
+    }
+
     // helpers that do the formula tokenization/text thing..............................................................
 
     private List<SpreadsheetCell> fixFormulaTextList(final List<SpreadsheetCell> cells) {
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package walkingkooka.spreadsheet.store;
+
+import walkingkooka.spreadsheet.SpreadsheetCell;
+
+import java.util.Iterator;
+import java.util.function.Function;
+
+/**
+ * Wraps the cursor of the wrapped {@link SpreadsheetCellStore}, fixing the formula text of each cell as it is visited.
+ */
+final class SpreadsheetFormulaSpreadsheetMetadataAwareSpreadsheetCellStoreCursor implements Iterator<SpreadsheetCell> {
+
+    static SpreadsheetFormulaSpreadsheetMetadataAwareSpreadsheetCellStoreCursor with(final Iterator<SpreadsheetCell> cursor,
+                                                                                     final Function<SpreadsheetCell, SpreadsheetCell> fixFormulaText) {
+        return new SpreadsheetFormulaSpreadsheetMetadataAwareSpreadsheetCellStoreCursor(cursor, fixFormulaText);
+    }
+
+    private SpreadsheetFormulaSpreadsheetMetadataAwareSpreadsheetCellStoreCursor(final Iterator<SpreadsheetCell> cursor,
+                                                                                final Function<SpreadsheetCell, SpreadsheetCell> fixFormulaText) {
+        super();
+        this.cursor = cursor;
+        this.fixFormulaText = fixFormulaText;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return this.cursor.hasNext();
+    }
+
+    @Override
+    public SpreadsheetCell next() {
+        return this.fixFormulaText.apply(this.cursor.next());
+    }
+
+    private final Iterator<SpreadsheetCell> cursor;
+
+    private final Function<SpreadsheetCell, SpreadsheetCell> fixFormulaText;
+
+    @Override
+    public String toString() {
+        return this.cursor.toString();
+    }
+}
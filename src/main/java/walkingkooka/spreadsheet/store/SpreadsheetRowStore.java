@@ -50,6 +50,23 @@ public interface SpreadsheetRowStore extends SpreadsheetColumnOrRowStore<Spreads
         return Sets.readOnly(rows);
     }
 
+    /**
+     * Counts the rows in the given {@link SpreadsheetRowReferenceRange} that are not hidden.
+     */
+    default int countVisibleRows(final SpreadsheetRowReferenceRange range) {
+        Objects.requireNonNull(range, "range");
+
+        int count = 0;
+
+        for (final SpreadsheetRowReference rowReference : range) {
+            if (false == this.isHidden(rowReference)) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
     /**
      * Attempts to save all the rows.
      */
@@ -61,6 +61,26 @@ public interface SpreadsheetRowStoreTesting<S extends SpreadsheetRowStore> exten
         );
     }
 
+    @Test
+    default void testCountVisibleRowsWithNullFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> this.createStore().countVisibleRows(null)
+        );
+    }
+
+    default void countVisibleRowsAndCheck(final S store,
+                                          final String range,
+                                          final int expected) {
+        this.checkEquals(
+                expected,
+                store.countVisibleRows(
+                        SpreadsheetSelection.parseRowRange(range)
+                ),
+                () -> "countVisibleRows " + range + " " + store
+        );
+    }
+
     @Test
     default void testUpSkipHiddenFirstRow() {
         final SpreadsheetRowReference first = SpreadsheetReferenceKind.RELATIVE.firstRow();
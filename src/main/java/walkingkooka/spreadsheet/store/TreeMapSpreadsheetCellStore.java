@@ -17,30 +17,33 @@
 
 package walkingkooka.spreadsheet.store;
 
+import walkingkooka.collect.list.Lists;
 import walkingkooka.collect.set.Sets;
 import walkingkooka.spreadsheet.SpreadsheetCell;
 import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetColumnReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetRowReference;
 import walkingkooka.store.Store;
-import walkingkooka.store.Stores;
+import walkingkooka.store.Watchers;
 import walkingkooka.tree.text.Length;
 import walkingkooka.tree.text.PixelLength;
 import walkingkooka.tree.text.TextStylePropertyName;
 
-import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 
 /**
- * A {@link SpreadsheetCellStore} that uses a {@link Map}.
+ * A {@link SpreadsheetCellStore} that uses a {@link TreeMap}. {@link #values(SpreadsheetCellReference, int)} finds the
+ * first cell using the tree, so paging and {@link #cursor(SpreadsheetCellStoreCursorOrder) cursors} do not walk all
+ * cells before each page.
  */
 final class TreeMapSpreadsheetCellStore implements SpreadsheetCellStore {
 
@@ -56,53 +59,88 @@ final class TreeMapSpreadsheetCellStore implements SpreadsheetCellStore {
      */
     private TreeMapSpreadsheetCellStore() {
         super();
-        this.store = Stores.treeMap(Comparator.naturalOrder(), TreeMapSpreadsheetCellStore::idSetter);
     }
 
-    private static SpreadsheetCell idSetter(final SpreadsheetCellReference id, final SpreadsheetCell spreadsheetCell) {
-        throw new UnsupportedOperationException();
+    @Override
+    public Optional<SpreadsheetCell> load(final SpreadsheetCellReference id) {
+        Objects.requireNonNull(id, "id");
+
+        return Optional.ofNullable(this.cells.get(id));
     }
 
     @Override
-    public Optional<SpreadsheetCell> load(final SpreadsheetCellReference id) {
-        return this.store.load(id);
+    public SpreadsheetCell save(final SpreadsheetCell cell) {
+        this.saveReplacing(cell);
+        return cell;
     }
 
     @Override
-    public SpreadsheetCell save(final SpreadsheetCell spreadsheetCell) {
-        return this.store.save(spreadsheetCell);
+    public boolean saveReplacing(final SpreadsheetCell cell) {
+        Objects.requireNonNull(cell, "cell");
+
+        final SpreadsheetCellReference reference = cell.reference();
+        final boolean replacing = null != this.cells.put(reference, cell);
+        this.updateImpureCells(reference, cell);
+        this.saveWatchers.accept(cell);
+
+        return replacing;
     }
 
     @Override
     public Runnable addSaveWatcher(final Consumer<SpreadsheetCell> saved) {
-        return this.store.addSaveWatcher(saved);
+        return this.saveWatchers.addWatcher(saved);
     }
 
+    private final Watchers<SpreadsheetCell> saveWatchers = Watchers.create();
+
     @Override
     public void delete(final SpreadsheetCellReference id) {
-        this.store.delete(id);
+        Objects.requireNonNull(id, "id");
+
+        if (null != this.cells.remove(id)) {
+            this.impureCells.remove(id);
+            this.deleteWatchers.accept(id);
+        }
     }
 
     @Override
     public Runnable addDeleteWatcher(final Consumer<SpreadsheetCellReference> deleted) {
-        return this.store.addDeleteWatcher(deleted);
+        return this.deleteWatchers.addWatcher(deleted);
     }
 
+    private final Watchers<SpreadsheetCellReference> deleteWatchers = Watchers.create();
+
     @Override
     public int count() {
-        return this.store.count();
+        return this.cells.size();
     }
 
     @Override
     public Set<SpreadsheetCellReference> ids(final int from,
                                              final int count) {
-        return this.store.ids(from, count);
+        Store.checkFromAndTo(from, count);
+
+        return this.cells.keySet()
+                .stream()
+                .skip(from)
+                .limit(count)
+                .collect(Collectors.toCollection(Sets::ordered));
     }
 
+    /**
+     * Uses the tree to find the first cell at or after the from {@link SpreadsheetCellReference} and then gathers the
+     * required count.
+     */
     @Override
     public List<SpreadsheetCell> values(final SpreadsheetCellReference from,
                                         final int count) {
-        return this.store.values(from, count);
+        Store.checkFromAndToIds(from, count);
+
+        return this.cells.tailMap(from, true)
+                .values()
+                .stream()
+                .limit(count)
+                .collect(Collectors.toCollection(Lists::array));
     }
 
     @Override
@@ -116,7 +154,7 @@ final class TreeMapSpreadsheetCellStore implements SpreadsheetCellStore {
     }
 
     private int max(final ToIntFunction<SpreadsheetCell> value) {
-        return this.all()
+        return this.cells.values()
                 .stream()
                 .mapToInt(value)
                 .max()
@@ -138,7 +176,7 @@ final class TreeMapSpreadsheetCellStore implements SpreadsheetCellStore {
     }
 
     private Set<SpreadsheetCell> filter(final Predicate<SpreadsheetCell> filter) {
-        return this.all()
+        return this.cells.values()
                 .stream()
                 .filter(filter)
                 .collect(Collectors.toCollection(Sets::sorted));
@@ -151,7 +189,7 @@ final class TreeMapSpreadsheetCellStore implements SpreadsheetCellStore {
     public double maxColumnWidth(final SpreadsheetColumnReference column) {
         Objects.requireNonNull(column, "column");
 
-        return this.all().stream()
+        return this.cells.values().stream()
                 .filter(c -> c.reference().column().equalsIgnoreReferenceKind(column))
                 .mapToDouble(c -> {
                     double pixels = 0;
@@ -176,7 +214,7 @@ final class TreeMapSpreadsheetCellStore implements SpreadsheetCellStore {
     public double maxRowHeight(final SpreadsheetRowReference row) {
         Objects.requireNonNull(row, "row");
 
-        return this.all().stream()
+        return this.cells.values().stream()
                 .filter(c -> c.reference().row().equalsIgnoreReferenceKind(row))
                 .mapToDouble(c -> {
                     double pixels = 0;
@@ -194,11 +232,31 @@ final class TreeMapSpreadsheetCellStore implements SpreadsheetCellStore {
                 .orElse(0.0);
     }
 
-    // VisibleForTesting
-    private final Store<SpreadsheetCellReference, SpreadsheetCell> store;
+    @Override
+    public Set<SpreadsheetCellReference> impureCells() {
+        final Set<SpreadsheetCellReference> impureCells = Sets.sorted();
+        impureCells.addAll(this.impureCells);
+        return Sets.readOnly(impureCells);
+    }
+
+    private void updateImpureCells(final SpreadsheetCellReference reference,
+                                   final SpreadsheetCell cell) {
+        if (cell.formula().isImpure()) {
+            this.impureCells.add(reference);
+        } else {
+            this.impureCells.remove(reference);
+        }
+    }
+
+    /**
+     * The references of saved cells whose formula was found to be impure when it was parsed.
+     */
+    private final Set<SpreadsheetCellReference> impureCells = Sets.sorted();
+
+    private final NavigableMap<SpreadsheetCellReference, SpreadsheetCell> cells = new TreeMap<>();
 
     @Override
     public String toString() {
-        return this.store.toString();
+        return this.cells.values().toString();
     }
 }
@@ -20,11 +20,13 @@ package walkingkooka.spreadsheet.store;
 
 import walkingkooka.spreadsheet.SpreadsheetColumn;
 import walkingkooka.spreadsheet.reference.SpreadsheetColumnReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetColumnReferenceRange;
 import walkingkooka.store.Store;
 import walkingkooka.store.Stores;
 
 import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
@@ -62,7 +64,16 @@ final class TreeMapSpreadsheetColumnStore implements SpreadsheetColumnStore {
 
     @Override
     public SpreadsheetColumn save(final SpreadsheetColumn SpreadsheetColumn) {
-        return this.store.save(SpreadsheetColumn);
+        final SpreadsheetColumn saved = this.store.save(SpreadsheetColumn);
+
+        final int value = saved.reference().value();
+        if (saved.hidden()) {
+            this.hidden.hide(value);
+        } else {
+            this.hidden.show(value);
+        }
+
+        return saved;
     }
 
     @Override
@@ -73,6 +84,7 @@ final class TreeMapSpreadsheetColumnStore implements SpreadsheetColumnStore {
     @Override
     public void delete(final SpreadsheetColumnReference id) {
         this.store.delete(id);
+        this.hidden.show(id.value());
     }
 
     @Override
@@ -98,49 +110,59 @@ final class TreeMapSpreadsheetColumnStore implements SpreadsheetColumnStore {
     }
 
     @Override
-    public Optional<SpreadsheetColumnReference> leftSkipHidden(final SpreadsheetColumnReference reference) {
-        SpreadsheetColumnReference left = reference;
+    public boolean isHidden(final SpreadsheetColumnReference reference) {
+        return this.hidden.isHidden(reference.value());
+    }
 
-        for (; ; ) {
-            if (left.isFirst()) {
-                left = this.isHidden(reference) ?
-                        null :
-                        reference;
-                break;
-            }
+    @Override
+    public int countVisibleColumns(final SpreadsheetColumnReferenceRange range) {
+        Objects.requireNonNull(range, "range");
 
-            left = left.addSaturated(-1);
+        final int begin = range.begin().value();
+        final int end = range.end().value();
 
-            if (!this.isHidden(left)) {
-                break;
-            }
-        }
+        return end - begin + 1 - this.hidden.countHidden(begin, end);
+    }
 
-        return Optional.ofNullable(left);
+    @Override
+    public Optional<SpreadsheetColumnReference> leftSkipHidden(final SpreadsheetColumnReference reference) {
+        final int left = reference.isFirst() ?
+                -1 :
+                this.hidden.previousVisible(reference.value() - 1);
+
+        return left >= 0 ?
+                Optional.of(reference.setValue(left)) :
+                this.skipHiddenAllHidden(reference);
     }
 
     @Override
     public Optional<SpreadsheetColumnReference> rightSkipHidden(final SpreadsheetColumnReference reference) {
-        SpreadsheetColumnReference right = reference;
+        final int right = reference.isLast() ?
+                MAX + 1 :
+                this.hidden.nextVisible(reference.value() + 1);
 
-        for (; ; ) {
-            if (right.isLast()) {
-                right = this.isHidden(reference) ?
-                        null :
-                        reference;
-                break;
-            }
+        return right <= MAX ?
+                Optional.of(reference.setValue(right)) :
+                this.skipHiddenAllHidden(reference);
+    }
 
-            right = right.addSaturated(+1);
+    private final static int MAX = SpreadsheetColumnReference.MAX.value();
 
-            if (!this.isHidden(right)) {
-                break;
-            }
-        }
-
-        return Optional.ofNullable(right);
+    /**
+     * When all columns in the direction are hidden, the original {@link SpreadsheetColumnReference} is returned if it
+     * is visible.
+     */
+    private Optional<SpreadsheetColumnReference> skipHiddenAllHidden(final SpreadsheetColumnReference reference) {
+        return this.isHidden(reference) ?
+                Optional.empty() :
+                Optional.of(reference);
     }
 
+    /**
+     * Runs of hidden columns maintained as columns are saved and deleted.
+     */
+    private final SpreadsheetColumnOrRowStoreHiddenRuns hidden = SpreadsheetColumnOrRowStoreHiddenRuns.empty();
+
     // VisibleForTesting
     private final Store<SpreadsheetColumnReference, SpreadsheetColumn> store;
 
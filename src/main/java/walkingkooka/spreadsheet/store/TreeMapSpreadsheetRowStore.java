@@ -20,11 +20,13 @@ package walkingkooka.spreadsheet.store;
 
 import walkingkooka.spreadsheet.SpreadsheetRow;
 import walkingkooka.spreadsheet.reference.SpreadsheetRowReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetRowReferenceRange;
 import walkingkooka.store.Store;
 import walkingkooka.store.Stores;
 
 import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
@@ -62,7 +64,16 @@ final class TreeMapSpreadsheetRowStore implements SpreadsheetRowStore {
 
     @Override
     public SpreadsheetRow save(final SpreadsheetRow SpreadsheetRow) {
-        return this.store.save(SpreadsheetRow);
+        final SpreadsheetRow saved = this.store.save(SpreadsheetRow);
+
+        final int value = saved.reference().value();
+        if (saved.hidden()) {
+            this.hidden.hide(value);
+        } else {
+            this.hidden.show(value);
+        }
+
+        return saved;
     }
 
     @Override
@@ -73,6 +84,7 @@ final class TreeMapSpreadsheetRowStore implements SpreadsheetRowStore {
     @Override
     public void delete(final SpreadsheetRowReference id) {
         this.store.delete(id);
+        this.hidden.show(id.value());
     }
 
     @Override
@@ -87,7 +99,7 @@ final class TreeMapSpreadsheetRowStore implements SpreadsheetRowStore {
 
     @Override
     public Set<SpreadsheetRowReference> ids(final int from,
-                                            final int count) {
+                                         final int count) {
         return this.store.ids(from, count);
     }
 
@@ -98,49 +110,59 @@ final class TreeMapSpreadsheetRowStore implements SpreadsheetRowStore {
     }
 
     @Override
-    public Optional<SpreadsheetRowReference> upSkipHidden(final SpreadsheetRowReference reference) {
-        SpreadsheetRowReference up = reference;
+    public boolean isHidden(final SpreadsheetRowReference reference) {
+        return this.hidden.isHidden(reference.value());
+    }
 
-        for (; ; ) {
-            if (up.isFirst()) {
-                up = this.isHidden(reference) ?
-                        null :
-                        reference;
-                break;
-            }
+    @Override
+    public int countVisibleRows(final SpreadsheetRowReferenceRange range) {
+        Objects.requireNonNull(range, "range");
 
-            up = up.addSaturated(-1);
+        final int begin = range.begin().value();
+        final int end = range.end().value();
 
-            if (!this.isHidden(up)) {
-                break;
-            }
-        }
+        return end - begin + 1 - this.hidden.countHidden(begin, end);
+    }
 
-        return Optional.ofNullable(up);
+    @Override
+    public Optional<SpreadsheetRowReference> upSkipHidden(final SpreadsheetRowReference reference) {
+        final int up = reference.isFirst() ?
+                -1 :
+                this.hidden.previousVisible(reference.value() - 1);
+
+        return up >= 0 ?
+                Optional.of(reference.setValue(up)) :
+                this.skipHiddenAllHidden(reference);
     }
 
     @Override
     public Optional<SpreadsheetRowReference> downSkipHidden(final SpreadsheetRowReference reference) {
-        SpreadsheetRowReference down = reference;
+        final int down = reference.isLast() ?
+                MAX + 1 :
+                this.hidden.nextVisible(reference.value() + 1);
 
-        for (; ; ) {
-            if (down.isLast()) {
-                down = this.isHidden(reference) ?
-                        null :
-                        reference;
-                break;
-            }
+        return down <= MAX ?
+                Optional.of(reference.setValue(down)) :
+                this.skipHiddenAllHidden(reference);
+    }
 
-            down = down.addSaturated(+1);
+    private final static int MAX = SpreadsheetRowReference.MAX.value();
 
-            if (!this.isHidden(down)) {
-                break;
-            }
-        }
-
-        return Optional.ofNullable(down);
+    /**
+     * When all rows in the direction are hidden, the original {@link SpreadsheetRowReference} is returned if it
+     * is visible.
+     */
+    private Optional<SpreadsheetRowReference> skipHiddenAllHidden(final SpreadsheetRowReference reference) {
+        return this.isHidden(reference) ?
+                Optional.empty() :
+                Optional.of(reference);
     }
 
+    /**
+     * Runs of hidden rows maintained as rows are saved and deleted.
+     */
+    private final SpreadsheetColumnOrRowStoreHiddenRuns hidden = SpreadsheetColumnOrRowStoreHiddenRuns.empty();
+
     // VisibleForTesting
     private final Store<SpreadsheetRowReference, SpreadsheetRow> store;
 
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store.file;
+
+import walkingkooka.spreadsheet.store.SpreadsheetCellStore;
+
+/**
+ * A {@link SpreadsheetCellStore} that keeps its cells in a file. Saves and deletes are not durable until
+ * {@link #flush() flushed} or {@link #close() closed}, so the caller picks when to pay for syncing the file.
+ */
+public interface FileSpreadsheetCellStore extends SpreadsheetCellStore, AutoCloseable {
+
+    /**
+     * Forces all saves and deletes since the last flush to the file.
+     */
+    void flush();
+
+    /**
+     * Flushes and releases the file.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store.file;
+
+import walkingkooka.reflect.PublicStaticHelper;
+import walkingkooka.spreadsheet.store.SpreadsheetCellStore;
+import walkingkooka.tree.json.marshall.JsonNodeMarshallContext;
+import walkingkooka.tree.json.marshall.JsonNodeUnmarshallContext;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * Contains many factory methods for file backed {@link SpreadsheetCellStore} implementations. These are not available
+ * in javascript. Any of these may be given to
+ * {@link walkingkooka.spreadsheet.store.repo.SpreadsheetStoreRepositories#basic} in place of a heap store.
+ */
+public final class FileSpreadsheetCellStores implements PublicStaticHelper {
+
+    /**
+     * {@see MemoryMappedSpreadsheetCellStore}. The caller remains responsible for closing the {@link FileChannel}, closing
+     * the returned store only flushes it.
+     */
+    public static FileSpreadsheetCellStore memoryMapped(final FileChannel channel,
+                                                        final JsonNodeMarshallContext marshallContext,
+                                                        final JsonNodeUnmarshallContext unmarshallContext) {
+        return MemoryMappedSpreadsheetCellStore.with(
+                channel,
+                marshallContext,
+                unmarshallContext
+        );
+    }
+
+    /**
+     * {@see MemoryMappedSpreadsheetCellStore}. The store opens the file and compacts it when necessary, closing the
+     * returned store flushes it and closes the file.
+     */
+    public static FileSpreadsheetCellStore memoryMapped(final Path file,
+                                                        final JsonNodeMarshallContext marshallContext,
+                                                        final JsonNodeUnmarshallContext unmarshallContext) {
+        return MemoryMappedSpreadsheetCellStore.open(
+                file,
+                marshallContext,
+                unmarshallContext
+        );
+    }
+
+    /**
+     * Stop creation
+     */
+    private FileSpreadsheetCellStores() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store.file;
+
+import walkingkooka.reflect.PublicStaticHelper;
+import walkingkooka.spreadsheet.store.repo.SpreadsheetStoreRepository;
+import walkingkooka.tree.json.marshall.JsonNodeMarshallContext;
+import walkingkooka.tree.json.marshall.JsonNodeUnmarshallContext;
+
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+
+/**
+ * Contains many factory methods for file backed {@link SpreadsheetStoreRepository} implementations. These are not
+ * available in javascript.
+ */
+public final class FileSpreadsheetStoreRepositories implements PublicStaticHelper {
+
+    /**
+     * {@see JournalSpreadsheetStoreRepository}. Snapshots are written using the given {@link Executor}, closing the
+     * returned repository waits for any snapshot, flushes and closes the journal.
+     */
+    public static FileSpreadsheetStoreRepository journal(final SpreadsheetStoreRepository repository,
+                                                         final Path directory,
+                                                         final int snapshotEvery,
+                                                         final Executor executor,
+                                                         final JsonNodeMarshallContext marshallContext,
+                                                         final JsonNodeUnmarshallContext unmarshallContext) {
+        return JournalSpreadsheetStoreRepository.with(
+                repository,
+                directory,
+                snapshotEvery,
+                executor,
+                marshallContext,
+                unmarshallContext
+        );
+    }
+
+    /**
+     * Stop creation
+     */
+    private FileSpreadsheetStoreRepositories() {
+        throw new UnsupportedOperationException();
+    }
+}
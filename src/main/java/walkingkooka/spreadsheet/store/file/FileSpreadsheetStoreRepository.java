@@ -0,0 +1,38 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store.file;
+
+import walkingkooka.spreadsheet.store.repo.SpreadsheetStoreRepository;
+
+/**
+ * A {@link SpreadsheetStoreRepository} that keeps its stores in files. Mutations are not durable until
+ * {@link #flush() flushed} or {@link #close() closed}, so the caller picks when to pay for syncing the files.
+ */
+public interface FileSpreadsheetStoreRepository extends SpreadsheetStoreRepository, AutoCloseable {
+
+    /**
+     * Forces all mutations since the last flush to the files.
+     */
+    void flush();
+
+    /**
+     * Flushes and releases the files.
+     */
+    @Override
+    void close();
+}
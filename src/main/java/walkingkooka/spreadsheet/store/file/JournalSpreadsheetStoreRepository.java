@@ -0,0 +1,781 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store.file;
+
+import walkingkooka.collect.list.Lists;
+import walkingkooka.spreadsheet.conditionalformat.SpreadsheetConditionalFormattingRule;
+import walkingkooka.spreadsheet.datavalidation.SpreadsheetDataValidator;
+import walkingkooka.spreadsheet.meta.store.SpreadsheetMetadataStore;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetExpressionReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetLabelName;
+import walkingkooka.spreadsheet.reference.store.SpreadsheetCellRangeStore;
+import walkingkooka.spreadsheet.reference.store.SpreadsheetExpressionReferenceStore;
+import walkingkooka.spreadsheet.reference.store.SpreadsheetLabelStore;
+import walkingkooka.spreadsheet.reference.store.TargetAndSpreadsheetCellReference;
+import walkingkooka.spreadsheet.security.store.SpreadsheetGroupStore;
+import walkingkooka.spreadsheet.security.store.SpreadsheetUserStore;
+import walkingkooka.spreadsheet.store.SpreadsheetCellStore;
+import walkingkooka.spreadsheet.store.SpreadsheetColumnStore;
+import walkingkooka.spreadsheet.store.SpreadsheetRowStore;
+import walkingkooka.spreadsheet.store.repo.SpreadsheetStoreRepository;
+import walkingkooka.store.Store;
+import walkingkooka.tree.json.JsonNode;
+import walkingkooka.tree.json.JsonPropertyName;
+import walkingkooka.tree.json.marshall.JsonNodeMarshallContext;
+import walkingkooka.tree.json.marshall.JsonNodeUnmarshallContext;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * A {@link SpreadsheetStoreRepository} that appends every mutation of the wrapped repository to a binary journal file,
+ * so the cost of durability follows the volume of changes rather than the size of the workbook.
+ * <br>
+ * Saves and deletes are captured by watchers on the cell, column, row, label, metadata, group and user stores. Added
+ * and removed references are captured by watchers on the cell and label reference stores.
+ * {@link SpreadsheetCellRangeStore} value watchers only receive the range, so {@link #rangeToCells()} returns a
+ * {@link JournalSpreadsheetStoreRepositorySpreadsheetCellRangeStore} that journals each change. Conditional formatting
+ * rules and validators hold functions which cannot be marshalled, and are not journaled, so they must be added again
+ * after opening. The references of conditional formatting rules are derived from the rules by the wrapped repository,
+ * and are not journaled either, so they never refer to rules that were not replayed. Records of rule references in
+ * older journals are skipped.
+ * <br>
+ * Records are written to the journal but only forced by {@link #flush()} and {@link #close()}. Once the journal holds
+ * the given number of records, the values of all stores are captured, the journal is appended to a previous journal
+ * and truncated, and
+ * the captured values are marshalled to a compact snapshot file using the given {@link Executor}, so the writer does
+ * not wait for the snapshot. The new snapshot atomically replaces the old snapshot before the previous journal is
+ * deleted. Opening replays the snapshot, the previous journal and then the journal, truncating each journal at the
+ * first partially written or corrupt record. Replaying records a second time leaves the stores unchanged, which covers
+ * a crash after a new snapshot was written but before the previous journal was deleted.
+ * <br>
+ * Each record is the length of its JSON (int), the store (byte), the operation (byte) followed by the UTF-8 JSON.
+ * {@link #close()} waits for any snapshot being written, flushes and closes the journal.
+ * Watchers are only added to the stores present when this repository is created, so the wrapped repository should
+ * always return the same stores, as {@link walkingkooka.spreadsheet.store.repo.SpreadsheetStoreRepositories#basic} does.
+ */
+final class JournalSpreadsheetStoreRepository implements FileSpreadsheetStoreRepository {
+
+    // @VisibleForTesting
+    final static String JOURNAL = "journal";
+
+    /**
+     * Records journaled before the snapshot being written, deleted once that snapshot replaces the old snapshot.
+     */
+    // @VisibleForTesting
+    final static String PREVIOUS_JOURNAL = JOURNAL + ".previous";
+
+    // @VisibleForTesting
+    final static String SNAPSHOT = "snapshot";
+
+    private final static String SNAPSHOT_TEMP = SNAPSHOT + ".tmp";
+
+    private final static int RECORD_HEADER_SIZE = 4 + 1 + 1;
+
+    // stores...........................................................................................................
+
+    private final static byte CELLS = 1;
+
+    private final static byte CELL_REFERENCES = 2;
+
+    private final static byte COLUMNS = 3;
+
+    /**
+     * Only present in older journals, the references are now derived from the rules.
+     */
+    private final static byte CONDITIONAL_FORMATTING_RULE_REFERENCES = 4;
+
+    private final static byte GROUPS = 5;
+
+    private final static byte LABELS = 6;
+
+    private final static byte LABEL_REFERENCES = 7;
+
+    private final static byte METADATAS = 8;
+
+    private final static byte RANGE_TO_CELLS = 9;
+
+    private final static byte ROWS = 10;
+
+    private final static byte USERS = 11;
+
+    // operations.......................................................................................................
+
+    private final static byte SAVE = 1;
+
+    private final static byte DELETE = 2;
+
+    private final static byte ADD = 3;
+
+    private final static byte REMOVE = 4;
+
+    private final static JsonPropertyName TARGET_PROPERTY = JsonPropertyName.with("target");
+
+    private final static JsonPropertyName REFERENCE_PROPERTY = JsonPropertyName.with("reference");
+
+    static JournalSpreadsheetStoreRepository with(final SpreadsheetStoreRepository repository,
+                                                  final Path directory,
+                                                  final int snapshotEvery,
+                                                  final Executor executor,
+                                                  final JsonNodeMarshallContext marshallContext,
+                                                  final JsonNodeUnmarshallContext unmarshallContext) {
+        Objects.requireNonNull(repository, "repository");
+        Objects.requireNonNull(directory, "directory");
+        if (snapshotEvery <= 0) {
+            throw new IllegalArgumentException("Invalid snapshotEvery " + snapshotEvery + " <= 0");
+        }
+        Objects.requireNonNull(executor, "executor");
+        Objects.requireNonNull(marshallContext, "marshallContext");
+        Objects.requireNonNull(unmarshallContext, "unmarshallContext");
+
+        return new JournalSpreadsheetStoreRepository(
+                repository,
+                directory,
+                snapshotEvery,
+                executor,
+                marshallContext,
+                unmarshallContext
+        );
+    }
+
+    private JournalSpreadsheetStoreRepository(final SpreadsheetStoreRepository repository,
+                                              final Path directory,
+                                              final int snapshotEvery,
+                                              final Executor executor,
+                                              final JsonNodeMarshallContext marshallContext,
+                                              final JsonNodeUnmarshallContext unmarshallContext) {
+        super();
+        this.repository = repository;
+        this.directory = directory;
+        this.snapshotEvery = snapshotEvery;
+        this.executor = executor;
+        this.marshallContext = marshallContext;
+        this.unmarshallContext = unmarshallContext;
+
+        this.rangeToCells = JournalSpreadsheetStoreRepositorySpreadsheetCellRangeStore.with(
+                repository.rangeToCells(),
+                this
+        );
+
+        try {
+            this.replay(directory.resolve(SNAPSHOT));
+            this.records = 0;
+
+            final Path previous = directory.resolve(PREVIOUS_JOURNAL);
+            if (Files.exists(previous)) {
+                final long length = this.replay(previous);
+                try (final FileChannel channel = FileChannel.open(previous, StandardOpenOption.WRITE)) {
+                    // later journals are appended, so drop any partially written last record.
+                    channel.truncate(length);
+                }
+            }
+
+            final long length = this.replay(directory.resolve(JOURNAL));
+
+            final FileChannel journal = FileChannel.open(
+                    directory.resolve(JOURNAL),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE
+            );
+            // drop any partially written last record.
+            journal.truncate(length);
+            journal.position(length);
+            this.journal = journal;
+        } catch (final IOException cause) {
+            throw new UncheckedIOException(cause);
+        }
+
+        // watchers are added after replaying so replayed records are not journaled again.
+        this.watch(repository);
+    }
+
+    private void watch(final SpreadsheetStoreRepository repository) {
+        this.watch(CELLS, repository.cells());
+        this.watchReferences(CELL_REFERENCES, repository.cellReferences());
+        this.watch(COLUMNS, repository.columns());
+        this.watch(GROUPS, repository.groups());
+        this.watch(LABELS, repository.labels());
+        this.watchReferences(LABEL_REFERENCES, repository.labelReferences());
+        this.watch(METADATAS, repository.metadatas());
+        this.watch(ROWS, repository.rows());
+        this.watch(USERS, repository.users());
+    }
+
+    private <K, V> void watch(final byte store,
+                              final Store<K, V> watched) {
+        watched.addSaveWatcher(v -> this.journal(store, SAVE, this.marshallContext.marshallWithType(v)));
+        watched.addDeleteWatcher(k -> this.journal(store, DELETE, this.marshallContext.marshallWithType(k)));
+    }
+
+    private <T extends SpreadsheetExpressionReference> void watchReferences(final byte store,
+                                                                            final SpreadsheetExpressionReferenceStore<T> watched) {
+        watched.addAddReferenceWatcher(t -> this.journal(store, ADD, this.marshall(t.target(), t.reference())));
+        watched.addRemoveReferenceWatcher(t -> this.journal(store, REMOVE, this.marshall(t.target(), t.reference())));
+    }
+
+    // SpreadsheetStoreRepository.......................................................................................
+
+    @Override
+    public SpreadsheetCellStore cells() {
+        return this.repository.cells();
+    }
+
+    @Override
+    public SpreadsheetExpressionReferenceStore<SpreadsheetCellReference> cellReferences() {
+        return this.repository.cellReferences();
+    }
+
+    @Override
+    public SpreadsheetColumnStore columns() {
+        return this.repository.columns();
+    }
+
+    @Override
+    public SpreadsheetCellRangeStore<SpreadsheetCellRange> conditionalFormattingRuleReferences() {
+        return this.repository.conditionalFormattingRuleReferences();
+    }
+
+    @Override
+    public SpreadsheetGroupStore groups() {
+        return this.repository.groups();
+    }
+
+    @Override
+    public SpreadsheetLabelStore labels() {
+        return this.repository.labels();
+    }
+
+    @Override
+    public SpreadsheetExpressionReferenceStore<SpreadsheetLabelName> labelReferences() {
+        return this.repository.labelReferences();
+    }
+
+    @Override
+    public SpreadsheetMetadataStore metadatas() {
+        return this.repository.metadatas();
+    }
+
+    @Override
+    public SpreadsheetCellRangeStore<SpreadsheetCellReference> rangeToCells() {
+        return this.rangeToCells;
+    }
+
+    private final SpreadsheetCellRangeStore<SpreadsheetCellReference> rangeToCells;
+
+    @Override
+    public SpreadsheetCellRangeStore<SpreadsheetConditionalFormattingRule> rangeToConditionalFormattingRules() {
+        return this.repository.rangeToConditionalFormattingRules();
+    }
+
+    @Override
+    public SpreadsheetCellRangeStore<SpreadsheetDataValidator<?>> rangeToValidators() {
+        return this.repository.rangeToValidators();
+    }
+
+    @Override
+    public SpreadsheetRowStore rows() {
+        return this.repository.rows();
+    }
+
+    @Override
+    public SpreadsheetUserStore users() {
+        return this.repository.users();
+    }
+
+    // @VisibleForTesting
+    final SpreadsheetStoreRepository repository;
+
+    // journal..........................................................................................................
+
+    /**
+     * Journals a value added to a range of {@link #rangeToCells()}.
+     */
+    void rangeToCellsAdd(final SpreadsheetCellRange range,
+                         final SpreadsheetCellReference value) {
+        this.journal(RANGE_TO_CELLS, ADD, this.marshall(range, value));
+    }
+
+    /**
+     * Journals a value removed from a range of {@link #rangeToCells()}.
+     */
+    void rangeToCellsRemove(final SpreadsheetCellRange range,
+                            final SpreadsheetCellReference value) {
+        this.journal(RANGE_TO_CELLS, REMOVE, this.marshall(range, value));
+    }
+
+    /**
+     * Journals the delete of a range and all its values from {@link #rangeToCells()}.
+     */
+    void rangeToCellsDelete(final SpreadsheetCellRange range) {
+        this.journal(RANGE_TO_CELLS, DELETE, this.marshallContext.marshallWithType(range));
+    }
+
+    private void journal(final byte store,
+                         final byte operation,
+                         final JsonNode json) {
+        final FileChannel journal = this.journal;
+        try {
+            write(journal, record(store, operation, json));
+        } catch (final IOException cause) {
+            throw new UncheckedIOException(cause);
+        }
+
+        this.unflushed = true;
+        this.records++;
+        if (this.records >= this.snapshotEvery && this.snapshot.isDone()) {
+            this.snapshot();
+        }
+    }
+
+    private static ByteBuffer record(final byte store,
+                                     final byte operation,
+                                     final JsonNode json) {
+        final byte[] bytes = json.toString()
+                .getBytes(StandardCharsets.UTF_8);
+
+        final ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + bytes.length);
+        buffer.putInt(bytes.length);
+        buffer.put(store);
+        buffer.put(operation);
+        buffer.put(bytes);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void write(final FileChannel channel,
+                              final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Forces all records written since the last flush to the journal.
+     */
+    @Override
+    public void flush() {
+        if (this.unflushed) {
+            try {
+                this.journal.force(false);
+            } catch (final IOException cause) {
+                throw new UncheckedIOException(cause);
+            }
+            this.unflushed = false;
+        }
+    }
+
+    private final FileChannel journal;
+
+    /**
+     * True when records were written since the last {@link #flush()}.
+     */
+    private boolean unflushed;
+
+    /**
+     * The number of records in the journal, a snapshot is taken when this reaches {@link #snapshotEvery}.
+     */
+    private int records;
+
+    private final int snapshotEvery;
+
+    // snapshot.........................................................................................................
+
+    /**
+     * Captures the values of every store, moves the journal to the previous journal and then writes the captured
+     * values to a new snapshot using the {@link Executor}. If a snapshot is already being written it is returned.
+     */
+    // @VisibleForTesting
+    CompletableFuture<Void> snapshot() {
+        CompletableFuture<Void> snapshot = this.snapshot;
+
+        if (snapshot.isDone()) {
+            final List<Supplier<ByteBuffer>> records = this.capture();
+
+            try {
+                this.appendToPreviousJournal();
+            } catch (final IOException cause) {
+                throw new UncheckedIOException(cause);
+            }
+            this.records = 0;
+
+            snapshot = CompletableFuture.runAsync(
+                    () -> this.writeSnapshot(records),
+                    this.executor
+            );
+            this.snapshot = snapshot;
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Captures the current values of every store, leaving marshalling to the snapshot {@link Executor}.
+     */
+    private List<Supplier<ByteBuffer>> capture() {
+        final SpreadsheetStoreRepository repository = this.repository;
+        final List<Supplier<ByteBuffer>> records = Lists.array();
+
+        this.capture(CELLS, repository.cells(), records);
+        this.captureReferences(CELL_REFERENCES, repository.cellReferences(), records);
+        this.capture(COLUMNS, repository.columns(), records);
+        this.capture(GROUPS, repository.groups(), records);
+        this.capture(LABELS, repository.labels(), records);
+        this.captureReferences(LABEL_REFERENCES, repository.labelReferences(), records);
+        this.capture(METADATAS, repository.metadatas(), records);
+        this.captureRangeToCells(repository.rangeToCells(), records);
+        this.capture(ROWS, repository.rows(), records);
+        this.capture(USERS, repository.users(), records);
+
+        return records;
+    }
+
+    private <K, V> void capture(final byte store,
+                                final Store<K, V> from,
+                                final List<Supplier<ByteBuffer>> records) {
+        for (final V value : from.all()) {
+            records.add(() -> record(store, SAVE, this.marshallContext.marshallWithType(value)));
+        }
+    }
+
+    private <T extends SpreadsheetExpressionReference> void captureReferences(final byte store,
+                                                                              final SpreadsheetExpressionReferenceStore<T> from,
+                                                                              final List<Supplier<ByteBuffer>> records) {
+        final int count = from.count();
+        if (count > 0) {
+            for (final T target : from.ids(0, count)) {
+                for (final SpreadsheetCellReference reference : from.loadOrFail(target)) {
+                    records.add(() -> record(store, ADD, this.marshall(target, reference)));
+                }
+            }
+        }
+    }
+
+    private void captureRangeToCells(final SpreadsheetCellRangeStore<SpreadsheetCellReference> from,
+                                     final List<Supplier<ByteBuffer>> records) {
+        final int count = from.count();
+        if (count > 0) {
+            for (final SpreadsheetCellRange range : from.ids(0, count)) {
+                for (final SpreadsheetCellReference reference : from.loadOrFail(range)) {
+                    records.add(() -> record(RANGE_TO_CELLS, ADD, this.marshall(range, reference)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends the journal to the previous journal and truncates the journal. Records remain in the previous journal
+     * until a snapshot holding them replaces the old snapshot.
+     */
+    private void appendToPreviousJournal() throws IOException {
+        final FileChannel journal = this.journal;
+
+        try (final FileChannel previous = FileChannel.open(
+                this.directory.resolve(PREVIOUS_JOURNAL),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND
+        )) {
+            final long size = journal.size();
+            long position = 0;
+            while (position < size) {
+                position += journal.transferTo(position, size - position, previous);
+            }
+            previous.force(true);
+        }
+
+        journal.truncate(0);
+        journal.position(0);
+    }
+
+    /**
+     * Writes the captured records to a new snapshot, replaces the old snapshot and then deletes the previous journal.
+     */
+    private void writeSnapshot(final List<Supplier<ByteBuffer>> records) {
+        final Path directory = this.directory;
+        final Path temp = directory.resolve(SNAPSHOT_TEMP);
+
+        try {
+            try (final FileChannel snapshot = FileChannel.open(
+                    temp,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING
+            )) {
+                for (final Supplier<ByteBuffer> record : records) {
+                    write(snapshot, record.get());
+                }
+
+                snapshot.force(true);
+            }
+
+            Files.move(
+                    temp,
+                    directory.resolve(SNAPSHOT),
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING
+            );
+
+            Files.delete(directory.resolve(PREVIOUS_JOURNAL));
+        } catch (final IOException cause) {
+            throw new UncheckedIOException(cause);
+        }
+    }
+
+    private final Executor executor;
+
+    /**
+     * The snapshot being written or the last snapshot written, a new snapshot is only started once this is done.
+     */
+    private volatile CompletableFuture<Void> snapshot = CompletableFuture.completedFuture(null);
+
+    private final Path directory;
+
+    // replay...........................................................................................................
+
+    /**
+     * Applies all complete records in the given file to the wrapped stores, returning the length of those records.
+     */
+    private long replay(final Path file) throws IOException {
+        long length = 0;
+
+        if (Files.exists(file)) {
+            final long size = Files.size(file);
+
+            try (final DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                for (; ; ) {
+                    final byte store;
+                    final byte operation;
+                    final byte[] json;
+
+                    try {
+                        final int jsonLength = input.readInt();
+                        // a corrupt length is treated like a partially written last record.
+                        if (jsonLength < 0 || jsonLength > size - length - RECORD_HEADER_SIZE) {
+                            break;
+                        }
+                        json = new byte[jsonLength];
+                        store = input.readByte();
+                        operation = input.readByte();
+                        input.readFully(json);
+                    } catch (final EOFException end) {
+                        break;
+                    }
+                    if (store < CELLS || store > USERS || operation < SAVE || operation > REMOVE) {
+                        break;
+                    }
+
+                    this.apply(
+                            store,
+                            operation,
+                            JsonNode.parse(
+                                    new String(json, StandardCharsets.UTF_8)
+                            )
+                    );
+                    length += RECORD_HEADER_SIZE + json.length;
+                    this.records++;
+                }
+            }
+        }
+
+        return length;
+    }
+
+    private void apply(final byte store,
+                       final byte operation,
+                       final JsonNode json) {
+        final SpreadsheetStoreRepository repository = this.repository;
+
+        switch (store) {
+            case CELLS:
+                this.apply(repository.cells(), operation, json);
+                break;
+            case CELL_REFERENCES:
+                this.applyReference(repository.cellReferences(), operation, json);
+                break;
+            case COLUMNS:
+                this.apply(repository.columns(), operation, json);
+                break;
+            case CONDITIONAL_FORMATTING_RULE_REFERENCES:
+                break;
+            case GROUPS:
+                this.apply(repository.groups(), operation, json);
+                break;
+            case LABELS:
+                this.apply(repository.labels(), operation, json);
+                break;
+            case LABEL_REFERENCES:
+                this.applyReference(repository.labelReferences(), operation, json);
+                break;
+            case METADATAS:
+                this.apply(repository.metadatas(), operation, json);
+                break;
+            case RANGE_TO_CELLS:
+                this.applyRangeToCells(repository.rangeToCells(), operation, json);
+                break;
+            case ROWS:
+                this.apply(repository.rows(), operation, json);
+                break;
+            case USERS:
+                this.apply(repository.users(), operation, json);
+                break;
+            default:
+                throw new IllegalStateException("Unknown store " + store);
+        }
+    }
+
+    private <K, V> void apply(final Store<K, V> store,
+                              final byte operation,
+                              final JsonNode json) {
+        switch (operation) {
+            case SAVE:
+                store.save(this.unmarshallContext.unmarshallWithType(json));
+                break;
+            case DELETE:
+                store.delete(this.unmarshallContext.unmarshallWithType(json));
+                break;
+            default:
+                throw invalidOperation(operation);
+        }
+    }
+
+    private <T extends SpreadsheetExpressionReference> void applyReference(final SpreadsheetExpressionReferenceStore<T> store,
+                                                                           final byte operation,
+                                                                           final JsonNode json) {
+        final TargetAndSpreadsheetCellReference<T> targetAndReference = TargetAndSpreadsheetCellReference.with(
+                this.target(json),
+                this.reference(json)
+        );
+
+        switch (operation) {
+            case ADD:
+                store.addReference(targetAndReference);
+                break;
+            case REMOVE:
+                store.removeReference(targetAndReference);
+                break;
+            default:
+                throw invalidOperation(operation);
+        }
+    }
+
+    private void applyRangeToCells(final SpreadsheetCellRangeStore<SpreadsheetCellReference> store,
+                                   final byte operation,
+                                   final JsonNode json) {
+        switch (operation) {
+            case ADD:
+                store.addValue(this.target(json), this.reference(json));
+                break;
+            case REMOVE:
+                store.removeValue(this.target(json), this.reference(json));
+                break;
+            case DELETE:
+                store.delete(this.unmarshallContext.unmarshallWithType(json));
+                break;
+            default:
+                throw invalidOperation(operation);
+        }
+    }
+
+    private static IllegalStateException invalidOperation(final byte operation) {
+        return new IllegalStateException("Unknown operation " + operation);
+    }
+
+    // json.............................................................................................................
+
+    private JsonNode marshall(final Object target,
+                              final SpreadsheetCellReference reference) {
+        final JsonNodeMarshallContext context = this.marshallContext;
+
+        return JsonNode.object()
+                .set(TARGET_PROPERTY, context.marshallWithType(target))
+                .set(REFERENCE_PROPERTY, context.marshallWithType(reference));
+    }
+
+    private <T> T target(final JsonNode json) {
+        return this.property(json, TARGET_PROPERTY);
+    }
+
+    private SpreadsheetCellReference reference(final JsonNode json) {
+        return this.property(json, REFERENCE_PROPERTY);
+    }
+
+    private <T> T property(final JsonNode json,
+                           final JsonPropertyName property) {
+        T value = null;
+
+        for (final JsonNode child : json.objectOrFail().children()) {
+            if (child.name().equals(property)) {
+                value = this.unmarshallContext.unmarshallWithType(child);
+                break;
+            }
+        }
+
+        if (null == value) {
+            JsonNodeUnmarshallContext.requiredPropertyMissing(property, json);
+        }
+        return value;
+    }
+
+    private final JsonNodeMarshallContext marshallContext;
+
+    private final JsonNodeUnmarshallContext unmarshallContext;
+
+    // AutoCloseable....................................................................................................
+
+    /**
+     * Waits for any snapshot being written, flushes and then closes the journal. A failed snapshot is ignored, as the
+     * previous journal it would have replaced is replayed when opened again.
+     */
+    @Override
+    public void close() {
+        this.snapshot.handle((r, t) -> null)
+                .join();
+
+        this.flush();
+        try {
+            this.journal.close();
+        } catch (final IOException cause) {
+            throw new UncheckedIOException(cause);
+        }
+    }
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.directory + " " + this.repository;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store.file;
+
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.store.SpreadsheetCellRangeStore;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * A {@link SpreadsheetCellRangeStore} that journals each change to the wrapped store, because the ranges given to
+ * {@link SpreadsheetCellRangeStore#addValueWatcher(Consumer)} do not say which value was added or removed.
+ */
+final class JournalSpreadsheetStoreRepositorySpreadsheetCellRangeStore implements SpreadsheetCellRangeStore<SpreadsheetCellReference> {
+
+    static JournalSpreadsheetStoreRepositorySpreadsheetCellRangeStore with(final SpreadsheetCellRangeStore<SpreadsheetCellReference> store,
+                                                                          final JournalSpreadsheetStoreRepository repository) {
+        return new JournalSpreadsheetStoreRepositorySpreadsheetCellRangeStore(store, repository);
+    }
+
+    private JournalSpreadsheetStoreRepositorySpreadsheetCellRangeStore(final SpreadsheetCellRangeStore<SpreadsheetCellReference> store,
+                                                                       final JournalSpreadsheetStoreRepository repository) {
+        super();
+        this.store = store;
+        this.repository = repository;
+    }
+
+    @Override
+    public Optional<List<SpreadsheetCellReference>> load(final SpreadsheetCellRange id) {
+        return this.store.load(id);
+    }
+
+    @Override
+    public void delete(final SpreadsheetCellRange id) {
+        Objects.requireNonNull(id, "id");
+
+        final boolean present = this.store.load(id).isPresent();
+        this.store.delete(id);
+        if (present) {
+            this.repository.rangeToCellsDelete(id);
+        }
+    }
+
+    @Override
+    public Runnable addDeleteWatcher(final Consumer<SpreadsheetCellRange> deleted) {
+        return this.store.addDeleteWatcher(deleted);
+    }
+
+    @Override
+    public int count() {
+        return this.store.count();
+    }
+
+    @Override
+    public Set<SpreadsheetCellRange> ids(final int from, final int count) {
+        return this.store.ids(from, count);
+    }
+
+    @Override
+    public List<List<SpreadsheetCellReference>> values(final SpreadsheetCellRange from, final int count) {
+        return this.store.values(from, count);
+    }
+
+    @Override
+    public Set<SpreadsheetCellRange> loadCellReferenceRanges(final SpreadsheetCellReference cell) {
+        return this.store.loadCellReferenceRanges(cell);
+    }
+
+    @Override
+    public Set<SpreadsheetCellReference> loadCellReferenceValues(final SpreadsheetCellReference cell) {
+        return this.store.loadCellReferenceValues(cell);
+    }
+
+    @Override
+    public void addValue(final SpreadsheetCellRange range, final SpreadsheetCellReference value) {
+        this.store.addValue(range, value);
+        this.repository.rangeToCellsAdd(range, value);
+    }
+
+    @Override
+    public boolean replaceValue(final SpreadsheetCellRange range,
+                                final SpreadsheetCellReference newValue,
+                                final SpreadsheetCellReference oldValue) {
+        final boolean replaced = this.store.replaceValue(range, newValue, oldValue);
+        if (replaced) {
+            this.repository.rangeToCellsRemove(range, oldValue);
+            this.repository.rangeToCellsAdd(range, newValue);
+        }
+        return replaced;
+    }
+
+    @Override
+    public void removeValue(final SpreadsheetCellRange range, final SpreadsheetCellReference value) {
+        this.store.removeValue(range, value);
+        this.repository.rangeToCellsRemove(range, value);
+    }
+
+    @Override
+    public Runnable addValueWatcher(final Consumer<SpreadsheetCellRange> watcher) {
+        return this.store.addValueWatcher(watcher);
+    }
+
+    @Override
+    public Set<SpreadsheetCellRange> rangesWithValue(final SpreadsheetCellReference value) {
+        return this.store.rangesWithValue(value);
+    }
+
+    private final SpreadsheetCellRangeStore<SpreadsheetCellReference> store;
+
+    private final JournalSpreadsheetStoreRepository repository;
+
+    @Override
+    public String toString() {
+        return this.store.toString();
+    }
+}
@@ -0,0 +1,878 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store.file;
+
+import walkingkooka.collect.list.Lists;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetColumnReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetRowReference;
+import walkingkooka.spreadsheet.store.SpreadsheetCellStore;
+import walkingkooka.store.Store;
+import walkingkooka.store.Watchers;
+import walkingkooka.tree.json.JsonNode;
+import walkingkooka.tree.json.marshall.JsonNodeMarshallContext;
+import walkingkooka.tree.json.marshall.JsonNodeUnmarshallContext;
+import walkingkooka.tree.text.Length;
+import walkingkooka.tree.text.PixelLength;
+import walkingkooka.tree.text.TextStylePropertyName;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * A {@link SpreadsheetCellStore} that keeps its cells in a memory mapped file, so cells survive a restart and are
+ * held off heap. The file is a log of records, each save appends the cell marshalled to JSON and each delete appends
+ * a delete marker. Opening an existing file replays the log, rebuilding an off heap
+ * {@link MemoryMappedSpreadsheetCellStoreIndex index} of each packed {@link SpreadsheetCellReference} to the offset
+ * of its latest record, so range, column, ids and values queries only visit matching cells.
+ * <br>
+ * Each record is a header of the JSON length (int), the record type (byte) and the
+ * {@link SpreadsheetCellReference#pack() packed reference} (long), followed by the UTF-8 JSON. Saves of cells with an
+ * {@link walkingkooka.spreadsheet.SpreadsheetFormula#isImpure() impure formula} have their own type, so replaying the log
+ * also rebuilds the {@link #impureCells()} without reading any JSON. Offsets are longs, the
+ * file is mapped in segments of up to {@link #SEGMENT_SIZE} bytes and records never span two segments, the unused
+ * tail of a segment is skipped with a padding record. The mapped region grows by doubling up to a segment and then a
+ * segment at a time, unused space is zero filled and a zero type marks the end of the log.
+ * <br>
+ * Saves and deletes only write to the mapped region, {@link #flush()} forces the segments written since the last flush
+ * and {@link #close()} flushes. A store opened with {@link #open(Path, JsonNodeMarshallContext, JsonNodeUnmarshallContext)}
+ * owns its file and when flushed {@link #compact() compacts} it once replaced and deleted records use more space than
+ * the live cells, writing the live records to a sibling file which then atomically replaces the original, so a crash
+ * leaves one complete log.
+ */
+final class MemoryMappedSpreadsheetCellStore implements FileSpreadsheetCellStore {
+
+    /**
+     * The first int of every file.
+     */
+    // @VisibleForTesting
+    final static int MAGIC = 0x574b5343; // WKSC
+
+    private final static int FILE_HEADER_SIZE = 4;
+
+    private final static int RECORD_HEADER_SIZE = 4 + 1 + 8;
+
+    private final static byte END = 0;
+
+    private final static byte SAVE = 1;
+
+    private final static byte DELETE = 2;
+
+    /**
+     * Fills the tail of a segment too small for the next record.
+     */
+    private final static byte PAD = 3;
+
+    /**
+     * A {@link #SAVE} of a cell with an impure formula.
+     */
+    private final static byte SAVE_IMPURE = 4;
+
+    // @VisibleForTesting
+    final static int INITIAL_CAPACITY = 64 * 1024;
+
+    /**
+     * The largest region mapped by a single {@link MappedByteBuffer}.
+     */
+    // @VisibleForTesting
+    final static int SEGMENT_SIZE = 1 << 30;
+
+    /**
+     * Replaced and deleted records must use at least this many bytes before the file is compacted.
+     */
+    // @VisibleForTesting
+    final static long COMPACT_THRESHOLD = INITIAL_CAPACITY;
+
+    /**
+     * Factory that creates a new {@link MemoryMappedSpreadsheetCellStore}, replaying any records already present in
+     * the file. The caller remains responsible for closing the {@link FileChannel}, and the file is never compacted.
+     */
+    static MemoryMappedSpreadsheetCellStore with(final FileChannel channel,
+                                                 final JsonNodeMarshallContext marshallContext,
+                                                 final JsonNodeUnmarshallContext unmarshallContext) {
+        return with(
+                channel,
+                SEGMENT_SIZE,
+                marshallContext,
+                unmarshallContext
+        );
+    }
+
+    // @VisibleForTesting
+    static MemoryMappedSpreadsheetCellStore with(final FileChannel channel,
+                                                 final int segmentSize,
+                                                 final JsonNodeMarshallContext marshallContext,
+                                                 final JsonNodeUnmarshallContext unmarshallContext) {
+        Objects.requireNonNull(channel, "channel");
+        checkSegmentSize(segmentSize);
+        Objects.requireNonNull(marshallContext, "marshallContext");
+        Objects.requireNonNull(unmarshallContext, "unmarshallContext");
+
+        return new MemoryMappedSpreadsheetCellStore(
+                null,
+                channel,
+                segmentSize,
+                marshallContext,
+                unmarshallContext
+        );
+    }
+
+    /**
+     * Factory that opens or creates the given file, replaying any records already present. The store owns the file,
+     * compacting it when necessary, and closes it when {@link #close() closed}.
+     */
+    static MemoryMappedSpreadsheetCellStore open(final Path file,
+                                                 final JsonNodeMarshallContext marshallContext,
+                                                 final JsonNodeUnmarshallContext unmarshallContext) {
+        return open(
+                file,
+                SEGMENT_SIZE,
+                marshallContext,
+                unmarshallContext
+        );
+    }
+
+    // @VisibleForTesting
+    static MemoryMappedSpreadsheetCellStore open(final Path file,
+                                                 final int segmentSize,
+                                                 final JsonNodeMarshallContext marshallContext,
+                                                 final JsonNodeUnmarshallContext unmarshallContext) {
+        Objects.requireNonNull(file, "file");
+        checkSegmentSize(segmentSize);
+        Objects.requireNonNull(marshallContext, "marshallContext");
+        Objects.requireNonNull(unmarshallContext, "unmarshallContext");
+
+        return new MemoryMappedSpreadsheetCellStore(
+                file,
+                channel(file),
+                segmentSize,
+                marshallContext,
+                unmarshallContext
+        );
+    }
+
+    private static void checkSegmentSize(final int segmentSize) {
+        if (segmentSize < FILE_HEADER_SIZE + RECORD_HEADER_SIZE || 1 != Integer.bitCount(segmentSize)) {
+            throw new IllegalArgumentException("Invalid segment size " + segmentSize + " expected a power of two");
+        }
+    }
+
+    private static FileChannel channel(final Path file) {
+        try {
+            return FileChannel.open(
+                    file,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE
+            );
+        } catch (final IOException cause) {
+            throw new UncheckedIOException(cause);
+        }
+    }
+
+    /**
+     * Private ctor use factory.
+     */
+    private MemoryMappedSpreadsheetCellStore(final Path file,
+                                             final FileChannel channel,
+                                             final int segmentSize,
+                                             final JsonNodeMarshallContext marshallContext,
+                                             final JsonNodeUnmarshallContext unmarshallContext) {
+        super();
+        this.file = file;
+        this.segmentSize = segmentSize;
+        this.marshallContext = marshallContext;
+        this.unmarshallContext = unmarshallContext;
+
+        this.mapAndReplay(channel);
+    }
+
+    /**
+     * Maps the file, verifying or writing the {@link #MAGIC} and then replays all records.
+     */
+    private void mapAndReplay(final FileChannel channel) {
+        this.channel = channel;
+        this.segments = new MappedByteBuffer[0];
+        this.capacity = 0;
+
+        final long size;
+        try {
+            size = channel.size();
+        } catch (final IOException cause) {
+            throw new UncheckedIOException(cause);
+        }
+
+        long capacity = Math.min(INITIAL_CAPACITY, this.segmentSize);
+        while (capacity < size) {
+            capacity = this.grown(capacity);
+        }
+        this.map(capacity);
+
+        final MappedByteBuffer first = this.segments[0];
+        final int magic = first.getInt(0);
+        if (0 == magic) {
+            first.putInt(0, MAGIC);
+        } else {
+            if (MAGIC != magic) {
+                throw new IllegalArgumentException("Invalid file, magic " + Integer.toHexString(magic) + " expected " + Integer.toHexString(MAGIC));
+            }
+        }
+
+        this.replay();
+    }
+
+    /**
+     * Reads all records rebuilding the index and leaves {@link #position} at the end of the log.
+     */
+    private void replay() {
+        final MemoryMappedSpreadsheetCellStoreIndex index = MemoryMappedSpreadsheetCellStoreIndex.empty();
+        final Set<SpreadsheetCellReference> impureCells = this.impureCells;
+        impureCells.clear();
+        final long capacity = this.capacity;
+
+        long live = 0;
+        long position = FILE_HEADER_SIZE;
+        while (position < capacity) {
+            final int local = this.local(position);
+            final int remaining = this.segment(position).capacity() - local;
+            if (remaining < RECORD_HEADER_SIZE) {
+                position += remaining;
+                continue;
+            }
+
+            final MappedByteBuffer segment = this.segment(position);
+            final int length = segment.getInt(local);
+            final byte type = segment.get(local + 4);
+            if (END == type) {
+                break;
+            }
+            if (length < 0 || length > remaining - RECORD_HEADER_SIZE) {
+                throw new IllegalStateException("Invalid record length " + length + " at " + position);
+            }
+
+            final long key = segment.getLong(local + 5);
+            switch (type) {
+                case SAVE:
+                    live += RECORD_HEADER_SIZE + length - this.recordSize(index.put(key, position));
+                    impureCells.remove(SpreadsheetCellReference.unpack(key));
+                    break;
+                case SAVE_IMPURE:
+                    live += RECORD_HEADER_SIZE + length - this.recordSize(index.put(key, position));
+                    impureCells.add(SpreadsheetCellReference.unpack(key));
+                    break;
+                case DELETE:
+                    live -= this.recordSize(index.remove(key));
+                    impureCells.remove(SpreadsheetCellReference.unpack(key));
+                    break;
+                case PAD:
+                    break;
+                default:
+                    throw new IllegalStateException("Invalid record type " + type + " at " + position);
+            }
+
+            position += RECORD_HEADER_SIZE + length;
+        }
+
+        this.index = index;
+        this.live = live;
+        this.position = position;
+        this.flushed = position;
+    }
+
+    @Override
+    public Optional<SpreadsheetCell> load(final SpreadsheetCellReference id) {
+        Objects.requireNonNull(id, "id");
+
+        final long offset = this.index.get(id.pack());
+        return Optional.ofNullable(
+                MemoryMappedSpreadsheetCellStoreIndex.ABSENT != offset ?
+                        this.read(offset) :
+                        null
+        );
+    }
+
+    @Override
+    public SpreadsheetCell save(final SpreadsheetCell cell) {
+        this.saveReplacing(cell);
+        return cell;
+    }
+
+    @Override
+    public boolean saveReplacing(final SpreadsheetCell cell) {
+        Objects.requireNonNull(cell, "cell");
+
+        final long key = cell.reference().pack();
+        final byte[] json = this.marshallContext.marshall(cell)
+                .toString()
+                .getBytes(StandardCharsets.UTF_8);
+
+        final long offset = this.append(
+                cell.formula().isImpure() ?
+                        SAVE_IMPURE :
+                        SAVE,
+                key,
+                json
+        );
+        final long previous = this.index.put(key, offset);
+        this.live += RECORD_HEADER_SIZE + json.length - this.recordSize(previous);
+
+        this.updateImpureCells(cell.reference(), cell);
+        this.saveWatchers.accept(cell);
+        return MemoryMappedSpreadsheetCellStoreIndex.ABSENT != previous;
+    }
+
+    @Override
+    public Runnable addSaveWatcher(final Consumer<SpreadsheetCell> saved) {
+        return this.saveWatchers.addWatcher(saved);
+    }
+
+    private final Watchers<SpreadsheetCell> saveWatchers = Watchers.create();
+
+    @Override
+    public void delete(final SpreadsheetCellReference id) {
+        Objects.requireNonNull(id, "id");
+
+        final long key = id.pack();
+        final long previous = this.index.remove(key);
+        if (MemoryMappedSpreadsheetCellStoreIndex.ABSENT != previous) {
+            this.append(DELETE, key, new byte[0]);
+            this.live -= this.recordSize(previous);
+
+            this.impureCells.remove(id);
+            this.deleteWatchers.accept(id);
+        }
+    }
+
+    @Override
+    public Runnable addDeleteWatcher(final Consumer<SpreadsheetCellReference> deleted) {
+        return this.deleteWatchers.addWatcher(deleted);
+    }
+
+    private final Watchers<SpreadsheetCellReference> deleteWatchers = Watchers.create();
+
+    @Override
+    public int count() {
+        return this.index.size();
+    }
+
+    @Override
+    public Set<SpreadsheetCellReference> ids(final int from,
+                                             final int count) {
+        Store.checkFromAndTo(from, count);
+
+        final long[] keys = this.index.sortedKeys();
+        final int to = (int) Math.min((long) from + count, keys.length);
+
+        final Set<SpreadsheetCellReference> ids = Sets.ordered();
+        for (int i = from; i < to; i++) {
+            ids.add(SpreadsheetCellReference.unpack(keys[i]));
+        }
+        return ids;
+    }
+
+    /**
+     * Find the first cell at or after the from {@link SpreadsheetCellReference} and then gather the required count.
+     */
+    @Override
+    public List<SpreadsheetCell> values(final SpreadsheetCellReference from,
+                                        final int count) {
+        Store.checkFromAndToIds(from, count);
+
+        final MemoryMappedSpreadsheetCellStoreIndex index = this.index;
+        final long[] keys = index.sortedKeys();
+        final int begin = index.ceiling(from.pack());
+        final int to = (int) Math.min((long) begin + count, keys.length);
+
+        final List<SpreadsheetCell> values = Lists.array();
+        for (int i = begin; i < to; i++) {
+            values.add(this.read(index.get(keys[i])));
+        }
+        return values;
+    }
+
+    /**
+     * Only reads the cells within each column of the range.
+     */
+    @Override
+    public Set<SpreadsheetCell> loadCells(final SpreadsheetCellRange range) {
+        Objects.requireNonNull(range, "ranges");
+
+        final Set<SpreadsheetCell> cells = Sets.sorted();
+
+        final SpreadsheetCellReference begin = range.begin();
+        final SpreadsheetCellReference end = range.end();
+        final int beginRow = begin.row().value();
+        final int endRow = end.row().value();
+
+        for (int c = begin.column().value(); c <= end.column().value(); c++) {
+            this.column(c, beginRow, endRow, cells);
+        }
+
+        return Sets.readOnly(cells);
+    }
+
+    @Override
+    public int rows() {
+        int rows = 0;
+        for (final long key : this.index.sortedKeys()) {
+            rows = Math.max(rows, (int) key);
+        }
+        return rows;
+    }
+
+    @Override
+    public int columns() {
+        final long[] keys = this.index.sortedKeys();
+        return 0 == keys.length ?
+                0 :
+                (int) (keys[keys.length - 1] >>> 32);
+    }
+
+    @Override
+    public Set<SpreadsheetCell> row(final SpreadsheetRowReference row) {
+        Objects.requireNonNull(row, "row");
+
+        final MemoryMappedSpreadsheetCellStoreIndex index = this.index;
+        final int value = row.value();
+
+        final Set<SpreadsheetCell> cells = Sets.sorted();
+        for (final long key : index.sortedKeys()) {
+            if (value == (int) key) {
+                cells.add(this.read(index.get(key)));
+            }
+        }
+        return cells;
+    }
+
+    @Override
+    public Set<SpreadsheetCell> column(final SpreadsheetColumnReference column) {
+        Objects.requireNonNull(column, "column");
+
+        final Set<SpreadsheetCell> cells = Sets.sorted();
+        this.column(
+                column.value(),
+                0,
+                SpreadsheetRowReference.MAX_VALUE,
+                cells
+        );
+        return cells;
+    }
+
+    /**
+     * Reads the cells in the given column and finds the max {@link TextStylePropertyName#WIDTH} value.
+     */
+    @Override
+    public double maxColumnWidth(final SpreadsheetColumnReference column) {
+        Objects.requireNonNull(column, "column");
+
+        return this.max(
+                this.column(column),
+                TextStylePropertyName.WIDTH
+        );
+    }
+
+    /**
+     * Reads the cells in the given row and finds the max {@link TextStylePropertyName#HEIGHT} value.
+     */
+    @Override
+    public double maxRowHeight(final SpreadsheetRowReference row) {
+        Objects.requireNonNull(row, "row");
+
+        return this.max(
+                this.row(row),
+                TextStylePropertyName.HEIGHT
+        );
+    }
+
+    @Override
+    public Set<SpreadsheetCellReference> impureCells() {
+        final Set<SpreadsheetCellReference> impureCells = Sets.sorted();
+        impureCells.addAll(this.impureCells);
+        return Sets.readOnly(impureCells);
+    }
+
+    private void updateImpureCells(final SpreadsheetCellReference reference,
+                                   final SpreadsheetCell cell) {
+        if (cell.formula().isImpure()) {
+            this.impureCells.add(reference);
+        } else {
+            this.impureCells.remove(reference);
+        }
+    }
+
+    /**
+     * The references of saved cells whose formula was found to be impure when it was parsed, rebuilt from the record
+     * types when the log is replayed.
+     */
+    private final Set<SpreadsheetCellReference> impureCells = Sets.sorted();
+
+    private double max(final Set<SpreadsheetCell> cells,
+                       final TextStylePropertyName<Length<?>> property) {
+        return cells.stream()
+                .mapToDouble(c -> {
+                    double pixels = 0;
+
+                    final Optional<Length<?>> length = c.style()
+                            .get(property);
+                    if (length.isPresent()) {
+                        final PixelLength pixelLength = (PixelLength) length.get();
+                        pixels = pixelLength.value();
+                    }
+
+                    return pixels;
+                })
+                .max()
+                .orElse(0.0);
+    }
+
+    // index............................................................................................................
+
+    /**
+     * Reads the cells between the begin and end rows of the given column, seeking the first with a binary search.
+     */
+    private void column(final int column,
+                        final int beginRow,
+                        final int endRow,
+                        final Set<SpreadsheetCell> cells) {
+        final MemoryMappedSpreadsheetCellStoreIndex index = this.index;
+        final long[] keys = index.sortedKeys();
+        final long end = pack(column, endRow);
+
+        for (int i = index.ceiling(pack(column, beginRow)); i < keys.length; i++) {
+            final long key = keys[i];
+            if (key > end) {
+                break;
+            }
+            cells.add(this.read(index.get(key)));
+        }
+    }
+
+    private static long pack(final int column,
+                             final int row) {
+        return (long) column << 32 | row;
+    }
+
+    /**
+     * Returns the size of the record at the given offset, or zero when {@link MemoryMappedSpreadsheetCellStoreIndex#ABSENT}.
+     */
+    private long recordSize(final long offset) {
+        return MemoryMappedSpreadsheetCellStoreIndex.ABSENT != offset ?
+                RECORD_HEADER_SIZE + this.segment(offset).getInt(this.local(offset)) :
+                0;
+    }
+
+    /**
+     * Packed references to the offset of the latest save record of each cell.
+     */
+    private MemoryMappedSpreadsheetCellStoreIndex index;
+
+    /**
+     * The total size of the latest save record of each cell, the remainder of the log is replaced, deleted or
+     * padding.
+     */
+    private long live;
+
+    // compact..........................................................................................................
+
+    private void compactIfNecessary() {
+        final long dead = this.position - FILE_HEADER_SIZE - this.live;
+        if (null != this.file && dead >= COMPACT_THRESHOLD && dead > this.live) {
+            this.compact();
+        }
+    }
+
+    /**
+     * Writes the latest record of each cell to a sibling file, which then replaces the file. Only stores that own their
+     * file may be compacted.
+     */
+    void compact() {
+        final Path file = this.file;
+        if (null == file) {
+            throw new IllegalStateException("Unable to compact a store opened with a channel");
+        }
+
+        final Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        try {
+            Files.deleteIfExists(compacted);
+
+            try (final FileChannel channel = channel(compacted)) {
+                final MemoryMappedSpreadsheetCellStore copy = new MemoryMappedSpreadsheetCellStore(
+                        null,
+                        channel,
+                        this.segmentSize,
+                        this.marshallContext,
+                        this.unmarshallContext
+                );
+
+                final MemoryMappedSpreadsheetCellStoreIndex index = this.index;
+                for (final long key : index.sortedKeys()) {
+                    final long offset = index.get(key);
+                    copy.append(
+                            this.type(offset),
+                            key,
+                            this.json(offset)
+                    );
+                }
+                copy.force();
+            }
+
+            Files.move(
+                    compacted,
+                    file,
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING
+            );
+            this.channel.close();
+        } catch (final IOException cause) {
+            throw new UncheckedIOException(cause);
+        }
+
+        this.mapAndReplay(channel(file));
+    }
+
+    // file.............................................................................................................
+
+    /**
+     * Appends a record at the end of the log, growing the mapped region if necessary, returning the record offset.
+     */
+    private long append(final byte type,
+                        final long key,
+                        final byte[] json) {
+        final int segmentSize = this.segmentSize;
+        final int size = RECORD_HEADER_SIZE + json.length;
+        if (size > segmentSize) {
+            throw new IllegalArgumentException("Record too large " + size + " > " + segmentSize);
+        }
+
+        long position = this.position;
+        final int remaining = segmentSize - this.local(position);
+        if (size > remaining) {
+            // records never span segments, skip the rest of this one.
+            if (remaining >= RECORD_HEADER_SIZE) {
+                this.write(position, PAD, 0, new byte[remaining - RECORD_HEADER_SIZE]);
+            }
+            position += remaining;
+        }
+
+        this.write(position, type, key, json);
+        this.position = position + size;
+        return position;
+    }
+
+    private void write(final long position,
+                       final byte type,
+                       final long key,
+                       final byte[] json) {
+        final long end = position + RECORD_HEADER_SIZE + json.length;
+        if (end > this.capacity) {
+            long capacity = this.capacity;
+            while (capacity < end) {
+                capacity = this.grown(capacity);
+            }
+            this.map(capacity);
+        }
+
+        final MappedByteBuffer segment = this.segment(position);
+        final int local = this.local(position);
+
+        segment.putInt(local, json.length);
+        segment.putLong(local + 5, key);
+
+        final ByteBuffer data = segment.duplicate();
+        data.position(local + RECORD_HEADER_SIZE);
+        data.put(json);
+
+        // type written last so a partially written record is seen as the END.
+        segment.put(local + 4, type);
+    }
+
+    /**
+     * Doubles the capacity until it reaches a segment, and then grows a segment at a time.
+     */
+    private long grown(final long capacity) {
+        final int segmentSize = this.segmentSize;
+        return capacity < segmentSize ?
+                Math.min(capacity * 2, segmentSize) :
+                capacity + segmentSize;
+    }
+
+    /**
+     * Maps the file up to the given capacity, reusing segments that are already fully mapped.
+     */
+    private void map(final long capacity) {
+        final int segmentSize = this.segmentSize;
+        final MappedByteBuffer[] segments = this.segments;
+        final MappedByteBuffer[] mapped = new MappedByteBuffer[(int) ((capacity + segmentSize - 1) / segmentSize)];
+
+        try {
+            for (int i = 0; i < mapped.length; i++) {
+                final long start = (long) i * segmentSize;
+                final long length = Math.min(segmentSize, capacity - start);
+
+                mapped[i] = i < segments.length && segments[i].capacity() == length ?
+                        segments[i] :
+                        this.channel.map(
+                                FileChannel.MapMode.READ_WRITE,
+                                start,
+                                length
+                        );
+            }
+        } catch (final IOException cause) {
+            throw new UncheckedIOException(cause);
+        }
+
+        this.segments = mapped;
+        this.capacity = capacity;
+    }
+
+    private MappedByteBuffer segment(final long offset) {
+        return this.segments[(int) (offset / this.segmentSize)];
+    }
+
+    private int local(final long offset) {
+        return (int) (offset % this.segmentSize);
+    }
+
+    private SpreadsheetCell read(final long offset) {
+        return this.unmarshallContext.unmarshall(
+                JsonNode.parse(
+                        new String(this.json(offset), StandardCharsets.UTF_8)
+                ),
+                SpreadsheetCell.class
+        );
+    }
+
+    private byte type(final long offset) {
+        return this.segment(offset)
+                .get(this.local(offset) + 4);
+    }
+
+    private byte[] json(final long offset) {
+        final MappedByteBuffer segment = this.segment(offset);
+        final int local = this.local(offset);
+
+        final byte[] json = new byte[segment.getInt(local)];
+        final ByteBuffer data = segment.duplicate();
+        data.position(local + RECORD_HEADER_SIZE);
+        data.get(json);
+        return json;
+    }
+
+    /**
+     * Forces the segments holding records written since the last flush, and then compacts the file when necessary.
+     */
+    @Override
+    public void flush() {
+        final long position = this.position;
+        final long flushed = this.flushed;
+
+        if (position > flushed) {
+            final int segmentSize = this.segmentSize;
+            final MappedByteBuffer[] segments = this.segments;
+            final int last = (int) ((position - 1) / segmentSize);
+
+            for (int i = (int) (flushed / segmentSize); i <= last; i++) {
+                segments[i].force();
+            }
+            this.flushed = position;
+        }
+
+        this.compactIfNecessary();
+    }
+
+    private void force() {
+        for (final MappedByteBuffer segment : this.segments) {
+            segment.force();
+        }
+    }
+
+    /**
+     * Flushes all records to the file, closing the file if it was opened by this store.
+     */
+    @Override
+    public void close() {
+        this.flush();
+
+        if (null != this.file) {
+            try {
+                this.channel.close();
+            } catch (final IOException cause) {
+                throw new UncheckedIOException(cause);
+            }
+        }
+    }
+
+    /**
+     * The file when opened by this store, or null when the caller provided the {@link FileChannel}.
+     */
+    private final Path file;
+
+    private FileChannel channel;
+
+    private final int segmentSize;
+
+    private MappedByteBuffer[] segments;
+
+    /**
+     * The total mapped length of all {@link #segments}.
+     */
+    private long capacity;
+
+    /**
+     * The offset where the next record will be written.
+     */
+    private long position;
+
+    /**
+     * Records before this offset have been forced to the file.
+     */
+    private long flushed;
+
+    private final JsonNodeMarshallContext marshallContext;
+
+    private final JsonNodeUnmarshallContext unmarshallContext;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        final MemoryMappedSpreadsheetCellStoreIndex index = this.index;
+
+        final List<SpreadsheetCell> cells = Lists.array();
+        for (final long key : index.sortedKeys()) {
+            cells.add(this.read(index.get(key)));
+        }
+        return cells.toString();
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store.file;
+
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * The index of a {@link MemoryMappedSpreadsheetCellStore}, mapping {@link SpreadsheetCellReference#pack() packed}
+ * references to the file offset of their latest save record. Keys and offsets are held in pairs in a direct buffer,
+ * outside the java heap, using open addressing with linear probing.
+ * <br>
+ * The sorted keys needed by range queries are cached on the heap until a key is added or removed, replacing the
+ * offset of an existing key does not discard them.
+ */
+final class MemoryMappedSpreadsheetCellStoreIndex {
+
+    /**
+     * Returned by {@link #get(long)}, {@link #put(long, long)} and {@link #remove(long)} when a key is absent.
+     */
+    final static long ABSENT = -1;
+
+    /**
+     * Marks an unused slot, packed references are never negative.
+     */
+    private final static long EMPTY = -1;
+
+    // @VisibleForTesting
+    final static int INITIAL_CAPACITY = 1024;
+
+    static MemoryMappedSpreadsheetCellStoreIndex empty() {
+        return new MemoryMappedSpreadsheetCellStoreIndex();
+    }
+
+    /**
+     * Private ctor use factory.
+     */
+    private MemoryMappedSpreadsheetCellStoreIndex() {
+        super();
+        this.allocate(INITIAL_CAPACITY);
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the offset for the packed key or {@link #ABSENT}.
+     */
+    long get(final long key) {
+        final int slot = this.slot(key);
+        return slot >= 0 ?
+                this.offset(slot) :
+                ABSENT;
+    }
+
+    /**
+     * Adds or replaces the offset for the packed key, returning the previous offset or {@link #ABSENT}.
+     */
+    long put(final long key,
+             final long offset) {
+        final LongBuffer slots = this.slots;
+        final int mask = this.capacity - 1;
+
+        int slot = index(key, mask);
+        for (; ; ) {
+            final long k = this.key(slot);
+            if (EMPTY == k) {
+                break;
+            }
+            if (key == k) {
+                final long previous = this.offset(slot);
+                slots.put(slot * 2 + 1, offset);
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        slots.put(slot * 2, key);
+        slots.put(slot * 2 + 1, offset);
+        this.size++;
+        this.sortedKeys = null;
+
+        if (this.size > this.resizeThreshold) {
+            this.resize();
+        }
+        return ABSENT;
+    }
+
+    /**
+     * Removes the packed key returning its offset or {@link #ABSENT}.
+     */
+    long remove(final long key) {
+        int slot = this.slot(key);
+        long previous = ABSENT;
+
+        if (slot >= 0) {
+            previous = this.offset(slot);
+
+            // shift following entries of the same run back so lookups never stop early at the now empty slot.
+            final LongBuffer slots = this.slots;
+            final int mask = this.capacity - 1;
+
+            int next = slot;
+            for (; ; ) {
+                next = (next + 1) & mask;
+                final long k = this.key(next);
+                if (EMPTY == k) {
+                    break;
+                }
+
+                final int ideal = index(k, mask);
+                if (((next - ideal) & mask) >= ((next - slot) & mask)) {
+                    slots.put(slot * 2, k);
+                    slots.put(slot * 2 + 1, this.offset(next));
+                    slot = next;
+                }
+            }
+
+            slots.put(slot * 2, EMPTY);
+            slots.put(slot * 2 + 1, 0);
+            this.size--;
+            this.sortedKeys = null;
+        }
+
+        return previous;
+    }
+
+    /**
+     * Returns the packed keys in order, sorting them only when a key was added or removed since the last call.
+     */
+    long[] sortedKeys() {
+        long[] sorted = this.sortedKeys;
+        if (null == sorted) {
+            sorted = new long[this.size];
+
+            int i = 0;
+            final int capacity = this.capacity;
+            for (int slot = 0; slot < capacity; slot++) {
+                final long key = this.key(slot);
+                if (EMPTY != key) {
+                    sorted[i++] = key;
+                }
+            }
+            Arrays.sort(sorted);
+
+            this.sortedKeys = sorted;
+        }
+        return sorted;
+    }
+
+    /**
+     * Returns the position of the first sorted key at or after the given packed key.
+     */
+    int ceiling(final long key) {
+        final int index = Arrays.binarySearch(this.sortedKeys(), key);
+        return index < 0 ?
+                -index - 1 :
+                index;
+    }
+
+    /**
+     * Finds the slot holding the packed key or -1 if absent.
+     */
+    private int slot(final long key) {
+        final int mask = this.capacity - 1;
+
+        int slot = index(key, mask);
+        for (; ; ) {
+            final long k = this.key(slot);
+            if (key == k) {
+                break;
+            }
+            if (EMPTY == k) {
+                slot = -1;
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private long key(final int slot) {
+        return this.slots.get(slot * 2);
+    }
+
+    private long offset(final int slot) {
+        return this.slots.get(slot * 2 + 1);
+    }
+
+    private void resize() {
+        final LongBuffer slots = this.slots;
+        final int capacity = this.capacity;
+
+        this.allocate(capacity * 2);
+
+        final LongBuffer newSlots = this.slots;
+        final int mask = this.capacity - 1;
+
+        for (int i = 0; i < capacity; i++) {
+            final long key = slots.get(i * 2);
+            if (EMPTY != key) {
+                int slot = index(key, mask);
+                while (EMPTY != this.key(slot)) {
+                    slot = (slot + 1) & mask;
+                }
+                newSlots.put(slot * 2, key);
+                newSlots.put(slot * 2 + 1, slots.get(i * 2 + 1));
+            }
+        }
+    }
+
+    private void allocate(final int capacity) {
+        final LongBuffer slots = ByteBuffer.allocateDirect(capacity * 2 * 8)
+                .asLongBuffer();
+        for (int i = 0; i < capacity; i++) {
+            slots.put(i * 2, EMPTY);
+        }
+
+        this.slots = slots;
+        this.capacity = capacity;
+        this.resizeThreshold = capacity / 2 + capacity / 4;
+    }
+
+    /**
+     * Mixes the column and row bits so neighbouring cells do not cluster into neighbouring slots.
+     */
+    private static int index(final long key,
+                             final int mask) {
+        final int hash = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * Pairs of packed key and offset, held off heap.
+     */
+    private LongBuffer slots;
+
+    private int capacity;
+
+    private int size;
+
+    private int resizeThreshold;
+
+    /**
+     * The packed keys in order, or null when a key was added or removed since they were last sorted.
+     */
+    private long[] sortedKeys;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        final StringBuilder b = new StringBuilder();
+        b.append('{');
+
+        String separator = "";
+        for (final long key : this.sortedKeys()) {
+            b.append(separator)
+                    .append(key)
+                    .append('=')
+                    .append(this.get(key));
+            separator = ", ";
+        }
+
+        return b.append('}')
+                .toString();
+    }
+}
@@ -17,8 +17,11 @@
 
 package walkingkooka.spreadsheet.store.repo;
 
+import walkingkooka.collect.set.Sets;
 import walkingkooka.spreadsheet.conditionalformat.SpreadsheetConditionalFormattingRule;
+import walkingkooka.spreadsheet.datavalidation.SpreadsheetDataValidator;
 import walkingkooka.spreadsheet.meta.store.SpreadsheetMetadataStore;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
 import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetLabelName;
 import walkingkooka.spreadsheet.reference.store.SpreadsheetCellRangeStore;
@@ -32,32 +35,43 @@ import walkingkooka.spreadsheet.store.SpreadsheetRowStore;
 import walkingkooka.store.Store;
 
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * A {@link SpreadsheetStoreRepository} that exposes the {@link Store stores} given to it.
+ * <br>
+ * The cells and ranges referenced by {@link SpreadsheetConditionalFormattingRule} formulas are kept in
+ * {@link #conditionalFormattingRuleReferences()}, which maps each referenced range to the ranges of the rules, so a
+ * rule over whole columns is one entry rather than one per cell and finding the rules referencing a cell intersects
+ * ranges. It is updated by watchers whenever the rules of a range change, a range is deleted or a label is saved or
+ * deleted, rather than each time a cell is saved.
  */
 final class BasicSpreadsheetStoreRepository implements SpreadsheetStoreRepository {
 
     static BasicSpreadsheetStoreRepository with(final SpreadsheetCellStore cells,
                                                 final SpreadsheetExpressionReferenceStore<SpreadsheetCellReference> cellReferences,
                                                 final SpreadsheetColumnStore columns,
+                                                final SpreadsheetCellRangeStore<SpreadsheetCellRange> conditionalFormattingRuleReferences,
                                                 final SpreadsheetGroupStore groups,
                                                 final SpreadsheetLabelStore labels,
                                                 final SpreadsheetExpressionReferenceStore<SpreadsheetLabelName> labelReferences,
                                                 final SpreadsheetMetadataStore metadatas,
                                                 final SpreadsheetCellRangeStore<SpreadsheetCellReference> rangeToCells,
                                                 final SpreadsheetCellRangeStore<SpreadsheetConditionalFormattingRule> rangeToConditionalFormattingRules,
+                                                final SpreadsheetCellRangeStore<SpreadsheetDataValidator<?>> rangeToValidators,
                                                 final SpreadsheetRowStore rows,
                                                 final SpreadsheetUserStore users) {
         Objects.requireNonNull(cells, "cells");
         Objects.requireNonNull(cellReferences, "cellReferences");
         Objects.requireNonNull(columns, "columns");
+        Objects.requireNonNull(conditionalFormattingRuleReferences, "conditionalFormattingRuleReferences");
         Objects.requireNonNull(groups, "groups");
         Objects.requireNonNull(labels, "labels");
         Objects.requireNonNull(labelReferences, "labelReferences");
         Objects.requireNonNull(metadatas, "metadatas");
         Objects.requireNonNull(rangeToCells, "rangeToCells");
         Objects.requireNonNull(rangeToConditionalFormattingRules, "rangeToConditionalFormattingRules");
+        Objects.requireNonNull(rangeToValidators, "rangeToValidators");
         Objects.requireNonNull(rows, "rows");
         Objects.requireNonNull(users, "users");
 
@@ -65,12 +79,14 @@ final class BasicSpreadsheetStoreRepository implements SpreadsheetStoreRepositor
                 cells,
                 cellReferences,
                 columns,
+                conditionalFormattingRuleReferences,
                 groups,
                 labels,
                 labelReferences,
                 metadatas,
                 rangeToCells,
                 rangeToConditionalFormattingRules,
+                rangeToValidators,
                 rows,
                 users
         );
@@ -79,25 +95,90 @@ final class BasicSpreadsheetStoreRepository implements SpreadsheetStoreRepositor
     private BasicSpreadsheetStoreRepository(final SpreadsheetCellStore cells,
                                             final SpreadsheetExpressionReferenceStore<SpreadsheetCellReference> cellReferences,
                                             final SpreadsheetColumnStore columns,
+                                            final SpreadsheetCellRangeStore<SpreadsheetCellRange> conditionalFormattingRuleReferences,
                                             final SpreadsheetGroupStore groups,
                                             final SpreadsheetLabelStore labels,
                                             final SpreadsheetExpressionReferenceStore<SpreadsheetLabelName> labelReferences,
                                             final SpreadsheetMetadataStore metadatas,
                                             final SpreadsheetCellRangeStore<SpreadsheetCellReference> rangeToCells,
                                             final SpreadsheetCellRangeStore<SpreadsheetConditionalFormattingRule> rangeToConditionalFormattingRules,
+                                            final SpreadsheetCellRangeStore<SpreadsheetDataValidator<?>> rangeToValidators,
                                             final SpreadsheetRowStore rows,
                                             final SpreadsheetUserStore users) {
         this.cells = cells;
         this.cellReferences = cellReferences;
         this.columns = columns;
+        this.conditionalFormattingRuleReferences = conditionalFormattingRuleReferences;
         this.groups = groups;
         this.labels = labels;
         this.labelReferences = labelReferences;
         this.metadatas = metadatas;
         this.rangeToCells = rangeToCells;
         this.rangeToConditionalFormattingRules = rangeToConditionalFormattingRules;
+        this.rangeToValidators = rangeToValidators;
         this.rows = rows;
         this.users = users;
+
+        rangeToConditionalFormattingRules.addValueWatcher(this::saveConditionalFormattingRuleReferences);
+        rangeToConditionalFormattingRules.addDeleteWatcher(this::deleteConditionalFormattingRuleReferences);
+        labels.addSaveWatcher((m) -> this.saveAllConditionalFormattingRuleReferences());
+        labels.addDeleteWatcher((l) -> this.saveAllConditionalFormattingRuleReferences());
+    }
+
+    /**
+     * Gathers the ranges referenced by the formulas of all the rules of the given range, adding the range to each
+     * newly referenced range and removing it from ranges no longer referenced.
+     */
+    private void saveConditionalFormattingRuleReferences(final SpreadsheetCellRange range) {
+        final SpreadsheetLabelStore labels = this.labels;
+        final Set<SpreadsheetCellRange> references = Sets.sorted();
+
+        this.rangeToConditionalFormattingRules.load(range)
+                .ifPresent(rules -> rules.forEach(rule -> rule.formula()
+                        .expression()
+                        .ifPresent(e -> BasicSpreadsheetStoreRepositoryConditionalFormattingRuleReferencesExpressionVisitor.gatherReferences(
+                                e,
+                                labels,
+                                references
+                        ))
+                ));
+
+        final SpreadsheetCellRangeStore<SpreadsheetCellRange> store = this.conditionalFormattingRuleReferences;
+        final SpreadsheetCellRange relative = range.toRelative();
+
+        for (final SpreadsheetCellRange previous : store.rangesWithValue(relative)) {
+            if (false == references.remove(previous)) {
+                store.removeValue(previous, relative);
+            }
+        }
+
+        // only ranges not already referenced remain
+        for (final SpreadsheetCellRange reference : references) {
+            store.addValue(reference, relative);
+        }
+    }
+
+    /**
+     * Labels within rule formulas are resolved when the references are gathered, so a label change gathers the
+     * references of every range again.
+     */
+    private void saveAllConditionalFormattingRuleReferences() {
+        final SpreadsheetCellRangeStore<SpreadsheetConditionalFormattingRule> rules = this.rangeToConditionalFormattingRules;
+
+        final int count = rules.count();
+        if (count > 0) {
+            rules.ids(0, count)
+                    .forEach(this::saveConditionalFormattingRuleReferences);
+        }
+    }
+
+    private void deleteConditionalFormattingRuleReferences(final SpreadsheetCellRange range) {
+        final SpreadsheetCellRangeStore<SpreadsheetCellRange> store = this.conditionalFormattingRuleReferences;
+        final SpreadsheetCellRange relative = range.toRelative();
+
+        for (final SpreadsheetCellRange reference : store.rangesWithValue(relative)) {
+            store.removeValue(reference, relative);
+        }
     }
 
     @Override
@@ -121,6 +202,13 @@ final class BasicSpreadsheetStoreRepository implements SpreadsheetStoreRepositor
 
     private final SpreadsheetColumnStore columns;
 
+    @Override
+    public SpreadsheetCellRangeStore<SpreadsheetCellRange> conditionalFormattingRuleReferences() {
+        return this.conditionalFormattingRuleReferences;
+    }
+
+    private final SpreadsheetCellRangeStore<SpreadsheetCellRange> conditionalFormattingRuleReferences;
+
     @Override
     public SpreadsheetGroupStore groups() {
         return this.groups;
@@ -163,6 +251,13 @@ final class BasicSpreadsheetStoreRepository implements SpreadsheetStoreRepositor
 
     private final SpreadsheetCellRangeStore<SpreadsheetConditionalFormattingRule> rangeToConditionalFormattingRules;
 
+    @Override
+    public SpreadsheetCellRangeStore<SpreadsheetDataValidator<?>> rangeToValidators() {
+        return this.rangeToValidators;
+    }
+
+    private final SpreadsheetCellRangeStore<SpreadsheetDataValidator<?>> rangeToValidators;
+
     @Override
     public SpreadsheetRowStore rows() {
         return this.rows;
@@ -182,12 +277,14 @@ final class BasicSpreadsheetStoreRepository implements SpreadsheetStoreRepositor
         return this.cells + " " +
                 this.cellReferences + " " +
                 this.columns + " " +
+                this.conditionalFormattingRuleReferences + " " +
                 this.groups + " " +
                 this.labels + " " +
                 this.labelReferences + " " +
                 this.metadatas + " " +
                 this.rangeToCells + " " +
                 this.rangeToConditionalFormattingRules + " " +
+                this.rangeToValidators + " " +
                 this.rows + " " +
                 this.users;
     }
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store.repo;
+
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
+import walkingkooka.spreadsheet.reference.SpreadsheetExpressionReference;
+import walkingkooka.spreadsheet.reference.store.SpreadsheetLabelStore;
+import walkingkooka.tree.expression.Expression;
+import walkingkooka.tree.expression.ExpressionReference;
+import walkingkooka.tree.expression.ExpressionVisitor;
+import walkingkooka.tree.expression.ReferenceExpression;
+
+import java.util.Set;
+
+/**
+ * Accepts the {@link Expression} of a {@link walkingkooka.spreadsheet.conditionalformat.SpreadsheetConditionalFormattingRule}
+ * and gathers the {@link SpreadsheetCellRange ranges} of all cells and ranges referenced by any {@link ExpressionReference}.
+ */
+final class BasicSpreadsheetStoreRepositoryConditionalFormattingRuleReferencesExpressionVisitor extends ExpressionVisitor {
+
+    static void gatherReferences(final Expression node,
+                                 final SpreadsheetLabelStore labels,
+                                 final Set<SpreadsheetCellRange> ranges) {
+        new BasicSpreadsheetStoreRepositoryConditionalFormattingRuleReferencesExpressionVisitor(labels, ranges)
+                .accept(node);
+    }
+
+    // VisibleForTesting
+    BasicSpreadsheetStoreRepositoryConditionalFormattingRuleReferencesExpressionVisitor(final SpreadsheetLabelStore labels,
+                                                                                      final Set<SpreadsheetCellRange> ranges) {
+        super();
+        this.labels = labels;
+        this.ranges = ranges;
+    }
+
+    @Override
+    protected void visit(final ReferenceExpression node) {
+        if (null == this.visitor) {
+            this.visitor = BasicSpreadsheetStoreRepositoryConditionalFormattingRuleReferencesExpressionVisitorSpreadsheetSelectionVisitor.with(
+                    this.labels,
+                    this.ranges
+            );
+        }
+        this.visitor.accept((SpreadsheetExpressionReference) node.value());
+    }
+
+    /**
+     * Used to resolve any labels.
+     */
+    private final SpreadsheetLabelStore labels;
+
+    /**
+     * All the gathered {@link SpreadsheetCellRange ranges}.
+     */
+    private final Set<SpreadsheetCellRange> ranges;
+
+    /**
+     * Cache of the {@link BasicSpreadsheetStoreRepositoryConditionalFormattingRuleReferencesExpressionVisitorSpreadsheetSelectionVisitor} that will process each and every encountered {@link ReferenceExpression}.
+     */
+    private BasicSpreadsheetStoreRepositoryConditionalFormattingRuleReferencesExpressionVisitorSpreadsheetSelectionVisitor visitor;
+
+    @Override
+    public String toString() {
+        return this.ranges.toString();
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store.repo;
+
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetLabelName;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelectionVisitor;
+import walkingkooka.spreadsheet.reference.store.SpreadsheetLabelStore;
+
+import java.util.Set;
+
+/**
+ * A {@link SpreadsheetSelectionVisitor} that adds the range of each reference present within a conditional formatting
+ * rule formula, a cell becoming a range of one cell. Ranges are never expanded into their cells. Labels are resolved
+ * using the {@link SpreadsheetLabelStore}, with unknown labels ignored.
+ */
+final class BasicSpreadsheetStoreRepositoryConditionalFormattingRuleReferencesExpressionVisitorSpreadsheetSelectionVisitor extends SpreadsheetSelectionVisitor {
+
+    static BasicSpreadsheetStoreRepositoryConditionalFormattingRuleReferencesExpressionVisitorSpreadsheetSelectionVisitor with(final SpreadsheetLabelStore labels,
+                                                                                                                             final Set<SpreadsheetCellRange> ranges) {
+        return new BasicSpreadsheetStoreRepositoryConditionalFormattingRuleReferencesExpressionVisitorSpreadsheetSelectionVisitor(labels, ranges);
+    }
+
+    // VisibleForTesting
+    BasicSpreadsheetStoreRepositoryConditionalFormattingRuleReferencesExpressionVisitorSpreadsheetSelectionVisitor(final SpreadsheetLabelStore labels,
+                                                                                                                 final Set<SpreadsheetCellRange> ranges) {
+        super();
+        this.labels = labels;
+        this.ranges = ranges;
+    }
+
+    @Override
+    protected void visit(final SpreadsheetCellReference reference) {
+        this.add(reference.cellRange(reference));
+    }
+
+    @Override
+    protected void visit(final SpreadsheetLabelName label) {
+        this.labels.load(label)
+                .ifPresent(m -> this.accept(m.reference()));
+    }
+
+    @Override
+    protected void visit(final SpreadsheetCellRange range) {
+        this.add(range);
+    }
+
+    private void add(final SpreadsheetCellRange range) {
+        this.ranges.add(range.toRelative());
+    }
+
+    /**
+     * Used to resolve labels.
+     */
+    private final SpreadsheetLabelStore labels;
+
+    /**
+     * All the gathered {@link SpreadsheetCellRange ranges}.
+     */
+    private final Set<SpreadsheetCellRange> ranges;
+
+    @Override
+    public String toString() {
+        return this.ranges.toString();
+    }
+}
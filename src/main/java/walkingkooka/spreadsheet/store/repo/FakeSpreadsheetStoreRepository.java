@@ -18,7 +18,9 @@
 package walkingkooka.spreadsheet.store.repo;
 
 import walkingkooka.spreadsheet.conditionalformat.SpreadsheetConditionalFormattingRule;
+import walkingkooka.spreadsheet.datavalidation.SpreadsheetDataValidator;
 import walkingkooka.spreadsheet.meta.store.SpreadsheetMetadataStore;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
 import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetLabelName;
 import walkingkooka.spreadsheet.reference.store.SpreadsheetCellRangeStore;
@@ -52,6 +54,11 @@ public class FakeSpreadsheetStoreRepository implements SpreadsheetStoreRepositor
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public SpreadsheetCellRangeStore<SpreadsheetCellRange> conditionalFormattingRuleReferences() {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public SpreadsheetGroupStore groups() {
         throw new UnsupportedOperationException();
@@ -82,6 +89,11 @@ public class FakeSpreadsheetStoreRepository implements SpreadsheetStoreRepositor
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public SpreadsheetCellRangeStore<SpreadsheetDataValidator<?>> rangeToValidators() {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public SpreadsheetRowStore rows() {
         throw new UnsupportedOperationException();
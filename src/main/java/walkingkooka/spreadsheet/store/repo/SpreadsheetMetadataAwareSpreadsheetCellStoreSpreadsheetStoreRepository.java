@@ -19,8 +19,10 @@ package walkingkooka.spreadsheet.store.repo;
 
 import walkingkooka.spreadsheet.SpreadsheetId;
 import walkingkooka.spreadsheet.conditionalformat.SpreadsheetConditionalFormattingRule;
+import walkingkooka.spreadsheet.datavalidation.SpreadsheetDataValidator;
 import walkingkooka.spreadsheet.meta.SpreadsheetMetadata;
 import walkingkooka.spreadsheet.meta.store.SpreadsheetMetadataStore;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
 import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetLabelName;
 import walkingkooka.spreadsheet.reference.store.SpreadsheetCellRangeStore;
@@ -113,6 +115,11 @@ final class SpreadsheetMetadataAwareSpreadsheetCellStoreSpreadsheetStoreReposito
         return this.repository.columns();
     }
 
+    @Override
+    public SpreadsheetCellRangeStore<SpreadsheetCellRange> conditionalFormattingRuleReferences() {
+        return this.repository.conditionalFormattingRuleReferences();
+    }
+
     @Override
     public SpreadsheetGroupStore groups() {
         return this.repository.groups();
@@ -143,6 +150,11 @@ final class SpreadsheetMetadataAwareSpreadsheetCellStoreSpreadsheetStoreReposito
         return this.repository.rangeToConditionalFormattingRules();
     }
 
+    @Override
+    public SpreadsheetCellRangeStore<SpreadsheetDataValidator<?>> rangeToValidators() {
+        return this.repository.rangeToValidators();
+    }
+
     @Override
     public SpreadsheetRowStore rows() {
         return this.repository.rows();
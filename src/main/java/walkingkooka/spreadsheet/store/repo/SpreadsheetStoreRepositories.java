@@ -20,7 +20,9 @@ package walkingkooka.spreadsheet.store.repo;
 import walkingkooka.reflect.PublicStaticHelper;
 import walkingkooka.spreadsheet.SpreadsheetId;
 import walkingkooka.spreadsheet.conditionalformat.SpreadsheetConditionalFormattingRule;
+import walkingkooka.spreadsheet.datavalidation.SpreadsheetDataValidator;
 import walkingkooka.spreadsheet.meta.store.SpreadsheetMetadataStore;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
 import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetLabelName;
 import walkingkooka.spreadsheet.reference.store.SpreadsheetCellRangeStore;
@@ -53,24 +55,28 @@ public final class SpreadsheetStoreRepositories implements PublicStaticHelper {
     public static SpreadsheetStoreRepository basic(final SpreadsheetCellStore cells,
                                                    final SpreadsheetExpressionReferenceStore<SpreadsheetCellReference> cellReferences,
                                                    final SpreadsheetColumnStore columns,
+                                                   final SpreadsheetCellRangeStore<SpreadsheetCellRange> conditionalFormattingRuleReferences,
                                                    final SpreadsheetGroupStore groups,
                                                    final SpreadsheetLabelStore labels,
                                                    final SpreadsheetExpressionReferenceStore<SpreadsheetLabelName> labelReferences,
                                                    final SpreadsheetMetadataStore metadatas,
                                                    final SpreadsheetCellRangeStore<SpreadsheetCellReference> rangeToCells,
                                                    final SpreadsheetCellRangeStore<SpreadsheetConditionalFormattingRule> rangeToConditionalFormattingRules,
+                                                   final SpreadsheetCellRangeStore<SpreadsheetDataValidator<?>> rangeToValidators,
                                                    final SpreadsheetRowStore rows,
                                                    final SpreadsheetUserStore users) {
         return BasicSpreadsheetStoreRepository.with(
                 cells,
                 cellReferences,
                 columns,
+                conditionalFormattingRuleReferences,
                 groups,
                 labels,
                 labelReferences,
                 metadatas,
                 rangeToCells,
                 rangeToConditionalFormattingRules,
+                rangeToValidators,
                 rows,
                 users
         );
@@ -18,7 +18,9 @@
 package walkingkooka.spreadsheet.store.repo;
 
 import walkingkooka.spreadsheet.conditionalformat.SpreadsheetConditionalFormattingRule;
+import walkingkooka.spreadsheet.datavalidation.SpreadsheetDataValidator;
 import walkingkooka.spreadsheet.meta.store.SpreadsheetMetadataStore;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
 import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetLabelName;
 import walkingkooka.spreadsheet.reference.store.SpreadsheetCellRangeStore;
@@ -51,6 +53,12 @@ public interface SpreadsheetStoreRepository {
      */
     SpreadsheetColumnStore columns();
 
+    /**
+     * A {@link SpreadsheetCellRangeStore} holding the ranges of {@link SpreadsheetConditionalFormattingRule rules} for
+     * each cell or range referenced by their formulas.
+     */
+    SpreadsheetCellRangeStore<SpreadsheetCellRange> conditionalFormattingRuleReferences();
+
     /**
      * A {@link SpreadsheetGroupStore} holding groups.
      */
@@ -81,6 +89,11 @@ public interface SpreadsheetStoreRepository {
      */
     SpreadsheetCellRangeStore<SpreadsheetConditionalFormattingRule> rangeToConditionalFormattingRules();
 
+    /**
+     * A {@link SpreadsheetCellRangeStore} holding the {@link SpreadsheetDataValidator validators} for each range.
+     */
+    SpreadsheetCellRangeStore<SpreadsheetDataValidator<?>> rangeToValidators();
+
     /**
      * A {@link SpreadsheetRowStore} holding rows.
      */
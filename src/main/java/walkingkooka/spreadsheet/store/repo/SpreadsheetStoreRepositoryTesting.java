@@ -36,6 +36,11 @@ public interface SpreadsheetStoreRepositoryTesting<S extends SpreadsheetStoreRep
         assertNotNull(this.createStoreRepository().cellReferences());
     }
 
+    @Test
+    default void testConditionalFormattingRuleReferences() {
+        assertNotNull(this.createStoreRepository().conditionalFormattingRuleReferences());
+    }
+
     @Test
     default void testGroups() {
         assertNotNull(this.createStoreRepository().groups());
@@ -66,6 +71,11 @@ public interface SpreadsheetStoreRepositoryTesting<S extends SpreadsheetStoreRep
         assertNotNull(this.createStoreRepository().rangeToConditionalFormattingRules());
     }
 
+    @Test
+    default void testRangeToValidators() {
+        assertNotNull(this.createStoreRepository().rangeToValidators());
+    }
+
     @Test
     default void testUsers() {
         assertNotNull(this.createStoreRepository().users());
@@ -298,6 +298,18 @@ public final class SpreadsheetCellTest implements ClassTesting2<SpreadsheetCell>
         assertSame(cell, cell.setFormula(cell.formula()));
     }
 
+    @Test
+    public void testSetFormulaPurityRecordedKeepsFormatted() {
+        final SpreadsheetCell cell = this.createCell();
+        final SpreadsheetFormula recorded = cell.formula()
+                .recordPurity((n) -> false);
+        final SpreadsheetCell different = cell.setFormula(recorded);
+        assertNotSame(cell, different);
+
+        assertSame(recorded, different.formula(), "formula");
+        this.checkFormatted(different);
+    }
+
     @Test
     public void testSetFormulaDifferent() {
         final SpreadsheetCell cell = this.createCell();
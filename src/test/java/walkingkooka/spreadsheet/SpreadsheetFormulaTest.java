@@ -26,6 +26,7 @@ import walkingkooka.reflect.JavaVisibility;
 import walkingkooka.spreadsheet.engine.FakeSpreadsheetEngineContext;
 import walkingkooka.spreadsheet.engine.SpreadsheetEngineContext;
 import walkingkooka.spreadsheet.engine.SpreadsheetEngineContexts;
+import walkingkooka.spreadsheet.expression.SpreadsheetCompiledExpression;
 import walkingkooka.spreadsheet.meta.SpreadsheetMetadata;
 import walkingkooka.spreadsheet.meta.SpreadsheetMetadataPropertyName;
 import walkingkooka.spreadsheet.parser.SpreadsheetParserToken;
@@ -35,7 +36,10 @@ import walkingkooka.text.printer.IndentingPrinter;
 import walkingkooka.text.printer.TreePrintable;
 import walkingkooka.text.printer.TreePrintableTesting;
 import walkingkooka.tree.expression.Expression;
+import walkingkooka.tree.expression.ExpressionEvaluationContext;
 import walkingkooka.tree.expression.ExpressionNumberKind;
+import walkingkooka.tree.expression.FunctionExpressionName;
+import walkingkooka.tree.expression.function.ExpressionFunction;
 import walkingkooka.tree.json.JsonNode;
 import walkingkooka.tree.json.JsonPropertyName;
 import walkingkooka.tree.json.marshall.JsonNodeMarshallingTesting;
@@ -45,6 +49,7 @@ import walkingkooka.tree.json.patch.PatchableTesting;
 
 import java.math.MathContext;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertSame;
@@ -339,6 +344,330 @@ public final class SpreadsheetFormulaTest implements ClassTesting2<SpreadsheetFo
         );
     }
 
+    // isPure.......................................................................................................
+
+    @Test
+    public void testIsPureNullContextFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> this.createObject().isPure(null)
+        );
+    }
+
+    @Test
+    public void testIsPureWithoutExpression() {
+        this.checkEquals(
+                true,
+                SpreadsheetFormula.EMPTY.setText("=1")
+                        .isPure(this::isPureFail)
+        );
+    }
+
+    @Test
+    public void testIsPureImpureFunction() {
+        this.checkEquals(
+                false,
+                this.formulaWithFunction()
+                        .isPure((n) -> false)
+        );
+    }
+
+    @Test
+    public void testIsPureNotRecorded() {
+        final SpreadsheetFormula formula = this.formulaWithFunction();
+
+        this.checkEquals(false, formula.isPure((n) -> false));
+        this.checkEquals(true, formula.isPure((n) -> true));
+    }
+
+    // recordPurity.................................................................................................
+
+    @Test
+    public void testRecordPurityNullContextFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> this.createObject().recordPurity(null)
+        );
+    }
+
+    @Test
+    public void testRecordPurity() {
+        final SpreadsheetFormula formula = this.formulaWithFunction()
+                .recordPurity((n) -> false);
+
+        this.checkEquals(false, formula.isPure(this::isPureFail));
+        this.checkEquals(true, formula.isImpure(), "isImpure");
+    }
+
+    @Test
+    public void testRecordPurityPure() {
+        final SpreadsheetFormula formula = this.formulaWithFunction()
+                .recordPurity((n) -> true);
+
+        this.checkEquals(true, formula.isPure(this::isPureFail));
+        this.checkEquals(false, formula.isImpure(), "isImpure");
+    }
+
+    @Test
+    public void testRecordPurityReturnsDifferent() {
+        final SpreadsheetFormula formula = this.formulaWithFunction();
+        final SpreadsheetFormula recorded = formula.recordPurity((n) -> false);
+
+        assertNotSame(
+                formula,
+                recorded
+        );
+        this.checkEquals(true, recorded.isImpure(), "isImpure");
+        this.checkEquals(false, formula.isImpure(), "original isImpure");
+    }
+
+    @Test
+    public void testRecordPurityAlreadyRecorded() {
+        final SpreadsheetFormula formula = this.formulaWithFunction()
+                .recordPurity((n) -> false);
+
+        assertSame(
+                formula,
+                formula.recordPurity(this::isPureFail)
+        );
+        this.checkEquals(true, formula.isImpure(), "isImpure");
+    }
+
+    @Test
+    public void testRecordPurityKeptAfterSetValue() {
+        final SpreadsheetFormula formula = this.formulaWithFunction()
+                .recordPurity((n) -> false);
+
+        this.checkEquals(
+                false,
+                formula.setValue(Optional.of("value123"))
+                        .isPure(this::isPureFail)
+        );
+    }
+
+    @Test
+    public void testRecordPurityForgottenAfterSetExpression() {
+        final SpreadsheetFormula formula = this.formulaWithFunction()
+                .recordPurity((n) -> false);
+
+        this.checkEquals(
+                false,
+                formula.setExpression(this.expression("different"))
+                        .isImpure()
+        );
+    }
+
+    @Test
+    public void testRecordPurityEquals() {
+        final SpreadsheetFormula formula = this.formulaWithFunction();
+
+        this.checkEquals(
+                formula,
+                formula.recordPurity((n) -> false)
+        );
+    }
+
+    @Test
+    public void testIsImpureNotRecorded() {
+        this.checkEquals(
+                false,
+                this.formulaWithFunction()
+                        .isImpure()
+        );
+    }
+
+    // discardToken.....................................................................................................
+
+    @Test
+    public void testDiscardTokenWithoutToken() {
+        final SpreadsheetFormula formula = this.createObject();
+        assertSame(
+                formula,
+                formula.discardToken()
+        );
+    }
+
+    @Test
+    public void testDiscardToken() {
+        final SpreadsheetFormula formula = this.createObject()
+                .setToken(this.token())
+                .setExpression(this.expression())
+                .setValue(this.value());
+        final SpreadsheetFormula discarded = formula.discardToken();
+        assertNotSame(formula, discarded);
+
+        this.checkText(discarded, formula.text());
+        this.checkTokenAbsent(discarded);
+        this.checkExpression(discarded, this.expression());
+        this.checkValue(discarded, this.value());
+    }
+
+    @Test
+    public void testDiscardTokenKeepsPure() {
+        final SpreadsheetFormula formula = this.formulaWithFunction()
+                .setToken(this.token())
+                .setExpression(this.formulaWithFunction().expression())
+                .recordPurity((n) -> false);
+
+        this.checkEquals(
+                false,
+                formula.discardToken()
+                        .isPure(this::isPureFail)
+        );
+    }
+
+    // compiledExpression...............................................................................................
+
+    private final static Function<FunctionExpressionName, ExpressionFunction<?, ExpressionEvaluationContext>> FUNCTIONS = (n) -> {
+        throw new UnsupportedOperationException("function " + n);
+    };
+
+    @Test
+    public void testCompileNullFunctionsFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> this.formulaWithFunction()
+                        .compile(null)
+        );
+    }
+
+    @Test
+    public void testCompileWithoutExpression() {
+        final SpreadsheetFormula formula = SpreadsheetFormula.EMPTY.setText("=1");
+
+        assertSame(
+                formula,
+                formula.compile(FUNCTIONS)
+        );
+    }
+
+    @Test
+    public void testCompileReturnsDifferent() {
+        final SpreadsheetFormula formula = this.formulaWithFunction();
+        final SpreadsheetFormula compiled = formula.compile(FUNCTIONS);
+
+        assertNotSame(
+                formula,
+                compiled
+        );
+        this.checkEquals(
+                formula,
+                compiled
+        );
+    }
+
+    @Test
+    public void testCompileSameFunctions() {
+        final SpreadsheetFormula compiled = this.formulaWithFunction()
+                .compile(FUNCTIONS);
+
+        assertSame(
+                compiled,
+                compiled.compile(FUNCTIONS)
+        );
+    }
+
+    @Test
+    public void testCompiledExpressionNullFunctionsFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> this.formulaWithFunction()
+                        .compiledExpression(null)
+        );
+    }
+
+    @Test
+    public void testCompiledExpressionWithoutExpression() {
+        this.checkEquals(
+                Optional.empty(),
+                SpreadsheetFormula.EMPTY.setText("=1")
+                        .compiledExpression(FUNCTIONS)
+        );
+    }
+
+    @Test
+    public void testCompiledExpressionNotCompiled() {
+        final SpreadsheetFormula formula = this.formulaWithFunction();
+        formula.compile(FUNCTIONS);
+
+        assertNotSame(
+                formula.compiledExpression(FUNCTIONS).get(),
+                formula.compiledExpression(FUNCTIONS).get()
+        );
+    }
+
+    @Test
+    public void testCompiledExpressionCompiled() {
+        final SpreadsheetFormula formula = this.formulaWithFunction()
+                .compile(FUNCTIONS);
+
+        assertSame(
+                formula.compiledExpression(FUNCTIONS).get(),
+                formula.compiledExpression(FUNCTIONS).get()
+        );
+    }
+
+    @Test
+    public void testCompiledExpressionCompiledAfterSetValue() {
+        final SpreadsheetFormula formula = this.formulaWithFunction()
+                .compile(FUNCTIONS);
+
+        assertSame(
+                formula.compiledExpression(FUNCTIONS).get(),
+                formula.setValue(Optional.of("value123"))
+                        .compiledExpression(FUNCTIONS)
+                        .get()
+        );
+    }
+
+    @Test
+    public void testCompiledExpressionAfterSetExpression() {
+        final SpreadsheetFormula formula = this.formulaWithFunction()
+                .compile(FUNCTIONS);
+        final SpreadsheetCompiledExpression compiled = formula.compiledExpression(FUNCTIONS).get();
+
+        assertNotSame(
+                compiled,
+                formula.setExpression(this.expression("different"))
+                        .compiledExpression(FUNCTIONS)
+                        .get()
+        );
+    }
+
+    @Test
+    public void testCompiledExpressionDifferentFunctions() {
+        final SpreadsheetFormula formula = this.formulaWithFunction()
+                .compile(FUNCTIONS);
+        final SpreadsheetCompiledExpression compiled = formula.compiledExpression(FUNCTIONS).get();
+
+        assertNotSame(
+                compiled,
+                formula.compiledExpression(
+                        (n) -> {
+                            throw new UnsupportedOperationException("different " + n);
+                        }
+                ).get()
+        );
+    }
+
+    private SpreadsheetFormula formulaWithFunction() {
+        return SpreadsheetFormula.EMPTY.setText("=now()")
+                .setExpression(
+                        Optional.of(
+                                Expression.call(
+                                        Expression.namedFunction(
+                                                FunctionExpressionName.with("now")
+                                        ),
+                                        Lists.empty()
+                                )
+                        )
+                );
+    }
+
+    private boolean isPureFail(final FunctionExpressionName name) {
+        throw new UnsupportedOperationException("isPure " + name);
+    }
+
     // clear.......................................................................................................
 
     @Test
@@ -387,6 +716,73 @@ public final class SpreadsheetFormulaTest implements ClassTesting2<SpreadsheetFo
         this.checkErrorAbsent(formula);
     }
 
+    // clearValue.......................................................................................................
+
+    @Test
+    public void testClearValueText() {
+        final SpreadsheetFormula formula = formula("1+99");
+        assertSame(formula, formula.clearValue());
+    }
+
+    @Test
+    public void testClearValueTextTokenExpression() {
+        final SpreadsheetFormula formula = formula("1+99")
+                .setToken(this.token())
+                .setExpression(this.expression());
+        assertSame(formula, formula.clearValue());
+    }
+
+    @Test
+    public void testClearValueTextTokenExpressionValue() {
+        final SpreadsheetFormula formula = formula("1+99")
+                .setToken(this.token())
+                .setExpression(this.expression())
+                .setValue(this.value());
+        final SpreadsheetFormula cleared = formula.clearValue();
+        assertNotSame(formula, cleared);
+
+        this.checkText(cleared, formula.text());
+        this.checkToken(cleared, this.token());
+        this.checkExpression(cleared, this.expression());
+        this.checkValueAbsent(cleared);
+        this.checkErrorAbsent(cleared);
+    }
+
+    @Test
+    public void testClearValueDiscardedTokenKeepsExpression() {
+        final SpreadsheetFormula formula = formula("1+99")
+                .setToken(this.token())
+                .setExpression(this.expression())
+                .setValue(this.value())
+                .discardToken();
+        final SpreadsheetFormula cleared = formula.clearValue();
+        assertNotSame(formula, cleared);
+
+        this.checkText(cleared, formula.text());
+        this.checkTokenAbsent(cleared);
+        this.checkExpression(cleared, this.expression());
+        this.checkValueAbsent(cleared);
+        this.checkErrorAbsent(cleared);
+    }
+
+    @Test
+    public void testClearValueKeepsCompiledExpression() {
+        final SpreadsheetFormula formula = formula("1+99")
+                .setToken(this.token())
+                .setExpression(this.expression())
+                .compile(FUNCTIONS);
+        final SpreadsheetCompiledExpression compiled = formula.compiledExpression(FUNCTIONS)
+                .get();
+
+        assertSame(
+                compiled,
+                formula.setValue(this.value())
+                        .clearValue()
+                        .compiledExpression(FUNCTIONS)
+                        .get()
+        );
+    }
+
     // TreePrintable.....................................................................................................
 
     @Test
@@ -655,6 +1051,24 @@ public final class SpreadsheetFormulaTest implements ClassTesting2<SpreadsheetFo
                 formula(TEXT).setValue(Optional.of(VALUE)));
     }
 
+    @Test
+    public void testUnmarshallTextExpressionImpure() {
+        final Optional<Expression> expression = this.expression();
+
+        final SpreadsheetFormula formula = this.unmarshall(
+                JsonNode.object()
+                        .set(SpreadsheetFormula.TEXT_PROPERTY, JsonNode.string(TEXT))
+                        .set(SpreadsheetFormula.EXPRESSION_PROPERTY, this.marshallContext().marshallWithType(expression.get()))
+                        .set(SpreadsheetFormula.IMPURE_PROPERTY, JsonNode.booleanNode(true))
+        );
+        this.checkEquals(
+                formula(TEXT)
+                        .setExpression(expression),
+                formula
+        );
+        this.checkEquals(true, formula.isImpure(), "isImpure");
+    }
+
     // marshall.......................................................................................................
 
     @Test
@@ -740,6 +1154,41 @@ public final class SpreadsheetFormulaTest implements ClassTesting2<SpreadsheetFo
         );
     }
 
+    @Test
+    public void testMarshallImpure() {
+        this.marshallAndCheck(
+                this.formulaWithFunction()
+                        .recordPurity((n) -> false),
+                JsonNode.object()
+                        .set(SpreadsheetFormula.TEXT_PROPERTY, JsonNode.string("=now()"))
+                        .set(SpreadsheetFormula.EXPRESSION_PROPERTY, this.marshallContext().marshallWithType(this.formulaWithFunction().expression().get()))
+                        .set(SpreadsheetFormula.IMPURE_PROPERTY, JsonNode.booleanNode(true))
+        );
+    }
+
+    @Test
+    public void testMarshallPureRecorded() {
+        final SpreadsheetFormula formula = this.formulaWithFunction();
+
+        this.checkEquals(
+                this.marshallContext().marshall(formula),
+                this.marshallContext().marshall(formula.recordPurity((n) -> true))
+        );
+    }
+
+    @Test
+    public void testMarshallRoundtripImpure() {
+        this.checkEquals(
+                true,
+                this.unmarshall(
+                        this.marshallContext().marshall(
+                                this.formulaWithFunction()
+                                        .recordPurity((n) -> false)
+                        )
+                ).isImpure()
+        );
+    }
+
     @Test
     public void testMarshallRoundtripTwice() {
         this.marshallRoundTripTwiceAndCheck(this.createObject());
@@ -20,6 +20,7 @@ package walkingkooka.spreadsheet.engine;
 import org.junit.jupiter.api.Test;
 import walkingkooka.ToStringTesting;
 import walkingkooka.spreadsheet.SpreadsheetFormula;
+import walkingkooka.spreadsheet.conditionalformat.SpreadsheetConditionalFormattingRule;
 import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetLabelName;
 import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
@@ -81,6 +82,11 @@ public final class BasicSpreadsheetEngineChangesTest extends BasicSpreadsheetEng
                                 return SpreadsheetCellRangeStores.treeMap();
                             }
 
+                            @Override
+                            public SpreadsheetCellRangeStore<SpreadsheetConditionalFormattingRule> rangeToConditionalFormattingRules() {
+                                return SpreadsheetCellRangeStores.treeMap();
+                            }
+
                             @Override
                             public SpreadsheetRowStore rows() {
                                 return SpreadsheetRowStores.treeMap();
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.ToStringTesting;
+import walkingkooka.spreadsheet.SpreadsheetDescription;
+import walkingkooka.spreadsheet.SpreadsheetFormula;
+import walkingkooka.spreadsheet.conditionalformat.SpreadsheetConditionalFormattingRule;
+import walkingkooka.tree.expression.Expression;
+import walkingkooka.tree.text.TextStyle;
+
+import java.util.Optional;
+
+public final class BasicSpreadsheetEngineContextConditionalFormattingRuleCacheCellTest extends BasicSpreadsheetEngineTestCase<BasicSpreadsheetEngineContextConditionalFormattingRuleCacheCell>
+        implements ToStringTesting<BasicSpreadsheetEngineContextConditionalFormattingRuleCacheCell> {
+
+    private final static Optional<Object> VALUE = Optional.of("abc");
+
+    private final static SpreadsheetConditionalFormattingRule RULE = SpreadsheetConditionalFormattingRule.with(
+            SpreadsheetDescription.with("rule"),
+            1,
+            SpreadsheetFormula.EMPTY
+                    .setText("true")
+                    .setExpression(Optional.of(Expression.value(true))),
+            (c) -> TextStyle.EMPTY
+    );
+
+    @Test
+    public void testGetUnknownRule() {
+        this.checkEquals(
+                null,
+                BasicSpreadsheetEngineContextConditionalFormattingRuleCacheCell.with(VALUE)
+                        .get(VALUE, RULE)
+        );
+    }
+
+    @Test
+    public void testPutGet() {
+        final BasicSpreadsheetEngineContextConditionalFormattingRuleCacheCell cell = BasicSpreadsheetEngineContextConditionalFormattingRuleCacheCell.with(VALUE);
+        cell.put(VALUE, RULE, true);
+
+        this.checkEquals(true, cell.get(VALUE, RULE));
+    }
+
+    @Test
+    public void testGetDifferentValue() {
+        final BasicSpreadsheetEngineContextConditionalFormattingRuleCacheCell cell = BasicSpreadsheetEngineContextConditionalFormattingRuleCacheCell.with(VALUE);
+        cell.put(VALUE, RULE, true);
+
+        this.checkEquals(null, cell.get(Optional.of("different"), RULE));
+    }
+
+    @Test
+    public void testPutDifferentValueClears() {
+        final SpreadsheetConditionalFormattingRule rule2 = RULE.setPriority(2);
+
+        final BasicSpreadsheetEngineContextConditionalFormattingRuleCacheCell cell = BasicSpreadsheetEngineContextConditionalFormattingRuleCacheCell.with(VALUE);
+        cell.put(VALUE, RULE, true);
+
+        final Optional<Object> different = Optional.of("different");
+        cell.put(different, rule2, false);
+
+        this.checkEquals(null, cell.get(different, RULE), "rule tested with previous value");
+        this.checkEquals(false, cell.get(different, rule2));
+    }
+
+    @Test
+    public void testToString() {
+        final BasicSpreadsheetEngineContextConditionalFormattingRuleCacheCell cell = BasicSpreadsheetEngineContextConditionalFormattingRuleCacheCell.with(VALUE);
+        cell.put(VALUE, RULE, true);
+
+        this.toStringAndCheck(
+                cell,
+                VALUE + " {" + RULE + "=true}"
+        );
+    }
+
+    @Override
+    public Class<BasicSpreadsheetEngineContextConditionalFormattingRuleCacheCell> type() {
+        return BasicSpreadsheetEngineContextConditionalFormattingRuleCacheCell.class;
+    }
+}
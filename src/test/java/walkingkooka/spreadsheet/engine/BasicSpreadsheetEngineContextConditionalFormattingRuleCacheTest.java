@@ -0,0 +1,279 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.ToStringTesting;
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.SpreadsheetDescription;
+import walkingkooka.spreadsheet.SpreadsheetFormula;
+import walkingkooka.spreadsheet.conditionalformat.SpreadsheetConditionalFormattingRule;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+import walkingkooka.tree.expression.Expression;
+import walkingkooka.tree.text.TextStyle;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class BasicSpreadsheetEngineContextConditionalFormattingRuleCacheTest extends BasicSpreadsheetEngineTestCase<BasicSpreadsheetEngineContextConditionalFormattingRuleCache>
+        implements ToStringTesting<BasicSpreadsheetEngineContextConditionalFormattingRuleCache> {
+
+    private final static SpreadsheetConditionalFormattingRule RULE1 = rule(1);
+
+    private final static SpreadsheetConditionalFormattingRule RULE2 = rule(2);
+
+    private final static Supplier<Boolean> FAIL = () -> {
+        throw new UnsupportedOperationException();
+    };
+
+    @Test
+    public void testWithZeroMaxSizeFails() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> BasicSpreadsheetEngineContextConditionalFormattingRuleCache.with(0)
+        );
+    }
+
+    @Test
+    public void testTestMiss() {
+        final BasicSpreadsheetEngineContextConditionalFormattingRuleCache cache = BasicSpreadsheetEngineContextConditionalFormattingRuleCache.with(2);
+
+        this.testAndCheck(cache, RULE1, this.cell("A1", 1), () -> true, true);
+        this.metricsAndCheck(cache, 0, 1, 0, 0, 1);
+    }
+
+    @Test
+    public void testTestHit() {
+        final BasicSpreadsheetEngineContextConditionalFormattingRuleCache cache = BasicSpreadsheetEngineContextConditionalFormattingRuleCache.with(2);
+
+        cache.test(RULE1, this.cell("A1", 1), () -> true);
+        this.testAndCheck(cache, RULE1, this.cell("A1", 1), FAIL, true);
+        this.metricsAndCheck(cache, 1, 1, 0, 0, 1);
+    }
+
+    @Test
+    public void testTestHitFalse() {
+        final BasicSpreadsheetEngineContextConditionalFormattingRuleCache cache = BasicSpreadsheetEngineContextConditionalFormattingRuleCache.with(2);
+
+        cache.test(RULE1, this.cell("A1", 1), () -> false);
+        this.testAndCheck(cache, RULE1, this.cell("A1", 1), FAIL, false);
+        this.metricsAndCheck(cache, 1, 1, 0, 0, 1);
+    }
+
+    @Test
+    public void testTestAbsoluteReferenceHit() {
+        final BasicSpreadsheetEngineContextConditionalFormattingRuleCache cache = BasicSpreadsheetEngineContextConditionalFormattingRuleCache.with(2);
+
+        cache.test(RULE1, this.cell("A1", 1), () -> true);
+        this.testAndCheck(cache, RULE1, this.cell("$A$1", 1), FAIL, true);
+        this.metricsAndCheck(cache, 1, 1, 0, 0, 1);
+    }
+
+    @Test
+    public void testTestDifferentRuleMiss() {
+        final BasicSpreadsheetEngineContextConditionalFormattingRuleCache cache = BasicSpreadsheetEngineContextConditionalFormattingRuleCache.with(2);
+
+        cache.test(RULE1, this.cell("A1", 1), () -> true);
+        this.testAndCheck(cache, RULE2, this.cell("A1", 1), () -> false, false);
+        this.testAndCheck(cache, RULE1, this.cell("A1", 1), FAIL, true);
+        this.metricsAndCheck(cache, 1, 2, 0, 0, 1);
+    }
+
+    @Test
+    public void testTestDifferentValueMiss() {
+        final BasicSpreadsheetEngineContextConditionalFormattingRuleCache cache = BasicSpreadsheetEngineContextConditionalFormattingRuleCache.with(2);
+
+        cache.test(RULE1, this.cell("A1", 1), () -> true);
+        cache.test(RULE2, this.cell("A1", 1), () -> true);
+        this.testAndCheck(cache, RULE1, this.cell("A1", 2), () -> false, false);
+
+        // RULE2 was tested with the previous value and is tested again
+        this.testAndCheck(cache, RULE2, this.cell("A1", 2), () -> false, false);
+        this.metricsAndCheck(cache, 0, 4, 0, 0, 1);
+    }
+
+    @Test
+    public void testInvalidate() {
+        final BasicSpreadsheetEngineContextConditionalFormattingRuleCache cache = BasicSpreadsheetEngineContextConditionalFormattingRuleCache.with(8);
+
+        cache.test(RULE1, this.cell("A1", 1), () -> true);
+        cache.test(RULE1, this.cell("B1", 1), () -> true);
+        cache.test(RULE1, this.cell("B2", 1), () -> true);
+        cache.test(RULE1, this.cell("C3", 1), () -> true);
+
+        cache.invalidate(SpreadsheetSelection.parseCellRange("$B$1:B2"));
+
+        this.metricsAndCheck(cache, 0, 4, 0, 2, 2);
+
+        this.testAndCheck(cache, RULE1, this.cell("A1", 1), FAIL, true);
+        this.testAndCheck(cache, RULE1, this.cell("B1", 1), () -> false, false);
+        this.testAndCheck(cache, RULE1, this.cell("C3", 1), FAIL, true);
+    }
+
+    @Test
+    public void testInvalidateSkipsCellsBetweenCornersOutsideRange() {
+        final BasicSpreadsheetEngineContextConditionalFormattingRuleCache cache = BasicSpreadsheetEngineContextConditionalFormattingRuleCache.with(8);
+
+        cache.test(RULE1, this.cell("A2", 1), () -> true);
+        cache.test(RULE1, this.cell("B1", 1), () -> true);
+        cache.test(RULE1, this.cell("C2", 1), () -> true);
+
+        cache.invalidate(SpreadsheetSelection.parseCellRange("B1:B2"));
+
+        this.metricsAndCheck(cache, 0, 3, 0, 1, 2);
+    }
+
+    @Test
+    public void testTestEvicts() {
+        final BasicSpreadsheetEngineContextConditionalFormattingRuleCache cache = BasicSpreadsheetEngineContextConditionalFormattingRuleCache.with(2);
+
+        cache.test(RULE1, this.cell("A1", 1), () -> true);
+        cache.test(RULE1, this.cell("A2", 1), () -> true);
+        cache.test(RULE1, this.cell("A3", 1), () -> true);
+
+        this.metricsAndCheck(cache, 0, 3, 1, 0, 2);
+    }
+
+    @Test
+    public void testTestEvictsLeastRecentlyUsed() {
+        final BasicSpreadsheetEngineContextConditionalFormattingRuleCache cache = BasicSpreadsheetEngineContextConditionalFormattingRuleCache.with(2);
+
+        cache.test(RULE1, this.cell("A1", 1), () -> true);
+        cache.test(RULE1, this.cell("A2", 1), () -> true);
+        this.testAndCheck(cache, RULE1, this.cell("A1", 1), FAIL, true);
+
+        // A2 is now the least recently used
+        cache.test(RULE1, this.cell("A3", 1), () -> true);
+
+        this.testAndCheck(cache, RULE1, this.cell("A1", 1), FAIL, true);
+        this.testAndCheck(cache, RULE1, this.cell("A2", 1), () -> false, false);
+    }
+
+    @Test
+    public void testClear() {
+        final BasicSpreadsheetEngineContextConditionalFormattingRuleCache cache = BasicSpreadsheetEngineContextConditionalFormattingRuleCache.with(8);
+
+        cache.test(RULE1, this.cell("A1", 1), () -> true);
+        cache.test(RULE1, this.cell("B2", 1), () -> true);
+        cache.clear();
+
+        this.checkEquals(0, cache.size(), "size");
+        this.testAndCheck(cache, RULE1, this.cell("A1", 1), () -> false, false);
+    }
+
+    @Test
+    public void testTestConcurrent() throws Exception {
+        final BasicSpreadsheetEngineContextConditionalFormattingRuleCache cache = BasicSpreadsheetEngineContextConditionalFormattingRuleCache.with(8);
+
+        final int threadCount = 4;
+        final int count = 1000;
+        final Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < count; i++) {
+                    final SpreadsheetCell cell = this.cell("A" + (1 + i % 16), 1);
+                    cache.test(RULE1, cell, () -> true);
+
+                    if (0 == i % 100) {
+                        cache.invalidate(SpreadsheetSelection.parseCellRange("A1:A4"));
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        this.checkEquals(
+                (long) threadCount * count,
+                cache.hits() + cache.misses(),
+                "hits + misses"
+        );
+        this.checkEquals(true, cache.size() <= 8, () -> "size " + cache);
+    }
+
+    private void testAndCheck(final BasicSpreadsheetEngineContextConditionalFormattingRuleCache cache,
+                              final SpreadsheetConditionalFormattingRule rule,
+                              final SpreadsheetCell cell,
+                              final Supplier<Boolean> test,
+                              final boolean expected) {
+        this.checkEquals(
+                expected,
+                cache.test(rule, cell, test),
+                () -> rule + " " + cell
+        );
+    }
+
+    private void metricsAndCheck(final BasicSpreadsheetEngineContextConditionalFormattingRuleCache cache,
+                                 final long hits,
+                                 final long misses,
+                                 final long evictions,
+                                 final long invalidations,
+                                 final int size) {
+        this.checkEquals(hits, cache.hits(), "hits");
+        this.checkEquals(misses, cache.misses(), "misses");
+        this.checkEquals(evictions, cache.evictions(), "evictions");
+        this.checkEquals(invalidations, cache.invalidations(), "invalidations");
+        this.checkEquals(size, cache.size(), "size");
+    }
+
+    private SpreadsheetCell cell(final String reference,
+                                 final Object value) {
+        return SpreadsheetCell.with(
+                SpreadsheetSelection.parseCell(reference),
+                SpreadsheetFormula.EMPTY
+                        .setText(String.valueOf(value))
+                        .setValue(Optional.of(value))
+        );
+    }
+
+    private static SpreadsheetConditionalFormattingRule rule(final int priority) {
+        return SpreadsheetConditionalFormattingRule.with(
+                SpreadsheetDescription.with("rule" + priority),
+                priority,
+                SpreadsheetFormula.EMPTY
+                        .setText("true")
+                        .setExpression(
+                                Optional.of(
+                                        Expression.value(true)
+                                )
+                        ),
+                (c) -> TextStyle.EMPTY
+        );
+    }
+
+    @Test
+    public void testToString() {
+        final BasicSpreadsheetEngineContextConditionalFormattingRuleCache cache = BasicSpreadsheetEngineContextConditionalFormattingRuleCache.with(2);
+        cache.test(RULE1, this.cell("A1", 1), () -> true);
+        cache.test(RULE1, this.cell("A1", 1), () -> true);
+
+        this.toStringAndCheck(
+                cache,
+                "hits=1 misses=1 evictions=0 invalidations=0 size=1 maxSize=2"
+        );
+    }
+
+    @Override
+    public Class<BasicSpreadsheetEngineContextConditionalFormattingRuleCache> type() {
+        return BasicSpreadsheetEngineContextConditionalFormattingRuleCache.class;
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.HashCodeEqualsDefinedTesting2;
+import walkingkooka.ToStringTesting;
+import walkingkooka.color.Color;
+import walkingkooka.spreadsheet.format.pattern.SpreadsheetFormatPattern;
+import walkingkooka.spreadsheet.format.pattern.SpreadsheetPattern;
+import walkingkooka.tree.text.TextStyle;
+import walkingkooka.tree.text.TextStylePropertyName;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class BasicSpreadsheetEngineContextFormatCacheKeyTest extends BasicSpreadsheetEngineTestCase<BasicSpreadsheetEngineContextFormatCacheKey>
+        implements HashCodeEqualsDefinedTesting2<BasicSpreadsheetEngineContextFormatCacheKey>,
+        ToStringTesting<BasicSpreadsheetEngineContextFormatCacheKey> {
+
+    private final static String VALUE = "abc123";
+
+    private final static Optional<SpreadsheetFormatPattern> PATTERN = Optional.of(
+            SpreadsheetPattern.parseNumberFormatPattern("#.##")
+    );
+
+    private final static TextStyle STYLE = TextStyle.EMPTY.set(
+            TextStylePropertyName.BACKGROUND_COLOR,
+            Color.parse("#123456")
+    );
+
+    @Test
+    public void testWithNullPatternFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> BasicSpreadsheetEngineContextFormatCacheKey.with(
+                        VALUE,
+                        null,
+                        STYLE
+                )
+        );
+    }
+
+    @Test
+    public void testWithNullStyleFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> BasicSpreadsheetEngineContextFormatCacheKey.with(
+                        VALUE,
+                        PATTERN,
+                        null
+                )
+        );
+    }
+
+    @Test
+    public void testEqualsDifferentValue() {
+        this.checkNotEquals(
+                BasicSpreadsheetEngineContextFormatCacheKey.with(
+                        "different",
+                        PATTERN,
+                        STYLE
+                )
+        );
+    }
+
+    @Test
+    public void testEqualsDifferentPattern() {
+        this.checkNotEquals(
+                BasicSpreadsheetEngineContextFormatCacheKey.with(
+                        VALUE,
+                        Optional.of(
+                                SpreadsheetPattern.parseNumberFormatPattern("#.###")
+                        ),
+                        STYLE
+                )
+        );
+    }
+
+    @Test
+    public void testEqualsDifferentPatternKind() {
+        this.checkNotEquals(
+                BasicSpreadsheetEngineContextFormatCacheKey.with(
+                        VALUE,
+                        Optional.of(
+                                SpreadsheetPattern.parseTextFormatPattern("@")
+                        ),
+                        STYLE
+                )
+        );
+    }
+
+    @Test
+    public void testEqualsWithoutPattern() {
+        this.checkNotEquals(
+                BasicSpreadsheetEngineContextFormatCacheKey.with(
+                        VALUE,
+                        Optional.empty(),
+                        STYLE
+                )
+        );
+    }
+
+    @Test
+    public void testEqualsEqualPatternParsedTwice() {
+        this.checkEqualsAndHashCode(
+                BasicSpreadsheetEngineContextFormatCacheKey.with(
+                        VALUE,
+                        Optional.of(
+                                SpreadsheetPattern.parseNumberFormatPattern("#.##")
+                        ),
+                        STYLE
+                )
+        );
+    }
+
+    @Test
+    public void testEqualsDifferentStyle() {
+        this.checkNotEquals(
+                BasicSpreadsheetEngineContextFormatCacheKey.with(
+                        VALUE,
+                        PATTERN,
+                        TextStyle.EMPTY
+                )
+        );
+    }
+
+    @Test
+    public void testToString() {
+        this.toStringAndCheck(
+                this.createObject(),
+                VALUE + " \"#.##\" " + STYLE
+        );
+    }
+
+    @Override
+    public BasicSpreadsheetEngineContextFormatCacheKey createObject() {
+        return BasicSpreadsheetEngineContextFormatCacheKey.with(
+                VALUE,
+                PATTERN,
+                STYLE
+        );
+    }
+
+    @Override
+    public Class<BasicSpreadsheetEngineContextFormatCacheKey> type() {
+        return BasicSpreadsheetEngineContextFormatCacheKey.class;
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.ToStringTesting;
+import walkingkooka.spreadsheet.format.pattern.SpreadsheetFormatPattern;
+import walkingkooka.spreadsheet.format.pattern.SpreadsheetPattern;
+import walkingkooka.tree.text.TextNode;
+import walkingkooka.tree.text.TextStyle;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class BasicSpreadsheetEngineContextFormatCacheTest extends BasicSpreadsheetEngineTestCase<BasicSpreadsheetEngineContextFormatCache>
+        implements ToStringTesting<BasicSpreadsheetEngineContextFormatCache> {
+
+    private final static Optional<SpreadsheetFormatPattern> PATTERN = Optional.of(
+            SpreadsheetPattern.parseNumberFormatPattern("#.##")
+    );
+
+    private final static TextStyle STYLE = TextStyle.EMPTY;
+
+    @Test
+    public void testWithZeroMaxSizeFails() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> BasicSpreadsheetEngineContextFormatCache.with(0)
+        );
+    }
+
+    @Test
+    public void testFormatAndStyleMiss() {
+        final BasicSpreadsheetEngineContextFormatCache cache = BasicSpreadsheetEngineContextFormatCache.with(2);
+
+        final Optional<TextNode> formatted = this.formatted("1");
+
+        assertSame(
+                formatted,
+                cache.formatAndStyle("1", PATTERN, STYLE, () -> formatted)
+        );
+        this.metricsAndCheck(cache, 0, 1, 0, 1);
+    }
+
+    @Test
+    public void testFormatAndStyleHit() {
+        final BasicSpreadsheetEngineContextFormatCache cache = BasicSpreadsheetEngineContextFormatCache.with(2);
+
+        final Optional<TextNode> formatted = this.formatted("1");
+        cache.formatAndStyle("1", PATTERN, STYLE, () -> formatted);
+
+        assertSame(
+                formatted,
+                cache.formatAndStyle(
+                        "1",
+                        PATTERN,
+                        STYLE,
+                        () -> {
+                            throw new UnsupportedOperationException();
+                        }
+                )
+        );
+        this.metricsAndCheck(cache, 1, 1, 0, 1);
+    }
+
+    @Test
+    public void testFormatAndStyleHitEmpty() {
+        final BasicSpreadsheetEngineContextFormatCache cache = BasicSpreadsheetEngineContextFormatCache.with(2);
+
+        cache.formatAndStyle("1", PATTERN, STYLE, Optional::empty);
+
+        this.checkEquals(
+                Optional.empty(),
+                cache.formatAndStyle(
+                        "1",
+                        PATTERN,
+                        STYLE,
+                        () -> {
+                            throw new UnsupportedOperationException();
+                        }
+                )
+        );
+        this.metricsAndCheck(cache, 1, 1, 0, 1);
+    }
+
+    @Test
+    public void testFormatAndStyleDifferentPatternMiss() {
+        final BasicSpreadsheetEngineContextFormatCache cache = BasicSpreadsheetEngineContextFormatCache.with(2);
+
+        cache.formatAndStyle("1", PATTERN, STYLE, () -> this.formatted("1"));
+        cache.formatAndStyle(
+                "1",
+                Optional.of(
+                        SpreadsheetPattern.parseNumberFormatPattern("#.###")
+                ),
+                STYLE,
+                () -> this.formatted("1")
+        );
+
+        this.metricsAndCheck(cache, 0, 2, 0, 2);
+    }
+
+    @Test
+    public void testFormatAndStyleEqualPatternParsedTwiceHit() {
+        final BasicSpreadsheetEngineContextFormatCache cache = BasicSpreadsheetEngineContextFormatCache.with(2);
+
+        cache.formatAndStyle("1", PATTERN, STYLE, () -> this.formatted("1"));
+        cache.formatAndStyle(
+                "1",
+                Optional.of(
+                        SpreadsheetPattern.parseNumberFormatPattern("#.##")
+                ),
+                STYLE,
+                () -> {
+                    throw new UnsupportedOperationException();
+                }
+        );
+
+        this.metricsAndCheck(cache, 1, 1, 0, 1);
+    }
+
+    @Test
+    public void testFormatAndStyleWithoutPatternMiss() {
+        final BasicSpreadsheetEngineContextFormatCache cache = BasicSpreadsheetEngineContextFormatCache.with(2);
+
+        cache.formatAndStyle("1", PATTERN, STYLE, () -> this.formatted("1"));
+        cache.formatAndStyle("1", Optional.empty(), STYLE, () -> this.formatted("1"));
+
+        this.metricsAndCheck(cache, 0, 2, 0, 2);
+    }
+
+    @Test
+    public void testFormatAndStyleConcurrent() throws Exception {
+        final BasicSpreadsheetEngineContextFormatCache cache = BasicSpreadsheetEngineContextFormatCache.with(8);
+
+        final int threadCount = 4;
+        final int count = 1000;
+        final Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < count; i++) {
+                    final String value = String.valueOf(i % 16);
+                    cache.formatAndStyle(value, PATTERN, STYLE, () -> this.formatted(value));
+                }
+            });
+            threads[t].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        this.checkEquals(
+                (long) threadCount * count,
+                cache.hits() + cache.misses(),
+                "hits + misses"
+        );
+        this.checkEquals(8, cache.size(), "size");
+    }
+
+    @Test
+    public void testFormatAndStyleEvictsLeastRecentlyUsed() {
+        final BasicSpreadsheetEngineContextFormatCache cache = BasicSpreadsheetEngineContextFormatCache.with(2);
+
+        cache.formatAndStyle("1", PATTERN, STYLE, () -> this.formatted("1"));
+        cache.formatAndStyle("2", PATTERN, STYLE, () -> this.formatted("2"));
+        cache.formatAndStyle("1", PATTERN, STYLE, () -> this.formatted("1")); // hit, 2 is now least recently used
+        cache.formatAndStyle("3", PATTERN, STYLE, () -> this.formatted("3")); // evicts 2
+
+        this.metricsAndCheck(cache, 1, 3, 1, 2);
+
+        cache.formatAndStyle("1", PATTERN, STYLE, () -> this.formatted("1")); // hit
+        cache.formatAndStyle("2", PATTERN, STYLE, () -> this.formatted("2")); // miss
+
+        this.metricsAndCheck(cache, 2, 4, 2, 2);
+    }
+
+    private Optional<TextNode> formatted(final String text) {
+        return Optional.of(
+                TextNode.text(text)
+        );
+    }
+
+    private void metricsAndCheck(final BasicSpreadsheetEngineContextFormatCache cache,
+                                 final long hits,
+                                 final long misses,
+                                 final long evictions,
+                                 final int size) {
+        this.checkEquals(hits, cache.hits(), "hits");
+        this.checkEquals(misses, cache.misses(), "misses");
+        this.checkEquals(evictions, cache.evictions(), "evictions");
+        this.checkEquals(size, cache.size(), "size");
+    }
+
+    @Test
+    public void testToString() {
+        final BasicSpreadsheetEngineContextFormatCache cache = BasicSpreadsheetEngineContextFormatCache.with(2);
+        cache.formatAndStyle("1", PATTERN, STYLE, () -> this.formatted("1"));
+        cache.formatAndStyle("1", PATTERN, STYLE, () -> this.formatted("1"));
+
+        this.toStringAndCheck(
+                cache,
+                "hits=1 misses=1 evictions=0 size=1 maxSize=2"
+        );
+    }
+
+    @Override
+    public Class<BasicSpreadsheetEngineContextFormatCache> type() {
+        return BasicSpreadsheetEngineContextFormatCache.class;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.ToStringTesting;
+import walkingkooka.tree.expression.ExpressionEvaluationContext;
+import walkingkooka.tree.expression.ExpressionPurityContext;
+import walkingkooka.tree.expression.FunctionExpressionName;
+import walkingkooka.tree.expression.function.ExpressionFunction;
+import walkingkooka.tree.expression.function.FakeExpressionFunction;
+
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public final class BasicSpreadsheetEngineContextFunctionsTest extends BasicSpreadsheetEngineTestCase<BasicSpreadsheetEngineContextFunctions>
+        implements ToStringTesting<BasicSpreadsheetEngineContextFunctions> {
+
+    private final static FunctionExpressionName NAME = FunctionExpressionName.with("test123");
+
+    @Test
+    public void testWithBasicSpreadsheetEngineContextFunctions() {
+        final BasicSpreadsheetEngineContextFunctions functions = this.createFunctions();
+        assertSame(
+                functions,
+                BasicSpreadsheetEngineContextFunctions.with(functions)
+        );
+    }
+
+    @Test
+    public void testApply() {
+        final BasicSpreadsheetEngineContextFunctions functions = this.createFunctions();
+
+        assertSame(this.function, functions.apply(NAME));
+        this.checkEquals(1, this.lookups, "lookups");
+    }
+
+    @Test
+    public void testApplyCached() {
+        final BasicSpreadsheetEngineContextFunctions functions = this.createFunctions();
+
+        assertSame(this.function, functions.apply(NAME));
+        assertSame(this.function, functions.apply(NAME));
+        assertSame(this.function, functions.apply(NAME));
+        this.checkEquals(1, this.lookups, "lookups");
+    }
+
+    @Test
+    public void testApplyNullNotCached() {
+        final BasicSpreadsheetEngineContextFunctions functions = BasicSpreadsheetEngineContextFunctions.with(
+                (n) -> {
+                    this.lookups++;
+                    return null;
+                }
+        );
+
+        this.checkEquals(null, functions.apply(NAME));
+        this.checkEquals(null, functions.apply(NAME));
+        this.checkEquals(2, this.lookups, "lookups");
+    }
+
+    @Test
+    public void testIsPureCached() {
+        final BasicSpreadsheetEngineContextFunctions functions = this.createFunctions();
+        final ExpressionPurityContext context = SpreadsheetEngineContexts.fake();
+
+        this.checkEquals(true, functions.isPure(NAME, context));
+        this.checkEquals(true, functions.isPure(NAME, context));
+        this.checkEquals(1, this.lookups, "lookups");
+        this.checkEquals(1, this.purityTests, "purityTests");
+    }
+
+    @Test
+    public void testToString() {
+        final Function<FunctionExpressionName, ExpressionFunction<?, ExpressionEvaluationContext>> lookup = this.lookup();
+
+        this.toStringAndCheck(
+                BasicSpreadsheetEngineContextFunctions.with(lookup),
+                lookup.toString()
+        );
+    }
+
+    private BasicSpreadsheetEngineContextFunctions createFunctions() {
+        return BasicSpreadsheetEngineContextFunctions.with(this.lookup());
+    }
+
+    private Function<FunctionExpressionName, ExpressionFunction<?, ExpressionEvaluationContext>> lookup() {
+        return (n) -> {
+            this.checkEquals(NAME, n, "name");
+            this.lookups++;
+            return this.function;
+        };
+    }
+
+    private int lookups;
+
+    private int purityTests;
+
+    private final ExpressionFunction<?, ExpressionEvaluationContext> function = new FakeExpressionFunction<Object, ExpressionEvaluationContext>() {
+        @Override
+        public boolean isPure(final ExpressionPurityContext context) {
+            BasicSpreadsheetEngineContextFunctionsTest.this.purityTests++;
+            return true;
+        }
+    };
+
+    @Override
+    public Class<BasicSpreadsheetEngineContextFunctions> type() {
+        return BasicSpreadsheetEngineContextFunctions.class;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.ToStringTesting;
+import walkingkooka.collect.list.Lists;
+import walkingkooka.spreadsheet.parser.SpreadsheetParserToken;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class BasicSpreadsheetEngineContextParseFormulaCacheTest extends BasicSpreadsheetEngineTestCase<BasicSpreadsheetEngineContextParseFormulaCache>
+        implements ToStringTesting<BasicSpreadsheetEngineContextParseFormulaCache> {
+
+    @Test
+    public void testWithZeroMaxSizeFails() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> BasicSpreadsheetEngineContextParseFormulaCache.with(0)
+        );
+    }
+
+    @Test
+    public void testParseFormulaMiss() {
+        final BasicSpreadsheetEngineContextParseFormulaCache cache = BasicSpreadsheetEngineContextParseFormulaCache.with(2);
+
+        final SpreadsheetParserToken token = this.token("1");
+
+        assertSame(
+                token,
+                cache.parseFormula("1", () -> token)
+        );
+        this.metricsAndCheck(cache, 0, 1, 0, 1);
+    }
+
+    @Test
+    public void testParseFormulaHit() {
+        final BasicSpreadsheetEngineContextParseFormulaCache cache = BasicSpreadsheetEngineContextParseFormulaCache.with(2);
+
+        final SpreadsheetParserToken token = this.token("1");
+        cache.parseFormula("1", () -> token);
+
+        assertSame(
+                token,
+                cache.parseFormula(
+                        "1",
+                        () -> {
+                            throw new UnsupportedOperationException();
+                        }
+                )
+        );
+        this.metricsAndCheck(cache, 1, 1, 0, 1);
+    }
+
+    @Test
+    public void testParseFormulaFailureNotCached() {
+        final BasicSpreadsheetEngineContextParseFormulaCache cache = BasicSpreadsheetEngineContextParseFormulaCache.with(2);
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> cache.parseFormula(
+                        "!",
+                        () -> {
+                            throw new IllegalArgumentException();
+                        }
+                )
+        );
+        this.metricsAndCheck(cache, 0, 1, 0, 0);
+    }
+
+    @Test
+    public void testParseFormulaEvictsLeastRecentlyUsed() {
+        final BasicSpreadsheetEngineContextParseFormulaCache cache = BasicSpreadsheetEngineContextParseFormulaCache.with(2);
+
+        cache.parseFormula("1", () -> this.token("1"));
+        cache.parseFormula("2", () -> this.token("2"));
+        cache.parseFormula("1", () -> this.token("1")); // hit, 2 is now least recently used
+        cache.parseFormula("3", () -> this.token("3")); // evicts 2
+
+        this.metricsAndCheck(cache, 1, 3, 1, 2);
+
+        cache.parseFormula("1", () -> this.token("1")); // hit
+        cache.parseFormula("2", () -> this.token("2")); // miss
+
+        this.metricsAndCheck(cache, 2, 4, 2, 2);
+    }
+
+    private SpreadsheetParserToken token(final String text) {
+        return SpreadsheetParserToken.text(
+                Lists.of(
+                        SpreadsheetParserToken.textLiteral(text, text)
+                ),
+                text
+        );
+    }
+
+    private void metricsAndCheck(final BasicSpreadsheetEngineContextParseFormulaCache cache,
+                                 final long hits,
+                                 final long misses,
+                                 final long evictions,
+                                 final int size) {
+        this.checkEquals(hits, cache.hits(), "hits");
+        this.checkEquals(misses, cache.misses(), "misses");
+        this.checkEquals(evictions, cache.evictions(), "evictions");
+        this.checkEquals(size, cache.size(), "size");
+    }
+
+    @Test
+    public void testToString() {
+        final BasicSpreadsheetEngineContextParseFormulaCache cache = BasicSpreadsheetEngineContextParseFormulaCache.with(2);
+        cache.parseFormula("1", () -> this.token("1"));
+        cache.parseFormula("1", () -> this.token("1"));
+
+        this.toStringAndCheck(
+                cache,
+                "hits=1 misses=1 evictions=0 size=1 maxSize=2"
+        );
+    }
+
+    @Override
+    public Class<BasicSpreadsheetEngineContextParseFormulaCache> type() {
+        return BasicSpreadsheetEngineContextParseFormulaCache.class;
+    }
+}
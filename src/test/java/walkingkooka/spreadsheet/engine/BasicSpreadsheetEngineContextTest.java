@@ -29,7 +29,11 @@ import walkingkooka.math.DecimalNumberContexts;
 import walkingkooka.math.Fraction;
 import walkingkooka.net.AbsoluteUrl;
 import walkingkooka.net.Url;
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.SpreadsheetDescription;
 import walkingkooka.spreadsheet.SpreadsheetFormula;
+import walkingkooka.spreadsheet.conditionalformat.SpreadsheetConditionalFormattingRule;
+import walkingkooka.spreadsheet.datavalidation.SpreadsheetDataValidatorContext;
 import walkingkooka.spreadsheet.expression.SpreadsheetExpressionEvaluationContext;
 import walkingkooka.spreadsheet.format.SpreadsheetText;
 import walkingkooka.spreadsheet.format.pattern.SpreadsheetFormatPattern;
@@ -58,6 +62,9 @@ import walkingkooka.tree.expression.function.ExpressionFunctionParameter;
 import walkingkooka.tree.expression.function.ExpressionFunctionParameterKind;
 import walkingkooka.tree.expression.function.ExpressionFunctionParameterName;
 import walkingkooka.tree.expression.function.FakeExpressionFunction;
+import walkingkooka.tree.text.TextNode;
+import walkingkooka.tree.text.TextStyle;
+import walkingkooka.tree.text.TextStylePropertyName;
 
 import java.math.BigDecimal;
 import java.math.MathContext;
@@ -69,6 +76,7 @@ import java.util.Optional;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public final class BasicSpreadsheetEngineContextTest implements SpreadsheetEngineContextTesting<BasicSpreadsheetEngineContext> {
@@ -81,6 +89,8 @@ public final class BasicSpreadsheetEngineContextTest implements SpreadsheetEngin
 
     private final static Supplier<LocalDateTime> NOW = LocalDateTime::now;
 
+    private final static SpreadsheetEngineTracer TRACER = SpreadsheetEngineTracers.none();
+
     @Test
     public void testWithNullMetadataFails() {
         assertThrows(
@@ -92,7 +102,8 @@ public final class BasicSpreadsheetEngineContextTest implements SpreadsheetEngin
                         FRACTIONER,
                         this.storeRepository(),
                         SERVER_URL,
-                        NOW
+                        NOW,
+                        TRACER
                 )
         );
     }
@@ -108,7 +119,8 @@ public final class BasicSpreadsheetEngineContextTest implements SpreadsheetEngin
                         FRACTIONER,
                         this.storeRepository(),
                         SERVER_URL,
-                        NOW
+                        NOW,
+                        TRACER
                 )
         );
     }
@@ -124,7 +136,8 @@ public final class BasicSpreadsheetEngineContextTest implements SpreadsheetEngin
                         FRACTIONER,
                         this.storeRepository(),
                         SERVER_URL,
-                        NOW
+                        NOW,
+                        TRACER
                 )
         );
     }
@@ -140,7 +153,8 @@ public final class BasicSpreadsheetEngineContextTest implements SpreadsheetEngin
                         null,
                         this.storeRepository(),
                         SERVER_URL,
-                        NOW
+                        NOW,
+                        TRACER
                 )
         );
     }
@@ -156,7 +170,8 @@ public final class BasicSpreadsheetEngineContextTest implements SpreadsheetEngin
                         FRACTIONER,
                         null,
                         SERVER_URL,
-                        NOW
+                        NOW,
+                        TRACER
                 )
         );
     }
@@ -172,7 +187,8 @@ public final class BasicSpreadsheetEngineContextTest implements SpreadsheetEngin
                         FRACTIONER,
                         this.storeRepository(),
                         null,
-                        NOW
+                        NOW,
+                        TRACER
                 )
         );
     }
@@ -188,6 +204,24 @@ public final class BasicSpreadsheetEngineContextTest implements SpreadsheetEngin
                         FRACTIONER,
                         this.storeRepository(),
                         SERVER_URL,
+                        null,
+                        TRACER
+                )
+        );
+    }
+
+    @Test
+    public void testWithNullTracerFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> BasicSpreadsheetEngineContext.with(
+                        this.metadata(),
+                        this.functions(),
+                        this.engine(),
+                        FRACTIONER,
+                        this.storeRepository(),
+                        SERVER_URL,
+                        NOW,
                         null
                 )
         );
@@ -447,6 +481,291 @@ public final class BasicSpreadsheetEngineContextTest implements SpreadsheetEngin
         );
     }
 
+    // evaluate compiled................................................................................................
+
+    @Test
+    public void testEvaluateCompiled() {
+        this.evaluateAndCheck(
+                this.createContext(true),
+                Expression.add(
+                        this.expression(1),
+                        this.expression(2)
+                ),
+                this.number(1 + 2)
+        );
+    }
+
+    @Test
+    public void testEvaluateCompiledArithmetic() {
+        // 1+2*3-4/2
+        this.evaluateCompiledAndCheck(
+                Expression.subtract(
+                        Expression.add(
+                                this.expression(1),
+                                Expression.multiply(
+                                        this.expression(2),
+                                        this.expression(3)
+                                )
+                        ),
+                        Expression.divide(
+                                this.expression(4),
+                                this.expression(2)
+                        )
+                ),
+                this.number(1 + 2 * 3 - 4 / 2)
+        );
+    }
+
+    @Test
+    public void testEvaluateCompiledNegativePower() {
+        // -(1+2)^2
+        this.evaluateCompiledAndCheck(
+                Expression.power(
+                        Expression.negative(
+                                Expression.add(
+                                        this.expression(1),
+                                        this.expression(2)
+                                )
+                        ),
+                        this.expression(2)
+                )
+        );
+    }
+
+    @Test
+    public void testEvaluateCompiledDivideByZero() {
+        this.evaluateCompiledAndCheck(
+                Expression.divide(
+                        this.expression(1),
+                        this.expression(0)
+                )
+        );
+    }
+
+    @Test
+    public void testEvaluateCompiledStringAndNumber() {
+        this.evaluateCompiledAndCheck(
+                Expression.add(
+                        Expression.value("1"),
+                        this.expression(2)
+                )
+        );
+    }
+
+    @Test
+    public void testEvaluateCompiledNegativeString() {
+        this.evaluateCompiledAndCheck(
+                Expression.negative(
+                        Expression.value("abc")
+                )
+        );
+    }
+
+    @Test
+    public void testEvaluateCompiledWithFunction() {
+        this.evaluateCompiledAndCheck(
+                Expression.multiply(
+                        Expression.call(
+                                Expression.namedFunction(
+                                        FunctionExpressionName.with("xyz")
+                                ),
+                                Lists.of(
+                                        this.expression(1),
+                                        this.expression(2),
+                                        this.expression(3)
+                                )
+                        ),
+                        this.expression(2)
+                )
+        );
+    }
+
+    @Test
+    public void testEvaluateCompiledWithReference() {
+        this.evaluateCompiledAndCheck(
+                Expression.call(
+                        Expression.namedFunction(
+                                FunctionExpressionName.with(TEST_CONTEXT_LOADCELL)
+                        ),
+                        Lists.of(
+                                Expression.reference(
+                                        LOAD_CELL_REFERENCE
+                                )
+                        )
+                ),
+                LOAD_CELL_VALUE
+        );
+    }
+
+    private void evaluateCompiledAndCheck(final Expression expression,
+                                          final Object expected) {
+        this.checkEquals(
+                expected,
+                this.evaluateCompiledAndCheck(expression),
+                () -> "evaluate " + expression
+        );
+    }
+
+    /**
+     * Evaluates the {@link Expression} interpreted and compiled, with and without a cell holding the expression,
+     * verifying all results are equal.
+     */
+    private Object evaluateCompiledAndCheck(final Expression expression) {
+        final Optional<SpreadsheetCell> cell = Optional.of(
+                SpreadsheetSelection.parseCell("A1")
+                        .setFormula(
+                                SpreadsheetFormula.EMPTY.setText("=1")
+                                        .setExpression(
+                                                Optional.of(expression)
+                                        )
+                        )
+        );
+
+        final Object interpreted = this.createContext()
+                .evaluate(expression, cell);
+
+        final BasicSpreadsheetEngineContext context = this.createContext(true);
+
+        this.checkEquals(
+                interpreted,
+                context.evaluate(expression, cell),
+                () -> "compiled " + expression
+        );
+        this.checkEquals(
+                interpreted,
+                context.evaluate(expression, Optional.empty()),
+                () -> "compiled without cell " + expression
+        );
+
+        return interpreted;
+    }
+
+    // testConditionalFormattingRule...................................................................................
+
+    @Test
+    public void testTestConditionalFormattingRuleTrue() {
+        this.testConditionalFormattingRuleAndCheck(
+                this.createContext(),
+                Expression.lessThan(
+                        this.expression(1),
+                        this.expression(2)
+                ),
+                true
+        );
+    }
+
+    @Test
+    public void testTestConditionalFormattingRuleFalse() {
+        this.testConditionalFormattingRuleAndCheck(
+                this.createContext(),
+                Expression.greaterThan(
+                        this.expression(1),
+                        this.expression(2)
+                ),
+                false
+        );
+    }
+
+    @Test
+    public void testTestConditionalFormattingRuleCompiled() {
+        this.testConditionalFormattingRuleAndCheck(
+                this.createContext(true),
+                Expression.lessThan(
+                        this.expression(1),
+                        this.expression(2)
+                ),
+                true
+        );
+    }
+
+    @Test
+    public void testTestConditionalFormattingRuleCached() {
+        final BasicSpreadsheetEngineContext context = this.createContext();
+        final SpreadsheetConditionalFormattingRule rule = this.conditionalFormattingRule(
+                Expression.lessThan(
+                        this.expression(1),
+                        this.expression(2)
+                )
+        );
+
+        context.testConditionalFormattingRule(rule, CONDITIONAL_FORMATTING_CELL);
+        context.testConditionalFormattingRule(rule, CONDITIONAL_FORMATTING_CELL);
+
+        final BasicSpreadsheetEngineContextConditionalFormattingRuleCache cache = context.conditionalFormattingRuleCache;
+        this.checkEquals(1L, cache.hits(), "hits");
+        this.checkEquals(1L, cache.misses(), "misses");
+    }
+
+    @Test
+    public void testConditionalFormattingRuleReferencesChanged() {
+        final BasicSpreadsheetEngineContext context = this.createContext();
+        final SpreadsheetConditionalFormattingRule rule = this.conditionalFormattingRule(
+                Expression.lessThan(
+                        this.expression(1),
+                        this.expression(2)
+                )
+        );
+
+        context.testConditionalFormattingRule(rule, CONDITIONAL_FORMATTING_CELL);
+        context.conditionalFormattingRuleReferencesChanged(SpreadsheetSelection.parseCellRange("A1:B2"));
+        context.testConditionalFormattingRule(rule, CONDITIONAL_FORMATTING_CELL);
+
+        final BasicSpreadsheetEngineContextConditionalFormattingRuleCache cache = context.conditionalFormattingRuleCache;
+        this.checkEquals(0L, cache.hits(), "hits");
+        this.checkEquals(2L, cache.misses(), "misses");
+        this.checkEquals(1L, cache.invalidations(), "invalidations");
+    }
+
+    @Test
+    public void testDiscardConditionalFormattingRuleResults() {
+        final BasicSpreadsheetEngineContext context = this.createContext();
+        final SpreadsheetConditionalFormattingRule rule = this.conditionalFormattingRule(
+                Expression.lessThan(
+                        this.expression(1),
+                        this.expression(2)
+                )
+        );
+
+        context.testConditionalFormattingRule(rule, CONDITIONAL_FORMATTING_CELL);
+        context.discardConditionalFormattingRuleResults();
+        context.testConditionalFormattingRule(rule, CONDITIONAL_FORMATTING_CELL);
+
+        final BasicSpreadsheetEngineContextConditionalFormattingRuleCache cache = context.conditionalFormattingRuleCache;
+        this.checkEquals(0L, cache.hits(), "hits");
+        this.checkEquals(2L, cache.misses(), "misses");
+    }
+
+    private final static SpreadsheetCell CONDITIONAL_FORMATTING_CELL = SpreadsheetSelection.parseCell("A1")
+            .setFormula(
+                    SpreadsheetFormula.EMPTY
+                            .setText("'abc")
+                            .setValue(Optional.of("abc"))
+            );
+
+    private void testConditionalFormattingRuleAndCheck(final BasicSpreadsheetEngineContext context,
+                                                       final Expression expression,
+                                                       final boolean expected) {
+        this.checkEquals(
+                expected,
+                context.testConditionalFormattingRule(
+                        this.conditionalFormattingRule(expression),
+                        CONDITIONAL_FORMATTING_CELL
+                ),
+                () -> "testConditionalFormattingRule " + expression
+        );
+    }
+
+    private SpreadsheetConditionalFormattingRule conditionalFormattingRule(final Expression expression) {
+        return SpreadsheetConditionalFormattingRule.with(
+                SpreadsheetDescription.with("rule"),
+                1,
+                SpreadsheetFormula.EMPTY
+                        .setText("rule")
+                        .setExpression(Optional.of(expression)),
+                (c) -> TextStyle.EMPTY
+        );
+    }
+
     @Test
     public void testFormat() {
         this.formatAndCheck(
@@ -458,6 +777,102 @@ public final class BasicSpreadsheetEngineContextTest implements SpreadsheetEngin
         );
     }
 
+    @Test
+    public void testFormatAndStyle() {
+        final BasicSpreadsheetEngineContext context = this.createContext();
+        final Optional<SpreadsheetFormatPattern> pattern = Optional.of(
+                SpreadsheetPattern.parseNumberFormatPattern("#.#\"Abc123\"")
+        );
+        final TextStyle style = TextStyle.EMPTY.set(TextStylePropertyName.BACKGROUND_COLOR, Color.parse("#123456"));
+
+        final Optional<TextNode> formatted = context.formatAndStyle(
+                BigDecimal.valueOf(-123.45),
+                pattern,
+                style
+        );
+        this.checkEquals(
+                Optional.of(
+                        style.replace(
+                                SpreadsheetText.with(SpreadsheetText.WITHOUT_COLOR, MINUS + "123" + DECIMAL + "5Abc123")
+                                        .toTextNode()
+                        )
+                ),
+                formatted
+        );
+
+        this.checkEquals(
+                formatted,
+                context.formatAndStyle(
+                        BigDecimal.valueOf(-123.45),
+                        pattern,
+                        style
+                ),
+                "cached"
+        );
+
+        final BasicSpreadsheetEngineContextFormatCache cache = context.formatCache;
+        this.checkEquals(1L, cache.hits(), "hits");
+        this.checkEquals(1L, cache.misses(), "misses");
+    }
+
+    // spreadsheetConverterContext......................................................................................
+
+    @Test
+    public void testSpreadsheetConverterContext() {
+        final BasicSpreadsheetEngineContext context = this.createContext();
+
+        this.checkEquals(
+                Boolean.TRUE,
+                context.spreadsheetConverterContext()
+                        .convertOrFail("true", Boolean.class)
+        );
+    }
+
+    @Test
+    public void testSpreadsheetConverterContextSame() {
+        final BasicSpreadsheetEngineContext context = this.createContext();
+
+        assertSame(
+                context.spreadsheetConverterContext(),
+                context.spreadsheetConverterContext()
+        );
+    }
+
+    // spreadsheetDataValidatorContext..................................................................................
+
+    @Test
+    public void testSpreadsheetDataValidatorContext() {
+        final SpreadsheetCell cell = SpreadsheetSelection.parseCell("A1")
+                .setFormula(SpreadsheetFormula.EMPTY);
+        final SpreadsheetDataValidatorContext context = this.createContext()
+                .spreadsheetDataValidatorContext(
+                        cell,
+                        "value"
+                );
+
+        this.checkEquals(
+                cell.reference(),
+                context.cellReference(),
+                "cellReference"
+        );
+        this.checkEquals(
+                Optional.of(Optional.of("value")),
+                context.reference(cell.reference()),
+                "reference"
+        );
+    }
+
+    // tracer...........................................................................................................
+
+    @Test
+    public void testTracer() {
+        assertSame(
+                TRACER,
+                this.createContext()
+                        .tracer()
+        );
+    }
+
     // toString.........................................................................................................
 
     @Test
@@ -677,12 +1092,30 @@ public final class BasicSpreadsheetEngineContextTest implements SpreadsheetEngin
         return this.createContext(SpreadsheetLabelStores.treeMap());
     }
 
+    private BasicSpreadsheetEngineContext createContext(final boolean compileExpressions) {
+        return this.createContext(
+                this.metadata(),
+                SpreadsheetLabelStores.treeMap(),
+                compileExpressions
+        );
+    }
+
     private BasicSpreadsheetEngineContext createContext(final SpreadsheetLabelStore labelStore) {
         return this.createContext(this.metadata(), labelStore);
     }
 
     private BasicSpreadsheetEngineContext createContext(final SpreadsheetMetadata metadata,
                                                         final SpreadsheetLabelStore labelStore) {
+        return this.createContext(
+                metadata,
+                labelStore,
+                false
+        );
+    }
+
+    private BasicSpreadsheetEngineContext createContext(final SpreadsheetMetadata metadata,
+                                                        final SpreadsheetLabelStore labelStore,
+                                                        final boolean compileExpressions) {
         final SpreadsheetCellStore cells = SpreadsheetCellStores.treeMap();
         cells.save(
                 LOAD_CELL_REFERENCE.setFormula(
@@ -712,7 +1145,11 @@ public final class BasicSpreadsheetEngineContextTest implements SpreadsheetEngin
                     }
                 },
                 SERVER_URL,
-                NOW
+                NOW,
+                TRACER,
+                false,
+                false,
+                compileExpressions
         );
     }
 
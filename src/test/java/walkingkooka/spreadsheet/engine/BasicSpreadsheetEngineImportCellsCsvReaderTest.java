@@ -0,0 +1,185 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.collect.list.Lists;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class BasicSpreadsheetEngineImportCellsCsvReaderTest extends BasicSpreadsheetEngineTestCase<BasicSpreadsheetEngineImportCellsCsvReader> {
+
+    @Test
+    public void testEmpty() throws IOException {
+        this.readAndCheck("");
+    }
+
+    @Test
+    public void testSingleValue() throws IOException {
+        this.readAndCheck(
+                "1",
+                Lists.of("1")
+        );
+    }
+
+    @Test
+    public void testSeveralValues() throws IOException {
+        this.readAndCheck(
+                "1,=2+3,abc",
+                Lists.of("1", "=2+3", "abc")
+        );
+    }
+
+    @Test
+    public void testEmptyValues() throws IOException {
+        this.readAndCheck(
+                ",1,,",
+                Lists.of("", "1", "", "")
+        );
+    }
+
+    @Test
+    public void testSeveralRowsLf() throws IOException {
+        this.readAndCheck(
+                "1,2\n3,4\n",
+                Lists.of("1", "2"),
+                Lists.of("3", "4")
+        );
+    }
+
+    @Test
+    public void testSeveralRowsCr() throws IOException {
+        this.readAndCheck(
+                "1,2\r3,4",
+                Lists.of("1", "2"),
+                Lists.of("3", "4")
+        );
+    }
+
+    @Test
+    public void testSeveralRowsCrLf() throws IOException {
+        this.readAndCheck(
+                "1,2\r\n3,4\r\n",
+                Lists.of("1", "2"),
+                Lists.of("3", "4")
+        );
+    }
+
+    @Test
+    public void testEmptyLine() throws IOException {
+        this.readAndCheck(
+                "1\n\n2",
+                Lists.of("1"),
+                Lists.of(""),
+                Lists.of("2")
+        );
+    }
+
+    @Test
+    public void testQuoted() throws IOException {
+        this.readAndCheck(
+                "\"a,b\",\"c\nd\",\"e\"\"f\"",
+                Lists.of("a,b", "c\nd", "e\"f")
+        );
+    }
+
+    @Test
+    public void testQuotedEmpty() throws IOException {
+        this.readAndCheck(
+                "\"\",1",
+                Lists.of("", "1")
+        );
+    }
+
+    @Test
+    public void testQuoteWithinUnquoted() throws IOException {
+        this.readAndCheck(
+                "a\"b",
+                Lists.of("a\"b")
+        );
+    }
+
+    @Test
+    public void testMissingClosingQuoteFails() throws IOException {
+        final BasicSpreadsheetEngineImportCellsCsvReader reader = BasicSpreadsheetEngineImportCellsCsvReader.with(
+                new StringReader("1\n\"2")
+        );
+        reader.readRow();
+
+        final IllegalArgumentException thrown = assertThrows(
+                IllegalArgumentException.class,
+                reader::readRow
+        );
+        this.checkEquals(
+                "Missing closing '\"' in row 2",
+                thrown.getMessage(),
+                "message"
+        );
+    }
+
+    @Test
+    public void testValueLongerThanBuffer() throws IOException {
+        final StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            value.append((char) ('a' + i % 26));
+        }
+
+        this.readAndCheck(
+                value + "\r\n1",
+                Lists.of(value.toString()),
+                Lists.of("1")
+        );
+    }
+
+    @SafeVarargs
+    private void readAndCheck(final String csv,
+                              final List<String>... rows) throws IOException {
+        final BasicSpreadsheetEngineImportCellsCsvReader reader = BasicSpreadsheetEngineImportCellsCsvReader.with(
+                new StringReader(csv)
+        );
+
+        final List<List<String>> read = Lists.array();
+        for (; ; ) {
+            final List<String> row = reader.readRow();
+            if (null == row) {
+                break;
+            }
+            read.add(row);
+        }
+
+        this.checkEquals(
+                Lists.of(rows),
+                read,
+                () -> "csv " + csv
+        );
+        this.checkEquals(
+                rows.length,
+                reader.row(),
+                "row"
+        );
+    }
+
+    @Override
+    public Class<BasicSpreadsheetEngineImportCellsCsvReader> type() {
+        return BasicSpreadsheetEngineImportCellsCsvReader.class;
+    }
+}
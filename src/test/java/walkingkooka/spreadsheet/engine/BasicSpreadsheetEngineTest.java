@@ -38,6 +38,9 @@ import walkingkooka.spreadsheet.SpreadsheetRow;
 import walkingkooka.spreadsheet.SpreadsheetViewport;
 import walkingkooka.spreadsheet.conditionalformat.SpreadsheetConditionalFormattingRule;
 import walkingkooka.spreadsheet.convert.SpreadsheetConverters;
+import walkingkooka.spreadsheet.datavalidation.SpreadsheetDataValidatorContext;
+import walkingkooka.spreadsheet.datavalidation.SpreadsheetDataValidatorContexts;
+import walkingkooka.spreadsheet.datavalidation.SpreadsheetDataValidators;
 import walkingkooka.spreadsheet.expression.SpreadsheetExpressionEvaluationContexts;
 import walkingkooka.spreadsheet.format.FakeSpreadsheetFormatterContext;
 import walkingkooka.spreadsheet.format.SpreadsheetFormatter;
@@ -111,6 +114,7 @@ import walkingkooka.tree.text.TextStyle;
 import walkingkooka.tree.text.TextStylePropertyName;
 import walkingkooka.tree.text.TextStylePropertyValueException;
 
+import java.io.StringReader;
 import java.math.BigDecimal;
 import java.math.MathContext;
 import java.math.RoundingMode;
@@ -127,6 +131,7 @@ import java.util.function.Function;
 import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -577,6 +582,36 @@ public final class BasicSpreadsheetEngineTest extends BasicSpreadsheetEngineTest
         assertSame(first, second, "different instances of SpreadsheetCell returned not cached");
     }
 
+    @Test
+    public void testLoadCellsComputeIfNecessaryUnchangedCellsNotSaved() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final SpreadsheetEngineContext context = this.createContext(engine);
+
+        final SpreadsheetCellReference a1 = this.cellReference("A1");
+        final SpreadsheetCellReference b2 = this.cellReference("B2");
+
+        engine.saveCell(this.cell(a1, "=1+2"), context);
+        engine.saveCell(this.cell(b2, "=A1*2"), context);
+
+        final SpreadsheetCell a1Saved = this.loadCellOrFail(engine, a1, SpreadsheetEngineEvaluation.SKIP_EVALUATE, context);
+        final SpreadsheetCell b2Saved = this.loadCellOrFail(engine, b2, SpreadsheetEngineEvaluation.SKIP_EVALUATE, context);
+
+        // loading cells that are already evaluated and formatted must not save them again
+        this.addFailingCellSaveWatcherAndDeleteWatcher(context);
+
+        for (int i = 0; i < 2; i++) {
+            this.loadCellsAndCheck(
+                    engine,
+                    "A1:B2",
+                    SpreadsheetEngineEvaluation.COMPUTE_IF_NECESSARY,
+                    Sets.of(SpreadsheetDeltaProperties.CELLS),
+                    context,
+                    a1Saved,
+                    b2Saved
+            );
+        }
+    }
+
     @Test
     public void testLoadCellsParsePatternFails() {
         final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
@@ -1101,6 +1136,274 @@ public final class BasicSpreadsheetEngineTest extends BasicSpreadsheetEngineTest
                 () -> "TextStyle should include underline if correct rule was applied=" + cell);
     }
 
+    @Test
+    public void testSaveCellReferencedByConditionalFormattingRuleStylesRange() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final SpreadsheetEngineContext context = this.createContext(engine);
+
+        final SpreadsheetStoreRepository repository = context.storeRepository();
+
+        final SpreadsheetCellReference a1 = this.cellReference("A1");
+        final SpreadsheetCellReference b1 = this.cellReference("B1");
+        final SpreadsheetCellReference c1 = this.cellReference("C1");
+
+        // A1:A2 is italic when B1 > 0
+        final TextStyle italics = TextStyle.with(Maps.of(TextStylePropertyName.FONT_STYLE, FontStyle.ITALIC));
+        repository.rangeToConditionalFormattingRules()
+                .addValue(
+                        a1.cellRange(this.cellReference("A2")),
+                        SpreadsheetConditionalFormattingRule.with(
+                                SpreadsheetDescription.with("B1 > 0"),
+                                1,
+                                SpreadsheetFormula.EMPTY
+                                        .setText("B1>0")
+                                        .setExpression(
+                                                Optional.of(
+                                                        Expression.greaterThan(
+                                                                Expression.reference(b1),
+                                                                Expression.value(number(0))
+                                                        )
+                                                )
+                                        ),
+                                (c) -> italics
+                        )
+                );
+
+        engine.saveCell(this.cell(b1, "=0"), context);
+        engine.saveCell(this.cell(c1, "=3"), context);
+
+        final SpreadsheetCell saved = engine.saveCell(this.cell(a1, "=2"), context)
+                .cell(a1)
+                .get();
+        this.checkNotEquals(
+                Optional.of(italics.replace(TextNode.text("2 " + FORMATTED_PATTERN_SUFFIX)).root()),
+                saved.formatted(),
+                () -> "A1 should not be italic when B1 is 0, " + saved
+        );
+
+        this.checkEquals(
+                Sets.of(a1.cellRange(this.cellReference("A2"))),
+                repository.conditionalFormattingRuleReferences()
+                        .loadCellReferenceValues(b1),
+                "conditional formatting rule references"
+        );
+
+        final SpreadsheetDelta delta = engine.saveCell(this.cell(b1, "=1"), context);
+
+        final SpreadsheetCell styled = delta.cell(a1)
+                .orElseThrow(() -> new AssertionError("A1 missing from " + delta));
+        this.checkEquals(
+                Optional.of(italics.replace(TextNode.text("2 " + FORMATTED_PATTERN_SUFFIX)).root()),
+                styled.formatted(),
+                () -> "A1 should be italic when B1 is 1, " + styled
+        );
+
+        this.checkEquals(
+                Optional.empty(),
+                delta.cell(c1),
+                () -> "C1 is outside the range and should not be styled again, " + delta
+        );
+    }
+
+    @Test
+    public void testSaveCellReferencedByConditionalFormattingRuleAddedAfterRangeSaved() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final SpreadsheetEngineContext context = this.createContext(engine);
+
+        final SpreadsheetStoreRepository repository = context.storeRepository();
+
+        final SpreadsheetCellReference a1 = this.cellReference("A1");
+        final SpreadsheetCellReference b1 = this.cellReference("B1");
+
+        engine.saveCell(this.cell(a1, "=2"), context);
+        engine.saveCell(this.cell(b1, "=0"), context);
+
+        // A1 is italic when B1 > 0, added after A1 was saved
+        final TextStyle italics = TextStyle.with(Maps.of(TextStylePropertyName.FONT_STYLE, FontStyle.ITALIC));
+        repository.rangeToConditionalFormattingRules()
+                .addValue(
+                        a1.cellRange(a1),
+                        SpreadsheetConditionalFormattingRule.with(
+                                SpreadsheetDescription.with("B1 > 0"),
+                                1,
+                                SpreadsheetFormula.EMPTY
+                                        .setText("B1>0")
+                                        .setExpression(
+                                                Optional.of(
+                                                        Expression.greaterThan(
+                                                                Expression.reference(b1),
+                                                                Expression.value(number(0))
+                                                        )
+                                                )
+                                        ),
+                                (c) -> italics
+                        )
+                );
+
+        final SpreadsheetDelta delta = engine.saveCell(this.cell(b1, "=1"), context);
+
+        final SpreadsheetCell styled = delta.cell(a1)
+                .orElseThrow(() -> new AssertionError("A1 missing from " + delta));
+        this.checkEquals(
+                Optional.of(italics.replace(TextNode.text("2 " + FORMATTED_PATTERN_SUFFIX)).root()),
+                styled.formatted(),
+                () -> "A1 should be italic when B1 is 1, " + styled
+        );
+    }
+
+    @Test
+    public void testSaveCellWithValidatorValidValue() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final SpreadsheetEngineContext context = this.createContext(engine);
+
+        final SpreadsheetCellReference a1 = this.cellReference("A1");
+
+        context.storeRepository()
+                .rangeToValidators()
+                .addValue(
+                        a1.cellRange(this.cellReference("A2")),
+                        SpreadsheetDataValidators.expressionNumberGreaterThan(number(0))
+                );
+
+        final SpreadsheetCell saved = engine.saveCell(this.cell(a1, "=1"), context)
+                .cell(a1)
+                .get();
+        this.checkEquals(
+                Optional.of(number(1)),
+                saved.formula()
+                        .value(),
+                () -> "value " + saved
+        );
+    }
+
+    @Test
+    public void testSaveCellWithValidatorInvalidValue() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final SpreadsheetEngineContext context = this.createContext(engine);
+
+        final SpreadsheetCellReference a1 = this.cellReference("A1");
+
+        context.storeRepository()
+                .rangeToValidators()
+                .addValue(
+                        a1.cellRange(this.cellReference("A2")),
+                        SpreadsheetDataValidators.expressionNumberGreaterThan(number(0))
+                );
+
+        final SpreadsheetCell saved = engine.saveCell(this.cell(a1, "=0"), context)
+                .cell(a1)
+                .get();
+        this.checkEquals(
+                Optional.of(BasicSpreadsheetEngine.INVALID_VALUE),
+                saved.formula()
+                        .value(),
+                () -> "value " + saved
+        );
+    }
+
+    @Test
+    public void testSaveCellWithCustomFormulaValidatorInvalidValue() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final SpreadsheetEngineContext context = this.createContext(engine);
+
+        final SpreadsheetCellReference a1 = this.cellReference("A1");
+
+        context.storeRepository()
+                .rangeToValidators()
+                .addValue(
+                        a1.cellRange(a1),
+                        SpreadsheetDataValidators.customFormula(
+                                Expression.greaterThan(
+                                        Expression.reference(a1),
+                                        Expression.value(number(10))
+                                )
+                        )
+                );
+
+        final SpreadsheetCell saved = engine.saveCell(this.cell(a1, "=2"), context)
+                .cell(a1)
+                .get();
+        this.checkEquals(
+                Optional.of(BasicSpreadsheetEngine.INVALID_VALUE),
+                saved.formula()
+                        .value(),
+                () -> "value " + saved
+        );
+    }
+
+    @Test
+    public void testSaveCellWithValidatorOutsideRange() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final SpreadsheetEngineContext context = this.createContext(engine);
+
+        final SpreadsheetCellReference b1 = this.cellReference("B1");
+
+        context.storeRepository()
+                .rangeToValidators()
+                .addValue(
+                        this.cellReference("A1").cellRange(this.cellReference("A2")),
+                        SpreadsheetDataValidators.expressionNumberGreaterThan(number(0))
+                );
+
+        final SpreadsheetCell saved = engine.saveCell(this.cell(b1, "=0"), context)
+                .cell(b1)
+                .get();
+        this.checkEquals(
+                Optional.of(number(0)),
+                saved.formula()
+                        .value(),
+                () -> "value " + saved
+        );
+    }
+
+    @Test
+    public void testValidate() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final SpreadsheetEngineContext context = this.createContext(engine);
+
+        final SpreadsheetCellReference a1 = this.cellReference("A1");
+        final SpreadsheetCellReference a2 = this.cellReference("A2");
+        final SpreadsheetCellReference a3 = this.cellReference("A3");
+
+        // saved before the validator was added
+        engine.saveCell(this.cell(a1, "=1"), context);
+        engine.saveCell(this.cell(a2, "=0"), context);
+        engine.saveCell(this.cell(this.cellReference("B1"), "=0"), context);
+
+        final SpreadsheetCellRange range = a1.cellRange(a3);
+        context.storeRepository()
+                .rangeToValidators()
+                .addValue(
+                        range,
+                        SpreadsheetDataValidators.expressionNumberGreaterThan(number(0))
+                );
+
+        // saved after the validator was added, the value is replaced by an error
+        engine.saveCell(this.cell(a3, "=0"), context);
+
+        this.validateAndCheck(
+                engine,
+                SpreadsheetSelection.parseCellRange("A1:B3"),
+                context,
+                a2,
+                a3
+        );
+    }
+
+    @Test
+    public void testValidateWithoutValidators() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final SpreadsheetEngineContext context = this.createContext(engine);
+
+        engine.saveCell(this.cell(this.cellReference("A1"), "=0"), context);
+
+        this.validateAndCheck(
+                engine,
+                SpreadsheetSelection.parseCellRange("A1:B2"),
+                context
+        );
+    }
+
     @Test
     public void testLoadCellSpreadsheetDeltaPropertiesCells() {
         this.loadCellAndCheck(
@@ -1282,96 +1585,342 @@ public final class BasicSpreadsheetEngineTest extends BasicSpreadsheetEngineTest
     // saveCell....................................................................................................
 
     @Test
-    public void testSaveCellEmptyFormula() {
+    public void testSaveCellTraced() {
         final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
-        final SpreadsheetEngineContext context = this.createContext(engine);
-
-        final SpreadsheetCell a1 = this.cell("a1", "");
-        final SpreadsheetCell a1Formatted = this.formattedCell(a1, "");
-        this.saveCellAndCheck(
+        final CollectingSpreadsheetEngineTracer tracer = CollectingSpreadsheetEngineTracer.with(System::nanoTime);
+        final SpreadsheetEngineContext context = this.createContext(
+                DEFAULT_YEAR,
                 engine,
-                a1,
-                context,
-                SpreadsheetDelta.EMPTY
-                        .setCells(
-                                Sets.of(a1Formatted)
-                        ).setColumnWidths(
-                                columnWidths("A")
-                        ).setRowHeights(
-                                rowHeights("1")
+                this.metadata(),
+                this.createSpreadsheetStoreRepository(SpreadsheetCellStores.treeMap()),
+                tracer
+        );
+
+        engine.saveCell(this.cell("a1", "=1+2"), context);
+        engine.saveCell(this.cell("b1", "=a1+10"), context);
+        engine.saveCell(this.cell("a1", "=3+4"), context);
+
+        for (final SpreadsheetEngineMetric metric : new SpreadsheetEngineMetric[]{
+                SpreadsheetEngineMetric.PARSE,
+                SpreadsheetEngineMetric.EVALUATE,
+                SpreadsheetEngineMetric.FORMAT,
+                SpreadsheetEngineMetric.REFERENCES,
+                SpreadsheetEngineMetric.RESOLVE_REFERENCE,
+                SpreadsheetEngineMetric.STORE,
+                SpreadsheetEngineMetric.REFRESH,
+                SpreadsheetEngineMetric.REFRESHED_CELLS,
+                SpreadsheetEngineMetric.DELTA
+        }) {
+            assertNotEquals(
+                    0L,
+                    tracer.count(metric),
+                    () -> metric + " " + tracer
+            );
+        }
+    }
+
+    @Test
+    public void testSaveCellFoldConstants() {
+        this.saveCellFoldConstantsAndCheck(
+                false,
+                Expression.add(
+                        Expression.value(this.number(1)),
+                        Expression.multiply(
+                                Expression.value(this.number(2)),
+                                Expression.value(this.number(3))
                         )
+                )
         );
-
-        final SpreadsheetStoreRepository repository = context.storeRepository();
-        final SpreadsheetCellStore cellStore = repository.cells();
-        final SpreadsheetLabelStore labelStore = repository.labels();
-        final SpreadsheetExpressionReferenceStore<SpreadsheetCellReference> cellReferenceStore = repository.cellReferences();
-
-        this.loadCellStoreAndCheck(cellStore, a1Formatted);
-        this.loadLabelStoreAndCheck(labelStore);
-        this.countAndCheck(cellReferenceStore, 0);
     }
 
     @Test
-    public void testSaveCellEmptyFormulaTwice() {
-        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
-        final SpreadsheetEngineContext context = this.createContext(engine);
+    public void testSaveCellFoldConstantsFolded() {
+        this.saveCellFoldConstantsAndCheck(
+                true,
+                Expression.value(this.number(1 + 2 * 3))
+        );
+    }
 
-        final SpreadsheetCell a1 = this.cell("a1", "");
-        final SpreadsheetCell a1Formatted = this.formattedCell(a1, "");
-        this.saveCellAndCheck(
+    private void saveCellFoldConstantsAndCheck(final boolean foldConstants,
+                                               final Expression expected) {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final SpreadsheetEngineContext context = this.createContext(
+                DEFAULT_YEAR,
                 engine,
-                a1,
-                context,
-                SpreadsheetDelta.EMPTY
-                        .setCells(
-                                Sets.of(a1Formatted)
-                        ).setColumnWidths(
-                                columnWidths("A")
-                        ).setRowHeights(
-                                rowHeights("1")
-                        )
+                this.metadata(),
+                this.createSpreadsheetStoreRepository(SpreadsheetCellStores.treeMap()),
+                SpreadsheetEngineTracers.none(),
+                foldConstants,
+                false
         );
 
-        final SpreadsheetStoreRepository repository = context.storeRepository();
-        final SpreadsheetCellStore cellStore = repository.cells();
-        final SpreadsheetLabelStore labelStore = repository.labels();
-        final SpreadsheetExpressionReferenceStore<SpreadsheetCellReference> cellReferenceStore = repository.cellReferences();
-
-        this.loadCellStoreAndCheck(cellStore, a1Formatted);
-        this.loadLabelStoreAndCheck(labelStore);
-        this.countAndCheck(cellReferenceStore, 0);
+        final SpreadsheetCell a1 = this.cell("a1", "=1+2*3");
+        engine.saveCell(a1, context);
 
-        this.saveCellAndCheck(
-                engine,
-                a1,
-                context,
-                SpreadsheetDelta.EMPTY
-                        .setCells(
-                                Sets.of(a1Formatted)
-                        ).setColumnWidths(
-                                columnWidths("A")
-                        ).setRowHeights(
-                                rowHeights("1")
-                        )
+        final SpreadsheetFormula formula = context.storeRepository()
+                .cells()
+                .loadOrFail(a1.reference())
+                .formula();
+        this.checkEquals(
+                Optional.of(expected),
+                formula.expression(),
+                "expression"
+        );
+        this.checkEquals(
+                Optional.of(this.number(1 + 2 * 3)),
+                formula.value(),
+                "value"
         );
     }
 
     @Test
-    public void testSaveCellInvalidDate() {
-        this.saveCellWithErrorAndCheck(
-                "1999/99/31",
-                SpreadsheetErrorKind.VALUE.setMessage(
-                        "Invalid value for MonthOfYear (valid values 1 - 12): 99"
-                )
+    public void testSaveCellDiscardTokens() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final SpreadsheetEngineContext context = this.createDiscardingTokensContext(engine);
+
+        final SpreadsheetCell a1 = this.cell("a1", "=1+2");
+        engine.saveCell(a1, context);
+
+        final SpreadsheetFormula formula = context.storeRepository()
+                .cells()
+                .loadOrFail(a1.reference())
+                .formula();
+        this.checkEquals(
+                "=1+2",
+                formula.text(),
+                "text"
+        );
+        this.checkEquals(
+                Optional.empty(),
+                formula.token(),
+                "token"
+        );
+        this.checkEquals(
+                true,
+                formula.expression().isPresent(),
+                "expression"
+        );
+        this.checkEquals(
+                Optional.of(this.number(1 + 2)),
+                formula.value(),
+                "value"
         );
     }
 
     @Test
-    public void testSaveCellInvalidDateTime() {
-        this.saveCellWithErrorAndCheck(
-                "1999/99/31 12:58",
-                SpreadsheetErrorKind.VALUE.setMessage("Invalid value for MonthOfYear (valid values 1 - 12): 99")
+    public void testLoadCellsForceRecomputeDiscardTokensParsesTextAgain() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final SpreadsheetEngineContext context = this.createDiscardingTokensContext(engine);
+
+        final SpreadsheetCell a1 = this.cell("a1", "=1+2");
+        engine.saveCell(a1, context);
+
+        final SpreadsheetCellStore cellStore = context.storeRepository()
+                .cells();
+        final Expression expression = cellStore.loadOrFail(a1.reference())
+                .formula()
+                .expression()
+                .get();
+
+        engine.loadCells(
+                a1.reference(),
+                SpreadsheetEngineEvaluation.FORCE_RECOMPUTE,
+                SpreadsheetDeltaProperties.ALL,
+                context
+        );
+
+        final SpreadsheetFormula formula = cellStore.loadOrFail(a1.reference())
+                .formula();
+        assertNotSame(
+                expression,
+                formula.expression().get(),
+                "expression"
+        );
+        this.checkEquals(
+                expression,
+                formula.expression().get(),
+                "expression"
+        );
+        this.checkEquals(
+                Optional.of(this.number(1 + 2)),
+                formula.value(),
+                "value"
+        );
+    }
+
+    @Test
+    public void testSaveCellRefreshedReferrerKeepsExpression() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final SpreadsheetEngineContext context = this.createContext(engine);
+
+        engine.saveCell(this.cell("a1", "=1"), context);
+
+        final SpreadsheetCell b1 = this.cell("b1", "=a1+2");
+        engine.saveCell(b1, context);
+
+        final SpreadsheetCellStore cellStore = context.storeRepository()
+                .cells();
+        final Expression expression = cellStore.loadOrFail(b1.reference())
+                .formula()
+                .expression()
+                .get();
+
+        engine.saveCell(this.cell("a1", "=10"), context);
+
+        final SpreadsheetFormula formula = cellStore.loadOrFail(b1.reference())
+                .formula();
+        assertSame(
+                expression,
+                formula.expression().get(),
+                "expression"
+        );
+        this.checkEquals(
+                Optional.of(this.number(10 + 2)),
+                formula.value(),
+                "value"
+        );
+    }
+
+    @Test
+    public void testInsertColumnsDiscardTokensFixesReferences() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final SpreadsheetEngineContext context = this.createDiscardingTokensContext(engine);
+
+        final SpreadsheetCellReference a = this.cellReference("$A$1");
+        final SpreadsheetCellReference b = this.cellReference("$B$1");
+
+        engine.saveCell(this.cell(a, "=1+" + b), context);
+        engine.saveCell(this.cell(b, "=2"), context);
+
+        engine.insertColumns(
+                b.column(),
+                1,
+                context
+        );
+
+        this.loadCellAndCheckFormulaAndValue(
+                engine,
+                a,
+                SpreadsheetEngineEvaluation.SKIP_EVALUATE,
+                context,
+                "=1+" + b.addColumn(1),
+                number(1 + 2)
+        ); // reference should have been fixed from the formula text.
+
+        this.checkEquals(
+                Optional.empty(),
+                context.storeRepository()
+                        .cells()
+                        .loadOrFail(a)
+                        .formula()
+                        .token(),
+                "token"
+        );
+    }
+
+    private SpreadsheetEngineContext createDiscardingTokensContext(final BasicSpreadsheetEngine engine) {
+        return this.createContext(
+                DEFAULT_YEAR,
+                engine,
+                this.metadata(),
+                this.createSpreadsheetStoreRepository(SpreadsheetCellStores.treeMap()),
+                SpreadsheetEngineTracers.none(),
+                false,
+                true
+        );
+    }
+
+    @Test
+    public void testSaveCellEmptyFormula() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final SpreadsheetEngineContext context = this.createContext(engine);
+
+        final SpreadsheetCell a1 = this.cell("a1", "");
+        final SpreadsheetCell a1Formatted = this.formattedCell(a1, "");
+        this.saveCellAndCheck(
+                engine,
+                a1,
+                context,
+                SpreadsheetDelta.EMPTY
+                        .setCells(
+                                Sets.of(a1Formatted)
+                        ).setColumnWidths(
+                                columnWidths("A")
+                        ).setRowHeights(
+                                rowHeights("1")
+                        )
+        );
+
+        final SpreadsheetStoreRepository repository = context.storeRepository();
+        final SpreadsheetCellStore cellStore = repository.cells();
+        final SpreadsheetLabelStore labelStore = repository.labels();
+        final SpreadsheetExpressionReferenceStore<SpreadsheetCellReference> cellReferenceStore = repository.cellReferences();
+
+        this.loadCellStoreAndCheck(cellStore, a1Formatted);
+        this.loadLabelStoreAndCheck(labelStore);
+        this.countAndCheck(cellReferenceStore, 0);
+    }
+
+    @Test
+    public void testSaveCellEmptyFormulaTwice() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final SpreadsheetEngineContext context = this.createContext(engine);
+
+        final SpreadsheetCell a1 = this.cell("a1", "");
+        final SpreadsheetCell a1Formatted = this.formattedCell(a1, "");
+        this.saveCellAndCheck(
+                engine,
+                a1,
+                context,
+                SpreadsheetDelta.EMPTY
+                        .setCells(
+                                Sets.of(a1Formatted)
+                        ).setColumnWidths(
+                                columnWidths("A")
+                        ).setRowHeights(
+                                rowHeights("1")
+                        )
+        );
+
+        final SpreadsheetStoreRepository repository = context.storeRepository();
+        final SpreadsheetCellStore cellStore = repository.cells();
+        final SpreadsheetLabelStore labelStore = repository.labels();
+        final SpreadsheetExpressionReferenceStore<SpreadsheetCellReference> cellReferenceStore = repository.cellReferences();
+
+        this.loadCellStoreAndCheck(cellStore, a1Formatted);
+        this.loadLabelStoreAndCheck(labelStore);
+        this.countAndCheck(cellReferenceStore, 0);
+
+        this.saveCellAndCheck(
+                engine,
+                a1,
+                context,
+                SpreadsheetDelta.EMPTY
+                        .setCells(
+                                Sets.of(a1Formatted)
+                        ).setColumnWidths(
+                                columnWidths("A")
+                        ).setRowHeights(
+                                rowHeights("1")
+                        )
+        );
+    }
+
+    @Test
+    public void testSaveCellInvalidDate() {
+        this.saveCellWithErrorAndCheck(
+                "1999/99/31",
+                SpreadsheetErrorKind.VALUE.setMessage(
+                        "Invalid value for MonthOfYear (valid values 1 - 12): 99"
+                )
+        );
+    }
+
+    @Test
+    public void testSaveCellInvalidDateTime() {
+        this.saveCellWithErrorAndCheck(
+                "1999/99/31 12:58",
+                SpreadsheetErrorKind.VALUE.setMessage("Invalid value for MonthOfYear (valid values 1 - 12): 99")
         );
     }
 
@@ -2289,211 +2838,744 @@ public final class BasicSpreadsheetEngineTest extends BasicSpreadsheetEngineTest
     }
 
     @Test
-    public void testSaveCellsOnlyValues() {
+    public void testSaveCellsOnlyValues() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final SpreadsheetEngineContext context = this.createContext(engine);
+
+        final SpreadsheetCell a1 = this.cell("a1", "=1+2");
+        final SpreadsheetCell a1Formatted = this.formattedCell(
+                a1,
+                number(3)
+        );
+
+        final SpreadsheetCell b2 = this.cell("b2", "=4+5");
+        final SpreadsheetCell b2Formatted = this.formattedCell(
+                b2,
+                number(9)
+        );
+
+        this.saveCellsAndCheck(
+                engine,
+                Sets.of(
+                        a1, b2
+                ),
+                context,
+                SpreadsheetDelta.EMPTY
+                        .setCells(
+                                Sets.of(
+                                        a1Formatted,
+                                        b2Formatted
+                                )
+                        ).setColumnWidths(
+                                columnWidths("A,B")
+                        ).setRowHeights(
+                                rowHeights("1,2")
+                        )
+        );
+
+        final SpreadsheetStoreRepository repository = context.storeRepository();
+        final SpreadsheetCellStore cellStore = repository.cells();
+        final SpreadsheetLabelStore labelStore = repository.labels();
+        final SpreadsheetExpressionReferenceStore<SpreadsheetCellReference> cellReferenceStore = repository.cellReferences();
+
+        this.loadCellStoreAndCheck(
+                cellStore,
+                a1Formatted,
+                b2Formatted
+        );
+        this.loadLabelStoreAndCheck(labelStore);
+        this.countAndCheck(cellReferenceStore, 0);
+    }
+
+    @Test
+    public void testSaveCellsOnlyWithCrossReferences() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final SpreadsheetEngineContext context = this.createContext(engine);
+
+        final SpreadsheetCell a1 = this.cell("a1", "=100");
+        final SpreadsheetCell a1Formatted = this.formattedCell(
+                a1,
+                number(100)
+        );
+
+        final SpreadsheetCell b2 = this.cell("b2", "=a1+2");
+        final SpreadsheetCell b2Formatted = this.formattedCell(
+                b2,
+                number(100 + 2)
+        );
+
+        this.saveCellsAndCheck(
+                engine,
+                Sets.of(
+                        a1, b2
+                ),
+                context,
+                SpreadsheetDelta.EMPTY
+                        .setCells(
+                                Sets.of(
+                                        a1Formatted,
+                                        b2Formatted
+                                )
+                        ).setColumnWidths(
+                                columnWidths("A,B")
+                        ).setRowHeights(
+                                rowHeights("1,2")
+                        )
+        );
+
+        final SpreadsheetStoreRepository repository = context.storeRepository();
+        final SpreadsheetCellStore cellStore = repository.cells();
+        final SpreadsheetLabelStore labelStore = repository.labels();
+        final SpreadsheetExpressionReferenceStore<SpreadsheetCellReference> cellReferenceStore = repository.cellReferences();
+
+        this.loadCellStoreAndCheck(
+                cellStore,
+                a1Formatted,
+                b2Formatted
+        );
+        this.loadLabelStoreAndCheck(labelStore);
+        this.countAndCheck(cellReferenceStore, 1); // b2 -> a1
+    }
+
+    @Test
+    public void testSaveCellsOnlyWithCrossReferences2() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final SpreadsheetEngineContext context = this.createContext(engine);
+
+        final SpreadsheetCell a1 = this.cell("a1", "=b2+1");
+        final SpreadsheetCell a1Formatted = this.formattedCell(
+                a1,
+                number(1000 + 1)
+        );
+
+        final SpreadsheetCell b2 = this.cell("b2", "=1000");
+        final SpreadsheetCell b2Formatted = this.formattedCell(
+                b2,
+                number(1000)
+        );
+
+        this.saveCellsAndCheck(
+                engine,
+                Sets.of(
+                        a1, b2
+                ),
+                context,
+                SpreadsheetDelta.EMPTY
+                        .setCells(
+                                Sets.of(
+                                        a1Formatted,
+                                        b2Formatted
+                                )
+                        ).setColumnWidths(
+                                columnWidths("A,B")
+                        ).setRowHeights(
+                                rowHeights("1,2")
+                        )
+        );
+
+        final SpreadsheetStoreRepository repository = context.storeRepository();
+        final SpreadsheetCellStore cellStore = repository.cells();
+        final SpreadsheetLabelStore labelStore = repository.labels();
+        final SpreadsheetExpressionReferenceStore<SpreadsheetCellReference> cellReferenceStore = repository.cellReferences();
+
+        this.loadCellStoreAndCheck(
+                cellStore,
+                a1Formatted,
+                b2Formatted
+        );
+        this.loadLabelStoreAndCheck(labelStore);
+        this.countAndCheck(cellReferenceStore, 1); // b2 -> a1
+    }
+
+    @Test
+    public void testSaveCellsOnlyWithCrossReferences3() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final SpreadsheetEngineContext context = this.createContext(engine);
+
+        final SpreadsheetCell a1 = this.cell("a1", "=b2+100");
+        final SpreadsheetCell a1Formatted = this.formattedCell(
+                a1,
+                number(1000 + 100)
+        );
+
+        final SpreadsheetCell b2 = this.cell("b2", "=1000");
+        final SpreadsheetCell b2Formatted = this.formattedCell(
+                b2,
+                number(1000)
+        );
+
+        final SpreadsheetCell c3 = this.cell("c3", "=a1+1");
+        final SpreadsheetCell c3Formatted = this.formattedCell(
+                c3,
+                number(1000 + 100 + 1)
+        );
+
+        this.saveCellsAndCheck(
+                engine,
+                Sets.of(
+                        a1, b2, c3
+                ),
+                context,
+                SpreadsheetDelta.EMPTY
+                        .setCells(
+                                Sets.of(
+                                        a1Formatted,
+                                        b2Formatted,
+                                        c3Formatted
+                                )
+                        ).setColumnWidths(
+                                columnWidths("A,B,C")
+                        ).setRowHeights(
+                                rowHeights("1,2,3")
+                        )
+        );
+
+        final SpreadsheetStoreRepository repository = context.storeRepository();
+        final SpreadsheetCellStore cellStore = repository.cells();
+        final SpreadsheetLabelStore labelStore = repository.labels();
+        final SpreadsheetExpressionReferenceStore<SpreadsheetCellReference> cellReferenceStore = repository.cellReferences();
+
+        this.loadCellStoreAndCheck(
+                cellStore,
+                a1Formatted,
+                b2Formatted,
+                c3Formatted
+        );
+        this.loadLabelStoreAndCheck(labelStore);
+        this.countAndCheck(cellReferenceStore, 2);
+    }
+
+    @Test
+    public void testSaveCellsWithCrossReferencesEvaluatesEachCellOnce() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final CollectingSpreadsheetEngineTracer tracer = CollectingSpreadsheetEngineTracer.with(System::nanoTime);
+        final SpreadsheetEngineContext context = this.createContext(
+                DEFAULT_YEAR,
+                engine,
+                this.metadata(),
+                this.createSpreadsheetStoreRepository(SpreadsheetCellStores.treeMap()),
+                tracer
+        );
+
+        final SpreadsheetCell a1 = this.cell("a1", "=b1+1");
+        final SpreadsheetCell b1 = this.cell("b1", "=c1+10");
+        final SpreadsheetCell c1 = this.cell("c1", "=100");
+
+        this.saveCellsAndCheck(
+                engine,
+                Sets.of(
+                        a1, b1, c1
+                ),
+                context,
+                SpreadsheetDelta.EMPTY
+                        .setCells(
+                                Sets.of(
+                                        this.formattedCell(
+                                                a1,
+                                                number(100 + 10 + 1)
+                                        ),
+                                        this.formattedCell(
+                                                b1,
+                                                number(100 + 10)
+                                        ),
+                                        this.formattedCell(
+                                                c1,
+                                                number(100)
+                                        )
+                                )
+                        ).setColumnWidths(
+                                columnWidths("A,B,C")
+                        ).setRowHeights(
+                                rowHeights("1")
+                        )
+        );
+
+        this.checkEquals(
+                3L,
+                tracer.count(SpreadsheetEngineMetric.EVALUATE),
+                () -> tracer.toString()
+        );
+    }
+
+    @Test
+    public void testSaveCellsWithLabelReferenceEvaluatesEachCellOnce() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final CollectingSpreadsheetEngineTracer tracer = CollectingSpreadsheetEngineTracer.with(System::nanoTime);
+        final SpreadsheetEngineContext context = this.createContext(
+                DEFAULT_YEAR,
+                engine,
+                this.metadata(),
+                this.createSpreadsheetStoreRepository(SpreadsheetCellStores.treeMap()),
+                tracer
+        );
+
+        final SpreadsheetCell a1 = this.cell("a1", "=LABELB1+1");
+        final SpreadsheetCell b1 = this.cell("b1", "=10");
+
+        final SpreadsheetLabelName labelB1 = SpreadsheetSelection.labelName("LABELB1");
+        context.storeRepository()
+                .labels()
+                .save(labelB1.mapping(b1.reference()));
+
+        this.saveCellsAndCheck(
+                engine,
+                Sets.of(
+                        a1, b1
+                ),
+                context,
+                SpreadsheetDelta.EMPTY
+                        .setCells(
+                                Sets.of(
+                                        this.formattedCell(
+                                                a1,
+                                                number(10 + 1)
+                                        ),
+                                        this.formattedCell(
+                                                b1,
+                                                number(10)
+                                        )
+                                )
+                        ).setLabels(
+                                Sets.of(
+                                        labelB1.mapping(b1.reference())
+                                )
+                        ).setColumnWidths(
+                                columnWidths("A,B")
+                        ).setRowHeights(
+                                rowHeights("1")
+                        )
+        );
+
+        this.checkEquals(
+                2L,
+                tracer.count(SpreadsheetEngineMetric.EVALUATE),
+                () -> tracer.toString()
+        );
+    }
+
+    // importCells......................................................................................................
+
+    @Test
+    public void testImportCells() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final SpreadsheetEngineContext context = this.createContext(engine);
+
+        this.checkEquals(
+                SpreadsheetDelta.EMPTY
+                        .setWindow(
+                                SpreadsheetSelection.parseWindow("B2:C3")
+                        ),
+                engine.importCells(
+                        new StringReader("=1,=2\r\n=b2+c2,\"=b2*c2\""),
+                        SpreadsheetSelection.parseCell("B2"),
+                        context
+                )
+        );
+
+        this.countAndCheck(context.storeRepository().cells(), 4);
+
+        this.loadCellAndCheckFormulaAndValue(
+                engine,
+                SpreadsheetSelection.parseCell("B3"),
+                SpreadsheetEngineEvaluation.SKIP_EVALUATE,
+                context,
+                "=b2+c2",
+                number(1 + 2)
+        );
+
+        this.loadCellAndCheckFormulaAndValue(
+                engine,
+                SpreadsheetSelection.parseCell("C3"),
+                SpreadsheetEngineEvaluation.SKIP_EVALUATE,
+                context,
+                "=b2*c2",
+                number(1 * 2)
+        );
+    }
+
+    @Test
+    public void testImportCellsSkipsEmptyValues() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final SpreadsheetEngineContext context = this.createContext(engine);
+
+        this.checkEquals(
+                SpreadsheetDelta.EMPTY
+                        .setWindow(
+                                SpreadsheetSelection.parseWindow("A1:C1")
+                        ),
+                engine.importCells(
+                        new StringReader(",,=3\n\n"),
+                        SpreadsheetCellReference.A1,
+                        context
+                )
+        );
+
+        this.countAndCheck(context.storeRepository().cells(), 1);
+
+        this.loadCellAndCheckFormulaAndValue(
+                engine,
+                SpreadsheetSelection.parseCell("C1"),
+                SpreadsheetEngineEvaluation.SKIP_EVALUATE,
+                context,
+                "=3",
+                number(3)
+        );
+    }
+
+    @Test
+    public void testImportCellsEmpty() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final SpreadsheetEngineContext context = this.createContext(engine);
+
+        this.checkEquals(
+                SpreadsheetDelta.EMPTY,
+                engine.importCells(
+                        new StringReader(""),
+                        SpreadsheetCellReference.A1,
+                        context
+                )
+        );
+
+        this.countAndCheck(context.storeRepository().cells(), 0);
+    }
+
+    @Test
+    public void testImportCellsRefreshesReferrers() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final SpreadsheetEngineContext context = this.createContext(engine);
+
+        engine.saveCell(this.cell("a1", "=1"), context);
+        engine.saveCell(this.cell("c1", "=a1*10"), context);
+
+        engine.importCells(
+                new StringReader("=5"),
+                SpreadsheetCellReference.A1,
+                context
+        );
+
+        this.loadCellAndCheckFormulaAndValue(
+                engine,
+                SpreadsheetSelection.parseCell("C1"),
+                SpreadsheetEngineEvaluation.SKIP_EVALUATE,
+                context,
+                "=a1*10",
+                number(5 * 10)
+        );
+    }
+
+    @Test
+    public void testImportCellsReplacesReferences() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final SpreadsheetEngineContext context = this.createContext(engine);
+
+        engine.saveCell(this.cell("a1", "=b1"), context);
+        engine.saveCell(this.cell("c1", "=3"), context);
+
+        engine.importCells(
+                new StringReader("=c1+2"),
+                SpreadsheetCellReference.A1,
+                context
+        );
+
+        final SpreadsheetExpressionReferenceStore<SpreadsheetCellReference> cellReferenceStore = context.storeRepository()
+                .cellReferences();
+        final SpreadsheetCellReference a1 = SpreadsheetCellReference.A1;
+        final SpreadsheetCellReference b1 = SpreadsheetSelection.parseCell("B1");
+        final SpreadsheetCellReference c1 = SpreadsheetSelection.parseCell("C1");
+
+        this.loadReferrersAndCheck(cellReferenceStore, b1); // B1 no longer referenced by A1
+        this.loadReferrersAndCheck(cellReferenceStore, c1, a1);
+
+        this.loadCellAndCheckFormulaAndValue(
+                engine,
+                a1,
+                SpreadsheetEngineEvaluation.SKIP_EVALUATE,
+                context,
+                "=c1+2",
+                number(3 + 2)
+        );
+    }
+
+    @Test
+    public void testImportCellsText() {
+        this.importCellAndCheck(
+                "hello",
+                "'hello",
+                "hello"
+        );
+    }
+
+    @Test
+    public void testImportCellsTextStartingWithDigit() {
+        this.importCellAndCheck(
+                "12 apples",
+                "'12 apples",
+                "12 apples"
+        );
+    }
+
+    @Test
+    public void testImportCellsApostropheText() {
+        this.importCellAndCheck(
+                "'hello",
+                "'hello",
+                "hello"
+        );
+    }
+
+    @Test
+    public void testImportCellsNumber() {
+        this.importCellAndCheck(
+                "123",
+                "123",
+                number(123)
+        );
+    }
+
+    @Test
+    public void testImportCellsDate() {
+        this.importCellAndCheck(
+                "1999/12/31",
+                "1999/12/31",
+                LocalDate.of(1999, 12, 31)
+        );
+    }
+
+    @Test
+    public void testImportCellsFormula() {
+        this.importCellAndCheck(
+                "=1+2",
+                "=1+2",
+                number(1 + 2)
+        );
+    }
+
+    @Test
+    public void testImportCellsTextNumberAndFormula() {
         final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
         final SpreadsheetEngineContext context = this.createContext(engine);
 
-        final SpreadsheetCell a1 = this.cell("a1", "=1+2");
-        final SpreadsheetCell a1Formatted = this.formattedCell(
-                a1,
-                number(3)
+        engine.importCells(
+                new StringReader("hello,5,=b1*2"),
+                SpreadsheetCellReference.A1,
+                context
         );
 
-        final SpreadsheetCell b2 = this.cell("b2", "=4+5");
-        final SpreadsheetCell b2Formatted = this.formattedCell(
-                b2,
-                number(9)
+        this.loadCellAndCheckFormulaAndValue(
+                engine,
+                SpreadsheetCellReference.A1,
+                SpreadsheetEngineEvaluation.SKIP_EVALUATE,
+                context,
+                "'hello",
+                "hello"
         );
 
-        this.saveCellsAndCheck(
+        this.loadCellAndCheckFormulaAndValue(
                 engine,
-                Sets.of(
-                        a1, b2
-                ),
+                SpreadsheetSelection.parseCell("C1"),
+                SpreadsheetEngineEvaluation.SKIP_EVALUATE,
                 context,
-                SpreadsheetDelta.EMPTY
-                        .setCells(
-                                Sets.of(
-                                        a1Formatted,
-                                        b2Formatted
-                                )
-                        ).setColumnWidths(
-                                columnWidths("A,B")
-                        ).setRowHeights(
-                                rowHeights("1,2")
-                        )
+                "=b1*2",
+                number(5 * 2)
         );
+    }
 
-        final SpreadsheetStoreRepository repository = context.storeRepository();
-        final SpreadsheetCellStore cellStore = repository.cells();
-        final SpreadsheetLabelStore labelStore = repository.labels();
-        final SpreadsheetExpressionReferenceStore<SpreadsheetCellReference> cellReferenceStore = repository.cellReferences();
+    private void importCellAndCheck(final String value,
+                                    final String formula,
+                                    final Object expected) {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final SpreadsheetEngineContext context = this.createContext(engine);
 
-        this.loadCellStoreAndCheck(
-                cellStore,
-                a1Formatted,
-                b2Formatted
+        engine.importCells(
+                new StringReader(value),
+                SpreadsheetCellReference.A1,
+                context
+        );
+
+        this.loadCellAndCheckFormulaAndValue(
+                engine,
+                SpreadsheetCellReference.A1,
+                SpreadsheetEngineEvaluation.SKIP_EVALUATE,
+                context,
+                formula,
+                expected
         );
-        this.loadLabelStoreAndCheck(labelStore);
-        this.countAndCheck(cellReferenceStore, 0);
     }
 
     @Test
-    public void testSaveCellsOnlyWithCrossReferences() {
+    public void testImportCellsMoreThanChunk() {
         final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
         final SpreadsheetEngineContext context = this.createContext(engine);
 
-        final SpreadsheetCell a1 = this.cell("a1", "=100");
-        final SpreadsheetCell a1Formatted = this.formattedCell(
-                a1,
-                number(100)
-        );
+        final int rows = BasicSpreadsheetEngineImportCells.CHUNK + 2;
 
-        final SpreadsheetCell b2 = this.cell("b2", "=a1+2");
-        final SpreadsheetCell b2Formatted = this.formattedCell(
-                b2,
-                number(100 + 2)
+        // the first cell references the last cell, which is saved in a later chunk.
+        final StringBuilder csv = new StringBuilder();
+        csv.append("=a")
+                .append(rows)
+                .append("*2\n");
+        for (int i = 1; i < rows - 1; i++) {
+            csv.append(i)
+                    .append('\n');
+        }
+        csv.append("5");
+
+        this.checkEquals(
+                SpreadsheetDelta.EMPTY
+                        .setWindow(
+                                SpreadsheetSelection.parseWindow("A1:A" + rows)
+                        ),
+                engine.importCells(
+                        new StringReader(csv.toString()),
+                        SpreadsheetCellReference.A1,
+                        context
+                )
         );
 
-        this.saveCellsAndCheck(
+        this.countAndCheck(context.storeRepository().cells(), rows);
+
+        this.loadCellAndCheckFormulaAndValue(
                 engine,
-                Sets.of(
-                        a1, b2
-                ),
+                SpreadsheetCellReference.A1,
+                SpreadsheetEngineEvaluation.SKIP_EVALUATE,
                 context,
-                SpreadsheetDelta.EMPTY
-                        .setCells(
-                                Sets.of(
-                                        a1Formatted,
-                                        b2Formatted
-                                )
-                        ).setColumnWidths(
-                                columnWidths("A,B")
-                        ).setRowHeights(
-                                rowHeights("1,2")
-                        )
+                "=a" + rows + "*2",
+                number(5 * 2)
         );
+    }
 
-        final SpreadsheetStoreRepository repository = context.storeRepository();
-        final SpreadsheetCellStore cellStore = repository.cells();
-        final SpreadsheetLabelStore labelStore = repository.labels();
-        final SpreadsheetExpressionReferenceStore<SpreadsheetCellReference> cellReferenceStore = repository.cellReferences();
+    @Test
+    public void testImportCellsEvaluatesEachCellOnce() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final CollectingSpreadsheetEngineTracer tracer = CollectingSpreadsheetEngineTracer.with(System::nanoTime);
+        final SpreadsheetEngineContext context = this.createContext(
+                DEFAULT_YEAR,
+                engine,
+                this.metadata(),
+                this.createSpreadsheetStoreRepository(SpreadsheetCellStores.treeMap()),
+                tracer
+        );
 
-        this.loadCellStoreAndCheck(
-                cellStore,
-                a1Formatted,
-                b2Formatted
+        engine.importCells(
+                new StringReader("=b1+1,=c1+10,=100"),
+                SpreadsheetCellReference.A1,
+                context
+        );
+
+        this.checkEquals(
+                3L,
+                tracer.count(SpreadsheetEngineMetric.EVALUATE),
+                () -> tracer.toString()
         );
-        this.loadLabelStoreAndCheck(labelStore);
-        this.countAndCheck(cellReferenceStore, 1); // b2 -> a1
     }
 
     @Test
-    public void testSaveCellsOnlyWithCrossReferences2() {
+    public void testImportCellsMoreThanChunkEvaluatesForwardReferenceAgain() {
         final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
-        final SpreadsheetEngineContext context = this.createContext(engine);
+        final CollectingSpreadsheetEngineTracer tracer = CollectingSpreadsheetEngineTracer.with(System::nanoTime);
+        final SpreadsheetEngineContext context = this.createContext(
+                DEFAULT_YEAR,
+                engine,
+                this.metadata(),
+                this.createSpreadsheetStoreRepository(SpreadsheetCellStores.treeMap()),
+                tracer
+        );
 
-        final SpreadsheetCell a1 = this.cell("a1", "=b2+1");
-        final SpreadsheetCell a1Formatted = this.formattedCell(
-                a1,
-                number(1000 + 1)
+        final int rows = BasicSpreadsheetEngineImportCells.CHUNK + 1;
+
+        // the first cell references the last cell, which is evaluated by the second chunk.
+        final StringBuilder csv = new StringBuilder();
+        csv.append("=a")
+                .append(rows)
+                .append("+1\n");
+        for (int i = 1; i < rows; i++) {
+            csv.append("=")
+                    .append(i)
+                    .append('\n');
+        }
+
+        engine.importCells(
+                new StringReader(csv.toString()),
+                SpreadsheetCellReference.A1,
+                context
         );
 
-        final SpreadsheetCell b2 = this.cell("b2", "=1000");
-        final SpreadsheetCell b2Formatted = this.formattedCell(
-                b2,
-                number(1000)
+        this.checkEquals(
+                rows + 1L,
+                tracer.count(SpreadsheetEngineMetric.EVALUATE),
+                () -> tracer.toString()
         );
 
-        this.saveCellsAndCheck(
+        this.loadCellAndCheckFormulaAndValue(
                 engine,
-                Sets.of(
-                        a1, b2
-                ),
+                SpreadsheetCellReference.A1,
+                SpreadsheetEngineEvaluation.SKIP_EVALUATE,
                 context,
-                SpreadsheetDelta.EMPTY
-                        .setCells(
-                                Sets.of(
-                                        a1Formatted,
-                                        b2Formatted
-                                )
-                        ).setColumnWidths(
-                                columnWidths("A,B")
-                        ).setRowHeights(
-                                rowHeights("1,2")
-                        )
+                "=a" + rows + "+1",
+                number(rows)
         );
+    }
 
-        final SpreadsheetStoreRepository repository = context.storeRepository();
-        final SpreadsheetCellStore cellStore = repository.cells();
-        final SpreadsheetLabelStore labelStore = repository.labels();
-        final SpreadsheetExpressionReferenceStore<SpreadsheetCellReference> cellReferenceStore = repository.cellReferences();
+    // refreshVolatileCells............................................................................................
 
-        this.loadCellStoreAndCheck(
-                cellStore,
-                a1Formatted,
-                b2Formatted
+    @Test
+    public void testRefreshVolatileCellsWithNullContextFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> this.createSpreadsheetEngine()
+                        .refreshVolatileCells(null)
         );
-        this.loadLabelStoreAndCheck(labelStore);
-        this.countAndCheck(cellReferenceStore, 1); // b2 -> a1
     }
 
     @Test
-    public void testSaveCellsOnlyWithCrossReferences3() {
+    public void testRefreshVolatileCellsNone() {
         final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
         final SpreadsheetEngineContext context = this.createContext(engine);
 
-        final SpreadsheetCell a1 = this.cell("a1", "=b2+100");
-        final SpreadsheetCell a1Formatted = this.formattedCell(
-                a1,
-                number(1000 + 100)
-        );
+        engine.saveCell(this.cell("a1", "=1"), context);
+        engine.saveCell(this.cell("b1", "=a1+10"), context);
 
-        final SpreadsheetCell b2 = this.cell("b2", "=1000");
-        final SpreadsheetCell b2Formatted = this.formattedCell(
-                b2,
-                number(1000)
+        this.refreshVolatileCellsAndCheck(
+                engine,
+                context
         );
+    }
 
-        final SpreadsheetCell c3 = this.cell("c3", "=a1+1");
-        final SpreadsheetCell c3Formatted = this.formattedCell(
-                c3,
-                number(1000 + 100 + 1)
-        );
+    @Test
+    public void testRefreshVolatileCells() {
+        final BasicSpreadsheetEngine engine = this.createSpreadsheetEngine();
+        final SpreadsheetEngineContext context = this.createContext(engine);
 
-        this.saveCellsAndCheck(
+        engine.saveCell(this.cell("a1", "=BasicSpreadsheetEngineTestNumberParameter(1)"), context);
+        engine.saveCell(this.cell("b1", "=a1+10"), context);
+        engine.saveCell(this.cell("c1", "=2"), context);
+
+        this.refreshVolatileCellsAndCheck(
                 engine,
-                Sets.of(
-                        a1, b2, c3
-                ),
                 context,
-                SpreadsheetDelta.EMPTY
-                        .setCells(
-                                Sets.of(
-                                        a1Formatted,
-                                        b2Formatted,
-                                        c3Formatted
-                                )
-                        ).setColumnWidths(
-                                columnWidths("A,B,C")
-                        ).setRowHeights(
-                                rowHeights("1,2,3")
-                        )
+                "A1",
+                "B1"
         );
+    }
 
-        final SpreadsheetStoreRepository repository = context.storeRepository();
-        final SpreadsheetCellStore cellStore = repository.cells();
-        final SpreadsheetLabelStore labelStore = repository.labels();
-        final SpreadsheetExpressionReferenceStore<SpreadsheetCellReference> cellReferenceStore = repository.cellReferences();
+    private void refreshVolatileCellsAndCheck(final BasicSpreadsheetEngine engine,
+                                              final SpreadsheetEngineContext context,
+                                              final String... cells) {
+        final Set<SpreadsheetCellReference> expected = Sets.sorted();
+        for (final String cell : cells) {
+            expected.add(SpreadsheetSelection.parseCell(cell));
+        }
 
-        this.loadCellStoreAndCheck(
-                cellStore,
-                a1Formatted,
-                b2Formatted,
-                c3Formatted
+        final Set<SpreadsheetCellReference> refreshed = Sets.sorted();
+        for (final SpreadsheetCell cell : engine.refreshVolatileCells(context).cells()) {
+            refreshed.add(cell.reference());
+        }
+
+        this.checkEquals(
+                expected,
+                refreshed,
+                "refreshVolatileCells"
         );
-        this.loadLabelStoreAndCheck(labelStore);
-        this.countAndCheck(cellReferenceStore, 2);
     }
 
     // deleteCell....................................................................................................
@@ -11212,12 +12294,14 @@ public final class BasicSpreadsheetEngineTest extends BasicSpreadsheetEngineTest
                         SpreadsheetCellStores.treeMap(),
                         SpreadsheetExpressionReferenceStores.treeMap(),
                         SpreadsheetColumnStores.treeMap(),
+                        SpreadsheetCellRangeStores.treeMap(),
                         SpreadsheetGroupStores.fake(),
                         SpreadsheetLabelStores.treeMap(),
                         SpreadsheetExpressionReferenceStores.treeMap(),
                         SpreadsheetMetadataStores.fake(),
                         SpreadsheetCellRangeStores.treeMap(),
                         SpreadsheetCellRangeStores.treeMap(),
+                        SpreadsheetCellRangeStores.treeMap(),
                         SpreadsheetRowStores.treeMap(),
                         SpreadsheetUserStores.fake()
                 )
@@ -11248,8 +12332,55 @@ public final class BasicSpreadsheetEngineTest extends BasicSpreadsheetEngineTest
                                                    final SpreadsheetEngine engine,
                                                    final SpreadsheetMetadata metadata, // required by ranges tests with frozen columns/rows.
                                                    final SpreadsheetStoreRepository storeRepository) {
+        return this.createContext(
+                defaultYear,
+                engine,
+                metadata,
+                storeRepository,
+                SpreadsheetEngineTracers.none()
+        );
+    }
+
+    private SpreadsheetEngineContext createContext(final int defaultYear,
+                                                   final SpreadsheetEngine engine,
+                                                   final SpreadsheetMetadata metadata,
+                                                   final SpreadsheetStoreRepository storeRepository,
+                                                   final SpreadsheetEngineTracer tracer) {
+        return this.createContext(
+                defaultYear,
+                engine,
+                metadata,
+                storeRepository,
+                tracer,
+                false,
+                false
+        );
+    }
+
+    private SpreadsheetEngineContext createContext(final int defaultYear,
+                                                   final SpreadsheetEngine engine,
+                                                   final SpreadsheetMetadata metadata,
+                                                   final SpreadsheetStoreRepository storeRepository,
+                                                   final SpreadsheetEngineTracer tracer,
+                                                   final boolean foldConstants,
+                                                   final boolean discardTokens) {
         return new FakeSpreadsheetEngineContext() {
 
+            @Override
+            public SpreadsheetEngineTracer tracer() {
+                return tracer;
+            }
+
+            @Override
+            public boolean isFoldingConstants() {
+                return foldConstants;
+            }
+
+            @Override
+            public boolean isDiscardingTokens() {
+                return discardTokens;
+            }
+
             @Override
             public SpreadsheetSelection resolveIfLabel(final SpreadsheetSelection selection) {
                 if (selection.isLabelName()) {
@@ -11291,15 +12422,29 @@ public final class BasicSpreadsheetEngineTest extends BasicSpreadsheetEngineTest
             public Object evaluate(final Expression node,
                                    final Optional<SpreadsheetCell> cell) {
                 return node.toValue(
-                        ExpressionEvaluationContexts.basic(
-                                this.metadata().expressionNumberKind(),
-                                this.functions(),
-                                SpreadsheetErrorKind::translate,
-                                this.references(),
-                                SpreadsheetExpressionEvaluationContexts.referenceNotFound(),
-                                CaseSensitivity.INSENSITIVE,
-                                this.converterContext()
-                        )
+                        this.expressionEvaluationContext()
+                );
+            }
+
+            @Override
+            public SpreadsheetDataValidatorContext spreadsheetDataValidatorContext(final SpreadsheetCell cell,
+                                                                                   final Object value) {
+                return SpreadsheetDataValidatorContexts.basic(
+                        cell.reference(),
+                        value,
+                        this.expressionEvaluationContext()
+                );
+            }
+
+            private ExpressionEvaluationContext expressionEvaluationContext() {
+                return ExpressionEvaluationContexts.basic(
+                        this.metadata().expressionNumberKind(),
+                        this.functions(),
+                        SpreadsheetErrorKind::translate,
+                        this.references(),
+                        SpreadsheetExpressionEvaluationContexts.referenceNotFound(),
+                        CaseSensitivity.INSENSITIVE,
+                        this.converterContext()
                 );
             }
 
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.engine;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.ToStringTesting;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+
+public final class CollectingSpreadsheetEngineTracerSpanTest implements ClassTesting2<CollectingSpreadsheetEngineTracerSpan>,
+        ToStringTesting<CollectingSpreadsheetEngineTracerSpan> {
+
+    @Test
+    public void testToString() {
+        this.toStringAndCheck(
+                CollectingSpreadsheetEngineTracerSpan.with(
+                        SpreadsheetEngineMetric.EVALUATE,
+                        0,
+                        CollectingSpreadsheetEngineTracer.with(() -> 0)
+                ),
+                "EVALUATE"
+        );
+    }
+
+    @Override
+    public Class<CollectingSpreadsheetEngineTracerSpan> type() {
+        return CollectingSpreadsheetEngineTracerSpan.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
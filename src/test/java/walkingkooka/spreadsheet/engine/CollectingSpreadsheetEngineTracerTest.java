@@ -0,0 +1,244 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.engine;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.ToStringTesting;
+import walkingkooka.collect.list.Lists;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.reflect.TypeNameTesting;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class CollectingSpreadsheetEngineTracerTest implements ClassTesting2<CollectingSpreadsheetEngineTracer>,
+        TypeNameTesting<CollectingSpreadsheetEngineTracer>,
+        ToStringTesting<CollectingSpreadsheetEngineTracer> {
+
+    @Test
+    public void testWithNullNanosFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> CollectingSpreadsheetEngineTracer.with(null)
+        );
+    }
+
+    @Test
+    public void testStartNullMetricFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> this.createTracer()
+                        .start(null)
+        );
+    }
+
+    @Test
+    public void testIncrementNullMetricFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> this.createTracer()
+                        .increment(null, 1)
+        );
+    }
+
+    @Test
+    public void testStartAndClose() {
+        final CollectingSpreadsheetEngineTracer tracer = this.createTracer();
+
+        tracer.start(SpreadsheetEngineMetric.PARSE)
+                .close();
+
+        this.countAndNanosCheck(tracer, SpreadsheetEngineMetric.PARSE, 1, 10);
+    }
+
+    @Test
+    public void testStartAndCloseTwice() {
+        final CollectingSpreadsheetEngineTracer tracer = this.createTracer();
+
+        final SpreadsheetEngineTracerSpan span = tracer.start(SpreadsheetEngineMetric.PARSE);
+        span.close();
+        span.close();
+
+        this.countAndNanosCheck(tracer, SpreadsheetEngineMetric.PARSE, 1, 10);
+    }
+
+    @Test
+    public void testStartNested() {
+        final CollectingSpreadsheetEngineTracer tracer = this.createTracer();
+
+        try (final SpreadsheetEngineTracerSpan outer = tracer.start(SpreadsheetEngineMetric.SAVE_CELL)) {
+            tracer.start(SpreadsheetEngineMetric.PARSE)
+                    .close();
+            tracer.start(SpreadsheetEngineMetric.EVALUATE)
+                    .close();
+        }
+
+        this.countAndNanosCheck(tracer, SpreadsheetEngineMetric.SAVE_CELL, 1, 50);
+        this.countAndNanosCheck(tracer, SpreadsheetEngineMetric.PARSE, 1, 10);
+        this.countAndNanosCheck(tracer, SpreadsheetEngineMetric.EVALUATE, 1, 10);
+    }
+
+    @Test
+    public void testStartAndCloseManyThreads() throws Exception {
+        final CollectingSpreadsheetEngineTracer tracer = CollectingSpreadsheetEngineTracer.with(() -> 1);
+
+        final int threads = 4;
+        final int spans = 1000;
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> futures = Lists.array();
+            for (int i = 0; i < threads; i++) {
+                futures.add(
+                        executor.submit(() -> {
+                            for (int j = 0; j < spans; j++) {
+                                tracer.start(SpreadsheetEngineMetric.FORMAT)
+                                        .close();
+                                tracer.increment(SpreadsheetEngineMetric.REFRESHED_CELLS, 1);
+                            }
+                        })
+                );
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        this.countAndNanosCheck(tracer, SpreadsheetEngineMetric.FORMAT, threads * spans, 0);
+        this.countAndNanosCheck(tracer, SpreadsheetEngineMetric.REFRESHED_CELLS, threads * spans, 0);
+    }
+
+    @Test
+    public void testStartAndCloseSeveralTimes() {
+        final CollectingSpreadsheetEngineTracer tracer = this.createTracer();
+
+        tracer.start(SpreadsheetEngineMetric.FORMAT)
+                .close();
+        tracer.start(SpreadsheetEngineMetric.FORMAT)
+                .close();
+
+        this.countAndNanosCheck(tracer, SpreadsheetEngineMetric.FORMAT, 2, 20);
+    }
+
+    @Test
+    public void testIncrement() {
+        final CollectingSpreadsheetEngineTracer tracer = this.createTracer();
+
+        tracer.increment(SpreadsheetEngineMetric.REFRESHED_CELLS, 2);
+        tracer.increment(SpreadsheetEngineMetric.REFRESHED_CELLS, 3);
+
+        this.countAndNanosCheck(tracer, SpreadsheetEngineMetric.REFRESHED_CELLS, 5, 0);
+    }
+
+    @Test
+    public void testMissing() {
+        this.countAndNanosCheck(
+                this.createTracer(),
+                SpreadsheetEngineMetric.STORE,
+                0,
+                0
+        );
+    }
+
+    private void countAndNanosCheck(final CollectingSpreadsheetEngineTracer tracer,
+                                    final SpreadsheetEngineMetric metric,
+                                    final long count,
+                                    final long nanos) {
+        this.checkEquals(
+                count,
+                tracer.count(metric),
+                () -> "count " + metric
+        );
+        this.checkEquals(
+                nanos,
+                tracer.nanos(metric),
+                () -> "nanos " + metric
+        );
+    }
+
+    // ToString.........................................................................................................
+
+    @Test
+    public void testToStringEmpty() {
+        this.toStringAndCheck(
+                this.createTracer(),
+                ""
+        );
+    }
+
+    @Test
+    public void testToString() {
+        final CollectingSpreadsheetEngineTracer tracer = this.createTracer();
+
+        tracer.increment(SpreadsheetEngineMetric.REFRESHED_CELLS, 3);
+        tracer.start(SpreadsheetEngineMetric.PARSE)
+                .close();
+        tracer.start(SpreadsheetEngineMetric.PARSE)
+                .close();
+
+        this.toStringAndCheck(
+                tracer,
+                "PARSE=2 20ns, REFRESHED_CELLS=3"
+        );
+    }
+
+    /**
+     * Creates a {@link CollectingSpreadsheetEngineTracer} with a clock that advances 10 nanos each time it is read.
+     */
+    private CollectingSpreadsheetEngineTracer createTracer() {
+        final long[] nanos = new long[1];
+
+        return CollectingSpreadsheetEngineTracer.with(
+                () -> {
+                    final long now = nanos[0];
+                    nanos[0] = now + 10;
+                    return now;
+                }
+        );
+    }
+
+    // ClassTesting.....................................................................................................
+
+    @Override
+    public Class<CollectingSpreadsheetEngineTracer> type() {
+        return CollectingSpreadsheetEngineTracer.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PUBLIC;
+    }
+
+    // TypeNameTesting..................................................................................................
+
+    @Override
+    public String typeNamePrefix() {
+        return "Collecting";
+    }
+
+    @Override
+    public String typeNameSuffix() {
+        return SpreadsheetEngineTracer.class.getSimpleName();
+    }
+}
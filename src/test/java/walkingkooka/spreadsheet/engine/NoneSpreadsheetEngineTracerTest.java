@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.engine;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.ToStringTesting;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.reflect.TypeNameTesting;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class NoneSpreadsheetEngineTracerTest implements ClassTesting2<NoneSpreadsheetEngineTracer>,
+        TypeNameTesting<NoneSpreadsheetEngineTracer>,
+        ToStringTesting<NoneSpreadsheetEngineTracer> {
+
+    @Test
+    public void testStartNullMetricFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> NoneSpreadsheetEngineTracer.INSTANCE.start(null)
+        );
+    }
+
+    @Test
+    public void testIncrementNullMetricFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> NoneSpreadsheetEngineTracer.INSTANCE.increment(null, 1)
+        );
+    }
+
+    @Test
+    public void testStart() {
+        final SpreadsheetEngineTracerSpan span = NoneSpreadsheetEngineTracer.INSTANCE.start(SpreadsheetEngineMetric.PARSE);
+        assertSame(
+                NoneSpreadsheetEngineTracer.INSTANCE,
+                span
+        );
+        span.close();
+    }
+
+    @Test
+    public void testIncrement() {
+        NoneSpreadsheetEngineTracer.INSTANCE.increment(SpreadsheetEngineMetric.REFRESHED_CELLS, 1);
+    }
+
+    @Test
+    public void testToString() {
+        this.toStringAndCheck(
+                NoneSpreadsheetEngineTracer.INSTANCE,
+                ""
+        );
+    }
+
+    // ClassTesting.....................................................................................................
+
+    @Override
+    public Class<NoneSpreadsheetEngineTracer> type() {
+        return NoneSpreadsheetEngineTracer.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+
+    // TypeNameTesting..................................................................................................
+
+    @Override
+    public String typeNamePrefix() {
+        return "None";
+    }
+
+    @Override
+    public String typeNameSuffix() {
+        return SpreadsheetEngineTracer.class.getSimpleName();
+    }
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.ToStringTesting;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.SpreadsheetFormula;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+import walkingkooka.spreadsheet.store.SpreadsheetCellStore;
+import walkingkooka.spreadsheet.store.SpreadsheetCellStores;
+import walkingkooka.spreadsheet.store.repo.FakeSpreadsheetStoreRepository;
+import walkingkooka.spreadsheet.store.repo.SpreadsheetStoreRepository;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class SpreadsheetEngineViewportSessionTest implements ClassTesting2<SpreadsheetEngineViewportSession>,
+        ToStringTesting<SpreadsheetEngineViewportSession> {
+
+    private final static Set<SpreadsheetCellRange> WINDOW = Sets.of(
+            SpreadsheetSelection.parseCellRange("A1:B2")
+    );
+
+    private final static SpreadsheetCell A1 = cell("A1", "=1");
+    private final static SpreadsheetCell B2 = cell("B2", "=2");
+    private final static SpreadsheetCell C3 = cell("C3", "=3");
+
+    @Test
+    public void testWithNullEngineFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> SpreadsheetEngineViewportSession.with(null)
+        );
+    }
+
+    @Test
+    public void testLoadCellsFirst() {
+        this.save(A1, B2);
+
+        this.loadCellsAndCheck(
+                this.createSession(),
+                WINDOW,
+                WINDOW,
+                A1, B2
+        );
+    }
+
+    @Test
+    public void testLoadCellsUnchanged() {
+        this.save(A1, B2);
+
+        final SpreadsheetEngineViewportSession session = this.createSession();
+        this.loadCells(session, WINDOW);
+
+        this.loadCellsAndCheck(
+                session,
+                WINDOW,
+                Sets.empty()
+        );
+    }
+
+    @Test
+    public void testLoadCellsChanged() {
+        this.save(A1, B2);
+
+        final SpreadsheetEngineViewportSession session = this.createSession();
+        this.loadCells(session, WINDOW);
+
+        final SpreadsheetCell b2 = cell("B2", "=22");
+        this.save(b2);
+
+        this.loadCellsAndCheck(
+                session,
+                WINDOW,
+                Sets.of(
+                        SpreadsheetSelection.parseCellRange("B2")
+                ),
+                b2
+        );
+    }
+
+    @Test
+    public void testLoadCellsChangedOutsideWindow() {
+        this.save(A1, B2);
+
+        final SpreadsheetEngineViewportSession session = this.createSession();
+        this.loadCells(session, WINDOW);
+
+        this.save(C3);
+
+        this.loadCellsAndCheck(
+                session,
+                WINDOW,
+                Sets.empty()
+        );
+    }
+
+    @Test
+    public void testLoadCellsDeleted() {
+        this.save(A1, B2);
+
+        final SpreadsheetEngineViewportSession session = this.createSession();
+        this.loadCells(session, WINDOW);
+
+        this.store.delete(B2.reference());
+
+        this.checkEquals(
+                SpreadsheetDelta.EMPTY.setDeletedCells(Sets.of(B2.reference()))
+                        .setWindow(WINDOW),
+                this.loadCells(session, WINDOW)
+        );
+        this.checkEquals(
+                Sets.of(
+                        SpreadsheetSelection.parseCellRange("B2")
+                ),
+                this.loaded,
+                "loaded"
+        );
+    }
+
+    @Test
+    public void testLoadCellsScrolled() {
+        this.save(A1, B2, C3);
+
+        final SpreadsheetEngineViewportSession session = this.createSession();
+        this.loadCells(session, WINDOW);
+
+        this.loadCellsAndCheck(
+                session,
+                Sets.of(
+                        SpreadsheetSelection.parseCellRange("B2:C3")
+                ),
+                Sets.of(
+                        SpreadsheetSelection.parseCellRange("B3:C3"),
+                        SpreadsheetSelection.parseCellRange("C2")
+                ),
+                C3
+        );
+    }
+
+    @Test
+    public void testLoadCellsScrolledAndChanged() {
+        this.save(A1, B2, C3);
+
+        final SpreadsheetEngineViewportSession session = this.createSession();
+        this.loadCells(session, WINDOW);
+
+        final SpreadsheetCell a1 = cell("A1", "=11");
+        final SpreadsheetCell b2 = cell("B2", "=22");
+        this.save(a1, b2);
+
+        this.loadCellsAndCheck(
+                session,
+                Sets.of(
+                        SpreadsheetSelection.parseCellRange("B2:C3")
+                ),
+                Sets.of(
+                        SpreadsheetSelection.parseCellRange("B3:C3"),
+                        SpreadsheetSelection.parseCellRange("C2"),
+                        SpreadsheetSelection.parseCellRange("B2")
+                ),
+                b2, C3
+        );
+    }
+
+    @Test
+    public void testLoadCellsScrolledBack() {
+        this.save(A1, B2);
+
+        final SpreadsheetEngineViewportSession session = this.createSession();
+        this.loadCells(session, WINDOW);
+        this.loadCells(
+                session,
+                Sets.of(
+                        SpreadsheetSelection.parseCellRange("C3:D4")
+                )
+        );
+
+        this.loadCellsAndCheck(
+                session,
+                WINDOW,
+                WINDOW,
+                A1, B2
+        );
+    }
+
+    @Test
+    public void testReset() {
+        this.save(A1, B2);
+
+        final SpreadsheetEngineViewportSession session = this.createSession();
+        this.loadCells(session, WINDOW);
+
+        session.reset();
+
+        this.loadCellsAndCheck(
+                session,
+                WINDOW,
+                WINDOW,
+                A1, B2
+        );
+    }
+
+    @Test
+    public void testClose() {
+        this.save(A1, B2);
+
+        final SpreadsheetEngineViewportSession session = this.createSession();
+        this.loadCells(session, WINDOW);
+
+        session.close();
+        this.save(cell("B2", "=22"));
+
+        this.loadCellsAndCheck(
+                session,
+                WINDOW,
+                WINDOW,
+                A1, cell("B2", "=22")
+        );
+    }
+
+    @Test
+    public void testToString() {
+        final SpreadsheetEngineViewportSession session = this.createSession();
+        this.loadCells(session, WINDOW);
+
+        this.toStringAndCheck(
+                session,
+                this.engine + " " + WINDOW
+        );
+    }
+
+    private SpreadsheetEngineViewportSession createSession() {
+        return SpreadsheetEngineViewportSession.with(this.engine);
+    }
+
+    private void save(final SpreadsheetCell... cells) {
+        for (final SpreadsheetCell cell : cells) {
+            this.store.save(cell);
+        }
+    }
+
+    private SpreadsheetDelta loadCells(final SpreadsheetEngineViewportSession session,
+                                       final Set<SpreadsheetCellRange> window) {
+        return session.loadCells(
+                window,
+                SpreadsheetEngineEvaluation.COMPUTE_IF_NECESSARY,
+                SpreadsheetDeltaProperties.ALL,
+                this.context
+        );
+    }
+
+    private void loadCellsAndCheck(final SpreadsheetEngineViewportSession session,
+                                   final Set<SpreadsheetCellRange> window,
+                                   final Set<SpreadsheetCellRange> loaded,
+                                   final SpreadsheetCell... cells) {
+        this.checkEquals(
+                SpreadsheetDelta.EMPTY.setCells(Sets.of(cells))
+                        .setWindow(window),
+                this.loadCells(session, window),
+                () -> "loadCells " + window
+        );
+        this.checkEquals(
+                loaded,
+                this.loaded,
+                () -> "loaded " + window
+        );
+    }
+
+    private static SpreadsheetCell cell(final String reference,
+                                        final String formula) {
+        return SpreadsheetSelection.parseCell(reference)
+                .setFormula(SpreadsheetFormula.EMPTY.setText(formula));
+    }
+
+    private final SpreadsheetCellStore store = SpreadsheetCellStores.treeMap();
+
+    private final SpreadsheetEngineContext context = new FakeSpreadsheetEngineContext() {
+        @Override
+        public SpreadsheetStoreRepository storeRepository() {
+            return new FakeSpreadsheetStoreRepository() {
+                @Override
+                public SpreadsheetCellStore cells() {
+                    return SpreadsheetEngineViewportSessionTest.this.store;
+                }
+            };
+        }
+    };
+
+    /**
+     * The ranges passed to the last {@link SpreadsheetEngine#loadCells(Set, SpreadsheetEngineEvaluation, Set, SpreadsheetEngineContext)}.
+     */
+    private Set<SpreadsheetCellRange> loaded;
+
+    private final SpreadsheetEngine engine = new FakeSpreadsheetEngine() {
+        @Override
+        public SpreadsheetDelta loadCells(final Set<SpreadsheetCellRange> ranges,
+                                          final SpreadsheetEngineEvaluation evaluation,
+                                          final Set<SpreadsheetDeltaProperties> deltaProperties,
+                                          final SpreadsheetEngineContext context) {
+            SpreadsheetEngineViewportSessionTest.this.loaded = ranges;
+
+            final Set<SpreadsheetCell> cells = Sets.ordered();
+            for (final SpreadsheetCellRange range : ranges) {
+                range.cellStream()
+                        .forEach(r -> context.storeRepository()
+                                .cells()
+                                .load(r)
+                                .ifPresent(cells::add)
+                        );
+            }
+
+            return SpreadsheetDelta.EMPTY.setCells(cells);
+        }
+
+        @Override
+        public String toString() {
+            return "FakeSpreadsheetEngine";
+        }
+    };
+
+    @Override
+    public Class<SpreadsheetEngineViewportSession> type() {
+        return SpreadsheetEngineViewportSession.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PUBLIC;
+    }
+}
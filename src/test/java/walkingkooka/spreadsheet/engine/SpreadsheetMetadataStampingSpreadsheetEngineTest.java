@@ -25,6 +25,7 @@ import walkingkooka.spreadsheet.SpreadsheetCell;
 import walkingkooka.spreadsheet.SpreadsheetFormula;
 import walkingkooka.spreadsheet.SpreadsheetId;
 import walkingkooka.spreadsheet.conditionalformat.SpreadsheetConditionalFormattingRule;
+import walkingkooka.spreadsheet.datavalidation.SpreadsheetDataValidator;
 import walkingkooka.spreadsheet.format.SpreadsheetFormatter;
 import walkingkooka.spreadsheet.format.SpreadsheetText;
 import walkingkooka.spreadsheet.format.pattern.SpreadsheetParsePattern;
@@ -33,6 +34,7 @@ import walkingkooka.spreadsheet.meta.SpreadsheetMetadataPropertyName;
 import walkingkooka.spreadsheet.meta.store.SpreadsheetMetadataStore;
 import walkingkooka.spreadsheet.meta.store.SpreadsheetMetadataStores;
 import walkingkooka.spreadsheet.parser.SpreadsheetParserToken;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
 import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetLabelName;
 import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
@@ -346,11 +348,13 @@ public final class SpreadsheetMetadataStampingSpreadsheetEngineTest implements S
         final SpreadsheetCellStore cells = SpreadsheetCellStores.treeMap();
         final SpreadsheetExpressionReferenceStore<SpreadsheetCellReference> cellReferences = SpreadsheetExpressionReferenceStores.treeMap();
         final SpreadsheetColumnStore columns = SpreadsheetColumnStores.treeMap();
+        final SpreadsheetCellRangeStore<SpreadsheetCellRange> conditionalFormattingRuleReferences = SpreadsheetCellRangeStores.treeMap();
         final SpreadsheetLabelStore labels = SpreadsheetLabelStores.treeMap();
         final SpreadsheetExpressionReferenceStore<SpreadsheetLabelName> labelReferences = SpreadsheetExpressionReferenceStores.treeMap();
         final SpreadsheetMetadataStore metadatas = SpreadsheetMetadataStores.treeMap();
         final SpreadsheetCellRangeStore<SpreadsheetCellReference> rangeToCells = SpreadsheetCellRangeStores.treeMap();
         final SpreadsheetCellRangeStore<SpreadsheetConditionalFormattingRule> rangeToConditionalFormattingRules = SpreadsheetCellRangeStores.treeMap();
+        final SpreadsheetCellRangeStore<SpreadsheetDataValidator<?>> rangeToValidators = SpreadsheetCellRangeStores.treeMap();
         final SpreadsheetRowStore rows = SpreadsheetRowStores.treeMap();
 
         metadatas.save(BEFORE);
@@ -379,6 +383,11 @@ public final class SpreadsheetMetadataStampingSpreadsheetEngineTest implements S
                         return columns;
                     }
 
+                    @Override
+                    public SpreadsheetCellRangeStore<SpreadsheetCellRange> conditionalFormattingRuleReferences() {
+                        return conditionalFormattingRuleReferences;
+                    }
+
                     @Override
                     public SpreadsheetLabelStore labels() {
                         return labels;
@@ -404,6 +413,11 @@ public final class SpreadsheetMetadataStampingSpreadsheetEngineTest implements S
                         return rangeToConditionalFormattingRules;
                     }
 
+                    @Override
+                    public SpreadsheetCellRangeStore<SpreadsheetDataValidator<?>> rangeToValidators() {
+                        return rangeToValidators;
+                    }
+
                     @Override
                     public SpreadsheetRowStore rows() {
                         return rows;
@@ -414,11 +428,13 @@ public final class SpreadsheetMetadataStampingSpreadsheetEngineTest implements S
                         return "cells: " + this.cells() +
                                 " cellReferences: " + cellReferences +
                                 " columns: " + this.columns() +
+                                " conditionalFormattingRuleReferences: " + this.conditionalFormattingRuleReferences() +
                                 " labels: " + this.labels() +
                                 " labelReferences: " + this.labelReferences() +
                                 " metadatas: " + this.metadatas() +
                                 " rangeToCells: " + this.rangeToCells() +
                                 " rangeToConditionalFormattingRules: " + this.rangeToConditionalFormattingRules() +
+                                " rangeToValidators: " + this.rangeToValidators() +
                                 " rows: " + this.rows();
                     }
                 };
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.engine;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.ToStringTesting;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.reflect.TypeNameTesting;
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.SpreadsheetFormula;
+import walkingkooka.spreadsheet.reference.SpreadsheetColumnReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class TracingSpreadsheetEngineTest implements ClassTesting2<TracingSpreadsheetEngine>,
+        TypeNameTesting<TracingSpreadsheetEngine>,
+        ToStringTesting<TracingSpreadsheetEngine> {
+
+    private final static SpreadsheetCell CELL = SpreadsheetSelection.parseCell("A1")
+            .setFormula(SpreadsheetFormula.EMPTY.setText("=1"));
+
+    @Test
+    public void testWithNullEngineFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> TracingSpreadsheetEngine.with(null)
+        );
+    }
+
+    @Test
+    public void testWithTracingSpreadsheetEngine() {
+        final TracingSpreadsheetEngine engine = TracingSpreadsheetEngine.with(SpreadsheetEngines.fake());
+        assertSame(
+                engine,
+                TracingSpreadsheetEngine.with(engine)
+        );
+    }
+
+    @Test
+    public void testSaveCell() {
+        final SpreadsheetDelta delta = SpreadsheetDelta.EMPTY.setCells(Sets.of(CELL));
+        final CollectingSpreadsheetEngineTracer tracer = this.tracer();
+
+        assertSame(
+                delta,
+                TracingSpreadsheetEngine.with(
+                        new FakeSpreadsheetEngine() {
+                            @Override
+                            public SpreadsheetDelta saveCell(final SpreadsheetCell cell,
+                                                             final SpreadsheetEngineContext context) {
+                                assertSame(CELL, cell, "cell");
+                                context.tracer()
+                                        .start(SpreadsheetEngineMetric.PARSE)
+                                        .close();
+                                return delta;
+                            }
+                        }
+                ).saveCell(CELL, this.context(tracer))
+        );
+
+        this.checkEquals(
+                "SAVE_CELL=1 3ns, PARSE=1 1ns",
+                tracer.toString()
+        );
+    }
+
+    @Test
+    public void testColumnWidth() {
+        final CollectingSpreadsheetEngineTracer tracer = this.tracer();
+
+        this.checkEquals(
+                100.0,
+                TracingSpreadsheetEngine.with(
+                        new FakeSpreadsheetEngine() {
+                            @Override
+                            public double columnWidth(final SpreadsheetColumnReference column,
+                                                      final SpreadsheetEngineContext context) {
+                                return 100;
+                            }
+                        }
+                ).columnWidth(
+                        SpreadsheetSelection.parseColumn("A"),
+                        this.context(tracer)
+                )
+        );
+
+        this.checkEquals(
+                1L,
+                tracer.count(SpreadsheetEngineMetric.COLUMN_WIDTH)
+        );
+    }
+
+    @Test
+    public void testSaveCellFailsSpanClosed() {
+        final CollectingSpreadsheetEngineTracer tracer = this.tracer();
+
+        final IllegalStateException thrown = new IllegalStateException("Thrown123");
+
+        assertSame(
+                thrown,
+                assertThrows(
+                        IllegalStateException.class,
+                        () -> TracingSpreadsheetEngine.with(
+                                new FakeSpreadsheetEngine() {
+                                    @Override
+                                    public SpreadsheetDelta saveCell(final SpreadsheetCell cell,
+                                                                     final SpreadsheetEngineContext context) {
+                                        throw thrown;
+                                    }
+                                }
+                        ).saveCell(CELL, this.context(tracer))
+                )
+        );
+
+        this.checkEquals(
+                1L,
+                tracer.count(SpreadsheetEngineMetric.SAVE_CELL)
+        );
+    }
+
+    private CollectingSpreadsheetEngineTracer tracer() {
+        final long[] nanos = new long[1];
+        return CollectingSpreadsheetEngineTracer.with(() -> nanos[0]++);
+    }
+
+    private SpreadsheetEngineContext context(final SpreadsheetEngineTracer tracer) {
+        return new FakeSpreadsheetEngineContext() {
+            @Override
+            public SpreadsheetEngineTracer tracer() {
+                return tracer;
+            }
+        };
+    }
+
+    // ToString.........................................................................................................
+
+    @Test
+    public void testToString() {
+        final SpreadsheetEngine engine = SpreadsheetEngines.fake();
+
+        this.toStringAndCheck(
+                TracingSpreadsheetEngine.with(engine),
+                engine.toString()
+        );
+    }
+
+    // ClassTesting.....................................................................................................
+
+    @Override
+    public Class<TracingSpreadsheetEngine> type() {
+        return TracingSpreadsheetEngine.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+
+    // TypeNameTesting..................................................................................................
+
+    @Override
+    public String typeNamePrefix() {
+        return "Tracing";
+    }
+
+    @Override
+    public String typeNameSuffix() {
+        return SpreadsheetEngine.class.getSimpleName();
+    }
+}
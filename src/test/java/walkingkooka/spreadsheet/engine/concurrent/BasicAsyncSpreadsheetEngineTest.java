@@ -0,0 +1,722 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine.concurrent;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.collect.list.Lists;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.reflect.TypeNameTesting;
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.SpreadsheetFormula;
+import walkingkooka.spreadsheet.SpreadsheetId;
+import walkingkooka.spreadsheet.engine.FakeSpreadsheetEngine;
+import walkingkooka.spreadsheet.engine.FakeSpreadsheetEngineContext;
+import walkingkooka.spreadsheet.engine.SpreadsheetDelta;
+import walkingkooka.spreadsheet.engine.SpreadsheetDeltaProperties;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineContext;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineEvaluation;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineViewportSession;
+import walkingkooka.spreadsheet.meta.SpreadsheetMetadata;
+import walkingkooka.spreadsheet.meta.SpreadsheetMetadataPropertyName;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+import walkingkooka.spreadsheet.store.SpreadsheetCellStore;
+import walkingkooka.spreadsheet.store.SpreadsheetCellStores;
+import walkingkooka.spreadsheet.store.repo.FakeSpreadsheetStoreRepository;
+import walkingkooka.spreadsheet.store.repo.SpreadsheetStoreRepository;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class BasicAsyncSpreadsheetEngineTest implements ClassTesting2<BasicAsyncSpreadsheetEngine>,
+        TypeNameTesting<BasicAsyncSpreadsheetEngine> {
+
+    private final static SpreadsheetCell CELL = SpreadsheetSelection.parseCell("A1")
+            .setFormula(SpreadsheetFormula.EMPTY.setText("=1"));
+
+    private final static Set<SpreadsheetCellRange> WINDOW = Sets.of(
+            SpreadsheetSelection.parseCellRange("A1:B2")
+    );
+
+    private final static int THREADS = 8;
+
+    private final static int MAX_PENDING = 100;
+
+    @Test
+    public void testWithNullEngineFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> BasicAsyncSpreadsheetEngine.with(
+                        null,
+                        Runnable::run,
+                        MAX_PENDING
+                )
+        );
+    }
+
+    @Test
+    public void testWithNullExecutorFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> BasicAsyncSpreadsheetEngine.with(
+                        new FakeSpreadsheetEngine(),
+                        null,
+                        MAX_PENDING
+                )
+        );
+    }
+
+    @Test
+    public void testWithInvalidMaxPendingFails() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> BasicAsyncSpreadsheetEngine.with(
+                        new FakeSpreadsheetEngine(),
+                        Runnable::run,
+                        0
+                )
+        );
+    }
+
+    @Test
+    public void testMissingSpreadsheetIdFails() {
+        assertThrows(
+                IllegalStateException.class,
+                () -> BasicAsyncSpreadsheetEngine.with(
+                        new FakeSpreadsheetEngine(),
+                        Runnable::run,
+                        MAX_PENDING
+                ).saveCell(
+                        CELL,
+                        this.context(SpreadsheetMetadata.EMPTY)
+                )
+        );
+    }
+
+    @Test
+    public void testSaveCell() throws Exception {
+        final SpreadsheetDelta delta = SpreadsheetDelta.EMPTY.setCells(Sets.of(CELL));
+
+        final BasicAsyncSpreadsheetEngine engine = BasicAsyncSpreadsheetEngine.with(
+                new FakeSpreadsheetEngine() {
+                    @Override
+                    public SpreadsheetDelta saveCell(final SpreadsheetCell cell,
+                                                     final SpreadsheetEngineContext context) {
+                        assertSame(CELL, cell, "cell");
+                        return delta;
+                    }
+                },
+                Runnable::run,
+                MAX_PENDING
+        );
+
+        assertSame(
+                delta,
+                engine.saveCell(CELL, this.context(1))
+                        .get()
+        );
+        assertEquals(0, engine.pending(), "pending");
+    }
+
+    @Test
+    public void testSaveCellFails() {
+        final BasicAsyncSpreadsheetEngine engine = BasicAsyncSpreadsheetEngine.with(
+                new FakeSpreadsheetEngine() {
+                    @Override
+                    public SpreadsheetDelta saveCell(final SpreadsheetCell cell,
+                                                     final SpreadsheetEngineContext context) {
+                        throw new IllegalArgumentException();
+                    }
+                },
+                Runnable::run,
+                MAX_PENDING
+        );
+
+        final ExecutionException thrown = assertThrows(
+                ExecutionException.class,
+                () -> engine.saveCell(CELL, this.context(1))
+                        .get()
+        );
+        assertEquals(IllegalArgumentException.class, thrown.getCause().getClass(), "cause");
+        assertEquals(0, engine.pending(), "pending");
+    }
+
+    @Test
+    public void testSaveCellExecutorRejects() {
+        final BasicAsyncSpreadsheetEngine engine = BasicAsyncSpreadsheetEngine.with(
+                new FakeSpreadsheetEngine(),
+                (r) -> {
+                    throw new RejectedExecutionException();
+                },
+                MAX_PENDING
+        );
+
+        final CompletableFuture<SpreadsheetDelta> future = engine.saveCell(CELL, this.context(1));
+        assertTrue(future.isCompletedExceptionally(), "completed exceptionally");
+        assertEquals(0, engine.pending(), "pending");
+    }
+
+    @Test
+    public void testSaveCellAfterFailureRuns() throws Exception {
+        final AtomicInteger saves = new AtomicInteger();
+
+        final BasicAsyncSpreadsheetEngine engine = BasicAsyncSpreadsheetEngine.with(
+                new FakeSpreadsheetEngine() {
+                    @Override
+                    public SpreadsheetDelta saveCell(final SpreadsheetCell cell,
+                                                     final SpreadsheetEngineContext context) {
+                        if (0 == saves.getAndIncrement()) {
+                            throw new IllegalArgumentException();
+                        }
+                        return SpreadsheetDelta.EMPTY;
+                    }
+                },
+                Runnable::run,
+                MAX_PENDING
+        );
+
+        final SpreadsheetEngineContext context = this.context(1);
+        final CompletableFuture<SpreadsheetDelta> first = engine.saveCell(CELL, context);
+        final CompletableFuture<SpreadsheetDelta> second = engine.saveCell(CELL, context);
+
+        assertTrue(first.isCompletedExceptionally(), "first completed exceptionally");
+        assertSame(SpreadsheetDelta.EMPTY, second.get(), "second");
+    }
+
+    @Test
+    public void testSameSpreadsheetInOrderExclusive() throws Exception {
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        final List<SpreadsheetCell> saved = Collections.synchronizedList(Lists.array());
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final BasicAsyncSpreadsheetEngine engine = BasicAsyncSpreadsheetEngine.with(
+                    new FakeSpreadsheetEngine() {
+                        @Override
+                        public SpreadsheetDelta saveCell(final SpreadsheetCell cell,
+                                                         final SpreadsheetEngineContext context) {
+                            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                            try {
+                                Thread.sleep(5);
+                            } catch (final InterruptedException cause) {
+                                throw new IllegalStateException(cause);
+                            }
+                            saved.add(cell);
+                            active.decrementAndGet();
+                            return SpreadsheetDelta.EMPTY;
+                        }
+                    },
+                    executor,
+                    MAX_PENDING
+            );
+
+            final SpreadsheetEngineContext context = this.context(1);
+            final List<SpreadsheetCell> cells = Lists.array();
+            final List<CompletableFuture<SpreadsheetDelta>> futures = Lists.array();
+
+            for (int i = 0; i < THREADS; i++) {
+                final SpreadsheetCell cell = CELL.setFormula(
+                        SpreadsheetFormula.EMPTY.setText("=" + i)
+                );
+                cells.add(cell);
+                futures.add(engine.saveCell(cell, context));
+            }
+            for (final CompletableFuture<SpreadsheetDelta> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+
+            assertEquals(1, maxActive.get(), "max concurrent saveCell");
+            assertEquals(cells, saved, "saved order");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDifferentSpreadsheetsConcurrent() throws Exception {
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final BasicAsyncSpreadsheetEngine engine = BasicAsyncSpreadsheetEngine.with(
+                    new FakeSpreadsheetEngine() {
+                        @Override
+                        public SpreadsheetDelta saveCell(final SpreadsheetCell cell,
+                                                         final SpreadsheetEngineContext context) {
+                            // saves to different spreadsheets must be inside saveCell at the same time to pass the barrier.
+                            await(barrier);
+                            return SpreadsheetDelta.EMPTY;
+                        }
+                    },
+                    executor,
+                    MAX_PENDING
+            );
+
+            final CompletableFuture<SpreadsheetDelta> first = engine.saveCell(CELL, this.context(1));
+            final CompletableFuture<SpreadsheetDelta> second = engine.saveCell(CELL, this.context(2));
+
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testTooManyPendingRejected() throws Exception {
+        final List<Runnable> queued = Lists.array();
+
+        final BasicAsyncSpreadsheetEngine engine = BasicAsyncSpreadsheetEngine.with(
+                new FakeSpreadsheetEngine() {
+                    @Override
+                    public SpreadsheetDelta saveCell(final SpreadsheetCell cell,
+                                                     final SpreadsheetEngineContext context) {
+                        return SpreadsheetDelta.EMPTY;
+                    }
+                },
+                queued::add,
+                1
+        );
+
+        final SpreadsheetEngineContext context = this.context(1);
+        final CompletableFuture<SpreadsheetDelta> first = engine.saveCell(CELL, context);
+        final CompletableFuture<SpreadsheetDelta> rejected = engine.saveCell(CELL, context);
+
+        final ExecutionException thrown = assertThrows(
+                ExecutionException.class,
+                rejected::get
+        );
+        assertEquals(RejectedExecutionException.class, thrown.getCause().getClass(), "cause");
+
+        runAll(queued);
+        assertSame(SpreadsheetDelta.EMPTY, first.get(), "first");
+        assertEquals(0, engine.pending(), "pending");
+
+        final CompletableFuture<SpreadsheetDelta> third = engine.saveCell(CELL, context);
+        runAll(queued);
+        assertSame(SpreadsheetDelta.EMPTY, third.get(), "third");
+    }
+
+    @Test
+    public void testCancelledBeforeStartSkipped() {
+        final List<Runnable> queued = Lists.array();
+        final AtomicInteger saves = new AtomicInteger();
+
+        final BasicAsyncSpreadsheetEngine engine = BasicAsyncSpreadsheetEngine.with(
+                new FakeSpreadsheetEngine() {
+                    @Override
+                    public SpreadsheetDelta saveCell(final SpreadsheetCell cell,
+                                                     final SpreadsheetEngineContext context) {
+                        saves.incrementAndGet();
+                        return SpreadsheetDelta.EMPTY;
+                    }
+                },
+                queued::add,
+                MAX_PENDING
+        );
+
+        final CompletableFuture<SpreadsheetDelta> future = engine.saveCell(CELL, this.context(1));
+        future.cancel(false);
+        runAll(queued);
+
+        assertEquals(0, saves.get(), "saves");
+        assertEquals(0, engine.pending(), "pending");
+    }
+
+    @Test
+    public void testCancelledWhileRunningPendingUntilFinished() {
+        final List<Runnable> queued = Lists.array();
+        final AtomicReference<BasicAsyncSpreadsheetEngine> async = new AtomicReference<>();
+        final AtomicReference<CompletableFuture<SpreadsheetDelta>> cancel = new AtomicReference<>();
+        final AtomicInteger pendingAfterCancel = new AtomicInteger();
+
+        final BasicAsyncSpreadsheetEngine engine = BasicAsyncSpreadsheetEngine.with(
+                new FakeSpreadsheetEngine() {
+                    @Override
+                    public SpreadsheetDelta saveCell(final SpreadsheetCell cell,
+                                                     final SpreadsheetEngineContext context) {
+                        cancel.get().cancel(false);
+                        pendingAfterCancel.set(async.get().pending());
+                        return SpreadsheetDelta.EMPTY;
+                    }
+                },
+                queued::add,
+                1
+        );
+        async.set(engine);
+
+        final CompletableFuture<SpreadsheetDelta> future = engine.saveCell(CELL, this.context(1));
+        cancel.set(future);
+        runAll(queued);
+
+        assertTrue(future.isCancelled(), "cancelled");
+        assertEquals(1, pendingAfterCancel.get(), "pending after cancel");
+        assertEquals(0, engine.pending(), "pending");
+    }
+
+    @Test
+    public void testLoadCellsNotQueuedAfterSaveCell() throws Exception {
+        final List<Runnable> queued = Lists.array();
+
+        final BasicAsyncSpreadsheetEngine engine = BasicAsyncSpreadsheetEngine.with(
+                new FakeSpreadsheetEngine() {
+                    @Override
+                    public SpreadsheetDelta saveCell(final SpreadsheetCell cell,
+                                                     final SpreadsheetEngineContext context) {
+                        return SpreadsheetDelta.EMPTY;
+                    }
+
+                    @Override
+                    public SpreadsheetDelta loadCells(final Set<SpreadsheetCellRange> ranges,
+                                                      final SpreadsheetEngineEvaluation evaluation,
+                                                      final Set<SpreadsheetDeltaProperties> deltaProperties,
+                                                      final SpreadsheetEngineContext context) {
+                        return SpreadsheetDelta.EMPTY.setCells(Sets.of(CELL));
+                    }
+                },
+                queued::add,
+                MAX_PENDING
+        );
+
+        final SpreadsheetEngineContext context = this.context(1);
+        final CompletableFuture<SpreadsheetDelta> save = engine.saveCell(CELL, context);
+        final CompletableFuture<SpreadsheetDelta> load = engine.loadCells(
+                WINDOW,
+                SpreadsheetEngineEvaluation.COMPUTE_IF_NECESSARY,
+                SpreadsheetDeltaProperties.ALL,
+                context
+        );
+
+        assertEquals(2, queued.size(), "queued");
+
+        // run the load before the earlier save
+        queued.remove(1).run();
+        assertEquals(Sets.of(CELL), load.get().cells(), "load cells");
+        assertFalse(save.isDone(), "save done");
+
+        runAll(queued);
+        assertSame(SpreadsheetDelta.EMPTY, save.get(), "save");
+        assertEquals(0, engine.pending(), "pending");
+    }
+
+    @Test
+    public void testLoadViewportWaitsForSupersededRunning() throws Exception {
+        final List<Runnable> queued = Lists.array();
+        final AtomicReference<BasicAsyncSpreadsheetEngine> async = new AtomicReference<>();
+        final AtomicReference<SpreadsheetEngineViewportSession> session = new AtomicReference<>();
+        final AtomicReference<CompletableFuture<SpreadsheetDelta>> latest = new AtomicReference<>();
+        final AtomicInteger loads = new AtomicInteger();
+        final AtomicInteger queuedWhileRunning = new AtomicInteger();
+
+        final SpreadsheetEngineContext context = this.context(1);
+
+        final BasicAsyncSpreadsheetEngine engine = BasicAsyncSpreadsheetEngine.with(
+                new FakeSpreadsheetEngine() {
+                    @Override
+                    public SpreadsheetDelta loadCells(final Set<SpreadsheetCellRange> ranges,
+                                                      final SpreadsheetEngineEvaluation evaluation,
+                                                      final Set<SpreadsheetDeltaProperties> deltaProperties,
+                                                      final SpreadsheetEngineContext context) {
+                        if (0 == loads.getAndIncrement()) {
+                            // supersede this running load, the latest must not start until it finishes.
+                            latest.set(
+                                    loadViewport(
+                                            async.get(),
+                                            session.get(),
+                                            context
+                                    )
+                            );
+                            queuedWhileRunning.set(queued.size());
+                        }
+                        return SpreadsheetDelta.EMPTY.setCells(Sets.of(CELL));
+                    }
+                },
+                queued::add,
+                MAX_PENDING
+        );
+        async.set(engine);
+        session.set(engine.viewportSession());
+
+        final CompletableFuture<SpreadsheetDelta> superseded = this.loadViewport(engine, session.get(), context);
+        runAll(queued);
+
+        assertTrue(superseded.isCancelled(), "superseded cancelled");
+        assertEquals(0, queuedWhileRunning.get(), "latest queued while superseded running");
+        assertEquals(Sets.of(CELL), latest.get().get().cells(), "latest cells");
+        assertEquals(2, loads.get(), "loads");
+    }
+
+    @Test
+    public void testRead() throws Exception {
+        final BasicAsyncSpreadsheetEngine engine = BasicAsyncSpreadsheetEngine.with(
+                new FakeSpreadsheetEngine(),
+                Runnable::run,
+                MAX_PENDING
+        );
+        final SpreadsheetEngineContext context = this.context(1);
+
+        assertEquals(
+                "result",
+                engine.read(
+                        (e) -> "result",
+                        context
+                ).get()
+        );
+        assertEquals(0, engine.pending(), "pending");
+    }
+
+    @Test
+    public void testReadMissingSpreadsheetIdFails() {
+        assertThrows(
+                IllegalStateException.class,
+                () -> BasicAsyncSpreadsheetEngine.with(
+                        new FakeSpreadsheetEngine(),
+                        Runnable::run,
+                        MAX_PENDING
+                ).read(
+                        (e) -> "result",
+                        this.context(SpreadsheetMetadata.EMPTY)
+                )
+        );
+    }
+
+    @Test
+    public void testLoadViewportSupersedes() throws Exception {
+        final List<Runnable> queued = Lists.array();
+        final AtomicInteger loads = new AtomicInteger();
+
+        final BasicAsyncSpreadsheetEngine engine = BasicAsyncSpreadsheetEngine.with(
+                new FakeSpreadsheetEngine() {
+                    @Override
+                    public SpreadsheetDelta loadCells(final Set<SpreadsheetCellRange> ranges,
+                                                      final SpreadsheetEngineEvaluation evaluation,
+                                                      final Set<SpreadsheetDeltaProperties> deltaProperties,
+                                                      final SpreadsheetEngineContext context) {
+                        loads.incrementAndGet();
+                        return SpreadsheetDelta.EMPTY.setCells(Sets.of(CELL));
+                    }
+                },
+                queued::add,
+                MAX_PENDING
+        );
+
+        final SpreadsheetEngineViewportSession session = engine.viewportSession();
+        final SpreadsheetEngineContext context = this.context(1);
+
+        final CompletableFuture<SpreadsheetDelta> superseded = this.loadViewport(engine, session, context);
+        final CompletableFuture<SpreadsheetDelta> latest = this.loadViewport(engine, session, context);
+
+        runAll(queued);
+
+        assertThrows(
+                CancellationException.class,
+                superseded::get
+        );
+        assertEquals(Sets.of(CELL), latest.get().cells(), "latest cells");
+        assertEquals(1, loads.get(), "loads");
+    }
+
+    @Test
+    public void testLoadViewportDifferentSessionsNotSuperseded() throws Exception {
+        final List<Runnable> queued = Lists.array();
+
+        final BasicAsyncSpreadsheetEngine engine = BasicAsyncSpreadsheetEngine.with(
+                new FakeSpreadsheetEngine() {
+                    @Override
+                    public SpreadsheetDelta loadCells(final Set<SpreadsheetCellRange> ranges,
+                                                      final SpreadsheetEngineEvaluation evaluation,
+                                                      final Set<SpreadsheetDeltaProperties> deltaProperties,
+                                                      final SpreadsheetEngineContext context) {
+                        return SpreadsheetDelta.EMPTY.setCells(Sets.of(CELL));
+                    }
+                },
+                queued::add,
+                MAX_PENDING
+        );
+
+        final SpreadsheetEngineContext context = this.context(1);
+
+        final CompletableFuture<SpreadsheetDelta> first = this.loadViewport(engine, engine.viewportSession(), context);
+        final CompletableFuture<SpreadsheetDelta> second = this.loadViewport(engine, engine.viewportSession(), context);
+
+        runAll(queued);
+
+        assertEquals(Sets.of(CELL), first.get().cells(), "first cells");
+        assertEquals(Sets.of(CELL), second.get().cells(), "second cells");
+    }
+
+    @Test
+    public void testLoadViewportCancelledWhileRunningResetsSession() throws Exception {
+        final List<Runnable> queued = Lists.array();
+        final AtomicReference<CompletableFuture<SpreadsheetDelta>> cancel = new AtomicReference<>();
+
+        final BasicAsyncSpreadsheetEngine engine = BasicAsyncSpreadsheetEngine.with(
+                new FakeSpreadsheetEngine() {
+                    @Override
+                    public SpreadsheetDelta loadCells(final Set<SpreadsheetCellRange> ranges,
+                                                      final SpreadsheetEngineEvaluation evaluation,
+                                                      final Set<SpreadsheetDeltaProperties> deltaProperties,
+                                                      final SpreadsheetEngineContext context) {
+                        final CompletableFuture<SpreadsheetDelta> future = cancel.getAndSet(null);
+                        if (null != future) {
+                            future.cancel(false);
+                        }
+                        return SpreadsheetDelta.EMPTY.setCells(Sets.of(CELL));
+                    }
+                },
+                queued::add,
+                MAX_PENDING
+        );
+
+        final SpreadsheetEngineViewportSession session = engine.viewportSession();
+        final SpreadsheetEngineContext context = this.context(1);
+
+        final CompletableFuture<SpreadsheetDelta> cancelled = this.loadViewport(engine, session, context);
+        cancel.set(cancelled);
+        runAll(queued);
+
+        assertTrue(cancelled.isCancelled(), "cancelled");
+
+        // the client never received the cell, so it must be loaded again.
+        final CompletableFuture<SpreadsheetDelta> next = this.loadViewport(engine, session, context);
+        runAll(queued);
+
+        assertEquals(Sets.of(CELL), next.get().cells(), "next cells");
+    }
+
+    @Test
+    public void testSubmit() throws Exception {
+        final BasicAsyncSpreadsheetEngine engine = BasicAsyncSpreadsheetEngine.with(
+                new FakeSpreadsheetEngine(),
+                Runnable::run,
+                MAX_PENDING
+        );
+        final SpreadsheetEngineContext context = this.context(1);
+
+        assertEquals(
+                "result",
+                engine.submit(
+                        (e) -> "result",
+                        context
+                ).get()
+        );
+    }
+
+    private CompletableFuture<SpreadsheetDelta> loadViewport(final BasicAsyncSpreadsheetEngine engine,
+                                                             final SpreadsheetEngineViewportSession session,
+                                                             final SpreadsheetEngineContext context) {
+        return engine.loadViewport(
+                session,
+                WINDOW,
+                SpreadsheetEngineEvaluation.COMPUTE_IF_NECESSARY,
+                SpreadsheetDeltaProperties.ALL,
+                context
+        );
+    }
+
+    private static void runAll(final List<Runnable> queued) {
+        while (false == queued.isEmpty()) {
+            queued.remove(0).run();
+        }
+    }
+
+    private static void await(final CyclicBarrier barrier) {
+        try {
+            barrier.await(5, TimeUnit.SECONDS);
+        } catch (final InterruptedException | BrokenBarrierException | TimeoutException cause) {
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private SpreadsheetEngineContext context(final long id) {
+        return this.context(
+                SpreadsheetMetadata.EMPTY.set(
+                        SpreadsheetMetadataPropertyName.SPREADSHEET_ID,
+                        SpreadsheetId.with(id)
+                )
+        );
+    }
+
+    private SpreadsheetEngineContext context(final SpreadsheetMetadata metadata) {
+        final SpreadsheetCellStore store = SpreadsheetCellStores.treeMap();
+
+        return new FakeSpreadsheetEngineContext() {
+            @Override
+            public SpreadsheetMetadata metadata() {
+                return metadata;
+            }
+
+            // viewport sessions watch the cell store for changes.
+            @Override
+            public SpreadsheetStoreRepository storeRepository() {
+                return new FakeSpreadsheetStoreRepository() {
+                    @Override
+                    public SpreadsheetCellStore cells() {
+                        return store;
+                    }
+                };
+            }
+        };
+    }
+
+    // ClassTesting.....................................................................................................
+
+    @Override
+    public Class<BasicAsyncSpreadsheetEngine> type() {
+        return BasicAsyncSpreadsheetEngine.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+
+    // TypeNameTesting..................................................................................................
+
+    @Override
+    public String typeNamePrefix() {
+        return "Basic";
+    }
+
+    @Override
+    public String typeNameSuffix() {
+        return AsyncSpreadsheetEngine.class.getSimpleName();
+    }
+}
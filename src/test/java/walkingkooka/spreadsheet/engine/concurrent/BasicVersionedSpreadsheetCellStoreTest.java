@@ -0,0 +1,524 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine.concurrent;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.ToStringTesting;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.SpreadsheetFormula;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class BasicVersionedSpreadsheetCellStoreTest implements ClassTesting2<BasicVersionedSpreadsheetCellStore>,
+        ToStringTesting<BasicVersionedSpreadsheetCellStore> {
+
+    private final static SpreadsheetCellReference A1 = SpreadsheetSelection.parseCell("A1");
+
+    private final static SpreadsheetCellReference B2 = SpreadsheetSelection.parseCell("B2");
+
+    private final static SpreadsheetCell A1_1 = cell(A1, "1");
+
+    private final static SpreadsheetCell A1_2 = cell(A1, "2");
+
+    private final static SpreadsheetCell B2_3 = cell(B2, "3");
+
+    // snapshot.........................................................................................................
+
+    @Test
+    public void testSnapshotEmpty() {
+        try (final VersionedSpreadsheetCellStoreSnapshot snapshot = BasicVersionedSpreadsheetCellStore.create().snapshot()) {
+            assertEquals(0, snapshot.version(), "version");
+            assertEquals(0, snapshot.count(), "count");
+        }
+    }
+
+    @Test
+    public void testSaveVisibleToSnapshotAfterPublish() {
+        final BasicVersionedSpreadsheetCellStore store = BasicVersionedSpreadsheetCellStore.create();
+        store.save(A1_1);
+
+        try (final VersionedSpreadsheetCellStoreSnapshot before = store.snapshot()) {
+            assertEquals(Optional.of(A1_1), store.load(A1), "store load before publish");
+            assertEquals(Optional.empty(), before.load(A1), "snapshot load before publish");
+
+            store.publish();
+
+            try (final VersionedSpreadsheetCellStoreSnapshot after = store.snapshot()) {
+                assertEquals(1, after.version(), "version");
+                assertEquals(Optional.of(A1_1), after.load(A1), "snapshot load after publish");
+            }
+
+            assertEquals(Optional.empty(), before.load(A1), "earlier snapshot load after publish");
+        }
+    }
+
+    @Test
+    public void testSnapshotSaveIsolation() {
+        final BasicVersionedSpreadsheetCellStore store = BasicVersionedSpreadsheetCellStore.create();
+        store.save(A1_1);
+        store.publish();
+
+        try (final VersionedSpreadsheetCellStoreSnapshot snapshot = store.snapshot()) {
+            store.save(A1_2);
+            store.save(B2_3);
+            store.publish();
+
+            assertEquals(Optional.of(A1_1), snapshot.load(A1), "snapshot A1");
+            assertEquals(Optional.empty(), snapshot.load(B2), "snapshot B2");
+            assertEquals(1, snapshot.count(), "snapshot count");
+
+            try (final VersionedSpreadsheetCellStoreSnapshot latest = store.snapshot()) {
+                assertEquals(Optional.of(A1_2), latest.load(A1), "latest A1");
+                assertEquals(Optional.of(B2_3), latest.load(B2), "latest B2");
+                assertEquals(2, latest.count(), "latest count");
+            }
+        }
+    }
+
+    @Test
+    public void testSnapshotDeleteIsolation() {
+        final BasicVersionedSpreadsheetCellStore store = BasicVersionedSpreadsheetCellStore.create();
+        store.save(A1_1);
+        store.publish();
+
+        try (final VersionedSpreadsheetCellStoreSnapshot snapshot = store.snapshot()) {
+            store.delete(A1);
+            store.publish();
+
+            assertEquals(Optional.of(A1_1), snapshot.load(A1), "snapshot");
+            assertEquals(Optional.empty(), store.load(A1), "store");
+
+            try (final VersionedSpreadsheetCellStoreSnapshot latest = store.snapshot()) {
+                assertEquals(Optional.empty(), latest.load(A1), "latest");
+            }
+        }
+    }
+
+    @Test
+    public void testSnapshotSaveFails() {
+        try (final VersionedSpreadsheetCellStoreSnapshot snapshot = BasicVersionedSpreadsheetCellStore.create().snapshot()) {
+            assertThrows(
+                    UnsupportedOperationException.class,
+                    () -> snapshot.save(A1_1)
+            );
+        }
+    }
+
+    @Test
+    public void testSnapshotCloseTwiceIgnored() {
+        final BasicVersionedSpreadsheetCellStore store = BasicVersionedSpreadsheetCellStore.create();
+
+        final VersionedSpreadsheetCellStoreSnapshot snapshot = store.snapshot();
+        snapshot.close();
+        snapshot.close();
+    }
+
+    @Test
+    public void testCloseSnapshotUnknownVersionFails() {
+        assertThrows(
+                IllegalStateException.class,
+                () -> BasicVersionedSpreadsheetCellStore.create()
+                        .closeSnapshot(99)
+        );
+    }
+
+    // publish..........................................................................................................
+
+    @Test
+    public void testPublish() {
+        final BasicVersionedSpreadsheetCellStore store = BasicVersionedSpreadsheetCellStore.create();
+        store.save(A1_1);
+        store.publish();
+
+        assertEquals(1, store.published, "published");
+    }
+
+    @Test
+    public void testPublishPrunes() {
+        final BasicVersionedSpreadsheetCellStore store = BasicVersionedSpreadsheetCellStore.create();
+        store.save(A1_1);
+        store.publish();
+        store.save(A1_2);
+
+        this.versionsAndCheck(store, A1, "2=2, 1=1");
+
+        store.publish();
+
+        this.versionsAndCheck(store, A1, "2=2");
+    }
+
+    @Test
+    public void testPublishPrunesDelete() {
+        final BasicVersionedSpreadsheetCellStore store = BasicVersionedSpreadsheetCellStore.create();
+        store.save(A1_1);
+        store.publish();
+        store.delete(A1);
+
+        this.versionsAndCheck(store, A1, "2=deleted, 1=1");
+
+        store.publish();
+
+        this.versionsAndCheck(store, A1, null);
+    }
+
+    @Test
+    public void testSaveTwiceSameVersion() {
+        final BasicVersionedSpreadsheetCellStore store = BasicVersionedSpreadsheetCellStore.create();
+        store.save(A1_1);
+        store.publish();
+        store.save(A1_2);
+        store.save(A1_1);
+
+        this.versionsAndCheck(store, A1, "2=1, 1=1");
+    }
+
+    // discard..........................................................................................................
+
+    @Test
+    public void testDiscardSave() {
+        final BasicVersionedSpreadsheetCellStore store = BasicVersionedSpreadsheetCellStore.create();
+        store.save(A1_1);
+        store.publish();
+
+        store.save(A1_2);
+        store.save(B2_3);
+        store.discard();
+
+        assertEquals(Optional.of(A1_1), store.load(A1), "A1");
+        assertEquals(Optional.empty(), store.load(B2), "B2");
+        this.versionsAndCheck(store, A1, "1=1");
+        this.versionsAndCheck(store, B2, null);
+        assertEquals(1, store.published, "published");
+    }
+
+    @Test
+    public void testDiscardDelete() {
+        final BasicVersionedSpreadsheetCellStore store = BasicVersionedSpreadsheetCellStore.create();
+        store.save(A1_1);
+        store.publish();
+
+        store.delete(A1);
+        store.discard();
+
+        assertEquals(Optional.of(A1_1), store.load(A1));
+        this.versionsAndCheck(store, A1, "1=1");
+    }
+
+    @Test
+    public void testDiscardThenPublish() {
+        final BasicVersionedSpreadsheetCellStore store = BasicVersionedSpreadsheetCellStore.create();
+        store.save(A1_1);
+        store.discard();
+
+        store.save(B2_3);
+        store.publish();
+
+        try (final VersionedSpreadsheetCellStoreSnapshot snapshot = store.snapshot()) {
+            assertEquals(Optional.empty(), snapshot.load(A1), "A1");
+            assertEquals(Optional.of(B2_3), snapshot.load(B2), "B2");
+        }
+    }
+
+    // prune............................................................................................................
+
+    @Test
+    public void testSnapshotKeepsVersions() {
+        final BasicVersionedSpreadsheetCellStore store = BasicVersionedSpreadsheetCellStore.create();
+        store.save(A1_1);
+        store.publish();
+
+        try (final VersionedSpreadsheetCellStoreSnapshot snapshot = store.snapshot()) {
+            store.save(A1_2);
+            store.publish();
+
+            this.versionsAndCheck(store, A1, "2=2, 1=1");
+        }
+    }
+
+    @Test
+    public void testSnapshotClosePrunes() {
+        final BasicVersionedSpreadsheetCellStore store = BasicVersionedSpreadsheetCellStore.create();
+        store.save(A1_1);
+        store.publish();
+
+        final VersionedSpreadsheetCellStoreSnapshot snapshot = store.snapshot();
+        store.save(A1_2);
+        store.publish();
+        snapshot.close();
+
+        this.versionsAndCheck(store, A1, "2=2");
+    }
+
+    @Test
+    public void testSnapshotClosePrunesDelete() {
+        final BasicVersionedSpreadsheetCellStore store = BasicVersionedSpreadsheetCellStore.create();
+        store.save(A1_1);
+        store.save(B2_3);
+        store.publish();
+
+        final VersionedSpreadsheetCellStoreSnapshot snapshot = store.snapshot();
+        store.delete(A1);
+        store.publish();
+
+        this.versionsAndCheck(store, A1, "2=deleted, 1=1");
+
+        snapshot.close();
+
+        this.versionsAndCheck(store, A1, null);
+        this.versionsAndCheck(store, B2, "1=3");
+        assertEquals(1, store.count(), "count");
+    }
+
+    @Test
+    public void testSnapshotCloseNotOldestKeepsVersions() {
+        final BasicVersionedSpreadsheetCellStore store = BasicVersionedSpreadsheetCellStore.create();
+        store.save(A1_1);
+        store.publish();
+
+        final VersionedSpreadsheetCellStoreSnapshot oldest = store.snapshot();
+        store.save(A1_2);
+        store.publish();
+
+        final VersionedSpreadsheetCellStoreSnapshot newest = store.snapshot();
+        store.delete(A1);
+        store.publish();
+
+        newest.close();
+        this.versionsAndCheck(store, A1, "3=deleted, 2=2, 1=1");
+
+        oldest.close();
+        this.versionsAndCheck(store, A1, null);
+    }
+
+    @Test
+    public void testSnapshotCloseSameVersionTwice() {
+        final BasicVersionedSpreadsheetCellStore store = BasicVersionedSpreadsheetCellStore.create();
+        store.save(A1_1);
+        store.publish();
+
+        final VersionedSpreadsheetCellStoreSnapshot snapshot1 = store.snapshot();
+        final VersionedSpreadsheetCellStoreSnapshot snapshot2 = store.snapshot();
+        store.save(A1_2);
+        store.publish();
+
+        snapshot1.close();
+        this.versionsAndCheck(store, A1, "2=2, 1=1");
+
+        snapshot2.close();
+        this.versionsAndCheck(store, A1, "2=2");
+    }
+
+    private void versionsAndCheck(final BasicVersionedSpreadsheetCellStore store,
+                                  final SpreadsheetCellReference reference,
+                                  final String expected) {
+        final BasicVersionedSpreadsheetCellStoreVersion versions = store.versions(reference);
+        if (null == expected) {
+            assertNull(versions, () -> "versions " + reference);
+        } else {
+            assertEquals(
+                    expected,
+                    null != versions ? versions.toString() : null,
+                    () -> "versions " + reference
+            );
+        }
+    }
+
+    // read.............................................................................................................
+
+    @Test
+    public void testReadNullReaderFails() {
+        try (final VersionedSpreadsheetCellStoreSnapshot snapshot = BasicVersionedSpreadsheetCellStore.create().snapshot()) {
+            assertThrows(
+                    NullPointerException.class,
+                    () -> snapshot.read(null)
+            );
+        }
+    }
+
+    @Test
+    public void testReadSnapshotVersion() {
+        final BasicVersionedSpreadsheetCellStore store = BasicVersionedSpreadsheetCellStore.create();
+        store.save(A1_1);
+        store.publish();
+
+        try (final VersionedSpreadsheetCellStoreSnapshot snapshot = store.snapshot()) {
+            store.save(A1_2);
+            store.save(B2_3);
+
+            assertEquals(
+                    Optional.of(Optional.of(A1_1)),
+                    snapshot.read(() -> store.load(A1)),
+                    "load"
+            );
+            assertEquals(
+                    Optional.of(1),
+                    snapshot.read(store::count),
+                    "count"
+            );
+            assertEquals(Optional.of(A1_2), store.load(A1), "store load after read");
+        }
+    }
+
+    @Test
+    public void testReadSaveRejected() {
+        final BasicVersionedSpreadsheetCellStore store = BasicVersionedSpreadsheetCellStore.create();
+
+        try (final VersionedSpreadsheetCellStoreSnapshot snapshot = store.snapshot()) {
+            assertEquals(
+                    Optional.empty(),
+                    snapshot.read(() -> store.save(A1_1))
+            );
+        }
+        assertEquals(Optional.empty(), store.load(A1), "load");
+    }
+
+    @Test
+    public void testReadSaveRejectedCaught() {
+        final BasicVersionedSpreadsheetCellStore store = BasicVersionedSpreadsheetCellStore.create();
+
+        try (final VersionedSpreadsheetCellStoreSnapshot snapshot = store.snapshot()) {
+            assertEquals(
+                    Optional.empty(),
+                    snapshot.read(() -> {
+                        assertThrows(
+                                IllegalStateException.class,
+                                () -> store.save(A1_1)
+                        );
+                        return "caught";
+                    })
+            );
+        }
+        assertEquals(0, store.count(), "count");
+    }
+
+    @Test
+    public void testReadDeleteRejected() {
+        final BasicVersionedSpreadsheetCellStore store = BasicVersionedSpreadsheetCellStore.create();
+        store.save(A1_1);
+        store.publish();
+
+        try (final VersionedSpreadsheetCellStoreSnapshot snapshot = store.snapshot()) {
+            assertEquals(
+                    Optional.empty(),
+                    snapshot.read(() -> {
+                        store.delete(A1);
+                        return "deleted";
+                    })
+            );
+        }
+        assertEquals(Optional.of(A1_1), store.load(A1), "load");
+    }
+
+    @Test
+    public void testReadOtherFailureThrown() {
+        try (final VersionedSpreadsheetCellStoreSnapshot snapshot = BasicVersionedSpreadsheetCellStore.create().snapshot()) {
+            assertThrows(
+                    IllegalArgumentException.class,
+                    () -> snapshot.read(() -> {
+                        throw new IllegalArgumentException();
+                    })
+            );
+        }
+    }
+
+    @Test
+    public void testReadNested() {
+        final BasicVersionedSpreadsheetCellStore store = BasicVersionedSpreadsheetCellStore.create();
+
+        try (final VersionedSpreadsheetCellStoreSnapshot snapshot = store.snapshot()) {
+            assertEquals(
+                    Optional.empty(),
+                    snapshot.read(() -> {
+                        assertEquals(
+                                Optional.of("inner"),
+                                snapshot.read(() -> "inner"),
+                                "inner"
+                        );
+                        return store.save(A1_1);
+                    })
+            );
+        }
+    }
+
+    @Test
+    public void testReadWatcherNeverFired() {
+        final BasicVersionedSpreadsheetCellStore store = BasicVersionedSpreadsheetCellStore.create();
+        final AtomicInteger fired = new AtomicInteger();
+
+        try (final VersionedSpreadsheetCellStoreSnapshot snapshot = store.snapshot()) {
+            snapshot.read(() -> store.addSaveWatcher((c) -> fired.incrementAndGet()));
+            snapshot.read(() -> store.addDeleteWatcher((c) -> fired.incrementAndGet()));
+        }
+
+        store.save(A1_1);
+        store.delete(A1);
+
+        assertEquals(0, fired.get(), "fired");
+    }
+
+    @Test
+    public void testSaveAfterRead() {
+        final BasicVersionedSpreadsheetCellStore store = BasicVersionedSpreadsheetCellStore.create();
+
+        try (final VersionedSpreadsheetCellStoreSnapshot snapshot = store.snapshot()) {
+            snapshot.read(() -> store.save(A1_1));
+        }
+
+        store.save(B2_3);
+        assertEquals(Optional.of(B2_3), store.load(B2));
+    }
+
+    // toString.........................................................................................................
+
+    @Test
+    public void testToString() {
+        final BasicVersionedSpreadsheetCellStore store = BasicVersionedSpreadsheetCellStore.create();
+        store.save(A1_1);
+
+        this.toStringAndCheck(
+                store,
+                "[" + A1_1 + "]"
+        );
+    }
+
+    private static SpreadsheetCell cell(final SpreadsheetCellReference reference,
+                                        final String formula) {
+        return reference.setFormula(SpreadsheetFormula.EMPTY.setText(formula));
+    }
+
+    // ClassTesting.....................................................................................................
+
+    @Override
+    public Class<BasicVersionedSpreadsheetCellStore> type() {
+        return BasicVersionedSpreadsheetCellStore.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine.concurrent;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.ToStringTesting;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.SpreadsheetFormula;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public final class BasicVersionedSpreadsheetCellStoreVersionTest implements ClassTesting2<BasicVersionedSpreadsheetCellStoreVersion>,
+        ToStringTesting<BasicVersionedSpreadsheetCellStoreVersion> {
+
+    private final static SpreadsheetCell CELL1 = cell("1");
+
+    private final static SpreadsheetCell CELL3 = cell("3");
+
+    private final static SpreadsheetCell CELL5 = cell("5");
+
+    @Test
+    public void testCell() {
+        final BasicVersionedSpreadsheetCellStoreVersion versions = this.versions();
+
+        assertNull(versions.cell(0), "0");
+        assertSame(CELL1, versions.cell(1), "1");
+        assertSame(CELL1, versions.cell(2), "2");
+        assertSame(CELL3, versions.cell(3), "3");
+        assertNull(versions.cell(4), "4");
+        assertSame(CELL5, versions.cell(5), "5");
+        assertSame(CELL5, versions.cell(Long.MAX_VALUE), "latest");
+    }
+
+    @Test
+    public void testPruneNothing() {
+        final BasicVersionedSpreadsheetCellStoreVersion versions = this.versions();
+
+        assertSame(versions, versions.prune(1));
+    }
+
+    @Test
+    public void testPrune() {
+        this.toStringAndCheck(
+                this.versions().prune(3),
+                "5=5, 4=deleted, 3=3"
+        );
+    }
+
+    @Test
+    public void testPruneDelete() {
+        this.toStringAndCheck(
+                this.versions().prune(4),
+                "5=5"
+        );
+    }
+
+    @Test
+    public void testPruneLatest() {
+        this.toStringAndCheck(
+                this.versions().prune(5),
+                "5=5"
+        );
+    }
+
+    @Test
+    public void testPruneOnlyDeletes() {
+        assertEquals(
+                null,
+                BasicVersionedSpreadsheetCellStoreVersion.with(
+                        2,
+                        null,
+                        BasicVersionedSpreadsheetCellStoreVersion.with(1, null, null)
+                ).prune(1)
+        );
+    }
+
+    @Test
+    public void testToString() {
+        this.toStringAndCheck(
+                this.versions(),
+                "5=5, 4=deleted, 3=3, 1=1"
+        );
+    }
+
+    private BasicVersionedSpreadsheetCellStoreVersion versions() {
+        return BasicVersionedSpreadsheetCellStoreVersion.with(
+                5,
+                CELL5,
+                BasicVersionedSpreadsheetCellStoreVersion.with(
+                        4,
+                        null,
+                        BasicVersionedSpreadsheetCellStoreVersion.with(
+                                3,
+                                CELL3,
+                                BasicVersionedSpreadsheetCellStoreVersion.with(
+                                        1,
+                                        CELL1,
+                                        null
+                                )
+                        )
+                )
+        );
+    }
+
+    private static SpreadsheetCell cell(final String formula) {
+        return SpreadsheetSelection.parseCell("A1")
+                .setFormula(SpreadsheetFormula.EMPTY.setText(formula));
+    }
+
+    // ClassTesting.....................................................................................................
+
+    @Override
+    public Class<BasicVersionedSpreadsheetCellStoreVersion> type() {
+        return BasicVersionedSpreadsheetCellStoreVersion.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine.concurrent;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public final class LockingSpreadsheetEngineLockTest implements ClassTesting2<LockingSpreadsheetEngineLock> {
+
+    @Test
+    public void testAcquireRelease() {
+        final LockingSpreadsheetEngineLock lock = LockingSpreadsheetEngineLock.create();
+
+        assertSame(lock, lock.acquire(), "acquire");
+        assertNull(lock.release(), "release");
+    }
+
+    @Test
+    public void testAcquireTwiceRelease() {
+        final LockingSpreadsheetEngineLock lock = LockingSpreadsheetEngineLock.create()
+                .acquire()
+                .acquire();
+
+        assertSame(lock, lock.release(), "release");
+        assertNull(lock.release(), "release");
+    }
+
+    // ClassTesting.....................................................................................................
+
+    @Override
+    public Class<LockingSpreadsheetEngineLock> type() {
+        return LockingSpreadsheetEngineLock.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
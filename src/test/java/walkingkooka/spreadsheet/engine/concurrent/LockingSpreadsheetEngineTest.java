@@ -0,0 +1,530 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.engine.concurrent;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.collect.list.Lists;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.reflect.TypeNameTesting;
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.SpreadsheetFormula;
+import walkingkooka.spreadsheet.SpreadsheetId;
+import walkingkooka.spreadsheet.SpreadsheetViewport;
+import walkingkooka.spreadsheet.engine.FakeSpreadsheetEngine;
+import walkingkooka.spreadsheet.engine.FakeSpreadsheetEngineContext;
+import walkingkooka.spreadsheet.engine.SpreadsheetDelta;
+import walkingkooka.spreadsheet.engine.SpreadsheetDeltaProperties;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngine;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineContext;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineEvaluation;
+import walkingkooka.spreadsheet.meta.SpreadsheetMetadata;
+import walkingkooka.spreadsheet.meta.SpreadsheetMetadataPropertyName;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+import walkingkooka.spreadsheet.store.SpreadsheetCellStore;
+import walkingkooka.spreadsheet.store.SpreadsheetCellStores;
+import walkingkooka.spreadsheet.store.repo.FakeSpreadsheetStoreRepository;
+import walkingkooka.spreadsheet.store.repo.SpreadsheetStoreRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class LockingSpreadsheetEngineTest implements ClassTesting2<LockingSpreadsheetEngine>,
+        TypeNameTesting<LockingSpreadsheetEngine> {
+
+    private final static SpreadsheetCell CELL = SpreadsheetSelection.parseCell("A1")
+            .setFormula(SpreadsheetFormula.EMPTY.setText("=1"));
+
+    private final static int THREADS = 8;
+
+    @Test
+    public void testWithNullEngineFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> LockingSpreadsheetEngine.with(null)
+        );
+    }
+
+    @Test
+    public void testMissingSpreadsheetIdFails() {
+        assertThrows(
+                IllegalStateException.class,
+                () -> LockingSpreadsheetEngine.with(new FakeSpreadsheetEngine())
+                        .saveCell(
+                                CELL,
+                                this.context(SpreadsheetMetadata.EMPTY)
+                        )
+        );
+    }
+
+    @Test
+    public void testLockRemovedAfterUse() {
+        final AtomicInteger locks = new AtomicInteger();
+        final LockingSpreadsheetEngine[] engine = new LockingSpreadsheetEngine[1];
+
+        engine[0] = LockingSpreadsheetEngine.with(
+                new FakeSpreadsheetEngine() {
+                    @Override
+                    public SpreadsheetDelta saveCell(final SpreadsheetCell cell,
+                                                     final SpreadsheetEngineContext context) {
+                        locks.set(engine[0].locks());
+                        return SpreadsheetDelta.EMPTY;
+                    }
+                }
+        );
+        engine[0].saveCell(CELL, this.context(1));
+
+        assertEquals(1, locks.get(), "locks during saveCell");
+        assertEquals(0, engine[0].locks(), "locks after saveCell");
+    }
+
+    @Test
+    public void testLockRemovedAfterFailure() {
+        final LockingSpreadsheetEngine engine = LockingSpreadsheetEngine.with(
+                new FakeSpreadsheetEngine() {
+                    @Override
+                    public SpreadsheetDelta saveCell(final SpreadsheetCell cell,
+                                                     final SpreadsheetEngineContext context) {
+                        throw new IllegalArgumentException();
+                    }
+                }
+        );
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> engine.saveCell(CELL, this.context(1))
+        );
+        assertEquals(0, engine.locks(), "locks");
+    }
+
+    @Test
+    public void testSaveCellDelegates() {
+        final SpreadsheetDelta delta = SpreadsheetDelta.EMPTY.setCells(Sets.of(CELL));
+
+        assertSame(
+                delta,
+                LockingSpreadsheetEngine.with(
+                        new FakeSpreadsheetEngine() {
+                            @Override
+                            public SpreadsheetDelta saveCell(final SpreadsheetCell cell,
+                                                             final SpreadsheetEngineContext context) {
+                                assertSame(CELL, cell, "cell");
+                                return delta;
+                            }
+                        }
+                ).saveCell(CELL, this.context(1))
+        );
+    }
+
+    @Test
+    public void testSaveCellPublishesVersionedCells() {
+        final VersionedSpreadsheetCellStore cells = ConcurrentSpreadsheetCellStores.versioned();
+        final SpreadsheetEngineContext context = this.context(1, cells);
+
+        LockingSpreadsheetEngine.with(
+                new FakeSpreadsheetEngine() {
+                    @Override
+                    public SpreadsheetDelta saveCell(final SpreadsheetCell cell,
+                                                     final SpreadsheetEngineContext context) {
+                        cells.save(cell);
+
+                        try (final VersionedSpreadsheetCellStoreSnapshot snapshot = cells.snapshot()) {
+                            assertEquals(0, snapshot.count(), "snapshot count before publish");
+                        }
+                        return SpreadsheetDelta.EMPTY;
+                    }
+                }
+        ).saveCell(CELL, context);
+
+        try (final VersionedSpreadsheetCellStoreSnapshot snapshot = cells.snapshot()) {
+            assertEquals(Optional.of(CELL), snapshot.load(CELL.reference()), "snapshot after publish");
+        }
+    }
+
+    @Test
+    public void testSaveCellFailsDiscardsVersionedCells() {
+        final VersionedSpreadsheetCellStore cells = ConcurrentSpreadsheetCellStores.versioned();
+        final SpreadsheetEngineContext context = this.context(1, cells);
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> LockingSpreadsheetEngine.with(
+                        new FakeSpreadsheetEngine() {
+                            @Override
+                            public SpreadsheetDelta saveCell(final SpreadsheetCell cell,
+                                                             final SpreadsheetEngineContext context) {
+                                cells.save(cell);
+                                throw new IllegalArgumentException();
+                            }
+                        }
+                ).saveCell(CELL, context)
+        );
+
+        assertEquals(Optional.empty(), cells.load(CELL.reference()), "load");
+
+        try (final VersionedSpreadsheetCellStoreSnapshot snapshot = cells.snapshot()) {
+            assertEquals(0, snapshot.count(), "snapshot count");
+        }
+    }
+
+    @Test
+    public void testLoadCellsVersionedCellsWaitsForSaveCell() throws Exception {
+        final VersionedSpreadsheetCellStore cells = ConcurrentSpreadsheetCellStores.versioned();
+        final SpreadsheetEngineContext context = this.context(1, cells);
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        final AtomicBoolean writing = new AtomicBoolean();
+
+        final SpreadsheetEngine engine = LockingSpreadsheetEngine.with(
+                new FakeSpreadsheetEngine() {
+                    @Override
+                    public SpreadsheetDelta saveCell(final SpreadsheetCell cell,
+                                                     final SpreadsheetEngineContext context) {
+                        writing.set(true);
+                        cells.save(cell);
+
+                        // the reader starts loading cells while the writer holds the write lock.
+                        await(barrier);
+                        try {
+                            Thread.sleep(50);
+                        } catch (final InterruptedException cause) {
+                            throw new IllegalStateException(cause);
+                        }
+                        writing.set(false);
+                        return SpreadsheetDelta.EMPTY;
+                    }
+
+                    @Override
+                    public SpreadsheetDelta loadCells(final SpreadsheetSelection selection,
+                                                      final SpreadsheetEngineEvaluation evaluation,
+                                                      final Set<SpreadsheetDeltaProperties> deltaProperties,
+                                                      final SpreadsheetEngineContext context) {
+                        assertEquals(false, writing.get(), "snapshot read while writing");
+
+                        return SpreadsheetDelta.EMPTY.setCells(
+                                cells.load(CELL.reference())
+                                        .map(Sets::of)
+                                        .orElse(Sets.empty())
+                        );
+                    }
+                }
+        );
+
+        this.run(
+                () -> engine.saveCell(CELL, context),
+                () -> {
+                    await(barrier);
+                    assertEquals(
+                            Sets.of(CELL),
+                            engine.loadCells(
+                                    CELL.reference(),
+                                    SpreadsheetEngineEvaluation.COMPUTE_IF_NECESSARY,
+                                    SpreadsheetDeltaProperties.ALL,
+                                    context
+                            ).cells(),
+                            "published cell loaded"
+                    );
+                    return null;
+                }
+        );
+    }
+
+    @Test
+    public void testWindowSameSpreadsheetConcurrent() throws Exception {
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+
+        final SpreadsheetEngine engine = LockingSpreadsheetEngine.with(
+                new FakeSpreadsheetEngine() {
+                    @Override
+                    public Set<SpreadsheetCellRange> window(final SpreadsheetViewport viewport,
+                                                            final boolean includeFrozenColumnsRows,
+                                                            final Optional<SpreadsheetSelection> selection,
+                                                            final SpreadsheetEngineContext context) {
+                        // both readers must be inside window at the same time to pass the barrier.
+                        await(barrier);
+                        return Sets.empty();
+                    }
+                }
+        );
+
+        final Callable<Object> window = () -> engine.window(
+                SpreadsheetViewport.with(
+                        SpreadsheetSelection.parseCell("A1"),
+                        100,
+                        50
+                ),
+                false,
+                SpreadsheetEngine.NO_SELECTION,
+                this.context(1)
+        );
+        this.run(window, window);
+    }
+
+    @Test
+    public void testLoadCellsVersionedCellsSameSpreadsheetConcurrent() throws Exception {
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+
+        final SpreadsheetEngine engine = LockingSpreadsheetEngine.with(
+                new FakeSpreadsheetEngine() {
+                    @Override
+                    public SpreadsheetDelta loadCells(final SpreadsheetSelection selection,
+                                                      final SpreadsheetEngineEvaluation evaluation,
+                                                      final Set<SpreadsheetDeltaProperties> deltaProperties,
+                                                      final SpreadsheetEngineContext context) {
+                        // both readers must be inside loadCells at the same time to pass the barrier.
+                        await(barrier);
+                        return SpreadsheetDelta.EMPTY;
+                    }
+                }
+        );
+
+        final SpreadsheetEngineContext context = this.context(1, ConcurrentSpreadsheetCellStores.versioned());
+        final Callable<Object> loadCells = () -> engine.loadCells(
+                CELL.reference(),
+                SpreadsheetEngineEvaluation.COMPUTE_IF_NECESSARY,
+                SpreadsheetDeltaProperties.ALL,
+                context
+        );
+        this.run(loadCells, loadCells);
+    }
+
+    @Test
+    public void testLoadCellsVersionedCellsSaveRetriedAndPublished() {
+        final VersionedSpreadsheetCellStore cells = ConcurrentSpreadsheetCellStores.versioned();
+        final AtomicInteger attempts = new AtomicInteger();
+
+        final SpreadsheetDelta delta = SpreadsheetDelta.EMPTY.setCells(Sets.of(CELL));
+
+        assertSame(
+                delta,
+                LockingSpreadsheetEngine.with(
+                        new FakeSpreadsheetEngine() {
+                            @Override
+                            public SpreadsheetDelta loadCells(final SpreadsheetSelection selection,
+                                                              final SpreadsheetEngineEvaluation evaluation,
+                                                              final Set<SpreadsheetDeltaProperties> deltaProperties,
+                                                              final SpreadsheetEngineContext context) {
+                                attempts.incrementAndGet();
+                                cells.save(CELL);
+                                return delta;
+                            }
+                        }
+                ).loadCells(
+                        CELL.reference(),
+                        SpreadsheetEngineEvaluation.COMPUTE_IF_NECESSARY,
+                        SpreadsheetDeltaProperties.ALL,
+                        this.context(1, cells)
+                )
+        );
+
+        assertEquals(2, attempts.get(), "attempts");
+
+        try (final VersionedSpreadsheetCellStoreSnapshot snapshot = cells.snapshot()) {
+            assertEquals(Optional.of(CELL), snapshot.load(CELL.reference()), "snapshot after publish");
+        }
+    }
+
+    @Test
+    public void testLoadCellsVersionedCellsWithoutSaveNotRetried() {
+        final AtomicInteger attempts = new AtomicInteger();
+
+        LockingSpreadsheetEngine.with(
+                new FakeSpreadsheetEngine() {
+                    @Override
+                    public SpreadsheetDelta loadCells(final SpreadsheetSelection selection,
+                                                      final SpreadsheetEngineEvaluation evaluation,
+                                                      final Set<SpreadsheetDeltaProperties> deltaProperties,
+                                                      final SpreadsheetEngineContext context) {
+                        attempts.incrementAndGet();
+                        return SpreadsheetDelta.EMPTY;
+                    }
+                }
+        ).loadCells(
+                CELL.reference(),
+                SpreadsheetEngineEvaluation.COMPUTE_IF_NECESSARY,
+                SpreadsheetDeltaProperties.ALL,
+                this.context(1, ConcurrentSpreadsheetCellStores.versioned())
+        );
+
+        assertEquals(1, attempts.get(), "attempts");
+    }
+
+    @Test
+    public void testSaveCellSameSpreadsheetExclusive() throws Exception {
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+
+        final SpreadsheetEngine engine = LockingSpreadsheetEngine.with(
+                new FakeSpreadsheetEngine() {
+                    @Override
+                    public SpreadsheetDelta saveCell(final SpreadsheetCell cell,
+                                                     final SpreadsheetEngineContext context) {
+                        maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                        try {
+                            Thread.sleep(5);
+                        } catch (final InterruptedException cause) {
+                            throw new IllegalStateException(cause);
+                        }
+                        active.decrementAndGet();
+                        return SpreadsheetDelta.EMPTY;
+                    }
+                }
+        );
+
+        final Callable<Object> saveCell = () -> engine.saveCell(CELL, this.context(1));
+
+        final Callable<?>[] saves = new Callable<?>[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            saves[i] = saveCell;
+        }
+        this.run(saves);
+
+        assertEquals(1, maxActive.get(), "max concurrent saveCell");
+    }
+
+    @Test
+    public void testSaveCellDifferentSpreadsheetsConcurrent() throws Exception {
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+
+        final SpreadsheetEngine engine = LockingSpreadsheetEngine.with(
+                new FakeSpreadsheetEngine() {
+                    @Override
+                    public SpreadsheetDelta saveCell(final SpreadsheetCell cell,
+                                                     final SpreadsheetEngineContext context) {
+                        // writers to different spreadsheets must be inside saveCell at the same time to pass the barrier.
+                        await(barrier);
+                        return SpreadsheetDelta.EMPTY;
+                    }
+                }
+        );
+
+        this.run(
+                () -> engine.saveCell(CELL, this.context(1)),
+                () -> engine.saveCell(CELL, this.context(2))
+        );
+    }
+
+    private static void await(final CyclicBarrier barrier) {
+        try {
+            barrier.await(5, TimeUnit.SECONDS);
+        } catch (final InterruptedException | BrokenBarrierException | TimeoutException cause) {
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private void run(final Callable<?>... callables) throws InterruptedException, ExecutionException {
+        final ExecutorService executor = Executors.newFixedThreadPool(callables.length);
+        try {
+            final List<Future<?>> futures = Lists.array();
+            for (final Callable<?> callable : callables) {
+                futures.add(executor.submit(callable));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private SpreadsheetEngineContext context(final long id) {
+        return this.context(
+                id,
+                SpreadsheetCellStores.treeMap()
+        );
+    }
+
+    private SpreadsheetEngineContext context(final long id,
+                                             final SpreadsheetCellStore cells) {
+        return this.context(
+                SpreadsheetMetadata.EMPTY.set(
+                        SpreadsheetMetadataPropertyName.SPREADSHEET_ID,
+                        SpreadsheetId.with(id)
+                ),
+                cells
+        );
+    }
+
+    private SpreadsheetEngineContext context(final SpreadsheetMetadata metadata) {
+        return this.context(
+                metadata,
+                SpreadsheetCellStores.treeMap()
+        );
+    }
+
+    private SpreadsheetEngineContext context(final SpreadsheetMetadata metadata,
+                                             final SpreadsheetCellStore cells) {
+        return new FakeSpreadsheetEngineContext() {
+            @Override
+            public SpreadsheetMetadata metadata() {
+                return metadata;
+            }
+
+            @Override
+            public SpreadsheetStoreRepository storeRepository() {
+                return new FakeSpreadsheetStoreRepository() {
+                    @Override
+                    public SpreadsheetCellStore cells() {
+                        return cells;
+                    }
+                };
+            }
+        };
+    }
+
+    // ClassTesting.....................................................................................................
+
+    @Override
+    public Class<LockingSpreadsheetEngine> type() {
+        return LockingSpreadsheetEngine.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+
+    // TypeNameTesting..................................................................................................
+
+    @Override
+    public String typeNamePrefix() {
+        return "Locking";
+    }
+
+    @Override
+    public String typeNameSuffix() {
+        return SpreadsheetEngine.class.getSimpleName();
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.expression;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.Cast;
+import walkingkooka.Either;
+import walkingkooka.collect.list.Lists;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.reflect.PublicStaticHelperTesting;
+import walkingkooka.tree.expression.Expression;
+import walkingkooka.tree.expression.ExpressionEvaluationContext;
+import walkingkooka.tree.expression.ExpressionNumber;
+import walkingkooka.tree.expression.ExpressionNumberKind;
+import walkingkooka.tree.expression.FakeExpressionEvaluationContext;
+import walkingkooka.tree.expression.FunctionExpressionName;
+import walkingkooka.tree.expression.function.ExpressionFunction;
+import walkingkooka.tree.expression.function.FakeExpressionFunction;
+
+import java.lang.reflect.Method;
+import java.math.MathContext;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class SpreadsheetCompiledExpressionsTest implements PublicStaticHelperTesting<SpreadsheetCompiledExpressions> {
+
+    @Test
+    public void testCompileNullFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> SpreadsheetCompiledExpressions.compile(null)
+        );
+    }
+
+    @Test
+    public void testCompileWithFunctionsNullExpressionFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> SpreadsheetCompiledExpressions.compile(
+                        null,
+                        (n) -> {
+                            throw new UnsupportedOperationException();
+                        }
+                )
+        );
+    }
+
+    @Test
+    public void testCompileWithFunctionsNullFunctionsFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> SpreadsheetCompiledExpressions.compile(
+                        this.expression(1),
+                        null
+                )
+        );
+    }
+
+    @Test
+    public void testCompileValue() {
+        this.compileAndCheck(
+                this.expression(1),
+                this.number(1).toString()
+        );
+    }
+
+    @Test
+    public void testCompileAdd() {
+        this.compileAndCheck(
+                Expression.add(
+                        this.expression(1),
+                        this.expression(2)
+                ),
+                "(" + this.number(1) + "+" + this.number(2) + ")"
+        );
+    }
+
+    @Test
+    public void testCompileArithmetic() {
+        // 1+2*3-4/2
+        this.compileAndCheck(
+                Expression.subtract(
+                        Expression.add(
+                                this.expression(1),
+                                Expression.multiply(
+                                        this.expression(2),
+                                        this.expression(3)
+                                )
+                        ),
+                        Expression.divide(
+                                this.expression(4),
+                                this.expression(2)
+                        )
+                ),
+                "((" + this.number(1) + "+(" + this.number(2) + "*" + this.number(3) + "))-(" + this.number(4) + "/" + this.number(2) + "))"
+        );
+    }
+
+    @Test
+    public void testCompileNegativePower() {
+        // -(1+2)^2
+        this.compileAndCheck(
+                Expression.power(
+                        Expression.negative(
+                                Expression.add(
+                                        this.expression(1),
+                                        this.expression(2)
+                                )
+                        ),
+                        this.expression(2)
+                ),
+                "(-(" + this.number(1) + "+" + this.number(2) + ")^" + this.number(2) + ")"
+        );
+    }
+
+    @Test
+    public void testCompileValueNotNumber() {
+        this.compileAndCheck(
+                Expression.value("abc"),
+                "abc"
+        );
+    }
+
+    private void compileAndCheck(final Expression expression,
+                                 final String compiled) {
+        final SpreadsheetCompiledExpression compiledExpression = SpreadsheetCompiledExpressions.compile(expression);
+        this.checkEquals(
+                compiled,
+                compiledExpression.toString(),
+                () -> "compile " + expression
+        );
+
+        final ExpressionEvaluationContext context = this.context();
+        this.checkEquals(
+                expression.toValue(context),
+                compiledExpression.toValue(context),
+                () -> "compiled and interpreted values " + expression
+        );
+    }
+
+    @Test
+    public void testEvaluateArithmetic() {
+        // 1+2*3-4/2
+        this.checkEquals(
+                this.number(1 + 2 * 3 - 4 / 2),
+                SpreadsheetCompiledExpressions.compile(
+                        Expression.subtract(
+                                Expression.add(
+                                        this.expression(1),
+                                        Expression.multiply(
+                                                this.expression(2),
+                                                this.expression(3)
+                                        )
+                                ),
+                                Expression.divide(
+                                        this.expression(4),
+                                        this.expression(2)
+                                )
+                        )
+                ).toValue(this.context())
+        );
+    }
+
+    @Test
+    public void testEvaluateTwiceSameResult() {
+        final SpreadsheetCompiledExpression compiled = SpreadsheetCompiledExpressions.compile(
+                Expression.multiply(
+                        Expression.negative(
+                                this.expression(3)
+                        ),
+                        this.expression(4)
+                )
+        );
+        final ExpressionEvaluationContext context = this.context();
+
+        this.checkEquals(
+                this.number(-3 * 4),
+                compiled.toValue(context),
+                "first"
+        );
+        this.checkEquals(
+                this.number(-3 * 4),
+                compiled.toValue(context),
+                "second"
+        );
+    }
+
+    @Test
+    public void testCompileFunctionWithoutFunctionsInterpreted() {
+        final Expression call = this.call();
+
+        this.checkEquals(
+                call.toString(),
+                SpreadsheetCompiledExpressions.compile(call)
+                        .toString()
+        );
+    }
+
+    @Test
+    public void testCompileFunctionResolvedOnce() {
+        final List<FunctionExpressionName> resolved = Lists.array();
+
+        final SpreadsheetCompiledExpression compiled = SpreadsheetCompiledExpressions.compile(
+                Expression.add(
+                        this.call(),
+                        this.expression(2)
+                ),
+                (n) -> {
+                    resolved.add(n);
+
+                    return new FakeExpressionFunction<Object, ExpressionEvaluationContext>() {
+                        @Override
+                        public Object apply(final List<Object> parameters,
+                                            final ExpressionEvaluationContext context) {
+                            return SpreadsheetCompiledExpressionsTest.this.number(1);
+                        }
+                    };
+                }
+        );
+        this.checkEquals(
+                "(" + FUNCTION + "()+" + this.number(2) + ")",
+                compiled.toString()
+        );
+
+        final ExpressionEvaluationContext context = this.context();
+        this.checkEquals(
+                this.number(1 + 2),
+                compiled.toValue(context),
+                "first"
+        );
+        this.checkEquals(
+                this.number(1 + 2),
+                compiled.toValue(context),
+                "second"
+        );
+        this.checkEquals(
+                Lists.of(FUNCTION),
+                resolved,
+                "resolved"
+        );
+    }
+
+    private final static FunctionExpressionName FUNCTION = FunctionExpressionName.with("function123");
+
+    private Expression call() {
+        return Expression.call(
+                Expression.namedFunction(FUNCTION),
+                Lists.empty()
+        );
+    }
+
+    private Expression expression(final int value) {
+        return Expression.value(
+                this.number(value)
+        );
+    }
+
+    private ExpressionNumber number(final int value) {
+        return EXPRESSION_NUMBER_KIND.create(value);
+    }
+
+    private final static ExpressionNumberKind EXPRESSION_NUMBER_KIND = ExpressionNumberKind.DOUBLE;
+
+    private ExpressionEvaluationContext context() {
+        return new FakeExpressionEvaluationContext() {
+            @Override
+            public Object evaluateFunction(final ExpressionFunction<?, ? extends ExpressionEvaluationContext> function,
+                                           final List<Object> parameters) {
+                return function.apply(
+                        parameters,
+                        Cast.to(this)
+                );
+            }
+
+            @Override
+            public ExpressionNumberKind expressionNumberKind() {
+                return EXPRESSION_NUMBER_KIND;
+            }
+
+            @Override
+            public MathContext mathContext() {
+                return MathContext.DECIMAL32;
+            }
+
+            @Override
+            public <T> Either<T, String> convert(final Object value,
+                                                 final Class<T> target) {
+                return target.isInstance(value) ?
+                        this.successfulConversion(
+                                target.cast(value),
+                                target
+                        ) :
+                        this.failConversion(value, target);
+            }
+        };
+    }
+
+    @Override
+    public Class<SpreadsheetCompiledExpressions> type() {
+        return SpreadsheetCompiledExpressions.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PUBLIC;
+    }
+
+    @Override
+    public boolean canHavePublicTypes(final Method method) {
+        return false;
+    }
+}
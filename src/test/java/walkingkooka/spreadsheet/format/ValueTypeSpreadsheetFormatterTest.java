@@ -0,0 +1,185 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.format;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.collect.map.Maps;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class ValueTypeSpreadsheetFormatterTest extends SpreadsheetFormatterTestCase<ValueTypeSpreadsheetFormatter> {
+
+    private final static Integer INTEGER = 11;
+    private final static Double DOUBLE = 222.5;
+    private final static String FALLBACK = "fallback";
+
+    @Test
+    public void testWithNullTypeToFormatterFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> ValueTypeSpreadsheetFormatter.with(
+                        null,
+                        SpreadsheetFormatters.fake()
+                )
+        );
+    }
+
+    @Test
+    public void testWithNullFallbackFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> ValueTypeSpreadsheetFormatter.with(
+                        Maps.empty(),
+                        null
+                )
+        );
+    }
+
+    // canFormat........................................................................................................
+
+    @Test
+    public void testCanFormatType() {
+        this.canFormatAndCheck(DOUBLE, true);
+    }
+
+    @Test
+    public void testCanFormatSuperType() {
+        this.canFormatAndCheck(BigDecimal.ONE, true);
+    }
+
+    @Test
+    public void testCanFormatFallback() {
+        this.canFormatAndCheck(FALLBACK, true);
+    }
+
+    @Test
+    public void testCanFormatTypeFormatterFailsFallback() {
+        this.canFormatAndCheck(12, true);
+    }
+
+    @Test
+    public void testCanFormatUnknownValue() {
+        this.canFormatAndCheck("unknown", false);
+    }
+
+    // format...........................................................................................................
+
+    @Test
+    public void testFormatType() {
+        this.formatAndCheck(INTEGER, "integer");
+    }
+
+    @Test
+    public void testFormatType2() {
+        this.formatAndCheck(DOUBLE, "double");
+    }
+
+    @Test
+    public void testFormatSuperType() {
+        this.formatAndCheck(BigDecimal.ONE, "number");
+    }
+
+    @Test
+    public void testFormatFallback() {
+        this.formatAndCheck(FALLBACK, "fallback");
+    }
+
+    @Test
+    public void testFormatTypeFormatterFailsFallback() {
+        this.formatAndCheck(12, "fallback");
+    }
+
+    // toString.........................................................................................................
+
+    @Test
+    public void testToString() {
+        this.toStringAndCheck(
+                this.createFormatter(),
+                "Integer=integer-formatter, Double=double-formatter, Number=number-formatter, fallback=fallback-formatter"
+        );
+    }
+
+    // helpers..........................................................................................................
+
+    @Override
+    public ValueTypeSpreadsheetFormatter createFormatter() {
+        final Map<Class<?>, SpreadsheetFormatter> typeToFormatter = Maps.ordered();
+        typeToFormatter.put(Integer.class, this.formatter(INTEGER::equals, "integer"));
+        typeToFormatter.put(Double.class, this.formatter(DOUBLE::equals, "double"));
+        typeToFormatter.put(Number.class, this.formatter(BigDecimal.ONE::equals, "number"));
+
+        return ValueTypeSpreadsheetFormatter.with(
+                typeToFormatter,
+                this.formatter(
+                        v -> FALLBACK.equals(v) || Integer.valueOf(12).equals(v),
+                        "fallback"
+                )
+        );
+    }
+
+    private SpreadsheetFormatter formatter(final Predicate<Object> canFormat,
+                                           final String text) {
+        return new SpreadsheetFormatter() {
+            @Override
+            public boolean canFormat(final Object value,
+                                     final SpreadsheetFormatterContext context) {
+                Objects.requireNonNull(value, "value");
+                Objects.requireNonNull(context, "context");
+
+                return canFormat.test(value);
+            }
+
+            @Override
+            public Optional<SpreadsheetText> format(final Object value,
+                                                    final SpreadsheetFormatterContext context) {
+                Objects.requireNonNull(value, "value");
+                Objects.requireNonNull(context, "context");
+
+                return Optional.of(
+                        SpreadsheetText.with(SpreadsheetText.WITHOUT_COLOR, text)
+                );
+            }
+
+            @Override
+            public String toString() {
+                return text + "-formatter";
+            }
+        };
+    }
+
+    @Override
+    public Object value() {
+        return INTEGER;
+    }
+
+    @Override
+    public SpreadsheetFormatterContext createContext() {
+        return SpreadsheetFormatterContexts.fake();
+    }
+
+    @Override
+    public Class<ValueTypeSpreadsheetFormatter> type() {
+        return ValueTypeSpreadsheetFormatter.class;
+    }
+}
@@ -41,6 +41,9 @@ import walkingkooka.spreadsheet.convert.SpreadsheetConverterContext;
 import walkingkooka.spreadsheet.convert.SpreadsheetConverterContexts;
 import walkingkooka.spreadsheet.format.FakeSpreadsheetFormatterContext;
 import walkingkooka.spreadsheet.format.SpreadsheetColorName;
+import walkingkooka.spreadsheet.format.SpreadsheetFormatter;
+import walkingkooka.spreadsheet.format.SpreadsheetFormatterContext;
+import walkingkooka.spreadsheet.format.SpreadsheetFormatters;
 import walkingkooka.spreadsheet.format.SpreadsheetFormatterTesting;
 import walkingkooka.spreadsheet.format.SpreadsheetText;
 import walkingkooka.spreadsheet.format.pattern.SpreadsheetParsePattern;
@@ -1504,53 +1507,144 @@ public final class SpreadsheetMetadataNonEmptyTest extends SpreadsheetMetadataTe
         this.formatAndCheck(this.createSpreadsheetMetadataWithFormatter()
                         .formatter(),
                 value,
-                new FakeSpreadsheetFormatterContext() {
-                    @Override
-                    public boolean canConvert(final Object value,
-                                              final Class<?> target) {
-                        return this.convert(value, target).isLeft();
-                    }
-
-                    @Override
-                    public <T> Either<T, String> convert(final Object value,
-                                                         final Class<T> target) {
-                        return Converters.collection(Lists.of(Converters.simple(),
-                                Converters.numberNumber(),
-                                Converters.localDateLocalDateTime(),
-                                Converters.localTimeLocalDateTime()))
-                                .convert(value, target, ConverterContexts.fake());
-                    }
-
-                    @Override
-                    public char decimalSeparator() {
-                        return this.decimalNumberContext.decimalSeparator();
-                    }
-
-                    @Override
-                    public char groupingSeparator() {
-                        return this.decimalNumberContext.groupingSeparator();
-                    }
-
-                    @Override
-                    public char negativeSign() {
-                        return this.decimalNumberContext.negativeSign();
-                    }
-
-                    @Override
-                    public char positiveSign() {
-                        return this.decimalNumberContext.positiveSign();
-                    }
-
-                    @Override
-                    public MathContext mathContext() {
-                        return this.decimalNumberContext.mathContext();
-                    }
-
-                    private final DecimalNumberContext decimalNumberContext = DecimalNumberContexts.american(MathContext.UNLIMITED);
-                },
+                this.spreadsheetFormatterContext(),
                 SpreadsheetText.with(SpreadsheetText.WITHOUT_COLOR, text));
     }
 
+    // the formatter selected by value type must give the same result as asking each formatter in turn.
+
+    @Test
+    public void testFormatterSameAsChainDate() {
+        this.formatAndCheckSameAsChain(LocalDate.of(2000, 12, 31));
+    }
+
+    @Test
+    public void testFormatterSameAsChainDateTime() {
+        this.formatAndCheckSameAsChain(LocalDateTime.of(2000, 12, 31, 12, 58, 59));
+    }
+
+    @Test
+    public void testFormatterSameAsChainTime() {
+        this.formatAndCheckSameAsChain(LocalTime.of(12, 58, 59));
+    }
+
+    @Test
+    public void testFormatterSameAsChainNumber() {
+        this.formatAndCheckSameAsChain(125.5);
+    }
+
+    @Test
+    public void testFormatterSameAsChainExpressionNumber() {
+        this.formatAndCheckSameAsChain(ExpressionNumberKind.BIG_DECIMAL.create(125.5));
+    }
+
+    @Test
+    public void testFormatterSameAsChainText() {
+        this.formatAndCheckSameAsChain("abc123");
+    }
+
+    @Test
+    public void testFormatterSameAsChainBoolean() {
+        this.formatAndCheckSameAsChain(true);
+    }
+
+    @Test
+    public void testFormatterSameAsChainNumberWithCondition() {
+        this.formatAndCheckSameAsChain(
+                this.createSpreadsheetMetadataWithFormatter()
+                        .set(SpreadsheetMetadataPropertyName.NUMBER_FORMAT_PATTERN, SpreadsheetPattern.parseNumberFormatPattern("[>0]\"Positive\" #.0;\"Other\" #.00")),
+                ExpressionNumberKind.BIG_DECIMAL.create(-1)
+        );
+    }
+
+    private void formatAndCheckSameAsChain(final Object value) {
+        this.formatAndCheckSameAsChain(
+                this.createSpreadsheetMetadataWithFormatter(),
+                value
+        );
+    }
+
+    private void formatAndCheckSameAsChain(final SpreadsheetMetadata metadata,
+                                           final Object value) {
+        final SpreadsheetFormatter chain = SpreadsheetFormatters.chain(
+                Lists.of(
+                        metadata.getOrFail(SpreadsheetMetadataPropertyName.DATETIME_FORMAT_PATTERN).formatter(),
+                        metadata.getOrFail(SpreadsheetMetadataPropertyName.DATE_FORMAT_PATTERN).formatter(),
+                        metadata.getOrFail(SpreadsheetMetadataPropertyName.TIME_FORMAT_PATTERN).formatter(),
+                        metadata.getOrFail(SpreadsheetMetadataPropertyName.NUMBER_FORMAT_PATTERN).formatter(),
+                        metadata.getOrFail(SpreadsheetMetadataPropertyName.TEXT_FORMAT_PATTERN).formatter()
+                )
+        );
+
+        this.checkEquals(
+                formatOrFailure(chain, value),
+                formatOrFailure(metadata.formatter(), value),
+                () -> "format " + CharSequences.quoteIfChars(value)
+        );
+    }
+
+    /**
+     * Returns the formatted text or the class of the thrown exception.
+     */
+    private Object formatOrFailure(final SpreadsheetFormatter formatter,
+                                   final Object value) {
+        try {
+            return formatter.format(
+                    value,
+                    this.spreadsheetFormatterContext()
+            );
+        } catch (final RuntimeException failed) {
+            return failed.getClass();
+        }
+    }
+
+    private SpreadsheetFormatterContext spreadsheetFormatterContext() {
+        return new FakeSpreadsheetFormatterContext() {
+            @Override
+            public boolean canConvert(final Object value,
+                                      final Class<?> target) {
+                return this.convert(value, target).isLeft();
+            }
+
+            @Override
+            public <T> Either<T, String> convert(final Object value,
+                                                 final Class<T> target) {
+                return Converters.collection(Lists.of(Converters.simple(),
+                        Converters.numberNumber(),
+                        Converters.localDateLocalDateTime(),
+                        Converters.localTimeLocalDateTime()))
+                        .convert(value, target, ConverterContexts.fake());
+            }
+
+            @Override
+            public char decimalSeparator() {
+                return this.decimalNumberContext.decimalSeparator();
+            }
+
+            @Override
+            public char groupingSeparator() {
+                return this.decimalNumberContext.groupingSeparator();
+            }
+
+            @Override
+            public char negativeSign() {
+                return this.decimalNumberContext.negativeSign();
+            }
+
+            @Override
+            public char positiveSign() {
+                return this.decimalNumberContext.positiveSign();
+            }
+
+            @Override
+            public MathContext mathContext() {
+                return this.decimalNumberContext.mathContext();
+            }
+
+            private final DecimalNumberContext decimalNumberContext = DecimalNumberContexts.american(MathContext.UNLIMITED);
+        };
+    }
+
     @Test
     public void testFormatterCached() {
         final SpreadsheetMetadata metadata = this.createSpreadsheetMetadataWithFormatter();
@@ -53,6 +53,7 @@ public final class SpreadsheetParserTokenVisitorToExpressionTest extends Spreads
                                         SpreadsheetParserToken.digits("1", "1")
                                 ),
                                 "1"),
+                        false,
                         null));
     }
 
@@ -193,6 +194,7 @@ public final class SpreadsheetParserTokenVisitorToExpressionTest extends Spreads
     private static Optional<Expression> toExpression(final SpreadsheetParserToken token) {
         return SpreadsheetParserTokenVisitorToExpression.toExpression(
                 token,
+                false,
                 new FakeExpressionEvaluationContext() {
                     @Override
                     public ExpressionNumberKind expressionNumberKind() {
@@ -204,7 +206,7 @@ public final class SpreadsheetParserTokenVisitorToExpressionTest extends Spreads
 
     @Override
     public SpreadsheetParserTokenVisitorToExpression createVisitor() {
-        return new SpreadsheetParserTokenVisitorToExpression(null);
+        return new SpreadsheetParserTokenVisitorToExpression(false, null);
     }
 
     @Override
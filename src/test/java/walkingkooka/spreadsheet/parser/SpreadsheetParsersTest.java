@@ -2791,6 +2791,113 @@ public final class SpreadsheetParsersTest implements PublicStaticHelperTesting<S
         this.parseExpressionEvaluateAndCheck("Error.Type()", "Hello");
     }
 
+    // foldConstants....................................................................................................
+
+    @Test
+    public void testFoldConstantsArithmetic() {
+        this.checkEquals(
+                Expression.value(
+                        ExpressionNumberKind.DOUBLE.create(1 + 2 * 3)
+                ),
+                this.toExpression("1+2*3", ExpressionNumberKind.DOUBLE, true)
+        );
+    }
+
+    @Test
+    public void testFoldConstantsNegative() {
+        this.checkEquals(
+                Expression.value(
+                        ExpressionNumberKind.DOUBLE.create(-2.5)
+                ),
+                this.toExpression("-2.5", ExpressionNumberKind.DOUBLE, true)
+        );
+    }
+
+    @Test
+    public void testFoldConstantsKeepsReference() {
+        this.checkEquals(
+                Expression.multiply(
+                        Expression.reference(
+                                SpreadsheetSelection.parseCell("A1")
+                        ),
+                        Expression.value(
+                                ExpressionNumberKind.DOUBLE.create(1 + 0.2)
+                        )
+                ),
+                this.toExpression("A1*(1+0.2)", ExpressionNumberKind.DOUBLE, true)
+        );
+    }
+
+    @Test
+    public void testFoldConstantsDivideByZeroNotFolded() {
+        this.checkEquals(
+                this.toExpression("1/0", ExpressionNumberKind.DOUBLE, false),
+                this.toExpression("1/0", ExpressionNumberKind.DOUBLE, true)
+        );
+    }
+
+    @Test
+    public void testFoldConstantsDisabled() {
+        this.checkEquals(
+                Expression.add(
+                        Expression.value(
+                                ExpressionNumberKind.DOUBLE.create(1)
+                        ),
+                        Expression.value(
+                                ExpressionNumberKind.DOUBLE.create(2)
+                        )
+                ),
+                this.toExpression("1+2", ExpressionNumberKind.DOUBLE, false)
+        );
+    }
+
+    @Test
+    public void testFoldConstantsSameValue() {
+        this.foldConstantsAndCheck("1+2*3-4/2");
+    }
+
+    @Test
+    public void testFoldConstantsSameValue2() {
+        this.foldConstantsAndCheck("-(1+2)^2");
+    }
+
+    @Test
+    public void testFoldConstantsSameValue3() {
+        this.foldConstantsAndCheck("((1+2)*(3+4)-(5+6)*(7+8))/9");
+    }
+
+    @Test
+    public void testFoldConstantsSameValue4() {
+        this.foldConstantsAndCheck("1.5*(2.25+3)/7");
+    }
+
+    /**
+     * Verifies the folded and unfolded {@link Expression} evaluate to the same value for all {@link ExpressionNumberKind}.
+     */
+    private void foldConstantsAndCheck(final String formula) {
+        for (final ExpressionNumberKind kind : ExpressionNumberKind.values()) {
+            final ExpressionEvaluationContext context = this.expressionEvaluationContext(kind);
+
+            this.checkEquals(
+                    this.toExpression(formula, kind, false)
+                            .toValue(context),
+                    this.toExpression(formula, kind, true)
+                            .toValue(context),
+                    () -> formula + " " + kind
+            );
+        }
+    }
+
+    private Expression toExpression(final String formula,
+                                    final ExpressionNumberKind kind,
+                                    final boolean foldConstants) {
+        return this.parse(expressionParser(), formula)
+                .toExpression(
+                        foldConstants,
+                        this.expressionEvaluationContext(kind)
+                ).get();
+    }
+
     // helpers..........................................................................................................
 
     private void parseExpressionThrows(final String text,
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.reference;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.Cast;
+import walkingkooka.ToStringTesting;
+import walkingkooka.collect.list.Lists;
+import walkingkooka.collect.map.Maps;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class PackedSpreadsheetCellReferenceMapTest implements ClassTesting2<PackedSpreadsheetCellReferenceMap<?>>,
+        ToStringTesting<PackedSpreadsheetCellReferenceMap<?>> {
+
+    private final static SpreadsheetCellReference A1 = SpreadsheetSelection.parseCell("A1");
+    private final static SpreadsheetCellReference B2 = SpreadsheetSelection.parseCell("B2");
+    private final static SpreadsheetCellReference C3 = SpreadsheetSelection.parseCell("C3");
+
+    @Test
+    public void testPutNullReferenceFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> PackedSpreadsheetCellReferenceMap.empty()
+                        .put(null, "value")
+        );
+    }
+
+    @Test
+    public void testEmpty() {
+        final PackedSpreadsheetCellReferenceMap<String> map = PackedSpreadsheetCellReferenceMap.empty();
+        this.checkEquals(true, map.isEmpty(), "isEmpty");
+        this.sizeAndCheck(map, 0);
+        this.getAndCheck(map, A1, null);
+    }
+
+    @Test
+    public void testPutAndGet() {
+        final PackedSpreadsheetCellReferenceMap<String> map = PackedSpreadsheetCellReferenceMap.empty();
+        this.checkEquals(null, map.put(A1, "a1"), "put");
+
+        this.getAndCheck(map, A1, "a1");
+        this.getAndCheck(map, B2, null);
+        this.sizeAndCheck(map, 1);
+    }
+
+    @Test
+    public void testPutReplace() {
+        final PackedSpreadsheetCellReferenceMap<String> map = PackedSpreadsheetCellReferenceMap.empty();
+        map.put(A1, "a1");
+        this.checkEquals("a1", map.put(A1, "a1b"), "put");
+
+        this.getAndCheck(map, A1, "a1b");
+        this.sizeAndCheck(map, 1);
+    }
+
+    @Test
+    public void testPutNullValue() {
+        final PackedSpreadsheetCellReferenceMap<String> map = PackedSpreadsheetCellReferenceMap.empty();
+        map.put(A1, null);
+
+        this.checkEquals(true, map.containsKey(A1), "containsKey");
+        this.checkEquals(false, map.containsKey(B2), "containsKey");
+        this.getAndCheck(map, A1, null);
+        this.sizeAndCheck(map, 1);
+    }
+
+    @Test
+    public void testPutIgnoresReferenceKind() {
+        final PackedSpreadsheetCellReferenceMap<String> map = PackedSpreadsheetCellReferenceMap.empty();
+        map.put(A1, "a1");
+        map.put(SpreadsheetSelection.parseCell("$A$1"), "$a$1");
+
+        this.getAndCheck(map, A1, "$a$1");
+        this.sizeAndCheck(map, 1);
+    }
+
+    @Test
+    public void testKeysRelative() {
+        final PackedSpreadsheetCellReferenceMap<String> map = PackedSpreadsheetCellReferenceMap.empty();
+        map.put(SpreadsheetSelection.parseCell("$B$2"), "b2");
+
+        this.checkEquals(
+                Lists.of(B2),
+                map.keys(),
+                "keys"
+        );
+        this.checkEquals(
+                SpreadsheetReferenceKind.RELATIVE,
+                map.keys()
+                        .get(0)
+                        .row()
+                        .referenceKind(),
+                "referenceKind"
+        );
+    }
+
+    @Test
+    public void testRemove() {
+        final PackedSpreadsheetCellReferenceMap<String> map = PackedSpreadsheetCellReferenceMap.empty();
+        map.put(A1, "a1");
+        map.put(B2, "b2");
+
+        this.checkEquals("a1", map.remove(A1), "remove");
+        this.checkEquals(null, map.remove(A1), "remove");
+
+        this.getAndCheck(map, A1, null);
+        this.getAndCheck(map, B2, "b2");
+        this.sizeAndCheck(map, 1);
+    }
+
+    @Test
+    public void testKeysAndValuesSorted() {
+        final PackedSpreadsheetCellReferenceMap<String> map = PackedSpreadsheetCellReferenceMap.empty();
+        map.put(C3, "c3");
+        map.put(A1, "a1");
+        map.put(B2, "b2");
+
+        this.checkEquals(Lists.of(A1, B2, C3), map.keys(), "keys");
+        this.checkEquals(Lists.of("a1", "b2", "c3"), map.values(), "values");
+    }
+
+    @Test
+    public void testKeysFromCount() {
+        final PackedSpreadsheetCellReferenceMap<String> map = PackedSpreadsheetCellReferenceMap.empty();
+        map.put(C3, "c3");
+        map.put(A1, "a1");
+        map.put(B2, "b2");
+
+        this.checkEquals(Lists.of(B2, C3), map.keys(1, 5), "keys 1, 5");
+        this.checkEquals(Lists.of(A1), map.keys(0, 1), "keys 0, 1");
+        this.checkEquals(Lists.empty(), map.keys(3, 1), "keys 3, 1");
+    }
+
+    @Test
+    public void testValuesFromCount() {
+        final PackedSpreadsheetCellReferenceMap<String> map = PackedSpreadsheetCellReferenceMap.empty();
+        map.put(C3, "c3");
+        map.put(A1, "a1");
+        map.put(B2, "b2");
+
+        this.checkEquals(Lists.of("b2", "c3"), map.values(B2, 5), "values B2, 5");
+        this.checkEquals(Lists.of("b2"), map.values(SpreadsheetSelection.parseCell("A2"), 1), "values A2, 1");
+        this.checkEquals(Lists.of("a1", "b2"), map.values(A1.toAbsolute(), 2), "values $A$1, 2");
+        this.checkEquals(Lists.empty(), map.values(SpreadsheetSelection.parseCell("D1"), 1), "values D1, 1");
+    }
+
+    @Test
+    public void testKeysAndValuesAfterPutAndRemove() {
+        final PackedSpreadsheetCellReferenceMap<String> map = PackedSpreadsheetCellReferenceMap.empty();
+        map.put(C3, "c3");
+        map.put(A1, "a1");
+
+        this.checkEquals(Lists.of(A1, C3), map.keys(), "keys");
+
+        map.put(B2, "b2");
+        this.checkEquals(Lists.of(A1, B2, C3), map.keys(), "keys after put");
+
+        map.put(B2, "b2b");
+        this.checkEquals(Lists.of("a1", "b2b", "c3"), map.values(), "values after replace");
+
+        map.remove(A1);
+        this.checkEquals(Lists.of(B2, C3), map.keys(), "keys after remove");
+        this.checkEquals(Lists.of("b2b", "c3"), map.values(A1, 5), "values after remove");
+    }
+
+    @Test
+    public void testManyPutsGetsAndRemoves() {
+        final PackedSpreadsheetCellReferenceMap<Integer> map = PackedSpreadsheetCellReferenceMap.empty();
+        final Map<SpreadsheetCellReference, Integer> expected = Maps.sorted();
+
+        int i = 0;
+        for (int column = 0; column < 50; column++) {
+            for (int row = 0; row < 50; row++) {
+                final SpreadsheetCellReference reference = SpreadsheetReferenceKind.RELATIVE.column(column * 7)
+                        .setRow(SpreadsheetReferenceKind.RELATIVE.row(row * 13));
+                map.put(reference, i);
+                expected.put(reference, i);
+                i++;
+            }
+        }
+
+        // remove every third entry, exercising the shifting of entries after removed slots
+        i = 0;
+        for (final SpreadsheetCellReference reference : new ArrayList<>(expected.keySet())) {
+            if (0 == i % 3) {
+                this.checkEquals(expected.remove(reference), map.remove(reference), () -> "remove " + reference);
+            }
+            i++;
+        }
+
+        this.sizeAndCheck(map, expected.size());
+
+        for (final Map.Entry<SpreadsheetCellReference, Integer> referenceAndValue : expected.entrySet()) {
+            this.getAndCheck(map, referenceAndValue.getKey(), referenceAndValue.getValue());
+        }
+
+        this.checkEquals(new ArrayList<>(expected.keySet()), map.keys(), "keys");
+        this.checkEquals(new ArrayList<>(expected.values()), map.values(), "values");
+    }
+
+    private <V> void getAndCheck(final PackedSpreadsheetCellReferenceMap<V> map,
+                                 final SpreadsheetCellReference reference,
+                                 final V expected) {
+        this.checkEquals(
+                expected,
+                map.get(reference),
+                () -> "get " + reference
+        );
+    }
+
+    private void sizeAndCheck(final PackedSpreadsheetCellReferenceMap<?> map,
+                              final int expected) {
+        this.checkEquals(
+                expected,
+                map.size(),
+                () -> "size " + map
+        );
+    }
+
+    // toString.........................................................................................................
+
+    @Test
+    public void testToString() {
+        final PackedSpreadsheetCellReferenceMap<String> map = PackedSpreadsheetCellReferenceMap.empty();
+        map.put(B2, null);
+        map.put(A1, "a1");
+
+        this.toStringAndCheck(map, "{A1=a1, B2=null}");
+    }
+
+    // ClassTesting.....................................................................................................
+
+    @Override
+    public Class<PackedSpreadsheetCellReferenceMap<?>> type() {
+        return Cast.to(PackedSpreadsheetCellReferenceMap.class);
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PUBLIC;
+    }
+}
@@ -32,6 +32,8 @@ import walkingkooka.tree.json.JsonNode;
 import walkingkooka.tree.json.marshall.JsonNodeUnmarshallContext;
 import walkingkooka.visit.Visiting;
 
+import java.util.Objects;
+
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -1411,6 +1413,115 @@ public final class SpreadsheetCellReferenceTest extends SpreadsheetCellReference
         );
     }
 
+    // pack.............................................................................................................
+
+    @Test
+    public void testPack() {
+        this.packAndCheck(
+                "C5",
+                2L << 32 | 4
+        );
+    }
+
+    @Test
+    public void testPackIgnoresReferenceKind() {
+        this.packAndCheck(
+                "$C$5",
+                SpreadsheetSelection.parseCell("C5")
+                        .pack()
+        );
+    }
+
+    @Test
+    public void testPackMax() {
+        this.packAndCheck(
+                SpreadsheetSelection.cell(
+                        SpreadsheetColumnReference.MAX,
+                        SpreadsheetRowReference.MAX
+                ),
+                (long) SpreadsheetColumnReference.MAX_VALUE << 32 | SpreadsheetRowReference.MAX_VALUE
+        );
+    }
+
+    @Test
+    public void testPackOrderMatchesCompareTo() {
+        final SpreadsheetCellReference b1 = SpreadsheetSelection.parseCell("B1");
+        final SpreadsheetCellReference a2 = SpreadsheetSelection.parseCell("A2");
+
+        this.checkEquals(
+                true,
+                a2.compareTo(b1) < 0,
+                () -> a2 + " compareTo " + b1
+        );
+        this.checkEquals(
+                true,
+                a2.pack() < b1.pack(),
+                () -> a2 + " pack < " + b1 + " pack"
+        );
+    }
+
+    @Test
+    public void testUnpack() {
+        final SpreadsheetCellReference cell = SpreadsheetSelection.parseCell("C5");
+        this.checkEquals(
+                cell,
+                SpreadsheetCellReference.unpack(cell.pack())
+        );
+    }
+
+    @Test
+    public void testUnpackAbsoluteIsRelative() {
+        this.checkEquals(
+                SpreadsheetReferenceKind.RELATIVE,
+                SpreadsheetCellReference.unpack(
+                        SpreadsheetSelection.parseCell("$C$5")
+                                .pack()
+                ).column()
+                        .referenceKind()
+        );
+    }
+
+    @Test
+    public void testUnpackMax() {
+        final SpreadsheetCellReference max = SpreadsheetSelection.cell(
+                SpreadsheetColumnReference.MAX,
+                SpreadsheetRowReference.MAX
+        );
+        this.checkEquals(
+                max,
+                SpreadsheetCellReference.unpack(max.pack())
+        );
+    }
+
+    private void packAndCheck(final String cell,
+                              final long expected) {
+        this.packAndCheck(
+                SpreadsheetSelection.parseCell(cell),
+                expected
+        );
+    }
+
+    private void packAndCheck(final SpreadsheetCellReference cell,
+                              final long expected) {
+        this.checkEquals(
+                expected,
+                cell.pack(),
+                () -> cell + " pack"
+        );
+    }
+
+    // hashCode.........................................................................................................
+
+    @Test
+    public void testHashCodeSameAsObjectsHash() {
+        final SpreadsheetCellReference cell = this.createSelection();
+
+        this.checkEquals(
+                Objects.hash(cell.column(), cell.row()),
+                cell.hashCode()
+        );
+    }
+
     // compare..........................................................................................................
 
     @Test
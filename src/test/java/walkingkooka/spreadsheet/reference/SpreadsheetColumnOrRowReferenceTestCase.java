@@ -20,6 +20,8 @@ package walkingkooka.spreadsheet.reference;
 import org.junit.jupiter.api.Test;
 import walkingkooka.compare.ComparableTesting2;
 
+import java.util.Objects;
+
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -300,6 +302,18 @@ public abstract class SpreadsheetColumnOrRowReferenceTestCase<R extends Spreadsh
         this.toCellOrFailFails();
     }
 
+    // hashCode.........................................................................................................
+
+    @Test
+    public final void testHashCodeSameAsObjectsHash() {
+        final R reference = this.createReference(VALUE, REFERENCE_KIND);
+
+        this.checkEquals(
+                Objects.hash(reference.value(), reference.referenceKind()),
+                reference.hashCode()
+        );
+    }
+
     // helper............................................................................................................
 
     final R createSelection() {
@@ -64,6 +64,24 @@ public final class ReadOnlySpreadsheetCellRangeStoreTest implements SpreadsheetC
     public void testAddDeleteWatcherAndRemove() {
     }
 
+    @Override
+    public void testAddValueWatcherAndAddValue() {
+    }
+
+    @Override
+    public void testAddValueWatcherAndRemoveValue() {
+    }
+
+    @Override
+    public void testAddValueWatcherAndRemoveWatcher() {
+    }
+
+    @Test
+    public void testAddValueWatcherFails() {
+        assertThrows(UnsupportedOperationException.class, () -> this.createStore().addValueWatcher((r) -> {
+        }));
+    }
+
     @Test
     public void testAddValueFails() {
         assertThrows(UnsupportedOperationException.class, () -> this.createStore().addValue(RANGE, VALUE));
@@ -24,6 +24,8 @@ import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
 import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public final class TreeMapSpreadsheetCellRangeStoreTest extends TreeMapSpreadsheetCellRangeStoreTestCase<TreeMapSpreadsheetCellRangeStore<String>>
@@ -885,6 +887,32 @@ public final class TreeMapSpreadsheetCellRangeStoreTest extends TreeMapSpreadshe
         this.loadRangeAndCheck(store, RANGE1A, VALUE2);
     }
 
+    @Test
+    public void testReplaceValueFiresValueWatcher() {
+        final TreeMapSpreadsheetCellRangeStore<String> store = this.createStore();
+        store.addValue(RANGE1A, VALUE1);
+
+        final List<SpreadsheetCellRange> fired = Lists.array();
+        store.addValueWatcher(fired::add);
+
+        store.replaceValue(RANGE1AABSOLUTE, VALUE2, VALUE1);
+
+        this.checkEquals(Lists.of(RANGE1A), fired, "fired ranges");
+    }
+
+    @Test
+    public void testReplaceValueInvalidOldValueDoesntFireValueWatcher() {
+        final TreeMapSpreadsheetCellRangeStore<String> store = this.createStore();
+        store.addValue(RANGE1A, VALUE1);
+
+        final List<SpreadsheetCellRange> fired = Lists.array();
+        store.addValueWatcher(fired::add);
+
+        store.replaceValue(RANGE1A, VALUE3, VALUE2);
+
+        this.checkEquals(Lists.empty(), fired, "fired ranges");
+    }
+
     @Test
     public void testReplaceValueAbsoluteRange() {
         final TreeMapSpreadsheetCellRangeStore<String> store = this.createStore();
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.Cast;
+import walkingkooka.ToStringTesting;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+
+final class ColumnarSpreadsheetCellStoreInternerTest implements ClassTesting2<ColumnarSpreadsheetCellStoreInterner<?>>,
+        ToStringTesting<ColumnarSpreadsheetCellStoreInterner<?>> {
+
+    @Test
+    public void testIndexSameValue() {
+        final ColumnarSpreadsheetCellStoreInterner<String> interner = ColumnarSpreadsheetCellStoreInterner.empty();
+
+        final int index = interner.index("a");
+        this.checkEquals(index, interner.index("a"), "index");
+        this.checkEquals("a", interner.get(index), "get");
+        this.sizeAndCheck(interner, 1);
+    }
+
+    @Test
+    public void testIndexDifferentValues() {
+        final ColumnarSpreadsheetCellStoreInterner<String> interner = ColumnarSpreadsheetCellStoreInterner.empty();
+
+        final int a = interner.index("a");
+        final int b = interner.index("b");
+        this.checkNotEquals(a, b, "index");
+        this.checkEquals("a", interner.get(a), "get");
+        this.checkEquals("b", interner.get(b), "get");
+        this.sizeAndCheck(interner, 2);
+    }
+
+    @Test
+    public void testReleaseStillUsed() {
+        final ColumnarSpreadsheetCellStoreInterner<String> interner = ColumnarSpreadsheetCellStoreInterner.empty();
+
+        final int index = interner.index("a");
+        interner.index("a");
+        interner.release(index);
+
+        this.checkEquals("a", interner.get(index), "get");
+        this.sizeAndCheck(interner, 1);
+    }
+
+    @Test
+    public void testReleaseLastForgetsValue() {
+        final ColumnarSpreadsheetCellStoreInterner<String> interner = ColumnarSpreadsheetCellStoreInterner.empty();
+
+        final int index = interner.index("a");
+        interner.release(index);
+
+        this.sizeAndCheck(interner, 0);
+        this.toStringAndCheck(interner, "[]");
+    }
+
+    @Test
+    public void testReleaseLastIndexReused() {
+        final ColumnarSpreadsheetCellStoreInterner<String> interner = ColumnarSpreadsheetCellStoreInterner.empty();
+
+        final int a = interner.index("a");
+        interner.index("b");
+        interner.release(a);
+
+        this.checkEquals(a, interner.index("c"), "index reused");
+        this.checkEquals("c", interner.get(a), "get");
+        this.sizeAndCheck(interner, 2);
+    }
+
+    @Test
+    public void testReleaseAndIndexAgain() {
+        final ColumnarSpreadsheetCellStoreInterner<String> interner = ColumnarSpreadsheetCellStoreInterner.empty();
+
+        for (int i = 0; i < 100; i++) {
+            interner.release(
+                    interner.index("value" + i)
+            );
+        }
+
+        this.sizeAndCheck(interner, 0);
+        this.checkEquals(0, interner.index("last"), "index");
+    }
+
+    private void sizeAndCheck(final ColumnarSpreadsheetCellStoreInterner<?> interner,
+                              final int size) {
+        this.checkEquals(size, interner.size(), () -> "size " + interner);
+    }
+
+    @Test
+    public void testToString() {
+        final ColumnarSpreadsheetCellStoreInterner<String> interner = ColumnarSpreadsheetCellStoreInterner.empty();
+        interner.index("a");
+        interner.index("b");
+
+        this.toStringAndCheck(interner, "[a, b]");
+    }
+
+    @Override
+    public Class<ColumnarSpreadsheetCellStoreInterner<?>> type() {
+        return Cast.to(ColumnarSpreadsheetCellStoreInterner.class);
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
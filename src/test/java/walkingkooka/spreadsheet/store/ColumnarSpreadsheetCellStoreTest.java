@@ -0,0 +1,527 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.collect.list.Lists;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.reflect.TypeNameTesting;
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.SpreadsheetFormula;
+import walkingkooka.spreadsheet.format.pattern.SpreadsheetPattern;
+import walkingkooka.spreadsheet.parser.SpreadsheetParserToken;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetReferenceKind;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+import walkingkooka.tree.expression.Expression;
+import walkingkooka.tree.text.FontStyle;
+import walkingkooka.tree.text.FontWeight;
+import walkingkooka.tree.text.Length;
+import walkingkooka.tree.text.TextNode;
+import walkingkooka.tree.text.TextStyle;
+import walkingkooka.tree.text.TextStylePropertyName;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+final class ColumnarSpreadsheetCellStoreTest implements SpreadsheetCellStoreTesting<ColumnarSpreadsheetCellStore>,
+        TypeNameTesting<ColumnarSpreadsheetCellStore> {
+
+    @Test
+    public void testLoadUnknown() {
+        this.loadFailCheck(this.createStore(), SpreadsheetSelection.parseCell("Z99"));
+    }
+
+    @Test
+    public void testSaveAndLoad() {
+        final ColumnarSpreadsheetCellStore store = this.createStore();
+
+        final SpreadsheetCell cell = this.cell("B3", "1+2");
+        store.save(cell);
+
+        this.loadAndCheck(store, cell);
+    }
+
+    @Test
+    public void testSaveReplacing() {
+        final ColumnarSpreadsheetCellStore store = this.createStore();
+
+        final SpreadsheetCell cell = this.cell("B3", "1+2");
+        this.checkEquals(false, store.saveReplacing(cell), "saveReplacing new cell");
+
+        final SpreadsheetCell replacing = this.cell("B3", "3+4");
+        this.checkEquals(true, store.saveReplacing(replacing), "saveReplacing existing cell");
+
+        this.countAndCheck(store, 1);
+        this.loadAndCheck(store, replacing);
+    }
+
+    @Test
+    public void testSaveAndLoadAllProperties() {
+        final ColumnarSpreadsheetCellStore store = this.createStore();
+
+        final SpreadsheetCell cell = this.cell("B3", "1+2")
+                .setStyle(this.bold())
+                .setFormatPattern(Optional.of(SpreadsheetPattern.parseTextFormatPattern("@")))
+                .setFormatted(Optional.of(TextNode.text("formatted")));
+        store.save(cell);
+
+        this.loadAndCheck(store, cell);
+    }
+
+    @Test
+    public void testSaveAndLoadParsePatternAndToken() {
+        final ColumnarSpreadsheetCellStore store = this.createStore();
+
+        final SpreadsheetCell cell = SpreadsheetSelection.parseCell("B3")
+                .setFormula(SpreadsheetFormula.EMPTY.setText("1"))
+                .setParsePattern(Optional.of(SpreadsheetPattern.parseNumberParsePattern("#")))
+                .setFormula(
+                        SpreadsheetFormula.EMPTY.setToken(
+                                Optional.of(
+                                        SpreadsheetParserToken.number(
+                                                Lists.of(
+                                                        SpreadsheetParserToken.digits("1", "1")
+                                                ),
+                                                "1"
+                                        )
+                                )
+                        )
+                );
+        store.save(cell);
+
+        this.loadAndCheck(store, cell);
+    }
+
+    @Test
+    public void testSaveAbsoluteAndLoadAbsolute() {
+        this.saveAndLoadReferenceKindsAndCheck("$B$3");
+    }
+
+    @Test
+    public void testSaveAbsoluteColumnAndLoadAbsoluteColumn() {
+        this.saveAndLoadReferenceKindsAndCheck("$B3");
+    }
+
+    @Test
+    public void testSaveAbsoluteRowAndLoadAbsoluteRow() {
+        this.saveAndLoadReferenceKindsAndCheck("B$3");
+    }
+
+    private void saveAndLoadReferenceKindsAndCheck(final String reference) {
+        final ColumnarSpreadsheetCellStore store = this.createStore();
+
+        final SpreadsheetCell cell = this.cell(reference, "1+2");
+        store.save(cell);
+
+        final SpreadsheetCellReference loaded = store.loadOrFail(SpreadsheetSelection.parseCell("B3"))
+                .reference();
+        this.checkEquals(
+                cell.reference().column().referenceKind(),
+                loaded.column().referenceKind(),
+                () -> "column reference kind " + loaded
+        );
+        this.checkEquals(
+                cell.reference().row().referenceKind(),
+                loaded.row().referenceKind(),
+                () -> "row reference kind " + loaded
+        );
+        this.checkEquals(
+                cell.reference().toString(),
+                loaded.toString(),
+                "reference"
+        );
+    }
+
+    @Test
+    public void testSaveAndLoadTokenExpressionAndValue() {
+        final ColumnarSpreadsheetCellStore store = this.createStore();
+
+        final SpreadsheetCell cell = SpreadsheetSelection.parseCell("B3")
+                .setFormula(
+                        SpreadsheetFormula.EMPTY.setToken(
+                                Optional.of(
+                                        SpreadsheetParserToken.text(
+                                                Lists.of(
+                                                        SpreadsheetParserToken.apostropheSymbol("'", "'"),
+                                                        SpreadsheetParserToken.textLiteral("abc", "abc")
+                                                ),
+                                                "'abc"
+                                        )
+                                )
+                        ).setExpression(
+                                Optional.of(Expression.value("abc"))
+                        ).setValue(
+                                Optional.of("abc")
+                        )
+                );
+        store.save(cell);
+
+        this.loadAndCheck(store, cell);
+    }
+
+    @Test
+    public void testSaveAndLoadTextExpressionAndValueWithoutToken() {
+        final ColumnarSpreadsheetCellStore store = this.createStore();
+
+        final SpreadsheetCell cell = SpreadsheetSelection.parseCell("B3")
+                .setFormula(
+                        SpreadsheetFormula.EMPTY.setText("'abc")
+                                .setExpression(
+                                        Optional.of(Expression.value("abc"))
+                                ).setValue(
+                                        Optional.of("abc")
+                                )
+                );
+        store.save(cell);
+
+        this.loadAndCheck(store, cell);
+    }
+
+    @Test
+    public void testSaveAndLoadStyledFormatted() {
+        final ColumnarSpreadsheetCellStore store = this.createStore();
+
+        final SpreadsheetCell cell = this.cell("B3", "1+2")
+                .setFormatted(
+                        Optional.of(
+                                this.bold()
+                                        .replace(TextNode.text("formatted"))
+                        )
+                );
+        store.save(cell);
+
+        this.loadAndCheck(store, cell);
+    }
+
+    @Test
+    public void testSaveReplaces() {
+        final ColumnarSpreadsheetCellStore store = this.createStore();
+
+        store.save(this.cell("B3", "1+2"));
+
+        final SpreadsheetCell cell = this.cell("B3", "3+4");
+        store.save(cell);
+
+        this.loadAndCheck(store, cell);
+        this.countAndCheck(store, 1);
+    }
+
+    @Test
+    public void testSaveFiresWatcher() {
+        final ColumnarSpreadsheetCellStore store = this.createStore();
+
+        final SpreadsheetCell cell = this.cell("B3", "1+2");
+        final SpreadsheetCell[] saved = new SpreadsheetCell[1];
+        store.addSaveWatcher(c -> saved[0] = c);
+
+        store.save(cell);
+
+        assertSame(cell, saved[0], "saved");
+    }
+
+    @Test
+    public void testSaveSharesEqualStyles() {
+        final ColumnarSpreadsheetCellStore store = this.createStore();
+
+        store.save(this.cell("B3", "1").setStyle(this.bold()));
+        store.save(this.cell("C4", "2").setStyle(this.bold()));
+
+        assertSame(
+                store.loadOrFail(SpreadsheetSelection.parseCell("B3")).style(),
+                store.loadOrFail(SpreadsheetSelection.parseCell("C4")).style()
+        );
+    }
+
+    @Test
+    public void testSaveReplacesStyleAndSavesStyleAgain() {
+        final ColumnarSpreadsheetCellStore store = this.createStore();
+
+        store.save(this.cell("B3", "1").setStyle(this.bold()));
+        store.save(this.cell("B3", "1"));
+
+        final SpreadsheetCell cell = this.cell("B3", "2").setStyle(this.bold());
+        store.save(cell);
+
+        this.loadAndCheck(store, cell);
+    }
+
+    @Test
+    public void testDeleteThenSaveDifferentStyle() {
+        final ColumnarSpreadsheetCellStore store = this.createStore();
+
+        store.save(this.cell("B3", "1").setStyle(this.bold()));
+        store.delete(SpreadsheetSelection.parseCell("B3"));
+
+        final TextStyle italic = TextStyle.EMPTY
+                .set(TextStylePropertyName.FONT_STYLE, FontStyle.ITALIC);
+        final SpreadsheetCell c4 = this.cell("C4", "2").setStyle(italic);
+        store.save(c4);
+
+        final SpreadsheetCell d5 = this.cell("D5", "3").setStyle(this.bold());
+        store.save(d5);
+
+        this.loadAndCheck(store, c4);
+        this.loadAndCheck(store, d5);
+    }
+
+    @Test
+    public void testDelete() {
+        final ColumnarSpreadsheetCellStore store = this.createStore();
+
+        final SpreadsheetCell b3 = this.cell("B3", "1");
+        final SpreadsheetCell b4 = this.cell("B4", "2");
+        final SpreadsheetCell b5 = this.cell("B5", "3");
+        store.save(b3);
+        store.save(b4);
+        store.save(b5);
+
+        final SpreadsheetCellReference[] deleted = new SpreadsheetCellReference[1];
+        store.addDeleteWatcher(r -> deleted[0] = r);
+
+        store.delete(b4.reference());
+
+        this.checkEquals(b4.reference(), deleted[0], "deleted");
+        this.loadFailCheck(store, b4.reference());
+        this.loadAndCheck(store, b3);
+        this.loadAndCheck(store, b5);
+        this.countAndCheck(store, 2);
+    }
+
+    @Test
+    public void testDeleteUnknown() {
+        final ColumnarSpreadsheetCellStore store = this.createStore();
+        store.save(this.cell("B3", "1"));
+
+        store.addDeleteWatcher(r -> {
+            throw new UnsupportedOperationException();
+        });
+        store.delete(SpreadsheetSelection.parseCell("B4"));
+        store.delete(SpreadsheetSelection.parseCell("Z99"));
+
+        this.countAndCheck(store, 1);
+    }
+
+    @Test
+    public void testIdsAndValuesSortedWhenSavedOutOfOrder() {
+        final ColumnarSpreadsheetCellStore store = this.createStore();
+
+        final SpreadsheetCell c1 = this.cell("C1", "1");
+        final SpreadsheetCell a2 = this.cell("A2", "2");
+        final SpreadsheetCell a1 = this.cell("A1", "3");
+        store.save(c1);
+        store.save(a2);
+        store.save(a1);
+
+        this.idsAndCheck(
+                store,
+                0,
+                3,
+                a1.reference(), a2.reference(), c1.reference()
+        );
+        this.idsAndCheck(
+                store,
+                1,
+                2,
+                a2.reference(), c1.reference()
+        );
+
+        this.checkEquals(
+                Lists.of(a2, c1),
+                store.values(a2.reference(), 3)
+        );
+        this.checkEquals(
+                Lists.of(c1),
+                store.values(SpreadsheetSelection.parseCell("B1"), 3)
+        );
+    }
+
+    @Test
+    public void testLoadCells() {
+        final ColumnarSpreadsheetCellStore store = this.createStore();
+
+        store.save(this.cell("A1", "1"));
+        final SpreadsheetCell b2 = this.cell("B2", "2");
+        store.save(b2);
+        final SpreadsheetCell c3 = this.cell("C3", "3");
+        store.save(c3);
+        store.save(this.cell("C4", "4"));
+        store.save(this.cell("D4", "5"));
+
+        this.checkEquals(
+                Sets.of(b2, c3),
+                store.loadCells(SpreadsheetSelection.parseCellRange("B2:C3"))
+        );
+    }
+
+    @Test
+    public void testRowsAndColumns() {
+        final ColumnarSpreadsheetCellStore store = this.createStore();
+
+        store.save(this.cell("B9", "1"));
+        store.save(this.cell("D3", "2"));
+
+        this.checkEquals(8, store.rows(), "rows");
+        this.checkEquals(3, store.columns(), "columns");
+    }
+
+    @Test
+    public void testRowAndColumn() {
+        final ColumnarSpreadsheetCellStore store = this.createStore();
+
+        final SpreadsheetCell b2 = this.cell("B2", "1");
+        final SpreadsheetCell b3 = this.cell("B3", "2");
+        final SpreadsheetCell c3 = this.cell("C3", "3");
+        store.save(b2);
+        store.save(b3);
+        store.save(c3);
+
+        this.checkEquals(
+                Sets.of(b3, c3),
+                store.row(SpreadsheetSelection.parseRow("3")),
+                "row"
+        );
+        this.checkEquals(
+                Sets.of(b2, b3),
+                store.column(SpreadsheetSelection.parseColumn("B")),
+                "column"
+        );
+    }
+
+    @Test
+    public void testMaxColumnWidthAndMaxRowHeight() {
+        final ColumnarSpreadsheetCellStore store = this.createStore();
+
+        store.save(this.cellWithWidthAndHeight("C3", 50, 10));
+        store.save(this.cellWithWidthAndHeight("C4", 99, 20));
+        store.save(this.cellWithWidthAndHeight("D3", 150, 30));
+        store.save(this.cell("C5", "1"));
+
+        this.checkEquals(99.0, store.maxColumnWidth(SpreadsheetSelection.parseColumn("C")), "maxColumnWidth");
+        this.checkEquals(0.0, store.maxColumnWidth(SpreadsheetSelection.parseColumn("Z")), "maxColumnWidth");
+        this.checkEquals(30.0, store.maxRowHeight(SpreadsheetSelection.parseRow("3")), "maxRowHeight");
+        this.checkEquals(0.0, store.maxRowHeight(SpreadsheetSelection.parseRow("99")), "maxRowHeight");
+    }
+
+    @Test
+    public void testManySavesAndDeletes() {
+        final ColumnarSpreadsheetCellStore store = this.createStore();
+
+        final SpreadsheetCellStore expected = SpreadsheetCellStores.treeMap();
+
+        for (int row = 99; row >= 0; row--) {
+            for (int column = 0; column < 10; column++) {
+                final SpreadsheetCell cell = SpreadsheetReferenceKind.RELATIVE.column(column)
+                        .setRow(SpreadsheetReferenceKind.RELATIVE.row(row))
+                        .setFormula(SpreadsheetFormula.EMPTY.setText("" + row));
+                store.save(cell);
+                expected.save(cell);
+            }
+        }
+
+        for (final SpreadsheetCellReference reference : expected.ids(0, 1000)) {
+            if (0 == (reference.row().value() + reference.column().value()) % 3) {
+                store.delete(reference);
+                expected.delete(reference);
+            }
+        }
+
+        this.countAndCheck(store, expected.count());
+        this.checkEquals(expected.ids(0, 1000), store.ids(0, 1000), "ids");
+        this.checkEquals(expected.values(SpreadsheetCellReference.A1, 1000), store.values(SpreadsheetCellReference.A1, 1000), "values");
+    }
+
+    private SpreadsheetCell cell(final String reference,
+                                 final String formula) {
+        return SpreadsheetSelection.parseCell(reference)
+                .setFormula(
+                        SpreadsheetFormula.EMPTY.setText(formula)
+                );
+    }
+
+    private SpreadsheetCell cellWithWidthAndHeight(final String reference,
+                                                   final double width,
+                                                   final double height) {
+        return this.cell(reference, "1")
+                .setStyle(
+                        TextStyle.EMPTY
+                                .set(TextStylePropertyName.WIDTH, Length.pixel(width))
+                                .set(TextStylePropertyName.HEIGHT, Length.pixel(height))
+                );
+    }
+
+    private TextStyle bold() {
+        return TextStyle.EMPTY
+                .set(TextStylePropertyName.FONT_WEIGHT, FontWeight.BOLD);
+    }
+
+    private void loadAndCheck(final ColumnarSpreadsheetCellStore store,
+                              final SpreadsheetCell cell) {
+        this.checkEquals(
+                Optional.of(cell),
+                store.load(cell.reference()),
+                () -> "load " + cell.reference()
+        );
+    }
+
+    // toString.........................................................................................................
+
+    @Test
+    public void testToString() {
+        final ColumnarSpreadsheetCellStore store = this.createStore();
+        store.save(this.cell("B2", "3+4"));
+        store.save(this.cell("A1", "1+2"));
+
+        this.toStringAndCheck(store, "[A1=1+2, B2=3+4]");
+    }
+
+    @Override
+    public ColumnarSpreadsheetCellStore createStore() {
+        return ColumnarSpreadsheetCellStore.create();
+    }
+
+    @Override
+    public SpreadsheetCellReference id() {
+        return SpreadsheetSelection.parseCell("A1");
+    }
+
+    @Override
+    public SpreadsheetCell value() {
+        return this.cell("A1", "1+2");
+    }
+
+    // ClassTesting.....................................................................................................
+
+    @Override
+    public Class<ColumnarSpreadsheetCellStore> type() {
+        return ColumnarSpreadsheetCellStore.class;
+    }
+
+    // TypeNameTesting..................................................................................................
+
+    @Override
+    public String typeNamePrefix() {
+        return "Columnar";
+    }
+
+    @Override
+    public String typeNameSuffix() {
+        return SpreadsheetCellStore.class.getSimpleName();
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.collect.list.Lists;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.SpreadsheetFormula;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetColumnReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetReferenceKind;
+import walkingkooka.spreadsheet.reference.SpreadsheetRowReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+import walkingkooka.tree.text.Length;
+import walkingkooka.tree.text.TextStyle;
+import walkingkooka.tree.text.TextStylePropertyName;
+
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+final class PackedSpreadsheetCellStoreTest extends SpreadsheetCellStoreTestCase<PackedSpreadsheetCellStore> {
+
+    @Test
+    public void testLoadCells() {
+        final PackedSpreadsheetCellStore store = this.createStore();
+
+        final SpreadsheetCell a1 = SpreadsheetSelection.parseCell("A1")
+                .setFormula(SpreadsheetFormula.EMPTY);
+        store.save(a1);
+
+        final SpreadsheetCell b2 = SpreadsheetSelection.parseCell("B2")
+                .setFormula(SpreadsheetFormula.EMPTY);
+        store.save(b2);
+
+        final SpreadsheetCell c3 = SpreadsheetSelection.parseCell("C3")
+                .setFormula(SpreadsheetFormula.EMPTY);
+        store.save(c3);
+
+        final SpreadsheetCell d4 = SpreadsheetSelection.parseCell("D4")
+                .setFormula(SpreadsheetFormula.EMPTY);
+        store.save(d4);
+
+        this.checkEquals(
+                Sets.of(
+                        b2, c3
+                ),
+                store.loadCells(SpreadsheetSelection.parseCellRange("B2:C3"))
+        );
+    }
+
+    @Test
+    public void testCursorSeveralPagesSkipsCellDeletedAfterOpened() {
+        final PackedSpreadsheetCellStore store = this.createStore();
+
+        final int count = SpreadsheetCellStoreColumnMajorCursor.PAGE_SIZE * 2 + 1;
+        final List<SpreadsheetCell> expected = Lists.array();
+        for (int row = count - 1; row >= 0; row--) {
+            store.save(
+                    SpreadsheetReferenceKind.RELATIVE.column(0)
+                            .setRow(SpreadsheetReferenceKind.RELATIVE.row(row))
+                            .setFormula(SpreadsheetFormula.EMPTY)
+            );
+        }
+        expected.addAll(store.values(SpreadsheetCellReference.A1, count));
+
+        final Iterator<SpreadsheetCell> cursor = store.cursor(SpreadsheetCellStoreCursorOrder.COLUMN_MAJOR);
+
+        final SpreadsheetCell deleted = expected.remove(count - 2);
+        store.delete(deleted.reference());
+
+        final List<SpreadsheetCell> visited = Lists.array();
+        cursor.forEachRemaining(visited::add);
+
+        this.checkEquals(
+                expected,
+                visited
+        );
+    }
+
+    @Test
+    public void testIdsAndValuesSortedWhenSavedOutOfOrder() {
+        final PackedSpreadsheetCellStore store = this.createStore();
+
+        final SpreadsheetCell c1 = SpreadsheetSelection.parseCell("C1")
+                .setFormula(SpreadsheetFormula.EMPTY);
+        store.save(c1);
+
+        final SpreadsheetCell a2 = SpreadsheetSelection.parseCell("A2")
+                .setFormula(SpreadsheetFormula.EMPTY);
+        store.save(a2);
+
+        final SpreadsheetCell a1 = SpreadsheetSelection.parseCell("A1")
+                .setFormula(SpreadsheetFormula.EMPTY);
+        store.save(a1);
+
+        this.idsAndCheck(
+                store,
+                0,
+                3,
+                a1.reference(), a2.reference(), c1.reference()
+        );
+
+        this.checkEquals(
+                Lists.of(a2, c1),
+                store.values(a2.reference(), 3)
+        );
+    }
+
+    @Test
+    public void testDeleteCells() {
+        final PackedSpreadsheetCellStore store = this.createStore();
+
+        store.save(
+                SpreadsheetSelection.parseCell("A1")
+                        .setFormula(SpreadsheetFormula.EMPTY)
+        );
+
+        final SpreadsheetCellReference b2 = SpreadsheetSelection.parseCell("B2");
+        store.save(
+                b2.setFormula(SpreadsheetFormula.EMPTY)
+        );
+
+        final SpreadsheetCellReference c3 = SpreadsheetSelection.parseCell("c3");
+        store.save(
+                c3.setFormula(SpreadsheetFormula.EMPTY)
+        );
+
+        store.save(
+                SpreadsheetSelection.parseCell("D4")
+                        .setFormula(SpreadsheetFormula.EMPTY)
+        );
+
+        store.deleteCells(
+                SpreadsheetSelection.parseCellRange("B2:C3")
+        );
+
+        this.checkEquals(
+                2,
+                store.count()
+        );
+
+        this.loadFailCheck(store, b2);
+        this.loadFailCheck(store, c3);
+    }
+
+    // maxColumnWidth...................................................................................................
+
+    @Test
+    public void testMaxColumnWidthWithNullFails() {
+        assertThrows(NullPointerException.class, () -> this.createStore().maxColumnWidth(null));
+    }
+
+    @Test
+    public void testMaxColumnWidthColumnWithoutCells() {
+        final PackedSpreadsheetCellStore store = this.createStore();
+        maxColumnWidthAndCheck(store, SpreadsheetSelection.parseColumn("A"), 0);
+    }
+
+    @Test
+    public void testMaxColumnWidthWithCells() {
+        final PackedSpreadsheetCellStore store = this.createStore();
+        store.save(cellWithWidth("C3", 50.0));
+        store.save(cellWithWidth("D4", 150.0));
+
+        this.maxColumnWidthAndCheck(store, SpreadsheetSelection.parseColumn("C"), 50.0);
+    }
+
+    @Test
+    public void testMaxColumnWidthWithCellsMissingWidth() {
+        final PackedSpreadsheetCellStore store = this.createStore();
+        store.save(cellWithWidth("C3", 50.0));
+        store.save(cellWithWidth("C4", 0));
+
+        this.maxColumnWidthAndCheck(store, SpreadsheetSelection.parseColumn("C"), 50.0);
+    }
+
+    @Test
+    public void testMaxColumnWidthWithSeveralCells() {
+        final PackedSpreadsheetCellStore store = this.createStore();
+        store.save(cellWithWidth("C3", 50.0));
+        store.save(cellWithWidth("C4", 40.0));
+        store.save(cellWithWidth("C5", 99.0));
+        store.save(cellWithWidth("D4", 150.0));
+
+        this.maxColumnWidthAndCheck(store, SpreadsheetSelection.parseColumn("C"), 99.0);
+    }
+
+    private SpreadsheetCell cellWithWidth(final String cellReference,
+                                          final double pixels) {
+        SpreadsheetCell cell = SpreadsheetSelection.parseCell(cellReference)
+                .setFormula(SpreadsheetFormula.EMPTY
+                        .setText("1+2")
+                );
+        if (pixels > 0) {
+            cell = cell.setStyle(TextStyle.EMPTY
+                    .set(TextStylePropertyName.WIDTH, Length.pixel(pixels)));
+        }
+        return cell;
+    }
+
+    private void maxColumnWidthAndCheck(final PackedSpreadsheetCellStore store,
+                                        final SpreadsheetColumnReference column,
+                                        final double expected) {
+        this.checkEquals(expected,
+                store.maxColumnWidth(column),
+                () -> "maxColumnWidth of " + column + " store=" + store);
+    }
+
+    // maxRowHeight...................................................................................................
+
+    @Test
+    public void testMaxRowHeightWithNullFails() {
+        assertThrows(NullPointerException.class, () -> this.createStore().maxRowHeight(null));
+    }
+
+    @Test
+    public void testMaxRowHeightRowWithoutCells() {
+        final PackedSpreadsheetCellStore store = this.createStore();
+        maxRowHeightAndCheck(store, SpreadsheetSelection.parseRow("9"), 0);
+    }
+
+    @Test
+    public void testMaxRowHeightWithCells() {
+        final PackedSpreadsheetCellStore store = this.createStore();
+        store.save(cellWithHeight("C3", 50.0));
+        store.save(cellWithHeight("D4", 150.0));
+
+        this.maxRowHeightAndCheck(store, SpreadsheetSelection.parseRow("3"), 50.0);
+    }
+
+    @Test
+    public void testMaxRowHeightWithCellsMissingWidth() {
+        final PackedSpreadsheetCellStore store = this.createStore();
+        store.save(cellWithHeight("C3", 50.0));
+        store.save(cellWithHeight("C4", 0));
+
+        this.maxRowHeightAndCheck(store, SpreadsheetSelection.parseRow("3"), 50.0);
+    }
+
+    @Test
+    public void testMaxRowHeightWithSeveralCells() {
+        final PackedSpreadsheetCellStore store = this.createStore();
+        store.save(cellWithHeight("C3", 50.0));
+        store.save(cellWithHeight("D3", 40.0));
+        store.save(cellWithHeight("E3", 99.0));
+        store.save(cellWithHeight("Z99", 150.0));
+
+        this.maxRowHeightAndCheck(store, SpreadsheetSelection.parseRow("3"), 99.0);
+    }
+
+    private SpreadsheetCell cellWithHeight(final String cellReference,
+                                           final double pixels) {
+        SpreadsheetCell cell = SpreadsheetSelection.parseCell(cellReference)
+                .setFormula(
+                        SpreadsheetFormula.EMPTY
+                                .setText("1+2")
+                );
+        if (pixels > 0) {
+            cell = cell.setStyle(TextStyle.EMPTY
+                    .set(TextStylePropertyName.HEIGHT, Length.pixel(pixels)));
+        }
+        return cell;
+    }
+
+    private void maxRowHeightAndCheck(final PackedSpreadsheetCellStore store,
+                                      final SpreadsheetRowReference row,
+                                      final double expected) {
+        this.checkEquals(expected,
+                store.maxRowHeight(row),
+                () -> "maxRowHeight of " + row + " store=" + store);
+    }
+
+    // toString.........................................................................................................
+
+    @Test
+    public void testToString() {
+        final PackedSpreadsheetCellStore store = this.createStore();
+        store.save(
+                SpreadsheetSelection.parseCell("A1")
+                        .setFormula(
+                                SpreadsheetFormula.EMPTY
+                                        .setText("1+2")
+                        )
+        );
+
+        this.toStringAndCheck(store, "[A1=1+2]");
+    }
+
+    @Override
+    public PackedSpreadsheetCellStore createStore() {
+        return PackedSpreadsheetCellStore.create();
+    }
+
+    @Override
+    public Class<PackedSpreadsheetCellStore> type() {
+        return PackedSpreadsheetCellStore.class;
+    }
+
+    // TypeNameTesting..................................................................
+
+    @Override
+    public String typeNamePrefix() {
+        return "Packed";
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.ToStringTesting;
+import walkingkooka.collect.list.Lists;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.SpreadsheetFormula;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class SpreadsheetCellStoreColumnMajorCursorTest implements ClassTesting2<SpreadsheetCellStoreColumnMajorCursor>,
+        ToStringTesting<SpreadsheetCellStoreColumnMajorCursor> {
+
+    @Test
+    public void testEmpty() {
+        final SpreadsheetCellStoreColumnMajorCursor cursor = SpreadsheetCellStoreColumnMajorCursor.all(
+                SpreadsheetCellStores.treeMap()
+        );
+
+        this.checkEquals(false, cursor.hasNext(), "hasNext");
+        assertThrows(
+                NoSuchElementException.class,
+                cursor::next
+        );
+    }
+
+    @Test
+    public void testAllSeveralPages() {
+        final SpreadsheetCellStore store = SpreadsheetCellStores.treeMap();
+        final List<SpreadsheetCell> cells = Lists.array();
+
+        // more than two pages in column A followed by a few cells in column C
+        for (int row = 0; row < SpreadsheetCellStoreColumnMajorCursor.PAGE_SIZE * 2 + 5; row++) {
+            cells.add(this.save(store, 0, row));
+        }
+        for (int row = 0; row < 3; row++) {
+            cells.add(this.save(store, 2, row * 2));
+        }
+
+        this.cursorAndCheck(
+                SpreadsheetCellStoreColumnMajorCursor.all(store),
+                cells
+        );
+    }
+
+    @Test
+    public void testColumn() {
+        final SpreadsheetCellStore store = SpreadsheetCellStores.treeMap();
+        this.save(store, 1, 0);
+        final SpreadsheetCell b2 = this.save(store, 1, 1);
+        final SpreadsheetCell b3 = this.save(store, 1, 2);
+        final SpreadsheetCell b5 = this.save(store, 1, 4);
+        final SpreadsheetCell b6 = this.save(store, 1, 5);
+        this.save(store, 2, 0);
+
+        this.cursorAndCheck(
+                SpreadsheetCellStoreColumnMajorCursor.column(
+                        store,
+                        b2.reference(),
+                        2
+                ),
+                Lists.of(b2, b3, b5, b6)
+        );
+    }
+
+    @Test
+    public void testSaveAfterPageVisited() {
+        final SpreadsheetCellStore store = SpreadsheetCellStores.treeMap();
+        final SpreadsheetCell a1 = this.save(store, 0, 0);
+        final SpreadsheetCell a2 = this.save(store, 0, 1);
+        final SpreadsheetCell a4 = this.save(store, 0, 3);
+
+        final Iterator<SpreadsheetCell> cursor = SpreadsheetCellStoreColumnMajorCursor.column(
+                store,
+                a1.reference(),
+                1
+        );
+        this.checkEquals(a1, cursor.next(), "first");
+        this.checkEquals(a2, cursor.next(), "second");
+
+        final SpreadsheetCell a3 = this.save(store, 0, 2);
+
+        this.cursorAndCheck(
+                cursor,
+                Lists.of(a3, a4)
+        );
+    }
+
+    @Test
+    public void testDeleteAfterPageSkipped() {
+        final SpreadsheetCellStore store = SpreadsheetCellStores.treeMap();
+        final SpreadsheetCell a1 = this.save(store, 0, 0);
+        final SpreadsheetCell a2 = this.save(store, 0, 1);
+        final SpreadsheetCell a3 = this.save(store, 0, 2);
+        final SpreadsheetCell a4 = this.save(store, 0, 3);
+
+        final Iterator<SpreadsheetCell> cursor = SpreadsheetCellStoreColumnMajorCursor.column(
+                store,
+                a1.reference(),
+                1
+        );
+        this.checkEquals(a1, cursor.next(), "first");
+        this.checkEquals(a2, cursor.next(), "second");
+
+        store.delete(a3.reference());
+
+        this.cursorAndCheck(
+                cursor,
+                Lists.of(a4)
+        );
+    }
+
+    @Test
+    public void testDeleteLastVisited() {
+        final SpreadsheetCellStore store = SpreadsheetCellStores.treeMap();
+        final SpreadsheetCell a1 = this.save(store, 0, 0);
+        final SpreadsheetCell a2 = this.save(store, 0, 1);
+        final SpreadsheetCell a3 = this.save(store, 0, 2);
+        final SpreadsheetCell a4 = this.save(store, 0, 3);
+
+        final Iterator<SpreadsheetCell> cursor = SpreadsheetCellStoreColumnMajorCursor.column(
+                store,
+                a1.reference(),
+                1
+        );
+        this.checkEquals(a1, cursor.next(), "first");
+        this.checkEquals(a2, cursor.next(), "second");
+
+        store.delete(a2.reference());
+
+        this.cursorAndCheck(
+                cursor,
+                Lists.of(a3, a4)
+        );
+    }
+
+    private SpreadsheetCell save(final SpreadsheetCellStore store,
+                                 final int column,
+                                 final int row) {
+        return store.save(
+                SpreadsheetCellReference.A1.add(column, row)
+                        .setFormula(
+                                SpreadsheetFormula.EMPTY.setText("=" + column + "+" + row)
+                        )
+        );
+    }
+
+    private void cursorAndCheck(final Iterator<SpreadsheetCell> cursor,
+                                final List<SpreadsheetCell> expected) {
+        final List<SpreadsheetCell> visited = Lists.array();
+        cursor.forEachRemaining(visited::add);
+
+        this.checkEquals(
+                expected,
+                visited,
+                cursor::toString
+        );
+    }
+
+    // toString.........................................................................................................
+
+    @Test
+    public void testToString() {
+        final SpreadsheetCellStore store = SpreadsheetCellStores.treeMap();
+        final SpreadsheetCell a1 = this.save(store, 0, 0);
+        this.save(store, 0, 1);
+
+        final SpreadsheetCellStoreColumnMajorCursor cursor = SpreadsheetCellStoreColumnMajorCursor.all(store);
+        cursor.next();
+
+        this.toStringAndCheck(
+                cursor,
+                "COLUMN_MAJOR " + a1.reference()
+        );
+    }
+
+    // ClassTesting.....................................................................................................
+
+    @Override
+    public Class<SpreadsheetCellStoreColumnMajorCursor> type() {
+        return SpreadsheetCellStoreColumnMajorCursor.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
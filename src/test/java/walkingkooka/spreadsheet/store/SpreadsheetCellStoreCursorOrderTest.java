@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.collect.list.Lists;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+
+import java.util.List;
+
+public final class SpreadsheetCellStoreCursorOrderTest implements ClassTesting2<SpreadsheetCellStoreCursorOrder> {
+
+    @Test
+    public void testComparatorRowMajor() {
+        this.comparatorAndCheck(
+                SpreadsheetCellStoreCursorOrder.ROW_MAJOR,
+                "A1", "B1", "$C$1", "A2", "B2", "A10"
+        );
+    }
+
+    @Test
+    public void testComparatorColumnMajor() {
+        this.comparatorAndCheck(
+                SpreadsheetCellStoreCursorOrder.COLUMN_MAJOR,
+                "A1", "A2", "$A$10", "B1", "B2", "C1"
+        );
+    }
+
+    private void comparatorAndCheck(final SpreadsheetCellStoreCursorOrder order,
+                                    final String... expected) {
+        final List<SpreadsheetCellReference> references = Lists.array();
+        for (final String reference : expected) {
+            references.add(SpreadsheetSelection.parseCell(reference));
+        }
+
+        final List<SpreadsheetCellReference> sorted = Lists.array();
+        sorted.addAll(references);
+        sorted.sort(order.comparator().reversed());
+        sorted.sort(order.comparator());
+
+        this.checkEquals(
+                references,
+                sorted,
+                order::toString
+        );
+    }
+
+    // ClassTesting.....................................................................................................
+
+    @Override
+    public Class<SpreadsheetCellStoreCursorOrder> type() {
+        return SpreadsheetCellStoreCursorOrder.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PUBLIC;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.ToStringTesting;
+import walkingkooka.collect.list.Lists;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.SpreadsheetFormula;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class SpreadsheetCellStoreRowMajorCursorTest implements ClassTesting2<SpreadsheetCellStoreRowMajorCursor>,
+        ToStringTesting<SpreadsheetCellStoreRowMajorCursor> {
+
+    @Test
+    public void testEmpty() {
+        final SpreadsheetCellStoreRowMajorCursor cursor = SpreadsheetCellStoreRowMajorCursor.with(
+                SpreadsheetCellStores.treeMap()
+        );
+
+        this.checkEquals(false, cursor.hasNext(), "hasNext");
+        assertThrows(
+                NoSuchElementException.class,
+                cursor::next
+        );
+    }
+
+    @Test
+    public void testSeveralPages() {
+        final SpreadsheetCellStore store = SpreadsheetCellStores.treeMap();
+        final List<SpreadsheetCell> cells = Lists.array();
+
+        // columns A, C and D with gaps, each with more than two pages of rows
+        for (int row = 0; row < SpreadsheetCellStoreRowMajorCursor.COLUMN_PAGE_SIZE * 2 + 5; row++) {
+            cells.add(this.save(store, 0, row));
+            if (row % 3 != 0) {
+                cells.add(this.save(store, 2, row));
+            }
+            if (row % 2 == 0) {
+                cells.add(this.save(store, 3, row));
+            }
+        }
+
+        this.cursorAndCheck(
+                store,
+                cells
+        );
+    }
+
+    @Test
+    public void testFirstAndLastColumn() {
+        final SpreadsheetCellStore store = SpreadsheetCellStores.treeMap();
+        final SpreadsheetCell last1 = store.save(this.cell(SpreadsheetSelection.parseCell("XFD1")));
+        final SpreadsheetCell a2 = this.save(store, 0, 1);
+        final SpreadsheetCell last2 = store.save(this.cell(SpreadsheetSelection.parseCell("XFD2")));
+        final SpreadsheetCell a1 = this.save(store, 0, 0);
+
+        this.cursorAndCheck(
+                store,
+                Lists.of(a1, last1, a2, last2)
+        );
+    }
+
+    private SpreadsheetCell save(final SpreadsheetCellStore store,
+                                 final int column,
+                                 final int row) {
+        return store.save(
+                this.cell(
+                        SpreadsheetCellReference.A1.add(column, row)
+                )
+        );
+    }
+
+    private SpreadsheetCell cell(final SpreadsheetCellReference reference) {
+        return reference.setFormula(
+                SpreadsheetFormula.EMPTY.setText("=" + reference)
+        );
+    }
+
+    private void cursorAndCheck(final SpreadsheetCellStore store,
+                                final List<SpreadsheetCell> expected) {
+        final SpreadsheetCellStoreRowMajorCursor cursor = SpreadsheetCellStoreRowMajorCursor.with(store);
+
+        final List<SpreadsheetCell> visited = Lists.array();
+        cursor.forEachRemaining(visited::add);
+
+        this.checkEquals(
+                expected,
+                visited,
+                cursor::toString
+        );
+    }
+
+    // toString.........................................................................................................
+
+    @Test
+    public void testToString() {
+        final SpreadsheetCellStore store = SpreadsheetCellStores.treeMap();
+        this.save(store, 0, 0);
+        this.save(store, 1, 0);
+        this.save(store, 1, 1);
+
+        final SpreadsheetCellStoreRowMajorCursor cursor = SpreadsheetCellStoreRowMajorCursor.with(store);
+        cursor.next();
+
+        this.toStringAndCheck(
+                cursor,
+                "ROW_MAJOR 1 column(s)"
+        );
+    }
+
+    // ClassTesting.....................................................................................................
+
+    @Override
+    public Class<SpreadsheetCellStoreRowMajorCursor> type() {
+        return SpreadsheetCellStoreRowMajorCursor.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
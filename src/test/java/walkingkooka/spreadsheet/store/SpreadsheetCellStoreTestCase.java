@@ -31,6 +31,7 @@ import walkingkooka.spreadsheet.reference.SpreadsheetReferenceKind;
 import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
 import walkingkooka.tree.expression.Expression;
 import walkingkooka.tree.expression.ExpressionNumberKind;
+import walkingkooka.tree.expression.FunctionExpressionName;
 import walkingkooka.tree.text.FontWeight;
 import walkingkooka.tree.text.TextNode;
 import walkingkooka.tree.text.TextStyle;
@@ -42,6 +43,7 @@ import java.util.Optional;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public abstract class SpreadsheetCellStoreTestCase<S extends SpreadsheetCellStore> implements SpreadsheetCellStoreTesting<S>,
         TypeNameTesting<S> {
@@ -107,6 +109,27 @@ public abstract class SpreadsheetCellStoreTestCase<S extends SpreadsheetCellStor
         this.loadFailCheck(store, reference);
     }
 
+    @Test
+    public final void testSaveReplacingNullFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> this.createStore().saveReplacing(null)
+        );
+    }
+
+    @Test
+    public final void testSaveReplacing() {
+        final S store = this.createStore();
+
+        final SpreadsheetCellReference reference = this.cellReference(1, 2);
+        final SpreadsheetCell cell = this.cell(reference);
+        this.checkEquals(false, store.saveReplacing(cell), "saveReplacing new cell");
+        this.checkEquals(true, store.saveReplacing(cell), "saveReplacing existing cell");
+
+        this.countAndCheck(store, 1);
+        this.checkEquals(cell, store.loadOrFail(reference));
+    }
+
     @Test
     public final void testCount() {
         final S store = this.createStore();
@@ -297,6 +320,141 @@ public abstract class SpreadsheetCellStoreTestCase<S extends SpreadsheetCellStor
                 b, c);
     }
 
+    @Test
+    public final void testCursorEmpty() {
+        this.cursorAndCheck(
+                this.createStore(),
+                SpreadsheetCellStoreCursorOrder.ROW_MAJOR
+        );
+    }
+
+    @Test
+    public final void testCursorRowMajor() {
+        final S store = this.createStore();
+
+        final SpreadsheetCell a1 = this.cell("a1");
+        final SpreadsheetCell b1 = this.cell("b1");
+        final SpreadsheetCell a2 = this.cell("a2");
+        final SpreadsheetCell c2 = this.cell("c2");
+        final SpreadsheetCell b3 = this.cell("b3");
+
+        store.save(c2);
+        store.save(a2);
+        store.save(b3);
+        store.save(b1);
+        store.save(a1);
+
+        this.cursorAndCheck(
+                store,
+                SpreadsheetCellStoreCursorOrder.ROW_MAJOR,
+                a1, b1, a2, c2, b3
+        );
+    }
+
+    @Test
+    public final void testCursorColumnMajor() {
+        final S store = this.createStore();
+
+        final SpreadsheetCell a1 = this.cell("a1");
+        final SpreadsheetCell b1 = this.cell("b1");
+        final SpreadsheetCell a2 = this.cell("a2");
+        final SpreadsheetCell c2 = this.cell("c2");
+        final SpreadsheetCell b3 = this.cell("b3");
+
+        store.save(c2);
+        store.save(a2);
+        store.save(b3);
+        store.save(b1);
+        store.save(a1);
+
+        this.cursorAndCheck(
+                store,
+                SpreadsheetCellStoreCursorOrder.COLUMN_MAJOR,
+                a1, a2, b1, b3, c2
+        );
+    }
+
+    // impureCells.....................................................................................................
+
+    @Test
+    public final void testImpureCellsEmpty() {
+        this.impureCellsAndCheck(
+                this.createStore()
+        );
+    }
+
+    @Test
+    public final void testImpureCellsPureNotRecorded() {
+        final S store = this.createStore();
+
+        store.save(this.cell(1, 2));
+
+        this.impureCellsAndCheck(store);
+    }
+
+    @Test
+    public void testImpureCellsSaveAndDelete() {
+        final S store = this.createStore();
+
+        final SpreadsheetCellReference a1 = this.cellReference(1, 1);
+        final SpreadsheetCellReference b2 = this.cellReference(2, 2);
+
+        store.save(this.impureCell(a1));
+        store.save(this.impureCell(b2));
+        store.save(this.cell(3, 3));
+
+        this.impureCellsAndCheck(store, a1, b2);
+
+        store.delete(a1);
+        this.impureCellsAndCheck(store, b2);
+
+        store.save(this.cell(b2));
+        this.impureCellsAndCheck(store);
+    }
+
+    /**
+     * A cell with a formula that was found to be impure when it was parsed.
+     */
+    final SpreadsheetCell impureCell(final SpreadsheetCellReference reference) {
+        return this.cell(reference)
+                .setFormula(
+                        this.formula()
+                                .setExpression(
+                                        Optional.of(
+                                                Expression.call(
+                                                        Expression.namedFunction(
+                                                                FunctionExpressionName.with("now")
+                                                        ),
+                                                        Lists.empty()
+                                                )
+                                        )
+                                ).recordPurity((n) -> false)
+                );
+    }
+
+    final void impureCellsAndCheck(final SpreadsheetCellStore store,
+                                   final SpreadsheetCellReference... expected) {
+        this.checkEquals(
+                Sets.of(expected),
+                store.impureCells(),
+                () -> "impureCells " + store
+        );
+    }
+
+    private void cursorAndCheck(final S store,
+                                final SpreadsheetCellStoreCursorOrder order,
+                                final SpreadsheetCell... cells) {
+        final List<SpreadsheetCell> visited = Lists.array();
+        store.cursor(order)
+                .forEachRemaining(visited::add);
+
+        this.checkEquals(
+                Lists.of(cells),
+                visited,
+                () -> store + " cursor " + order
+        );
+    }
+
     @Override
     public final SpreadsheetCellReference id() {
         return SpreadsheetSelection.parseCell("A1");
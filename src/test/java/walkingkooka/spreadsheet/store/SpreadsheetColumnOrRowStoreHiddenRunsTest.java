@@ -0,0 +1,208 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.ToStringTesting;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+
+public final class SpreadsheetColumnOrRowStoreHiddenRunsTest implements ClassTesting2<SpreadsheetColumnOrRowStoreHiddenRuns>,
+        ToStringTesting<SpreadsheetColumnOrRowStoreHiddenRuns> {
+
+    @Test
+    public void testHide() {
+        final SpreadsheetColumnOrRowStoreHiddenRuns runs = SpreadsheetColumnOrRowStoreHiddenRuns.empty();
+        runs.hide(2);
+
+        this.isHiddenAndCheck(runs, 1, false);
+        this.isHiddenAndCheck(runs, 2, true);
+        this.isHiddenAndCheck(runs, 3, false);
+        this.toStringAndCheck(runs, "2-2");
+    }
+
+    @Test
+    public void testHideTwice() {
+        final SpreadsheetColumnOrRowStoreHiddenRuns runs = SpreadsheetColumnOrRowStoreHiddenRuns.empty();
+        runs.hide(2);
+        runs.hide(2);
+
+        this.toStringAndCheck(runs, "2-2");
+    }
+
+    @Test
+    public void testHideJoinsBefore() {
+        final SpreadsheetColumnOrRowStoreHiddenRuns runs = SpreadsheetColumnOrRowStoreHiddenRuns.empty();
+        runs.hide(2);
+        runs.hide(3);
+
+        this.toStringAndCheck(runs, "2-3");
+    }
+
+    @Test
+    public void testHideJoinsAfter() {
+        final SpreadsheetColumnOrRowStoreHiddenRuns runs = SpreadsheetColumnOrRowStoreHiddenRuns.empty();
+        runs.hide(3);
+        runs.hide(2);
+
+        this.toStringAndCheck(runs, "2-3");
+    }
+
+    @Test
+    public void testHideJoinsBeforeAndAfter() {
+        final SpreadsheetColumnOrRowStoreHiddenRuns runs = SpreadsheetColumnOrRowStoreHiddenRuns.empty();
+        runs.hide(2);
+        runs.hide(4);
+        runs.hide(3);
+
+        this.toStringAndCheck(runs, "2-4");
+    }
+
+    @Test
+    public void testShowVisible() {
+        final SpreadsheetColumnOrRowStoreHiddenRuns runs = SpreadsheetColumnOrRowStoreHiddenRuns.empty();
+        runs.hide(2);
+        runs.show(4);
+
+        this.toStringAndCheck(runs, "2-2");
+    }
+
+    @Test
+    public void testShowStart() {
+        final SpreadsheetColumnOrRowStoreHiddenRuns runs = SpreadsheetColumnOrRowStoreHiddenRuns.empty();
+        runs.hide(2);
+        runs.hide(3);
+        runs.hide(4);
+        runs.show(2);
+
+        this.toStringAndCheck(runs, "3-4");
+    }
+
+    @Test
+    public void testShowEnd() {
+        final SpreadsheetColumnOrRowStoreHiddenRuns runs = SpreadsheetColumnOrRowStoreHiddenRuns.empty();
+        runs.hide(2);
+        runs.hide(3);
+        runs.hide(4);
+        runs.show(4);
+
+        this.toStringAndCheck(runs, "2-3");
+    }
+
+    @Test
+    public void testShowSplits() {
+        final SpreadsheetColumnOrRowStoreHiddenRuns runs = SpreadsheetColumnOrRowStoreHiddenRuns.empty();
+        runs.hide(2);
+        runs.hide(3);
+        runs.hide(4);
+        runs.show(3);
+
+        this.isHiddenAndCheck(runs, 3, false);
+        this.toStringAndCheck(runs, "2-2,4-4");
+    }
+
+    @Test
+    public void testNextVisible() {
+        final SpreadsheetColumnOrRowStoreHiddenRuns runs = SpreadsheetColumnOrRowStoreHiddenRuns.empty();
+        runs.hide(2);
+        runs.hide(3);
+
+        this.checkEquals(1, runs.nextVisible(1), "1");
+        this.checkEquals(4, runs.nextVisible(2), "2");
+        this.checkEquals(4, runs.nextVisible(3), "3");
+    }
+
+    @Test
+    public void testPreviousVisible() {
+        final SpreadsheetColumnOrRowStoreHiddenRuns runs = SpreadsheetColumnOrRowStoreHiddenRuns.empty();
+        runs.hide(0);
+        runs.hide(1);
+        runs.hide(3);
+
+        this.checkEquals(-1, runs.previousVisible(1), "1");
+        this.checkEquals(2, runs.previousVisible(2), "2");
+        this.checkEquals(2, runs.previousVisible(3), "3");
+    }
+
+    @Test
+    public void testCountHidden() {
+        final SpreadsheetColumnOrRowStoreHiddenRuns runs = SpreadsheetColumnOrRowStoreHiddenRuns.empty();
+        runs.hide(1);
+        runs.hide(2);
+        runs.hide(3);
+        runs.hide(6);
+        runs.hide(9);
+        runs.hide(10);
+
+        this.countHiddenAndCheck(runs, 0, 0, 0);
+        this.countHiddenAndCheck(runs, 2, 9, 4);
+        this.countHiddenAndCheck(runs, 0, 20, 6);
+        this.countHiddenAndCheck(runs, 4, 5, 0);
+    }
+
+    @Test
+    public void testCountHiddenRunsAtBounds() {
+        final SpreadsheetColumnOrRowStoreHiddenRuns runs = SpreadsheetColumnOrRowStoreHiddenRuns.empty();
+        runs.hide(2);
+        runs.hide(3);
+        runs.hide(4);
+        runs.hide(7);
+        runs.hide(8);
+        runs.hide(9);
+
+        this.countHiddenAndCheck(runs, 4, 7, 2);
+        this.countHiddenAndCheck(runs, 2, 9, 6);
+        this.countHiddenAndCheck(runs, 3, 8, 4);
+        this.countHiddenAndCheck(runs, 5, 6, 0);
+        this.countHiddenAndCheck(runs, 4, 4, 1);
+        this.countHiddenAndCheck(runs, 0, 1, 0);
+        this.countHiddenAndCheck(runs, 9, 12, 1);
+        this.countHiddenAndCheck(runs, 10, 12, 0);
+    }
+
+    private void isHiddenAndCheck(final SpreadsheetColumnOrRowStoreHiddenRuns runs,
+                                  final int value,
+                                  final boolean expected) {
+        this.checkEquals(
+                expected,
+                runs.isHidden(value),
+                () -> "isHidden " + value + " " + runs
+        );
+    }
+
+    private void countHiddenAndCheck(final SpreadsheetColumnOrRowStoreHiddenRuns runs,
+                                     final int from,
+                                     final int to,
+                                     final int expected) {
+        this.checkEquals(
+                expected,
+                runs.countHidden(from, to),
+                () -> "countHidden " + from + " " + to + " " + runs
+        );
+    }
+
+    @Override
+    public Class<SpreadsheetColumnOrRowStoreHiddenRuns> type() {
+        return SpreadsheetColumnOrRowStoreHiddenRuns.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
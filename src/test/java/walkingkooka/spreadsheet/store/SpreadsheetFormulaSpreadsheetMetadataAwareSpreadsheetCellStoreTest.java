@@ -27,6 +27,7 @@ import walkingkooka.spreadsheet.format.pattern.SpreadsheetPattern;
 import walkingkooka.spreadsheet.meta.SpreadsheetMetadata;
 import walkingkooka.spreadsheet.meta.SpreadsheetMetadataPropertyName;
 import walkingkooka.spreadsheet.parser.SpreadsheetParserToken;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
 import walkingkooka.tree.expression.Expression;
 
@@ -882,6 +883,34 @@ final class SpreadsheetFormulaSpreadsheetMetadataAwareSpreadsheetCellStoreTest e
         );
     }
 
+    // impureCells......................................................................................................
+
+    /**
+     * Saving through this store rebuilds the expression from the token, so impure cells are saved directly into the
+     * wrapped store, which holds the registry.
+     */
+    @Test
+    @Override
+    public void testImpureCellsSaveAndDelete() {
+        final SpreadsheetCellStore cellStore = this.cellStore();
+        final SpreadsheetFormulaSpreadsheetMetadataAwareSpreadsheetCellStore store = SpreadsheetFormulaSpreadsheetMetadataAwareSpreadsheetCellStore.with(
+                cellStore,
+                this.metadata(),
+                NOW
+        );
+
+        final SpreadsheetCellReference a1 = this.cellReference(1, 1);
+        final SpreadsheetCellReference b2 = this.cellReference(2, 2);
+
+        cellStore.save(this.impureCell(a1));
+        cellStore.save(this.impureCell(b2));
+
+        this.impureCellsAndCheck(store, a1, b2);
+
+        store.delete(a1);
+        this.impureCellsAndCheck(store, b2);
+    }
+
     // toString.........................................................................................................
 
     @Test
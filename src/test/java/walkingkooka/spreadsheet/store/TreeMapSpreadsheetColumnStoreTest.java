@@ -22,6 +22,7 @@ import org.junit.jupiter.api.Test;
 import walkingkooka.collect.set.Sets;
 import walkingkooka.spreadsheet.SpreadsheetColumn;
 import walkingkooka.spreadsheet.reference.SpreadsheetColumnReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetColumnReferenceRange;
 import walkingkooka.spreadsheet.reference.SpreadsheetReferenceKind;
 import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
 
@@ -275,6 +276,140 @@ final class TreeMapSpreadsheetColumnStoreTest extends SpreadsheetColumnStoreTest
         );
     }
 
+    // hidden runs.....................................................................................................
+
+    @Test
+    public void testRightSkipHiddenAfterShown() {
+        final TreeMapSpreadsheetColumnStore store = this.createStore();
+        store.save(SpreadsheetSelection.parseColumn("B").column().setHidden(true));
+        store.save(SpreadsheetSelection.parseColumn("C").column().setHidden(true));
+        store.save(SpreadsheetSelection.parseColumn("D").column().setHidden(true));
+        store.save(SpreadsheetSelection.parseColumn("C").column().setHidden(false));
+
+        this.rightSkipHiddenAndCheck(
+                store,
+                "A",
+                "C"
+        );
+    }
+
+    @Test
+    public void testLeftSkipHiddenAfterDelete() {
+        final TreeMapSpreadsheetColumnStore store = this.createStore();
+        store.save(SpreadsheetSelection.parseColumn("B").column().setHidden(true));
+        store.save(SpreadsheetSelection.parseColumn("C").column().setHidden(true));
+        store.save(SpreadsheetSelection.parseColumn("D").column().setHidden(true));
+        store.delete(SpreadsheetSelection.parseColumn("B"));
+
+        this.leftSkipHiddenAndCheck(
+                store,
+                "E",
+                "B"
+        );
+    }
+
+    @Test
+    public void testSkipHiddenManyHidden() {
+        final TreeMapSpreadsheetColumnStore store = this.createStore();
+
+        SpreadsheetColumnReference column = SpreadsheetSelection.parseColumn("B");
+        for (int i = 0; i < 1000; i++) {
+            store.save(column.column().setHidden(true));
+            column = column.addSaturated(1);
+        }
+
+        this.rightSkipHiddenAndCheck(
+                store,
+                SpreadsheetSelection.parseColumn("A"),
+                column
+        );
+        this.leftSkipHiddenAndCheck(
+                store,
+                column,
+                SpreadsheetSelection.parseColumn("A")
+        );
+    }
+
+    @Test
+    public void testIsHidden() {
+        final TreeMapSpreadsheetColumnStore store = this.createStore();
+        store.save(SpreadsheetSelection.parseColumn("B").column().setHidden(true));
+        store.save(SpreadsheetSelection.parseColumn("C").column());
+
+        this.checkEquals(false, store.isHidden(SpreadsheetSelection.parseColumn("A")), "A");
+        this.checkEquals(true, store.isHidden(SpreadsheetSelection.parseColumn("B")), "B");
+        this.checkEquals(true, store.isHidden(SpreadsheetSelection.parseColumn("$B")), "$B");
+        this.checkEquals(false, store.isHidden(SpreadsheetSelection.parseColumn("C")), "C");
+    }
+
+    @Test
+    public void testCountVisibleColumnsNoneHidden() {
+        this.countVisibleColumnsAndCheck(
+                this.createStore(),
+                "A:E",
+                5
+        );
+    }
+
+    @Test
+    public void testCountVisibleColumns() {
+        final TreeMapSpreadsheetColumnStore store = this.createStore();
+        store.save(SpreadsheetSelection.parseColumn("A").column().setHidden(true));
+        store.save(SpreadsheetSelection.parseColumn("C").column().setHidden(true));
+        store.save(SpreadsheetSelection.parseColumn("D").column().setHidden(true));
+        store.save(SpreadsheetSelection.parseColumn("F").column().setHidden(true));
+        store.save(SpreadsheetSelection.parseColumn("G").column().setHidden(true));
+
+        this.countVisibleColumnsAndCheck(
+                store,
+                "B:F",
+                2
+        );
+    }
+
+    @Test
+    public void testCountVisibleColumnsHiddenRunsAtBounds() {
+        final TreeMapSpreadsheetColumnStore store = this.createStore();
+        store.save(SpreadsheetSelection.parseColumn("B").column().setHidden(true));
+        store.save(SpreadsheetSelection.parseColumn("C").column().setHidden(true));
+        store.save(SpreadsheetSelection.parseColumn("F").column().setHidden(true));
+        store.save(SpreadsheetSelection.parseColumn("G").column().setHidden(true));
+
+        this.countVisibleColumnsAndCheck(store, "C:F", 2);
+        this.countVisibleColumnsAndCheck(store, "B:G", 2);
+        this.countVisibleColumnsAndCheck(store, "A:H", 4);
+        this.countVisibleColumnsAndCheck(store, "D:E", 2);
+        this.countVisibleColumnsAndCheck(store, "C:C", 0);
+        this.countVisibleColumnsAndCheck(store, "G:H", 1);
+    }
+
+    @Test
+    public void testCountVisibleColumnsHiddenRunsAtBoundsSameAsDefault() {
+        final TreeMapSpreadsheetColumnStore store = this.createStore();
+        store.save(SpreadsheetSelection.parseColumn("B").column().setHidden(true));
+        store.save(SpreadsheetSelection.parseColumn("C").column().setHidden(true));
+        store.save(SpreadsheetSelection.parseColumn("F").column().setHidden(true));
+        store.save(SpreadsheetSelection.parseColumn("G").column().setHidden(true));
+
+        // only isHidden is delegated, so countVisibleColumns tests each column.
+        final SpreadsheetColumnStore iterating = new FakeSpreadsheetColumnStore() {
+            @Override
+            public boolean isHidden(final SpreadsheetColumnReference reference) {
+                return store.isHidden(reference);
+            }
+        };
+
+        for (final String range : new String[]{"C:F", "B:G", "A:H", "D:E", "C:C", "G:H"}) {
+            final SpreadsheetColumnReferenceRange columns = SpreadsheetSelection.parseColumnRange(range);
+
+            this.checkEquals(
+                    iterating.countVisibleColumns(columns),
+                    store.countVisibleColumns(columns),
+                    () -> "countVisibleColumns " + range + " " + store
+            );
+        }
+    }
+
     // toString.........................................................................................................
 
     @Test
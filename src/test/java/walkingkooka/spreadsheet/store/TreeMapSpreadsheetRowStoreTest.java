@@ -24,6 +24,7 @@ import walkingkooka.collect.set.Sets;
 import walkingkooka.spreadsheet.SpreadsheetRow;
 import walkingkooka.spreadsheet.reference.SpreadsheetReferenceKind;
 import walkingkooka.spreadsheet.reference.SpreadsheetRowReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetRowReferenceRange;
 import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
 
 import java.util.TreeMap;
@@ -272,6 +273,140 @@ final class TreeMapSpreadsheetRowStoreTest extends SpreadsheetRowStoreTestCase<T
         );
     }
 
+    // hidden runs.....................................................................................................
+
+    @Test
+    public void testDownSkipHiddenAfterShown() {
+        final TreeMapSpreadsheetRowStore store = this.createStore();
+        store.save(SpreadsheetSelection.parseRow("2").row().setHidden(true));
+        store.save(SpreadsheetSelection.parseRow("3").row().setHidden(true));
+        store.save(SpreadsheetSelection.parseRow("4").row().setHidden(true));
+        store.save(SpreadsheetSelection.parseRow("3").row().setHidden(false));
+
+        this.downSkipHiddenAndCheck(
+                store,
+                "1",
+                "3"
+        );
+    }
+
+    @Test
+    public void testUpSkipHiddenAfterDelete() {
+        final TreeMapSpreadsheetRowStore store = this.createStore();
+        store.save(SpreadsheetSelection.parseRow("2").row().setHidden(true));
+        store.save(SpreadsheetSelection.parseRow("3").row().setHidden(true));
+        store.save(SpreadsheetSelection.parseRow("4").row().setHidden(true));
+        store.delete(SpreadsheetSelection.parseRow("2"));
+
+        this.upSkipHiddenAndCheck(
+                store,
+                "5",
+                "2"
+        );
+    }
+
+    @Test
+    public void testSkipHiddenManyHidden() {
+        final TreeMapSpreadsheetRowStore store = this.createStore();
+
+        SpreadsheetRowReference row = SpreadsheetSelection.parseRow("2");
+        for (int i = 0; i < 1000; i++) {
+            store.save(row.row().setHidden(true));
+            row = row.addSaturated(1);
+        }
+
+        this.downSkipHiddenAndCheck(
+                store,
+                SpreadsheetSelection.parseRow("1"),
+                row
+        );
+        this.upSkipHiddenAndCheck(
+                store,
+                row,
+                SpreadsheetSelection.parseRow("1")
+        );
+    }
+
+    @Test
+    public void testIsHidden() {
+        final TreeMapSpreadsheetRowStore store = this.createStore();
+        store.save(SpreadsheetSelection.parseRow("2").row().setHidden(true));
+        store.save(SpreadsheetSelection.parseRow("3").row());
+
+        this.checkEquals(false, store.isHidden(SpreadsheetSelection.parseRow("1")), "1");
+        this.checkEquals(true, store.isHidden(SpreadsheetSelection.parseRow("2")), "2");
+        this.checkEquals(true, store.isHidden(SpreadsheetSelection.parseRow("$2")), "$2");
+        this.checkEquals(false, store.isHidden(SpreadsheetSelection.parseRow("3")), "3");
+    }
+
+    @Test
+    public void testCountVisibleRowsNoneHidden() {
+        this.countVisibleRowsAndCheck(
+                this.createStore(),
+                "1:5",
+                5
+        );
+    }
+
+    @Test
+    public void testCountVisibleRows() {
+        final TreeMapSpreadsheetRowStore store = this.createStore();
+        store.save(SpreadsheetSelection.parseRow("1").row().setHidden(true));
+        store.save(SpreadsheetSelection.parseRow("3").row().setHidden(true));
+        store.save(SpreadsheetSelection.parseRow("4").row().setHidden(true));
+        store.save(SpreadsheetSelection.parseRow("6").row().setHidden(true));
+        store.save(SpreadsheetSelection.parseRow("7").row().setHidden(true));
+
+        this.countVisibleRowsAndCheck(
+                store,
+                "2:6",
+                2
+        );
+    }
+
+    @Test
+    public void testCountVisibleRowsHiddenRunsAtBounds() {
+        final TreeMapSpreadsheetRowStore store = this.createStore();
+        store.save(SpreadsheetSelection.parseRow("2").row().setHidden(true));
+        store.save(SpreadsheetSelection.parseRow("3").row().setHidden(true));
+        store.save(SpreadsheetSelection.parseRow("6").row().setHidden(true));
+        store.save(SpreadsheetSelection.parseRow("7").row().setHidden(true));
+
+        this.countVisibleRowsAndCheck(store, "3:6", 2);
+        this.countVisibleRowsAndCheck(store, "2:7", 2);
+        this.countVisibleRowsAndCheck(store, "1:8", 4);
+        this.countVisibleRowsAndCheck(store, "4:5", 2);
+        this.countVisibleRowsAndCheck(store, "3:3", 0);
+        this.countVisibleRowsAndCheck(store, "7:8", 1);
+    }
+
+    @Test
+    public void testCountVisibleRowsHiddenRunsAtBoundsSameAsDefault() {
+        final TreeMapSpreadsheetRowStore store = this.createStore();
+        store.save(SpreadsheetSelection.parseRow("2").row().setHidden(true));
+        store.save(SpreadsheetSelection.parseRow("3").row().setHidden(true));
+        store.save(SpreadsheetSelection.parseRow("6").row().setHidden(true));
+        store.save(SpreadsheetSelection.parseRow("7").row().setHidden(true));
+
+        // only isHidden is delegated, so countVisibleRows tests each row.
+        final SpreadsheetRowStore iterating = new FakeSpreadsheetRowStore() {
+            @Override
+            public boolean isHidden(final SpreadsheetRowReference reference) {
+                return store.isHidden(reference);
+            }
+        };
+
+        for (final String range : new String[]{"3:6", "2:7", "1:8", "4:5", "3:3", "7:8"}) {
+            final SpreadsheetRowReferenceRange rows = SpreadsheetSelection.parseRowRange(range);
+
+            this.checkEquals(
+                    iterating.countVisibleRows(rows),
+                    store.countVisibleRows(rows),
+                    () -> "countVisibleRows " + range + " " + store
+            );
+        }
+    }
+
     // toString.........................................................................................................
 
     @Test
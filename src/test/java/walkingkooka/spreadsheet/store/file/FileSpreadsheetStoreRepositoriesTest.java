@@ -0,0 +1,43 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store.file;
+
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.reflect.PublicStaticHelperTesting;
+
+import java.lang.reflect.Method;
+
+public final class FileSpreadsheetStoreRepositoriesTest implements ClassTesting2<FileSpreadsheetStoreRepositories>,
+        PublicStaticHelperTesting<FileSpreadsheetStoreRepositories> {
+
+    @Override
+    public Class<FileSpreadsheetStoreRepositories> type() {
+        return FileSpreadsheetStoreRepositories.class;
+    }
+
+    @Override
+    public boolean canHavePublicTypes(final Method method) {
+        return true; // FileSpreadsheetStoreRepository
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PUBLIC;
+    }
+}
@@ -0,0 +1,588 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store.file;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.collect.list.Lists;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.reflect.TypeNameTesting;
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.SpreadsheetDescription;
+import walkingkooka.spreadsheet.SpreadsheetFormula;
+import walkingkooka.spreadsheet.conditionalformat.SpreadsheetConditionalFormattingRule;
+import walkingkooka.spreadsheet.meta.store.SpreadsheetMetadataStores;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetLabelMapping;
+import walkingkooka.spreadsheet.reference.SpreadsheetLabelName;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+import walkingkooka.spreadsheet.reference.store.SpreadsheetCellRangeStores;
+import walkingkooka.spreadsheet.reference.store.SpreadsheetExpressionReferenceStores;
+import walkingkooka.spreadsheet.reference.store.SpreadsheetLabelStores;
+import walkingkooka.spreadsheet.reference.store.TargetAndSpreadsheetCellReference;
+import walkingkooka.spreadsheet.security.store.SpreadsheetGroupStores;
+import walkingkooka.spreadsheet.security.store.SpreadsheetUserStores;
+import walkingkooka.spreadsheet.store.SpreadsheetCellStores;
+import walkingkooka.spreadsheet.store.SpreadsheetColumnStores;
+import walkingkooka.spreadsheet.store.SpreadsheetRowStores;
+import walkingkooka.spreadsheet.store.repo.SpreadsheetStoreRepositories;
+import walkingkooka.spreadsheet.store.repo.SpreadsheetStoreRepository;
+import walkingkooka.tree.expression.Expression;
+import walkingkooka.tree.expression.ExpressionNumberKind;
+import walkingkooka.tree.expression.FunctionExpressionName;
+import walkingkooka.tree.json.marshall.JsonNodeMarshallContext;
+import walkingkooka.tree.json.marshall.JsonNodeMarshallContexts;
+import walkingkooka.tree.json.marshall.JsonNodeUnmarshallContext;
+import walkingkooka.tree.json.marshall.JsonNodeUnmarshallContexts;
+import walkingkooka.tree.text.TextStyle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.MathContext;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class JournalSpreadsheetStoreRepositoryTest implements ClassTesting2<JournalSpreadsheetStoreRepository>,
+        TypeNameTesting<JournalSpreadsheetStoreRepository> {
+
+    private final static JsonNodeMarshallContext MARSHALL_CONTEXT = JsonNodeMarshallContexts.basic();
+
+    private final static JsonNodeUnmarshallContext UNMARSHALL_CONTEXT = JsonNodeUnmarshallContexts.basic(
+            ExpressionNumberKind.DEFAULT,
+            MathContext.DECIMAL32
+    );
+
+    private final static int SNAPSHOT_EVERY = 1000;
+
+    /**
+     * Writes snapshots immediately, so tests can check the files once a mutation returns.
+     */
+    private final static Executor EXECUTOR = Runnable::run;
+
+    private final static SpreadsheetCellReference A1 = SpreadsheetSelection.parseCell("A1");
+
+    private final static SpreadsheetCellReference B2 = SpreadsheetSelection.parseCell("B2");
+
+    private final static SpreadsheetLabelName LABEL = SpreadsheetSelection.labelName("Label123");
+
+    private final static SpreadsheetCellRange RANGE = SpreadsheetSelection.parseCellRange("C3:D4");
+
+    @Test
+    public void testWithNullRepositoryFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> JournalSpreadsheetStoreRepository.with(
+                        null,
+                        this.directory(),
+                        SNAPSHOT_EVERY,
+                        EXECUTOR,
+                        MARSHALL_CONTEXT,
+                        UNMARSHALL_CONTEXT
+                )
+        );
+    }
+
+    @Test
+    public void testWithNullDirectoryFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> JournalSpreadsheetStoreRepository.with(
+                        this.repository(),
+                        null,
+                        SNAPSHOT_EVERY,
+                        EXECUTOR,
+                        MARSHALL_CONTEXT,
+                        UNMARSHALL_CONTEXT
+                )
+        );
+    }
+
+    @Test
+    public void testWithInvalidSnapshotEveryFails() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> JournalSpreadsheetStoreRepository.with(
+                        this.repository(),
+                        this.directory(),
+                        0,
+                        EXECUTOR,
+                        MARSHALL_CONTEXT,
+                        UNMARSHALL_CONTEXT
+                )
+        );
+    }
+
+    @Test
+    public void testWithNullExecutorFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> JournalSpreadsheetStoreRepository.with(
+                        this.repository(),
+                        this.directory(),
+                        SNAPSHOT_EVERY,
+                        null,
+                        MARSHALL_CONTEXT,
+                        UNMARSHALL_CONTEXT
+                )
+        );
+    }
+
+    @Test
+    public void testWithNullMarshallContextFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> JournalSpreadsheetStoreRepository.with(
+                        this.repository(),
+                        this.directory(),
+                        SNAPSHOT_EVERY,
+                        EXECUTOR,
+                        null,
+                        UNMARSHALL_CONTEXT
+                )
+        );
+    }
+
+    @Test
+    public void testWithNullUnmarshallContextFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> JournalSpreadsheetStoreRepository.with(
+                        this.repository(),
+                        this.directory(),
+                        SNAPSHOT_EVERY,
+                        EXECUTOR,
+                        MARSHALL_CONTEXT,
+                        null
+                )
+        );
+    }
+
+    @Test
+    public void testReopenReplaysJournal() {
+        final Path directory = this.directory();
+        this.saveAndCheckReopen(this.createRepository(directory, SNAPSHOT_EVERY), directory);
+    }
+
+    @Test
+    public void testReopenReplaysSnapshotAndJournal() {
+        final Path directory = this.directory();
+        this.saveAndCheckReopen(this.createRepository(directory, 3), directory);
+
+        this.checkExists(directory, JournalSpreadsheetStoreRepository.SNAPSHOT);
+    }
+
+    @Test
+    public void testReopenReplaysImpureCells() {
+        final Path directory = this.directory();
+        final JournalSpreadsheetStoreRepository repository = this.createRepository(directory, SNAPSHOT_EVERY);
+
+        repository.cells().save(this.impureCell(A1));
+        repository.cells().save(this.cell(B2, "=2"));
+
+        final JournalSpreadsheetStoreRepository reopened = this.createRepository(directory, SNAPSHOT_EVERY);
+        assertEquals(Sets.of(A1), reopened.cells().impureCells(), "impureCells");
+    }
+
+    @Test
+    public void testReopenSnapshotImpureCells() {
+        final Path directory = this.directory();
+        final JournalSpreadsheetStoreRepository repository = this.createRepository(directory, SNAPSHOT_EVERY);
+
+        repository.cells().save(this.impureCell(A1));
+        repository.cells().save(this.impureCell(B2));
+        repository.cells().delete(B2);
+        repository.snapshot()
+                .join();
+
+        final JournalSpreadsheetStoreRepository reopened = this.createRepository(directory, SNAPSHOT_EVERY);
+        assertEquals(Sets.of(A1), reopened.cells().impureCells(), "impureCells");
+    }
+
+    @Test
+    public void testSnapshotTruncatesJournal() throws IOException {
+        final Path directory = this.directory();
+        final JournalSpreadsheetStoreRepository repository = this.createRepository(directory, SNAPSHOT_EVERY);
+
+        repository.cells().save(this.cell(A1, "=1"));
+        repository.cells().save(this.cell(B2, "=2"));
+        repository.cells().delete(A1);
+
+        repository.snapshot()
+                .join();
+
+        assertEquals(
+                0L,
+                Files.size(directory.resolve(JournalSpreadsheetStoreRepository.JOURNAL)),
+                "journal size"
+        );
+        this.checkNotExists(directory, JournalSpreadsheetStoreRepository.PREVIOUS_JOURNAL);
+
+        final JournalSpreadsheetStoreRepository reopened = this.createRepository(directory, SNAPSHOT_EVERY);
+        assertEquals(Optional.empty(), reopened.cells().load(A1), "A1");
+        assertEquals(Optional.of(this.cell(B2, "=2")), reopened.cells().load(B2), "B2");
+    }
+
+    @Test
+    public void testReopenIgnoresPartialRecord() throws IOException {
+        final Path directory = this.directory();
+        final JournalSpreadsheetStoreRepository repository = this.createRepository(directory, SNAPSHOT_EVERY);
+
+        final SpreadsheetCell cell = this.cell(A1, "=1");
+        repository.cells().save(cell);
+
+        final Path journal = directory.resolve(JournalSpreadsheetStoreRepository.JOURNAL);
+        final long length = Files.size(journal);
+
+        // simulate a crash part way through writing a record.
+        Files.write(journal, new byte[]{0, 0, 0, 99, 1}, StandardOpenOption.APPEND);
+
+        final JournalSpreadsheetStoreRepository reopened = this.createRepository(directory, SNAPSHOT_EVERY);
+        assertEquals(Optional.of(cell), reopened.cells().load(A1), "A1");
+        assertEquals(length, Files.size(journal), "journal size after truncating partial record");
+
+        final SpreadsheetCell cell2 = this.cell(B2, "=2");
+        reopened.cells().save(cell2);
+
+        final JournalSpreadsheetStoreRepository reopened2 = this.createRepository(directory, SNAPSHOT_EVERY);
+        assertEquals(Optional.of(cell), reopened2.cells().load(A1), "A1");
+        assertEquals(Optional.of(cell2), reopened2.cells().load(B2), "B2");
+    }
+
+    @Test
+    public void testReopenTruncatesCorruptRecordLength() throws IOException {
+        final Path directory = this.directory();
+        final JournalSpreadsheetStoreRepository repository = this.createRepository(directory, SNAPSHOT_EVERY);
+
+        final SpreadsheetCell cell = this.cell(A1, "=1");
+        repository.cells().save(cell);
+        repository.close();
+
+        final Path journal = directory.resolve(JournalSpreadsheetStoreRepository.JOURNAL);
+        final long length = Files.size(journal);
+
+        // a corrupt length far larger than the file must not be allocated.
+        Files.write(journal, new byte[]{0x7f, -1, -1, -1, 1, 1, '{', '}'}, StandardOpenOption.APPEND);
+
+        final JournalSpreadsheetStoreRepository reopened = this.createRepository(directory, SNAPSHOT_EVERY);
+        assertEquals(Optional.of(cell), reopened.cells().load(A1), "A1");
+        assertEquals(length, Files.size(journal), "journal size after truncating corrupt record");
+    }
+
+    @Test
+    public void testReopenTruncatedJournal() throws IOException {
+        final Path directory = this.directory();
+        final JournalSpreadsheetStoreRepository repository = this.createRepository(directory, SNAPSHOT_EVERY);
+
+        final SpreadsheetCell a1 = this.cell(A1, "=1");
+        repository.cells().save(a1);
+
+        final Path journal = directory.resolve(JournalSpreadsheetStoreRepository.JOURNAL);
+        final long length = Files.size(journal);
+
+        repository.cells().save(this.cell(B2, "=2"));
+        repository.close();
+
+        // simulate losing the end of the last record.
+        try (final FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(journal) - 3);
+        }
+
+        final JournalSpreadsheetStoreRepository reopened = this.createRepository(directory, SNAPSHOT_EVERY);
+        assertEquals(Optional.of(a1), reopened.cells().load(A1), "A1");
+        assertEquals(Optional.empty(), reopened.cells().load(B2), "B2");
+        assertEquals(length, Files.size(journal), "journal size after truncating partial record");
+    }
+
+    @Test
+    public void testSnapshotWrittenByExecutor() throws IOException {
+        final Path directory = this.directory();
+        final List<Runnable> snapshots = Lists.array();
+        final JournalSpreadsheetStoreRepository repository = this.createRepository(
+                directory,
+                2,
+                snapshots::add
+        );
+
+        final SpreadsheetCell a1 = this.cell(A1, "=1");
+        final SpreadsheetCell b2 = this.cell(B2, "=2");
+        repository.cells().save(a1);
+        repository.cells().save(b2);
+
+        assertEquals(1, snapshots.size(), "snapshot not written by the writer");
+        this.checkExists(directory, JournalSpreadsheetStoreRepository.PREVIOUS_JOURNAL);
+        this.checkNotExists(directory, JournalSpreadsheetStoreRepository.SNAPSHOT);
+
+        // mutations continue while the snapshot is pending, and do not start another snapshot.
+        repository.cells().delete(A1);
+        final SpreadsheetCell c3 = this.cell(SpreadsheetSelection.parseCell("C3"), "=3");
+        repository.cells().save(c3);
+        assertEquals(1, snapshots.size(), "snapshots");
+
+        // reopening before the snapshot is written replays the previous journal.
+        final JournalSpreadsheetStoreRepository beforeSnapshot = this.createRepository(directory, SNAPSHOT_EVERY);
+        assertEquals(Optional.empty(), beforeSnapshot.cells().load(A1), "A1");
+        assertEquals(Optional.of(b2), beforeSnapshot.cells().load(B2), "B2");
+        assertEquals(Optional.of(c3), beforeSnapshot.cells().load(c3.reference()), "C3");
+        beforeSnapshot.close();
+
+        snapshots.get(0).run();
+        this.checkExists(directory, JournalSpreadsheetStoreRepository.SNAPSHOT);
+        this.checkNotExists(directory, JournalSpreadsheetStoreRepository.PREVIOUS_JOURNAL);
+
+        final JournalSpreadsheetStoreRepository afterSnapshot = this.createRepository(directory, SNAPSHOT_EVERY);
+        assertEquals(Optional.empty(), afterSnapshot.cells().load(A1), "A1");
+        assertEquals(Optional.of(b2), afterSnapshot.cells().load(B2), "B2");
+        assertEquals(Optional.of(c3), afterSnapshot.cells().load(c3.reference()), "C3");
+    }
+
+    @Test
+    public void testCloseWaitsForSnapshot() {
+        final Path directory = this.directory();
+        final JournalSpreadsheetStoreRepository repository = this.createRepository(
+                directory,
+                SNAPSHOT_EVERY,
+                r -> new Thread(r).start()
+        );
+
+        repository.cells().save(this.cell(A1, "=1"));
+        final CompletableFuture<Void> snapshot = repository.snapshot();
+        repository.close();
+
+        assertEquals(true, snapshot.isDone(), "snapshot done");
+        this.checkExists(directory, JournalSpreadsheetStoreRepository.SNAPSHOT);
+    }
+
+    @Test
+    public void testRangeToCellsRemoveValue() {
+        final Path directory = this.directory();
+        final JournalSpreadsheetStoreRepository repository = this.createRepository(directory, SNAPSHOT_EVERY);
+
+        repository.rangeToCells().addValue(RANGE, A1);
+        repository.rangeToCells().addValue(RANGE, B2);
+        repository.rangeToCells().removeValue(RANGE, A1);
+
+        assertEquals(
+                Optional.of(Lists.of(B2)),
+                this.createRepository(directory, SNAPSHOT_EVERY)
+                        .rangeToCells()
+                        .load(RANGE)
+        );
+    }
+
+    @Test
+    public void testRangeToCellsDelete() {
+        final Path directory = this.directory();
+        final JournalSpreadsheetStoreRepository repository = this.createRepository(directory, SNAPSHOT_EVERY);
+
+        repository.rangeToCells().addValue(RANGE, A1);
+        repository.rangeToCells().delete(RANGE);
+
+        assertEquals(
+                Optional.empty(),
+                this.createRepository(directory, SNAPSHOT_EVERY)
+                        .rangeToCells()
+                        .load(RANGE)
+        );
+    }
+
+    @Test
+    public void testFlush() {
+        final Path directory = this.directory();
+        final JournalSpreadsheetStoreRepository repository = this.createRepository(directory, SNAPSHOT_EVERY);
+
+        final SpreadsheetCell a1 = this.cell(A1, "=1");
+        repository.cells().save(a1);
+        repository.flush();
+        repository.flush();
+
+        final JournalSpreadsheetStoreRepository reopened = this.createRepository(directory, SNAPSHOT_EVERY);
+        assertEquals(Optional.of(a1), reopened.cells().load(A1), "A1");
+    }
+
+    @Test
+    public void testConditionalFormattingRuleReferencesDerivedAfterReopen() {
+        final Path directory = this.directory();
+        final JournalSpreadsheetStoreRepository repository = this.createRepository(directory, SNAPSHOT_EVERY);
+
+        final SpreadsheetConditionalFormattingRule rule = this.conditionalFormattingRule();
+        repository.rangeToConditionalFormattingRules().addValue(RANGE, rule);
+        assertEquals(Sets.of(RANGE), repository.conditionalFormattingRuleReferences().loadCellReferenceValues(A1), "references");
+        repository.close();
+
+        // rules are not journaled, neither are their references.
+        final JournalSpreadsheetStoreRepository reopened = this.createRepository(directory, SNAPSHOT_EVERY);
+        assertEquals(0, reopened.conditionalFormattingRuleReferences().count(), "references count");
+
+        reopened.rangeToConditionalFormattingRules().addValue(RANGE, rule);
+        assertEquals(Sets.of(RANGE), reopened.conditionalFormattingRuleReferences().loadCellReferenceValues(A1), "references");
+    }
+
+    private SpreadsheetConditionalFormattingRule conditionalFormattingRule() {
+        return SpreadsheetConditionalFormattingRule.with(
+                SpreadsheetDescription.with("A1"),
+                1,
+                SpreadsheetFormula.EMPTY
+                        .setText("=A1")
+                        .setExpression(
+                                Optional.of(
+                                        Expression.reference(A1)
+                                )
+                        ),
+                (c) -> TextStyle.EMPTY
+        );
+    }
+
+    private void saveAndCheckReopen(final JournalSpreadsheetStoreRepository repository,
+                                    final Path directory) {
+        final SpreadsheetCell a1 = this.cell(A1, "=1");
+        final SpreadsheetCell b2 = this.cell(B2, "=A1+Label123");
+        final SpreadsheetLabelMapping mapping = LABEL.mapping(A1);
+
+        repository.cells().save(a1);
+        repository.cells().save(b2);
+        repository.labels().save(mapping);
+        repository.cellReferences().addReference(TargetAndSpreadsheetCellReference.with(A1, B2));
+        repository.labelReferences().addReference(TargetAndSpreadsheetCellReference.with(LABEL, B2));
+        repository.rangeToCells().addValue(RANGE, B2);
+
+        final JournalSpreadsheetStoreRepository reopened = this.createRepository(directory, SNAPSHOT_EVERY);
+
+        assertEquals(Optional.of(a1), reopened.cells().load(A1), "A1");
+        assertEquals(Optional.of(b2), reopened.cells().load(B2), "B2");
+        assertEquals(Optional.of(mapping), reopened.labels().load(LABEL), "label");
+        assertEquals(Optional.of(Sets.of(B2)), reopened.cellReferences().load(A1), "cellReferences");
+        assertEquals(Optional.of(Sets.of(B2)), reopened.labelReferences().load(LABEL), "labelReferences");
+        assertEquals(Optional.of(Lists.of(B2)), reopened.rangeToCells().load(RANGE), "rangeToCells");
+    }
+
+    private void checkExists(final Path directory,
+                             final String file) {
+        assertEquals(true, Files.exists(directory.resolve(file)), () -> file + " exists");
+    }
+
+    private SpreadsheetCell cell(final SpreadsheetCellReference reference,
+                                 final String formula) {
+        return reference.setFormula(SpreadsheetFormula.EMPTY.setText(formula));
+    }
+
+    private SpreadsheetCell impureCell(final SpreadsheetCellReference reference) {
+        return reference.setFormula(
+                SpreadsheetFormula.EMPTY.setText("=now()")
+                        .setExpression(
+                                Optional.of(
+                                        Expression.call(
+                                                Expression.namedFunction(
+                                                        FunctionExpressionName.with("now")
+                                                ),
+                                                Lists.empty()
+                                        )
+                                )
+                        ).recordPurity((n) -> false)
+        );
+    }
+
+    private void checkNotExists(final Path directory,
+                                final String file) {
+        assertEquals(false, Files.exists(directory.resolve(file)), () -> file + " exists");
+    }
+
+    private JournalSpreadsheetStoreRepository createRepository(final Path directory,
+                                                               final int snapshotEvery) {
+        return this.createRepository(
+                directory,
+                snapshotEvery,
+                EXECUTOR
+        );
+    }
+
+    private JournalSpreadsheetStoreRepository createRepository(final Path directory,
+                                                               final int snapshotEvery,
+                                                               final Executor executor) {
+        return JournalSpreadsheetStoreRepository.with(
+                this.repository(),
+                directory,
+                snapshotEvery,
+                executor,
+                MARSHALL_CONTEXT,
+                UNMARSHALL_CONTEXT
+        );
+    }
+
+    private SpreadsheetStoreRepository repository() {
+        return SpreadsheetStoreRepositories.basic(
+                SpreadsheetCellStores.treeMap(),
+                SpreadsheetExpressionReferenceStores.treeMap(),
+                SpreadsheetColumnStores.treeMap(),
+                SpreadsheetCellRangeStores.treeMap(),
+                SpreadsheetGroupStores.treeMap(),
+                SpreadsheetLabelStores.treeMap(),
+                SpreadsheetExpressionReferenceStores.treeMap(),
+                SpreadsheetMetadataStores.treeMap(),
+                SpreadsheetCellRangeStores.treeMap(),
+                SpreadsheetCellRangeStores.treeMap(),
+                SpreadsheetCellRangeStores.treeMap(),
+                SpreadsheetRowStores.treeMap(),
+                SpreadsheetUserStores.treeMap()
+        );
+    }
+
+    private Path directory() {
+        try {
+            final Path directory = Files.createTempDirectory(JournalSpreadsheetStoreRepositoryTest.class.getSimpleName());
+            directory.toFile().deleteOnExit();
+            return directory;
+        } catch (final IOException cause) {
+            throw new UncheckedIOException(cause);
+        }
+    }
+
+    // ClassTesting.....................................................................................................
+
+    @Override
+    public Class<JournalSpreadsheetStoreRepository> type() {
+        return JournalSpreadsheetStoreRepository.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+
+    // TypeNameTesting..................................................................................................
+
+    @Override
+    public String typeNamePrefix() {
+        return "Journal";
+    }
+
+    @Override
+    public String typeNameSuffix() {
+        return SpreadsheetStoreRepository.class.getSimpleName();
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store.file;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.ToStringTesting;
+import walkingkooka.collect.list.Lists;
+import walkingkooka.collect.map.Maps;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+public final class MemoryMappedSpreadsheetCellStoreIndexTest implements ClassTesting2<MemoryMappedSpreadsheetCellStoreIndex>,
+        ToStringTesting<MemoryMappedSpreadsheetCellStoreIndex> {
+
+    private final static long A1 = SpreadsheetSelection.parseCell("A1").pack();
+    private final static long B2 = SpreadsheetSelection.parseCell("B2").pack();
+    private final static long C3 = SpreadsheetSelection.parseCell("C3").pack();
+
+    @Test
+    public void testEmpty() {
+        final MemoryMappedSpreadsheetCellStoreIndex index = MemoryMappedSpreadsheetCellStoreIndex.empty();
+        this.sizeAndCheck(index, 0);
+        this.getAndCheck(index, A1, MemoryMappedSpreadsheetCellStoreIndex.ABSENT);
+    }
+
+    @Test
+    public void testPutAndGet() {
+        final MemoryMappedSpreadsheetCellStoreIndex index = MemoryMappedSpreadsheetCellStoreIndex.empty();
+        this.checkEquals(MemoryMappedSpreadsheetCellStoreIndex.ABSENT, index.put(A1, 100), "put");
+
+        this.getAndCheck(index, A1, 100);
+        this.getAndCheck(index, B2, MemoryMappedSpreadsheetCellStoreIndex.ABSENT);
+        this.sizeAndCheck(index, 1);
+    }
+
+    @Test
+    public void testPutReplace() {
+        final MemoryMappedSpreadsheetCellStoreIndex index = MemoryMappedSpreadsheetCellStoreIndex.empty();
+        index.put(A1, 100);
+        this.checkEquals(100L, index.put(A1, 200), "put");
+
+        this.getAndCheck(index, A1, 200);
+        this.sizeAndCheck(index, 1);
+    }
+
+    @Test
+    public void testPutOffsetLargerThanInt() {
+        final long offset = 5L * Integer.MAX_VALUE;
+
+        final MemoryMappedSpreadsheetCellStoreIndex index = MemoryMappedSpreadsheetCellStoreIndex.empty();
+        index.put(A1, offset);
+
+        this.getAndCheck(index, A1, offset);
+    }
+
+    @Test
+    public void testRemove() {
+        final MemoryMappedSpreadsheetCellStoreIndex index = MemoryMappedSpreadsheetCellStoreIndex.empty();
+        index.put(A1, 100);
+        index.put(B2, 200);
+
+        this.checkEquals(100L, index.remove(A1), "remove");
+        this.checkEquals(MemoryMappedSpreadsheetCellStoreIndex.ABSENT, index.remove(A1), "remove again");
+
+        this.getAndCheck(index, A1, MemoryMappedSpreadsheetCellStoreIndex.ABSENT);
+        this.getAndCheck(index, B2, 200);
+        this.sizeAndCheck(index, 1);
+    }
+
+    @Test
+    public void testSortedKeysAndCeiling() {
+        final MemoryMappedSpreadsheetCellStoreIndex index = MemoryMappedSpreadsheetCellStoreIndex.empty();
+        index.put(C3, 300);
+        index.put(A1, 100);
+
+        this.checkEquals(
+                Lists.of(A1, C3),
+                toList(index.sortedKeys()),
+                "sortedKeys"
+        );
+        this.checkEquals(0, index.ceiling(A1), "ceiling A1");
+        this.checkEquals(1, index.ceiling(B2), "ceiling B2");
+        this.checkEquals(2, index.ceiling(C3 + 1), "ceiling after C3");
+
+        index.put(B2, 200);
+        this.checkEquals(1, index.ceiling(B2), "ceiling B2 after put");
+    }
+
+    @Test
+    public void testManyPutsGetsAndRemoves() {
+        final MemoryMappedSpreadsheetCellStoreIndex index = MemoryMappedSpreadsheetCellStoreIndex.empty();
+        final Map<Long, Long> expected = Maps.sorted();
+
+        // enough keys to resize several times past the initial capacity
+        long offset = 0;
+        for (int column = 0; column < 100; column++) {
+            for (int row = 0; row < 50; row++) {
+                final long key = (long) (column * 7) << 32 | (row * 13);
+                index.put(key, offset);
+                expected.put(key, offset);
+                offset += 1000;
+            }
+        }
+
+        // remove every third entry, exercising the shifting of entries after removed slots
+        int i = 0;
+        for (final Long key : new ArrayList<>(expected.keySet())) {
+            if (0 == i % 3) {
+                this.checkEquals(expected.remove(key), index.remove(key), () -> "remove " + key);
+            }
+            i++;
+        }
+
+        this.sizeAndCheck(index, expected.size());
+
+        for (final Map.Entry<Long, Long> keyAndOffset : expected.entrySet()) {
+            this.getAndCheck(index, keyAndOffset.getKey(), keyAndOffset.getValue());
+        }
+
+        this.checkEquals(new ArrayList<>(expected.keySet()), toList(index.sortedKeys()), "sortedKeys");
+    }
+
+    private static ArrayList<Long> toList(final long[] keys) {
+        final ArrayList<Long> list = new ArrayList<>();
+        for (final long key : keys) {
+            list.add(key);
+        }
+        return list;
+    }
+
+    private void getAndCheck(final MemoryMappedSpreadsheetCellStoreIndex index,
+                             final long key,
+                             final long expected) {
+        this.checkEquals(
+                expected,
+                index.get(key),
+                () -> "get " + key
+        );
+    }
+
+    private void sizeAndCheck(final MemoryMappedSpreadsheetCellStoreIndex index,
+                              final int expected) {
+        this.checkEquals(
+                expected,
+                index.size(),
+                () -> "size " + index
+        );
+    }
+
+    // toString.........................................................................................................
+
+    @Test
+    public void testToString() {
+        final MemoryMappedSpreadsheetCellStoreIndex index = MemoryMappedSpreadsheetCellStoreIndex.empty();
+        index.put(1L << 32, 200);
+        index.put(0, 100);
+
+        this.toStringAndCheck(index, "{0=100, 4294967296=200}");
+    }
+
+    // ClassTesting.....................................................................................................
+
+    @Override
+    public Class<MemoryMappedSpreadsheetCellStoreIndex> type() {
+        return MemoryMappedSpreadsheetCellStoreIndex.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
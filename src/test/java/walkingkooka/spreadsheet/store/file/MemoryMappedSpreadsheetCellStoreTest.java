@@ -0,0 +1,730 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store.file;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import walkingkooka.collect.list.Lists;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.reflect.TypeNameTesting;
+import walkingkooka.spreadsheet.SpreadsheetCell;
+import walkingkooka.spreadsheet.SpreadsheetFormula;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+import walkingkooka.spreadsheet.store.SpreadsheetCellStore;
+import walkingkooka.spreadsheet.store.SpreadsheetCellStoreTesting;
+import walkingkooka.tree.expression.Expression;
+import walkingkooka.tree.expression.ExpressionNumberKind;
+import walkingkooka.tree.expression.FunctionExpressionName;
+import walkingkooka.tree.json.marshall.JsonNodeMarshallContext;
+import walkingkooka.tree.json.marshall.JsonNodeMarshallContexts;
+import walkingkooka.tree.json.marshall.JsonNodeUnmarshallContext;
+import walkingkooka.tree.json.marshall.JsonNodeUnmarshallContexts;
+import walkingkooka.tree.text.FontWeight;
+import walkingkooka.tree.text.Length;
+import walkingkooka.tree.text.TextNode;
+import walkingkooka.tree.text.TextStyle;
+import walkingkooka.tree.text.TextStylePropertyName;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.MathContext;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class MemoryMappedSpreadsheetCellStoreTest implements SpreadsheetCellStoreTesting<MemoryMappedSpreadsheetCellStore>,
+        TypeNameTesting<MemoryMappedSpreadsheetCellStore> {
+
+    private final static JsonNodeMarshallContext MARSHALL_CONTEXT = JsonNodeMarshallContexts.basic();
+
+    /**
+     * A small segment so a few cells span several segments.
+     */
+    private final static int SEGMENT_SIZE = 256;
+
+    private final static JsonNodeUnmarshallContext UNMARSHALL_CONTEXT = JsonNodeUnmarshallContexts.basic(
+            ExpressionNumberKind.DEFAULT,
+            MathContext.DECIMAL32
+    );
+
+    @Test
+    public void testWithNullChannelFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> MemoryMappedSpreadsheetCellStore.with(
+                        null,
+                        MARSHALL_CONTEXT,
+                        UNMARSHALL_CONTEXT
+                )
+        );
+    }
+
+    @Test
+    public void testWithNullMarshallContextFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> MemoryMappedSpreadsheetCellStore.with(
+                        this.channel(this.file()),
+                        null,
+                        UNMARSHALL_CONTEXT
+                )
+        );
+    }
+
+    @Test
+    public void testWithNullUnmarshallContextFails() {
+        assertThrows(
+                NullPointerException.class,
+                () -> MemoryMappedSpreadsheetCellStore.with(
+                        this.channel(this.file()),
+                        MARSHALL_CONTEXT,
+                        null
+                )
+        );
+    }
+
+    @Test
+    public void testWithInvalidFileFails() throws IOException {
+        final Path file = this.file();
+        Files.write(file, "invalid!".getBytes());
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> this.createStore(file)
+        );
+    }
+
+    @Test
+    public void testLoadUnknown() {
+        this.loadFailCheck(this.createStore(), SpreadsheetSelection.parseCell("Z99"));
+    }
+
+    @Test
+    public void testSaveAndLoad() {
+        final MemoryMappedSpreadsheetCellStore store = this.createStore();
+
+        final SpreadsheetCell cell = this.cell("B3", "1+2")
+                .setStyle(
+                        TextStyle.EMPTY.set(TextStylePropertyName.FONT_WEIGHT, FontWeight.BOLD)
+                ).setFormatted(Optional.of(TextNode.text("formatted")));
+        store.save(cell);
+
+        this.loadAndCheck(store, cell);
+    }
+
+    @Test
+    public void testSaveReplacing() {
+        final MemoryMappedSpreadsheetCellStore store = this.createStore();
+
+        final SpreadsheetCell cell = this.cell("B3", "1+2");
+        this.checkEquals(false, store.saveReplacing(cell), "saveReplacing new cell");
+
+        final SpreadsheetCell replacing = this.cell("B3", "3+4");
+        this.checkEquals(true, store.saveReplacing(replacing), "saveReplacing existing cell");
+
+        this.countAndCheck(store, 1);
+        this.loadAndCheck(store, replacing);
+    }
+
+    @Test
+    public void testSaveReplaces() {
+        final MemoryMappedSpreadsheetCellStore store = this.createStore();
+
+        store.save(this.cell("B3", "1+2"));
+
+        final SpreadsheetCell cell = this.cell("B3", "3+4");
+        store.save(cell);
+
+        this.loadAndCheck(store, cell);
+        this.countAndCheck(store, 1);
+    }
+
+    @Test
+    public void testSaveFiresWatcher() {
+        final MemoryMappedSpreadsheetCellStore store = this.createStore();
+
+        final SpreadsheetCell cell = this.cell("B3", "1+2");
+        final List<SpreadsheetCell> saved = Lists.array();
+        store.addSaveWatcher(saved::add);
+
+        store.save(cell);
+
+        this.checkEquals(Lists.of(cell), saved, "saved");
+    }
+
+    @Test
+    public void testDelete() {
+        final MemoryMappedSpreadsheetCellStore store = this.createStore();
+
+        final SpreadsheetCell b3 = this.cell("B3", "1");
+        final SpreadsheetCell b4 = this.cell("B4", "2");
+        store.save(b3);
+        store.save(b4);
+
+        final List<SpreadsheetCellReference> deleted = Lists.array();
+        store.addDeleteWatcher(deleted::add);
+
+        store.delete(b4.reference());
+        store.delete(SpreadsheetSelection.parseCell("Z99"));
+
+        this.checkEquals(Lists.of(b4.reference()), deleted, "deleted");
+        this.loadFailCheck(store, b4.reference());
+        this.loadAndCheck(store, b3);
+        this.countAndCheck(store, 1);
+    }
+
+    @Test
+    public void testReopenReplaysSavesAndDeletes() {
+        final Path file = this.file();
+
+        final MemoryMappedSpreadsheetCellStore store = this.createStore(file);
+
+        final SpreadsheetCell a1 = this.cell("A1", "1");
+        final SpreadsheetCell b2 = this.cell("B2", "2");
+        final SpreadsheetCell c3 = this.cell("C3", "3");
+        store.save(a1);
+        store.save(b2);
+        store.save(c3);
+        store.delete(b2.reference());
+
+        final SpreadsheetCell a1b = this.cell("A1", "11");
+        store.save(a1b);
+
+        final MemoryMappedSpreadsheetCellStore reopened = this.createStore(file);
+
+        this.countAndCheck(reopened, 2);
+        this.loadAndCheck(reopened, a1b);
+        this.loadFailCheck(reopened, b2.reference());
+        this.loadAndCheck(reopened, c3);
+    }
+
+    @Test
+    public void testSaveGrowsFile() throws IOException {
+        final Path file = this.file();
+        final MemoryMappedSpreadsheetCellStore store = this.createStore(file);
+
+        final char[] x = new char[1000];
+        Arrays.fill(x, 'x');
+        final String text = "'" + new String(x);
+        final int count = 2 * MemoryMappedSpreadsheetCellStore.INITIAL_CAPACITY / text.length();
+
+        for (int row = 0; row < count; row++) {
+            store.save(this.cell("A" + (row + 1), text));
+        }
+
+        this.checkEquals(
+                true,
+                Files.size(file) > MemoryMappedSpreadsheetCellStore.INITIAL_CAPACITY,
+                () -> "file should have grown " + Files.size(file)
+        );
+
+        final MemoryMappedSpreadsheetCellStore reopened = this.createStore(file);
+        this.countAndCheck(reopened, count);
+        this.loadAndCheck(reopened, this.cell("A" + count, text));
+    }
+
+    @Test
+    public void testFileStartsWithMagic() throws IOException {
+        final Path file = this.file();
+        this.createStore(file)
+                .save(this.cell("A1", "1"));
+
+        this.checkEquals(
+                MemoryMappedSpreadsheetCellStore.MAGIC,
+                ByteBuffer.wrap(Files.readAllBytes(file))
+                        .getInt()
+        );
+    }
+
+    @Test
+    public void testIdsAndValues() {
+        final MemoryMappedSpreadsheetCellStore store = this.createStore();
+
+        final SpreadsheetCell c1 = this.cell("C1", "1");
+        final SpreadsheetCell a2 = this.cell("A2", "2");
+        final SpreadsheetCell a1 = this.cell("A1", "3");
+        store.save(c1);
+        store.save(a2);
+        store.save(a1);
+
+        this.idsAndCheck(
+                store,
+                1,
+                2,
+                a2.reference(), c1.reference()
+        );
+
+        this.checkEquals(
+                Lists.of(a2, c1),
+                store.values(a2.reference(), 3)
+        );
+    }
+
+    @Test
+    public void testLoadCells() {
+        final MemoryMappedSpreadsheetCellStore store = this.createStore();
+
+        store.save(this.cell("A1", "1"));
+        final SpreadsheetCell b2 = this.cell("B2", "2");
+        store.save(b2);
+        final SpreadsheetCell c3 = this.cell("C3", "3");
+        store.save(c3);
+        store.save(this.cell("C4", "4"));
+        store.save(this.cell("D4", "5"));
+
+        this.checkEquals(
+                Sets.of(b2, c3),
+                store.loadCells(SpreadsheetSelection.parseCellRange("B2:C3"))
+        );
+    }
+
+    @Test
+    public void testRowsColumnsRowAndColumn() {
+        final MemoryMappedSpreadsheetCellStore store = this.createStore();
+
+        final SpreadsheetCell b2 = this.cell("B2", "1");
+        final SpreadsheetCell b9 = this.cell("B9", "2");
+        final SpreadsheetCell d2 = this.cell("D2", "3");
+        store.save(b2);
+        store.save(b9);
+        store.save(d2);
+
+        this.checkEquals(8, store.rows(), "rows");
+        this.checkEquals(3, store.columns(), "columns");
+        this.checkEquals(Sets.of(b2, d2), store.row(SpreadsheetSelection.parseRow("2")), "row");
+        this.checkEquals(Sets.of(b2, b9), store.column(SpreadsheetSelection.parseColumn("B")), "column");
+    }
+
+    @Test
+    public void testMaxColumnWidthAndMaxRowHeight() {
+        final MemoryMappedSpreadsheetCellStore store = this.createStore();
+
+        store.save(this.cellWithWidthAndHeight("C3", 50, 10));
+        store.save(this.cellWithWidthAndHeight("C4", 99, 20));
+        store.save(this.cellWithWidthAndHeight("D3", 150, 30));
+
+        this.checkEquals(99.0, store.maxColumnWidth(SpreadsheetSelection.parseColumn("C")), "maxColumnWidth");
+        this.checkEquals(0.0, store.maxColumnWidth(SpreadsheetSelection.parseColumn("Z")), "maxColumnWidth");
+        this.checkEquals(30.0, store.maxRowHeight(SpreadsheetSelection.parseRow("3")), "maxRowHeight");
+    }
+
+    @Test
+    public void testWithInvalidSegmentSizeFails() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> MemoryMappedSpreadsheetCellStore.with(
+                        this.channel(this.file()),
+                        1000,
+                        MARSHALL_CONTEXT,
+                        UNMARSHALL_CONTEXT
+                )
+        );
+    }
+
+    @Test
+    public void testSaveSpansSegments() throws IOException {
+        final Path file = this.file();
+        final MemoryMappedSpreadsheetCellStore store = this.createStore(file, SEGMENT_SIZE);
+
+        final List<SpreadsheetCell> cells = Lists.array();
+        for (int row = 1; row <= 100; row++) {
+            final SpreadsheetCell cell = this.cell("A" + row, "" + row);
+            store.save(cell);
+            cells.add(cell);
+        }
+        store.delete(SpreadsheetSelection.parseCell("A50"));
+        cells.remove(49);
+
+        this.checkEquals(
+                true,
+                Files.size(file) > 4 * SEGMENT_SIZE,
+                () -> "file should have several segments " + Files.size(file)
+        );
+
+        final MemoryMappedSpreadsheetCellStore reopened = this.createStore(file, SEGMENT_SIZE);
+        this.countAndCheck(reopened, cells.size());
+        for (final SpreadsheetCell cell : cells) {
+            this.loadAndCheck(reopened, cell);
+        }
+    }
+
+    @Test
+    public void testSaveLargerThanSegmentFails() {
+        final MemoryMappedSpreadsheetCellStore store = this.createStore(this.file(), SEGMENT_SIZE);
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> store.save(this.cell("A1", this.text(SEGMENT_SIZE)))
+        );
+    }
+
+    @Test
+    public void testOpenCloseReopen() {
+        final Path file = this.file();
+
+        final MemoryMappedSpreadsheetCellStore store = this.open(file);
+        final SpreadsheetCell a1 = this.cell("A1", "1");
+        final SpreadsheetCell b2 = this.cell("B2", "2");
+        store.save(a1);
+        store.save(b2);
+        store.close();
+
+        final MemoryMappedSpreadsheetCellStore reopened = this.open(file);
+        this.countAndCheck(reopened, 2);
+        this.loadAndCheck(reopened, a1);
+        this.loadAndCheck(reopened, b2);
+    }
+
+    @Test
+    public void testFlushReopen() {
+        final Path file = this.file();
+
+        final MemoryMappedSpreadsheetCellStore store = this.open(file);
+        final SpreadsheetCell a1 = this.cell("A1", "1");
+        store.save(a1);
+        store.flush();
+
+        final SpreadsheetCell b2 = this.cell("B2", "2");
+        store.save(b2);
+        store.delete(a1.reference());
+        store.flush();
+
+        final MemoryMappedSpreadsheetCellStore reopened = this.open(file);
+        this.countAndCheck(reopened, 1);
+        this.loadFailCheck(reopened, a1.reference());
+        this.loadAndCheck(reopened, b2);
+    }
+
+    @Test
+    public void testFlushNothingSaved() {
+        final MemoryMappedSpreadsheetCellStore store = this.createStore();
+        store.flush();
+        this.countAndCheck(store, 0);
+    }
+
+    @Test
+    public void testCompactWithChannelFails() {
+        assertThrows(
+                IllegalStateException.class,
+                () -> this.createStore().compact()
+        );
+    }
+
+    @Test
+    public void testCompact() throws IOException {
+        final Path file = this.file();
+        final MemoryMappedSpreadsheetCellStore store = this.open(file, SEGMENT_SIZE);
+
+        for (int i = 0; i < 50; i++) {
+            store.save(this.cell("A1", "" + i));
+            store.save(this.cell("B2", "" + i));
+        }
+        store.delete(SpreadsheetSelection.parseCell("B2"));
+
+        final SpreadsheetCell a1 = this.cell("A1", "1");
+        store.save(a1);
+        final SpreadsheetCell c3 = this.cell("C3", "3");
+        store.save(c3);
+
+        final long before = Files.size(file);
+        store.compact();
+
+        this.checkEquals(
+                true,
+                Files.size(file) < before,
+                () -> "file should have shrunk from " + before + " to " + Files.size(file)
+        );
+        this.countAndCheck(store, 2);
+        this.loadAndCheck(store, a1);
+        this.loadAndCheck(store, c3);
+
+        // saves after compacting are appended to the compacted file
+        final SpreadsheetCell d4 = this.cell("D4", "4");
+        store.save(d4);
+        store.close();
+
+        final MemoryMappedSpreadsheetCellStore reopened = this.open(file, SEGMENT_SIZE);
+        this.countAndCheck(reopened, 3);
+        this.loadAndCheck(reopened, a1);
+        this.loadFailCheck(reopened, SpreadsheetSelection.parseCell("B2"));
+        this.loadAndCheck(reopened, c3);
+        this.loadAndCheck(reopened, d4);
+    }
+
+    @Test
+    public void testFlushCompactsReplacedRecords() throws IOException {
+        final Path file = this.file();
+        final MemoryMappedSpreadsheetCellStore store = this.open(file);
+
+        final String text = this.text(1000);
+        final int count = (int) (4 * MemoryMappedSpreadsheetCellStore.COMPACT_THRESHOLD / text.length());
+
+        SpreadsheetCell last = null;
+        for (int i = 0; i < count; i++) {
+            last = this.cell("A1", text + i);
+            store.save(last);
+        }
+
+        final long before = Files.size(file);
+        this.checkEquals(
+                true,
+                before > 2 * MemoryMappedSpreadsheetCellStore.INITIAL_CAPACITY,
+                () -> "file should not be compacted when saving " + before
+        );
+
+        store.flush();
+
+        this.checkEquals(
+                true,
+                Files.size(file) <= 2 * MemoryMappedSpreadsheetCellStore.INITIAL_CAPACITY,
+                () -> "file should have been compacted " + Files.size(file)
+        );
+        this.loadAndCheck(store, last);
+        store.close();
+
+        final MemoryMappedSpreadsheetCellStore reopened = this.open(file);
+        this.countAndCheck(reopened, 1);
+        this.loadAndCheck(reopened, last);
+    }
+
+    @Test
+    public void testImpureCellsAfterReopen() throws IOException {
+        final Path file = this.file();
+        final MemoryMappedSpreadsheetCellStore store = this.open(file);
+
+        final SpreadsheetCell a1 = this.impureCell("A1");
+        store.save(a1);
+        final SpreadsheetCell b2 = this.impureCell("B2");
+        store.save(b2);
+        store.save(this.cell("C3", "3"));
+        store.delete(b2.reference());
+        store.close();
+
+        final MemoryMappedSpreadsheetCellStore reopened = this.open(file);
+        this.impureCellsAndCheck(reopened, a1.reference());
+        this.loadAndCheck(reopened, a1);
+    }
+
+    @Test
+    public void testImpureCellsAfterCompact() throws IOException {
+        final Path file = this.file();
+        final MemoryMappedSpreadsheetCellStore store = this.open(file, SEGMENT_SIZE);
+
+        for (int i = 0; i < 50; i++) {
+            store.save(this.cell("A1", "" + i));
+        }
+        final SpreadsheetCell a1 = this.impureCell("A1");
+        store.save(a1);
+        store.save(this.cell("B2", "2"));
+
+        store.compact();
+        this.impureCellsAndCheck(store, a1.reference());
+        store.close();
+
+        final MemoryMappedSpreadsheetCellStore reopened = this.open(file, SEGMENT_SIZE);
+        this.impureCellsAndCheck(reopened, a1.reference());
+    }
+
+    private SpreadsheetCell impureCell(final String reference) {
+        final SpreadsheetCell cell = this.cell(reference, "=now()");
+        return cell.setFormula(
+                cell.formula()
+                        .setExpression(
+                                Optional.of(
+                                        Expression.call(
+                                                Expression.namedFunction(
+                                                        FunctionExpressionName.with("now")
+                                                ),
+                                                Lists.empty()
+                                        )
+                                )
+                        ).recordPurity((n) -> false)
+        );
+    }
+
+    private void impureCellsAndCheck(final MemoryMappedSpreadsheetCellStore store,
+                                     final SpreadsheetCellReference... expected) {
+        this.checkEquals(
+                Sets.of(expected),
+                store.impureCells(),
+                () -> "impureCells " + store
+        );
+    }
+
+    private String text(final int length) {
+        final char[] x = new char[length];
+        Arrays.fill(x, 'x');
+        return "'" + new String(x);
+    }
+
+    private SpreadsheetCell cell(final String reference,
+                                 final String formula) {
+        return SpreadsheetSelection.parseCell(reference)
+                .setFormula(
+                        SpreadsheetFormula.EMPTY.setText(formula)
+                );
+    }
+
+    private SpreadsheetCell cellWithWidthAndHeight(final String reference,
+                                                   final double width,
+                                                   final double height) {
+        return this.cell(reference, "1")
+                .setStyle(
+                        TextStyle.EMPTY
+                                .set(TextStylePropertyName.WIDTH, Length.pixel(width))
+                                .set(TextStylePropertyName.HEIGHT, Length.pixel(height))
+                );
+    }
+
+    private void loadAndCheck(final MemoryMappedSpreadsheetCellStore store,
+                              final SpreadsheetCell cell) {
+        this.checkEquals(
+                Optional.of(cell),
+                store.load(cell.reference()),
+                () -> "load " + cell.reference()
+        );
+    }
+
+    // toString.........................................................................................................
+
+    @Test
+    public void testToString() {
+        final MemoryMappedSpreadsheetCellStore store = this.createStore();
+        store.save(this.cell("B2", "3+4"));
+        store.save(this.cell("A1", "1+2"));
+
+        this.toStringAndCheck(store, "[A1=1+2, B2=3+4]");
+    }
+
+    @Override
+    public MemoryMappedSpreadsheetCellStore createStore() {
+        return this.createStore(this.file());
+    }
+
+    private MemoryMappedSpreadsheetCellStore createStore(final Path file) {
+        return MemoryMappedSpreadsheetCellStore.with(
+                this.channel(file),
+                MARSHALL_CONTEXT,
+                UNMARSHALL_CONTEXT
+        );
+    }
+
+    private MemoryMappedSpreadsheetCellStore createStore(final Path file,
+                                                         final int segmentSize) {
+        return MemoryMappedSpreadsheetCellStore.with(
+                this.channel(file),
+                segmentSize,
+                MARSHALL_CONTEXT,
+                UNMARSHALL_CONTEXT
+        );
+    }
+
+    private MemoryMappedSpreadsheetCellStore open(final Path file) {
+        return this.open(
+                file,
+                MemoryMappedSpreadsheetCellStore.SEGMENT_SIZE
+        );
+    }
+
+    private MemoryMappedSpreadsheetCellStore open(final Path file,
+                                                  final int segmentSize) {
+        final MemoryMappedSpreadsheetCellStore store = MemoryMappedSpreadsheetCellStore.open(
+                file,
+                segmentSize,
+                MARSHALL_CONTEXT,
+                UNMARSHALL_CONTEXT
+        );
+        this.stores.add(store);
+        return store;
+    }
+
+    private final List<MemoryMappedSpreadsheetCellStore> stores = Lists.array();
+
+    private Path file() {
+        try {
+            final Path file = Files.createTempFile(MemoryMappedSpreadsheetCellStoreTest.class.getSimpleName(), ".cells");
+            file.toFile().deleteOnExit();
+            return file;
+        } catch (final IOException cause) {
+            throw new UncheckedIOException(cause);
+        }
+    }
+
+    private FileChannel channel(final Path file) {
+        try {
+            final FileChannel channel = FileChannel.open(
+                    file,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE
+            );
+            this.channels.add(channel);
+            return channel;
+        } catch (final IOException cause) {
+            throw new UncheckedIOException(cause);
+        }
+    }
+
+    private final List<FileChannel> channels = Lists.array();
+
+    @AfterEach
+    public void closeChannels() throws IOException {
+        for (final MemoryMappedSpreadsheetCellStore store : this.stores) {
+            store.close();
+        }
+        for (final FileChannel channel : this.channels) {
+            channel.close();
+        }
+    }
+
+    @Override
+    public SpreadsheetCellReference id() {
+        return SpreadsheetSelection.parseCell("A1");
+    }
+
+    @Override
+    public SpreadsheetCell value() {
+        return this.cell("A1", "1+2");
+    }
+
+    // ClassTesting.....................................................................................................
+
+    @Override
+    public Class<MemoryMappedSpreadsheetCellStore> type() {
+        return MemoryMappedSpreadsheetCellStore.class;
+    }
+
+    // TypeNameTesting..................................................................................................
+
+    @Override
+    public String typeNamePrefix() {
+        return "MemoryMapped";
+    }
+
+    @Override
+    public String typeNameSuffix() {
+        return SpreadsheetCellStore.class.getSimpleName();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store.repo;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelectionVisitorTesting;
+import walkingkooka.spreadsheet.reference.store.SpreadsheetLabelStores;
+
+import java.util.Set;
+
+public final class BasicSpreadsheetStoreRepositoryConditionalFormattingRuleReferencesExpressionVisitorSpreadsheetSelectionVisitorTest implements SpreadsheetSelectionVisitorTesting<BasicSpreadsheetStoreRepositoryConditionalFormattingRuleReferencesExpressionVisitorSpreadsheetSelectionVisitor> {
+
+    @Test
+    public void testCell() {
+        final Set<SpreadsheetCellRange> ranges = Sets.sorted();
+
+        BasicSpreadsheetStoreRepositoryConditionalFormattingRuleReferencesExpressionVisitorSpreadsheetSelectionVisitor.with(
+                SpreadsheetLabelStores.fake(),
+                ranges
+        ).accept(SpreadsheetSelection.parseCell("$B$2"));
+
+        final SpreadsheetCellReference b2 = SpreadsheetSelection.parseCell("B2");
+        this.checkEquals(
+                Sets.of(b2.cellRange(b2)),
+                ranges
+        );
+    }
+
+    @Test
+    public void testCellRange() {
+        final Set<SpreadsheetCellRange> ranges = Sets.sorted();
+
+        BasicSpreadsheetStoreRepositoryConditionalFormattingRuleReferencesExpressionVisitorSpreadsheetSelectionVisitor.with(
+                SpreadsheetLabelStores.fake(),
+                ranges
+        ).accept(SpreadsheetSelection.parseCellRange("$A$1:A1048576"));
+
+        this.checkEquals(
+                Sets.of(
+                        SpreadsheetSelection.parseCellRange("A1:A1048576")
+                ),
+                ranges
+        );
+    }
+
+    @Test
+    public void testToString() {
+        final Set<SpreadsheetCellRange> ranges = Sets.sorted();
+        ranges.add(SpreadsheetSelection.parseCellRange("A1:A99"));
+
+        this.toStringAndCheck(
+                BasicSpreadsheetStoreRepositoryConditionalFormattingRuleReferencesExpressionVisitorSpreadsheetSelectionVisitor.with(
+                        SpreadsheetLabelStores.fake(),
+                        ranges
+                ),
+                ranges.toString()
+        );
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+
+    @Override
+    public String typeNamePrefix() {
+        return BasicSpreadsheetStoreRepository.class.getSimpleName();
+    }
+
+    @Override
+    public Class<BasicSpreadsheetStoreRepositoryConditionalFormattingRuleReferencesExpressionVisitorSpreadsheetSelectionVisitor> type() {
+        return BasicSpreadsheetStoreRepositoryConditionalFormattingRuleReferencesExpressionVisitorSpreadsheetSelectionVisitor.class;
+    }
+
+    // VisitingTesting.............................................................................................................
+
+    @Override
+    public BasicSpreadsheetStoreRepositoryConditionalFormattingRuleReferencesExpressionVisitorSpreadsheetSelectionVisitor createVisitor() {
+        return new BasicSpreadsheetStoreRepositoryConditionalFormattingRuleReferencesExpressionVisitorSpreadsheetSelectionVisitor(null, Sets.sorted());
+    }
+}
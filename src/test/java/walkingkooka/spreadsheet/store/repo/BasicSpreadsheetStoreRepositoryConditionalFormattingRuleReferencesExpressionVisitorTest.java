@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.store.repo;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetLabelName;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+import walkingkooka.spreadsheet.reference.store.SpreadsheetLabelStore;
+import walkingkooka.spreadsheet.reference.store.SpreadsheetLabelStores;
+import walkingkooka.tree.expression.Expression;
+import walkingkooka.tree.expression.ExpressionVisitor;
+import walkingkooka.tree.expression.ExpressionVisitorTesting;
+
+import java.util.Set;
+
+public final class BasicSpreadsheetStoreRepositoryConditionalFormattingRuleReferencesExpressionVisitorTest implements ExpressionVisitorTesting<BasicSpreadsheetStoreRepositoryConditionalFormattingRuleReferencesExpressionVisitor> {
+
+    @Test
+    public void testGatherReferencesWithoutReferences() {
+        this.gatherReferencesAndCheck(
+                Expression.value("abc123"),
+                SpreadsheetLabelStores.fake()
+        );
+    }
+
+    @Test
+    public void testGatherReferencesCellsRangeAndLabel() {
+        final SpreadsheetLabelStore labels = SpreadsheetLabelStores.treeMap();
+        final SpreadsheetLabelName label = SpreadsheetSelection.labelName("Label123");
+        labels.save(label.mapping(SpreadsheetSelection.parseCell("Z9")));
+
+        this.gatherReferencesAndCheck(
+                Expression.add(
+                        Expression.add(
+                                Expression.reference(SpreadsheetSelection.parseCell("$A$1")),
+                                Expression.reference(SpreadsheetSelection.parseCellRange("B2:B3"))
+                        ),
+                        Expression.add(
+                                Expression.reference(label),
+                                Expression.reference(SpreadsheetSelection.labelName("Unknown"))
+                        )
+                ),
+                labels,
+                this.cell("A1"),
+                SpreadsheetSelection.parseCellRange("B2:B3"),
+                this.cell("Z9")
+        );
+    }
+
+    private SpreadsheetCellRange cell(final String text) {
+        final SpreadsheetCellReference cell = SpreadsheetSelection.parseCell(text);
+        return cell.cellRange(cell);
+    }
+
+    private void gatherReferencesAndCheck(final Expression expression,
+                                          final SpreadsheetLabelStore labels,
+                                          final SpreadsheetCellRange... expected) {
+        final Set<SpreadsheetCellRange> ranges = Sets.sorted();
+
+        BasicSpreadsheetStoreRepositoryConditionalFormattingRuleReferencesExpressionVisitor.gatherReferences(
+                expression,
+                labels,
+                ranges
+        );
+
+        this.checkEquals(
+                Sets.of(expected),
+                ranges,
+                () -> expression.toString()
+        );
+    }
+
+    // TypeNameTesting..........................................................................
+
+    @Override
+    public String typeNameSuffix() {
+        return ExpressionVisitor.class.getSimpleName();
+    }
+
+    // ClassTesting..........................................................................
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+
+    @Override
+    public String typeNamePrefix() {
+        return BasicSpreadsheetStoreRepository.class.getSimpleName();
+    }
+
+    @Override
+    public Class<BasicSpreadsheetStoreRepositoryConditionalFormattingRuleReferencesExpressionVisitor> type() {
+        return BasicSpreadsheetStoreRepositoryConditionalFormattingRuleReferencesExpressionVisitor.class;
+    }
+
+    // VisitingTesting....................................................................................
+
+    @Override
+    public BasicSpreadsheetStoreRepositoryConditionalFormattingRuleReferencesExpressionVisitor createVisitor() {
+        return new BasicSpreadsheetStoreRepositoryConditionalFormattingRuleReferencesExpressionVisitor(null, Sets.sorted());
+    }
+}
@@ -18,11 +18,17 @@
 package walkingkooka.spreadsheet.store.repo;
 
 import org.junit.jupiter.api.Test;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.spreadsheet.SpreadsheetDescription;
+import walkingkooka.spreadsheet.SpreadsheetFormula;
 import walkingkooka.spreadsheet.conditionalformat.SpreadsheetConditionalFormattingRule;
+import walkingkooka.spreadsheet.datavalidation.SpreadsheetDataValidator;
 import walkingkooka.spreadsheet.meta.store.SpreadsheetMetadataStore;
 import walkingkooka.spreadsheet.meta.store.SpreadsheetMetadataStores;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRange;
 import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetLabelName;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
 import walkingkooka.spreadsheet.reference.store.SpreadsheetCellRangeStore;
 import walkingkooka.spreadsheet.reference.store.SpreadsheetCellRangeStores;
 import walkingkooka.spreadsheet.reference.store.SpreadsheetExpressionReferenceStore;
@@ -39,6 +45,11 @@ import walkingkooka.spreadsheet.store.SpreadsheetColumnStore;
 import walkingkooka.spreadsheet.store.SpreadsheetColumnStores;
 import walkingkooka.spreadsheet.store.SpreadsheetRowStore;
 import walkingkooka.spreadsheet.store.SpreadsheetRowStores;
+import walkingkooka.tree.expression.Expression;
+import walkingkooka.tree.text.TextStyle;
+
+import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -50,12 +61,14 @@ public final class BasicSpreadsheetStoreRepositoryTest implements SpreadsheetSto
                 null,
                 this.cellReferences(),
                 this.columns(),
+                this.conditionalFormattingRuleReferences(),
                 this.groups(),
                 this.labels(),
                 this.labelReferences(),
                 this.metadatas(),
                 this.rangeToCells(),
                 this.rangeToConditionalFormattingRules(),
+                this.rangeToValidators(),
                 this.rows(),
                 this.users()
         );
@@ -67,12 +80,14 @@ public final class BasicSpreadsheetStoreRepositoryTest implements SpreadsheetSto
                 this.cells(),
                 null,
                 this.columns(),
+                this.conditionalFormattingRuleReferences(),
                 this.groups(),
                 this.labels(),
                 this.labelReferences(),
                 this.metadatas(),
                 this.rangeToCells(),
                 this.rangeToConditionalFormattingRules(),
+                this.rangeToValidators(),
                 this.rows(),
                 this.users());
     }
@@ -83,12 +98,32 @@ public final class BasicSpreadsheetStoreRepositoryTest implements SpreadsheetSto
                 this.cells(),
                 this.cellReferences(),
                 null,
+                this.conditionalFormattingRuleReferences(),
+                this.groups(),
+                this.labels(),
+                this.labelReferences(),
+                this.metadatas(),
+                this.rangeToCells(),
+                this.rangeToConditionalFormattingRules(),
+                this.rangeToValidators(),
+                this.rows(),
+                this.users());
+    }
+
+    @Test
+    public void testWithNullConditionalFormattingRuleReferencesFails() {
+        this.withFails(
+                this.cells(),
+                this.cellReferences(),
+                this.columns(),
+                null,
                 this.groups(),
                 this.labels(),
                 this.labelReferences(),
                 this.metadatas(),
                 this.rangeToCells(),
                 this.rangeToConditionalFormattingRules(),
+                this.rangeToValidators(),
                 this.rows(),
                 this.users());
     }
@@ -99,12 +134,14 @@ public final class BasicSpreadsheetStoreRepositoryTest implements SpreadsheetSto
                 this.cells(),
                 this.cellReferences(),
                 this.columns(),
+                this.conditionalFormattingRuleReferences(),
                 null,
                 this.labels(),
                 this.labelReferences(),
                 this.metadatas(),
                 this.rangeToCells(),
                 this.rangeToConditionalFormattingRules(),
+                this.rangeToValidators(),
                 this.rows(),
                 this.users());
     }
@@ -115,12 +152,14 @@ public final class BasicSpreadsheetStoreRepositoryTest implements SpreadsheetSto
                 this.cells(),
                 this.cellReferences(),
                 this.columns(),
+                this.conditionalFormattingRuleReferences(),
                 this.groups(),
                 null,
                 this.labelReferences(),
                 this.metadatas(),
                 this.rangeToCells(),
                 this.rangeToConditionalFormattingRules(),
+                this.rangeToValidators(),
                 this.rows(),
                 this.users()
         );
@@ -132,12 +171,14 @@ public final class BasicSpreadsheetStoreRepositoryTest implements SpreadsheetSto
                 this.cells(),
                 this.cellReferences(),
                 this.columns(),
+                this.conditionalFormattingRuleReferences(),
                 this.groups(),
                 this.labels(),
                 null,
                 this.metadatas(),
                 this.rangeToCells(),
                 this.rangeToConditionalFormattingRules(),
+                this.rangeToValidators(),
                 this.rows(),
                 this.users()
         );
@@ -149,12 +190,14 @@ public final class BasicSpreadsheetStoreRepositoryTest implements SpreadsheetSto
                 this.cells(),
                 this.cellReferences(),
                 this.columns(),
+                this.conditionalFormattingRuleReferences(),
                 this.groups(),
                 this.labels(),
                 this.labelReferences(),
                 null,
                 this.rangeToCells(),
                 this.rangeToConditionalFormattingRules(),
+                this.rangeToValidators(),
                 this.rows(),
                 this.users()
         );
@@ -166,12 +209,14 @@ public final class BasicSpreadsheetStoreRepositoryTest implements SpreadsheetSto
                 this.cells(),
                 this.cellReferences(),
                 this.columns(),
+                this.conditionalFormattingRuleReferences(),
                 this.groups(),
                 this.labels(),
                 this.labelReferences(),
                 this.metadatas(),
                 null,
                 this.rangeToConditionalFormattingRules(),
+                this.rangeToValidators(),
                 this.rows(),
                 this.users()
         );
@@ -183,12 +228,33 @@ public final class BasicSpreadsheetStoreRepositoryTest implements SpreadsheetSto
                 this.cells(),
                 this.cellReferences(),
                 this.columns(),
+                this.conditionalFormattingRuleReferences(),
                 this.groups(),
                 this.labels(),
                 this.labelReferences(),
                 this.metadatas(),
                 this.rangeToCells(),
                 null,
+                this.rangeToValidators(),
+                this.rows(),
+                this.users()
+        );
+    }
+
+    @Test
+    public void testWithNullRangeToValidatorsFails() {
+        this.withFails(
+                this.cells(),
+                this.cellReferences(),
+                this.columns(),
+                this.conditionalFormattingRuleReferences(),
+                this.groups(),
+                this.labels(),
+                this.labelReferences(),
+                this.metadatas(),
+                this.rangeToCells(),
+                this.rangeToConditionalFormattingRules(),
+                null,
                 this.rows(),
                 this.users()
         );
@@ -200,12 +266,14 @@ public final class BasicSpreadsheetStoreRepositoryTest implements SpreadsheetSto
                 this.cells(),
                 this.cellReferences(),
                 this.columns(),
+                this.conditionalFormattingRuleReferences(),
                 this.groups(),
                 this.labels(),
                 this.labelReferences(),
                 this.metadatas(),
                 this.rangeToCells(),
                 this.rangeToConditionalFormattingRules(),
+                this.rangeToValidators(),
                 null,
                 this.users()
         );
@@ -217,12 +285,14 @@ public final class BasicSpreadsheetStoreRepositoryTest implements SpreadsheetSto
                 this.cells(),
                 this.cellReferences(),
                 this.columns(),
+                this.conditionalFormattingRuleReferences(),
                 this.groups(),
                 this.labels(),
                 this.labelReferences(),
                 this.metadatas(),
                 this.rangeToCells(),
                 this.rangeToConditionalFormattingRules(),
+                this.rangeToValidators(),
                 this.rows(),
                 null
         );
@@ -231,12 +301,14 @@ public final class BasicSpreadsheetStoreRepositoryTest implements SpreadsheetSto
     private void withFails(final SpreadsheetCellStore cells,
                            final SpreadsheetExpressionReferenceStore<SpreadsheetCellReference> cellReferences,
                            final SpreadsheetColumnStore columns,
+                           final SpreadsheetCellRangeStore<SpreadsheetCellRange> conditionalFormattingRuleReferences,
                            final SpreadsheetGroupStore groups,
                            final SpreadsheetLabelStore labels,
                            final SpreadsheetExpressionReferenceStore<SpreadsheetLabelName> labelReferences,
                            final SpreadsheetMetadataStore metadatas,
                            final SpreadsheetCellRangeStore<SpreadsheetCellReference> rangeToCells,
                            final SpreadsheetCellRangeStore<SpreadsheetConditionalFormattingRule> rangeToConditionalFormattingRules,
+                           final SpreadsheetCellRangeStore<SpreadsheetDataValidator<?>> rangeToValidators,
                            final SpreadsheetRowStore rows,
                            final SpreadsheetUserStore users) {
         assertThrows(
@@ -245,12 +317,14 @@ public final class BasicSpreadsheetStoreRepositoryTest implements SpreadsheetSto
                         cells,
                         cellReferences,
                         columns,
+                        conditionalFormattingRuleReferences,
                         groups,
                         labels,
                         labelReferences,
                         metadatas,
                         rangeToCells,
                         rangeToConditionalFormattingRules,
+                        rangeToValidators,
                         rows,
                         users
                 )
@@ -262,12 +336,14 @@ public final class BasicSpreadsheetStoreRepositoryTest implements SpreadsheetSto
         final SpreadsheetCellStore cells = this.cells();
         final SpreadsheetExpressionReferenceStore<SpreadsheetCellReference> cellReferences = this.cellReferences();
         final SpreadsheetColumnStore columns = this.columns();
+        final SpreadsheetCellRangeStore<SpreadsheetCellRange> conditionalFormattingRuleReferences = this.conditionalFormattingRuleReferences();
         final SpreadsheetGroupStore groups = this.groups();
         final SpreadsheetLabelStore labels = this.labels();
         final SpreadsheetExpressionReferenceStore<SpreadsheetLabelName> labelReferences = this.labelReferences();
         final SpreadsheetCellRangeStore<SpreadsheetCellReference> rangeToCells = this.rangeToCells();
         final SpreadsheetMetadataStore metadatas = this.metadatas();
         final SpreadsheetCellRangeStore<SpreadsheetConditionalFormattingRule> rangeToConditionalFormattingRules = this.rangeToConditionalFormattingRules();
+        final SpreadsheetCellRangeStore<SpreadsheetDataValidator<?>> rangeToValidators = this.rangeToValidators();
         final SpreadsheetRowStore rows = this.rows();
         final SpreadsheetUserStore users = this.users();
 
@@ -276,16 +352,18 @@ public final class BasicSpreadsheetStoreRepositoryTest implements SpreadsheetSto
                         cells,
                         cellReferences,
                         columns,
+                        conditionalFormattingRuleReferences,
                         groups,
                         labels,
                         labelReferences,
                         metadatas,
                         rangeToCells,
                         rangeToConditionalFormattingRules,
+                        rangeToValidators,
                         rows,
                         users
                 ),
-                cells + " " + cellReferences + " " + columns + " " + groups + " " + labels + " " + labelReferences + " " + metadatas + " " + rangeToCells + " " + rangeToConditionalFormattingRules + " " + rows + " " + users);
+                cells + " " + cellReferences + " " + columns + " " + conditionalFormattingRuleReferences + " " + groups + " " + labels + " " + labelReferences + " " + metadatas + " " + rangeToCells + " " + rangeToConditionalFormattingRules + " " + rangeToValidators + " " + rows + " " + users);
     }
 
     @Override
@@ -294,17 +372,194 @@ public final class BasicSpreadsheetStoreRepositoryTest implements SpreadsheetSto
                 this.cells(),
                 this.cellReferences(),
                 this.columns(),
+                this.conditionalFormattingRuleReferences(),
                 this.groups(),
                 this.labels(),
                 this.labelReferences(),
                 this.metadatas(),
                 this.rangeToCells(),
                 this.rangeToConditionalFormattingRules(),
+                this.rangeToValidators(),
                 this.rows(),
                 this.users()
         );
     }
 
+    // conditionalFormattingRuleReferences.............................................................................
+
+    private final static SpreadsheetCellRange RANGE = SpreadsheetSelection.parseCellRange("A1:A2");
+
+    @Test
+    public void testAddRuleSavesConditionalFormattingRuleReferences() {
+        final BasicSpreadsheetStoreRepository repository = this.createStoreRepository();
+
+        repository.rangeToConditionalFormattingRules()
+                .addValue(RANGE, this.rule("B1", Expression.reference(SpreadsheetSelection.parseCell("$B$1"))));
+
+        this.conditionalFormattingRuleReferencesAndCheck(
+                repository,
+                "B1"
+        );
+    }
+
+    @Test
+    public void testAddRuleSecondRuleSavesConditionalFormattingRuleReferences() {
+        final BasicSpreadsheetStoreRepository repository = this.createStoreRepository();
+
+        final SpreadsheetCellRangeStore<SpreadsheetConditionalFormattingRule> rules = repository.rangeToConditionalFormattingRules();
+        rules.addValue(RANGE, this.rule("B1", Expression.reference(SpreadsheetSelection.parseCell("B1"))));
+        rules.addValue(RANGE, this.rule("C1:C2", Expression.reference(SpreadsheetSelection.parseCellRange("C1:C2"))));
+
+        this.conditionalFormattingRuleReferencesAndCheck(
+                repository,
+                "B1",
+                "C1:C2"
+        );
+    }
+
+    @Test
+    public void testAddRuleWholeColumnsKeepsRange() {
+        final BasicSpreadsheetStoreRepository repository = this.createStoreRepository();
+
+        repository.rangeToConditionalFormattingRules()
+                .addValue(RANGE, this.rule("B1:C1048576", Expression.reference(SpreadsheetSelection.parseCellRange("B1:C1048576"))));
+
+        this.conditionalFormattingRuleReferencesAndCheck(
+                repository,
+                "B1:C1048576"
+        );
+        this.checkEquals(
+                1,
+                repository.conditionalFormattingRuleReferences().count(),
+                "count"
+        );
+    }
+
+    @Test
+    public void testLoadCellReferenceValuesIntersectsRanges() {
+        final BasicSpreadsheetStoreRepository repository = this.createStoreRepository();
+
+        final SpreadsheetCellRange other = SpreadsheetSelection.parseCellRange("E1:E2");
+
+        final SpreadsheetCellRangeStore<SpreadsheetConditionalFormattingRule> rules = repository.rangeToConditionalFormattingRules();
+        rules.addValue(RANGE, this.rule("B1:C9", Expression.reference(SpreadsheetSelection.parseCellRange("B1:C9"))));
+        rules.addValue(other, this.rule("C5", Expression.reference(SpreadsheetSelection.parseCell("C5"))));
+
+        final SpreadsheetCellRangeStore<SpreadsheetCellRange> references = repository.conditionalFormattingRuleReferences();
+        this.checkEquals(
+                Sets.of(RANGE),
+                references.loadCellReferenceValues(SpreadsheetSelection.parseCell("B2")),
+                "B2"
+        );
+        this.checkEquals(
+                Sets.of(RANGE, other),
+                references.loadCellReferenceValues(SpreadsheetSelection.parseCell("C5")),
+                "C5"
+        );
+        this.checkEquals(
+                Sets.empty(),
+                references.loadCellReferenceValues(SpreadsheetSelection.parseCell("D1")),
+                "D1"
+        );
+    }
+
+    @Test
+    public void testRemoveRuleSavesConditionalFormattingRuleReferences() {
+        final BasicSpreadsheetStoreRepository repository = this.createStoreRepository();
+
+        final SpreadsheetConditionalFormattingRule b1 = this.rule("B1", Expression.reference(SpreadsheetSelection.parseCell("B1")));
+
+        final SpreadsheetCellRangeStore<SpreadsheetConditionalFormattingRule> rules = repository.rangeToConditionalFormattingRules();
+        rules.addValue(RANGE, b1);
+        rules.addValue(RANGE, this.rule("C1", Expression.reference(SpreadsheetSelection.parseCell("C1"))));
+        rules.removeValue(RANGE, b1);
+
+        this.conditionalFormattingRuleReferencesAndCheck(
+                repository,
+                "C1"
+        );
+    }
+
+    @Test
+    public void testRemoveLastRuleDeletesConditionalFormattingRuleReferences() {
+        final BasicSpreadsheetStoreRepository repository = this.createStoreRepository();
+
+        final SpreadsheetConditionalFormattingRule b1 = this.rule("B1", Expression.reference(SpreadsheetSelection.parseCell("B1")));
+
+        final SpreadsheetCellRangeStore<SpreadsheetConditionalFormattingRule> rules = repository.rangeToConditionalFormattingRules();
+        rules.addValue(RANGE, b1);
+        rules.removeValue(RANGE, b1);
+
+        this.conditionalFormattingRuleReferencesAndCheck(repository);
+    }
+
+    @Test
+    public void testDeleteRangeDeletesConditionalFormattingRuleReferences() {
+        final BasicSpreadsheetStoreRepository repository = this.createStoreRepository();
+
+        final SpreadsheetCellRangeStore<SpreadsheetConditionalFormattingRule> rules = repository.rangeToConditionalFormattingRules();
+        rules.addValue(RANGE, this.rule("B1", Expression.reference(SpreadsheetSelection.parseCell("B1"))));
+        rules.delete(RANGE);
+
+        this.conditionalFormattingRuleReferencesAndCheck(repository);
+    }
+
+    @Test
+    public void testSaveLabelSavesConditionalFormattingRuleReferences() {
+        final BasicSpreadsheetStoreRepository repository = this.createStoreRepository();
+
+        final SpreadsheetLabelName label = SpreadsheetSelection.labelName("Label123");
+
+        repository.rangeToConditionalFormattingRules()
+                .addValue(RANGE, this.rule("Label123", Expression.reference(label)));
+        this.conditionalFormattingRuleReferencesAndCheck(repository);
+
+        repository.labels()
+                .save(label.mapping(SpreadsheetSelection.parseCell("Z9")));
+
+        this.conditionalFormattingRuleReferencesAndCheck(
+                repository,
+                "Z9"
+        );
+
+        repository.labels()
+                .delete(label);
+
+        this.conditionalFormattingRuleReferencesAndCheck(repository);
+    }
+
+    private SpreadsheetConditionalFormattingRule rule(final String text,
+                                                      final Expression reference) {
+        return SpreadsheetConditionalFormattingRule.with(
+                SpreadsheetDescription.with(text),
+                1,
+                SpreadsheetFormula.EMPTY
+                        .setText(text)
+                        .setExpression(Optional.of(reference)),
+                (c) -> TextStyle.EMPTY
+        );
+    }
+
+    private void conditionalFormattingRuleReferencesAndCheck(final BasicSpreadsheetStoreRepository repository,
+                                                             final String... expected) {
+        final Set<SpreadsheetCellRange> ranges = Sets.sorted();
+        for (final String text : expected) {
+            if (text.contains(":")) {
+                ranges.add(SpreadsheetSelection.parseCellRange(text));
+            } else {
+                final SpreadsheetCellReference cell = SpreadsheetSelection.parseCell(text);
+                ranges.add(cell.cellRange(cell));
+            }
+        }
+
+        this.checkEquals(
+                ranges,
+                repository.conditionalFormattingRuleReferences()
+                        .rangesWithValue(RANGE),
+                () -> "conditionalFormattingRuleReferences " + RANGE
+        );
+    }
+
     private SpreadsheetCellStore cells() {
         return SpreadsheetCellStores.fake();
     }
@@ -317,12 +572,16 @@ public final class BasicSpreadsheetStoreRepositoryTest implements SpreadsheetSto
         return SpreadsheetColumnStores.fake();
     }
 
+    private SpreadsheetCellRangeStore<SpreadsheetCellRange> conditionalFormattingRuleReferences() {
+        return SpreadsheetCellRangeStores.treeMap();
+    }
+
     private SpreadsheetGroupStore groups() {
         return SpreadsheetGroupStores.fake();
     }
 
     private SpreadsheetLabelStore labels() {
-        return SpreadsheetLabelStores.fake();
+        return SpreadsheetLabelStores.treeMap();
     }
 
     private SpreadsheetExpressionReferenceStore<SpreadsheetLabelName> labelReferences() {
@@ -338,6 +597,10 @@ public final class BasicSpreadsheetStoreRepositoryTest implements SpreadsheetSto
     }
 
     private SpreadsheetCellRangeStore<SpreadsheetConditionalFormattingRule> rangeToConditionalFormattingRules() {
+        return SpreadsheetCellRangeStores.treeMap();
+    }
+
+    private SpreadsheetCellRangeStore<SpreadsheetDataValidator<?>> rangeToValidators() {
         return SpreadsheetCellRangeStores.fake();
     }
 
@@ -205,12 +205,14 @@ public final class SpreadsheetMetadataAwareSpreadsheetCellStoreSpreadsheetStoreR
                         SpreadsheetCellStores.treeMap(),
                         SpreadsheetExpressionReferenceStores.treeMap(),
                         SpreadsheetColumnStores.treeMap(),
+                        SpreadsheetCellRangeStores.treeMap(),
                         SpreadsheetGroupStores.treeMap(),
                         SpreadsheetLabelStores.treeMap(),
                         SpreadsheetExpressionReferenceStores.treeMap(),
                         metadatas,
                         SpreadsheetCellRangeStores.treeMap(),
                         SpreadsheetCellRangeStores.treeMap(),
+                        SpreadsheetCellRangeStores.treeMap(),
                         SpreadsheetRowStores.treeMap(),
                         SpreadsheetUserStores.treeMap()
                 ),